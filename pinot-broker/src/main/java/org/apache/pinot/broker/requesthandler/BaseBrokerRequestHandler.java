@@ -48,6 +48,7 @@ import org.apache.pinot.broker.api.RequesterIdentity;
 import org.apache.pinot.broker.broker.AccessControlFactory;
 import org.apache.pinot.broker.querylog.QueryLogger;
 import org.apache.pinot.broker.queryquota.QueryQuotaManager;
+import org.apache.pinot.broker.resultcache.BrokerResultCache;
 import org.apache.pinot.broker.routing.BrokerRoutingManager;
 import org.apache.pinot.common.config.provider.TableCache;
 import org.apache.pinot.common.exception.QueryException;
@@ -128,6 +129,7 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
   private final boolean _enableQueryLimitOverride;
   private final boolean _enableDistinctCountBitmapOverride;
   private final Map<Long, QueryServers> _queriesById;
+  private final BrokerResultCache _resultCache;
 
   public BaseBrokerRequestHandler(PinotConfiguration config, BrokerRoutingManager routingManager,
       AccessControlFactory accessControlFactory, QueryQuotaManager queryQuotaManager, TableCache tableCache,
@@ -154,6 +156,18 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
     boolean enableQueryCancellation =
         Boolean.parseBoolean(config.getProperty(Broker.CONFIG_OF_BROKER_ENABLE_QUERY_CANCELLATION));
     _queriesById = enableQueryCancellation ? new ConcurrentHashMap<>() : null;
+    long resultCacheMaxSizeBytes = config.getProperty(Broker.CONFIG_OF_BROKER_RESULT_CACHE_MAX_SIZE_BYTES,
+        Broker.DEFAULT_BROKER_RESULT_CACHE_MAX_SIZE_BYTES);
+    if (resultCacheMaxSizeBytes > 0) {
+      long resultCacheTtlMs =
+          config.getProperty(Broker.CONFIG_OF_BROKER_RESULT_CACHE_TTL_MS, Broker.DEFAULT_BROKER_RESULT_CACHE_TTL_MS);
+      _resultCache = new BrokerResultCache(resultCacheMaxSizeBytes, resultCacheTtlMs, brokerMetrics);
+      _routingManager.addRoutingChangeListener(_resultCache);
+      LOGGER.info("Enabled broker result cache with max size: {} bytes, default TTL: {}ms", resultCacheMaxSizeBytes,
+          resultCacheTtlMs);
+    } else {
+      _resultCache = null;
+    }
     LOGGER.info(
         "Broker Id: {}, timeout: {}ms, query response limit: {}, query log length: {}, query log max rate: {}qps, "
             + "enabling query cancellation: {}", _brokerId, _brokerTimeoutMs, _queryResponseLimit,
@@ -564,6 +578,37 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
       realtimeBrokerRequest.getPinotQuery().setFilterExpression(null);
     }
 
+    // Serve the query from the result cache if an identical query was executed on the same routing recently
+    BrokerResultCache.CacheKey resultCacheKey = null;
+    long resultCacheTtlMs = 0;
+    if (_resultCache != null) {
+      resultCacheTtlMs = _resultCache.getTtlMs(offlineBrokerRequest != null ? offlineTableConfig : null,
+          realtimeBrokerRequest != null ? realtimeTableConfig : null);
+      if (resultCacheTtlMs > 0) {
+        resultCacheKey =
+            BrokerResultCache.getCacheKey(pinotQuery, offlineBrokerRequest, realtimeBrokerRequest, _routingManager);
+      }
+      if (resultCacheKey != null) {
+        Map<String, String> queryOptions = pinotQuery.getQueryOptions();
+        Long maxStalenessMs = queryOptions != null ? QueryOptionsUtils.getMaxStalenessMs(queryOptions) : null;
+        // Max staleness of 0 bypasses the cache lookup, but the result is still cached
+        BrokerResponseNative cachedResponse = maxStalenessMs == null || maxStalenessMs > 0 ? _resultCache.get(
+            rawTableName, resultCacheKey, maxStalenessMs) : null;
+        if (cachedResponse != null) {
+          long totalTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compilationStartTimeNs);
+          cachedResponse.setTimeUsedMs(totalTimeMs);
+          requestContext.setQueryProcessingTime(totalTimeMs);
+          augmentStatistics(requestContext, cachedResponse);
+          _brokerMetrics.addTimedTableValue(rawTableName, BrokerTimer.QUERY_TOTAL_TIME_MS, totalTimeMs,
+              TimeUnit.MILLISECONDS);
+          _queryLogger.log(
+              new QueryLogger.QueryLogParams(requestId, query, requestContext, tableName, 0, new ServerStats(),
+                  cachedResponse, totalTimeMs, requesterIdentity));
+          return cachedResponse;
+        }
+      }
+    }
+
     // Calculate routing table for the query
     // TODO: Modify RoutingManager interface to directly take PinotQuery
     long routingStartTimeNs = System.nanoTime();
@@ -698,6 +743,9 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
 
     brokerResponse.setExceptions(exceptions);
     brokerResponse.setNumSegmentsPrunedByBroker(numPrunedSegmentsTotal);
+    if (resultCacheKey != null) {
+      _resultCache.put(rawTableName, resultCacheKey, brokerResponse, resultCacheTtlMs);
+    }
     long executionEndTimeNs = System.nanoTime();
     _brokerMetrics.addPhaseTiming(rawTableName, BrokerQueryPhase.QUERY_EXECUTION,
         executionEndTimeNs - routingEndTimeNs);
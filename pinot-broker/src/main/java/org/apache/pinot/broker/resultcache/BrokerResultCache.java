@@ -0,0 +1,265 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.resultcache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.pinot.broker.routing.BrokerRoutingManager;
+import org.apache.pinot.broker.routing.RoutingChangeListener;
+import org.apache.pinot.common.metrics.BrokerMeter;
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.request.PinotQuery;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableCustomConfig;
+import org.apache.pinot.spi.utils.CommonConstants.Broker;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code BrokerResultCache} caches the broker responses so that identical queries can be answered by the broker
+ * without fanning out to the servers.
+ *
+ * <p>The cache key is composed of the compiled queries (the original query and the queries sent to the OFFLINE and
+ * REALTIME tables) and the routing versions of the queried tables. The query options that don't affect the result
+ * (e.g. timeout) are excluded from the key. Because the routing version changes whenever the routing of a table is
+ * changed (e.g. on external view change), results computed before the change can never be served afterwards. The
+ * entries of a table are also dropped on routing change to release the memory early.
+ *
+ * <p>Each entry expires after the TTL of the queried tables (configurable per table through the table custom config),
+ * and the {@code maxStalenessMs} query option can further bound the age of the result served for a query. The cache is
+ * bounded by the total size of the serialized responses, and the least recently used entries are evicted first.
+ */
+public class BrokerResultCache implements RoutingChangeListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerResultCache.class);
+
+  private final Cache<CacheKey, CacheEntry> _cache;
+  private final long _defaultTtlMs;
+  private final BrokerMetrics _brokerMetrics;
+
+  public BrokerResultCache(long maxSizeInBytes, long defaultTtlMs, BrokerMetrics brokerMetrics) {
+    _cache = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes)
+        .weigher((CacheKey key, CacheEntry entry) -> entry._responseJson.length()).build();
+    _defaultTtlMs = defaultTtlMs;
+    _brokerMetrics = brokerMetrics;
+  }
+
+  /**
+   * Returns the TTL of the results for the query on the given tables, or 0 if the results should not be cached. The
+   * default TTL can be overridden in the table custom config, and the smaller TTL is picked for hybrid tables.
+   */
+  public long getTtlMs(@Nullable TableConfig offlineTableConfig, @Nullable TableConfig realtimeTableConfig) {
+    return Math.min(getTtlMs(offlineTableConfig), getTtlMs(realtimeTableConfig));
+  }
+
+  private long getTtlMs(@Nullable TableConfig tableConfig) {
+    if (tableConfig == null) {
+      return Long.MAX_VALUE;
+    }
+    TableCustomConfig customConfig = tableConfig.getCustomConfig();
+    Map<String, String> customConfigs = customConfig != null ? customConfig.getCustomConfigs() : null;
+    String ttlMsString =
+        customConfigs != null ? customConfigs.get(Broker.TABLE_CUSTOM_CONFIG_RESULT_CACHE_TTL_MS) : null;
+    if (ttlMsString == null) {
+      return _defaultTtlMs;
+    }
+    try {
+      return Long.parseLong(ttlMsString);
+    } catch (NumberFormatException e) {
+      LOGGER.warn("Invalid result cache TTL: {} for table: {}, using default TTL: {}ms", ttlMsString,
+          tableConfig.getTableName(), _defaultTtlMs);
+      return _defaultTtlMs;
+    }
+  }
+
+  /**
+   * Returns the cache key for the given queries, or {@code null} if the query is not cacheable (explain or trace).
+   * <p>NOTE: The OFFLINE and REALTIME broker requests should already have the table suffix appended.
+   */
+  @Nullable
+  public static CacheKey getCacheKey(PinotQuery pinotQuery, @Nullable BrokerRequest offlineBrokerRequest,
+      @Nullable BrokerRequest realtimeBrokerRequest, BrokerRoutingManager routingManager) {
+    if (pinotQuery.isExplain()) {
+      return null;
+    }
+    Map<String, String> queryOptions = pinotQuery.getQueryOptions();
+    if (queryOptions != null && Boolean.parseBoolean(queryOptions.get(Broker.Request.TRACE))) {
+      return null;
+    }
+    PinotQuery offlinePinotQuery = null;
+    String offlineTableName = null;
+    long offlineRoutingVersion = -1;
+    if (offlineBrokerRequest != null) {
+      offlinePinotQuery = normalize(offlineBrokerRequest.getPinotQuery());
+      offlineTableName = offlineBrokerRequest.getQuerySource().getTableName();
+      offlineRoutingVersion = routingManager.getRoutingVersion(offlineTableName);
+    }
+    PinotQuery realtimePinotQuery = null;
+    String realtimeTableName = null;
+    long realtimeRoutingVersion = -1;
+    if (realtimeBrokerRequest != null) {
+      realtimePinotQuery = normalize(realtimeBrokerRequest.getPinotQuery());
+      realtimeTableName = realtimeBrokerRequest.getQuerySource().getTableName();
+      realtimeRoutingVersion = routingManager.getRoutingVersion(realtimeTableName);
+    }
+    return new CacheKey(normalize(pinotQuery), offlinePinotQuery, offlineTableName, offlineRoutingVersion,
+        realtimePinotQuery, realtimeTableName, realtimeRoutingVersion);
+  }
+
+  /**
+   * Returns a copy of the query without the query options that don't affect the query result.
+   */
+  private static PinotQuery normalize(PinotQuery pinotQuery) {
+    PinotQuery normalizedPinotQuery = pinotQuery.deepCopy();
+    Map<String, String> queryOptions = normalizedPinotQuery.getQueryOptions();
+    if (queryOptions != null) {
+      queryOptions.remove(QueryOptionKey.TIMEOUT_MS);
+      queryOptions.remove(QueryOptionKey.MAX_STALENESS_MS);
+      if (queryOptions.isEmpty()) {
+        normalizedPinotQuery.setQueryOptions(null);
+      }
+    }
+    return normalizedPinotQuery;
+  }
+
+  /**
+   * Returns the cached response for the given key, or {@code null} if there is no cached response or the cached
+   * response is older than the TTL or the given max staleness.
+   */
+  @Nullable
+  public BrokerResponseNative get(String rawTableName, CacheKey cacheKey, @Nullable Long maxStalenessMs) {
+    CacheEntry cacheEntry = _cache.getIfPresent(cacheKey);
+    if (cacheEntry != null) {
+      long ageMs = System.currentTimeMillis() - cacheEntry._creationTimeMs;
+      if (ageMs >= cacheEntry._ttlMs) {
+        _cache.asMap().remove(cacheKey, cacheEntry);
+      } else if (maxStalenessMs == null || ageMs <= maxStalenessMs) {
+        try {
+          BrokerResponseNative brokerResponse = BrokerResponseNative.fromJsonString(cacheEntry._responseJson);
+          _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESULT_CACHE_HITS, 1);
+          return brokerResponse;
+        } catch (Exception e) {
+          LOGGER.warn("Caught exception while deserializing cached response for table: {}", rawTableName, e);
+          _cache.asMap().remove(cacheKey, cacheEntry);
+        }
+      }
+    }
+    _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESULT_CACHE_MISSES, 1);
+    return null;
+  }
+
+  /**
+   * Caches the given response if it is complete, i.e. without exceptions and with all the queried servers responded.
+   */
+  public void put(String rawTableName, CacheKey cacheKey, BrokerResponseNative brokerResponse, long ttlMs) {
+    if (ttlMs <= 0 || brokerResponse.getExceptionsSize() > 0
+        || brokerResponse.getNumServersResponded() < brokerResponse.getNumServersQueried()) {
+      return;
+    }
+    String responseJson;
+    try {
+      responseJson = brokerResponse.toJsonString();
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while serializing response for table: {}, skipping caching it", rawTableName, e);
+      return;
+    }
+    _cache.put(cacheKey, new CacheEntry(responseJson, System.currentTimeMillis(), ttlMs));
+  }
+
+  /**
+   * Drops the cached responses for the table, which can no longer be served after the routing change.
+   */
+  @Override
+  public void onRoutingChange(String tableNameWithType) {
+    _cache.asMap().keySet().removeIf(cacheKey -> cacheKey.containsTable(tableNameWithType));
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  public static class CacheKey {
+    private final PinotQuery _pinotQuery;
+    private final PinotQuery _offlinePinotQuery;
+    private final String _offlineTableName;
+    private final long _offlineRoutingVersion;
+    private final PinotQuery _realtimePinotQuery;
+    private final String _realtimeTableName;
+    private final long _realtimeRoutingVersion;
+    private final int _hashCode;
+
+    private CacheKey(PinotQuery pinotQuery, @Nullable PinotQuery offlinePinotQuery, @Nullable String offlineTableName,
+        long offlineRoutingVersion, @Nullable PinotQuery realtimePinotQuery, @Nullable String realtimeTableName,
+        long realtimeRoutingVersion) {
+      _pinotQuery = pinotQuery;
+      _offlinePinotQuery = offlinePinotQuery;
+      _offlineTableName = offlineTableName;
+      _offlineRoutingVersion = offlineRoutingVersion;
+      _realtimePinotQuery = realtimePinotQuery;
+      _realtimeTableName = realtimeTableName;
+      _realtimeRoutingVersion = realtimeRoutingVersion;
+      _hashCode = Arrays.hashCode(new Object[]{
+          pinotQuery, offlinePinotQuery, offlineRoutingVersion, realtimePinotQuery, realtimeRoutingVersion
+      });
+    }
+
+    boolean containsTable(String tableNameWithType) {
+      return tableNameWithType.equals(_offlineTableName) || tableNameWithType.equals(_realtimeTableName);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return _hashCode == that._hashCode && _offlineRoutingVersion == that._offlineRoutingVersion
+          && _realtimeRoutingVersion == that._realtimeRoutingVersion && _pinotQuery.equals(that._pinotQuery)
+          && Objects.equals(_offlinePinotQuery, that._offlinePinotQuery) && Objects.equals(_realtimePinotQuery,
+          that._realtimePinotQuery);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  private static class CacheEntry {
+    final String _responseJson;
+    final long _creationTimeMs;
+    final long _ttlMs;
+
+    CacheEntry(String responseJson, long creationTimeMs, long ttlMs) {
+      _responseJson = responseJson;
+      _creationTimeMs = creationTimeMs;
+      _ttlMs = ttlMs;
+    }
+  }
+}
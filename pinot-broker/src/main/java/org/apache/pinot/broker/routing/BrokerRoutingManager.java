@@ -27,6 +27,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.apache.helix.AccessOption;
 import org.apache.helix.BaseDataAccessor;
@@ -43,6 +45,7 @@ import org.apache.pinot.broker.routing.adaptiveserverselector.AdaptiveServerSele
 import org.apache.pinot.broker.routing.adaptiveserverselector.AdaptiveServerSelectorFactory;
 import org.apache.pinot.broker.routing.instanceselector.InstanceSelector;
 import org.apache.pinot.broker.routing.instanceselector.InstanceSelectorFactory;
+import org.apache.pinot.broker.routing.segmentpartition.SegmentPartitionMetadataManager;
 import org.apache.pinot.broker.routing.segmentpreselector.SegmentPreSelector;
 import org.apache.pinot.broker.routing.segmentpreselector.SegmentPreSelectorFactory;
 import org.apache.pinot.broker.routing.segmentpruner.SegmentPruner;
@@ -57,10 +60,13 @@ import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.common.utils.HashUtil;
 import org.apache.pinot.core.routing.RoutingManager;
 import org.apache.pinot.core.routing.RoutingTable;
+import org.apache.pinot.core.routing.TablePartitionInfo;
 import org.apache.pinot.core.routing.TimeBoundaryInfo;
 import org.apache.pinot.core.transport.ServerInstance;
 import org.apache.pinot.core.transport.server.routing.stats.ServerRoutingStatsManager;
+import org.apache.pinot.spi.config.table.ColumnPartitionConfig;
 import org.apache.pinot.spi.config.table.QueryConfig;
+import org.apache.pinot.spi.config.table.SegmentPartitionConfig;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.env.PinotConfiguration;
 import org.apache.pinot.spi.utils.CommonConstants.Helix;
@@ -83,6 +89,7 @@ import org.slf4j.LoggerFactory;
  *   <li>{@link #routingExists(String)}: Returns whether the routing exists for a table</li>
  *   <li>{@link #getRoutingTable(BrokerRequest)}: Returns the routing table for a query</li>
  *   <li>{@link #getTimeBoundaryInfo(String)}: Returns the time boundary info for a table</li>
+ *   <li>{@link #getTablePartitionInfo(String)}: Returns the partition info for a table</li>
  *   <li>{@link #getQueryTimeoutMs(String)}: Returns the table-level query timeout in milliseconds for a table</li>
  * </ul>
  *
@@ -97,6 +104,9 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
   private final Map<String, ServerInstance> _enabledServerInstanceMap = new ConcurrentHashMap<>();
   // NOTE: _excludedServers doesn't need to be concurrent because it is only accessed within the synchronized block
   private final Set<String> _excludedServers = new HashSet<>();
+  // Generates the routing version for the tables, which increases whenever the routing of a table is changed
+  private final AtomicLong _routingVersionGenerator = new AtomicLong();
+  private final List<RoutingChangeListener> _routingChangeListeners = new CopyOnWriteArrayList<>();
   private final ServerRoutingStatsManager _serverRoutingStatsManager;
   private final PinotConfiguration _pinotConfig;
 
@@ -125,6 +135,24 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     _propertyStore = helixManager.getHelixPropertyStore();
   }
 
+  /**
+   * Registers a listener to be notified when the routing of a table is changed.
+   */
+  public void addRoutingChangeListener(RoutingChangeListener routingChangeListener) {
+    _routingChangeListeners.add(routingChangeListener);
+  }
+
+  private void notifyRoutingChange(String tableNameWithType) {
+    for (RoutingChangeListener routingChangeListener : _routingChangeListeners) {
+      try {
+        routingChangeListener.onRoutingChange(tableNameWithType);
+      } catch (Exception e) {
+        LOGGER.error("Caught unexpected exception while notifying routing change for table: {}", tableNameWithType,
+            e);
+      }
+    }
+  }
+
   @Override
   public synchronized void processClusterChange(ChangeType changeType) {
     if (changeType == ChangeType.IDEAL_STATE || changeType == ChangeType.EXTERNAL_VIEW) {
@@ -183,6 +211,8 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
               continue;
             }
             routingEntry.onAssignmentChange(idealState, externalView);
+            routingEntry.setRoutingVersion(_routingVersionGenerator.incrementAndGet());
+            notifyRoutingChange(tableNameWithType);
           } catch (Exception e) {
             LOGGER.error(
                 "Caught unexpected exception while updating routing entry on segment assignment change for table: {}",
@@ -484,18 +514,32 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       }
     }
 
+    // Add partition metadata manager if the table is partitioned on a single column
+    SegmentPartitionMetadataManager partitionMetadataManager = null;
+    SegmentPartitionConfig segmentPartitionConfig = tableConfig.getIndexingConfig().getSegmentPartitionConfig();
+    if (segmentPartitionConfig != null && segmentPartitionConfig.getColumnPartitionMap().size() == 1) {
+      Map.Entry<String, ColumnPartitionConfig> entry =
+          segmentPartitionConfig.getColumnPartitionMap().entrySet().iterator().next();
+      LOGGER.info("Adding partition metadata manager for table: {} with partition column: {}", tableNameWithType,
+          entry.getKey());
+      partitionMetadataManager = new SegmentPartitionMetadataManager(tableNameWithType, entry.getKey(),
+          entry.getValue().getFunctionName(), entry.getValue().getNumPartitions(), _propertyStore);
+      partitionMetadataManager.init(idealState, externalView, preSelectedOnlineSegments);
+    }
+
     QueryConfig queryConfig = tableConfig.getQueryConfig();
     Long queryTimeoutMs = queryConfig != null ? queryConfig.getTimeoutMs() : null;
 
     RoutingEntry routingEntry =
         new RoutingEntry(tableNameWithType, idealStatePath, externalViewPath, segmentPreSelector, segmentSelector,
             segmentPruners, instanceSelector, idealStateVersion, externalViewVersion, timeBoundaryManager,
-            queryTimeoutMs);
+            partitionMetadataManager, queryTimeoutMs, _routingVersionGenerator.incrementAndGet());
     if (_routingEntryMap.put(tableNameWithType, routingEntry) == null) {
       LOGGER.info("Built routing for table: {}", tableNameWithType);
     } else {
       LOGGER.info("Rebuilt routing for table: {}", tableNameWithType);
     }
+    notifyRoutingChange(tableNameWithType);
   }
 
   /**
@@ -533,6 +577,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
           LOGGER.info("Removed time boundary manager for table: {}", offlineTableName);
         }
       }
+      notifyRoutingChange(tableNameWithType);
     } else {
       LOGGER.warn("Routing does not exist for table: {}, skipping removing routing", tableNameWithType);
     }
@@ -546,7 +591,9 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     RoutingEntry routingEntry = _routingEntryMap.get(tableNameWithType);
     if (routingEntry != null) {
       routingEntry.refreshSegment(segment);
+      routingEntry.setRoutingVersion(_routingVersionGenerator.incrementAndGet());
       LOGGER.info("Refreshed segment: {} for table: {}", segment, tableNameWithType);
+      notifyRoutingChange(tableNameWithType);
     } else {
       LOGGER.warn("Routing does not exist for table: {}, skipping refreshing segment", tableNameWithType);
     }
@@ -618,6 +665,21 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     return timeBoundaryManager != null ? timeBoundaryManager.getTimeBoundaryInfo() : null;
   }
 
+  /**
+   * Returns the partition info for the given table, or {@code null} if the routing does not exist or the table is not
+   * partitioned on a single column.
+   */
+  @Nullable
+  @Override
+  public TablePartitionInfo getTablePartitionInfo(String tableNameWithType) {
+    RoutingEntry routingEntry = _routingEntryMap.get(tableNameWithType);
+    if (routingEntry == null) {
+      return null;
+    }
+    SegmentPartitionMetadataManager partitionMetadataManager = routingEntry.getPartitionMetadataManager();
+    return partitionMetadataManager != null ? partitionMetadataManager.getTablePartitionInfo() : null;
+  }
+
   /**
    * Returns the table-level query timeout in milliseconds for the given table, or {@code null} if the timeout is not
    * configured in the table config.
@@ -628,6 +690,15 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     return routingEntry != null ? routingEntry.getQueryTimeoutMs() : null;
   }
 
+  /**
+   * Returns the routing version for the given table, or -1 if the routing does not exist. The routing version changes
+   * whenever the routing of the table is changed, and can be used to detect stale query results.
+   */
+  public long getRoutingVersion(String tableNameWithType) {
+    RoutingEntry routingEntry = _routingEntryMap.get(tableNameWithType);
+    return routingEntry != null ? routingEntry.getRoutingVersion() : -1;
+  }
+
   private static class RoutingEntry {
     final String _tableNameWithType;
     final String _idealStatePath;
@@ -636,6 +707,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     final SegmentSelector _segmentSelector;
     final List<SegmentPruner> _segmentPruners;
     final InstanceSelector _instanceSelector;
+    final SegmentPartitionMetadataManager _partitionMetadataManager;
     final Long _queryTimeoutMs;
 
     // Cache IdealState and ExternalView version for the last update
@@ -643,11 +715,14 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     transient int _lastUpdateExternalViewVersion;
     // Time boundary manager is only available for the offline part of the hybrid table
     transient TimeBoundaryManager _timeBoundaryManager;
+    transient long _routingVersion;
 
     RoutingEntry(String tableNameWithType, String idealStatePath, String externalViewPath,
         SegmentPreSelector segmentPreSelector, SegmentSelector segmentSelector, List<SegmentPruner> segmentPruners,
         InstanceSelector instanceSelector, int lastUpdateIdealStateVersion, int lastUpdateExternalViewVersion,
-        @Nullable TimeBoundaryManager timeBoundaryManager, @Nullable Long queryTimeoutMs) {
+        @Nullable TimeBoundaryManager timeBoundaryManager,
+        @Nullable SegmentPartitionMetadataManager partitionMetadataManager, @Nullable Long queryTimeoutMs,
+        long routingVersion) {
       _tableNameWithType = tableNameWithType;
       _idealStatePath = idealStatePath;
       _externalViewPath = externalViewPath;
@@ -658,7 +733,9 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       _lastUpdateIdealStateVersion = lastUpdateIdealStateVersion;
       _lastUpdateExternalViewVersion = lastUpdateExternalViewVersion;
       _timeBoundaryManager = timeBoundaryManager;
+      _partitionMetadataManager = partitionMetadataManager;
       _queryTimeoutMs = queryTimeoutMs;
+      _routingVersion = routingVersion;
     }
 
     String getTableNameWithType() {
@@ -682,10 +759,23 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       return _timeBoundaryManager;
     }
 
+    @Nullable
+    SegmentPartitionMetadataManager getPartitionMetadataManager() {
+      return _partitionMetadataManager;
+    }
+
     Long getQueryTimeoutMs() {
       return _queryTimeoutMs;
     }
 
+    long getRoutingVersion() {
+      return _routingVersion;
+    }
+
+    void setRoutingVersion(long routingVersion) {
+      _routingVersion = routingVersion;
+    }
+
     // NOTE: The change gets applied in sequence, and before change applied to all components, there could be some
     // inconsistency between components, which is fine because the inconsistency only exists for the newly changed
     // segments and only lasts for a very short time.
@@ -700,6 +790,9 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       if (_timeBoundaryManager != null) {
         _timeBoundaryManager.onAssignmentChange(idealState, externalView, preSelectedOnlineSegments);
       }
+      if (_partitionMetadataManager != null) {
+        _partitionMetadataManager.onAssignmentChange(idealState, externalView, preSelectedOnlineSegments);
+      }
       _lastUpdateIdealStateVersion = idealState.getStat().getVersion();
       _lastUpdateExternalViewVersion = externalView.getStat().getVersion();
     }
@@ -715,6 +808,9 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       if (_timeBoundaryManager != null) {
         _timeBoundaryManager.refreshSegment(segment);
       }
+      if (_partitionMetadataManager != null) {
+        _partitionMetadataManager.refreshSegment(segment);
+      }
     }
 
     InstanceSelector.SelectionResult calculateRouting(BrokerRequest brokerRequest) {
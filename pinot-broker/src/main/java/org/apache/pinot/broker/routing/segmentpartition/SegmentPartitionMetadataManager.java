@@ -0,0 +1,254 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.routing.segmentpartition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.helix.AccessOption;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.pinot.broker.routing.segmentpreselector.SegmentPreSelector;
+import org.apache.pinot.common.metadata.ZKMetadataProvider;
+import org.apache.pinot.common.metadata.segment.SegmentPartitionMetadata;
+import org.apache.pinot.core.routing.TablePartitionInfo;
+import org.apache.pinot.core.routing.TablePartitionInfo.PartitionInfo;
+import org.apache.pinot.segment.spi.partition.metadata.ColumnPartitionMetadata;
+import org.apache.pinot.spi.utils.CommonConstants.Helix.StateModel.SegmentStateModel;
+import org.apache.pinot.spi.utils.CommonConstants.Segment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code SegmentPartitionMetadataManager} manages the partition information of the segments of a table partitioned
+ * on a single column. It tracks the partition of each online segment (from the segment ZK metadata), and the servers
+ * hosting all the segments of each partition (from the external view), so that the multi-stage query engine can
+ * process the same partition of different tables on the same server.
+ */
+public class SegmentPartitionMetadataManager {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentPartitionMetadataManager.class);
+  private static final int INVALID_PARTITION_ID = -1;
+
+  private final String _tableNameWithType;
+  private final String _partitionColumn;
+  private final String _partitionFunctionName;
+  private final int _numPartitions;
+  private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
+  private final String _segmentZKMetadataPathPrefix;
+  // Partition id of each online segment, or INVALID_PARTITION_ID if the segment does not belong to a single partition
+  private final Map<String, Integer> _segmentPartitionIdMap = new HashMap<>();
+  // Servers with ONLINE/CONSUMING state for each online segment in the external view
+  private final Map<String, Set<String>> _segmentServersMap = new HashMap<>();
+
+  private volatile TablePartitionInfo _tablePartitionInfo;
+
+  public SegmentPartitionMetadataManager(String tableNameWithType, String partitionColumn,
+      String partitionFunctionName, int numPartitions, ZkHelixPropertyStore<ZNRecord> propertyStore) {
+    _tableNameWithType = tableNameWithType;
+    _partitionColumn = partitionColumn;
+    _partitionFunctionName = partitionFunctionName;
+    _numPartitions = numPartitions;
+    _propertyStore = propertyStore;
+    _segmentZKMetadataPathPrefix = ZKMetadataProvider.constructPropertyStorePathForResource(tableNameWithType) + "/";
+  }
+
+  /**
+   * Initializes the partition metadata manager with the ideal state, external view and online segments (segments with
+   * ONLINE/CONSUMING instances in the ideal state and pre-selected by the {@link SegmentPreSelector}). Should be called
+   * only once before calling other methods.
+   * <p>NOTE: {@code idealState} is unused, but intentionally passed in in case it is needed in the future.
+   */
+  @SuppressWarnings("unused")
+  public void init(IdealState idealState, ExternalView externalView, Set<String> onlineSegments) {
+    // Bulk load partition info for all online segments
+    int numSegments = onlineSegments.size();
+    List<String> segments = new ArrayList<>(numSegments);
+    List<String> segmentZKMetadataPaths = new ArrayList<>(numSegments);
+    for (String segment : onlineSegments) {
+      segments.add(segment);
+      segmentZKMetadataPaths.add(_segmentZKMetadataPathPrefix + segment);
+    }
+    List<ZNRecord> znRecords = _propertyStore.get(segmentZKMetadataPaths, null, AccessOption.PERSISTENT, false);
+    for (int i = 0; i < numSegments; i++) {
+      String segment = segments.get(i);
+      Integer partitionId = extractPartitionIdFromSegmentZKMetadataZNRecord(segment, znRecords.get(i));
+      if (partitionId != null) {
+        _segmentPartitionIdMap.put(segment, partitionId);
+      }
+    }
+    updateSegmentServers(externalView, onlineSegments);
+    updateTablePartitionInfo();
+  }
+
+  /**
+   * NOTE: Returns {@code null} when the ZNRecord is missing (could be transient Helix issue). Returns
+   *       {@link #INVALID_PARTITION_ID} when the segment does not have valid partition metadata matching the table
+   *       partition config, or belongs to more than one partition, in which case we won't retry later.
+   */
+  @Nullable
+  private Integer extractPartitionIdFromSegmentZKMetadataZNRecord(String segment, @Nullable ZNRecord znRecord) {
+    if (znRecord == null) {
+      LOGGER.warn("Failed to find segment ZK metadata for segment: {}, table: {}", segment, _tableNameWithType);
+      return null;
+    }
+
+    String partitionMetadataJson = znRecord.getSimpleField(Segment.PARTITION_METADATA);
+    if (partitionMetadataJson == null) {
+      LOGGER.warn("Failed to find segment partition metadata for segment: {}, table: {}", segment, _tableNameWithType);
+      return INVALID_PARTITION_ID;
+    }
+
+    SegmentPartitionMetadata segmentPartitionMetadata;
+    try {
+      segmentPartitionMetadata = SegmentPartitionMetadata.fromJsonString(partitionMetadataJson);
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while extracting segment partition metadata for segment: {}, table: {}", segment,
+          _tableNameWithType, e);
+      return INVALID_PARTITION_ID;
+    }
+
+    ColumnPartitionMetadata columnPartitionMetadata =
+        segmentPartitionMetadata.getColumnPartitionMap().get(_partitionColumn);
+    if (columnPartitionMetadata == null) {
+      LOGGER.warn("Failed to find column partition metadata for column: {}, segment: {}, table: {}", _partitionColumn,
+          segment, _tableNameWithType);
+      return INVALID_PARTITION_ID;
+    }
+    if (!_partitionFunctionName.equalsIgnoreCase(columnPartitionMetadata.getFunctionName())
+        || _numPartitions != columnPartitionMetadata.getNumPartitions()) {
+      LOGGER.warn("Partition function: {} with {} partitions for segment: {} does not match the table partition "
+              + "config: {} with {} partitions, table: {}", columnPartitionMetadata.getFunctionName(),
+          columnPartitionMetadata.getNumPartitions(), segment, _partitionFunctionName, _numPartitions,
+          _tableNameWithType);
+      return INVALID_PARTITION_ID;
+    }
+    Set<Integer> partitions = columnPartitionMetadata.getPartitions();
+    if (partitions.size() != 1) {
+      LOGGER.warn("Segment: {} has {} partitions for column: {}, table: {}", segment, partitions.size(),
+          _partitionColumn, _tableNameWithType);
+      return INVALID_PARTITION_ID;
+    }
+    return partitions.iterator().next();
+  }
+
+  private void updateSegmentServers(ExternalView externalView, Set<String> onlineSegments) {
+    _segmentServersMap.clear();
+    for (String segment : onlineSegments) {
+      Map<String, String> instanceStateMap = externalView.getStateMap(segment);
+      if (instanceStateMap == null) {
+        continue;
+      }
+      Set<String> servers = new HashSet<>();
+      for (Map.Entry<String, String> entry : instanceStateMap.entrySet()) {
+        String state = entry.getValue();
+        if (SegmentStateModel.ONLINE.equals(state) || SegmentStateModel.CONSUMING.equals(state)) {
+          servers.add(entry.getKey());
+        }
+      }
+      _segmentServersMap.put(segment, servers);
+    }
+  }
+
+  private void updateTablePartitionInfo() {
+    List<List<String>> segmentsByPartition = new ArrayList<>(_numPartitions);
+    List<Set<String>> fullyReplicatedServersByPartition = new ArrayList<>(_numPartitions);
+    for (int i = 0; i < _numPartitions; i++) {
+      segmentsByPartition.add(new ArrayList<>());
+      fullyReplicatedServersByPartition.add(null);
+    }
+    List<String> segmentsWithInvalidPartition = new ArrayList<>();
+    for (Map.Entry<String, Integer> entry : _segmentPartitionIdMap.entrySet()) {
+      String segment = entry.getKey();
+      int partitionId = entry.getValue();
+      if (partitionId < 0 || partitionId >= _numPartitions) {
+        segmentsWithInvalidPartition.add(segment);
+        continue;
+      }
+      segmentsByPartition.get(partitionId).add(segment);
+      // NOTE: Segments not served by any server yet are not routed, so they don't restrict the servers of the partition
+      Set<String> servers = _segmentServersMap.get(segment);
+      if (servers == null || servers.isEmpty()) {
+        continue;
+      }
+      Set<String> fullyReplicatedServers = fullyReplicatedServersByPartition.get(partitionId);
+      if (fullyReplicatedServers == null) {
+        fullyReplicatedServersByPartition.set(partitionId, new HashSet<>(servers));
+      } else {
+        fullyReplicatedServers.retainAll(servers);
+      }
+    }
+    PartitionInfo[] partitionInfoMap = new PartitionInfo[_numPartitions];
+    for (int i = 0; i < _numPartitions; i++) {
+      Set<String> fullyReplicatedServers = fullyReplicatedServersByPartition.get(i);
+      partitionInfoMap[i] = new PartitionInfo(
+          fullyReplicatedServers != null ? fullyReplicatedServers : Collections.emptySet(), segmentsByPartition.get(i));
+    }
+    if (!segmentsWithInvalidPartition.isEmpty()) {
+      LOGGER.warn("Found {} segments with invalid partition for table: {}", segmentsWithInvalidPartition.size(),
+          _tableNameWithType);
+    }
+    _tablePartitionInfo = new TablePartitionInfo(_tableNameWithType, _partitionColumn, _partitionFunctionName,
+        _numPartitions, partitionInfoMap, segmentsWithInvalidPartition);
+  }
+
+  /**
+   * Processes the segment assignment (ideal state or external view) change based on the given online segments (segments
+   * with ONLINE/CONSUMING instances in the ideal state and pre-selected by the {@link SegmentPreSelector}).
+   * <p>NOTE: We don't update all the segment ZK metadata for every external view change, but only the new added/removed
+   * ones. The refreshed segment ZK metadata change won't be picked up.
+   * <p>NOTE: {@code idealState} is unused, but intentionally passed in in case it is needed in the future.
+   */
+  @SuppressWarnings("unused")
+  public synchronized void onAssignmentChange(IdealState idealState, ExternalView externalView,
+      Set<String> onlineSegments) {
+    for (String segment : onlineSegments) {
+      _segmentPartitionIdMap.computeIfAbsent(segment, k -> extractPartitionIdFromSegmentZKMetadataZNRecord(k,
+          _propertyStore.get(_segmentZKMetadataPathPrefix + k, null, AccessOption.PERSISTENT)));
+    }
+    _segmentPartitionIdMap.keySet().retainAll(onlineSegments);
+    updateSegmentServers(externalView, onlineSegments);
+    updateTablePartitionInfo();
+  }
+
+  /**
+   * Refreshes the metadata for the given segment (called when segment is getting refreshed).
+   */
+  public synchronized void refreshSegment(String segment) {
+    Integer partitionId = extractPartitionIdFromSegmentZKMetadataZNRecord(segment,
+        _propertyStore.get(_segmentZKMetadataPathPrefix + segment, null, AccessOption.PERSISTENT));
+    if (partitionId != null) {
+      _segmentPartitionIdMap.put(segment, partitionId);
+    } else {
+      _segmentPartitionIdMap.remove(segment);
+    }
+    updateTablePartitionInfo();
+  }
+
+  public TablePartitionInfo getTablePartitionInfo() {
+    return _tablePartitionInfo;
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.resultcache;
+
+import java.util.Collections;
+import org.apache.pinot.broker.routing.BrokerRoutingManager;
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.response.broker.ResultTable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableCustomConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.utils.CommonConstants.Broker;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.apache.pinot.sql.parsers.CalciteSqlCompiler;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+
+public class BrokerResultCacheTest {
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String OFFLINE_TABLE_NAME = "testTable_OFFLINE";
+
+  @Test
+  public void testGetAndPut() {
+    BrokerRoutingManager routingManager = mock(BrokerRoutingManager.class);
+    when(routingManager.getRoutingVersion(OFFLINE_TABLE_NAME)).thenReturn(1L);
+    BrokerResultCache resultCache = new BrokerResultCache(1024 * 1024, 60_000L, mock(BrokerMetrics.class));
+
+    BrokerResultCache.CacheKey cacheKey = getCacheKey("SELECT COUNT(*) FROM testTable", routingManager);
+    assertNotNull(cacheKey);
+    assertNull(resultCache.get(RAW_TABLE_NAME, cacheKey, null));
+    resultCache.put(RAW_TABLE_NAME, cacheKey, getBrokerResponse(10L), 60_000L);
+    BrokerResponseNative cachedResponse = resultCache.get(RAW_TABLE_NAME, cacheKey, null);
+    assertNotNull(cachedResponse);
+    assertEquals(((Number) cachedResponse.getResultTable().getRows().get(0)[0]).longValue(), 10L);
+
+    // Query options that don't affect the result should not affect the cache key
+    assertNotNull(resultCache.get(RAW_TABLE_NAME,
+        getCacheKey("SET timeoutMs = 1000; SELECT COUNT(*) FROM testTable", routingManager), null));
+    assertNull(resultCache.get(RAW_TABLE_NAME,
+        getCacheKey("SELECT COUNT(*) FROM testTable WHERE col = 1", routingManager), null));
+
+    // Explain and trace queries should not be cached
+    assertNull(getCacheKey("EXPLAIN PLAN FOR SELECT COUNT(*) FROM testTable", routingManager));
+    assertNull(getCacheKey("SET trace = true; SELECT COUNT(*) FROM testTable", routingManager));
+
+    // Partial response should not be cached
+    BrokerResultCache.CacheKey cacheKeyWithFilter =
+        getCacheKey("SELECT COUNT(*) FROM testTable WHERE col = 2", routingManager);
+    BrokerResponseNative partialResponse = getBrokerResponse(5L);
+    partialResponse.setNumServersQueried(2);
+    partialResponse.setNumServersResponded(1);
+    resultCache.put(RAW_TABLE_NAME, cacheKeyWithFilter, partialResponse, 60_000L);
+    assertNull(resultCache.get(RAW_TABLE_NAME, cacheKeyWithFilter, null));
+    assertEquals(resultCache.size(), 1);
+  }
+
+  @Test
+  public void testExpiration()
+      throws Exception {
+    BrokerRoutingManager routingManager = mock(BrokerRoutingManager.class);
+    when(routingManager.getRoutingVersion(OFFLINE_TABLE_NAME)).thenReturn(1L);
+    BrokerResultCache resultCache = new BrokerResultCache(1024 * 1024, 60_000L, mock(BrokerMetrics.class));
+
+    BrokerResultCache.CacheKey cacheKey = getCacheKey("SELECT COUNT(*) FROM testTable", routingManager);
+    resultCache.put(RAW_TABLE_NAME, cacheKey, getBrokerResponse(10L), 60_000L);
+    Thread.sleep(10L);
+    // Max staleness
+    assertNull(resultCache.get(RAW_TABLE_NAME, cacheKey, 1L));
+    assertNotNull(resultCache.get(RAW_TABLE_NAME, cacheKey, 60_000L));
+
+    // TTL
+    resultCache.put(RAW_TABLE_NAME, cacheKey, getBrokerResponse(10L), 1L);
+    Thread.sleep(10L);
+    assertNull(resultCache.get(RAW_TABLE_NAME, cacheKey, null));
+    assertEquals(resultCache.size(), 0);
+
+    // TTL overridden in the table custom config
+    TableConfig tableConfig = new TableConfigBuilder(TableType.OFFLINE).setTableName(RAW_TABLE_NAME).build();
+    assertEquals(resultCache.getTtlMs(tableConfig, null), 60_000L);
+    tableConfig.setCustomConfig(
+        new TableCustomConfig(Collections.singletonMap(Broker.TABLE_CUSTOM_CONFIG_RESULT_CACHE_TTL_MS, "0")));
+    assertEquals(resultCache.getTtlMs(tableConfig, null), 0L);
+  }
+
+  @Test
+  public void testRoutingChange() {
+    BrokerRoutingManager routingManager = mock(BrokerRoutingManager.class);
+    when(routingManager.getRoutingVersion(OFFLINE_TABLE_NAME)).thenReturn(1L);
+    BrokerResultCache resultCache = new BrokerResultCache(1024 * 1024, 60_000L, mock(BrokerMetrics.class));
+
+    String query = "SELECT COUNT(*) FROM testTable";
+    BrokerResultCache.CacheKey cacheKey = getCacheKey(query, routingManager);
+    resultCache.put(RAW_TABLE_NAME, cacheKey, getBrokerResponse(10L), 60_000L);
+
+    // Cached result should not be served after the routing version changes
+    when(routingManager.getRoutingVersion(OFFLINE_TABLE_NAME)).thenReturn(2L);
+    assertNull(resultCache.get(RAW_TABLE_NAME, getCacheKey(query, routingManager), null));
+    assertNotNull(resultCache.get(RAW_TABLE_NAME, cacheKey, null));
+
+    // Cached results should be dropped on routing change
+    resultCache.onRoutingChange("otherTable_OFFLINE");
+    assertEquals(resultCache.size(), 1);
+    resultCache.onRoutingChange(OFFLINE_TABLE_NAME);
+    assertEquals(resultCache.size(), 0);
+  }
+
+  private static BrokerResultCache.CacheKey getCacheKey(String query, BrokerRoutingManager routingManager) {
+    BrokerRequest brokerRequest = CalciteSqlCompiler.compileToBrokerRequest(query);
+    BrokerRequest offlineBrokerRequest = CalciteSqlCompiler.compileToBrokerRequest(query);
+    offlineBrokerRequest.getPinotQuery().getDataSource().setTableName(OFFLINE_TABLE_NAME);
+    offlineBrokerRequest.getQuerySource().setTableName(OFFLINE_TABLE_NAME);
+    return BrokerResultCache.getCacheKey(brokerRequest.getPinotQuery(), offlineBrokerRequest, null, routingManager);
+  }
+
+  private static BrokerResponseNative getBrokerResponse(long count) {
+    BrokerResponseNative brokerResponse = new BrokerResponseNative();
+    brokerResponse.setResultTable(new ResultTable(
+        new DataSchema(new String[]{"count(*)"}, new ColumnDataType[]{ColumnDataType.LONG}),
+        Collections.singletonList(new Object[]{count})));
+    brokerResponse.setNumServersQueried(1);
+    brokerResponse.setNumServersResponded(1);
+    return brokerResponse;
+  }
+}
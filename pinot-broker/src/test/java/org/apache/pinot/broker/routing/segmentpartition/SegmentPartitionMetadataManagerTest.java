@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.routing.segmentpartition;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.pinot.common.metadata.ZKMetadataProvider;
+import org.apache.pinot.common.metadata.segment.SegmentPartitionMetadata;
+import org.apache.pinot.core.routing.TablePartitionInfo;
+import org.apache.pinot.segment.spi.partition.metadata.ColumnPartitionMetadata;
+import org.apache.pinot.spi.utils.CommonConstants.Segment;
+import org.testng.annotations.Test;
+
+import static org.apache.pinot.spi.utils.CommonConstants.Helix.StateModel.SegmentStateModel.CONSUMING;
+import static org.apache.pinot.spi.utils.CommonConstants.Helix.StateModel.SegmentStateModel.OFFLINE;
+import static org.apache.pinot.spi.utils.CommonConstants.Helix.StateModel.SegmentStateModel.ONLINE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+public class SegmentPartitionMetadataManagerTest {
+  private static final String TABLE_NAME_WITH_TYPE = "testTable_OFFLINE";
+  private static final String PARTITION_COLUMN = "memberId";
+  private static final String PARTITION_FUNCTION = "Modulo";
+  private static final int NUM_PARTITIONS = 2;
+
+  private final Map<String, ZNRecord> _znRecordMap = new HashMap<>();
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testPartitionMetadataManager() {
+    ZkHelixPropertyStore<ZNRecord> propertyStore = mock(ZkHelixPropertyStore.class);
+    when(propertyStore.get(anyString(), any(), anyInt())).thenAnswer(
+        invocation -> _znRecordMap.get((String) invocation.getArgument(0)));
+    when(propertyStore.get(anyList(), any(), anyInt(), anyBoolean())).thenAnswer(invocation -> {
+      List<String> paths = invocation.getArgument(0);
+      return paths.stream().map(_znRecordMap::get).collect(Collectors.toList());
+    });
+
+    ExternalView externalView = new ExternalView(TABLE_NAME_WITH_TYPE);
+    Map<String, Map<String, String>> segmentAssignment = externalView.getRecord().getMapFields();
+    Set<String> onlineSegments = new HashSet<>();
+    // NOTE: Ideal state is not used in the current implementation.
+    IdealState idealState = new IdealState("");
+
+    // Start with segments in partition 0 on 2 servers, and 1 segment in partition 1 on 1 server
+    setSegmentPartition("segment0", PARTITION_FUNCTION, 0);
+    setSegmentPartition("segment1", PARTITION_FUNCTION, 0);
+    setSegmentPartition("segment2", PARTITION_FUNCTION, 1);
+    onlineSegments.addAll(Arrays.asList("segment0", "segment1", "segment2"));
+    segmentAssignment.put("segment0", ImmutableMap.of("server0", ONLINE, "server1", ONLINE));
+    segmentAssignment.put("segment1", ImmutableMap.of("server0", ONLINE, "server1", ONLINE, "server2", ONLINE));
+    segmentAssignment.put("segment2", ImmutableMap.of("server1", CONSUMING, "server2", OFFLINE));
+    SegmentPartitionMetadataManager partitionMetadataManager =
+        new SegmentPartitionMetadataManager(TABLE_NAME_WITH_TYPE, PARTITION_COLUMN, "modulo", NUM_PARTITIONS,
+            propertyStore);
+    partitionMetadataManager.init(idealState, externalView, onlineSegments);
+    TablePartitionInfo tablePartitionInfo = partitionMetadataManager.getTablePartitionInfo();
+    assertEquals(tablePartitionInfo.getPartitionColumn(), PARTITION_COLUMN);
+    assertEquals(tablePartitionInfo.getNumPartitions(), NUM_PARTITIONS);
+    verifyPartition(tablePartitionInfo, 0, Arrays.asList("segment0", "segment1"), Arrays.asList("server0", "server1"));
+    verifyPartition(tablePartitionInfo, 1, Collections.singletonList("segment2"), Collections.singletonList("server1"));
+    assertTrue(tablePartitionInfo.getSegmentsWithInvalidPartition().isEmpty());
+
+    // Segment without partition metadata, or with a different partition function should be invalid
+    _znRecordMap.put(getPath("segment3"), new ZNRecord("segment3"));
+    setSegmentPartition("segment4", "Murmur", 1);
+    onlineSegments.addAll(Arrays.asList("segment3", "segment4"));
+    segmentAssignment.put("segment3", ImmutableMap.of("server0", ONLINE));
+    segmentAssignment.put("segment4", ImmutableMap.of("server0", ONLINE));
+    partitionMetadataManager.onAssignmentChange(idealState, externalView, onlineSegments);
+    tablePartitionInfo = partitionMetadataManager.getTablePartitionInfo();
+    verifyPartition(tablePartitionInfo, 1, Collections.singletonList("segment2"), Collections.singletonList("server1"));
+    assertEquals(new HashSet<>(tablePartitionInfo.getSegmentsWithInvalidPartition()),
+        new HashSet<>(Arrays.asList("segment3", "segment4")));
+
+    // Moving a replica should update the fully replicated servers
+    segmentAssignment.put("segment0", ImmutableMap.of("server1", ONLINE, "server2", ONLINE));
+    partitionMetadataManager.onAssignmentChange(idealState, externalView, onlineSegments);
+    verifyPartition(partitionMetadataManager.getTablePartitionInfo(), 0, Arrays.asList("segment0", "segment1"),
+        Arrays.asList("server1", "server2"));
+
+    // Refreshed segment should pick up the new partition
+    setSegmentPartition("segment4", PARTITION_FUNCTION, 1);
+    partitionMetadataManager.refreshSegment("segment4");
+    tablePartitionInfo = partitionMetadataManager.getTablePartitionInfo();
+    verifyPartition(tablePartitionInfo, 1, Arrays.asList("segment2", "segment4"), Collections.emptyList());
+    assertEquals(tablePartitionInfo.getSegmentsWithInvalidPartition(), Collections.singletonList("segment3"));
+
+    // Removed segments should be dropped
+    onlineSegments.removeAll(Arrays.asList("segment1", "segment3", "segment4"));
+    partitionMetadataManager.onAssignmentChange(idealState, externalView, onlineSegments);
+    tablePartitionInfo = partitionMetadataManager.getTablePartitionInfo();
+    verifyPartition(tablePartitionInfo, 0, Collections.singletonList("segment0"), Arrays.asList("server1", "server2"));
+    verifyPartition(tablePartitionInfo, 1, Collections.singletonList("segment2"), Collections.singletonList("server1"));
+    assertTrue(tablePartitionInfo.getSegmentsWithInvalidPartition().isEmpty());
+  }
+
+  private void verifyPartition(TablePartitionInfo tablePartitionInfo, int partitionId, List<String> expectedSegments,
+      List<String> expectedServers) {
+    TablePartitionInfo.PartitionInfo partitionInfo = tablePartitionInfo.getPartitionInfoMap()[partitionId];
+    assertEquals(new HashSet<>(partitionInfo.getSegments()), new HashSet<>(expectedSegments));
+    assertEquals(partitionInfo.getFullyReplicatedServers(), new HashSet<>(expectedServers));
+  }
+
+  private void setSegmentPartition(String segment, String partitionFunction, int partitionId) {
+    ZNRecord znRecord = new ZNRecord(segment);
+    SegmentPartitionMetadata segmentPartitionMetadata = new SegmentPartitionMetadata(Collections.singletonMap(
+        PARTITION_COLUMN,
+        new ColumnPartitionMetadata(partitionFunction, NUM_PARTITIONS, Collections.singleton(partitionId), null)));
+    try {
+      znRecord.setSimpleField(Segment.PARTITION_METADATA, segmentPartitionMetadata.toJsonString());
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    _znRecordMap.put(getPath(segment), znRecord);
+  }
+
+  private static String getPath(String segment) {
+    return ZKMetadataProvider.constructPropertyStorePathForResource(TABLE_NAME_WITH_TYPE) + "/" + segment;
+  }
+}
@@ -86,63 +86,7 @@ public final class DataBlockUtils {
     for (int i = 0; i < numRows; i++) {
       Object[] row = new Object[numColumns];
       for (int j = 0; j < numColumns; j++) {
-        switch (columnDataTypes[j]) {
-          // Single-value column
-          case INT:
-            row[j] = dataBlock.getInt(i, j);
-            break;
-          case LONG:
-            row[j] = dataBlock.getLong(i, j);
-            break;
-          case FLOAT:
-            row[j] = dataBlock.getFloat(i, j);
-            break;
-          case DOUBLE:
-            row[j] = dataBlock.getDouble(i, j);
-            break;
-          case BIG_DECIMAL:
-            row[j] = dataBlock.getBigDecimal(i, j);
-            break;
-          case BOOLEAN:
-            row[j] = DataSchema.ColumnDataType.BOOLEAN.convert(dataBlock.getInt(i, j));
-            break;
-          case TIMESTAMP:
-            row[j] = new Timestamp(dataBlock.getLong(i, j));
-            break;
-          case STRING:
-            row[j] = dataBlock.getString(i, j);
-            break;
-          case BYTES:
-            row[j] = dataBlock.getBytes(i, j);
-            break;
-
-          // Multi-value column
-          case INT_ARRAY:
-            row[j] = dataBlock.getIntArray(i, j);
-            break;
-          case LONG_ARRAY:
-            row[j] = dataBlock.getLongArray(i, j);
-            break;
-          case FLOAT_ARRAY:
-            row[j] = dataBlock.getFloatArray(i, j);
-            break;
-          case DOUBLE_ARRAY:
-            row[j] = dataBlock.getDoubleArray(i, j);
-            break;
-          case STRING_ARRAY:
-            row[j] = dataBlock.getStringArray(i, j);
-            break;
-          case BOOLEAN_ARRAY:
-            row[j] = DataSchema.ColumnDataType.BOOLEAN_ARRAY.convert(dataBlock.getIntArray(i, j));
-            break;
-          case TIMESTAMP_ARRAY:
-            row[j] = DataSchema.ColumnDataType.TIMESTAMP_ARRAY.convert(dataBlock.getLongArray(i, j));
-            break;
-          default:
-            throw new IllegalStateException(
-                String.format("Unsupported data type: %s for column: %s", columnDataTypes[j],
-                    dataSchema.getColumnName(j)));
-        }
+        row[j] = extractValue(dataBlock, columnDataTypes[j], i, j);
       }
       rows.add(row);
     }
@@ -158,6 +102,90 @@ public final class DataBlockUtils {
     return rows;
   }
 
+  /**
+   * Extracts only the given columns of the given rows from the data block, so that the rows and columns not selected
+   * are never materialized. The returned rows follow the order of the row ids, and contain the columns in the order of
+   * the column ids.
+   *
+   * @param dataBlock data block to extract from.
+   * @param rowIds ids of the rows to extract, only the first {@code numRows} entries are used.
+   * @param numRows number of rows to extract.
+   * @param colIds ids of the columns to extract.
+   * @return extracted rows.
+   */
+  public static List<Object[]> extractRows(BaseDataBlock dataBlock, int[] rowIds, int numRows, int[] colIds) {
+    DataSchema dataSchema = dataBlock.getDataSchema();
+    int numColumns = colIds.length;
+    DataSchema.ColumnDataType[] columnDataTypes = new DataSchema.ColumnDataType[numColumns];
+    RoaringBitmap[] nullBitmaps = new RoaringBitmap[numColumns];
+    for (int j = 0; j < numColumns; j++) {
+      columnDataTypes[j] = dataSchema.getColumnDataType(colIds[j]);
+      nullBitmaps[j] = dataBlock.getNullRowIds(colIds[j]);
+    }
+
+    List<Object[]> rows = new ArrayList<>(numRows);
+    for (int i = 0; i < numRows; i++) {
+      int rowId = rowIds[i];
+      Object[] row = new Object[numColumns];
+      for (int j = 0; j < numColumns; j++) {
+        if (nullBitmaps[j] == null || !nullBitmaps[j].contains(rowId)) {
+          row[j] = extractValue(dataBlock, columnDataTypes[j], rowId, colIds[j]);
+        }
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  /**
+   * Extracts a single value from the data block. The null bitmap of the column is not checked, so the default value is
+   * returned for null values.
+   */
+  public static Object extractValue(BaseDataBlock dataBlock, DataSchema.ColumnDataType columnDataType, int rowId,
+      int colId) {
+    switch (columnDataType) {
+      // Single-value column
+      case INT:
+        return dataBlock.getInt(rowId, colId);
+      case LONG:
+        return dataBlock.getLong(rowId, colId);
+      case FLOAT:
+        return dataBlock.getFloat(rowId, colId);
+      case DOUBLE:
+        return dataBlock.getDouble(rowId, colId);
+      case BIG_DECIMAL:
+        return dataBlock.getBigDecimal(rowId, colId);
+      case BOOLEAN:
+        return DataSchema.ColumnDataType.BOOLEAN.convert(dataBlock.getInt(rowId, colId));
+      case TIMESTAMP:
+        return new Timestamp(dataBlock.getLong(rowId, colId));
+      case STRING:
+        return dataBlock.getString(rowId, colId);
+      case BYTES:
+        return dataBlock.getBytes(rowId, colId);
+
+      // Multi-value column
+      case INT_ARRAY:
+        return dataBlock.getIntArray(rowId, colId);
+      case LONG_ARRAY:
+        return dataBlock.getLongArray(rowId, colId);
+      case FLOAT_ARRAY:
+        return dataBlock.getFloatArray(rowId, colId);
+      case DOUBLE_ARRAY:
+        return dataBlock.getDoubleArray(rowId, colId);
+      case STRING_ARRAY:
+        return dataBlock.getStringArray(rowId, colId);
+      case BOOLEAN_ARRAY:
+        return DataSchema.ColumnDataType.BOOLEAN_ARRAY.convert(dataBlock.getIntArray(rowId, colId));
+      case TIMESTAMP_ARRAY:
+        return DataSchema.ColumnDataType.TIMESTAMP_ARRAY.convert(dataBlock.getLongArray(rowId, colId));
+      default:
+        throw new IllegalStateException(
+            String.format("Unsupported data type: %s for column: %s", columnDataType,
+                dataBlock.getDataSchema().getColumnName(colId)));
+    }
+  }
+
   /**
    * Given a {@link DataSchema}, compute each column's offset and fill them into the passed in array, then return the
    * row size in bytes.
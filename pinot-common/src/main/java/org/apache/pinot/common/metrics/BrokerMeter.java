@@ -78,6 +78,10 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
 
   QUERY_QUOTA_EXCEEDED("exceptions", false),
 
+  // Broker result cache hits and misses
+  RESULT_CACHE_HITS("queries", false),
+  RESULT_CACHE_MISSES("queries", false),
+
   // tracks a case a segment is not hosted by any server
   // this is different from NO_SERVER_FOUND_EXCEPTIONS which tracks unavailability across all segments
   NO_SERVING_HOST_FOR_SEGMENT("badResponses", false),
@@ -72,6 +72,8 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   SEGMENT_DIR_MOVEMENT_FAILURES("segments", false),
   SEGMENT_DOWNLOAD_FAILURES("segments", false),
   NUM_RESIZES("numResizes", false),
+  SEGMENT_RESULTS_CACHE_HITS("segments", false),
+  SEGMENT_RESULTS_CACHE_MISSES("segments", false),
   NO_TABLE_ACCESS("tables", true),
   INDEXING_FAILURES("attributeValues", true),
 
@@ -376,8 +376,8 @@ public abstract class BaseTableDataManager implements TableDataManager {
         // The indexDir is empty after calling createBackup, as it's renamed to a backup directory.
         // The SegmentDirectory should initialize accordingly. Like for SegmentLocalFSDirectory, it
         // doesn't load anything from an empty indexDir, but gets the info to complete the copyTo.
-        try (SegmentDirectory segmentDirectory = initSegmentDirectory(segmentName, String.valueOf(zkMetadata.getCrc()),
-            indexLoadingConfig, schema)) {
+        try (SegmentDirectory segmentDirectory = initSegmentDirectory(segmentName, zkMetadata, indexLoadingConfig,
+            schema)) {
           segmentDirectory.copyTo(indexDir);
         }
       }
@@ -693,8 +693,7 @@ public abstract class BaseTableDataManager implements TableDataManager {
 
     // Creates the SegmentDirectory object to access the segment metadata.
     // The metadata is null if the segment doesn't exist yet.
-    SegmentDirectory segmentDirectory =
-        tryInitSegmentDirectory(segmentName, String.valueOf(zkMetadata.getCrc()), indexLoadingConfig, schema);
+    SegmentDirectory segmentDirectory = tryInitSegmentDirectory(segmentName, zkMetadata, indexLoadingConfig, schema);
     SegmentMetadataImpl segmentMetadata = (segmentDirectory == null) ? null : segmentDirectory.getSegmentMetadata();
 
     // If the segment doesn't exist on server or its CRC has changed, then we
@@ -724,8 +723,7 @@ public abstract class BaseTableDataManager implements TableDataManager {
         // Close the stale SegmentDirectory object and recreate it with reprocessed segment.
         closeSegmentDirectoryQuietly(segmentDirectory);
         ImmutableSegmentLoader.preprocess(indexDir, indexLoadingConfig, schema);
-        segmentDirectory =
-            initSegmentDirectory(segmentName, String.valueOf(zkMetadata.getCrc()), indexLoadingConfig, schema);
+        segmentDirectory = initSegmentDirectory(segmentName, zkMetadata, indexLoadingConfig, schema);
       }
       ImmutableSegment segment = ImmutableSegmentLoader.load(segmentDirectory, indexLoadingConfig, schema);
       addSegment(segment);
@@ -740,10 +738,10 @@ public abstract class BaseTableDataManager implements TableDataManager {
     }
   }
 
-  private SegmentDirectory tryInitSegmentDirectory(String segmentName, String segmentCrc,
+  private SegmentDirectory tryInitSegmentDirectory(String segmentName, SegmentZKMetadata zkMetadata,
       IndexLoadingConfig indexLoadingConfig, Schema schema) {
     try {
-      return initSegmentDirectory(segmentName, segmentCrc, indexLoadingConfig, schema);
+      return initSegmentDirectory(segmentName, zkMetadata, indexLoadingConfig, schema);
     } catch (Exception e) {
       LOGGER.warn("Failed to initialize SegmentDirectory for segment: {} of table: {} with error: {}", segmentName,
           _tableNameWithType, e.getMessage());
@@ -751,14 +749,15 @@ public abstract class BaseTableDataManager implements TableDataManager {
     }
   }
 
-  private SegmentDirectory initSegmentDirectory(String segmentName, String segmentCrc,
+  private SegmentDirectory initSegmentDirectory(String segmentName, SegmentZKMetadata zkMetadata,
       IndexLoadingConfig indexLoadingConfig, Schema schema)
       throws Exception {
     SegmentDirectoryLoaderContext loaderContext =
         new SegmentDirectoryLoaderContext.Builder().setTableConfig(indexLoadingConfig.getTableConfig())
             .setSchema(schema).setInstanceId(indexLoadingConfig.getInstanceId())
-            .setTableDataDir(indexLoadingConfig.getTableDataDir()).setSegmentName(segmentName).setSegmentCrc(segmentCrc)
-            .setSegmentTier(indexLoadingConfig.getSegmentTier())
+            .setTableDataDir(indexLoadingConfig.getTableDataDir()).setSegmentName(segmentName)
+            .setSegmentCrc(String.valueOf(zkMetadata.getCrc())).setSegmentTier(indexLoadingConfig.getSegmentTier())
+            .setSegmentDownloadUrl(zkMetadata.getDownloadUrl())
             .setSegmentDirectoryConfigs(indexLoadingConfig.getSegmentDirectoryConfigs()).build();
     SegmentDirectoryLoader segmentDirectoryLoader =
         SegmentDirectoryLoaderRegistry.getSegmentDirectoryLoader(indexLoadingConfig.getSegmentDirectoryLoader());
@@ -18,44 +18,70 @@
  */
 package org.apache.pinot.core.data.manager.offline;
 
-import java.util.HashMap;
+import java.io.Closeable;
 import java.util.List;
-import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.pinot.spi.data.FieldSpec;
-import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
 import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
 
 
-class DimensionTable {
+/**
+ * In-memory view of a dimension table used to serve the LOOKUP transform function.
+ */
+interface DimensionTable extends Closeable {
 
-  private final Map<PrimaryKey, GenericRow> _lookupTable;
-  private final Schema _tableSchema;
-  private final List<String> _primaryKeyColumns;
+  List<String> getPrimaryKeyColumns();
 
-  DimensionTable(Schema tableSchema, List<String> primaryKeyColumns) {
-    this(tableSchema, primaryKeyColumns, new HashMap<>());
-  }
+  @Nullable
+  GenericRow get(PrimaryKey pk);
 
-  DimensionTable(Schema tableSchema, List<String> primaryKeyColumns, Map<PrimaryKey, GenericRow> lookupTable) {
-    _lookupTable = lookupTable;
-    _tableSchema = tableSchema;
-    _primaryKeyColumns = primaryKeyColumns;
-  }
+  /**
+   * Looks up the values of a column for a block of primary keys. {@code pkColumnValues[i]} holds the values of the i-th
+   * primary key column as an array of its stored type ({@code int[]}, {@code long[]}, {@code float[]},
+   * {@code double[]}, {@code String[]} or {@code byte[][]}). The value is set to {@code null} for the keys that do not
+   * exist in the table.
+   */
+  void lookupValues(Object[] pkColumnValues, int numKeys, String columnName, Object[] values);
+
+  boolean isEmpty();
+
+  FieldSpec getFieldSpecFor(String columnName);
 
-  List<String> getPrimaryKeyColumns() {
-    return _primaryKeyColumns;
+  /**
+   * Acquires the table before accessing it, returns {@code false} if the table is already closed.
+   */
+  default boolean acquire() {
+    return true;
   }
 
-  GenericRow get(PrimaryKey pk) {
-    return _lookupTable.get(pk);
+  default void release() {
   }
 
-  boolean isEmpty() {
-    return _lookupTable.isEmpty();
+  @Override
+  default void close() {
   }
 
-  FieldSpec getFieldSpecFor(String columnName) {
-    return _tableSchema.getFieldSpecFor(columnName);
+  /**
+   * Returns the value of a primary key column at the given index, in the same format as the values of a
+   * {@link PrimaryKey} read from the segment.
+   */
+  static Object getPrimaryKeyValue(Object pkColumnValues, int index) {
+    if (pkColumnValues instanceof int[]) {
+      return ((int[]) pkColumnValues)[index];
+    } else if (pkColumnValues instanceof long[]) {
+      return ((long[]) pkColumnValues)[index];
+    } else if (pkColumnValues instanceof String[]) {
+      return ((String[]) pkColumnValues)[index];
+    } else if (pkColumnValues instanceof float[]) {
+      return ((float[]) pkColumnValues)[index];
+    } else if (pkColumnValues instanceof double[]) {
+      return ((double[]) pkColumnValues)[index];
+    } else if (pkColumnValues instanceof byte[][]) {
+      return new ByteArray(((byte[][]) pkColumnValues)[index]);
+    } else {
+      throw new IllegalStateException("Unsupported primary key values: " + pkColumnValues.getClass());
+    }
   }
 }
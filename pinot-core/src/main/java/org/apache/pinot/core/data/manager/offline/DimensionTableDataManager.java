@@ -29,6 +29,7 @@ import javax.annotation.concurrent.ThreadSafe;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.pinot.common.metadata.ZKMetadataProvider;
 import org.apache.pinot.segment.local.data.manager.SegmentDataManager;
+import org.apache.pinot.segment.local.data.manager.TableDataManagerConfig;
 import org.apache.pinot.segment.local.segment.readers.PinotSegmentRecordReader;
 import org.apache.pinot.segment.spi.ImmutableSegment;
 import org.apache.pinot.segment.spi.IndexSegment;
@@ -42,7 +43,9 @@ import org.apache.pinot.spi.data.readers.PrimaryKey;
  * Dimension Table is a special type of OFFLINE table which is assigned to all servers
  * in a tenant and is used to execute a LOOKUP Transform Function. DimensionTableDataManager
  * loads the contents into a HashMap for faster access thus the size should be small
- * enough to easily fit in memory.
+ * enough to easily fit in memory. When the table is configured as memory optimized (see
+ * {@link TableDataManagerConfig#DIM_TABLE_MEMORY_OPTIMIZED_CUSTOM_CONFIG_KEY}), only a hash index from the primary
+ * key to the record location is kept on heap, and the values are read from the segments on lookup.
  *
  * DimensionTableDataManager uses Registry of Singletons pattern to store one instance per table
  * which can be accessed via {@link #getInstanceByTableName} static method.
@@ -87,7 +90,14 @@ public class DimensionTableDataManager extends OfflineTableDataManager {
     List<String> primaryKeyColumns = schema.getPrimaryKeyColumns();
     Preconditions.checkState(CollectionUtils.isNotEmpty(primaryKeyColumns),
         "Primary key columns must be configured for dimension table: %s", _tableNameWithType);
-    _dimensionTable = new DimensionTable(schema, primaryKeyColumns);
+    _dimensionTable = new FastLookupDimensionTable(schema, primaryKeyColumns);
+  }
+
+  @Override
+  protected void doShutdown() {
+    // Release the segments referenced by the dimension table before shutting down
+    _dimensionTable.close();
+    super.doShutdown();
   }
 
   @Override
@@ -121,12 +131,15 @@ public class DimensionTableDataManager extends OfflineTableDataManager {
    * `loadLookupTable()` reads contents of the DimensionTable into _lookupTable HashMap for fast lookup.
    */
   private void loadLookupTable() {
-    DimensionTable snapshot;
-    DimensionTable replacement;
-    do {
-      snapshot = _dimensionTable;
-      replacement = createDimensionTable();
-    } while (!UPDATER.compareAndSet(this, snapshot, replacement));
+    while (true) {
+      DimensionTable snapshot = _dimensionTable;
+      DimensionTable replacement = createDimensionTable();
+      if (UPDATER.compareAndSet(this, snapshot, replacement)) {
+        snapshot.close();
+        return;
+      }
+      replacement.close();
+    }
   }
 
   private DimensionTable createDimensionTable() {
@@ -136,6 +149,19 @@ public class DimensionTableDataManager extends OfflineTableDataManager {
     Preconditions.checkState(CollectionUtils.isNotEmpty(primaryKeyColumns),
         "Primary key columns must be configured for dimension table: %s", _tableNameWithType);
 
+    if (_tableDataManagerConfig.isDimTableMemoryOptimized()) {
+      // The dimension table takes over the segment references, and releases them when it is closed
+      List<SegmentDataManager> segmentManagers = acquireAllSegments();
+      try {
+        return new MemoryOptimizedDimensionTable(schema, primaryKeyColumns, this, segmentManagers);
+      } catch (Exception e) {
+        for (SegmentDataManager segmentManager : segmentManagers) {
+          releaseSegment(segmentManager);
+        }
+        throw e;
+      }
+    }
+
     Map<PrimaryKey, GenericRow> lookupTable = new HashMap<>();
     List<SegmentDataManager> segmentManagers = acquireAllSegments();
     try {
@@ -156,7 +182,7 @@ public class DimensionTableDataManager extends OfflineTableDataManager {
           }
         }
       }
-      return new DimensionTable(schema, primaryKeyColumns, lookupTable);
+      return new FastLookupDimensionTable(schema, primaryKeyColumns, lookupTable);
     } finally {
       for (SegmentDataManager segmentManager : segmentManagers) {
         releaseSegment(segmentManager);
@@ -169,7 +195,36 @@ public class DimensionTableDataManager extends OfflineTableDataManager {
   }
 
   public GenericRow lookupRowByPrimaryKey(PrimaryKey pk) {
-    return _dimensionTable.get(pk);
+    DimensionTable dimensionTable = acquireDimensionTable();
+    try {
+      return dimensionTable.get(pk);
+    } finally {
+      dimensionTable.release();
+    }
+  }
+
+  /**
+   * Looks up the values of a column for a block of primary keys. {@code pkColumnValues[i]} holds the values of the i-th
+   * primary key column as an array of its stored type. The value is set to {@code null} for the keys that do not exist
+   * in the table.
+   */
+  public void lookupValues(Object[] pkColumnValues, int numKeys, String columnName, Object[] values) {
+    DimensionTable dimensionTable = acquireDimensionTable();
+    try {
+      dimensionTable.lookupValues(pkColumnValues, numKeys, columnName, values);
+    } finally {
+      dimensionTable.release();
+    }
+  }
+
+  private DimensionTable acquireDimensionTable() {
+    while (true) {
+      DimensionTable dimensionTable = _dimensionTable;
+      // Acquire can only fail when the table is closed after being replaced, so retry with the replacement
+      if (dimensionTable.acquire()) {
+        return dimensionTable;
+      }
+    }
   }
 
   public FieldSpec getColumnFieldSpec(String columnName) {
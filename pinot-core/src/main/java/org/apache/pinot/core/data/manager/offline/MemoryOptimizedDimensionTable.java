@@ -0,0 +1,279 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.manager.offline;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.local.data.manager.SegmentDataManager;
+import org.apache.pinot.segment.local.data.manager.TableDataManager;
+import org.apache.pinot.segment.local.segment.readers.PinotSegmentColumnReader;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Dimension table that keeps the rows in the (memory-mapped) segments, and only keeps a hash index from the primary key
+ * to the location of the record on heap. The location is encoded as a long with the index of the segment in the high
+ * 32 bits and the doc id in the low 32 bits. A single INT/LONG primary key is indexed with a primitive map, so that no
+ * object is kept per record. The looked up values are read from the forward index of the segment.
+ *
+ * <p>The table holds a reference to all the segments it reads from until it is closed. Lookups acquire the table so
+ * that the segments are not released while being read.
+ */
+class MemoryOptimizedDimensionTable implements DimensionTable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MemoryOptimizedDimensionTable.class);
+  private static final long NOT_FOUND = -1L;
+
+  private final Schema _tableSchema;
+  private final List<String> _primaryKeyColumns;
+  private final TableDataManager _tableDataManager;
+  private final List<SegmentDataManager> _segmentDataManagers;
+  private final IndexSegment[] _segments;
+  // Only one of the indexes is non-null depending on the primary key columns
+  private final Long2LongOpenHashMap _longKeyIndex;
+  private final Object2LongOpenHashMap<Object> _objectKeyIndex;
+  // Starts with the reference held by the table itself, which is released when the table is closed
+  private final AtomicInteger _referenceCount = new AtomicInteger(1);
+
+  /**
+   * Creates the table from the given segments. The table takes over the references of the segment data managers, and
+   * releases them back to the table data manager when closed.
+   */
+  MemoryOptimizedDimensionTable(Schema tableSchema, List<String> primaryKeyColumns, TableDataManager tableDataManager,
+      List<SegmentDataManager> segmentDataManagers) {
+    _tableSchema = tableSchema;
+    _primaryKeyColumns = primaryKeyColumns;
+    _tableDataManager = tableDataManager;
+    _segmentDataManagers = segmentDataManagers;
+    int numSegments = segmentDataManagers.size();
+    _segments = new IndexSegment[numSegments];
+    int numTotalDocs = 0;
+    for (int i = 0; i < numSegments; i++) {
+      _segments[i] = segmentDataManagers.get(i).getSegment();
+      numTotalDocs += _segments[i].getSegmentMetadata().getTotalDocs();
+    }
+
+    boolean longKey = false;
+    if (primaryKeyColumns.size() == 1) {
+      FieldSpec fieldSpec = tableSchema.getFieldSpecFor(primaryKeyColumns.get(0));
+      DataType storedType = fieldSpec != null ? fieldSpec.getDataType().getStoredType() : null;
+      longKey = storedType == DataType.INT || storedType == DataType.LONG;
+    }
+    if (longKey) {
+      _longKeyIndex = new Long2LongOpenHashMap(numTotalDocs);
+      _longKeyIndex.defaultReturnValue(NOT_FOUND);
+      _objectKeyIndex = null;
+    } else {
+      _longKeyIndex = null;
+      _objectKeyIndex = new Object2LongOpenHashMap<>(numTotalDocs);
+      _objectKeyIndex.defaultReturnValue(NOT_FOUND);
+    }
+
+    // Records in the later segments override the ones in the earlier segments with the same primary key
+    for (int i = 0; i < numSegments; i++) {
+      addSegment(i);
+    }
+  }
+
+  private void addSegment(int segmentIndex) {
+    IndexSegment segment = _segments[segmentIndex];
+    int numDocs = segment.getSegmentMetadata().getTotalDocs();
+    int numPkColumns = _primaryKeyColumns.size();
+    PinotSegmentColumnReader[] pkColumnReaders = new PinotSegmentColumnReader[numPkColumns];
+    try {
+      for (int c = 0; c < numPkColumns; c++) {
+        pkColumnReaders[c] = new PinotSegmentColumnReader(segment, _primaryKeyColumns.get(c));
+      }
+      long segmentLocation = (long) segmentIndex << 32;
+      for (int docId = 0; docId < numDocs; docId++) {
+        long location = segmentLocation | docId;
+        if (_longKeyIndex != null) {
+          _longKeyIndex.put(((Number) pkColumnReaders[0].getValue(docId)).longValue(), location);
+        } else if (numPkColumns == 1) {
+          _objectKeyIndex.put(toKeyValue(pkColumnReaders[0].getValue(docId)), location);
+        } else {
+          Object[] pkValues = new Object[numPkColumns];
+          for (int c = 0; c < numPkColumns; c++) {
+            pkValues[c] = toKeyValue(pkColumnReaders[c].getValue(docId));
+          }
+          _objectKeyIndex.put(new PrimaryKey(pkValues), location);
+        }
+      }
+    } finally {
+      closeColumnReaders(pkColumnReaders);
+    }
+  }
+
+  private static Object toKeyValue(Object value) {
+    return value instanceof byte[] ? new ByteArray((byte[]) value) : value;
+  }
+
+  @Override
+  public List<String> getPrimaryKeyColumns() {
+    return _primaryKeyColumns;
+  }
+
+  @Nullable
+  @Override
+  public GenericRow get(PrimaryKey pk) {
+    Object[] pkValues = pk.getValues();
+    long location;
+    if (_longKeyIndex != null) {
+      location = _longKeyIndex.get(((Number) pkValues[0]).longValue());
+    } else {
+      location = _objectKeyIndex.getLong(pkValues.length == 1 ? pkValues[0] : pk);
+    }
+    if (location == NOT_FOUND) {
+      return null;
+    }
+    IndexSegment segment = _segments[(int) (location >>> 32)];
+    int docId = (int) location;
+    GenericRow row = new GenericRow();
+    for (String column : segment.getPhysicalColumnNames()) {
+      try (PinotSegmentColumnReader columnReader = new PinotSegmentColumnReader(segment, column)) {
+        if (!columnReader.isNull(docId)) {
+          row.putValue(column, columnReader.getValue(docId));
+        } else {
+          row.putDefaultNullValue(column, columnReader.getValue(docId));
+        }
+      } catch (IOException e) {
+        throw new RuntimeException("Caught exception while closing column reader for column: " + column, e);
+      }
+    }
+    return row;
+  }
+
+  @Override
+  public void lookupValues(Object[] pkColumnValues, int numKeys, String columnName, Object[] values) {
+    // Column readers are created lazily per segment because the reader context is not thread-safe
+    PinotSegmentColumnReader[] columnReaders = new PinotSegmentColumnReader[_segments.length];
+    try {
+      if (_longKeyIndex != null) {
+        Object keys = pkColumnValues[0];
+        if (keys instanceof int[]) {
+          int[] intKeys = (int[]) keys;
+          for (int i = 0; i < numKeys; i++) {
+            values[i] = readValue(_longKeyIndex.get(intKeys[i]), columnName, columnReaders);
+          }
+        } else {
+          long[] longKeys = (long[]) keys;
+          for (int i = 0; i < numKeys; i++) {
+            values[i] = readValue(_longKeyIndex.get(longKeys[i]), columnName, columnReaders);
+          }
+        }
+      } else if (pkColumnValues.length == 1) {
+        Object keys = pkColumnValues[0];
+        for (int i = 0; i < numKeys; i++) {
+          values[i] =
+              readValue(_objectKeyIndex.getLong(DimensionTable.getPrimaryKeyValue(keys, i)), columnName, columnReaders);
+        }
+      } else {
+        int numPkColumns = pkColumnValues.length;
+        Object[] pkValues = new Object[numPkColumns];
+        PrimaryKey primaryKey = new PrimaryKey(pkValues);
+        for (int i = 0; i < numKeys; i++) {
+          for (int c = 0; c < numPkColumns; c++) {
+            pkValues[c] = DimensionTable.getPrimaryKeyValue(pkColumnValues[c], i);
+          }
+          values[i] = readValue(_objectKeyIndex.getLong(primaryKey), columnName, columnReaders);
+        }
+      }
+    } finally {
+      closeColumnReaders(columnReaders);
+    }
+  }
+
+  @Nullable
+  private Object readValue(long location, String columnName, PinotSegmentColumnReader[] columnReaders) {
+    if (location == NOT_FOUND) {
+      return null;
+    }
+    int segmentIndex = (int) (location >>> 32);
+    PinotSegmentColumnReader columnReader = columnReaders[segmentIndex];
+    if (columnReader == null) {
+      IndexSegment segment = _segments[segmentIndex];
+      if (segment.getDataSource(columnName) == null) {
+        // Column not added to the segment yet
+        return null;
+      }
+      columnReader = new PinotSegmentColumnReader(segment, columnName);
+      columnReaders[segmentIndex] = columnReader;
+    }
+    return columnReader.getValue((int) location);
+  }
+
+  private static void closeColumnReaders(PinotSegmentColumnReader[] columnReaders) {
+    for (PinotSegmentColumnReader columnReader : columnReaders) {
+      if (columnReader != null) {
+        try {
+          columnReader.close();
+        } catch (IOException e) {
+          LOGGER.warn("Caught exception while closing column reader", e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _longKeyIndex != null ? _longKeyIndex.isEmpty() : _objectKeyIndex.isEmpty();
+  }
+
+  @Override
+  public FieldSpec getFieldSpecFor(String columnName) {
+    return _tableSchema.getFieldSpecFor(columnName);
+  }
+
+  @Override
+  public boolean acquire() {
+    int referenceCount;
+    do {
+      referenceCount = _referenceCount.get();
+      if (referenceCount == 0) {
+        return false;
+      }
+    } while (!_referenceCount.compareAndSet(referenceCount, referenceCount + 1));
+    return true;
+  }
+
+  @Override
+  public void release() {
+    if (_referenceCount.decrementAndGet() == 0) {
+      for (SegmentDataManager segmentDataManager : _segmentDataManagers) {
+        _tableDataManager.releaseSegment(segmentDataManager);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    release();
+  }
+}
@@ -70,6 +70,7 @@ import org.apache.pinot.spi.config.table.SegmentZKPropsConfig;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.apache.pinot.spi.metrics.PinotMeter;
 import org.apache.pinot.spi.stream.ConsumerPartitionState;
 import org.apache.pinot.spi.stream.LongMsgOffset;
@@ -81,12 +82,14 @@ import org.apache.pinot.spi.stream.PartitionLagState;
 import org.apache.pinot.spi.stream.PartitionLevelStreamConfig;
 import org.apache.pinot.spi.stream.PermanentConsumerException;
 import org.apache.pinot.spi.stream.RowMetadata;
+import org.apache.pinot.spi.stream.StreamConfigProperties;
 import org.apache.pinot.spi.stream.StreamConsumerFactory;
 import org.apache.pinot.spi.stream.StreamConsumerFactoryProvider;
 import org.apache.pinot.spi.stream.StreamDataDecoder;
 import org.apache.pinot.spi.stream.StreamDataDecoderImpl;
 import org.apache.pinot.spi.stream.StreamDataDecoderResult;
 import org.apache.pinot.spi.stream.StreamDecoderProvider;
+import org.apache.pinot.spi.stream.StreamMessage;
 import org.apache.pinot.spi.stream.StreamMessageDecoder;
 import org.apache.pinot.spi.stream.StreamMetadataProvider;
 import org.apache.pinot.spi.stream.StreamPartitionMsgOffset;
@@ -265,6 +268,10 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
   final String _clientId;
   private final LLCSegmentName _llcSegmentName;
   private final TransformPipeline _transformPipeline;
+  // Overlaps fetching, decoding/transforming and indexing of the messages, null when not enabled
+  private final RealtimeConsumptionPipeline _consumptionPipeline;
+  // Reused to decode, transform and index the messages without a GenericRow, null when the path is not supported
+  private final IndexedRow _reusedIndexedRow;
   private PartitionGroupConsumer _partitionGroupConsumer = null;
   private StreamMetadataProvider _partitionMetadataProvider = null;
   private final File _resourceTmpDir;
@@ -407,8 +414,7 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
       // Update _currentOffset upon return from this method
       MessageBatch messageBatch;
       try {
-        messageBatch = _partitionGroupConsumer
-            .fetchMessages(_currentOffset, null, _partitionLevelStreamConfig.getFetchTimeoutMillis());
+        messageBatch = fetchMessages();
         if (_segmentLogger.isDebugEnabled()) {
           _segmentLogger.debug("message batch received. filtered={} unfiltered={} endOfPartitionGroup={}",
               messageBatch.getMessageCount(), messageBatch.getUnfilteredMessageCount(),
@@ -428,6 +434,16 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
         continue;
       }
 
+      if (_consumptionPipeline != null && messageBatch.getUnfilteredMessageCount() > 0 && !endCriteriaReached()) {
+        // Fetch the next batch while processing the current one. The prefetched batch is only used if the current
+        // batch is fully processed, i.e. if the next fetch starts from the same offset.
+        StreamPartitionMsgOffset nextOffset = messageBatch.getOffsetOfNextBatch();
+        if (nextOffset != null) {
+          _consumptionPipeline.prefetch(nextOffset, () -> _partitionGroupConsumer
+              .fetchMessages(nextOffset, null, _partitionLevelStreamConfig.getFetchTimeoutMillis()));
+        }
+      }
+
       boolean endCriteriaReached = processStreamEvents(messageBatch, idlePipeSleepTimeMillis);
 
       if (_currentOffset.compareTo(lastUpdatedOffset) != 0) {
@@ -484,6 +500,9 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
         break;
       }
     }
+    if (_consumptionPipeline != null) {
+      _consumptionPipeline.cancelPrefetch();
+    }
 
     if (_numRowsErrored > 0) {
       _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.ROWS_WITH_ERRORS, _numRowsErrored);
@@ -492,6 +511,21 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     return true;
   }
 
+  /**
+   * Fetches the messages starting from the current offset, using the prefetched batch if available.
+   */
+  private MessageBatch fetchMessages()
+      throws Exception {
+    if (_consumptionPipeline != null) {
+      MessageBatch prefetchedBatch = _consumptionPipeline.takePrefetchedBatch(_currentOffset);
+      if (prefetchedBatch != null) {
+        return prefetchedBatch;
+      }
+    }
+    return _partitionGroupConsumer.fetchMessages(_currentOffset, null,
+        _partitionLevelStreamConfig.getFetchTimeoutMillis());
+  }
+
   /**
    * @param messagesAndOffsets batch of messages to process
    * @param idlePipeSleepTimeMillis wait time in case no messages were read
@@ -510,7 +544,15 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     int streamMessageCount = 0;
     boolean canTakeMore = true;
 
-    TransformPipeline.Result reusedResult = new TransformPipeline.Result();
+    // When the consumption pipeline is enabled, the messages are decoded and transformed in parallel, and only
+    // indexed here in order. Otherwise, they are decoded and transformed here one at a time.
+    RealtimeConsumptionPipeline.ProcessedBatch processedBatch = null;
+    RealtimeConsumptionPipeline.ProcessedMessage reusedMessage = null;
+    if (_consumptionPipeline != null && messageCount > 0) {
+      processedBatch = _consumptionPipeline.process(messagesAndOffsets);
+    } else {
+      reusedMessage = new RealtimeConsumptionPipeline.ProcessedMessage();
+    }
     boolean prematureExit = false;
     for (int index = 0; index < messageCount; index++) {
       prematureExit = _shouldStop || endCriteriaReached();
@@ -542,50 +584,105 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
         throw new RuntimeException("Realtime segment full");
       }
 
-      // Decode message
-      StreamDataDecoderResult decodedRow = _streamDataDecoder.decode(messagesAndOffsets.getStreamMessage(index));
-      RowMetadata msgMetadata = messagesAndOffsets.getStreamMessage(index).getMetadata();
-      if (decodedRow.getException() != null) {
-        // TODO: based on a config, decide whether the record should be silently dropped or stop further consumption on
-        // decode error
-        realtimeRowsDroppedMeter =
-            _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1,
-                realtimeRowsDroppedMeter);
-      } else {
-        try {
-          _transformPipeline.processRow(decodedRow.getResult(), reusedResult);
-        } catch (Exception e) {
-          _numRowsErrored++;
-          // when exception happens we prefer abandoning the whole batch and not partially indexing some rows
-          reusedResult.getTransformedRows().clear();
-          String errorMessage = String.format("Caught exception while transforming the record: %s", decodedRow);
-          _segmentLogger.error(errorMessage, e);
-          _realtimeTableDataManager.addSegmentError(_segmentNameStr,
-              new SegmentErrorInfo(now(), errorMessage, e));
-        }
-        if (reusedResult.getSkippedRowCount() > 0) {
+      if (_reusedIndexedRow != null) {
+        // Decode, transform and index the message in place through the reused IndexedRow
+        StreamMessage streamMessage = messagesAndOffsets.getStreamMessage(index);
+        if (!_streamDataDecoder.decode(streamMessage, _reusedIndexedRow)) {
           realtimeRowsDroppedMeter =
-              _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED,
-                  reusedResult.getSkippedRowCount(), realtimeRowsDroppedMeter);
-        }
-        if (reusedResult.getIncompleteRowCount() > 0) {
-          realtimeIncompleteRowsConsumedMeter =
-              _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INCOMPLETE_REALTIME_ROWS_CONSUMED,
-                  reusedResult.getIncompleteRowCount(), realtimeIncompleteRowsConsumedMeter);
-        }
-        for (GenericRow transformedRow : reusedResult.getTransformedRows()) {
+              _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1,
+                  realtimeRowsDroppedMeter);
+        } else {
+          boolean shouldIndex = false;
           try {
-            canTakeMore = _realtimeSegment.index(transformedRow, msgMetadata);
-            indexedMessageCount++;
-            realtimeRowsConsumedMeter =
-                _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED, 1,
-                    realtimeRowsConsumedMeter);
+            shouldIndex = _transformPipeline.processRow(_reusedIndexedRow);
+            if (!shouldIndex) {
+              realtimeRowsDroppedMeter =
+                  _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1,
+                      realtimeRowsDroppedMeter);
+            }
           } catch (Exception e) {
             _numRowsErrored++;
-            String errorMessage = String.format("Caught exception while indexing the record: %s", transformedRow);
+            String errorMessage = String.format("Caught exception while transforming the record: %s",
+                _reusedIndexedRow.toGenericRow(new GenericRow()));
             _segmentLogger.error(errorMessage, e);
+            _realtimeTableDataManager.addSegmentError(_segmentNameStr, new SegmentErrorInfo(now(), errorMessage, e));
+          }
+          if (shouldIndex) {
+            try {
+              canTakeMore = _realtimeSegment.index(_reusedIndexedRow, streamMessage.getMetadata());
+              indexedMessageCount++;
+              realtimeRowsConsumedMeter =
+                  _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED, 1,
+                      realtimeRowsConsumedMeter);
+            } catch (Exception e) {
+              _numRowsErrored++;
+              String errorMessage = String.format("Caught exception while indexing the record: %s",
+                  _reusedIndexedRow.toGenericRow(new GenericRow()));
+              _segmentLogger.error(errorMessage, e);
+              _realtimeTableDataManager.addSegmentError(_segmentNameStr,
+                  new SegmentErrorInfo(now(), errorMessage, e));
+            }
+          }
+        }
+      } else {
+        // Decode and transform message
+        RealtimeConsumptionPipeline.ProcessedMessage processedMessage;
+        if (processedBatch != null) {
+          processedMessage = processedBatch.get(index);
+        } else {
+          processedMessage = reusedMessage;
+          processedMessage.process(messagesAndOffsets.getStreamMessage(index), _streamDataDecoder, _transformPipeline);
+        }
+        StreamDataDecoderResult decodedRow = processedMessage.getDecodedRow();
+        RowMetadata msgMetadata = messagesAndOffsets.getStreamMessage(index).getMetadata();
+        if (decodedRow.getException() != null) {
+          // TODO: based on a config, decide whether the record should be silently dropped or stop further consumption
+          //       on decode error
+          realtimeRowsDroppedMeter =
+              _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1,
+                  realtimeRowsDroppedMeter);
+        } else {
+          TransformPipeline.Result transformResult = processedMessage.getTransformResult();
+          Exception transformException = processedMessage.getTransformException();
+          if (transformException != null) {
+            _numRowsErrored++;
+            String errorMessage = String.format("Caught exception while transforming the record: %s", decodedRow);
+            _segmentLogger.error(errorMessage, transformException);
             _realtimeTableDataManager.addSegmentError(_segmentNameStr,
-                new SegmentErrorInfo(now(), errorMessage, e));
+                new SegmentErrorInfo(now(), errorMessage, transformException));
+          }
+          if (transformResult.getSkippedRowCount() > 0) {
+            realtimeRowsDroppedMeter =
+                _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED,
+                    transformResult.getSkippedRowCount(), realtimeRowsDroppedMeter);
+          }
+          if (transformResult.getIncompleteRowCount() > 0) {
+            realtimeIncompleteRowsConsumedMeter =
+                _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.INCOMPLETE_REALTIME_ROWS_CONSUMED,
+                    transformResult.getIncompleteRowCount(), realtimeIncompleteRowsConsumedMeter);
+          }
+          List<GenericRow> transformedRows = transformResult.getTransformedRows();
+          if (!transformedRows.isEmpty()) {
+            try {
+              int numRowsIndexed = _realtimeSegment.index(transformedRows, msgMetadata);
+              if (numRowsIndexed < transformedRows.size()) {
+                // The segment is full, consumption stops with an exception before the next message
+                canTakeMore = false;
+                _numRowsErrored += transformedRows.size() - numRowsIndexed;
+                _segmentLogger.error("Dropped {} rows because the segment is full",
+                    transformedRows.size() - numRowsIndexed);
+              }
+              indexedMessageCount += numRowsIndexed;
+              realtimeRowsConsumedMeter =
+                  _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED,
+                      numRowsIndexed, realtimeRowsConsumedMeter);
+            } catch (Exception e) {
+              _numRowsErrored += transformedRows.size();
+              String errorMessage = String.format("Caught exception while indexing the records: %s", transformedRows);
+              _segmentLogger.error(errorMessage, e);
+              _realtimeTableDataManager.addSegmentError(_segmentNameStr,
+                  new SegmentErrorInfo(now(), errorMessage, e));
+            }
           }
         }
       }
@@ -595,6 +692,10 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
       _numRowsConsumed++;
       streamMessageCount++;
     }
+    if (prematureExit && processedBatch != null) {
+      // Skip processing the remaining messages
+      processedBatch.cancel();
+    }
     updateCurrentDocumentCountMetrics();
     if (messagesAndOffsets.getUnfilteredMessageCount() > 0) {
       _hasMessagesFetched = true;
@@ -1038,6 +1139,10 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
   }
 
   private void closePartitionGroupConsumer() {
+    if (_consumptionPipeline != null) {
+      // Make sure the consumer is no longer used by the prefetch thread
+      _consumptionPipeline.cancelPrefetch();
+    }
     try {
       _partitionGroupConsumer.close();
     } catch (Exception e) {
@@ -1229,6 +1334,9 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     } catch (InterruptedException e) {
       _segmentLogger.error("Could not stop consumer thread");
     }
+    if (_consumptionPipeline != null) {
+      _consumptionPipeline.close();
+    }
     _realtimeSegment.destroy();
     closeStreamConsumers();
     cleanupMetrics();
@@ -1385,6 +1493,21 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     _clientId = streamTopic + "-" + _partitionGroupId;
 
     _transformPipeline = new TransformPipeline(tableConfig, schema);
+    int consumptionPipelineNumThreads = Integer.parseInt(_partitionLevelStreamConfig.getStreamConfigsMap()
+        .getOrDefault(StreamConfigProperties.CONSUMPTION_PIPELINE_NUM_THREADS, "0"));
+    if (consumptionPipelineNumThreads > 0) {
+      _segmentLogger.info("Using consumption pipeline with {} threads", consumptionPipelineNumThreads);
+      _consumptionPipeline = new RealtimeConsumptionPipeline(consumptionPipelineNumThreads,
+          () -> new StreamDataDecoderImpl(StreamDecoderProvider.create(_partitionLevelStreamConfig, fieldsToRead)),
+          () -> new TransformPipeline(tableConfig, schema));
+    } else {
+      _consumptionPipeline = null;
+    }
+    if (_consumptionPipeline == null && _transformPipeline.supportsIndexedRow()) {
+      _reusedIndexedRow = new IndexedRow(new IndexedRow.Layout(schema));
+    } else {
+      _reusedIndexedRow = null;
+    }
     // Acquire semaphore to create stream consumers
     try {
       _partitionGroupConsumerSemaphore.acquire();
@@ -1533,6 +1656,9 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
    */
   private void recreateStreamConsumer(String reason) {
     _segmentLogger.warn("Recreating stream consumer for topic partition {}, reason: {}", _clientId, reason);
+    if (_consumptionPipeline != null) {
+      _consumptionPipeline.cancelPrefetch();
+    }
     _currentOffset = _partitionGroupConsumer.checkpoint(_currentOffset);
     closePartitionGroupConsumer();
     _partitionGroupConsumer =
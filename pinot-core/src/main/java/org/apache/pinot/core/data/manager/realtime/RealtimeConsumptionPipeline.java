@@ -0,0 +1,332 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.manager.realtime;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.NamedThreadFactory;
+import org.apache.pinot.segment.local.segment.creator.TransformPipeline;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.stream.MessageBatch;
+import org.apache.pinot.spi.stream.StreamDataDecoder;
+import org.apache.pinot.spi.stream.StreamDataDecoderResult;
+import org.apache.pinot.spi.stream.StreamMessage;
+import org.apache.pinot.spi.stream.StreamPartitionMsgOffset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@code RealtimeConsumptionPipeline} overlaps the stages of the realtime consumption of a single partition:
+ * <ul>
+ *   <li>The next {@link MessageBatch} is prefetched in the background while the current batch is processed</li>
+ *   <li>The messages of the current batch are decoded and transformed in parallel by up to {@code numThreads} tasks, in
+ *   chunks, each task using its own {@link StreamDataDecoder} and {@link TransformPipeline} because they are not
+ *   thread-safe</li>
+ *   <li>The consumer thread indexes the processed messages in order as soon as their chunk is ready</li>
+ * </ul>
+ * The background work of all the consuming segments of the server runs on a single shared executor, which is
+ * initialized and shut down with the instance data manager.
+ *
+ * <p>The pipeline does not have any side effect on the consumption state (offsets, metrics, segment errors), which is
+ * still maintained by the consumer thread when it indexes the messages in order. A prefetched batch is only used if it
+ * starts at the offset the consumer thread would have fetched from, otherwise it is discarded.
+ *
+ * <p>The stream consumer is used in the background while a prefetch is outstanding, so the consumer thread must call
+ * {@link #cancelPrefetch()} (or take the prefetched batch) before using the stream consumer in any other way.
+ */
+public class RealtimeConsumptionPipeline implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RealtimeConsumptionPipeline.class);
+  private static final int CHUNK_SIZE = 64;
+  private static ExecutorService _executor;
+
+  private final ExecutorService _sharedExecutor;
+  private final int _numThreads;
+  private final BlockingQueue<Worker> _workers;
+
+  private Future<MessageBatch> _prefetchFuture;
+  private StreamPartitionMsgOffset _prefetchOffset;
+
+  public static synchronized void initExecutor() {
+    if (_executor == null) {
+      _executor = Executors.newCachedThreadPool(new NamedThreadFactory("realtime-consumption-pipeline"));
+      LOGGER.info("Initialized realtime consumption pipeline executor");
+    }
+  }
+
+  public static synchronized void shutdownExecutor() {
+    if (_executor != null) {
+      _executor.shutdownNow();
+      _executor = null;
+    }
+    LOGGER.info("Shut down realtime consumption pipeline executor");
+  }
+
+  private static synchronized ExecutorService getExecutor() {
+    Preconditions.checkState(_executor != null, "Realtime consumption pipeline executor is not initialized");
+    return _executor;
+  }
+
+  RealtimeConsumptionPipeline(int numThreads, Supplier<StreamDataDecoder> decoderSupplier,
+      Supplier<TransformPipeline> transformPipelineSupplier) {
+    _sharedExecutor = getExecutor();
+    _numThreads = numThreads;
+    _workers = new ArrayBlockingQueue<>(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      _workers.add(new Worker(decoderSupplier.get(), transformPipelineSupplier.get()));
+    }
+  }
+
+  /**
+   * Starts fetching the batch starting at the given offset in the background.
+   */
+  void prefetch(StreamPartitionMsgOffset offset, Callable<MessageBatch> fetcher) {
+    cancelPrefetch();
+    _prefetchOffset = offset;
+    _prefetchFuture = _sharedExecutor.submit(fetcher);
+  }
+
+  /**
+   * Returns the prefetched batch if it starts at the given offset, or {@code null} if there is no such prefetched
+   * batch. Exception thrown when fetching the batch is rethrown.
+   */
+  @Nullable
+  MessageBatch takePrefetchedBatch(StreamPartitionMsgOffset offset)
+      throws Exception {
+    if (_prefetchFuture == null) {
+      return null;
+    }
+    Future<MessageBatch> prefetchFuture = _prefetchFuture;
+    StreamPartitionMsgOffset prefetchOffset = _prefetchOffset;
+    _prefetchFuture = null;
+    _prefetchOffset = null;
+    if (prefetchOffset.compareTo(offset) != 0) {
+      waitQuietly(prefetchFuture);
+      return null;
+    }
+    try {
+      return prefetchFuture.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw cause instanceof Exception ? (Exception) cause : e;
+    }
+  }
+
+  /**
+   * Discards the outstanding prefetch if any, after waiting for it to finish so that the stream consumer is no longer
+   * in use.
+   */
+  void cancelPrefetch() {
+    if (_prefetchFuture != null) {
+      waitQuietly(_prefetchFuture);
+      _prefetchFuture = null;
+      _prefetchOffset = null;
+    }
+  }
+
+  private static void waitQuietly(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      // Ignored, the result is discarded
+    }
+  }
+
+  /**
+   * Starts decoding and transforming the messages of the given batch in parallel.
+   */
+  ProcessedBatch process(MessageBatch<?> messageBatch) {
+    int numMessages = messageBatch.getMessageCount();
+    ProcessedMessage[] processedMessages = new ProcessedMessage[numMessages];
+    int numChunks = (numMessages + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    List<CompletableFuture<Void>> chunkFutures = new ArrayList<>(numChunks);
+    for (int i = 0; i < numChunks; i++) {
+      chunkFutures.add(new CompletableFuture<>());
+    }
+    AtomicInteger nextChunkId = new AtomicInteger();
+    int numTasks = Math.min(_numThreads, numChunks);
+    for (int i = 0; i < numTasks; i++) {
+      _sharedExecutor.execute(() -> {
+        Worker worker;
+        try {
+          worker = _workers.take();
+        } catch (InterruptedException e) {
+          for (CompletableFuture<Void> chunkFuture : chunkFutures) {
+            chunkFuture.completeExceptionally(e);
+          }
+          return;
+        }
+        try {
+          int chunkId;
+          while ((chunkId = nextChunkId.getAndIncrement()) < numChunks) {
+            CompletableFuture<Void> chunkFuture = chunkFutures.get(chunkId);
+            if (chunkFuture.isDone()) {
+              // Cancelled
+              continue;
+            }
+            int from = chunkId * CHUNK_SIZE;
+            int to = Math.min(from + CHUNK_SIZE, numMessages);
+            try {
+              for (int j = from; j < to; j++) {
+                ProcessedMessage processedMessage = new ProcessedMessage();
+                processedMessage.processDetached(messageBatch.getStreamMessage(j), worker._decoder,
+                    worker._transformPipeline);
+                processedMessages[j] = processedMessage;
+              }
+              chunkFuture.complete(null);
+            } catch (Throwable t) {
+              chunkFuture.completeExceptionally(t);
+            }
+          }
+        } finally {
+          _workers.add(worker);
+        }
+      });
+    }
+    return new ProcessedBatch(processedMessages, chunkFutures);
+  }
+
+  /**
+   * Discards the outstanding prefetch. The shared executor is left running for the other consuming segments.
+   */
+  @Override
+  public void close() {
+    cancelPrefetch();
+  }
+
+  private static class Worker {
+    final StreamDataDecoder _decoder;
+    final TransformPipeline _transformPipeline;
+
+    Worker(StreamDataDecoder decoder, TransformPipeline transformPipeline) {
+      _decoder = decoder;
+      _transformPipeline = transformPipeline;
+    }
+  }
+
+  /**
+   * The messages of a batch being processed by the pipeline.
+   */
+  static class ProcessedBatch {
+    private final ProcessedMessage[] _processedMessages;
+    private final List<CompletableFuture<Void>> _chunkFutures;
+
+    private ProcessedBatch(ProcessedMessage[] processedMessages, List<CompletableFuture<Void>> chunkFutures) {
+      _processedMessages = processedMessages;
+      _chunkFutures = chunkFutures;
+    }
+
+    /**
+     * Returns the processed message at the given index, waiting for its chunk to be processed if needed.
+     */
+    ProcessedMessage get(int index) {
+      try {
+        _chunkFutures.get(index / CHUNK_SIZE).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for the message to be processed", e);
+      } catch (ExecutionException e) {
+        throw new RuntimeException("Caught exception while processing the message", e.getCause());
+      }
+      return _processedMessages[index];
+    }
+
+    /**
+     * Cancels the processing of the chunks not started yet, e.g. when the consumer thread stops before the end of the
+     * batch.
+     */
+    void cancel() {
+      for (CompletableFuture<Void> chunkFuture : _chunkFutures) {
+        chunkFuture.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * The result of decoding and transforming a stream message. Exceptions from the transform are captured so that they
+   * can be handled by the consumer thread when the message is indexed.
+   */
+  static class ProcessedMessage {
+    private final TransformPipeline.Result _transformResult = new TransformPipeline.Result();
+    private StreamDataDecoderResult _decodedRow;
+    private Exception _transformException;
+
+    /**
+     * Processes the message with the decoded row owned by the decoder, which is only valid until the next decode.
+     */
+    void process(StreamMessage message, StreamDataDecoder decoder, TransformPipeline transformPipeline) {
+      transform(decoder.decode(message), transformPipeline);
+    }
+
+    /**
+     * Processes the message with its own copy of the decoded row, so that the rows are still valid after the decoder
+     * is used for the next messages. The decoder creates new values for each message, so the values are not copied.
+     */
+    void processDetached(StreamMessage message, StreamDataDecoder decoder, TransformPipeline transformPipeline) {
+      StreamDataDecoderResult decodedRow = decoder.decode(message);
+      if (decodedRow.getResult() != null) {
+        GenericRow row = new GenericRow();
+        row.init(decodedRow.getResult());
+        decodedRow = new StreamDataDecoderResult(row, decodedRow.getException());
+      }
+      transform(decodedRow, transformPipeline);
+    }
+
+    private void transform(StreamDataDecoderResult decodedRow, TransformPipeline transformPipeline) {
+      _decodedRow = decodedRow;
+      _transformException = null;
+      if (_decodedRow.getException() == null) {
+        try {
+          transformPipeline.processRow(_decodedRow.getResult(), _transformResult);
+        } catch (Exception e) {
+          // When exception happens we prefer abandoning the whole message and not partially indexing some rows
+          _transformResult.getTransformedRows().clear();
+          _transformException = e;
+        }
+      }
+    }
+
+    StreamDataDecoderResult getDecodedRow() {
+      return _decodedRow;
+    }
+
+    TransformPipeline.Result getTransformResult() {
+      return _transformResult;
+    }
+
+    @Nullable
+    Exception getTransformException() {
+      return _transformException;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator;
+
+import java.util.Collections;
+import java.util.List;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.plan.Morsel;
+import org.apache.pinot.segment.spi.IndexSegment;
+
+
+/**
+ * The {@code MorselOperator} wraps the segment-level operator processing one {@link Morsel} of a segment.
+ * <p>It reports the number of documents within the morsel as the total documents, and exposes the morsel so that the
+ * combine operator counts the segment only once across all its morsels.
+ */
+public class MorselOperator extends BaseOperator<BaseResultsBlock> {
+  private static final String EXPLAIN_NAME = "SEGMENT_MORSEL";
+
+  private final Operator<BaseResultsBlock> _childOperator;
+  private final IndexSegment _indexSegment;
+  private final Morsel _morsel;
+
+  public MorselOperator(Operator<BaseResultsBlock> childOperator, IndexSegment indexSegment, Morsel morsel) {
+    _childOperator = childOperator;
+    _indexSegment = indexSegment;
+    _morsel = morsel;
+  }
+
+  @Override
+  protected BaseResultsBlock getNextBlock() {
+    return _childOperator.nextBlock();
+  }
+
+  public Morsel getMorsel() {
+    return _morsel;
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME + "(docIds:" + _morsel + ')';
+  }
+
+  @Override
+  public List<Operator> getChildOperators() {
+    return Collections.singletonList(_childOperator);
+  }
+
+  @Override
+  public IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    ExecutionStatistics executionStatistics = _childOperator.getExecutionStatistics();
+    return new ExecutionStatistics(executionStatistics.getNumDocsScanned(),
+        executionStatistics.getNumEntriesScannedInFilter(), executionStatistics.getNumEntriesScannedPostFilter(),
+        _morsel.getNumDocs());
+  }
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator;
+
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.query.executor.SegmentResultsCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.IndexSegment;
+
+
+/**
+ * A wrapper around the segment-level operator which serves the results from the {@link SegmentResultsCache}.
+ * <p>On cache hit, the results block is built from the cached results without executing the query on the segment. On
+ * cache miss, the child operator is executed and its results are put into the cache before being returned to the
+ * combine operator.
+ */
+@SuppressWarnings("rawtypes")
+public class SegmentResultsCacheOperator extends BaseOperator<BaseResultsBlock> {
+  private static final String EXPLAIN_NAME = "SEGMENT_RESULTS_CACHE";
+
+  private final SegmentResultsCache _segmentResultsCache;
+  private final SegmentResultsCache.QueryFingerprint _queryFingerprint;
+  private final QueryContext _queryContext;
+  private final IndexSegment _indexSegment;
+  private final SegmentResultsCache.CachedResults _cachedResults;
+  private final Operator<BaseResultsBlock> _childOperator;
+
+  public SegmentResultsCacheOperator(SegmentResultsCache segmentResultsCache,
+      SegmentResultsCache.QueryFingerprint queryFingerprint, QueryContext queryContext, IndexSegment indexSegment,
+      @Nullable SegmentResultsCache.CachedResults cachedResults, @Nullable Operator<BaseResultsBlock> childOperator) {
+    assert cachedResults != null || childOperator != null;
+    _segmentResultsCache = segmentResultsCache;
+    _queryFingerprint = queryFingerprint;
+    _queryContext = queryContext;
+    _indexSegment = indexSegment;
+    _cachedResults = cachedResults;
+    _childOperator = childOperator;
+  }
+
+  @Override
+  protected BaseResultsBlock getNextBlock() {
+    if (_cachedResults != null) {
+      return _cachedResults.toResultsBlock(_queryContext);
+    }
+    BaseResultsBlock resultsBlock = _childOperator.nextBlock();
+    _segmentResultsCache.put(_queryContext.getTableName(), _indexSegment, _queryFingerprint, _queryContext,
+        resultsBlock, _childOperator.getExecutionStatistics());
+    return resultsBlock;
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  public List<Operator> getChildOperators() {
+    return _childOperator != null ? Collections.singletonList(_childOperator) : Collections.emptyList();
+  }
+
+  @Override
+  public IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    // Report the statistics of the cached execution so that the query stats are consistent with the uncached results
+    return _cachedResults != null ? _cachedResults.getExecutionStatistics() : _childOperator.getExecutionStatistics();
+  }
+}
@@ -18,10 +18,15 @@
  */
 package org.apache.pinot.core.operator.combine;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.MorselOperator;
 import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.plan.Morsel;
 import org.apache.pinot.segment.spi.MutableSegment;
 
 
@@ -52,10 +57,12 @@ public class CombineOperatorUtils {
 
   /**
    * Sets the execution statistics into the results block.
+   * <p>A segment split into multiple morsels has one operator per morsel, and is counted only once in the number of
+   * segments processed/matched.
    */
   public static void setExecutionStatistics(BaseResultsBlock resultsBlock, List<Operator> operators,
       long threadCpuTimeNs, int numServerThreads) {
-    int numSegmentsProcessed = operators.size();
+    int numSegmentsProcessed = 0;
     int numSegmentsMatched = 0;
     int numConsumingSegmentsProcessed = 0;
     int numConsumingSegmentsMatched = 0;
@@ -63,20 +70,42 @@ public class CombineOperatorUtils {
     long numEntriesScannedInFilter = 0;
     long numEntriesScannedPostFilter = 0;
     long numTotalDocs = 0;
+    // Split segments are identified by the morsels split from them
+    Set<List<Morsel>> processedSplitSegments = Collections.newSetFromMap(new IdentityHashMap<>());
+    Set<List<Morsel>> matchedSplitSegments = Collections.newSetFromMap(new IdentityHashMap<>());
     for (Operator operator : operators) {
       ExecutionStatistics executionStatistics = operator.getExecutionStatistics();
-      if (executionStatistics.getNumDocsScanned() > 0) {
-        numSegmentsMatched++;
-      }
-      // TODO: Check all operators and properly implement the getIndexSegment and remove this exception handling
-      try {
-        if (operator.getIndexSegment() instanceof MutableSegment) {
-          numConsumingSegmentsProcessed += 1;
-          if (executionStatistics.getNumDocsScanned() > 0) {
+      boolean matched = executionStatistics.getNumDocsScanned() > 0;
+      if (operator instanceof MorselOperator) {
+        List<Morsel> segmentMorsels = ((MorselOperator) operator).getMorsel().getSegmentMorsels();
+        boolean consuming = operator.getIndexSegment() instanceof MutableSegment;
+        if (processedSplitSegments.add(segmentMorsels)) {
+          numSegmentsProcessed++;
+          if (consuming) {
+            numConsumingSegmentsProcessed++;
+          }
+        }
+        if (matched && matchedSplitSegments.add(segmentMorsels)) {
+          numSegmentsMatched++;
+          if (consuming) {
             numConsumingSegmentsMatched++;
           }
         }
-      } catch (UnsupportedOperationException ignored) {
+      } else {
+        numSegmentsProcessed++;
+        if (matched) {
+          numSegmentsMatched++;
+        }
+        // TODO: Check all operators and properly implement the getIndexSegment and remove this exception handling
+        try {
+          if (operator.getIndexSegment() instanceof MutableSegment) {
+            numConsumingSegmentsProcessed += 1;
+            if (matched) {
+              numConsumingSegmentsMatched++;
+            }
+          }
+        } catch (UnsupportedOperationException ignored) {
+        }
       }
 
       numDocsScanned += executionStatistics.getNumDocsScanned();
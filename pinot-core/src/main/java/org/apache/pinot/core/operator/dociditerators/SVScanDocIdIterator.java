@@ -18,7 +18,9 @@
  */
 package org.apache.pinot.core.operator.dociditerators;
 
+import java.util.BitSet;
 import javax.annotation.Nullable;
+import org.apache.pinot.core.operator.filter.ChunkZoneMapUtils;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.segment.spi.Constants;
 import org.apache.pinot.segment.spi.datasource.DataSource;
@@ -48,12 +50,16 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
   private int _firstMismatch;
   private int _cursor;
   private final int _cardinality;
+  // Chunks of the raw forward index that might contain matching values, null if all chunks need to be scanned
+  private final BitSet _candidateChunks;
+  private final int _numDocsPerChunk;
+  private MutableRoaringBitmap _candidateDocIds;
 
   private int _nextDocId = 0;
   private long _numEntriesScanned = 0L;
 
   public SVScanDocIdIterator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int numDocs,
-      @Nullable NullValueVectorReader nullValueReader) {
+      @Nullable NullValueVectorReader nullValueReader, @Nullable BitSet candidateChunks) {
     _predicateEvaluator = predicateEvaluator;
     _reader = dataSource.getForwardIndex();
     _readerContext = _reader.createContext();
@@ -64,6 +70,8 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     }
     _valueMatcher = getValueMatcher(nullBitmap);
     _cardinality = dataSource.getDataSourceMetadata().getCardinality();
+    _candidateChunks = candidateChunks;
+    _numDocsPerChunk = candidateChunks != null ? _reader.getChunkZoneMap().getNumDocsPerChunk() : 0;
   }
 
   // for testing
@@ -79,6 +87,8 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     }
     _valueMatcher = getValueMatcher(nullBitmap);
     _cardinality = -1;
+    _candidateChunks = ChunkZoneMapUtils.getCandidateChunks(predicateEvaluator, reader);
+    _numDocsPerChunk = _candidateChunks != null ? reader.getChunkZoneMap().getNumDocsPerChunk() : 0;
   }
 
   @Override
@@ -87,7 +97,12 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
       int limit;
       int batchSize = 0;
       do {
-        limit = Math.min(_numDocs - _nextDocId, OPTIMAL_ITERATOR_BATCH_SIZE);
+        int endDocId = _numDocs;
+        if (_candidateChunks != null) {
+          _nextDocId = getNextCandidateDocId(_nextDocId);
+          endDocId = getCandidateRangeEnd(_nextDocId);
+        }
+        limit = Math.min(endDocId - _nextDocId, OPTIMAL_ITERATOR_BATCH_SIZE);
         if (limit > 0) {
           for (int i = 0; i < limit; i++) {
             _batch[i] = _nextDocId + i;
@@ -110,7 +125,13 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
   public int advance(int targetDocId) {
     _nextDocId = targetDocId;
     _firstMismatch = 0;
-    while (_nextDocId < _numDocs) {
+    while (true) {
+      if (_candidateChunks != null) {
+        _nextDocId = getNextCandidateDocId(_nextDocId);
+      }
+      if (_nextDocId >= _numDocs) {
+        break;
+      }
       int nextDocId = _nextDocId++;
       _numEntriesScanned++;
       if (_valueMatcher.doesValueMatch(nextDocId)) {
@@ -122,6 +143,9 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
 
   @Override
   public MutableRoaringBitmap applyAnd(ImmutableRoaringBitmap docIds) {
+    if (_candidateChunks != null) {
+      docIds = ImmutableRoaringBitmap.and(docIds, getCandidateDocIds());
+    }
     if (docIds.isEmpty()) {
       return new MutableRoaringBitmap();
     }
@@ -142,6 +166,45 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     return result.get();
   }
 
+  /**
+   * Returns the first doc id not less than the given doc id within the candidate chunks, or {@code _numDocs} if there
+   * is no such doc id.
+   */
+  private int getNextCandidateDocId(int docId) {
+    if (docId >= _numDocs) {
+      return _numDocs;
+    }
+    int chunkId = docId / _numDocsPerChunk;
+    if (_candidateChunks.get(chunkId)) {
+      return docId;
+    }
+    int nextCandidateChunkId = _candidateChunks.nextSetBit(chunkId);
+    return nextCandidateChunkId >= 0 ? (int) Math.min((long) nextCandidateChunkId * _numDocsPerChunk, _numDocs)
+        : _numDocs;
+  }
+
+  /**
+   * Returns the end (exclusive) of the consecutive candidate chunks starting from the chunk of the given doc id.
+   */
+  private int getCandidateRangeEnd(int docId) {
+    if (docId >= _numDocs) {
+      return _numDocs;
+    }
+    int nextNonCandidateChunkId = _candidateChunks.nextClearBit(docId / _numDocsPerChunk);
+    return (int) Math.min((long) nextNonCandidateChunkId * _numDocsPerChunk, _numDocs);
+  }
+
+  private MutableRoaringBitmap getCandidateDocIds() {
+    if (_candidateDocIds == null) {
+      MutableRoaringBitmap candidateDocIds = new MutableRoaringBitmap();
+      for (int i = _candidateChunks.nextSetBit(0); i >= 0; i = _candidateChunks.nextSetBit(i + 1)) {
+        candidateDocIds.add((long) i * _numDocsPerChunk, Math.min((long) (i + 1) * _numDocsPerChunk, _numDocs));
+      }
+      _candidateDocIds = candidateDocIds;
+    }
+    return _candidateDocIds;
+  }
+
   @Override
   public long getNumEntriesScanned() {
     return _numEntriesScanned;
@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.core.operator.docidsets;
 
+import java.util.BitSet;
+import javax.annotation.Nullable;
 import org.apache.pinot.core.operator.dociditerators.SVScanDocIdIterator;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.segment.spi.datasource.DataSource;
@@ -27,10 +29,15 @@ import org.apache.pinot.segment.spi.index.reader.NullValueVectorReader;
 public final class SVScanDocIdSet implements FilterBlockDocIdSet {
   private final SVScanDocIdIterator _docIdIterator;
 
+  /**
+   * Constructs the doc id set which only scans the given candidate chunks of the raw forward index (pruned with the
+   * per-chunk zone map), or all the chunks if {@code candidateChunks} is {@code null}.
+   */
   public SVScanDocIdSet(PredicateEvaluator predicateEvaluator, DataSource dataSource, int numDocs,
-      boolean nullHandlingEnabled) {
+      boolean nullHandlingEnabled, @Nullable BitSet candidateChunks) {
     NullValueVectorReader nullValueVector = nullHandlingEnabled ? dataSource.getNullValueVector() : null;
-    _docIdIterator = new SVScanDocIdIterator(predicateEvaluator, dataSource, numDocs, nullValueVector);
+    _docIdIterator =
+        new SVScanDocIdIterator(predicateEvaluator, dataSource, numDocs, nullValueVector, candidateChunks);
   }
 
   @Override
@@ -77,6 +77,23 @@ public class AndFilterOperator extends BaseFilterOperator {
     return BufferFastAggregation.andCardinality(bitmaps);
   }
 
+  /**
+   * Returns the lowest estimate among the child filter operators, which is an upper bound of the number of docs
+   * matching all of them.
+   */
+  @Override
+  public int getEstimatedNumMatchingDocs() {
+    int estimatedNumMatchingDocs = UNKNOWN_NUM_MATCHING_DOCS;
+    for (BaseFilterOperator child : _filterOperators) {
+      int childEstimatedNumMatchingDocs = child.getEstimatedNumMatchingDocs();
+      if (childEstimatedNumMatchingDocs != UNKNOWN_NUM_MATCHING_DOCS && (
+          estimatedNumMatchingDocs == UNKNOWN_NUM_MATCHING_DOCS
+              || childEstimatedNumMatchingDocs < estimatedNumMatchingDocs)) {
+        estimatedNumMatchingDocs = childEstimatedNumMatchingDocs;
+      }
+    }
+    return estimatedNumMatchingDocs;
+  }
 
   @Override
   public List<Operator> getChildOperators() {
@@ -26,6 +26,7 @@ import org.apache.pinot.core.operator.blocks.FilterBlock;
  * The {@link BaseFilterOperator} class is the base class for all filter operators.
  */
 public abstract class BaseFilterOperator extends BaseOperator<FilterBlock> {
+  public static final int UNKNOWN_NUM_MATCHING_DOCS = -1;
 
   /**
    * Returns {@code true} if the result is always empty, {@code false} otherwise.
@@ -55,6 +56,15 @@ public abstract class BaseFilterOperator extends BaseOperator<FilterBlock> {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Returns the estimated number of matching docs without evaluating the filter, or {@link #UNKNOWN_NUM_MATCHING_DOCS}
+   * if it cannot be estimated cheaply. The estimate is used to order the child filter operators of AND/OR filter
+   * operators, and should only rely on the dictionary, index and column metadata.
+   */
+  public int getEstimatedNumMatchingDocs() {
+    return UNKNOWN_NUM_MATCHING_DOCS;
+  }
+
   /**
    * @return true if the filter operator can produce a bitmap of docIds
    */
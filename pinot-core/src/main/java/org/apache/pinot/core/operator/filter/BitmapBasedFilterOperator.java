@@ -27,6 +27,7 @@ import org.apache.pinot.core.operator.blocks.FilterBlock;
 import org.apache.pinot.core.operator.docidsets.BitmapDocIdSet;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
 import org.apache.pinot.segment.spi.index.reader.InvertedIndexReader;
 import org.apache.pinot.spi.trace.FilterType;
 import org.apache.pinot.spi.trace.InvocationRecording;
@@ -38,9 +39,13 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
 @SuppressWarnings("rawtypes")
 public class BitmapBasedFilterOperator extends BaseFilterOperator {
   private static final String EXPLAIN_NAME = "FILTER_INVERTED_INDEX";
+  // Beyond this number of matching dictionary ids, estimate the number of matching docs from the column cardinality
+  // instead of reading the bitmaps
+  private static final int MAX_NUM_BITMAPS_FOR_ESTIMATION = 16;
 
   private final PredicateEvaluator _predicateEvaluator;
   private final InvertedIndexReader<ImmutableRoaringBitmap> _invertedIndexReader;
+  private final DataSourceMetadata _dataSourceMetadata;
   private final ImmutableRoaringBitmap _docIds;
   private final boolean _exclusive;
   private final int _numDocs;
@@ -49,6 +54,7 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
   BitmapBasedFilterOperator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int numDocs) {
     _predicateEvaluator = predicateEvaluator;
     _invertedIndexReader = (InvertedIndexReader<ImmutableRoaringBitmap>) dataSource.getInvertedIndex();
+    _dataSourceMetadata = dataSource.getDataSourceMetadata();
     _docIds = null;
     _exclusive = predicateEvaluator.isExclusive();
     _numDocs = numDocs;
@@ -57,6 +63,7 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
   public BitmapBasedFilterOperator(ImmutableRoaringBitmap docIds, boolean exclusive, int numDocs) {
     _predicateEvaluator = null;
     _invertedIndexReader = null;
+    _dataSourceMetadata = null;
     _docIds = docIds;
     _exclusive = exclusive;
     _numDocs = numDocs;
@@ -149,6 +156,29 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
     return _exclusive ? _numDocs - count : count;
   }
 
+  /**
+   * Sums up the cardinality of the bitmaps of the matching dictionary ids (exact for single-value columns, upper bound
+   * for multi-value columns) when there are only a few of them, otherwise estimates from the column cardinality.
+   */
+  @Override
+  public int getEstimatedNumMatchingDocs() {
+    if (_docIds != null) {
+      return getNumMatchingDocs();
+    }
+    int numDictIds =
+        _exclusive ? _predicateEvaluator.getNumNonMatchingDictIds() : _predicateEvaluator.getNumMatchingDictIds();
+    if (numDictIds > MAX_NUM_BITMAPS_FOR_ESTIMATION) {
+      return FilterOperatorUtils.estimateNumMatchingDocs(_predicateEvaluator, _dataSourceMetadata, _numDocs);
+    }
+    int[] dictIds = _exclusive ? _predicateEvaluator.getNonMatchingDictIds() : _predicateEvaluator.getMatchingDictIds();
+    long count = 0;
+    for (int dictId : dictIds) {
+      count += _invertedIndexReader.getDocIds(dictId).getCardinality();
+    }
+    count = Math.min(count, _numDocs);
+    return (int) (_exclusive ? _numDocs - count : count);
+  }
+
   @Override
   public boolean canProduceBitmaps() {
     return true;
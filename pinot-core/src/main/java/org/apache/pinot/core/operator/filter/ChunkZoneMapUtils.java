@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import java.util.BitSet;
+import javax.annotation.Nullable;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory.DoubleRawValueBasedRangePredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory.FloatRawValueBasedRangePredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory.IntRawValueBasedRangePredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory.LongRawValueBasedRangePredicateEvaluator;
+import org.apache.pinot.segment.spi.index.reader.ChunkZoneMap;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+
+
+/**
+ * Utility class to prune the chunks of the raw forward index with the per-chunk zone map (min/max value of each chunk)
+ * so that the scan based filtering can skip the chunks that cannot match the predicate without decompressing them.
+ */
+public class ChunkZoneMapUtils {
+  private ChunkZoneMapUtils() {
+  }
+
+  /**
+   * Returns the chunks that might contain values matching the predicate, or {@code null} if the chunks cannot be
+   * pruned (no zone map, predicate not supported, or all chunks might match).
+   * <p>Currently only the range predicates on the single-value INT/LONG/FLOAT/DOUBLE raw forward index are supported.
+   */
+  @Nullable
+  public static BitSet getCandidateChunks(PredicateEvaluator predicateEvaluator, ForwardIndexReader<?> reader) {
+    ChunkZoneMap chunkZoneMap = reader.getChunkZoneMap();
+    if (chunkZoneMap == null) {
+      return null;
+    }
+    int numChunks = chunkZoneMap.getNumChunks();
+    BitSet candidateChunks = new BitSet(numChunks);
+    if (predicateEvaluator instanceof IntRawValueBasedRangePredicateEvaluator) {
+      IntRawValueBasedRangePredicateEvaluator rangePredicateEvaluator =
+          (IntRawValueBasedRangePredicateEvaluator) predicateEvaluator;
+      setCandidateChunks(chunkZoneMap, rangePredicateEvaluator.getInclusiveLowerBound(),
+          rangePredicateEvaluator.getInclusiveUpperBound(), candidateChunks);
+    } else if (predicateEvaluator instanceof LongRawValueBasedRangePredicateEvaluator) {
+      LongRawValueBasedRangePredicateEvaluator rangePredicateEvaluator =
+          (LongRawValueBasedRangePredicateEvaluator) predicateEvaluator;
+      setCandidateChunks(chunkZoneMap, rangePredicateEvaluator.getInclusiveLowerBound(),
+          rangePredicateEvaluator.getInclusiveUpperBound(), candidateChunks);
+    } else if (predicateEvaluator instanceof FloatRawValueBasedRangePredicateEvaluator) {
+      FloatRawValueBasedRangePredicateEvaluator rangePredicateEvaluator =
+          (FloatRawValueBasedRangePredicateEvaluator) predicateEvaluator;
+      setCandidateChunks(chunkZoneMap, rangePredicateEvaluator.getInclusiveLowerBound(),
+          rangePredicateEvaluator.getInclusiveUpperBound(), candidateChunks);
+    } else if (predicateEvaluator instanceof DoubleRawValueBasedRangePredicateEvaluator) {
+      DoubleRawValueBasedRangePredicateEvaluator rangePredicateEvaluator =
+          (DoubleRawValueBasedRangePredicateEvaluator) predicateEvaluator;
+      setCandidateChunks(chunkZoneMap, rangePredicateEvaluator.getInclusiveLowerBound(),
+          rangePredicateEvaluator.getInclusiveUpperBound(), candidateChunks);
+    } else {
+      return null;
+    }
+    return candidateChunks.cardinality() < numChunks ? candidateChunks : null;
+  }
+
+  private static void setCandidateChunks(ChunkZoneMap chunkZoneMap, long inclusiveLowerBound,
+      long inclusiveUpperBound, BitSet candidateChunks) {
+    int numChunks = chunkZoneMap.getNumChunks();
+    for (int i = 0; i < numChunks; i++) {
+      if (chunkZoneMap.getMinLong(i) <= inclusiveUpperBound && chunkZoneMap.getMaxLong(i) >= inclusiveLowerBound) {
+        candidateChunks.set(i);
+      }
+    }
+  }
+
+  private static void setCandidateChunks(ChunkZoneMap chunkZoneMap, double inclusiveLowerBound,
+      double inclusiveUpperBound, BitSet candidateChunks) {
+    int numChunks = chunkZoneMap.getNumChunks();
+    for (int i = 0; i < numChunks; i++) {
+      if (chunkZoneMap.getMinDouble(i) <= inclusiveUpperBound && chunkZoneMap.getMaxDouble(i) >= inclusiveLowerBound) {
+        candidateChunks.set(i);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of documents within the candidate chunks.
+   */
+  public static int getNumCandidateDocs(BitSet candidateChunks, int numDocsPerChunk, int numDocs) {
+    int numCandidateDocs = 0;
+    for (int i = candidateChunks.nextSetBit(0); i >= 0; i = candidateChunks.nextSetBit(i + 1)) {
+      numCandidateDocs += Math.max(0, Math.min(numDocsPerChunk, numDocs - i * numDocsPerChunk));
+    }
+    return numCandidateDocs;
+  }
+}
@@ -56,6 +56,11 @@ public final class EmptyFilterOperator extends BaseFilterOperator {
     return 0;
   }
 
+  @Override
+  public int getEstimatedNumMatchingDocs() {
+    return 0;
+  }
+
   @Override
   protected FilterBlock getNextBlock() {
     return EmptyFilterBlock.getInstance();
@@ -20,11 +20,18 @@ package org.apache.pinot.core.operator.filter;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.pinot.common.request.context.predicate.Predicate;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory.DoubleRawValueBasedRangePredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory.FloatRawValueBasedRangePredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory.IntRawValueBasedRangePredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory.LongRawValueBasedRangePredicateEvaluator;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
 
 
 public class FilterOperatorUtils {
@@ -64,7 +71,7 @@ public class FilterOperatorUtils {
       if (dataSource.getRangeIndex() != null) {
         return new RangeIndexBasedFilterOperator(predicateEvaluator, dataSource, numDocs);
       }
-      return new ScanBasedFilterOperator(predicateEvaluator, dataSource, numDocs, nullHandlingEnabled);
+      return getScanBasedFilterOperator(predicateEvaluator, dataSource, numDocs, nullHandlingEnabled);
     } else if (predicateType == Predicate.Type.REGEXP_LIKE) {
       if (dataSource.getFSTIndex() != null && dataSource.getDataSourceMetadata().isSorted()) {
         return new SortedIndexBasedFilterOperator(predicateEvaluator, dataSource, numDocs);
@@ -72,7 +79,7 @@ public class FilterOperatorUtils {
       if (dataSource.getFSTIndex() != null && dataSource.getInvertedIndex() != null) {
         return new BitmapBasedFilterOperator(predicateEvaluator, dataSource, numDocs);
       }
-      return new ScanBasedFilterOperator(predicateEvaluator, dataSource, numDocs, nullHandlingEnabled);
+      return getScanBasedFilterOperator(predicateEvaluator, dataSource, numDocs, nullHandlingEnabled);
     } else {
       if (dataSource.getDataSourceMetadata().isSorted() && dataSource.getDictionary() != null) {
         return new SortedIndexBasedFilterOperator(predicateEvaluator, dataSource, numDocs);
@@ -80,10 +87,21 @@ public class FilterOperatorUtils {
       if (dataSource.getInvertedIndex() != null) {
         return new BitmapBasedFilterOperator(predicateEvaluator, dataSource, numDocs);
       }
-      return new ScanBasedFilterOperator(predicateEvaluator, dataSource, numDocs, nullHandlingEnabled);
+      return getScanBasedFilterOperator(predicateEvaluator, dataSource, numDocs, nullHandlingEnabled);
     }
   }
 
+  /**
+   * Returns the scan based filter operator, or the empty filter operator if none of the chunks of the raw forward index
+   * can match the predicate based on the per-chunk zone map.
+   */
+  private static BaseFilterOperator getScanBasedFilterOperator(PredicateEvaluator predicateEvaluator,
+      DataSource dataSource, int numDocs, boolean nullHandlingEnabled) {
+    ScanBasedFilterOperator scanBasedFilterOperator =
+        new ScanBasedFilterOperator(predicateEvaluator, dataSource, numDocs, nullHandlingEnabled);
+    return scanBasedFilterOperator.isResultEmpty() ? EmptyFilterOperator.getInstance() : scanBasedFilterOperator;
+  }
+
   /**
    * Returns the AND filter operator or equivalent filter operator.
    */
@@ -133,6 +151,7 @@ public class FilterOperatorUtils {
       return childFilterOperators.get(0);
     } else {
       // Return the OR filter operator with child filter operators
+      // NOTE: OrDocIdSet merges the index based children regardless of their order, so they are not re-ordered here
       return new OrFilterOperator(childFilterOperators, numDocs);
     }
   }
@@ -153,58 +172,68 @@ public class FilterOperatorUtils {
 
   /**
    * For AND filter operator, reorders its child filter operators based on the their cost and puts the ones with
-   * inverted index first in order to reduce the number of documents to be processed.
+   * inverted index first in order to reduce the number of documents to be processed. Within the same cost class, the
+   * child filter operators are ordered by their estimated number of matching docs (most selective first), so that the
+   * following scans only need to be evaluated on the docs matched by the previous child filter operators.
    * <p>Special filter operators such as {@link MatchAllFilterOperator} and {@link EmptyFilterOperator} should be
    * removed from the list before calling this method.
    */
   private static void reorderAndFilterChildOperators(QueryContext queryContext,
       List<BaseFilterOperator> filterOperators) {
-    filterOperators.sort(new Comparator<BaseFilterOperator>() {
-      @Override
-      public int compare(BaseFilterOperator o1, BaseFilterOperator o2) {
-        return getPriority(o1) - getPriority(o2);
-      }
-
-      int getPriority(BaseFilterOperator filterOperator) {
-        if (filterOperator instanceof SortedIndexBasedFilterOperator) {
-          return 0;
-        }
-        if (filterOperator instanceof BitmapBasedFilterOperator) {
-          return 1;
-        }
-        if (filterOperator instanceof RangeIndexBasedFilterOperator
-            || filterOperator instanceof TextContainsFilterOperator || filterOperator instanceof TextMatchFilterOperator
-            || filterOperator instanceof JsonMatchFilterOperator || filterOperator instanceof H3IndexFilterOperator
-            || filterOperator instanceof H3InclusionIndexFilterOperator) {
-          return 2;
-        }
-        if (filterOperator instanceof AndFilterOperator) {
-          return 3;
-        }
-        if (filterOperator instanceof OrFilterOperator) {
-          return 4;
-        }
-        if (filterOperator instanceof NotFilterOperator) {
-          return getPriority(((NotFilterOperator) filterOperator).getChildFilterOperator());
+    Comparator<BaseFilterOperator> comparator =
+        Comparator.comparingInt(filterOperator -> getPriority(queryContext, filterOperator));
+    if (!queryContext.isSkipScanFilterReorder()) {
+      // Estimate each child filter operator only once, and put the ones without estimate at the end
+      Map<BaseFilterOperator, Integer> estimatedNumMatchingDocsMap = new IdentityHashMap<>();
+      comparator = comparator.thenComparingLong(filterOperator -> {
+        int estimatedNumMatchingDocs = estimatedNumMatchingDocsMap.computeIfAbsent(filterOperator,
+            BaseFilterOperator::getEstimatedNumMatchingDocs);
+        if (estimatedNumMatchingDocs == BaseFilterOperator.UNKNOWN_NUM_MATCHING_DOCS) {
+          return Long.MAX_VALUE;
         }
-        if (filterOperator instanceof ScanBasedFilterOperator) {
-          return getScanBasedFilterPriority(queryContext, (ScanBasedFilterOperator) filterOperator, 5);
-        }
-        if (filterOperator instanceof ExpressionFilterOperator) {
-          return 10;
-        }
-        throw new IllegalStateException(filterOperator.getClass().getSimpleName()
-            + " should not be reordered, remove it from the list before calling this method");
-      }
-    });
+        return estimatedNumMatchingDocs;
+      });
+    }
+    // NOTE: List.sort() is stable, so the original order is kept when the estimates are not available
+    filterOperators.sort(comparator);
+  }
+
+  private static int getPriority(QueryContext queryContext, BaseFilterOperator filterOperator) {
+    if (filterOperator instanceof SortedIndexBasedFilterOperator) {
+      return 0;
+    }
+    if (filterOperator instanceof BitmapBasedFilterOperator) {
+      return 1;
+    }
+    if (filterOperator instanceof RangeIndexBasedFilterOperator
+        || filterOperator instanceof TextContainsFilterOperator || filterOperator instanceof TextMatchFilterOperator
+        || filterOperator instanceof JsonMatchFilterOperator || filterOperator instanceof H3IndexFilterOperator
+        || filterOperator instanceof H3InclusionIndexFilterOperator) {
+      return 2;
+    }
+    if (filterOperator instanceof AndFilterOperator) {
+      return 3;
+    }
+    if (filterOperator instanceof OrFilterOperator) {
+      return 4;
+    }
+    if (filterOperator instanceof NotFilterOperator) {
+      return getPriority(queryContext, ((NotFilterOperator) filterOperator).getChildFilterOperator());
+    }
+    if (filterOperator instanceof ScanBasedFilterOperator) {
+      return getScanBasedFilterPriority(queryContext, (ScanBasedFilterOperator) filterOperator, 5);
+    }
+    if (filterOperator instanceof ExpressionFilterOperator) {
+      return 10;
+    }
+    throw new IllegalStateException(filterOperator.getClass().getSimpleName()
+        + " should not be reordered, remove it from the list before calling this method");
   }
 
   /**
    * Returns the priority for scan based filtering. Multivalue column evaluation is costly, so
    * reorder such that multivalue columns are evaluated after single value columns.
    *
-   * TODO: additional cost based prioritization to be added
-   *
    * @param scanBasedFilterOperator the filter operator to prioritize
    * @param queryContext query context
    * @return the priority to be associated with the filter
@@ -222,4 +251,71 @@ public class FilterOperatorUtils {
       return basePriority + 1;
     }
   }
+
+  /**
+   * Estimates the number of docs matching the predicate from the column metadata without reading the forward index,
+   * assuming the values are uniformly distributed over the dictionary (cardinality) or the value range (min/max value).
+   * Returns {@link BaseFilterOperator#UNKNOWN_NUM_MATCHING_DOCS} if the number of matching docs cannot be estimated.
+   */
+  static int estimateNumMatchingDocs(PredicateEvaluator predicateEvaluator, DataSourceMetadata dataSourceMetadata,
+      int numDocs) {
+    int numMatchingItems = predicateEvaluator.getNumMatchingItems();
+    int cardinality = dataSourceMetadata.getCardinality();
+    double selectivity;
+    if (numMatchingItems != Integer.MIN_VALUE && cardinality > 0) {
+      // Negative number of matching items indicates exclusive match
+      numMatchingItems = numMatchingItems >= 0 ? numMatchingItems : numMatchingItems + cardinality;
+      selectivity = (double) numMatchingItems / cardinality;
+    } else {
+      selectivity = estimateRangeSelectivity(predicateEvaluator, dataSourceMetadata);
+      if (Double.isNaN(selectivity)) {
+        return BaseFilterOperator.UNKNOWN_NUM_MATCHING_DOCS;
+      }
+    }
+    return (int) Math.round(numDocs * Math.max(0.0, Math.min(1.0, selectivity)));
+  }
+
+  /**
+   * Returns the fraction of the [min, max] value range of the column covered by a raw value based numeric range
+   * predicate, or {@code NaN} if it cannot be computed.
+   */
+  private static double estimateRangeSelectivity(PredicateEvaluator predicateEvaluator,
+      DataSourceMetadata dataSourceMetadata) {
+    double lowerBound;
+    double upperBound;
+    if (predicateEvaluator instanceof IntRawValueBasedRangePredicateEvaluator) {
+      IntRawValueBasedRangePredicateEvaluator rangePredicateEvaluator =
+          (IntRawValueBasedRangePredicateEvaluator) predicateEvaluator;
+      lowerBound = rangePredicateEvaluator.getInclusiveLowerBound();
+      upperBound = rangePredicateEvaluator.getInclusiveUpperBound();
+    } else if (predicateEvaluator instanceof LongRawValueBasedRangePredicateEvaluator) {
+      LongRawValueBasedRangePredicateEvaluator rangePredicateEvaluator =
+          (LongRawValueBasedRangePredicateEvaluator) predicateEvaluator;
+      lowerBound = rangePredicateEvaluator.getInclusiveLowerBound();
+      upperBound = rangePredicateEvaluator.getInclusiveUpperBound();
+    } else if (predicateEvaluator instanceof FloatRawValueBasedRangePredicateEvaluator) {
+      FloatRawValueBasedRangePredicateEvaluator rangePredicateEvaluator =
+          (FloatRawValueBasedRangePredicateEvaluator) predicateEvaluator;
+      lowerBound = rangePredicateEvaluator.getInclusiveLowerBound();
+      upperBound = rangePredicateEvaluator.getInclusiveUpperBound();
+    } else if (predicateEvaluator instanceof DoubleRawValueBasedRangePredicateEvaluator) {
+      DoubleRawValueBasedRangePredicateEvaluator rangePredicateEvaluator =
+          (DoubleRawValueBasedRangePredicateEvaluator) predicateEvaluator;
+      lowerBound = rangePredicateEvaluator.getInclusiveLowerBound();
+      upperBound = rangePredicateEvaluator.getInclusiveUpperBound();
+    } else {
+      return Double.NaN;
+    }
+    Comparable minValue = dataSourceMetadata.getMinValue();
+    Comparable maxValue = dataSourceMetadata.getMaxValue();
+    if (!(minValue instanceof Number) || !(maxValue instanceof Number)) {
+      return Double.NaN;
+    }
+    double min = ((Number) minValue).doubleValue();
+    double max = ((Number) maxValue).doubleValue();
+    if (max <= min) {
+      return lowerBound <= min && min <= upperBound ? 1.0 : 0.0;
+    }
+    return (Math.min(upperBound, max) - Math.max(lowerBound, min)) / (max - min);
+  }
 }
@@ -59,6 +59,11 @@ public class MatchAllFilterOperator extends BaseFilterOperator {
     return _numDocs;
   }
 
+  @Override
+  public int getEstimatedNumMatchingDocs() {
+    return _numDocs;
+  }
+
   @Override
   public String toExplainString() {
     return new StringBuilder(EXPLAIN_NAME).append("(docs:").append(_numDocs).append(')').toString();
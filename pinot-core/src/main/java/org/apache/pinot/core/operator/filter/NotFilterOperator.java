@@ -64,6 +64,13 @@ public class NotFilterOperator extends BaseFilterOperator {
     return _numDocs - _filterOperator.getNumMatchingDocs();
   }
 
+  @Override
+  public int getEstimatedNumMatchingDocs() {
+    int estimatedNumMatchingDocs = _filterOperator.getEstimatedNumMatchingDocs();
+    return estimatedNumMatchingDocs != UNKNOWN_NUM_MATCHING_DOCS ? _numDocs - estimatedNumMatchingDocs
+        : UNKNOWN_NUM_MATCHING_DOCS;
+  }
+
   @Override
   public boolean canProduceBitmaps() {
     return _filterOperator.canProduceBitmaps();
@@ -70,6 +70,23 @@ public class OrFilterOperator extends BaseFilterOperator {
     return allChildrenProduceBitmaps;
   }
 
+  /**
+   * Returns the sum of the estimates of the child filter operators capped at the number of docs, or
+   * {@link #UNKNOWN_NUM_MATCHING_DOCS} if any child cannot be estimated.
+   */
+  @Override
+  public int getEstimatedNumMatchingDocs() {
+    long estimatedNumMatchingDocs = 0;
+    for (BaseFilterOperator child : _filterOperators) {
+      int childEstimatedNumMatchingDocs = child.getEstimatedNumMatchingDocs();
+      if (childEstimatedNumMatchingDocs == UNKNOWN_NUM_MATCHING_DOCS) {
+        return UNKNOWN_NUM_MATCHING_DOCS;
+      }
+      estimatedNumMatchingDocs += childEstimatedNumMatchingDocs;
+    }
+    return (int) Math.min(estimatedNumMatchingDocs, _numDocs);
+  }
+
   @Override
   public int getNumMatchingDocs() {
     if (_filterOperators.size() == 2) {
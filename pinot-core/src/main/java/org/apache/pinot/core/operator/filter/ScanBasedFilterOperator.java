@@ -19,6 +19,7 @@
 package org.apache.pinot.core.operator.filter;
 
 import com.google.common.base.Preconditions;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import org.apache.pinot.core.common.Operator;
@@ -37,6 +38,9 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
   private final DataSource _dataSource;
   private final int _numDocs;
   private final boolean _nullHandlingEnabled;
+  // Chunks of the raw forward index that might contain matching values based on the per-chunk zone map, null if all
+  // chunks need to be scanned
+  private final BitSet _candidateChunks;
 
   ScanBasedFilterOperator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int numDocs,
       boolean nullHandlingEnabled) {
@@ -47,13 +51,16 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
     Preconditions.checkState(_dataSource.getForwardIndex() != null,
         "Forward index disabled for column: %s, scan based filtering not supported!",
         _dataSource.getDataSourceMetadata().getFieldSpec().getName());
+    _candidateChunks = _dataSource.getDataSourceMetadata().isSingleValue() ? ChunkZoneMapUtils.getCandidateChunks(
+        _predicateEvaluator, _dataSource.getForwardIndex()) : null;
   }
 
   @Override
   protected FilterBlock getNextBlock() {
     DataSourceMetadata dataSourceMetadata = _dataSource.getDataSourceMetadata();
     if (dataSourceMetadata.isSingleValue()) {
-      return new FilterBlock(new SVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs, _nullHandlingEnabled));
+      return new FilterBlock(
+          new SVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs, _nullHandlingEnabled, _candidateChunks));
     } else {
       return new FilterBlock(new MVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs));
     }
@@ -65,6 +72,25 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
     return Collections.emptyList();
   }
 
+  @Override
+  public boolean isResultEmpty() {
+    // None of the chunks can match the predicate
+    return _candidateChunks != null && _candidateChunks.isEmpty();
+  }
+
+  @Override
+  public int getEstimatedNumMatchingDocs() {
+    int estimatedNumMatchingDocs =
+        FilterOperatorUtils.estimateNumMatchingDocs(_predicateEvaluator, _dataSource.getDataSourceMetadata(), _numDocs);
+    if (_candidateChunks == null) {
+      return estimatedNumMatchingDocs;
+    }
+    int numCandidateDocs = ChunkZoneMapUtils.getNumCandidateDocs(_candidateChunks,
+        _dataSource.getForwardIndex().getChunkZoneMap().getNumDocsPerChunk(), _numDocs);
+    return estimatedNumMatchingDocs != UNKNOWN_NUM_MATCHING_DOCS ? Math.min(estimatedNumMatchingDocs,
+        numCandidateDocs) : numCandidateDocs;
+  }
+
   @Override
   public String toExplainString() {
     StringBuilder stringBuilder =
@@ -175,6 +175,15 @@ public class SortedIndexBasedFilterOperator extends BaseFilterOperator {
     return exclusive ? _numDocs - count : count;
   }
 
+  /**
+   * The sorted index stores one doc id range per dictionary id, so the exact number of matching docs can be computed
+   * without reading any doc id.
+   */
+  @Override
+  public int getEstimatedNumMatchingDocs() {
+    return getNumMatchingDocs();
+  }
+
   @Override
   public boolean canProduceBitmaps() {
     return true;
@@ -153,15 +153,18 @@ public class InPredicateEvaluatorFactory {
   private static final class DictionaryBasedInPredicateEvaluator extends BaseDictionaryBasedPredicateEvaluator {
     final IntSet _matchingDictIdSet;
     final int _numMatchingDictIds;
+    final int _dictionaryLength;
     int[] _matchingDictIds;
+    long[] _matchingDictIdBits;
 
     DictionaryBasedInPredicateEvaluator(InPredicate inPredicate, Dictionary dictionary, DataType dataType) {
       super(inPredicate);
       _matchingDictIdSet = PredicateUtils.getDictIdSet(inPredicate, dictionary, dataType);
       _numMatchingDictIds = _matchingDictIdSet.size();
+      _dictionaryLength = dictionary.length();
       if (_numMatchingDictIds == 0) {
         _alwaysFalse = true;
-      } else if (dictionary.length() == _numMatchingDictIds) {
+      } else if (_dictionaryLength == _numMatchingDictIds) {
         _alwaysTrue = true;
       }
     }
@@ -191,13 +194,27 @@ public class InPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      if (_dictionaryLength > PredicateUtils.MAX_DICTIONARY_LENGTH_FOR_DICT_ID_BITS) {
+        // reimplemented here to ensure applySV can be inlined
+        int matches = 0;
+        for (int i = 0; i < limit; i++) {
+          int value = values[i];
+          if (applySV(value)) {
+            docIds[matches++] = docIds[i];
+          }
+        }
+        return matches;
+      }
+      if (_matchingDictIdBits == null) {
+        _matchingDictIdBits = PredicateUtils.getDictIdBits(_matchingDictIdSet, _dictionaryLength);
+      }
+      // Branch-free: always copy the doc id, but only advance the cursor when the dictionary id matches
+      long[] matchingDictIdBits = _matchingDictIdBits;
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        int dictId = values[i];
+        docIds[matches] = docIds[i];
+        matches += (int) ((matchingDictIdBits[dictId >>> 6] >>> dictId) & 1L);
       }
       return matches;
     }
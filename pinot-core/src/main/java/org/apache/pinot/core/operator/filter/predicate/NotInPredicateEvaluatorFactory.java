@@ -156,6 +156,7 @@ public class NotInPredicateEvaluatorFactory {
     final Dictionary _dictionary;
     int[] _matchingDictIds;
     int[] _nonMatchingDictIds;
+    long[] _nonMatchingDictIdBits;
 
     DictionaryBasedNotInPredicateEvaluator(NotInPredicate notInPredicate, Dictionary dictionary, DataType dataType) {
       super(notInPredicate);
@@ -181,13 +182,28 @@ public class NotInPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      int dictionaryLength = _dictionary.length();
+      if (dictionaryLength > PredicateUtils.MAX_DICTIONARY_LENGTH_FOR_DICT_ID_BITS) {
+        // reimplemented here to ensure applySV can be inlined
+        int matches = 0;
+        for (int i = 0; i < limit; i++) {
+          int value = values[i];
+          if (applySV(value)) {
+            docIds[matches++] = docIds[i];
+          }
+        }
+        return matches;
+      }
+      if (_nonMatchingDictIdBits == null) {
+        _nonMatchingDictIdBits = PredicateUtils.getDictIdBits(_nonMatchingDictIdSet, dictionaryLength);
+      }
+      // Branch-free: always copy the doc id, but only advance the cursor when the dictionary id matches
+      long[] nonMatchingDictIdBits = _nonMatchingDictIdBits;
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        int dictId = values[i];
+        docIds[matches] = docIds[i];
+        matches += (int) (~(nonMatchingDictIdBits[dictId >>> 6] >>> dictId) & 1L);
       }
       return matches;
     }
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.core.operator.filter.predicate;
 
+import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import java.math.BigDecimal;
@@ -39,6 +40,24 @@ public class PredicateUtils {
   // dictionary
   private static final int MAX_INITIAL_DICT_ID_SET_SIZE = 1000;
 
+  // Max dictionary length to evaluate the batched dictionary id based predicates with a dictionary id bit set, where
+  // the bit set takes 1/8 of the dictionary length in bytes
+  public static final int MAX_DICTIONARY_LENGTH_FOR_DICT_ID_BITS = 1 << 20;
+
+  /**
+   * Returns a bit set of the given dictionary ids (one bit per dictionary id packed into longs), which allows
+   * branch-free membership check of a dictionary id with: {@code (bits[dictId >>> 6] >>> dictId) & 1}.
+   */
+  public static long[] getDictIdBits(IntSet dictIds, int dictionaryLength) {
+    long[] dictIdBits = new long[(dictionaryLength + 63) >>> 6];
+    IntIterator iterator = dictIds.iterator();
+    while (iterator.hasNext()) {
+      int dictId = iterator.nextInt();
+      dictIdBits[dictId >>> 6] |= 1L << dictId;
+    }
+    return dictIdBits;
+  }
+
   /**
    * Converts the given predicate value to the stored value based on the data type.
    */
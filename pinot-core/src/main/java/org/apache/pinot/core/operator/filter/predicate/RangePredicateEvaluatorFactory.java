@@ -179,13 +179,14 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] dictIds) {
-      // reimplemented here to ensure applySV can be inlined
+      // Branch-free: always copy the doc id, but only advance the cursor when the dictionary id matches
+      int startDictId = _startDictId;
+      int endDictId = _endDictId;
       int matches = 0;
       for (int i = 0; i < limit; i++) {
         int dictId = dictIds[i];
-        if (applySV(dictId)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += (startDictId <= dictId & endDictId > dictId) ? 1 : 0;
       }
       return matches;
     }
@@ -226,6 +227,7 @@ public class RangePredicateEvaluatorFactory {
     final Dictionary _dictionary;
     final boolean _dictIdSetBased;
     final IntSet _matchingDictIdSet;
+    final long[] _matchingDictIdBits;
     final BaseRawValueBasedPredicateEvaluator _rawValueBasedEvaluator;
 
     UnsortedDictionaryBasedRangePredicateEvaluator(RangePredicate rangePredicate, Dictionary dictionary,
@@ -246,6 +248,7 @@ public class RangePredicateEvaluatorFactory {
         }
         _matchingDictIdSet = dictionary.getDictIdsInRange(lowerBound, upperBound, rangePredicate.isLowerInclusive(),
             rangePredicate.isUpperInclusive());
+        _matchingDictIdBits = PredicateUtils.getDictIdBits(_matchingDictIdSet, cardinality);
         int numMatchingDictIds = _matchingDictIdSet.size();
         if (numMatchingDictIds == 0) {
           _alwaysFalse = true;
@@ -255,6 +258,7 @@ public class RangePredicateEvaluatorFactory {
       } else {
         _dictIdSetBased = false;
         _matchingDictIdSet = null;
+        _matchingDictIdBits = null;
         _rawValueBasedEvaluator = newRawValueBasedEvaluator(rangePredicate, dataType);
       }
     }
@@ -283,6 +287,22 @@ public class RangePredicateEvaluatorFactory {
       }
     }
 
+    @Override
+    public int applySV(int limit, int[] docIds, int[] dictIds) {
+      if (!_dictIdSetBased) {
+        return super.applySV(limit, docIds, dictIds);
+      }
+      // Branch-free: always copy the doc id, but only advance the cursor when the dictionary id matches
+      long[] matchingDictIdBits = _matchingDictIdBits;
+      int matches = 0;
+      for (int i = 0; i < limit; i++) {
+        int dictId = dictIds[i];
+        docIds[matches] = docIds[i];
+        matches += (int) ((matchingDictIdBits[dictId >>> 6] >>> dictId) & 1L);
+      }
+      return matches;
+    }
+
     @Override
     public int getNumMatchingItems() {
       return _matchingDictIdSet == null ? super.getNumMatchingItems() : _matchingDictIdSet.size();
@@ -335,13 +355,14 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // Branch-free: always copy the doc id, but only advance the cursor when the value matches
+      int inclusiveLowerBound = _inclusiveLowerBound;
+      int inclusiveUpperBound = _inclusiveUpperBound;
       int matches = 0;
       for (int i = 0; i < limit; i++) {
         int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += (value >= inclusiveLowerBound & value <= inclusiveUpperBound) ? 1 : 0;
       }
       return matches;
     }
@@ -388,13 +409,14 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, long[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // Branch-free: always copy the doc id, but only advance the cursor when the value matches
+      long inclusiveLowerBound = _inclusiveLowerBound;
+      long inclusiveUpperBound = _inclusiveUpperBound;
       int matches = 0;
       for (int i = 0; i < limit; i++) {
         long value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += (value >= inclusiveLowerBound & value <= inclusiveUpperBound) ? 1 : 0;
       }
       return matches;
     }
@@ -441,13 +463,14 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, float[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // Branch-free: always copy the doc id, but only advance the cursor when the value matches
+      float inclusiveLowerBound = _inclusiveLowerBound;
+      float inclusiveUpperBound = _inclusiveUpperBound;
       int matches = 0;
       for (int i = 0; i < limit; i++) {
         float value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += (value >= inclusiveLowerBound & value <= inclusiveUpperBound) ? 1 : 0;
       }
       return matches;
     }
@@ -494,13 +517,14 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, double[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // Branch-free: always copy the doc id, but only advance the cursor when the value matches
+      double inclusiveLowerBound = _inclusiveLowerBound;
+      double inclusiveUpperBound = _inclusiveUpperBound;
       int matches = 0;
       for (int i = 0; i < limit; i++) {
         double value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += (value >= inclusiveLowerBound & value <= inclusiveUpperBound) ? 1 : 0;
       }
       return matches;
     }
@@ -29,9 +29,6 @@ import org.apache.pinot.core.operator.transform.TransformResultMetadata;
 import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
-import org.apache.pinot.spi.data.readers.GenericRow;
-import org.apache.pinot.spi.data.readers.PrimaryKey;
-import org.apache.pinot.spi.utils.ByteArray;
 import org.apache.pinot.spi.utils.builder.TableNameBuilder;
 
 
@@ -79,6 +76,7 @@ public class LookupTransformFunction extends BaseTransformFunction {
 
   private DimensionTableDataManager _dataManager;
   private FieldSpec _lookupColumnFieldSpec;
+  private Object[] _lookupValues;
 
   private int _nullIntValue;
   private long _nullLongValue;
@@ -199,29 +197,13 @@ public class LookupTransformFunction extends BaseTransformFunction {
       }
     }
 
-    Object[] pkValues = new Object[numPkColumns];
-    PrimaryKey primaryKey = new PrimaryKey(pkValues);
+    // Look up the whole block at once
+    if (_lookupValues == null || _lookupValues.length < numDocuments) {
+      _lookupValues = new Object[numDocuments];
+    }
+    _dataManager.lookupValues(pkColumns, numDocuments, _dimColumnName, _lookupValues);
     for (int i = 0; i < numDocuments; i++) {
-      // prepare pk
-      for (int c = 0; c < numPkColumns; c++) {
-        if (pkColumns[c] instanceof int[]) {
-          pkValues[c] = ((int[]) pkColumns[c])[i];
-        } else if (pkColumns[c] instanceof long[]) {
-          pkValues[c] = ((long[]) pkColumns[c])[i];
-        } else if (pkColumns[c] instanceof String[]) {
-          pkValues[c] = ((String[]) pkColumns[c])[i];
-        } else if (pkColumns[c] instanceof float[]) {
-          pkValues[c] = ((float[]) pkColumns[c])[i];
-        } else if (pkColumns[c] instanceof double[]) {
-          pkValues[c] = ((double[]) pkColumns[c])[i];
-        } else if (pkColumns[c] instanceof byte[][]) {
-          pkValues[c] = new ByteArray(((byte[][]) pkColumns[c])[i]);
-        }
-      }
-      // lookup
-      GenericRow row = _dataManager.lookupRowByPrimaryKey(primaryKey);
-      Object value = row == null ? null : row.getValue(_dimColumnName);
-      valueAcceptor.accept(i, value);
+      valueAcceptor.accept(i, _lookupValues[i]);
     }
   }
 
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.common.request.context.FilterContext;
@@ -68,10 +69,19 @@ public class AggregationPlanNode implements PlanNode {
 
   private final IndexSegment _indexSegment;
   private final QueryContext _queryContext;
+  private final Morsel _morsel;
 
   public AggregationPlanNode(IndexSegment indexSegment, QueryContext queryContext) {
+    this(indexSegment, queryContext, null);
+  }
+
+  /**
+   * When the morsel is specified, only the documents within the morsel are aggregated.
+   */
+  public AggregationPlanNode(IndexSegment indexSegment, QueryContext queryContext, @Nullable Morsel morsel) {
     _indexSegment = indexSegment;
     _queryContext = queryContext;
+    _morsel = morsel;
   }
 
   @Override
@@ -150,7 +160,7 @@ public class AggregationPlanNode implements PlanNode {
    * evaluator map
    */
   private Pair<FilterPlanNode, BaseFilterOperator> buildFilterOperator(FilterContext filterContext) {
-    FilterPlanNode filterPlanNode = new FilterPlanNode(_indexSegment, _queryContext, filterContext);
+    FilterPlanNode filterPlanNode = new FilterPlanNode(_indexSegment, _queryContext, filterContext, _morsel);
     return Pair.of(filterPlanNode, filterPlanNode.run());
   }
 
@@ -174,7 +184,7 @@ public class AggregationPlanNode implements PlanNode {
     int numTotalDocs = _indexSegment.getSegmentMetadata().getTotalDocs();
     AggregationFunction[] aggregationFunctions = _queryContext.getAggregationFunctions();
 
-    FilterPlanNode filterPlanNode = new FilterPlanNode(_indexSegment, _queryContext);
+    FilterPlanNode filterPlanNode = new FilterPlanNode(_indexSegment, _queryContext, null, _morsel);
     BaseFilterOperator filterOperator = filterPlanNode.run();
 
     if (canOptimizeFilteredCount(filterOperator, aggregationFunctions) && !_queryContext.isNullHandlingEnabled()) {
@@ -196,8 +206,10 @@ public class AggregationPlanNode implements PlanNode {
     }
 
     // Use star-tree to solve the query if possible
+    // NOTE: Star-tree cannot be applied to a morsel because the pre-aggregated records do not map to document ids
     List<StarTreeV2> starTrees = _indexSegment.getStarTrees();
-    if (starTrees != null && !_queryContext.isSkipStarTree() && !_queryContext.isNullHandlingEnabled()) {
+    if (starTrees != null && _morsel == null && !_queryContext.isSkipStarTree()
+        && !_queryContext.isNullHandlingEnabled()) {
       AggregationFunctionColumnPair[] aggregationFunctionColumnPairs =
           StarTreeUtils.extractAggregationFunctionPairs(aggregationFunctions);
       if (aggregationFunctionColumnPairs != null) {
@@ -230,7 +242,7 @@ public class AggregationPlanNode implements PlanNode {
    * Returns {@code true} if the given aggregations can be solved with dictionary or column metadata, {@code false}
    * otherwise.
    */
-  private static boolean isFitForNonScanBasedPlan(AggregationFunction[] aggregationFunctions,
+  public static boolean isFitForNonScanBasedPlan(AggregationFunction[] aggregationFunctions,
       IndexSegment indexSegment) {
     for (AggregationFunction aggregationFunction : aggregationFunctions) {
       if (aggregationFunction.getType() == COUNT) {
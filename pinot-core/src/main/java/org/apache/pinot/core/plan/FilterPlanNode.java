@@ -65,6 +65,7 @@ public class FilterPlanNode implements PlanNode {
   private final IndexSegment _indexSegment;
   private final QueryContext _queryContext;
   private final FilterContext _filter;
+  private final Morsel _morsel;
 
   // Cache the predicate evaluators
   private final List<Pair<Predicate, PredicateEvaluator>> _predicateEvaluators = new ArrayList<>(4);
@@ -74,9 +75,18 @@ public class FilterPlanNode implements PlanNode {
   }
 
   public FilterPlanNode(IndexSegment indexSegment, QueryContext queryContext, @Nullable FilterContext filter) {
+    this(indexSegment, queryContext, filter, null);
+  }
+
+  /**
+   * When the morsel is specified, only the documents within the morsel are matched.
+   */
+  public FilterPlanNode(IndexSegment indexSegment, QueryContext queryContext, @Nullable FilterContext filter,
+      @Nullable Morsel morsel) {
     _indexSegment = indexSegment;
     _queryContext = queryContext;
     _filter = filter;
+    _morsel = morsel;
   }
 
   @Override
@@ -88,20 +98,28 @@ public class FilterPlanNode implements PlanNode {
     int numDocs = _indexSegment.getSegmentMetadata().getTotalDocs();
 
     FilterContext filter = _filter != null ? _filter : _queryContext.getFilter();
+    BaseFilterOperator filterOperator;
     if (filter != null) {
-      BaseFilterOperator filterOperator = constructPhysicalOperator(filter, numDocs);
+      filterOperator = constructPhysicalOperator(filter, numDocs);
       if (validDocIdsSnapshot != null) {
         BaseFilterOperator validDocFilter = new BitmapBasedFilterOperator(validDocIdsSnapshot, false, numDocs);
-        return FilterOperatorUtils.getAndFilterOperator(_queryContext, Arrays.asList(filterOperator, validDocFilter),
-            numDocs);
-      } else {
-        return filterOperator;
+        filterOperator = FilterOperatorUtils.getAndFilterOperator(_queryContext,
+            Arrays.asList(filterOperator, validDocFilter), numDocs);
       }
     } else if (validDocIdsSnapshot != null) {
-      return new BitmapBasedFilterOperator(validDocIdsSnapshot, false, numDocs);
+      filterOperator = new BitmapBasedFilterOperator(validDocIdsSnapshot, false, numDocs);
     } else {
-      return new MatchAllFilterOperator(numDocs);
+      filterOperator = new MatchAllFilterOperator(numDocs);
+    }
+    if (_morsel != null) {
+      // Restrict the filter to the morsel so that the scans are only applied to the documents within the morsel
+      MutableRoaringBitmap morselDocIds = new MutableRoaringBitmap();
+      morselDocIds.add((long) _morsel.getStartDocId(), _morsel.getEndDocId());
+      BaseFilterOperator morselFilter = new BitmapBasedFilterOperator(morselDocIds, false, numDocs);
+      filterOperator =
+          FilterOperatorUtils.getAndFilterOperator(_queryContext, Arrays.asList(filterOperator, morselFilter), numDocs);
     }
+    return filterOperator;
   }
 
   /**
@@ -21,6 +21,7 @@ package org.apache.pinot.core.plan;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.core.operator.filter.BaseFilterOperator;
 import org.apache.pinot.core.operator.query.GroupByOperator;
@@ -43,10 +44,19 @@ import org.apache.pinot.segment.spi.index.startree.StarTreeV2;
 public class GroupByPlanNode implements PlanNode {
   private final IndexSegment _indexSegment;
   private final QueryContext _queryContext;
+  private final Morsel _morsel;
 
   public GroupByPlanNode(IndexSegment indexSegment, QueryContext queryContext) {
+    this(indexSegment, queryContext, null);
+  }
+
+  /**
+   * When the morsel is specified, only the documents within the morsel are aggregated.
+   */
+  public GroupByPlanNode(IndexSegment indexSegment, QueryContext queryContext, @Nullable Morsel morsel) {
     _indexSegment = indexSegment;
     _queryContext = queryContext;
+    _morsel = morsel;
   }
 
   @Override
@@ -58,12 +68,13 @@ public class GroupByPlanNode implements PlanNode {
     AggregationFunction[] aggregationFunctions = _queryContext.getAggregationFunctions();
     ExpressionContext[] groupByExpressions = _queryContext.getGroupByExpressions().toArray(new ExpressionContext[0]);
 
-    FilterPlanNode filterPlanNode = new FilterPlanNode(_indexSegment, _queryContext);
+    FilterPlanNode filterPlanNode = new FilterPlanNode(_indexSegment, _queryContext, null, _morsel);
     BaseFilterOperator filterOperator = filterPlanNode.run();
 
     // Use star-tree to solve the query if possible
+    // NOTE: Star-tree cannot be applied to a morsel because the pre-aggregated records do not map to document ids
     List<StarTreeV2> starTrees = _indexSegment.getStarTrees();
-    if (starTrees != null && !_queryContext.isSkipStarTree()) {
+    if (starTrees != null && _morsel == null && !_queryContext.isSkipStarTree()) {
       AggregationFunctionColumnPair[] aggregationFunctionColumnPairs =
           StarTreeUtils.extractAggregationFunctionPairs(aggregationFunctions);
       if (aggregationFunctionColumnPairs != null) {
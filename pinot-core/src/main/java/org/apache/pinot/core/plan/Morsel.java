@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The {@code Morsel} class represents a contiguous range of document ids {@code [startDocId, endDocId)} within a
+ * segment.
+ * <p>Large segments can be split into multiple morsels, which are planned and executed as separate segment-level
+ * operators so that a query hitting only a few large segments can still be processed with multiple threads. The
+ * results of the morsels are merged by the combine operator the same way as the results of different segments.
+ */
+public class Morsel {
+  private final int _startDocId;
+  private final int _endDocId;
+  // All the morsels split from the same segment, shared by these morsels
+  private final List<Morsel> _segmentMorsels;
+
+  private Morsel(int startDocId, int endDocId, List<Morsel> segmentMorsels) {
+    Preconditions.checkArgument(startDocId >= 0 && startDocId < endDocId, "Invalid morsel: [%s, %s)", startDocId,
+        endDocId);
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+    _segmentMorsels = segmentMorsels;
+  }
+
+  /**
+   * Splits the documents {@code [0, numDocs)} into the given number of morsels of (almost) the same size.
+   */
+  public static List<Morsel> split(int numDocs, int numMorsels) {
+    Preconditions.checkArgument(numMorsels > 0 && numMorsels <= numDocs, "Cannot split %s docs into %s morsels",
+        numDocs, numMorsels);
+    List<Morsel> morsels = new ArrayList<>(numMorsels);
+    int startDocId = 0;
+    for (int i = 1; i <= numMorsels; i++) {
+      int endDocId = (int) ((long) numDocs * i / numMorsels);
+      morsels.add(new Morsel(startDocId, endDocId, morsels));
+      startDocId = endDocId;
+    }
+    return Collections.unmodifiableList(morsels);
+  }
+
+  public int getStartDocId() {
+    return _startDocId;
+  }
+
+  public int getEndDocId() {
+    return _endDocId;
+  }
+
+  public int getNumDocs() {
+    return _endDocId - _startDocId;
+  }
+
+  /**
+   * Returns all the morsels split from the same segment as this morsel. The returned list is shared by these morsels,
+   * and can be used to identify the split segment (the same segment instance might be queried multiple times).
+   */
+  public List<Morsel> getSegmentMorsels() {
+    return _segmentMorsels;
+  }
+
+  @Override
+  public String toString() {
+    return "[" + _startDocId + ", " + _endDocId + ")";
+  }
+}
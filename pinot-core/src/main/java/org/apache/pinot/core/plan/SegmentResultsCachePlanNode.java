@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.SegmentResultsCacheOperator;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.query.executor.SegmentResultsCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.IndexSegment;
+
+
+/**
+ * A wrapper around the segment-level plan node which looks up the {@link SegmentResultsCache}, and only runs the
+ * child plan node on cache miss.
+ */
+public class SegmentResultsCachePlanNode implements PlanNode {
+  private final PlanNode _childPlanNode;
+  private final SegmentResultsCache _segmentResultsCache;
+  private final SegmentResultsCache.QueryFingerprint _queryFingerprint;
+  private final QueryContext _queryContext;
+  private final IndexSegment _indexSegment;
+
+  public SegmentResultsCachePlanNode(PlanNode childPlanNode, SegmentResultsCache segmentResultsCache,
+      SegmentResultsCache.QueryFingerprint queryFingerprint, QueryContext queryContext, IndexSegment indexSegment) {
+    _childPlanNode = childPlanNode;
+    _segmentResultsCache = segmentResultsCache;
+    _queryFingerprint = queryFingerprint;
+    _queryContext = queryContext;
+    _indexSegment = indexSegment;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public SegmentResultsCacheOperator run() {
+    SegmentResultsCache.CachedResults cachedResults =
+        _segmentResultsCache.get(_queryContext.getTableName(), _indexSegment, _queryFingerprint);
+    if (cachedResults != null) {
+      return new SegmentResultsCacheOperator(_segmentResultsCache, _queryFingerprint, _queryContext, _indexSegment,
+          cachedResults, null);
+    }
+    return new SegmentResultsCacheOperator(_segmentResultsCache, _queryFingerprint, _queryContext, _indexSegment, null,
+        (Operator<BaseResultsBlock>) _childPlanNode.run());
+  }
+}
@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.pinot.common.metrics.ServerMetrics;
@@ -36,6 +37,7 @@ import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.common.request.context.FilterContext;
 import org.apache.pinot.common.request.context.OrderByExpressionContext;
 import org.apache.pinot.common.request.context.predicate.Predicate;
+import org.apache.pinot.core.operator.combine.CombineOperatorUtils;
 import org.apache.pinot.core.plan.AcquireReleaseColumnsSegmentPlanNode;
 import org.apache.pinot.core.plan.AggregationPlanNode;
 import org.apache.pinot.core.plan.CombinePlanNode;
@@ -43,16 +45,22 @@ import org.apache.pinot.core.plan.DistinctPlanNode;
 import org.apache.pinot.core.plan.GlobalPlanImplV0;
 import org.apache.pinot.core.plan.GroupByPlanNode;
 import org.apache.pinot.core.plan.InstanceResponsePlanNode;
+import org.apache.pinot.core.plan.Morsel;
+import org.apache.pinot.core.plan.MorselPlanNode;
 import org.apache.pinot.core.plan.Plan;
 import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.plan.SegmentResultsCachePlanNode;
 import org.apache.pinot.core.plan.SelectionPlanNode;
 import org.apache.pinot.core.plan.StreamingInstanceResponsePlanNode;
 import org.apache.pinot.core.plan.StreamingSelectionPlanNode;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
 import org.apache.pinot.core.query.config.QueryExecutorConfig;
+import org.apache.pinot.core.query.executor.SegmentResultsCache;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.core.query.request.context.utils.QueryContextUtils;
 import org.apache.pinot.core.util.GroupByUtils;
 import org.apache.pinot.core.util.QueryOptionsUtils;
+import org.apache.pinot.segment.spi.AggregationFunctionType;
 import org.apache.pinot.segment.spi.FetchContext;
 import org.apache.pinot.segment.spi.IndexSegment;
 import org.apache.pinot.spi.env.PinotConfiguration;
@@ -87,6 +95,11 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   // set as pinot.server.query.executor.groupby.trim.threshold
   public static final String GROUPBY_TRIM_THRESHOLD_KEY = "groupby.trim.threshold";
   public static final int DEFAULT_GROUPBY_TRIM_THRESHOLD = 1_000_000;
+  // Instance config key for minimum number of documents per morsel when splitting large segments into morsels to be
+  // processed in parallel, non-positive value disables the split
+  // Set as pinot.server.query.executor.min.docs.per.morsel
+  public static final String MIN_DOCS_PER_MORSEL_KEY = "min.docs.per.morsel";
+  public static final int DEFAULT_MIN_DOCS_PER_MORSEL = 1_000_000;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(InstancePlanMakerImplV2.class);
 
@@ -98,6 +111,8 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   private final int _minSegmentGroupTrimSize;
   private final int _minServerGroupTrimSize;
   private final int _groupByTrimThreshold;
+  private final int _minDocsPerMorsel;
+  private SegmentResultsCache _segmentResultsCache;
 
   @VisibleForTesting
   public InstancePlanMakerImplV2() {
@@ -107,6 +122,7 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     _minSegmentGroupTrimSize = DEFAULT_MIN_SEGMENT_GROUP_TRIM_SIZE;
     _minServerGroupTrimSize = DEFAULT_MIN_SERVER_GROUP_TRIM_SIZE;
     _groupByTrimThreshold = DEFAULT_GROUPBY_TRIM_THRESHOLD;
+    _minDocsPerMorsel = DEFAULT_MIN_DOCS_PER_MORSEL;
   }
 
   @VisibleForTesting
@@ -118,6 +134,7 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     _minSegmentGroupTrimSize = minSegmentGroupTrimSize;
     _minServerGroupTrimSize = minServerGroupTrimSize;
     _groupByTrimThreshold = groupByTrimThreshold;
+    _minDocsPerMorsel = DEFAULT_MIN_DOCS_PER_MORSEL;
   }
 
   /**
@@ -143,6 +160,7 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     _groupByTrimThreshold = config.getProperty(GROUPBY_TRIM_THRESHOLD_KEY, DEFAULT_GROUPBY_TRIM_THRESHOLD);
     Preconditions.checkState(_groupByTrimThreshold > 0,
         "Invalid configurable: groupByTrimThreshold: %d must be positive", _groupByTrimThreshold);
+    _minDocsPerMorsel = config.getProperty(MIN_DOCS_PER_MORSEL_KEY, DEFAULT_MIN_DOCS_PER_MORSEL);
     LOGGER.info("Initializing plan maker with maxInitialResultHolderCapacity: {}, numGroupsLimit: {}, "
             + "minSegmentGroupTrimSize: {}, minServerGroupTrimSize: {}", _maxInitialResultHolderCapacity,
         _numGroupsLimit,
@@ -157,6 +175,8 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     int numSegments = indexSegments.size();
     List<PlanNode> planNodes = new ArrayList<>(numSegments);
     List<FetchContext> fetchContexts;
+    SegmentResultsCache.QueryFingerprint queryFingerprint =
+        _segmentResultsCache != null ? SegmentResultsCache.getQueryFingerprint(queryContext) : null;
 
     if (queryContext.isEnablePrefetch()) {
       fetchContexts = new ArrayList<>(numSegments);
@@ -171,13 +191,25 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         FetchContext fetchContext = new FetchContext(UUID.randomUUID(), indexSegment.getSegmentName(), columns);
         fetchContexts.add(fetchContext);
         planNodes.add(
-            new AcquireReleaseColumnsSegmentPlanNode(makeSegmentPlanNode(indexSegment, queryContext), indexSegment,
-                fetchContext));
+            new AcquireReleaseColumnsSegmentPlanNode(makeSegmentPlanNode(indexSegment, queryContext, queryFingerprint),
+                indexSegment, fetchContext));
       }
     } else {
       fetchContexts = Collections.emptyList();
+      Integer minDocsPerMorselFromQuery = QueryOptionsUtils.getMinDocsPerMorsel(queryContext.getQueryOptions());
+      int minDocsPerMorsel = minDocsPerMorselFromQuery != null ? minDocsPerMorselFromQuery : _minDocsPerMorsel;
       for (IndexSegment indexSegment : indexSegments) {
-        planNodes.add(makeSegmentPlanNode(indexSegment, queryContext));
+        List<Morsel> morsels =
+            minDocsPerMorsel > 0 ? getMorsels(indexSegment, queryContext, numSegments, minDocsPerMorsel,
+                queryFingerprint) : null;
+        if (morsels != null) {
+          for (Morsel morsel : morsels) {
+            planNodes.add(
+                new MorselPlanNode(makeSegmentPlanNode(indexSegment, queryContext, morsel), indexSegment, morsel));
+          }
+        } else {
+          planNodes.add(makeSegmentPlanNode(indexSegment, queryContext, queryFingerprint));
+        }
       }
     }
 
@@ -186,6 +218,14 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         new InstanceResponsePlanNode(combinePlanNode, indexSegments, fetchContexts, queryContext));
   }
 
+  /**
+   * Sets the cache for the segment level results of aggregation and group-by queries on immutable segments. Caching is
+   * disabled when it is not set.
+   */
+  public void setSegmentResultsCache(@Nullable SegmentResultsCache segmentResultsCache) {
+    _segmentResultsCache = segmentResultsCache;
+  }
+
   private void applyQueryOptions(QueryContext queryContext) {
     Map<String, String> queryOptions = queryContext.getQueryOptions();
 
@@ -239,6 +279,76 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     }
   }
 
+  /**
+   * Returns the morsels to split the segment into so that it can be processed by multiple threads, or {@code null} if
+   * the segment should be processed as a whole. Only aggregation and group-by queries hitting fewer segments than the
+   * number of execution threads are split, except the aggregations that do not need to scan the documents.
+   */
+  @Nullable
+  private static List<Morsel> getMorsels(IndexSegment indexSegment, QueryContext queryContext, int numSegments,
+      int minDocsPerMorsel, @Nullable SegmentResultsCache.QueryFingerprint queryFingerprint) {
+    if (!QueryContextUtils.isAggregationQuery(queryContext)) {
+      return null;
+    }
+    // Keep the segment level results cache
+    if (queryFingerprint != null && SegmentResultsCache.isCacheable(indexSegment)) {
+      return null;
+    }
+    // Each morsel takes its own snapshot of the valid doc ids, which could count an updated record twice
+    if (indexSegment.getValidDocIds() != null && !queryContext.isSkipUpsert()) {
+      return null;
+    }
+    // Star-tree can only be applied to the whole segment
+    if (indexSegment.getStarTrees() != null && !queryContext.isSkipStarTree()) {
+      return null;
+    }
+    // Keep the aggregations solved without scanning the documents, which requires the filter to match the whole
+    // segment
+    if (queryContext.getGroupByExpressions() == null && !queryContext.isHasFilteredAggregations()) {
+      AggregationFunction[] aggregationFunctions = queryContext.getAggregationFunctions();
+      if (isCountOnly(aggregationFunctions)) {
+        return null;
+      }
+      if (queryContext.getFilter() == null && !queryContext.isNullHandlingEnabled()
+          && AggregationPlanNode.isFitForNonScanBasedPlan(aggregationFunctions, indexSegment)) {
+        return null;
+      }
+    }
+    int numThreads = CombineOperatorUtils.getNumTasksForQuery(Integer.MAX_VALUE, queryContext.getMaxExecutionThreads());
+    int numDocs = indexSegment.getSegmentMetadata().getTotalDocs();
+    int numMorsels = Math.min(numThreads / numSegments, numDocs / minDocsPerMorsel);
+    return numMorsels > 1 ? Morsel.split(numDocs, numMorsels) : null;
+  }
+
+  private static boolean isCountOnly(AggregationFunction[] aggregationFunctions) {
+    for (AggregationFunction aggregationFunction : aggregationFunctions) {
+      if (aggregationFunction.getType() != AggregationFunctionType.COUNT) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private PlanNode makeSegmentPlanNode(IndexSegment indexSegment, QueryContext queryContext, Morsel morsel) {
+    rewriteQueryContextWithHints(queryContext, indexSegment);
+    assert QueryContextUtils.isAggregationQuery(queryContext);
+    if (queryContext.getGroupByExpressions() != null) {
+      return new GroupByPlanNode(indexSegment, queryContext, morsel);
+    } else {
+      return new AggregationPlanNode(indexSegment, queryContext, morsel);
+    }
+  }
+
+  private PlanNode makeSegmentPlanNode(IndexSegment indexSegment, QueryContext queryContext,
+      @Nullable SegmentResultsCache.QueryFingerprint queryFingerprint) {
+    PlanNode planNode = makeSegmentPlanNode(indexSegment, queryContext);
+    if (queryFingerprint != null && SegmentResultsCache.isCacheable(indexSegment)) {
+      planNode =
+          new SegmentResultsCachePlanNode(planNode, _segmentResultsCache, queryFingerprint, queryContext, indexSegment);
+    }
+    return planNode;
+  }
+
   @Override
   public PlanNode makeSegmentPlanNode(IndexSegment indexSegment, QueryContext queryContext) {
     rewriteQueryContextWithHints(queryContext, indexSegment);
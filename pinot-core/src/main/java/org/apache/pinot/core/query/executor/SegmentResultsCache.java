@@ -0,0 +1,435 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.executor;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.commons.collections.MapUtils;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.request.context.ExpressionContext;
+import org.apache.pinot.common.request.context.FilterContext;
+import org.apache.pinot.common.request.context.OrderByExpressionContext;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.ObjectSerDeUtils;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextUtils;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code SegmentResultsCache} caches the segment level results of aggregation and group-by queries on immutable
+ * segments, so that repeated queries only need to be executed on the new and consuming segments.
+ *
+ * <p>The cache is keyed by the table name, the segment name and CRC, and a fingerprint of the normalized
+ * {@link QueryContext}. Each entry also keeps a weak reference to the segment it was computed on, and is invalidated
+ * on lookup if the segment has been replaced or reloaded (a new {@link IndexSegment} instance is registered for the
+ * segment name). The size of the cache is bounded by the estimated size of the cached results, and the least recently
+ * used entries are evicted first.
+ *
+ * <p>The aggregation intermediate results are stored in their serialized form (except for the immutable values), and
+ * de-serialized into new objects on each cache hit because the combine operators modify the results in place while
+ * merging them.
+ */
+public class SegmentResultsCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultsCache.class);
+
+  // Rough estimates of the memory overhead of the cached objects
+  private static final int ENTRY_OVERHEAD_BYTES = 512;
+  private static final int ROW_OVERHEAD_BYTES = 16;
+  private static final int VALUE_OVERHEAD_BYTES = 16;
+
+  private final Cache<CacheKey, CachedResults> _cache;
+  private final ServerMetrics _serverMetrics;
+
+  public SegmentResultsCache(long maxSizeInBytes, ServerMetrics serverMetrics) {
+    Preconditions.checkArgument(maxSizeInBytes > 0, "Max size of the segment results cache must be positive, got: %s",
+        maxSizeInBytes);
+    _cache = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes)
+        .weigher((CacheKey key, CachedResults value) -> value._sizeInBytes).recordStats().build();
+    _serverMetrics = serverMetrics;
+  }
+
+  /**
+   * Returns the fingerprint of the query for the segment level results, or {@code null} if the query is not cacheable.
+   * <p>Only the parts of the query that can affect the segment level results are included. Query options that do not
+   * change the results (e.g. timeout, trace) are excluded so that repeated queries can share the cached results.
+   * Queries with expression override hints are not cached because the hints rewrite the query in place per segment.
+   */
+  @Nullable
+  public static QueryFingerprint getQueryFingerprint(QueryContext queryContext) {
+    if (queryContext.isExplain() || !QueryContextUtils.isAggregationQuery(queryContext)
+        || MapUtils.isNotEmpty(queryContext.getExpressionOverrideHints())) {
+      return null;
+    }
+    return new QueryFingerprint(queryContext);
+  }
+
+  /**
+   * Returns whether the results of the given segment can be cached. Only immutable segments without valid doc ids
+   * (i.e. not upsert segments, where the valid docs can change over time) are cached.
+   */
+  public static boolean isCacheable(IndexSegment indexSegment) {
+    return indexSegment instanceof ImmutableSegment && indexSegment.getValidDocIds() == null
+        && indexSegment.getSegmentMetadata().getCrc() != null;
+  }
+
+  /**
+   * Returns the cached results for the given segment and query fingerprint, or {@code null} if there is no valid cached
+   * results.
+   */
+  @Nullable
+  public CachedResults get(String tableNameWithType, IndexSegment indexSegment, QueryFingerprint queryFingerprint) {
+    CacheKey cacheKey = new CacheKey(tableNameWithType, indexSegment, queryFingerprint);
+    CachedResults cachedResults = _cache.getIfPresent(cacheKey);
+    if (cachedResults != null && cachedResults._segmentReference.get() != indexSegment) {
+      // Segment has been replaced or reloaded
+      _cache.invalidate(cacheKey);
+      cachedResults = null;
+    }
+    _serverMetrics.addMeteredTableValue(tableNameWithType,
+        cachedResults != null ? ServerMeter.SEGMENT_RESULTS_CACHE_HITS : ServerMeter.SEGMENT_RESULTS_CACHE_MISSES, 1);
+    return cachedResults;
+  }
+
+  /**
+   * Caches the results for the given segment and query fingerprint. Results blocks that cannot be cached (e.g. with
+   * processing exceptions or intermediate results that cannot be serialized) are skipped.
+   * <p>NOTE: This method should be called before the results block is merged by the combine operator.
+   */
+  public void put(String tableNameWithType, IndexSegment indexSegment, QueryFingerprint queryFingerprint,
+      QueryContext queryContext, BaseResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+    if (resultsBlock.getProcessingExceptions() != null) {
+      return;
+    }
+    CachedResults cachedResults;
+    try {
+      if (resultsBlock instanceof AggregationResultsBlock) {
+        cachedResults = fromAggregationResults((AggregationResultsBlock) resultsBlock, indexSegment, queryFingerprint,
+            executionStatistics);
+      } else if (resultsBlock instanceof GroupByResultsBlock) {
+        cachedResults = fromGroupByResults((GroupByResultsBlock) resultsBlock, indexSegment, queryFingerprint,
+            queryContext, executionStatistics);
+      } else {
+        return;
+      }
+    } catch (IllegalArgumentException e) {
+      LOGGER.debug("Skip caching results of segment: {} with unsupported intermediate results",
+          indexSegment.getSegmentName(), e);
+      return;
+    }
+    _cache.put(new CacheKey(tableNameWithType, indexSegment, queryFingerprint), cachedResults);
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  public CacheStats getStats() {
+    return _cache.stats();
+  }
+
+  private static CachedResults fromAggregationResults(AggregationResultsBlock resultsBlock, IndexSegment indexSegment,
+      QueryFingerprint queryFingerprint, ExecutionStatistics executionStatistics) {
+    List<Object> results = resultsBlock.getResults();
+    int numResults = results.size();
+    Object[] row = new Object[numResults];
+    long sizeInBytes = ENTRY_OVERHEAD_BYTES + ROW_OVERHEAD_BYTES;
+    for (int i = 0; i < numResults; i++) {
+      row[i] = encodeValue(results.get(i));
+      sizeInBytes += getEncodedSize(row[i]);
+    }
+    return new CachedResults(indexSegment, null, 0, Collections.singletonList(row), false, executionStatistics,
+        sizeInBytes);
+  }
+
+  private static CachedResults fromGroupByResults(GroupByResultsBlock resultsBlock, IndexSegment indexSegment,
+      QueryFingerprint queryFingerprint, QueryContext queryContext, ExecutionStatistics executionStatistics) {
+    DataSchema dataSchema = resultsBlock.getDataSchema();
+    int numColumns = dataSchema.size();
+    assert queryContext.getGroupByExpressions() != null;
+    int numKeys = queryContext.getGroupByExpressions().size();
+    List<Object[]> rows = new ArrayList<>();
+    Collection<IntermediateRecord> intermediateRecords = resultsBlock.getIntermediateRecords();
+    if (intermediateRecords != null) {
+      for (IntermediateRecord intermediateRecord : intermediateRecords) {
+        rows.add(encodeRow(intermediateRecord._record.getValues()));
+      }
+    } else {
+      AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+      if (aggregationGroupByResult != null) {
+        Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+        while (groupKeyIterator.hasNext()) {
+          GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+          Object[] row = Arrays.copyOf(groupKey._keys, numColumns);
+          for (int i = numKeys; i < numColumns; i++) {
+            row[i] = aggregationGroupByResult.getResultForGroupId(i - numKeys, groupKey._groupId);
+          }
+          rows.add(encodeRow(row));
+        }
+      }
+    }
+    long sizeInBytes = ENTRY_OVERHEAD_BYTES;
+    for (Object[] row : rows) {
+      sizeInBytes += ROW_OVERHEAD_BYTES;
+      for (Object value : row) {
+        sizeInBytes += getEncodedSize(value);
+      }
+    }
+    return new CachedResults(indexSegment, dataSchema, numKeys, rows, resultsBlock.isNumGroupsLimitReached(),
+        executionStatistics, sizeInBytes);
+  }
+
+  private static Object[] encodeRow(Object[] row) {
+    int numValues = row.length;
+    Object[] encodedRow = new Object[numValues];
+    for (int i = 0; i < numValues; i++) {
+      encodedRow[i] = encodeValue(row[i]);
+    }
+    return encodedRow;
+  }
+
+  private static Object[] decodeRow(Object[] encodedRow) {
+    int numValues = encodedRow.length;
+    Object[] row = new Object[numValues];
+    for (int i = 0; i < numValues; i++) {
+      row[i] = decodeValue(encodedRow[i]);
+    }
+    return row;
+  }
+
+  /**
+   * Encodes a value for caching. Immutable values are cached as is, other values are serialized.
+   */
+  @Nullable
+  private static Object encodeValue(@Nullable Object value) {
+    if (isImmutable(value)) {
+      return value;
+    }
+    ObjectSerDeUtils.ObjectType objectType = ObjectSerDeUtils.ObjectType.getObjectType(value);
+    return new SerializedValue(objectType, ObjectSerDeUtils.serialize(value, objectType.getValue()));
+  }
+
+  @Nullable
+  private static Object decodeValue(@Nullable Object value) {
+    if (value instanceof SerializedValue) {
+      SerializedValue serializedValue = (SerializedValue) value;
+      return ObjectSerDeUtils.deserialize(serializedValue._bytes, serializedValue._objectType);
+    }
+    return value;
+  }
+
+  private static boolean isImmutable(@Nullable Object value) {
+    return value == null || value instanceof Integer || value instanceof Long || value instanceof Float
+        || value instanceof Double || value instanceof BigDecimal || value instanceof String
+        || value instanceof ByteArray;
+  }
+
+  private static long getEncodedSize(@Nullable Object value) {
+    if (value instanceof SerializedValue) {
+      return VALUE_OVERHEAD_BYTES + ((SerializedValue) value)._bytes.length;
+    }
+    if (value instanceof String) {
+      return VALUE_OVERHEAD_BYTES + 2L * ((String) value).length();
+    }
+    if (value instanceof ByteArray) {
+      return VALUE_OVERHEAD_BYTES + ((ByteArray) value).length();
+    }
+    return VALUE_OVERHEAD_BYTES;
+  }
+
+  /**
+   * Fingerprint of the parts of the query that can affect the segment level results.
+   */
+  public static class QueryFingerprint {
+    private final List<ExpressionContext> _selectExpressions;
+    private final FilterContext _filter;
+    private final List<ExpressionContext> _groupByExpressions;
+    private final List<OrderByExpressionContext> _orderByExpressions;
+    private final int _limit;
+    private final int _numGroupsLimit;
+    private final int _minSegmentGroupTrimSize;
+    private final boolean _nullHandlingEnabled;
+    private final int _hashCode;
+
+    private QueryFingerprint(QueryContext queryContext) {
+      _selectExpressions = queryContext.getSelectExpressions();
+      _filter = queryContext.getFilter();
+      _groupByExpressions = queryContext.getGroupByExpressions();
+      if (_groupByExpressions != null) {
+        // Order-by, limit and groups limit are used to trim the segment level group-by results
+        _orderByExpressions = queryContext.getOrderByExpressions();
+        _limit = queryContext.getLimit();
+        _numGroupsLimit = queryContext.getNumGroupsLimit();
+        _minSegmentGroupTrimSize = queryContext.getMinSegmentGroupTrimSize();
+      } else {
+        _orderByExpressions = null;
+        _limit = 0;
+        _numGroupsLimit = 0;
+        _minSegmentGroupTrimSize = 0;
+      }
+      _nullHandlingEnabled = queryContext.isNullHandlingEnabled();
+      _hashCode = Objects.hash(_selectExpressions, _filter, _groupByExpressions, _orderByExpressions, _limit,
+          _numGroupsLimit, _minSegmentGroupTrimSize, _nullHandlingEnabled);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof QueryFingerprint)) {
+        return false;
+      }
+      QueryFingerprint that = (QueryFingerprint) o;
+      return _hashCode == that._hashCode && _limit == that._limit && _numGroupsLimit == that._numGroupsLimit
+          && _minSegmentGroupTrimSize == that._minSegmentGroupTrimSize
+          && _nullHandlingEnabled == that._nullHandlingEnabled && _selectExpressions.equals(that._selectExpressions)
+          && Objects.equals(_filter, that._filter) && Objects.equals(_groupByExpressions, that._groupByExpressions)
+          && Objects.equals(_orderByExpressions, that._orderByExpressions);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  /**
+   * Segment level results cached for a query.
+   */
+  public static class CachedResults {
+    private final WeakReference<IndexSegment> _segmentReference;
+    // Data schema of the group-by results, null for aggregation results
+    private final DataSchema _dataSchema;
+    private final int _numKeys;
+    private final List<Object[]> _encodedRows;
+    private final boolean _numGroupsLimitReached;
+    private final ExecutionStatistics _executionStatistics;
+    private final int _sizeInBytes;
+
+    private CachedResults(IndexSegment indexSegment, @Nullable DataSchema dataSchema, int numKeys,
+        List<Object[]> encodedRows, boolean numGroupsLimitReached, ExecutionStatistics executionStatistics,
+        long sizeInBytes) {
+      _segmentReference = new WeakReference<>(indexSegment);
+      _dataSchema = dataSchema;
+      _numKeys = numKeys;
+      _encodedRows = encodedRows;
+      _numGroupsLimitReached = numGroupsLimitReached;
+      _executionStatistics = executionStatistics;
+      _sizeInBytes = (int) Math.min(sizeInBytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the execution statistics of the segment when the results were computed.
+     */
+    public ExecutionStatistics getExecutionStatistics() {
+      return _executionStatistics;
+    }
+
+    public int getSizeInBytes() {
+      return _sizeInBytes;
+    }
+
+    /**
+     * Returns a new results block with the cached results, which can be modified by the combine operator.
+     */
+    public BaseResultsBlock toResultsBlock(QueryContext queryContext) {
+      if (_dataSchema == null) {
+        Object[] row = decodeRow(_encodedRows.get(0));
+        return new AggregationResultsBlock(queryContext.getAggregationFunctions(), new ArrayList<>(Arrays.asList(row)));
+      }
+      List<IntermediateRecord> intermediateRecords = new ArrayList<>(_encodedRows.size());
+      for (Object[] encodedRow : _encodedRows) {
+        Object[] row = decodeRow(encodedRow);
+        intermediateRecords.add(new IntermediateRecord(new Key(Arrays.copyOf(row, _numKeys)), new Record(row), null));
+      }
+      GroupByResultsBlock resultsBlock = new GroupByResultsBlock(_dataSchema, intermediateRecords);
+      resultsBlock.setNumGroupsLimitReached(_numGroupsLimitReached);
+      return resultsBlock;
+    }
+  }
+
+  private static class SerializedValue {
+    final ObjectSerDeUtils.ObjectType _objectType;
+    final byte[] _bytes;
+
+    SerializedValue(ObjectSerDeUtils.ObjectType objectType, byte[] bytes) {
+      _objectType = objectType;
+      _bytes = bytes;
+    }
+  }
+
+  private static class CacheKey {
+    final String _tableNameWithType;
+    final String _segmentName;
+    final String _crc;
+    final QueryFingerprint _queryFingerprint;
+
+    CacheKey(String tableNameWithType, IndexSegment indexSegment, QueryFingerprint queryFingerprint) {
+      _tableNameWithType = tableNameWithType;
+      _segmentName = indexSegment.getSegmentName();
+      _crc = indexSegment.getSegmentMetadata().getCrc();
+      _queryFingerprint = queryFingerprint;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return _tableNameWithType.equals(that._tableNameWithType) && _segmentName.equals(that._segmentName)
+          && _crc.equals(that._crc) && _queryFingerprint.equals(that._queryFingerprint);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_tableNameWithType, _segmentName, _crc, _queryFingerprint);
+    }
+  }
+}
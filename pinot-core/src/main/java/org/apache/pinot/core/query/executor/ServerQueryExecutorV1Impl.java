@@ -88,6 +88,11 @@ import org.slf4j.LoggerFactory;
 @ThreadSafe
 public class ServerQueryExecutorV1Impl implements QueryExecutor {
   public static final String ENABLE_PREFETCH = "enable.prefetch";
+  // Max size of the segment level results cache for aggregation and group-by queries, caching is disabled if not
+  // positive
+  // Set as pinot.server.query.executor.segment.results.cache.max.size.bytes
+  public static final String SEGMENT_RESULTS_CACHE_MAX_SIZE_BYTES = "segment.results.cache.max.size.bytes";
+  public static final long DEFAULT_SEGMENT_RESULTS_CACHE_MAX_SIZE_BYTES = 0L;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ServerQueryExecutorV1Impl.class);
   private static final String IN_PARTITIONED_SUBQUERY = "inPartitionedSubquery";
@@ -98,6 +103,7 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
   private PlanMaker _planMaker;
   private long _defaultTimeoutMs = CommonConstants.Server.DEFAULT_QUERY_EXECUTOR_TIMEOUT_MS;
   private boolean _enablePrefetch;
+  private SegmentResultsCache _segmentResultsCache;
 
   @Override
   public synchronized void init(PinotConfiguration config, InstanceDataManager instanceDataManager,
@@ -109,7 +115,15 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     LOGGER.info("Trying to build SegmentPrunerService");
     _segmentPrunerService = new SegmentPrunerService(queryExecutorConfig.getPrunerConfig());
     LOGGER.info("Trying to build QueryPlanMaker");
-    _planMaker = new InstancePlanMakerImplV2(queryExecutorConfig);
+    InstancePlanMakerImplV2 planMaker = new InstancePlanMakerImplV2(queryExecutorConfig);
+    long segmentResultsCacheMaxSizeBytes =
+        config.getProperty(SEGMENT_RESULTS_CACHE_MAX_SIZE_BYTES, DEFAULT_SEGMENT_RESULTS_CACHE_MAX_SIZE_BYTES);
+    if (segmentResultsCacheMaxSizeBytes > 0) {
+      LOGGER.info("Enabling segment results cache with max size: {} bytes", segmentResultsCacheMaxSizeBytes);
+      _segmentResultsCache = new SegmentResultsCache(segmentResultsCacheMaxSizeBytes, serverMetrics);
+      planMaker.setSegmentResultsCache(_segmentResultsCache);
+    }
+    _planMaker = planMaker;
     if (queryExecutorConfig.getTimeOut() > 0) {
       _defaultTimeoutMs = queryExecutorConfig.getTimeOut();
     }
@@ -19,6 +19,7 @@
 package org.apache.pinot.core.routing;
 
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.core.transport.ServerInstance;
 import org.apache.pinot.spi.annotations.InterfaceAudience;
@@ -67,4 +68,13 @@ public interface RoutingManager {
    * @return time boundary info.
    */
   TimeBoundaryInfo getTimeBoundaryInfo(String offlineTableName);
+
+  /**
+   * Acquire the partition info of a table partitioned on a single column. Useful for assigning the workers of a join
+   * so that the segments of the same partition from both sides are processed on the same server.
+   * @param tableNameWithType the name of the table with type.
+   * @return table partition info, or {@code null} if the table is not partitioned.
+   */
+  @Nullable
+  TablePartitionInfo getTablePartitionInfo(String tableNameWithType);
 }
@@ -81,6 +81,12 @@ public class QueryOptionsUtils {
     return maxExecutionThreadsString != null ? Integer.parseInt(maxExecutionThreadsString) : null;
   }
 
+  @Nullable
+  public static Integer getMinDocsPerMorsel(Map<String, String> queryOptions) {
+    String minDocsPerMorselString = queryOptions.get(QueryOptionKey.MIN_DOCS_PER_MORSEL);
+    return minDocsPerMorselString != null ? Integer.parseInt(minDocsPerMorselString) : null;
+  }
+
   @Nullable
   public static Integer getMinSegmentGroupTrimSize(Map<String, String> queryOptions) {
     String minSegmentGroupTrimSizeString = queryOptions.get(QueryOptionKey.MIN_SEGMENT_GROUP_TRIM_SIZE);
@@ -101,6 +107,18 @@ public class QueryOptionsUtils {
     return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SERVER_RETURN_FINAL_RESULT));
   }
 
+  @Nullable
+  public static Long getMaxStalenessMs(Map<String, String> queryOptions) {
+    String maxStalenessMsString = queryOptions.get(QueryOptionKey.MAX_STALENESS_MS);
+    if (maxStalenessMsString != null) {
+      long maxStalenessMs = Long.parseLong(maxStalenessMsString);
+      Preconditions.checkState(maxStalenessMs >= 0, "Max staleness must be non-negative, got: %s", maxStalenessMs);
+      return maxStalenessMs;
+    } else {
+      return null;
+    }
+  }
+
   @Nullable
   public static String getOrderByAlgorithm(Map<String, String> queryOptions) {
     return queryOptions.get(QueryOptionKey.ORDER_BY_ALGORITHM);
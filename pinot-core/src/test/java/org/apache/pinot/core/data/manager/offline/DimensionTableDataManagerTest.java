@@ -56,6 +56,7 @@ import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 
 @SuppressWarnings("unchecked")
@@ -111,12 +112,17 @@ public class DimensionTableDataManagerTest {
   }
 
   private DimensionTableDataManager makeTableDataManager(HelixManager helixManager) {
+    return makeTableDataManager(helixManager, false);
+  }
+
+  private DimensionTableDataManager makeTableDataManager(HelixManager helixManager, boolean memoryOptimized) {
     DimensionTableDataManager tableDataManager = DimensionTableDataManager.createInstanceByTableName(TABLE_NAME);
     TableDataManagerConfig config;
     {
       config = mock(TableDataManagerConfig.class);
       when(config.getTableName()).thenReturn(TABLE_NAME);
       when(config.getDataDir()).thenReturn(TEMP_DIR.getAbsolutePath());
+      when(config.isDimTableMemoryOptimized()).thenReturn(memoryOptimized);
     }
     tableDataManager.init(config, "dummyInstance", helixManager.getHelixPropertyStore(),
         new ServerMetrics(PinotMetricUtils.getPinotMetricsRegistry()), helixManager, null,
@@ -199,6 +205,45 @@ public class DimensionTableDataManagerTest {
     assertNull(resp, "Response should be null if no segment is loaded");
   }
 
+  @Test
+  public void testMemoryOptimizedLookup()
+      throws Exception {
+    HelixManager helixManager = mock(HelixManager.class);
+    ZkHelixPropertyStore<ZNRecord> propertyStore = mock(ZkHelixPropertyStore.class);
+    when(propertyStore.get("/SCHEMAS/dimBaseballTeams", null, AccessOption.PERSISTENT)).thenReturn(
+        SchemaUtils.toZNRecord(getSchema()));
+    when(helixManager.getHelixPropertyStore()).thenReturn(propertyStore);
+    DimensionTableDataManager tableDataManager = makeTableDataManager(helixManager, true);
+
+    tableDataManager.addSegment(_indexDir, _indexLoadingConfig);
+    assertTrue(tableDataManager.isPopulated());
+
+    // The dimension table holds a reference to the segment
+    List<SegmentDataManager> segmentManagers = tableDataManager.acquireAllSegments();
+    assertEquals(segmentManagers.size(), 1, "Should have exactly one segment manager");
+    SegmentDataManager segMgr = segmentManagers.get(0);
+    assertEquals(segMgr.getReferenceCount(), 3);
+    tableDataManager.releaseSegment(segMgr);
+
+    GenericRow resp = tableDataManager.lookupRowByPrimaryKey(new PrimaryKey(new String[]{"SF"}));
+    assertNotNull(resp, "Should return response after segment load");
+    assertEquals(resp.getValue("teamID"), "SF");
+    assertEquals(resp.getValue("teamName"), "San Francisco Giants");
+    assertNull(tableDataManager.lookupRowByPrimaryKey(new PrimaryKey(new String[]{"DoesNotExist"})));
+
+    // Look up a block of keys
+    Object[] values = new Object[3];
+    tableDataManager.lookupValues(new Object[]{new String[]{"SF", "DoesNotExist", "SF"}}, 3, "teamName", values);
+    assertEquals(values, new Object[]{"San Francisco Giants", null, "San Francisco Giants"});
+
+    // Remove the segment, which should also release the reference held by the dimension table
+    tableDataManager.removeSegment(segMgr.getSegmentName());
+    assertEquals(segMgr.getReferenceCount(), 0);
+    assertNull(tableDataManager.lookupRowByPrimaryKey(new PrimaryKey(new String[]{"SF"})));
+    tableDataManager.lookupValues(new Object[]{new String[]{"SF"}}, 1, "teamName", values);
+    assertNull(values[0]);
+  }
+
   @Test
   public void testReloadTable()
       throws Exception {
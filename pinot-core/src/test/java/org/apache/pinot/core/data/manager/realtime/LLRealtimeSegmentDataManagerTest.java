@@ -153,12 +153,14 @@ public class LLRealtimeSegmentDataManagerTest {
   public void setUp() {
     SEGMENT_DIR_FILE.deleteOnExit();
     SegmentBuildTimeLeaseExtender.initExecutor();
+    RealtimeConsumptionPipeline.initExecutor();
   }
 
   @AfterClass
   public void tearDown() {
     FileUtils.deleteQuietly(SEGMENT_DIR_FILE);
     SegmentBuildTimeLeaseExtender.shutdownExecutor();
+    RealtimeConsumptionPipeline.shutdownExecutor();
   }
 
   @Test
@@ -941,6 +943,43 @@ public class LLRealtimeSegmentDataManagerTest {
     }
   }
 
+  @Test
+  public void testConsumptionPipeline()
+      throws Exception {
+    TableConfig tableConfig = createTableConfig();
+    tableConfig.getIndexingConfig().getStreamConfigs()
+        .put(StreamConfigProperties.CONSUMPTION_PIPELINE_NUM_THREADS, "2");
+    FakeLLRealtimeSegmentDataManager segmentDataManager =
+        createFakeSegmentManager(true, new TimeSupplier(),
+            String.valueOf(FakeStreamConfigUtils.SEGMENT_FLUSH_THRESHOLD_ROWS), "10m", tableConfig);
+    segmentDataManager._stubConsumeLoop = false;
+    segmentDataManager._state.set(segmentDataManager, LLRealtimeSegmentDataManager.State.INITIAL_CONSUMING);
+
+    LLRealtimeSegmentDataManager.PartitionConsumer consumer = segmentDataManager.createPartitionConsumer();
+    final LongMsgOffset endOffset =
+        new LongMsgOffset(START_OFFSET_VALUE + FakeStreamConfigUtils.SEGMENT_FLUSH_THRESHOLD_ROWS);
+    segmentDataManager._consumeOffsets.add(endOffset);
+    final SegmentCompletionProtocol.Response response = new SegmentCompletionProtocol.Response(
+        new SegmentCompletionProtocol.Response.Params().withStatus(
+                SegmentCompletionProtocol.ControllerResponseStatus.COMMIT)
+            .withStreamPartitionMsgOffset(endOffset.toString()));
+    segmentDataManager._responses.add(response);
+
+    consumer.run();
+
+    try {
+      // Messages are decoded and transformed in parallel, but indexed in order with the same offset bookkeeping
+      Assert.assertEquals(((LongMsgOffset) segmentDataManager.getCurrentOffset()).getOffset(),
+          START_OFFSET_VALUE + FakeStreamConfigUtils.SEGMENT_FLUSH_THRESHOLD_ROWS);
+      Assert.assertEquals(segmentDataManager.getSegment().getNumDocsIndexed(),
+          FakeStreamConfigUtils.SEGMENT_FLUSH_THRESHOLD_ROWS);
+      Assert.assertEquals(segmentDataManager.getSegment().getSegmentMetadata().getTotalDocs(),
+          FakeStreamConfigUtils.SEGMENT_FLUSH_THRESHOLD_ROWS);
+    } finally {
+      segmentDataManager.destroy();
+    }
+  }
+
   private static class TimeSupplier implements Supplier<Long> {
     protected final AtomicInteger _timeCheckCounter = new AtomicInteger();
     protected long _timeNow = System.currentTimeMillis();
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.manager.realtime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import org.apache.pinot.segment.local.indexsegment.mutable.MutableSegmentImpl;
+import org.apache.pinot.segment.local.indexsegment.mutable.MutableSegmentImplTestUtils;
+import org.apache.pinot.segment.local.segment.creator.TransformPipeline;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.stream.MessageBatch;
+import org.apache.pinot.spi.stream.StreamDataDecoderImpl;
+import org.apache.pinot.spi.stream.StreamMessageDecoder;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+
+public class RealtimeConsumptionPipelineTest {
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String INT_COLUMN = "intColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final int NUM_MESSAGES = 1000;
+  private static final int NUM_THREADS = 4;
+
+  private final TableConfig _tableConfig = new TableConfigBuilder(TableType.REALTIME).setTableName(RAW_TABLE_NAME)
+      .build();
+  private final Schema _schema = new Schema.SchemaBuilder().setSchemaName(RAW_TABLE_NAME)
+      .addSingleValueDimension(INT_COLUMN, DataType.INT).addSingleValueDimension(STRING_COLUMN, DataType.STRING)
+      .build();
+
+  @BeforeClass
+  public void setUp() {
+    RealtimeConsumptionPipeline.initExecutor();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    RealtimeConsumptionPipeline.shutdownExecutor();
+  }
+
+  @Test
+  public void testIndexDistinctValues()
+      throws Exception {
+    RealtimeConsumptionPipeline pipeline =
+        new RealtimeConsumptionPipeline(NUM_THREADS, () -> new StreamDataDecoderImpl(new IntValueDecoder()),
+            () -> new TransformPipeline(_tableConfig, _schema));
+    MutableSegmentImpl mutableSegment =
+        MutableSegmentImplTestUtils.createMutableSegmentImpl(_schema, Collections.emptySet(), Collections.emptySet(),
+            Collections.emptySet(), false);
+    try {
+      // Multiple chunks processed concurrently, each chunk decoded by the same decoder
+      RealtimeConsumptionPipeline.ProcessedBatch processedBatch = pipeline.process(new IntValueMessageBatch());
+      for (int i = 0; i < NUM_MESSAGES; i++) {
+        RealtimeConsumptionPipeline.ProcessedMessage processedMessage = processedBatch.get(i);
+        assertNull(processedMessage.getDecodedRow().getException());
+        assertNull(processedMessage.getTransformException());
+        for (GenericRow transformedRow : processedMessage.getTransformResult().getTransformedRows()) {
+          mutableSegment.index(transformedRow, null);
+        }
+      }
+
+      assertEquals(mutableSegment.getNumDocsIndexed(), NUM_MESSAGES);
+      GenericRow reuse = new GenericRow();
+      for (int docId = 0; docId < NUM_MESSAGES; docId++) {
+        mutableSegment.getRecord(docId, reuse);
+        assertEquals(reuse.getValue(INT_COLUMN), docId);
+        assertEquals(reuse.getValue(STRING_COLUMN), "value_" + docId);
+      }
+    } finally {
+      pipeline.close();
+      mutableSegment.destroy();
+    }
+  }
+
+  /**
+   * Decodes the message payload as an int value, and writes it into the reused destination row like the real decoders.
+   */
+  public static class IntValueDecoder implements StreamMessageDecoder<byte[]> {
+    @Override
+    public void init(Map<String, String> props, Set<String> fieldsToRead, String topicName) {
+    }
+
+    @Override
+    public GenericRow decode(byte[] payload, GenericRow destination) {
+      return decode(payload, 0, payload.length, destination);
+    }
+
+    @Override
+    public GenericRow decode(byte[] payload, int offset, int length, GenericRow destination) {
+      int value = Integer.parseInt(new String(payload, offset, length, StandardCharsets.UTF_8));
+      destination.putValue(INT_COLUMN, value);
+      destination.putValue(STRING_COLUMN, "value_" + value);
+      return destination;
+    }
+  }
+
+  private static class IntValueMessageBatch implements MessageBatch<byte[]> {
+    @Override
+    public int getMessageCount() {
+      return NUM_MESSAGES;
+    }
+
+    @Override
+    public byte[] getMessageAtIndex(int index) {
+      return Integer.toString(index).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int getMessageOffsetAtIndex(int index) {
+      return 0;
+    }
+
+    @Override
+    public int getMessageLengthAtIndex(int index) {
+      return getMessageAtIndex(index).length;
+    }
+
+    @Override
+    public long getNextStreamMessageOffsetAtIndex(int index) {
+      return index + 1;
+    }
+  }
+}
@@ -20,10 +20,21 @@ package org.apache.pinot.core.operator.filter;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.spi.data.DimensionFieldSpec;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.testng.annotations.Test;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 
@@ -101,4 +112,54 @@ public class FilterOperatorUtilsTest {
         Arrays.asList(MATCH_ALL_FILTER_OPERATOR, REGULAR_FILTER_OPERATOR), NUM_DOCS);
     assertTrue(filterOperator instanceof MatchAllFilterOperator);
   }
+
+  @Test
+  public void testAndFilterOperatorSelectivityOrder() {
+    BaseFilterOperator lessSelectiveBitmap =
+        new BitmapBasedFilterOperator(ImmutableRoaringBitmap.bitmapOf(1, 2, 3, 4, 5), false, NUM_DOCS);
+    BaseFilterOperator moreSelectiveBitmap =
+        new BitmapBasedFilterOperator(ImmutableRoaringBitmap.bitmapOf(1), false, NUM_DOCS);
+    BaseFilterOperator lessSelectiveScan = getScanBasedFilterOperator(5);
+    BaseFilterOperator moreSelectiveScan = getScanBasedFilterOperator(1);
+    BaseFilterOperator notEstimatedScan = getScanBasedFilterOperator(Integer.MIN_VALUE);
+    assertEquals(lessSelectiveBitmap.getEstimatedNumMatchingDocs(), 5);
+    assertEquals(moreSelectiveBitmap.getEstimatedNumMatchingDocs(), 1);
+    assertEquals(lessSelectiveScan.getEstimatedNumMatchingDocs(), 5);
+    assertEquals(moreSelectiveScan.getEstimatedNumMatchingDocs(), 1);
+    assertEquals(notEstimatedScan.getEstimatedNumMatchingDocs(), BaseFilterOperator.UNKNOWN_NUM_MATCHING_DOCS);
+
+    // Index based filters go first, then within the same class the most selective filter goes first
+    BaseFilterOperator filterOperator = FilterOperatorUtils.getAndFilterOperator(QUERY_CONTEXT,
+        Arrays.asList(notEstimatedScan, lessSelectiveScan, lessSelectiveBitmap, moreSelectiveScan,
+            moreSelectiveBitmap), NUM_DOCS);
+    assertTrue(filterOperator instanceof AndFilterOperator);
+    List<Operator> childOperators = filterOperator.getChildOperators();
+    assertEquals(childOperators,
+        Arrays.asList(moreSelectiveBitmap, lessSelectiveBitmap, moreSelectiveScan, lessSelectiveScan,
+            notEstimatedScan));
+    assertEquals(((BaseFilterOperator) filterOperator).getEstimatedNumMatchingDocs(), 1);
+
+    // Keep the original order within the same class when scan filter reordering is skipped
+    QueryContext queryContext = mock(QueryContext.class);
+    when(queryContext.isSkipScanFilterReorder()).thenReturn(true);
+    filterOperator = FilterOperatorUtils.getAndFilterOperator(queryContext,
+        Arrays.asList(notEstimatedScan, lessSelectiveScan, lessSelectiveBitmap, moreSelectiveScan,
+            moreSelectiveBitmap), NUM_DOCS);
+    assertEquals(filterOperator.getChildOperators(),
+        Arrays.asList(lessSelectiveBitmap, moreSelectiveBitmap, notEstimatedScan, lessSelectiveScan,
+            moreSelectiveScan));
+  }
+
+  private static ScanBasedFilterOperator getScanBasedFilterOperator(int numMatchingItems) {
+    PredicateEvaluator predicateEvaluator = mock(PredicateEvaluator.class);
+    when(predicateEvaluator.getNumMatchingItems()).thenReturn(numMatchingItems);
+    DataSourceMetadata dataSourceMetadata = mock(DataSourceMetadata.class);
+    when(dataSourceMetadata.isSingleValue()).thenReturn(true);
+    when(dataSourceMetadata.getCardinality()).thenReturn(NUM_DOCS);
+    when(dataSourceMetadata.getFieldSpec()).thenReturn(new DimensionFieldSpec("column", DataType.INT, true));
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getForwardIndex()).thenReturn(mock(ForwardIndexReader.class));
+    when(dataSource.getDataSourceMetadata()).thenReturn(dataSourceMetadata);
+    return new ScanBasedFilterOperator(predicateEvaluator, dataSource, NUM_DOCS, false);
+  }
 }
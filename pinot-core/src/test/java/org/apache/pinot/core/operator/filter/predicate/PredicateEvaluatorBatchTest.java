@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter.predicate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.apache.pinot.common.request.context.ExpressionContext;
+import org.apache.pinot.common.request.context.predicate.InPredicate;
+import org.apache.pinot.common.request.context.predicate.NotInPredicate;
+import org.apache.pinot.common.request.context.predicate.RangePredicate;
+import org.apache.pinot.segment.local.realtime.impl.dictionary.IntOnHeapMutableDictionary;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+
+/**
+ * Verifies that the batched predicate evaluation returns the same document ids as the per-value evaluation.
+ */
+public class PredicateEvaluatorBatchTest {
+  private static final ExpressionContext COLUMN_EXPRESSION = ExpressionContext.forIdentifier("column");
+  private static final int CARDINALITY = 200;
+  private static final int NUM_VALUES = 1000;
+  private static final Random RANDOM = new Random();
+
+  @Test
+  public void testDictionaryBasedEvaluators()
+      throws IOException {
+    // Sorted dictionary
+    Dictionary sortedDictionary = mock(Dictionary.class);
+    when(sortedDictionary.isSorted()).thenReturn(true);
+    when(sortedDictionary.length()).thenReturn(CARDINALITY);
+    when(sortedDictionary.insertionIndexOf(anyString())).thenAnswer(
+        invocation -> Integer.parseInt(invocation.getArgument(0)));
+    testDictIds(RangePredicateEvaluatorFactory.newDictionaryBasedEvaluator(
+        new RangePredicate(COLUMN_EXPRESSION, true, "20", false, "150"), sortedDictionary, DataType.INT));
+
+    // Unsorted dictionary with the values shuffled
+    List<Integer> values = new ArrayList<>(CARDINALITY);
+    for (int i = 0; i < CARDINALITY; i++) {
+      values.add(i);
+    }
+    Collections.shuffle(values, RANDOM);
+    try (IntOnHeapMutableDictionary unsortedDictionary = new IntOnHeapMutableDictionary()) {
+      for (int value : values) {
+        unsortedDictionary.index(value);
+      }
+      testDictIds(RangePredicateEvaluatorFactory.newDictionaryBasedEvaluator(
+          new RangePredicate(COLUMN_EXPRESSION, false, "20", true, "150"), unsortedDictionary, DataType.INT));
+      List<String> inValues = Arrays.asList("0", "1", "63", "64", "65", "127", "128", "199", "500");
+      testDictIds(InPredicateEvaluatorFactory.newDictionaryBasedEvaluator(
+          new InPredicate(COLUMN_EXPRESSION, inValues), unsortedDictionary, DataType.INT));
+      testDictIds(NotInPredicateEvaluatorFactory.newDictionaryBasedEvaluator(
+          new NotInPredicate(COLUMN_EXPRESSION, inValues), unsortedDictionary, DataType.INT));
+    }
+  }
+
+  @Test
+  public void testRawValueBasedRangeEvaluators() {
+    RangePredicate rangePredicate = new RangePredicate(COLUMN_EXPRESSION, true, "-100", false, "100");
+    int[] docIds = getDocIds();
+
+    int[] intValues = new int[NUM_VALUES];
+    long[] longValues = new long[NUM_VALUES];
+    float[] floatValues = new float[NUM_VALUES];
+    double[] doubleValues = new double[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      intValues[i] = RANDOM.nextInt(400) - 200;
+      longValues[i] = intValues[i];
+      floatValues[i] = intValues[i];
+      doubleValues[i] = intValues[i];
+    }
+
+    PredicateEvaluator evaluator = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(rangePredicate,
+        DataType.INT);
+    int[] expectedDocIds = new int[NUM_VALUES];
+    int numExpectedMatches = 0;
+    for (int i = 0; i < NUM_VALUES; i++) {
+      if (evaluator.applySV(intValues[i])) {
+        expectedDocIds[numExpectedMatches++] = docIds[i];
+      }
+    }
+    int[] expected = Arrays.copyOf(expectedDocIds, numExpectedMatches);
+
+    int[] actualDocIds = docIds.clone();
+    int numMatches = evaluator.applySV(NUM_VALUES, actualDocIds, intValues);
+    assertEquals(Arrays.copyOf(actualDocIds, numMatches), expected);
+
+    actualDocIds = docIds.clone();
+    numMatches = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(rangePredicate, DataType.LONG)
+        .applySV(NUM_VALUES, actualDocIds, longValues);
+    assertEquals(Arrays.copyOf(actualDocIds, numMatches), expected);
+
+    actualDocIds = docIds.clone();
+    numMatches = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(rangePredicate, DataType.FLOAT)
+        .applySV(NUM_VALUES, actualDocIds, floatValues);
+    assertEquals(Arrays.copyOf(actualDocIds, numMatches), expected);
+
+    actualDocIds = docIds.clone();
+    numMatches = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(rangePredicate, DataType.DOUBLE)
+        .applySV(NUM_VALUES, actualDocIds, doubleValues);
+    assertEquals(Arrays.copyOf(actualDocIds, numMatches), expected);
+  }
+
+  private static void testDictIds(PredicateEvaluator evaluator) {
+    int[] docIds = getDocIds();
+    int[] dictIds = new int[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      dictIds[i] = RANDOM.nextInt(CARDINALITY);
+    }
+    int[] expectedDocIds = new int[NUM_VALUES];
+    int numExpectedMatches = 0;
+    for (int i = 0; i < NUM_VALUES; i++) {
+      if (evaluator.applySV(dictIds[i])) {
+        expectedDocIds[numExpectedMatches++] = docIds[i];
+      }
+    }
+    int numMatches = evaluator.applySV(NUM_VALUES, docIds, dictIds);
+    assertEquals(Arrays.copyOf(docIds, numMatches), Arrays.copyOf(expectedDocIds, numExpectedMatches));
+  }
+
+  private static int[] getDocIds() {
+    int[] docIds = new int[NUM_VALUES];
+    int docId = 0;
+    for (int i = 0; i < NUM_VALUES; i++) {
+      docId += 1 + RANDOM.nextInt(3);
+      docIds[i] = docId;
+    }
+    return docIds;
+  }
+}
@@ -34,7 +34,9 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
 
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.AssertJUnit.fail;
@@ -108,6 +110,41 @@ public class LookupTransformFunctionTest extends BaseTransformFunctionTest {
       row.putValue("teamBytes", ("teamBytes_for_" + key.toString()).getBytes());
       return row;
     });
+    mockLookupValues(_tableManager);
+  }
+
+  /**
+   * Answers the block lookup of the mocked table manager with its (mocked) single row lookup.
+   */
+  private static void mockLookupValues(DimensionTableDataManager tableManager) {
+    doAnswer(invocation -> {
+      Object[] pkColumnValues = invocation.getArgument(0);
+      int numKeys = invocation.getArgument(1);
+      String columnName = invocation.getArgument(2);
+      Object[] values = invocation.getArgument(3);
+      for (int i = 0; i < numKeys; i++) {
+        Object[] pkValues = new Object[pkColumnValues.length];
+        for (int c = 0; c < pkColumnValues.length; c++) {
+          Object pkColumn = pkColumnValues[c];
+          if (pkColumn instanceof int[]) {
+            pkValues[c] = ((int[]) pkColumn)[i];
+          } else if (pkColumn instanceof long[]) {
+            pkValues[c] = ((long[]) pkColumn)[i];
+          } else if (pkColumn instanceof String[]) {
+            pkValues[c] = ((String[]) pkColumn)[i];
+          } else if (pkColumn instanceof float[]) {
+            pkValues[c] = ((float[]) pkColumn)[i];
+          } else if (pkColumn instanceof double[]) {
+            pkValues[c] = ((double[]) pkColumn)[i];
+          } else if (pkColumn instanceof byte[][]) {
+            pkValues[c] = new ByteArray(((byte[][]) pkColumn)[i]);
+          }
+        }
+        GenericRow row = tableManager.lookupRowByPrimaryKey(new PrimaryKey(pkValues));
+        values[i] = row != null ? row.getValue(columnName) : null;
+      }
+      return null;
+    }).when(tableManager).lookupValues(any(), anyInt(), any(), any());
   }
 
   @Test
@@ -366,6 +403,7 @@ public class LookupTransformFunctionTest extends BaseTransformFunctionTest {
         row.putValue("lookupColumn", String.format("lookup_value_for_[%s]", key.hashCode()));
         return row;
       });
+      mockLookupValues(mgr);
     }
 
     // PK: [Int]
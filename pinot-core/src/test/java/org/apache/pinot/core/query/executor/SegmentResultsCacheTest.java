@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.executor;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.core.operator.blocks.InstanceResponseBlock;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.creator.SegmentTestUtils;
+import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.segment.spi.creator.SegmentIndexCreationDriver;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.FileFormat;
+import org.apache.pinot.spi.utils.ReadMode;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class SegmentResultsCacheTest {
+  private static final String AVRO_DATA_PATH = "data/simpleData200001.avro";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "SegmentResultsCacheTest");
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String TABLE_NAME = RAW_TABLE_NAME + "_OFFLINE";
+  private static final int NUM_SEGMENTS = 2;
+  private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(2);
+
+  private final List<File> _indexDirs = new ArrayList<>(NUM_SEGMENTS);
+  private final List<IndexSegment> _indexSegments = new ArrayList<>(NUM_SEGMENTS);
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    assertTrue(INDEX_DIR.mkdirs());
+    URL resourceUrl = getClass().getClassLoader().getResource(AVRO_DATA_PATH);
+    assertNotNull(resourceUrl);
+    File avroFile = new File(resourceUrl.getFile());
+    Schema schema = SegmentTestUtils.extractSchemaFromAvroWithoutTime(avroFile);
+    TableConfig tableConfig = new TableConfigBuilder(TableType.OFFLINE).setTableName(RAW_TABLE_NAME).build();
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      SegmentGeneratorConfig config =
+          SegmentTestUtils.getSegmentGeneratorConfig(avroFile, FileFormat.AVRO, INDEX_DIR, RAW_TABLE_NAME, tableConfig,
+              schema);
+      config.setSegmentNamePostfix(Integer.toString(i));
+      SegmentIndexCreationDriver driver = new SegmentIndexCreationDriverImpl();
+      driver.init(config);
+      driver.build();
+      File indexDir = new File(INDEX_DIR, driver.getSegmentName());
+      _indexDirs.add(indexDir);
+      _indexSegments.add(ImmutableSegmentLoader.load(indexDir, ReadMode.mmap));
+    }
+  }
+
+  @Test
+  public void testAggregationQuery()
+      throws Exception {
+    SegmentResultsCache segmentResultsCache = new SegmentResultsCache(64 * 1024 * 1024, mock(ServerMetrics.class));
+    String query = "SELECT COUNT(*), SUM(met), DISTINCTCOUNT(met) FROM " + TABLE_NAME + " WHERE met > 100";
+
+    List<Object> expectedResults = getAggregationResults(query, null, _indexSegments);
+    assertEquals(expectedResults.get(0), 399800L);
+
+    // First execution populates the cache
+    assertEquals(getAggregationResults(query, segmentResultsCache, _indexSegments), expectedResults);
+    assertEquals(segmentResultsCache.size(), NUM_SEGMENTS);
+    assertEquals(segmentResultsCache.getStats().hitCount(), 0);
+
+    // Repeated executions are served from the cache, and the cached results should not be modified by the combine
+    for (int i = 0; i < 2; i++) {
+      assertEquals(getAggregationResults(query, segmentResultsCache, _indexSegments), expectedResults);
+      assertEquals(segmentResultsCache.getStats().hitCount(), (i + 1) * NUM_SEGMENTS);
+    }
+
+    // Query with different filter should not hit the cache
+    getAggregationResults(query.replace("100", "200"), segmentResultsCache, _indexSegments);
+    assertEquals(segmentResultsCache.getStats().hitCount(), 2 * NUM_SEGMENTS);
+    assertEquals(segmentResultsCache.size(), 2 * NUM_SEGMENTS);
+
+    // Reloaded segment should invalidate the cached results
+    IndexSegment reloadedSegment = ImmutableSegmentLoader.load(_indexDirs.get(0), ReadMode.mmap);
+    try {
+      SegmentResultsCache.QueryFingerprint queryFingerprint =
+          SegmentResultsCache.getQueryFingerprint(getQueryContext(query));
+      assertNotNull(queryFingerprint);
+      assertNull(segmentResultsCache.get(TABLE_NAME, reloadedSegment, queryFingerprint));
+      assertNotNull(segmentResultsCache.get(TABLE_NAME, _indexSegments.get(1), queryFingerprint));
+      List<IndexSegment> indexSegments = new ArrayList<>(_indexSegments);
+      indexSegments.set(0, reloadedSegment);
+      assertEquals(getAggregationResults(query, segmentResultsCache, indexSegments), expectedResults);
+      assertNotNull(segmentResultsCache.get(TABLE_NAME, reloadedSegment, queryFingerprint));
+    } finally {
+      reloadedSegment.destroy();
+    }
+  }
+
+  @Test
+  public void testGroupByQuery()
+      throws Exception {
+    SegmentResultsCache segmentResultsCache = new SegmentResultsCache(64 * 1024 * 1024, mock(ServerMetrics.class));
+    String query = "SELECT met % 10, COUNT(*), MAX(met) FROM " + TABLE_NAME + " GROUP BY met % 10 LIMIT 100";
+
+    GroupByResultsBlock expectedResults = getGroupByResults(query, null);
+    assertEquals(expectedResults.getTable().size(), 10);
+
+    getGroupByResults(query, segmentResultsCache);
+    assertEquals(segmentResultsCache.size(), NUM_SEGMENTS);
+    GroupByResultsBlock cachedResults = getGroupByResults(query, segmentResultsCache);
+    assertEquals(segmentResultsCache.getStats().hitCount(), NUM_SEGMENTS);
+    assertEquals(cachedResults.getRows(getQueryContext(query)).size(), 10);
+    assertEquals(toSortedRows(cachedResults, query), toSortedRows(expectedResults, query));
+  }
+
+  @Test
+  public void testNonCacheableQuery() {
+    assertNull(SegmentResultsCache.getQueryFingerprint(getQueryContext("SELECT * FROM " + TABLE_NAME)));
+    assertNull(SegmentResultsCache.getQueryFingerprint(getQueryContext("EXPLAIN PLAN FOR SELECT COUNT(*) FROM "
+        + TABLE_NAME)));
+    assertNotNull(SegmentResultsCache.getQueryFingerprint(getQueryContext("SELECT COUNT(*) FROM " + TABLE_NAME)));
+    // Query options not affecting the segment results should not change the fingerprint
+    assertEquals(SegmentResultsCache.getQueryFingerprint(getQueryContext("SELECT COUNT(*) FROM " + TABLE_NAME)),
+        SegmentResultsCache.getQueryFingerprint(
+            getQueryContext("SET timeoutMs = 1000; SELECT COUNT(*) FROM " + TABLE_NAME)));
+  }
+
+  private List<Object> getAggregationResults(String query, SegmentResultsCache segmentResultsCache,
+      List<IndexSegment> indexSegments)
+      throws Exception {
+    InstanceResponseBlock instanceResponse = execute(query, segmentResultsCache, indexSegments);
+    assertTrue(instanceResponse.getResultsBlock() instanceof AggregationResultsBlock);
+    return ((AggregationResultsBlock) instanceResponse.getResultsBlock()).getResults();
+  }
+
+  private GroupByResultsBlock getGroupByResults(String query, SegmentResultsCache segmentResultsCache)
+      throws Exception {
+    InstanceResponseBlock instanceResponse = execute(query, segmentResultsCache, _indexSegments);
+    assertTrue(instanceResponse.getResultsBlock() instanceof GroupByResultsBlock);
+    return (GroupByResultsBlock) instanceResponse.getResultsBlock();
+  }
+
+  private InstanceResponseBlock execute(String query, SegmentResultsCache segmentResultsCache,
+      List<IndexSegment> indexSegments)
+      throws Exception {
+    InstancePlanMakerImplV2 planMaker = new InstancePlanMakerImplV2();
+    planMaker.setSegmentResultsCache(segmentResultsCache);
+    QueryContext queryContext = getQueryContext(query);
+    queryContext.setEndTimeMs(System.currentTimeMillis() + 10_000L);
+    return planMaker.makeInstancePlan(indexSegments, queryContext, EXECUTOR_SERVICE, null).execute();
+  }
+
+  private static QueryContext getQueryContext(String query) {
+    return QueryContextConverterUtils.getQueryContext(query);
+  }
+
+  private static List<String> toSortedRows(GroupByResultsBlock resultsBlock, String query) {
+    List<String> rows = new ArrayList<>();
+    for (Object[] row : resultsBlock.getRows(getQueryContext(query))) {
+      rows.add(Arrays.toString(row));
+    }
+    rows.sort(null);
+    return rows;
+  }
+
+  @AfterClass
+  public void tearDown() {
+    for (IndexSegment indexSegment : _indexSegments) {
+      indexSegment.destroy();
+    }
+    EXECUTOR_SERVICE.shutdownNow();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.segment.local.segment.readers.GenericRowRecordReader;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.utils.ReadMode;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+
+/**
+ * Tests the scan based filtering on the raw columns with the per-chunk zone map, where the chunks that cannot match the
+ * range predicate are skipped.
+ */
+public class ChunkZoneMapQueriesTest extends BaseQueriesTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "ChunkZoneMapQueriesTest");
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME = "testSegment";
+  private static final Random RANDOM = new Random();
+
+  // 10 chunks with 1000 docs per chunk
+  private static final int NUM_RECORDS = 10000;
+  private static final String TIME_COLUMN = "timeColumn";
+  private static final String DOUBLE_COLUMN = "doubleColumn";
+  private static final String RANDOM_COLUMN = "randomColumn";
+
+  private static final Schema SCHEMA = new Schema.SchemaBuilder().addMetric(TIME_COLUMN, DataType.LONG)
+      .addMetric(DOUBLE_COLUMN, DataType.DOUBLE).addMetric(RANDOM_COLUMN, DataType.INT).build();
+  private static final TableConfig TABLE_CONFIG = new TableConfigBuilder(TableType.OFFLINE).setTableName(RAW_TABLE_NAME)
+      .setNoDictionaryColumns(Arrays.asList(TIME_COLUMN, DOUBLE_COLUMN, RANDOM_COLUMN)).build();
+
+  private final int[] _randomValues = new int[NUM_RECORDS];
+  private IndexSegment _indexSegment;
+  private List<IndexSegment> _indexSegments;
+
+  @Override
+  protected String getFilter() {
+    return "";
+  }
+
+  @Override
+  protected IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  protected List<IndexSegment> getIndexSegments() {
+    return _indexSegments;
+  }
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    List<GenericRow> records = new ArrayList<>(NUM_RECORDS);
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      _randomValues[i] = RANDOM.nextInt(NUM_RECORDS);
+      GenericRow record = new GenericRow();
+      record.putValue(TIME_COLUMN, (long) i);
+      record.putValue(DOUBLE_COLUMN, i * 0.5);
+      record.putValue(RANDOM_COLUMN, _randomValues[i]);
+      records.add(record);
+    }
+
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(TABLE_CONFIG, SCHEMA);
+    segmentGeneratorConfig.setTableName(RAW_TABLE_NAME);
+    segmentGeneratorConfig.setSegmentName(SEGMENT_NAME);
+    segmentGeneratorConfig.setOutDir(INDEX_DIR.getPath());
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig, new GenericRowRecordReader(records));
+    driver.build();
+
+    ImmutableSegment immutableSegment = ImmutableSegmentLoader.load(new File(INDEX_DIR, SEGMENT_NAME), ReadMode.mmap);
+    _indexSegment = immutableSegment;
+    _indexSegments = Arrays.asList(immutableSegment, immutableSegment);
+  }
+
+  @Test
+  public void testChunkPruning() {
+    // Chunk 2 and 3 match
+    testCount("SELECT COUNT(*) FROM testTable WHERE timeColumn BETWEEN 2500 AND 3499", 1000, 2000);
+    // Chunk 9 matches
+    testCount("SELECT COUNT(*) FROM testTable WHERE timeColumn >= 9990", 10, 1000);
+    // Chunk 0 matches
+    testCount("SELECT COUNT(*) FROM testTable WHERE doubleColumn < 100", 200, 1000);
+    // Chunk 5 matches
+    testCount("SELECT COUNT(*) FROM testTable WHERE doubleColumn BETWEEN 2500 AND 2999.5", 1000, 1000);
+    // No chunk matches
+    testCount("SELECT COUNT(*) FROM testTable WHERE timeColumn > 10000", 0, 0);
+    testCount("SELECT COUNT(*) FROM testTable WHERE timeColumn < 5000 AND doubleColumn > 5000", 0, 0);
+    // All chunks match
+    testCount("SELECT COUNT(*) FROM testTable WHERE timeColumn >= 0", NUM_RECORDS, NUM_RECORDS);
+  }
+
+  private void testCount(String query, long expectedCount, long expectedNumEntriesScannedInFilter) {
+    // Fast filtered count operator is used when the filter is empty
+    BaseOperator<AggregationResultsBlock> operator = getOperator(query);
+    List<Object> aggregationResult = operator.nextBlock().getResults();
+    assertEquals(((Number) aggregationResult.get(0)).longValue(), expectedCount);
+    ExecutionStatistics executionStatistics = operator.getExecutionStatistics();
+    assertEquals(executionStatistics.getNumDocsScanned(), expectedCount);
+    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), expectedNumEntriesScannedInFilter);
+  }
+
+  @Test
+  public void testAndWithPrunedChunks() {
+    int expectedCount = 0;
+    long expectedSum = 0;
+    for (int i = 1234; i <= 5678; i++) {
+      if (_randomValues[i] < 5000) {
+        expectedCount++;
+        expectedSum += i;
+      }
+    }
+    // 4 identical segments
+    BrokerResponseNative brokerResponse = getBrokerResponse(
+        "SELECT COUNT(*), SUM(timeColumn) FROM testTable WHERE randomColumn < 5000 AND timeColumn BETWEEN 1234 AND "
+            + "5678");
+    Object[] row = brokerResponse.getResultTable().getRows().get(0);
+    assertEquals(((Number) row[0]).longValue(), 4L * expectedCount);
+    assertEquals(((Number) row[1]).doubleValue(), 4.0 * expectedSum);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _indexSegment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+}
@@ -375,7 +375,7 @@ public class ForwardIndexDisabledSingleValueQueriesTest extends BaseQueriesTest
       assertEquals(brokerResponseNative.getNumSegmentsProcessed(), 4L);
       assertEquals(brokerResponseNative.getNumSegmentsMatched(), 4L);
       assertEquals(brokerResponseNative.getNumEntriesScannedPostFilter(), 42_488);
-      assertEquals(brokerResponseNative.getNumEntriesScannedInFilter(), 192744L);
+      assertEquals(brokerResponseNative.getNumEntriesScannedInFilter(), 143400L);
       assertNotNull(brokerResponseNative.getProcessingExceptions());
       assertEquals(brokerResponseNative.getProcessingExceptions().size(), 0);
       DataSchema dataSchema = new DataSchema(new String[]{"column1", "column5", "column9", "column11"},
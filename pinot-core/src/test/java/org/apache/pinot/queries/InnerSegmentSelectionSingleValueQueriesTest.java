@@ -146,7 +146,7 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     resultsBlock = selectionOnlyOperator.nextBlock();
     executionStatistics = selectionOnlyOperator.getExecutionStatistics();
     assertEquals(executionStatistics.getNumDocsScanned(), 10L);
-    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 48204L);
+    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 35868L);
     assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 110L);
     assertEquals(executionStatistics.getNumTotalDocs(), 30000L);
     selectionDataSchema = resultsBlock.getDataSchema();
@@ -195,7 +195,7 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     resultsBlock = selectionOnlyOperator.nextBlock();
     executionStatistics = selectionOnlyOperator.getExecutionStatistics();
     assertEquals(executionStatistics.getNumDocsScanned(), 10L);
-    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 48204L);
+    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 35868L);
     assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 30L);
     assertEquals(executionStatistics.getNumTotalDocs(), 30000L);
     selectionDataSchema = resultsBlock.getDataSchema();
@@ -244,7 +244,7 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     resultsBlock = selectionOrderByOperator.nextBlock();
     executionStatistics = selectionOrderByOperator.getExecutionStatistics();
     assertEquals(executionStatistics.getNumDocsScanned(), 6129L);
-    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 63064L);
+    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 50728L);
     // 6129 * (2 order-by columns) + 10 * (2 non-order-by columns)
     assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 12278L);
     assertEquals(executionStatistics.getNumTotalDocs(), 30000L);
@@ -452,7 +452,7 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     resultsBlock = selectionOrderByOperator.nextBlock();
     executionStatistics = selectionOrderByOperator.getExecutionStatistics();
     assertEquals(executionStatistics.getNumDocsScanned(), 6129L);
-    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 63064L);
+    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 50728L);
     // 6129 * (2 order-by columns) + 10 * (9 non-order-by columns)
     assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 12348L);
     assertEquals(executionStatistics.getNumTotalDocs(), 30000L);
@@ -504,7 +504,7 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     resultsBlock = selectionOrderByOperator.nextBlock();
     executionStatistics = selectionOrderByOperator.getExecutionStatistics();
     assertEquals(executionStatistics.getNumDocsScanned(), 10);
-    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 48204L);
+    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 35868L);
     // 10 * (11 columns)
     assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 110);
     assertEquals(executionStatistics.getNumTotalDocs(), 30000L);
@@ -556,7 +556,7 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     resultsBlock = selectionOrderByOperator.nextBlock();
     executionStatistics = selectionOrderByOperator.getExecutionStatistics();
     assertEquals(executionStatistics.getNumDocsScanned(), 6129L);
-    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 63064L);
+    assertEquals(executionStatistics.getNumEntriesScannedInFilter(), 50728L);
     // 6129 * (2 order-by columns) + 6129 * (9 non-order-by columns)
     assertEquals(executionStatistics.getNumEntriesScannedPostFilter(), 67419L);
     assertEquals(executionStatistics.getNumTotalDocs(), 30000L);
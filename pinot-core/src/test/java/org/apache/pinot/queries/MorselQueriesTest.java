@@ -0,0 +1,223 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.request.PinotQuery;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.response.broker.ResultTable;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.MorselOperator;
+import org.apache.pinot.core.plan.GlobalPlanImplV0;
+import org.apache.pinot.core.plan.Plan;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.segment.local.segment.readers.GenericRowRecordReader;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
+import org.apache.pinot.spi.utils.ReadMode;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.apache.pinot.sql.parsers.CalciteSqlParser;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Tests that splitting the segments into morsels does not change the results and the execution statistics of the
+ * aggregation and group-by queries.
+ */
+public class MorselQueriesTest extends BaseQueriesTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "MorselQueriesTest");
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME = "testSegment";
+
+  private static final int NUM_RECORDS = 10000;
+  private static final int NUM_GROUPS = 7;
+  private static final String INT_COLUMN = "intColumn";
+  private static final String LONG_COLUMN = "longColumn";
+  private static final String GROUP_BY_COLUMN = "groupByColumn";
+
+  private static final Schema SCHEMA = new Schema.SchemaBuilder().addSingleValueDimension(INT_COLUMN, DataType.INT)
+      .addMetric(LONG_COLUMN, DataType.LONG).addSingleValueDimension(GROUP_BY_COLUMN, DataType.STRING).build();
+  private static final TableConfig TABLE_CONFIG = new TableConfigBuilder(TableType.OFFLINE).setTableName(RAW_TABLE_NAME)
+      .setNoDictionaryColumns(Collections.singletonList(LONG_COLUMN)).build();
+
+  // 4 threads for 2 segments, each segment is split into 2 morsels
+  private static final Map<String, String> MORSEL_QUERY_OPTIONS = new HashMap<String, String>() {{
+    put(QueryOptionKey.MIN_DOCS_PER_MORSEL, "1000");
+    put(QueryOptionKey.MAX_EXECUTION_THREADS, "4");
+  }};
+  private static final Map<String, String> NO_MORSEL_QUERY_OPTIONS = new HashMap<String, String>() {{
+    put(QueryOptionKey.MIN_DOCS_PER_MORSEL, "0");
+    put(QueryOptionKey.MAX_EXECUTION_THREADS, "4");
+  }};
+
+  private IndexSegment _indexSegment;
+  private List<IndexSegment> _indexSegments;
+
+  @Override
+  protected String getFilter() {
+    return "";
+  }
+
+  @Override
+  protected IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  protected List<IndexSegment> getIndexSegments() {
+    return _indexSegments;
+  }
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    List<GenericRow> records = new ArrayList<>(NUM_RECORDS);
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      GenericRow record = new GenericRow();
+      record.putValue(INT_COLUMN, i);
+      record.putValue(LONG_COLUMN, (long) i * i);
+      record.putValue(GROUP_BY_COLUMN, "group" + (i % NUM_GROUPS));
+      records.add(record);
+    }
+
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(TABLE_CONFIG, SCHEMA);
+    segmentGeneratorConfig.setTableName(RAW_TABLE_NAME);
+    segmentGeneratorConfig.setSegmentName(SEGMENT_NAME);
+    segmentGeneratorConfig.setOutDir(INDEX_DIR.getPath());
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig, new GenericRowRecordReader(records));
+    driver.build();
+
+    ImmutableSegment immutableSegment = ImmutableSegmentLoader.load(new File(INDEX_DIR, SEGMENT_NAME), ReadMode.mmap);
+    _indexSegment = immutableSegment;
+    _indexSegments = Arrays.asList(immutableSegment, immutableSegment);
+  }
+
+  @Test
+  public void testMorselPlan() {
+    String query = "SELECT COUNT(*), SUM(longColumn) FROM testTable";
+    assertEquals(getNumMorselOperators(query, MORSEL_QUERY_OPTIONS), 4);
+    assertEquals(getNumMorselOperators(query, NO_MORSEL_QUERY_OPTIONS), 0);
+
+    // Selection queries are not split into morsels
+    assertEquals(getNumMorselOperators("SELECT intColumn FROM testTable", MORSEL_QUERY_OPTIONS), 0);
+
+    // Aggregations solved with the metadata or the dictionary are not split into morsels and do not scan values
+    query = "SELECT COUNT(*), MIN(intColumn), MAX(intColumn), DISTINCTCOUNT(groupByColumn) FROM testTable";
+    assertEquals(getNumMorselOperators(query, MORSEL_QUERY_OPTIONS), 0);
+    assertEquals(getBrokerResponse(query, MORSEL_QUERY_OPTIONS).getNumEntriesScannedPostFilter(), 0);
+    // With a filter, they need to scan the matching documents and are split into morsels
+    query = "SELECT MIN(intColumn), MAX(intColumn) FROM testTable WHERE intColumn > 100";
+    assertEquals(getNumMorselOperators(query, MORSEL_QUERY_OPTIONS), 4);
+    assertTrue(getBrokerResponse(query, MORSEL_QUERY_OPTIONS).getNumEntriesScannedPostFilter() > 0);
+
+    // COUNT-only aggregations are not split into morsels
+    query = "SELECT COUNT(*) FROM testTable";
+    assertEquals(getNumMorselOperators(query, MORSEL_QUERY_OPTIONS), 0);
+    query = "SELECT COUNT(*) FROM testTable WHERE intColumn BETWEEN 1234 AND 8765";
+    assertEquals(getNumMorselOperators(query, MORSEL_QUERY_OPTIONS), 0);
+
+    // Group-by queries are split into morsels even if they only count
+    query = "SELECT groupByColumn, COUNT(*) FROM testTable GROUP BY groupByColumn";
+    assertEquals(getNumMorselOperators(query, MORSEL_QUERY_OPTIONS), 4);
+  }
+
+  private int getNumMorselOperators(String query, Map<String, String> queryOptions) {
+    PinotQuery pinotQuery = CalciteSqlParser.compileToPinotQuery(query);
+    pinotQuery.setQueryOptions(new HashMap<>(queryOptions));
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(pinotQuery);
+    Plan plan = PLAN_MAKER.makeInstancePlan(getIndexSegments(), queryContext, EXECUTOR_SERVICE, null);
+    Operator combineOperator = (Operator) ((GlobalPlanImplV0) plan).getPlanNode().run().getChildOperators().get(0);
+    int numMorselOperators = 0;
+    for (Object operator : combineOperator.getChildOperators()) {
+      if (operator instanceof MorselOperator) {
+        numMorselOperators++;
+      }
+    }
+    return numMorselOperators;
+  }
+
+  @Test
+  public void testAggregation() {
+    testQuery("SELECT COUNT(*), SUM(longColumn), MIN(intColumn), MAX(intColumn), DISTINCTCOUNT(groupByColumn) "
+        + "FROM testTable");
+    testQuery("SELECT COUNT(*), SUM(longColumn), MIN(intColumn), MAX(intColumn) FROM testTable "
+        + "WHERE intColumn BETWEEN 1234 AND 8765");
+    testQuery("SELECT COUNT(*), SUM(longColumn) FROM testTable WHERE groupByColumn = 'group3'");
+    testQuery("SELECT COUNT(*), SUM(longColumn) FROM testTable WHERE intColumn > " + NUM_RECORDS);
+    testQuery("SELECT COUNT(*), MIN(intColumn), MAX(intColumn), DISTINCTCOUNT(groupByColumn) FROM testTable");
+    testQuery("SELECT COUNT(*) FROM testTable WHERE groupByColumn = 'group3'");
+  }
+
+  @Test
+  public void testGroupBy() {
+    testQuery("SELECT groupByColumn, COUNT(*), SUM(longColumn), MAX(intColumn) FROM testTable "
+        + "GROUP BY groupByColumn ORDER BY groupByColumn");
+    testQuery("SELECT groupByColumn, COUNT(*), SUM(longColumn), MIN(intColumn) FROM testTable "
+        + "WHERE intColumn < 4321 OR groupByColumn = 'group5' GROUP BY groupByColumn ORDER BY groupByColumn");
+  }
+
+  private void testQuery(String query) {
+    BrokerResponseNative expected = getBrokerResponse(query, NO_MORSEL_QUERY_OPTIONS);
+    BrokerResponseNative actual = getBrokerResponse(query, MORSEL_QUERY_OPTIONS);
+    assertTrue(actual.getProcessingExceptions().isEmpty(), actual.getProcessingExceptions().toString());
+    ResultTable expectedResultTable = expected.getResultTable();
+    ResultTable actualResultTable = actual.getResultTable();
+    assertEquals(actualResultTable.getDataSchema(), expectedResultTable.getDataSchema());
+    assertEquals(actualResultTable.getRows().size(), expectedResultTable.getRows().size());
+    for (int i = 0; i < expectedResultTable.getRows().size(); i++) {
+      assertEquals(actualResultTable.getRows().get(i), expectedResultTable.getRows().get(i));
+    }
+    assertEquals(actual.getNumSegmentsProcessed(), expected.getNumSegmentsProcessed());
+    assertEquals(actual.getNumSegmentsMatched(), expected.getNumSegmentsMatched());
+    assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned());
+    assertEquals(actual.getTotalDocs(), expected.getTotalDocs());
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _indexSegment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+}
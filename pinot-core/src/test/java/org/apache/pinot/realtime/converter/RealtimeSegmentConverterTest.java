@@ -22,17 +22,23 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.common.metadata.segment.SegmentZKMetadata;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
 import org.apache.pinot.segment.local.indexsegment.mutable.MutableSegmentImpl;
 import org.apache.pinot.segment.local.io.writer.impl.DirectMemoryManager;
 import org.apache.pinot.segment.local.realtime.converter.ColumnIndicesForRealtimeTable;
 import org.apache.pinot.segment.local.realtime.converter.RealtimeSegmentConverter;
 import org.apache.pinot.segment.local.realtime.impl.RealtimeSegmentConfig;
 import org.apache.pinot.segment.local.realtime.impl.RealtimeSegmentStatsHistory;
+import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
+import org.apache.pinot.segment.local.segment.readers.PinotSegmentRecordReader;
 import org.apache.pinot.segment.local.segment.virtualcolumn.VirtualColumnProviderFactory;
+import org.apache.pinot.segment.spi.ImmutableSegment;
 import org.apache.pinot.segment.spi.creator.SegmentVersion;
+import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
 import org.apache.pinot.spi.config.table.IndexingConfig;
 import org.apache.pinot.spi.config.table.SegmentZKPropsConfig;
@@ -41,7 +47,9 @@ import org.apache.pinot.spi.config.table.TableType;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.TimeGranularitySpec;
+import org.apache.pinot.spi.data.readers.GenericRow;
 import org.apache.pinot.spi.utils.CommonConstants;
+import org.apache.pinot.spi.utils.ReadMode;
 import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -143,6 +151,99 @@ public class RealtimeSegmentConverterTest {
         "100");
   }
 
+  @Test
+  public void testColumnMajorSegmentBuilder()
+      throws Exception {
+    File tmpDir = new File(TMP_DIR, "tmp_" + System.currentTimeMillis());
+    TableConfig tableConfig =
+        new TableConfigBuilder(TableType.OFFLINE).setTableName("testTable").setTimeColumnName(DATE_TIME_COLUMN)
+            .setInvertedIndexColumns(Lists.newArrayList(STRING_COLUMN1, MV_INT_COLUMN)).setSortedColumn(LONG_COLUMN1)
+            .setNoDictionaryColumns(Lists.newArrayList(LONG_COLUMN2)).build();
+    Schema schema = new Schema.SchemaBuilder().addSingleValueDimension(STRING_COLUMN1, FieldSpec.DataType.STRING)
+        .addSingleValueDimension(LONG_COLUMN1, FieldSpec.DataType.LONG)
+        .addSingleValueDimension(LONG_COLUMN2, FieldSpec.DataType.LONG)
+        .addMultiValueDimension(MV_INT_COLUMN, FieldSpec.DataType.INT)
+        .addDateTime(DATE_TIME_COLUMN, FieldSpec.DataType.LONG, "1:MILLISECONDS:EPOCH", "1:MILLISECONDS").build();
+    String tableNameWithType = tableConfig.getTableName();
+    String segmentName = "testTable__0__0__123456";
+    IndexingConfig indexingConfig = tableConfig.getIndexingConfig();
+
+    RealtimeSegmentConfig.Builder realtimeSegmentConfigBuilder =
+        new RealtimeSegmentConfig.Builder().setTableNameWithType(tableNameWithType).setSegmentName(segmentName)
+            .setStreamName(tableNameWithType).setSchema(schema).setTimeColumnName(DATE_TIME_COLUMN).setCapacity(1000)
+            .setAvgNumMultiValues(3).setNoDictionaryColumns(Sets.newHashSet(LONG_COLUMN2))
+            .setInvertedIndexColumns(Sets.newHashSet(STRING_COLUMN1, MV_INT_COLUMN, LONG_COLUMN1))
+            .setSegmentZKMetadata(getSegmentZKMetadata(segmentName)).setOffHeap(true)
+            .setMemoryManager(new DirectMemoryManager(segmentName))
+            .setStatsHistory(RealtimeSegmentStatsHistory.deserialzeFrom(new File(tmpDir, "stats")))
+            .setConsumerDir(new File(tmpDir, "consumerDir").getAbsolutePath());
+    MutableSegmentImpl mutableSegmentImpl = new MutableSegmentImpl(realtimeSegmentConfigBuilder.build(), null);
+    int numDocs = 100;
+    for (int i = 0; i < numDocs; i++) {
+      GenericRow row = new GenericRow();
+      row.putValue(STRING_COLUMN1, "value_" + (i % 7));
+      row.putValue(LONG_COLUMN1, (long) (numDocs - i) % 13);
+      row.putValue(LONG_COLUMN2, (long) i);
+      row.putValue(MV_INT_COLUMN, new Object[]{i % 5, i % 3});
+      row.putValue(DATE_TIME_COLUMN, 1000L + i);
+      mutableSegmentImpl.index(row, null);
+    }
+
+    SegmentZKPropsConfig segmentZKPropsConfig = new SegmentZKPropsConfig();
+    segmentZKPropsConfig.setStartOffset("1");
+    segmentZKPropsConfig.setEndOffset("100");
+    File rowMajorDir = new File(tmpDir, "rowMajor");
+    File columnMajorDir = new File(tmpDir, "columnMajor");
+    for (boolean columnMajor : new boolean[]{false, true}) {
+      indexingConfig.setColumnMajorSegmentBuilderEnabled(columnMajor);
+      ColumnIndicesForRealtimeTable cdc = new ColumnIndicesForRealtimeTable(indexingConfig.getSortedColumn().get(0),
+          new ArrayList<>(indexingConfig.getInvertedIndexColumns()), null, null,
+          indexingConfig.getNoDictionaryColumns(), indexingConfig.getVarLengthDictionaryColumns());
+      File outputDir = columnMajor ? columnMajorDir : rowMajorDir;
+      RealtimeSegmentConverter converter =
+          new RealtimeSegmentConverter(mutableSegmentImpl, segmentZKPropsConfig, outputDir.getAbsolutePath(), schema,
+              tableNameWithType, tableConfig, segmentName, cdc, false);
+      converter.build(SegmentVersion.v3, null);
+    }
+    mutableSegmentImpl.destroy();
+
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+    indexLoadingConfig.setReadMode(ReadMode.mmap);
+    indexLoadingConfig.setInvertedIndexColumns(Sets.newHashSet(STRING_COLUMN1, MV_INT_COLUMN));
+    ImmutableSegment rowMajorSegment =
+        ImmutableSegmentLoader.load(new File(rowMajorDir, segmentName), indexLoadingConfig);
+    ImmutableSegment columnMajorSegment =
+        ImmutableSegmentLoader.load(new File(columnMajorDir, segmentName), indexLoadingConfig);
+    try (PinotSegmentRecordReader rowMajorReader = new PinotSegmentRecordReader();
+        PinotSegmentRecordReader columnMajorReader = new PinotSegmentRecordReader()) {
+      Assert.assertEquals(columnMajorSegment.getSegmentMetadata().getTotalDocs(), numDocs);
+      Assert.assertTrue(columnMajorSegment.getSegmentMetadata().getColumnMetadataFor(LONG_COLUMN1).isSorted());
+      Assert.assertNotNull(columnMajorSegment.getDataSource(STRING_COLUMN1).getInvertedIndex());
+      Assert.assertNotNull(columnMajorSegment.getDataSource(MV_INT_COLUMN).getInvertedIndex());
+      // the inverted indexes are copied from the mutable segment and remapped to the sorted doc ids
+      for (String column : new String[]{STRING_COLUMN1, MV_INT_COLUMN}) {
+        DataSource rowMajorDataSource = rowMajorSegment.getDataSource(column);
+        DataSource columnMajorDataSource = columnMajorSegment.getDataSource(column);
+        int cardinality = rowMajorDataSource.getDictionary().length();
+        Assert.assertEquals(columnMajorDataSource.getDictionary().length(), cardinality);
+        for (int dictId = 0; dictId < cardinality; dictId++) {
+          Assert.assertEquals(columnMajorDataSource.getInvertedIndex().getDocIds(dictId),
+              rowMajorDataSource.getInvertedIndex().getDocIds(dictId));
+        }
+      }
+      rowMajorReader.init(rowMajorSegment);
+      columnMajorReader.init(columnMajorSegment);
+      while (rowMajorReader.hasNext()) {
+        Assert.assertTrue(columnMajorReader.hasNext());
+        Assert.assertEquals(columnMajorReader.next(), rowMajorReader.next());
+      }
+      Assert.assertFalse(columnMajorReader.hasNext());
+    } finally {
+      rowMajorSegment.destroy();
+      columnMajorSegment.destroy();
+    }
+  }
+
   private SegmentZKMetadata getSegmentZKMetadata(String segmentName) {
     SegmentZKMetadata segmentZKMetadata = new SegmentZKMetadata(segmentName);
     segmentZKMetadata.setCreationTime(System.currentTimeMillis());
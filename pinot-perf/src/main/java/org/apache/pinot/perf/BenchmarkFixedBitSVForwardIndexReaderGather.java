@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.core.plan.DocIdSetPlanNode;
+import org.apache.pinot.segment.local.io.writer.impl.FixedBitSVForwardIndexWriter;
+import org.apache.pinot.segment.local.segment.index.readers.forward.FixedBitSVForwardIndexReaderV2;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Compares the bulk {@link FixedBitSVForwardIndexReaderV2#readDictIds} against reading the doc ids one by one, for doc
+ * id lists of different sparsity:
+ * <ul>
+ *   <li>sequential: all the docs</li>
+ *   <li>holes5 / holes20: all the docs except for 5% / 20% of them</li>
+ *   <li>dense: gaps of 0-2 docs</li>
+ *   <li>clustered: runs of 1-64 sequential docs separated by gaps of 0-99 docs</li>
+ *   <li>sparse: gaps of 4-9 docs</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Benchmark)
+public class BenchmarkFixedBitSVForwardIndexReaderGather {
+  private static final File INDEX_DIR =
+      new File(FileUtils.getTempDirectory(), "BenchmarkFixedBitSVForwardIndexReaderGather");
+  private static final int NUM_VALUES = 1_000_000;
+  private static final int NUM_DOC_IDS = DocIdSetPlanNode.MAX_DOC_PER_CALL;
+  private static final Random RANDOM = new Random();
+
+  private PinotDataBuffer _dataBuffer;
+  private FixedBitSVForwardIndexReaderV2 _reader;
+
+  private final int[] _docIds = new int[NUM_DOC_IDS];
+  private final int[] _dictIdBuffer = new int[NUM_DOC_IDS];
+
+  @Param({"2", "7", "12", "17", "23", "31"})
+  public int _numBits;
+
+  @Param({"sequential", "holes5", "holes20", "dense", "clustered", "sparse"})
+  public String _sparsity;
+
+  @Setup
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteDirectory(INDEX_DIR);
+    FileUtils.forceMkdir(INDEX_DIR);
+    File indexFile = new File(INDEX_DIR, "bit-" + _numBits);
+    int maxValue = _numBits < 31 ? 1 << _numBits : Integer.MAX_VALUE;
+    try (FixedBitSVForwardIndexWriter indexWriter = new FixedBitSVForwardIndexWriter(indexFile, NUM_VALUES, _numBits)) {
+      for (int i = 0; i < NUM_VALUES; i++) {
+        indexWriter.putDictId(RANDOM.nextInt(maxValue));
+      }
+    }
+    _dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(indexFile);
+    _reader = new FixedBitSVForwardIndexReaderV2(_dataBuffer, NUM_VALUES, _numBits);
+
+    int docId = RANDOM.nextInt(32);
+    int runLength = 0;
+    for (int i = 0; i < NUM_DOC_IDS; i++) {
+      _docIds[i] = docId;
+      switch (_sparsity) {
+        case "sequential":
+          docId++;
+          break;
+        case "holes5":
+          docId += RANDOM.nextInt(20) == 0 ? 2 : 1;
+          break;
+        case "holes20":
+          docId += RANDOM.nextInt(5) == 0 ? 2 : 1;
+          break;
+        case "dense":
+          docId += 1 + RANDOM.nextInt(3);
+          break;
+        case "clustered":
+          if (--runLength <= 0) {
+            docId += 1 + RANDOM.nextInt(100);
+            runLength = 1 + RANDOM.nextInt(64);
+          } else {
+            docId++;
+          }
+          break;
+        case "sparse":
+          docId += 5 + RANDOM.nextInt(6);
+          break;
+        default:
+          throw new IllegalStateException("Unsupported sparsity: " + _sparsity);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown()
+      throws Exception {
+    _dataBuffer.close();
+    FileUtils.deleteDirectory(INDEX_DIR);
+  }
+
+  @Benchmark
+  public int bulkRead() {
+    _reader.readDictIds(_docIds, NUM_DOC_IDS, _dictIdBuffer, null);
+    return _dictIdBuffer[0];
+  }
+
+  @Benchmark
+  public int perDocRead() {
+    for (int i = 0; i < NUM_DOC_IDS; i++) {
+      _dictIdBuffer[i] = _reader.getDictId(_docIds[i], null);
+    }
+    return _dictIdBuffer[0];
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    new Runner(new OptionsBuilder().include(BenchmarkFixedBitSVForwardIndexReaderGather.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.pinot.spi.data.readers.BaseRecordExtractor;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.apache.pinot.spi.data.readers.RecordExtractorConfig;
 
 
@@ -87,6 +88,45 @@ public class AvroRecordExtractor extends BaseRecordExtractor<GenericRecord> {
     return to;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The fields are looked up by their position in the Avro schema, and the primitive numeric values are written
+   * into the row without going through the generic conversion.
+   */
+  @Override
+  public IndexedRow extract(GenericRecord from, IndexedRow to) {
+    to.clear();
+    IndexedRow.Layout layout = to.getLayout();
+    Schema avroSchema = from.getSchema();
+    int numColumns = layout.getNumColumns();
+    for (int i = 0; i < numColumns; i++) {
+      String fieldName = layout.getColumnName(i);
+      if (!_extractAll && !_fields.contains(fieldName)) {
+        continue;
+      }
+      Schema.Field field = avroSchema.getField(fieldName);
+      if (field == null) {
+        continue;
+      }
+      Object value = from.get(field.pos());
+      if (_applyLogicalTypes) {
+        value = AvroSchemaUtil.applyLogicalType(field, value);
+      }
+      if (value == null) {
+        continue;
+      }
+      if (value instanceof Integer || value instanceof Long) {
+        to.putLong(i, ((Number) value).longValue());
+      } else if (value instanceof Float || value instanceof Double) {
+        to.putDouble(i, ((Number) value).doubleValue());
+      } else {
+        to.putValue(i, convert(value));
+      }
+    }
+    return to;
+  }
+
   /**
    * Returns whether the object is an Avro GenericRecord.
    */
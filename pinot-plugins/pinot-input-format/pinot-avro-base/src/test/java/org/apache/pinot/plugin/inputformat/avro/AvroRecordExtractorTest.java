@@ -46,6 +46,7 @@ import org.apache.avro.generic.GenericRecord;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.readers.AbstractRecordExtractorTest;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.apache.pinot.spi.data.readers.RecordReader;
 import org.apache.pinot.spi.utils.JsonUtils;
 import org.testng.Assert;
@@ -233,6 +234,34 @@ public class AvroRecordExtractorTest extends AbstractRecordExtractorTest {
     Assert.assertEquals(genericRow.getValue(timestampMicrosColName).getClass().getSimpleName(), "Timestamp");
   }
 
+  @Test
+  public void testExtractIntoIndexedRow() {
+    org.apache.pinot.spi.data.Schema pinotSchema =
+        new org.apache.pinot.spi.data.Schema.SchemaBuilder().addSingleValueDimension("intCol", FieldSpec.DataType.INT)
+            .addSingleValueDimension("stringCol", FieldSpec.DataType.STRING)
+            .addMetric("doubleCol", FieldSpec.DataType.DOUBLE).build();
+    Schema avroSchema = AvroUtils.getAvroSchemaFromPinotSchema(pinotSchema);
+    GenericRecord genericRecord = new GenericData.Record(avroSchema);
+    genericRecord.put("intCol", 123);
+    genericRecord.put("stringCol", "abc");
+    genericRecord.put("doubleCol", 1.5);
+
+    AvroRecordExtractor avroRecordExtractor = new AvroRecordExtractor();
+    avroRecordExtractor.init(null, new AvroRecordExtractorConfig());
+    IndexedRow.Layout layout = new IndexedRow.Layout(pinotSchema);
+    IndexedRow indexedRow = new IndexedRow(layout);
+    avroRecordExtractor.extract(genericRecord, indexedRow);
+    Assert.assertEquals(indexedRow.getInt(layout.indexOf("intCol")), 123);
+    Assert.assertEquals(indexedRow.getValue(layout.indexOf("stringCol")), "abc");
+    Assert.assertEquals(indexedRow.getDouble(layout.indexOf("doubleCol")), 1.5);
+
+    // Extracting into the same row again should reset the values that are not present
+    genericRecord.put("stringCol", null);
+    avroRecordExtractor.extract(genericRecord, indexedRow);
+    Assert.assertFalse(indexedRow.hasValue(layout.indexOf("stringCol")));
+    Assert.assertEquals(indexedRow.getInt(layout.indexOf("intCol")), 123);
+  }
+
   @Test
   public void testReusedByteBuffer() {
     byte[] content = new byte[100];
@@ -19,10 +19,12 @@
 package org.apache.pinot.plugin.inputformat.json;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.apache.pinot.spi.data.readers.RecordExtractor;
 import org.apache.pinot.spi.plugin.PluginManager;
 import org.apache.pinot.spi.stream.StreamMessageDecoder;
@@ -40,6 +42,10 @@ public class JSONMessageDecoder implements StreamMessageDecoder<byte[]> {
       "org.apache.pinot.plugin.inputformat.json.JSONRecordExtractor";
 
   private RecordExtractor<Map<String, Object>> _jsonRecordExtractor;
+  // Whether the default record extractor is used, in which case the values can be written directly from the json node
+  // into an IndexedRow
+  private boolean _useDefaultRecordExtractor;
+  private Set<String> _fieldsToRead;
 
   @Override
   public void init(Map<String, String> props, Set<String> fieldsToRead, String topicName)
@@ -53,6 +59,8 @@ public class JSONMessageDecoder implements StreamMessageDecoder<byte[]> {
     }
     _jsonRecordExtractor = PluginManager.get().createInstance(recordExtractorClass);
     _jsonRecordExtractor.init(fieldsToRead, null);
+    _useDefaultRecordExtractor = recordExtractorClass.equals(JSON_RECORD_EXTRACTOR_CLASS);
+    _fieldsToRead = fieldsToRead;
   }
 
   @Override
@@ -72,4 +80,82 @@ public class JSONMessageDecoder implements StreamMessageDecoder<byte[]> {
   public GenericRow decode(byte[] payload, int offset, int length, GenericRow destination) {
     return decode(Arrays.copyOfRange(payload, offset, offset + length), destination);
   }
+
+  @Override
+  public IndexedRow decode(byte[] payload, int offset, int length, IndexedRow destination) {
+    if (offset == 0 && length == payload.length) {
+      return decode(payload, destination);
+    }
+    return decode(Arrays.copyOfRange(payload, offset, offset + length), destination);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>With the default record extractor, the values are written directly from the json node into the row without
+   * converting the message into a map first. The values are the same as the ones extracted by the
+   * {@link JSONRecordExtractor}.
+   */
+  @Override
+  public IndexedRow decode(byte[] payload, IndexedRow destination) {
+    if (!_useDefaultRecordExtractor) {
+      return StreamMessageDecoder.super.decode(payload, destination);
+    }
+    try {
+      JsonNode message = JsonUtils.bytesToJsonNode(payload);
+      destination.clear();
+      IndexedRow.Layout layout = destination.getLayout();
+      int numColumns = layout.getNumColumns();
+      boolean extractAll = _fieldsToRead == null || _fieldsToRead.isEmpty();
+      for (int i = 0; i < numColumns; i++) {
+        String fieldName = layout.getColumnName(i);
+        if (!extractAll && !_fieldsToRead.contains(fieldName)) {
+          continue;
+        }
+        JsonNode value = message.get(fieldName);
+        if (value == null || value.isNull()) {
+          continue;
+        }
+        if (value.isIntegralNumber() && value.canConvertToLong()) {
+          destination.putLong(i, value.longValue());
+        } else if (value.isFloatingPointNumber()) {
+          destination.putDouble(i, value.doubleValue());
+        } else if (value.isArray()) {
+          // Null elements are skipped
+          int numValues = value.size();
+          Object[] values = new Object[numValues];
+          int numNonNullValues = 0;
+          for (int j = 0; j < numValues; j++) {
+            JsonNode element = value.get(j);
+            if (!element.isNull()) {
+              values[numNonNullValues++] = toSingleValue(element);
+            }
+          }
+          destination.putValue(i,
+              numNonNullValues == numValues ? values : Arrays.copyOf(values, numNonNullValues));
+        } else {
+          destination.putValue(i, toSingleValue(value));
+        }
+      }
+      return destination;
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while decoding row, discarding row. Payload is {}", new String(payload), e);
+      return null;
+    }
+  }
+
+  private Object toSingleValue(JsonNode value)
+      throws IOException {
+    if (value.isTextual()) {
+      return value.textValue();
+    }
+    if (value.isNumber()) {
+      return value.numberValue();
+    }
+    if (value.isBoolean()) {
+      return value.asText();
+    }
+    // Nested objects and arrays are converted the same way as the record extractor does
+    return ((JSONRecordExtractor) _jsonRecordExtractor).convert(JsonUtils.jsonNodeToObject(value, Object.class));
+  }
 }
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.plugin.inputformat.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+
+public class JSONMessageDecoderTest {
+  private static final Schema SCHEMA = new Schema.SchemaBuilder().setSchemaName("testTable")
+      .addSingleValueDimension("intField", DataType.INT).addSingleValueDimension("longField", DataType.LONG)
+      .addSingleValueDimension("doubleField", DataType.DOUBLE).addSingleValueDimension("stringField", DataType.STRING)
+      .addSingleValueDimension("jsonField", DataType.JSON).addMultiValueDimension("mvField", DataType.INT)
+      .addSingleValueDimension("missingField", DataType.STRING).build();
+  private static final String MESSAGE =
+      "{\"intField\": 1, \"longField\": 12345678901, \"doubleField\": 1.5, \"stringField\": \"value\", "
+          + "\"jsonField\": {\"key\": \"value\"}, \"mvField\": [1, null, \"3\"], \"extraField\": 1}";
+
+  @Test
+  public void testDecodeIntoIndexedRow()
+      throws Exception {
+    JSONMessageDecoder decoder = new JSONMessageDecoder();
+    decoder.init(Collections.emptyMap(), Collections.emptySet(), "testTopic");
+    byte[] payload = MESSAGE.getBytes(StandardCharsets.UTF_8);
+
+    IndexedRow.Layout layout = new IndexedRow.Layout(SCHEMA);
+    IndexedRow row = new IndexedRow(layout);
+    assertNotNull(decoder.decode(payload, row));
+    assertEquals(row.getInt(layout.indexOf("intField")), 1);
+    assertEquals(row.getLong(layout.indexOf("longField")), 12345678901L);
+    assertEquals(row.getDouble(layout.indexOf("doubleField")), 1.5);
+    assertEquals(row.getValue(layout.indexOf("stringField")), "value");
+    assertEquals(row.getValue(layout.indexOf("jsonField")), "{\"key\":\"value\"}");
+    assertEquals(row.getValue(layout.indexOf("mvField")), new Object[]{1, 3});
+    assertFalse(row.hasValue(layout.indexOf("missingField")));
+
+    // Should match the values decoded through the GenericRow path
+    GenericRow genericRow = decoder.decode(payload, new GenericRow());
+    assertNotNull(genericRow);
+    IndexedRow expectedRow = new IndexedRow(layout);
+    expectedRow.fromGenericRow(genericRow);
+    for (int i = 0; i < layout.getNumColumns(); i++) {
+      assertEquals(row.hasValue(i), expectedRow.hasValue(i));
+      assertEquals(row.getValue(i), expectedRow.getValue(i));
+    }
+
+    // Should decode the message within a larger buffer
+    byte[] paddedPayload = new byte[payload.length + 2];
+    System.arraycopy(payload, 0, paddedPayload, 1, payload.length);
+    IndexedRow paddedRow = new IndexedRow(layout);
+    assertNotNull(decoder.decode(paddedPayload, 1, payload.length, paddedRow));
+    for (int i = 0; i < layout.getNumColumns(); i++) {
+      assertEquals(paddedRow.getValue(i), row.getValue(i));
+    }
+
+    // Invalid message should be dropped
+    assertNull(decoder.decode("{invalid".getBytes(StandardCharsets.UTF_8), row));
+  }
+}
@@ -37,6 +37,9 @@ public class PinotQueryRuleSets {
           EnumerableRules.ENUMERABLE_PROJECT_RULE, EnumerableRules.ENUMERABLE_SORT_RULE,
           EnumerableRules.ENUMERABLE_TABLE_SCAN_RULE,
 
+          // split the windowed aggregations (OVER clause) out of the projections into a window node
+          CoreRules.PROJECT_TO_LOGICAL_PROJECT_AND_WINDOW,
+
           // push a filter into a join
           CoreRules.FILTER_INTO_JOIN,
           // push filter through an aggregation
@@ -70,8 +73,9 @@ public class PinotQueryRuleSets {
 
           // remove aggregation if it does not aggregate and input is already distinct
           CoreRules.AGGREGATE_REMOVE,
-          // push aggregate through join
-          CoreRules.AGGREGATE_JOIN_TRANSPOSE,
+          // push aggregate through join, including the splittable aggregate functions so that partial aggregates can be
+          // computed in the leaf stage before the join
+          CoreRules.AGGREGATE_JOIN_TRANSPOSE_EXTENDED,
           // aggregate union rule
           CoreRules.AGGREGATE_UNION_AGGREGATE,
 
@@ -93,6 +97,7 @@ public class PinotQueryRuleSets {
           PinotFilterExpandSearchRule.INSTANCE,
           PinotJoinExchangeNodeInsertRule.INSTANCE,
           PinotAggregateExchangeNodeInsertRule.INSTANCE,
-          PinotSortExchangeNodeInsertRule.INSTANCE
+          PinotSortExchangeNodeInsertRule.INSTANCE,
+          PinotWindowExchangeNodeInsertRule.INSTANCE
       );
 }
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.calcite.rel.rules;
+
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelDistributions;
+import org.apache.calcite.rel.core.Window;
+import org.apache.calcite.rel.logical.LogicalExchange;
+import org.apache.calcite.rel.logical.LogicalWindow;
+import org.apache.calcite.tools.RelBuilderFactory;
+
+
+/**
+ * Special rule for Pinot, this rule is fixed to always insert exchange below WINDOW node, hash distributed on the
+ * PARTITION BY keys so that all rows of a window partition are processed by the same worker.
+ *
+ * <p>Only a single window group (i.e. all window functions sharing the same PARTITION BY, ORDER BY and frame) is
+ * supported for now.
+ */
+public class PinotWindowExchangeNodeInsertRule extends RelOptRule {
+  public static final PinotWindowExchangeNodeInsertRule INSTANCE =
+      new PinotWindowExchangeNodeInsertRule(PinotRuleUtils.PINOT_REL_FACTORY);
+
+  public PinotWindowExchangeNodeInsertRule(RelBuilderFactory factory) {
+    super(operand(LogicalWindow.class, any()), factory, null);
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    if (call.rels.length < 1) {
+      return false;
+    }
+    if (call.rel(0) instanceof Window) {
+      Window window = call.rel(0);
+      return !PinotRuleUtils.isExchange(window.getInput());
+    }
+    return false;
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    Window window = call.rel(0);
+    if (window.groups.size() != 1) {
+      throw new UnsupportedOperationException("Only a single window group is supported, got: " + window.groups.size());
+    }
+    Window.Group group = window.groups.get(0);
+    LogicalExchange exchange =
+        LogicalExchange.create(window.getInput(), RelDistributions.hash(group.keys.asList()));
+    call.transformTo(LogicalWindow.create(window.getTraitSet(), exchange, window.constants, window.getRowType(),
+        window.groups));
+  }
+}
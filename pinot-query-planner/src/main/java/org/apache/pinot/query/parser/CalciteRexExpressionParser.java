@@ -171,6 +171,10 @@ public class CalciteRexExpressionParser {
       case OTHER_FUNCTION:
         functionName = rexCall.getFunctionName();
         break;
+      case SUM0:
+        // $SUM0 is produced by COUNT splitting and aggregate-join transpose; the leaf stage computes it as SUM.
+        functionName = SqlKind.SUM.name();
+        break;
       default:
         functionName = functionKind.name();
         break;
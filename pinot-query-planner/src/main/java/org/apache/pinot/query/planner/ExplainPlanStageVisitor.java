@@ -34,6 +34,7 @@ import org.apache.pinot.query.planner.stage.StageNode;
 import org.apache.pinot.query.planner.stage.StageNodeVisitor;
 import org.apache.pinot.query.planner.stage.TableScanNode;
 import org.apache.pinot.query.planner.stage.ValueNode;
+import org.apache.pinot.query.planner.stage.WindowNode;
 
 
 /**
@@ -199,6 +200,11 @@ public class ExplainPlanStageVisitor implements StageNodeVisitor<StringBuilder,
     return appendInfo(node, context);
   }
 
+  @Override
+  public StringBuilder visitWindow(WindowNode node, Context context) {
+    return visitSimpleNode(node, context);
+  }
+
   static class Context {
     final ServerInstance _host;
     final String _prefix;
@@ -0,0 +1,282 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.planner.logical;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.calcite.rel.RelDistribution;
+import org.apache.pinot.core.routing.TablePartitionInfo;
+import org.apache.pinot.query.planner.QueryPlan;
+import org.apache.pinot.query.planner.StageMetadata;
+import org.apache.pinot.query.planner.partitioning.FieldSelectionKeySelector;
+import org.apache.pinot.query.planner.stage.AggregateNode;
+import org.apache.pinot.query.planner.stage.FilterNode;
+import org.apache.pinot.query.planner.stage.JoinNode;
+import org.apache.pinot.query.planner.stage.MailboxReceiveNode;
+import org.apache.pinot.query.planner.stage.MailboxSendNode;
+import org.apache.pinot.query.planner.stage.ProjectNode;
+import org.apache.pinot.query.planner.stage.SortNode;
+import org.apache.pinot.query.planner.stage.StageNode;
+import org.apache.pinot.query.planner.stage.StageNodeVisitor;
+import org.apache.pinot.query.planner.stage.TableScanNode;
+import org.apache.pinot.query.planner.stage.ValueNode;
+import org.apache.pinot.query.planner.stage.WindowNode;
+import org.apache.pinot.query.routing.WorkerManager;
+
+
+/**
+ * {@code ColocatedJoinVisitor} removes the shuffle of the join inputs when both sides are read from tables partitioned
+ * on the join key with the same partition function and number of partitions (see
+ * {@link org.apache.pinot.spi.config.table.SegmentPartitionConfig}).
+ *
+ * <p>For such a join, the segments of each partition from both tables are assigned to the same server, the join (and
+ * any stage between the table scan and the join) is executed on these servers, and all the exchanges feeding the join
+ * are replaced with {@link RelDistribution.Type#SINGLETON}, so that the data never leaves the server hosting it.
+ *
+ * <p>The visitor returns the indices of the columns holding the partition column values in the output of each node, or
+ * an empty set if the output is not partitioned (or the partitioning cannot be kept without shuffle).
+ */
+public class ColocatedJoinVisitor implements StageNodeVisitor<Set<Integer>, ColocatedJoinVisitor.Context> {
+  private final QueryPlan _queryPlan;
+  private final WorkerManager _workerManager;
+
+  /**
+   * Rewrites the joins of the {@code queryPlan} <b>in place</b>. Should be called after the workers are assigned to
+   * each stage, as it re-assigns the workers of the colocated stages.
+   *
+   * @param queryPlan the query plan to rewrite
+   * @param workerManager the worker manager used to acquire the table partition info and assign workers
+   */
+  public static void colocateJoins(QueryPlan queryPlan, WorkerManager workerManager) {
+    ColocatedJoinVisitor visitor = new ColocatedJoinVisitor(queryPlan, workerManager);
+    List<JoinNode> joinNodes = new ArrayList<>();
+    for (StageNode stageRoot : queryPlan.getQueryStageMap().values()) {
+      collectJoinNodes(stageRoot, joinNodes);
+    }
+    for (JoinNode joinNode : joinNodes) {
+      visitor.colocateJoin(joinNode);
+    }
+  }
+
+  /**
+   * Access to this class should only be used via {@link #colocateJoins(QueryPlan, WorkerManager)}
+   */
+  private ColocatedJoinVisitor(QueryPlan queryPlan, WorkerManager workerManager) {
+    _queryPlan = queryPlan;
+    _workerManager = workerManager;
+  }
+
+  private static void collectJoinNodes(StageNode node, List<JoinNode> joinNodes) {
+    if (node instanceof JoinNode) {
+      joinNodes.add((JoinNode) node);
+    }
+    // NOTE: MailboxReceiveNode doesn't have inputs, so the walk stays within the stage.
+    for (StageNode input : node.getInputs()) {
+      collectJoinNodes(input, joinNodes);
+    }
+  }
+
+  private void colocateJoin(JoinNode joinNode) {
+    Context leftContext = new Context();
+    Set<Integer> leftPartitionKeys = joinNode.getInputs().get(0).visit(this, leftContext);
+    if (leftPartitionKeys.isEmpty()) {
+      return;
+    }
+    Context rightContext = new Context();
+    Set<Integer> rightPartitionKeys = joinNode.getInputs().get(1).visit(this, rightContext);
+    if (rightPartitionKeys.isEmpty()) {
+      return;
+    }
+    TablePartitionInfo leftTablePartitionInfo = leftContext._tablePartitionInfo;
+    TablePartitionInfo rightTablePartitionInfo = rightContext._tablePartitionInfo;
+    if (!leftTablePartitionInfo.getPartitionFunctionName()
+        .equalsIgnoreCase(rightTablePartitionInfo.getPartitionFunctionName())
+        || leftTablePartitionInfo.getNumPartitions() != rightTablePartitionInfo.getNumPartitions()) {
+      return;
+    }
+
+    // at least one pair of join keys must be the partition columns of both sides
+    List<Integer> leftJoinKeys =
+        ((FieldSelectionKeySelector) joinNode.getJoinKeys().getLeftJoinKeySelector()).getColumnIndices();
+    List<Integer> rightJoinKeys =
+        ((FieldSelectionKeySelector) joinNode.getJoinKeys().getRightJoinKeySelector()).getColumnIndices();
+    boolean joinOnPartitionKey = false;
+    for (int i = 0; i < leftJoinKeys.size(); i++) {
+      if (leftPartitionKeys.contains(leftJoinKeys.get(i)) && rightPartitionKeys.contains(rightJoinKeys.get(i))) {
+        joinOnPartitionKey = true;
+        break;
+      }
+    }
+    if (!joinOnPartitionKey) {
+      return;
+    }
+
+    Map<Integer, StageMetadata> stageMetadataMap = _queryPlan.getStageMetadataMap();
+    List<StageMetadata> stageMetadataList = new ArrayList<>();
+    stageMetadataList.add(stageMetadataMap.get(joinNode.getStageId()));
+    for (int stageId : leftContext._stageIds) {
+      stageMetadataList.add(stageMetadataMap.get(stageId));
+    }
+    for (int stageId : rightContext._stageIds) {
+      stageMetadataList.add(stageMetadataMap.get(stageId));
+    }
+    if (_workerManager.assignColocatedWorkers(
+        Arrays.asList(stageMetadataMap.get(leftContext._tableScanStageId),
+            stageMetadataMap.get(rightContext._tableScanStageId)),
+        Arrays.asList(leftTablePartitionInfo, rightTablePartitionInfo), stageMetadataList)) {
+      for (MailboxReceiveNode receiveNode : leftContext._receiveNodes) {
+        setSingletonExchange(receiveNode);
+      }
+      for (MailboxReceiveNode receiveNode : rightContext._receiveNodes) {
+        setSingletonExchange(receiveNode);
+      }
+    }
+  }
+
+  private static void setSingletonExchange(MailboxReceiveNode receiveNode) {
+    receiveNode.setExchangeType(RelDistribution.Type.SINGLETON);
+    ((MailboxSendNode) receiveNode.getSender()).setExchangeType(RelDistribution.Type.SINGLETON);
+  }
+
+  @Override
+  public Set<Integer> visitAggregate(AggregateNode node, Context context) {
+    Set<Integer> oldPartitionKeys = node.getInputs().get(0).visit(this, context);
+
+    // group keys referencing the partition column are still partition keys
+    Set<Integer> partitionKeys = new HashSet<>();
+    for (int i = 0; i < node.getGroupSet().size(); i++) {
+      RexExpression rex = node.getGroupSet().get(i);
+      if (rex instanceof RexExpression.InputRef) {
+        if (oldPartitionKeys.contains(((RexExpression.InputRef) rex).getIndex())) {
+          partitionKeys.add(i);
+        }
+      }
+    }
+    return partitionKeys;
+  }
+
+  @Override
+  public Set<Integer> visitFilter(FilterNode node, Context context) {
+    return node.getInputs().get(0).visit(this, context);
+  }
+
+  @Override
+  public Set<Integer> visitJoin(JoinNode node, Context context) {
+    // only the inputs of a join can be colocated, not the output
+    return new HashSet<>();
+  }
+
+  @Override
+  public Set<Integer> visitMailboxReceive(MailboxReceiveNode node, Context context) {
+    Set<Integer> partitionKeys = node.getSender().visit(this, context);
+    if (partitionKeys.isEmpty()) {
+      return partitionKeys;
+    }
+    switch (node.getExchangeType()) {
+      case SINGLETON:
+        break;
+      case HASH_DISTRIBUTED:
+        // the rows with the same hash keys are already on the same server if any hash key is a partition key
+        List<Integer> hashKeys = ((FieldSelectionKeySelector) node.getPartitionKeySelector()).getColumnIndices();
+        if (hashKeys.stream().noneMatch(partitionKeys::contains)) {
+          return new HashSet<>();
+        }
+        break;
+      default:
+        return new HashSet<>();
+    }
+    context._receiveNodes.add(node);
+    return partitionKeys;
+  }
+
+  @Override
+  public Set<Integer> visitMailboxSend(MailboxSendNode node, Context context) {
+    Set<Integer> partitionKeys = node.getInputs().get(0).visit(this, context);
+    if (!partitionKeys.isEmpty() && node.getStageId() != context._tableScanStageId) {
+      context._stageIds.add(node.getStageId());
+    }
+    return partitionKeys;
+  }
+
+  @Override
+  public Set<Integer> visitProject(ProjectNode node, Context context) {
+    Set<Integer> oldPartitionKeys = node.getInputs().get(0).visit(this, context);
+
+    // projected input references of the partition column are still partition keys
+    Set<Integer> partitionKeys = new HashSet<>();
+    for (int i = 0; i < node.getProjects().size(); i++) {
+      RexExpression rex = node.getProjects().get(i);
+      if (rex instanceof RexExpression.InputRef) {
+        if (oldPartitionKeys.contains(((RexExpression.InputRef) rex).getIndex())) {
+          partitionKeys.add(i);
+        }
+      }
+    }
+    return partitionKeys;
+  }
+
+  @Override
+  public Set<Integer> visitSort(SortNode node, Context context) {
+    // sort (and its limit) applies to all the rows, so it cannot be executed per partition
+    return new HashSet<>();
+  }
+
+  @Override
+  public Set<Integer> visitTableScan(TableScanNode node, Context context) {
+    Set<Integer> partitionKeys = new HashSet<>();
+    TablePartitionInfo tablePartitionInfo =
+        _workerManager.getTablePartitionInfo(_queryPlan.getStageMetadataMap().get(node.getStageId()));
+    if (tablePartitionInfo != null) {
+      List<String> columns = node.getTableScanColumns();
+      for (int i = 0; i < columns.size(); i++) {
+        if (columns.get(i).equals(tablePartitionInfo.getPartitionColumn())) {
+          partitionKeys.add(i);
+        }
+      }
+      context._tablePartitionInfo = tablePartitionInfo;
+      context._tableScanStageId = node.getStageId();
+    }
+    return partitionKeys;
+  }
+
+  @Override
+  public Set<Integer> visitValue(ValueNode node, Context context) {
+    return new HashSet<>();
+  }
+
+  @Override
+  public Set<Integer> visitWindow(WindowNode node, Context context) {
+    // window appends its aggregations after the input columns, so the partition keys are unchanged
+    return node.getInputs().get(0).visit(this, context);
+  }
+
+  /**
+   * Collects the table scan stage, the stages and the exchanges between the table scan and one input of the join.
+   */
+  static class Context {
+    TablePartitionInfo _tablePartitionInfo;
+    int _tableScanStageId = -1;
+    final List<Integer> _stageIds = new ArrayList<>();
+    final List<MailboxReceiveNode> _receiveNodes = new ArrayList<>();
+  }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.query.planner.logical;
 
+import com.google.common.base.Preconditions;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.apache.calcite.rel.RelNode;
@@ -30,6 +31,7 @@ import org.apache.calcite.rel.logical.LogicalProject;
 import org.apache.calcite.rel.logical.LogicalSort;
 import org.apache.calcite.rel.logical.LogicalTableScan;
 import org.apache.calcite.rel.logical.LogicalValues;
+import org.apache.calcite.rel.logical.LogicalWindow;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeField;
 import org.apache.calcite.rel.type.RelRecordType;
@@ -44,6 +46,7 @@ import org.apache.pinot.query.planner.stage.SortNode;
 import org.apache.pinot.query.planner.stage.StageNode;
 import org.apache.pinot.query.planner.stage.TableScanNode;
 import org.apache.pinot.query.planner.stage.ValueNode;
+import org.apache.pinot.query.planner.stage.WindowNode;
 
 
 /**
@@ -78,6 +81,8 @@ public final class RelToStageConverter {
       return convertLogicalSort((LogicalSort) node, currentStageId);
     } else if (node instanceof LogicalValues) {
       return convertLogicalValues((LogicalValues) node, currentStageId);
+    } else if (node instanceof LogicalWindow) {
+      return convertLogicalWindow((LogicalWindow) node, currentStageId);
     } else {
       throw new UnsupportedOperationException("Unsupported logical plan node: " + node);
     }
@@ -87,6 +92,13 @@ public final class RelToStageConverter {
     return new ValueNode(currentStageId, toDataSchema(node.getRowType()), node.tuples);
   }
 
+  private static StageNode convertLogicalWindow(LogicalWindow node, int currentStageId) {
+    Preconditions.checkState(node.groups.size() == 1, "Only a single window group is supported, got: %s",
+        node.groups.size());
+    return new WindowNode(currentStageId, toDataSchema(node.getRowType()), node.groups.get(0), node.constants,
+        node.getInput().getRowType().getFieldCount());
+  }
+
   private static StageNode convertLogicalSort(LogicalSort node, int currentStageId) {
     int fetch = node.fetch == null ? 0 : ((RexLiteral) node.fetch).getValueAs(Integer.class);
     int offset = node.offset == null ? 0 : ((RexLiteral) node.offset).getValueAs(Integer.class);
@@ -34,6 +34,7 @@ import org.apache.pinot.query.planner.stage.StageNode;
 import org.apache.pinot.query.planner.stage.StageNodeVisitor;
 import org.apache.pinot.query.planner.stage.TableScanNode;
 import org.apache.pinot.query.planner.stage.ValueNode;
+import org.apache.pinot.query.planner.stage.WindowNode;
 
 
 /**
@@ -182,6 +183,12 @@ public class ShuffleRewriteVisitor implements StageNodeVisitor<Set<Integer>, Voi
     return new HashSet<>();
   }
 
+  @Override
+  public Set<Integer> visitWindow(WindowNode node, Void context) {
+    // window appends its aggregations after the input columns, so the partition keys are unchanged
+    return node.getInputs().get(0).visit(this, context);
+  }
+
   private static boolean canSkipShuffle(Set<Integer> partitionKeys, KeySelector<Object[], Object[]> keySelector) {
     if (!partitionKeys.isEmpty() && keySelector != null) {
       Set<Integer> targetSet = new HashSet<>(((FieldSelectionKeySelector) keySelector).getColumnIndices());
@@ -82,6 +82,9 @@ public class StagePlanner {
       _workerManager.assignWorkerToStage(e.getKey(), e.getValue());
     }
 
+    // process the joins of tables partitioned on the join keys on the servers hosting the partitions, without shuffle.
+    ColocatedJoinVisitor.colocateJoins(queryPlan, _workerManager);
+
     return queryPlan;
   }
 
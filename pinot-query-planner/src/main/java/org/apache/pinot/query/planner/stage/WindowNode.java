@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.planner.stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.core.Window;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.rex.RexWindowBound;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.serde.ProtoProperties;
+
+
+/**
+ * {@code WindowNode} computes the window (OVER clause) aggregations of a single window group, i.e. all the window
+ * functions sharing the same PARTITION BY keys, ORDER BY keys and frame.
+ *
+ * <p>The output rows contain all the input columns followed by one column per window aggregation. The frame bounds
+ * are stored as offsets relative to the current row: negative for PRECEDING, positive for FOLLOWING, 0 for CURRENT
+ * ROW, and {@link #UNBOUNDED_PRECEDING} / {@link #UNBOUNDED_FOLLOWING} for the unbounded bounds. For RANGE frames
+ * the offsets are expressed in the unit of the (single) ORDER BY key.
+ */
+public class WindowNode extends AbstractStageNode {
+  public static final long UNBOUNDED_PRECEDING = Long.MIN_VALUE;
+  public static final long UNBOUNDED_FOLLOWING = Long.MAX_VALUE;
+
+  @ProtoProperties
+  private List<RexExpression> _groupSet;
+  @ProtoProperties
+  private List<RexExpression> _orderSet;
+  @ProtoProperties
+  private List<RelFieldCollation.Direction> _orderSetDirection;
+  @ProtoProperties
+  private List<RelFieldCollation.NullDirection> _orderSetNullDirection;
+  @ProtoProperties
+  private List<RexExpression> _aggCalls;
+  @ProtoProperties
+  private boolean _isRows;
+  @ProtoProperties
+  private long _lowerBound;
+  @ProtoProperties
+  private long _upperBound;
+
+  public WindowNode(int stageId) {
+    super(stageId);
+  }
+
+  public WindowNode(int stageId, DataSchema dataSchema, Window.Group group, List<RexLiteral> constants,
+      int numInputFields) {
+    super(stageId, dataSchema);
+    _groupSet = new ArrayList<>(group.keys.cardinality());
+    for (Integer key : group.keys) {
+      _groupSet.add(new RexExpression.InputRef(key));
+    }
+    List<RelFieldCollation> fieldCollations = group.orderKeys.getFieldCollations();
+    _orderSet = new ArrayList<>(fieldCollations.size());
+    _orderSetDirection = new ArrayList<>(fieldCollations.size());
+    _orderSetNullDirection = new ArrayList<>(fieldCollations.size());
+    for (RelFieldCollation fieldCollation : fieldCollations) {
+      _orderSet.add(new RexExpression.InputRef(fieldCollation.getFieldIndex()));
+      _orderSetDirection.add(fieldCollation.getDirection());
+      _orderSetNullDirection.add(fieldCollation.nullDirection);
+    }
+    // Window constants are referenced as input refs beyond the input fields, inline them as literals
+    RexShuttle constantInliner = new RexShuttle() {
+      @Override
+      public RexNode visitInputRef(RexInputRef inputRef) {
+        int index = inputRef.getIndex();
+        return index < numInputFields ? inputRef : constants.get(index - numInputFields);
+      }
+    };
+    _aggCalls = new ArrayList<>(group.aggCalls.size());
+    for (Window.RexWinAggCall aggCall : group.aggCalls) {
+      _aggCalls.add(RexExpression.toRexExpression(aggCall.accept(constantInliner)));
+    }
+    _isRows = group.isRows;
+    _lowerBound = toOffset(group.lowerBound, constantInliner);
+    _upperBound = toOffset(group.upperBound, constantInliner);
+  }
+
+  private static long toOffset(RexWindowBound bound, RexShuttle constantInliner) {
+    if (bound.isCurrentRow()) {
+      return 0;
+    }
+    if (bound.isUnbounded()) {
+      return bound.isPreceding() ? UNBOUNDED_PRECEDING : UNBOUNDED_FOLLOWING;
+    }
+    RexNode offsetNode = bound.getOffset().accept(constantInliner);
+    if (!(offsetNode instanceof RexLiteral)) {
+      throw new UnsupportedOperationException("Unsupported window frame bound: " + bound);
+    }
+    long offset = ((RexLiteral) offsetNode).getValueAs(Long.class);
+    return bound.isPreceding() ? -offset : offset;
+  }
+
+  public List<RexExpression> getGroupSet() {
+    return _groupSet;
+  }
+
+  public List<RexExpression> getOrderSet() {
+    return _orderSet;
+  }
+
+  public List<RelFieldCollation.Direction> getOrderSetDirection() {
+    return _orderSetDirection;
+  }
+
+  public List<RelFieldCollation.NullDirection> getOrderSetNullDirection() {
+    return _orderSetNullDirection;
+  }
+
+  public List<RexExpression> getAggCalls() {
+    return _aggCalls;
+  }
+
+  public boolean isRows() {
+    return _isRows;
+  }
+
+  public long getLowerBound() {
+    return _lowerBound;
+  }
+
+  public long getUpperBound() {
+    return _upperBound;
+  }
+
+  @Override
+  public String explain() {
+    return "WINDOW";
+  }
+
+  @Override
+  public <T, C> T visit(StageNodeVisitor<T, C> visitor, C context) {
+    return visitor.visitWindow(this, context);
+  }
+}
@@ -23,10 +23,16 @@ import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
 import org.apache.pinot.core.routing.RoutingManager;
 import org.apache.pinot.core.routing.RoutingTable;
+import org.apache.pinot.core.routing.TablePartitionInfo;
 import org.apache.pinot.core.routing.TimeBoundaryInfo;
 import org.apache.pinot.core.transport.ServerInstance;
 import org.apache.pinot.query.planner.PlannerUtils;
@@ -104,20 +110,154 @@ public class WorkerManager {
     }
   }
 
+  /**
+   * Returns the partition info of the table scanned by the given table scan stage, or {@code null} if the table is not
+   * partitioned, or if the stage scans both the OFFLINE and REALTIME part of a hybrid table (which are partitioned
+   * separately).
+   */
+  @Nullable
+  public TablePartitionInfo getTablePartitionInfo(StageMetadata stageMetadata) {
+    List<String> scannedTables = stageMetadata.getScannedTables();
+    Preconditions.checkState(scannedTables.size() == 1, "Partition info is only available for table scan stage");
+    Set<String> tableTypes = new HashSet<>();
+    for (Map<String, List<String>> tableTypeToSegmentListMap
+        : stageMetadata.getServerInstanceToSegmentsMap().values()) {
+      tableTypes.addAll(tableTypeToSegmentListMap.keySet());
+    }
+    if (tableTypes.size() != 1) {
+      return null;
+    }
+    String tableNameWithType = TableNameBuilder.forType(TableType.valueOf(tableTypes.iterator().next()))
+        .tableNameWithType(TableNameBuilder.extractRawTableName(scannedTables.get(0)));
+    return _routingManager.getTablePartitionInfo(tableNameWithType);
+  }
+
+  /**
+   * Re-assigns the workers of colocated stages, so that the segments of the same partition from all the given table
+   * scan stages are processed on the same server, and the data can be exchanged locally within the server instead of
+   * being shuffled. The other stages (e.g. the join stage) are assigned to all the servers picked for the partitions.
+   *
+   * <p>All the tables must be partitioned with the same partition function and number of partitions. The stages are
+   * left untouched if any routed segment does not have a valid partition, or if no enabled server hosts all the
+   * segments of a partition from all the tables.
+   *
+   * @return {@code true} if the workers are re-assigned, {@code false} otherwise.
+   */
+  public boolean assignColocatedWorkers(List<StageMetadata> tableScanStageMetadataList,
+      List<TablePartitionInfo> tablePartitionInfoList, List<StageMetadata> stageMetadataList) {
+    int numTables = tableScanStageMetadataList.size();
+    int numPartitions = tablePartitionInfoList.get(0).getNumPartitions();
+
+    // group the routed segments of each table by partition
+    String[] tableTypes = new String[numTables];
+    List<List<List<String>>> segmentsByPartitionList = new ArrayList<>(numTables);
+    for (int i = 0; i < numTables; i++) {
+      TablePartitionInfo tablePartitionInfo = tablePartitionInfoList.get(i);
+      TablePartitionInfo.PartitionInfo[] partitionInfoMap = tablePartitionInfo.getPartitionInfoMap();
+      Map<String, Integer> segmentToPartitionIdMap = new HashMap<>();
+      for (int partitionId = 0; partitionId < numPartitions; partitionId++) {
+        for (String segment : partitionInfoMap[partitionId].getSegments()) {
+          segmentToPartitionIdMap.put(segment, partitionId);
+        }
+      }
+      List<List<String>> segmentsByPartition = new ArrayList<>(numPartitions);
+      for (int partitionId = 0; partitionId < numPartitions; partitionId++) {
+        segmentsByPartition.add(new ArrayList<>());
+      }
+      for (Map<String, List<String>> tableTypeToSegmentListMap
+          : tableScanStageMetadataList.get(i).getServerInstanceToSegmentsMap().values()) {
+        for (Map.Entry<String, List<String>> entry : tableTypeToSegmentListMap.entrySet()) {
+          tableTypes[i] = entry.getKey();
+          for (String segment : entry.getValue()) {
+            Integer partitionId = segmentToPartitionIdMap.get(segment);
+            if (partitionId == null) {
+              return false;
+            }
+            segmentsByPartition.get(partitionId).add(segment);
+          }
+        }
+      }
+      segmentsByPartitionList.add(segmentsByPartition);
+    }
+
+    // pick a server hosting all the segments of the partition from all the tables, balancing the number of partitions
+    // assigned to each server.
+    Map<String, ServerInstance> enabledServerInstanceMap = new HashMap<>();
+    for (Map.Entry<String, ServerInstance> entry : _routingManager.getEnabledServerInstanceMap().entrySet()) {
+      if (isQueryServer(entry.getValue())) {
+        enabledServerInstanceMap.put(entry.getKey(), entry.getValue());
+      }
+    }
+    ServerInstance[] partitionServers = new ServerInstance[numPartitions];
+    Map<ServerInstance, Integer> numPartitionsPerServer = new LinkedHashMap<>();
+    for (int partitionId = 0; partitionId < numPartitions; partitionId++) {
+      Set<String> candidates = new TreeSet<>(enabledServerInstanceMap.keySet());
+      boolean hasSegments = false;
+      for (int i = 0; i < numTables; i++) {
+        if (!segmentsByPartitionList.get(i).get(partitionId).isEmpty()) {
+          candidates.retainAll(
+              tablePartitionInfoList.get(i).getPartitionInfoMap()[partitionId].getFullyReplicatedServers());
+          hasSegments = true;
+        }
+      }
+      if (!hasSegments) {
+        continue;
+      }
+      ServerInstance partitionServer = null;
+      int minNumPartitions = Integer.MAX_VALUE;
+      for (String candidate : candidates) {
+        ServerInstance serverInstance = enabledServerInstanceMap.get(candidate);
+        int numAssignedPartitions = numPartitionsPerServer.getOrDefault(serverInstance, 0);
+        if (numAssignedPartitions < minNumPartitions) {
+          partitionServer = serverInstance;
+          minNumPartitions = numAssignedPartitions;
+        }
+      }
+      if (partitionServer == null) {
+        return false;
+      }
+      partitionServers[partitionId] = partitionServer;
+      numPartitionsPerServer.merge(partitionServer, 1, Integer::sum);
+    }
+
+    for (int i = 0; i < numTables; i++) {
+      Map<ServerInstance, Map<String, List<String>>> serverInstanceToSegmentsMap = new HashMap<>();
+      List<List<String>> segmentsByPartition = segmentsByPartitionList.get(i);
+      for (int partitionId = 0; partitionId < numPartitions; partitionId++) {
+        List<String> segments = segmentsByPartition.get(partitionId);
+        if (!segments.isEmpty()) {
+          serverInstanceToSegmentsMap.computeIfAbsent(partitionServers[partitionId], k -> new HashMap<>())
+              .computeIfAbsent(tableTypes[i], k -> new ArrayList<>()).addAll(segments);
+        }
+      }
+      StageMetadata tableScanStageMetadata = tableScanStageMetadataList.get(i);
+      tableScanStageMetadata.setServerInstances(new ArrayList<>(serverInstanceToSegmentsMap.keySet()));
+      tableScanStageMetadata.setServerInstanceToSegmentsMap(serverInstanceToSegmentsMap);
+    }
+    for (StageMetadata stageMetadata : stageMetadataList) {
+      stageMetadata.setServerInstances(new ArrayList<>(numPartitionsPerServer.keySet()));
+    }
+    return true;
+  }
+
   private static List<ServerInstance> filterServers(Collection<ServerInstance> servers) {
     List<ServerInstance> serverInstances = new ArrayList<>();
     for (ServerInstance server : servers) {
-      String hostname = server.getHostname();
-      if (server.getQueryServicePort() > 0 && server.getQueryMailboxPort() > 0
-          && !hostname.startsWith(CommonConstants.Helix.PREFIX_OF_BROKER_INSTANCE)
-          && !hostname.startsWith(CommonConstants.Helix.PREFIX_OF_CONTROLLER_INSTANCE)
-          && !hostname.startsWith(CommonConstants.Helix.PREFIX_OF_MINION_INSTANCE)) {
+      if (isQueryServer(server)) {
         serverInstances.add(server);
       }
     }
     return serverInstances;
   }
 
+  private static boolean isQueryServer(ServerInstance server) {
+    String hostname = server.getHostname();
+    return server.getQueryServicePort() > 0 && server.getQueryMailboxPort() > 0
+        && !hostname.startsWith(CommonConstants.Helix.PREFIX_OF_BROKER_INSTANCE)
+        && !hostname.startsWith(CommonConstants.Helix.PREFIX_OF_CONTROLLER_INSTANCE)
+        && !hostname.startsWith(CommonConstants.Helix.PREFIX_OF_MINION_INSTANCE);
+  }
+
   /**
    * Acquire routing table for items listed in {@link org.apache.pinot.query.planner.stage.TableScanNode}.
    *
@@ -19,6 +19,8 @@
 package org.apache.pinot.query;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -26,11 +28,18 @@ import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import org.apache.calcite.jdbc.CalciteSchemaBuilder;
 import org.apache.calcite.rel.RelDistribution;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.pinot.core.routing.RoutingManager;
+import org.apache.pinot.core.routing.TablePartitionInfo;
+import org.apache.pinot.core.routing.TablePartitionInfo.PartitionInfo;
 import org.apache.pinot.core.transport.ServerInstance;
+import org.apache.pinot.query.catalog.PinotCatalog;
 import org.apache.pinot.query.planner.PlannerUtils;
 import org.apache.pinot.query.planner.QueryPlan;
 import org.apache.pinot.query.planner.StageMetadata;
+import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.stage.AbstractStageNode;
 import org.apache.pinot.query.planner.stage.AggregateNode;
 import org.apache.pinot.query.planner.stage.FilterNode;
@@ -38,10 +47,17 @@ import org.apache.pinot.query.planner.stage.JoinNode;
 import org.apache.pinot.query.planner.stage.MailboxReceiveNode;
 import org.apache.pinot.query.planner.stage.ProjectNode;
 import org.apache.pinot.query.planner.stage.StageNode;
+import org.apache.pinot.query.planner.stage.TableScanNode;
+import org.apache.pinot.query.planner.stage.WindowNode;
+import org.apache.pinot.query.routing.WorkerManager;
+import org.apache.pinot.query.type.TypeFactory;
+import org.apache.pinot.query.type.TypeSystem;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import static org.mockito.Mockito.when;
+
 
 public class QueryCompilationTest extends QueryEnvironmentTestBase {
 
@@ -152,6 +168,48 @@ public class QueryCompilationTest extends QueryEnvironmentTestBase {
     }
   }
 
+  @Test
+  public void testQueryAggregatePushDownBelowJoin() {
+    String query = "SELECT a.col1, SUM(b.col3), COUNT(*) FROM a JOIN b ON a.col1 = b.col2 GROUP BY a.col1";
+    QueryPlan queryPlan = _queryEnvironment.planQuery(query);
+    List<StageNode> leafStageRoots =
+        queryPlan.getStageMetadataMap().entrySet().stream().filter(e -> e.getValue().getScannedTables().size() == 1)
+            .map(e -> queryPlan.getQueryStageMap().get(e.getKey())).collect(Collectors.toList());
+    Assert.assertEquals(leafStageRoots.size(), 2);
+    // Assert that both table scan stages compute partial aggregates, so that only the groups are shipped to the join.
+    for (StageNode root : leafStageRoots) {
+      Assert.assertTrue(containsNodeType(root, AggregateNode.class));
+    }
+  }
+
+  @Test
+  public void testQueryWindowAggregateCompilation() {
+    String query = "SELECT col1, MAX(ts) OVER (PARTITION BY col1 ORDER BY col3 DESC NULLS LAST ROWS BETWEEN 2 "
+        + "PRECEDING AND 1 FOLLOWING) FROM a";
+    QueryPlan queryPlan = _queryEnvironment.planQuery(query);
+    WindowNode windowNode = null;
+    for (StageNode stageRoot : queryPlan.getQueryStageMap().values()) {
+      WindowNode node = findNode(stageRoot, WindowNode.class);
+      if (node != null) {
+        // window is computed in an intermediate stage, with the input hash distributed on the partition key
+        Assert.assertNull(findNode(stageRoot, TableScanNode.class));
+        MailboxReceiveNode receiveNode = (MailboxReceiveNode) node.getInputs().get(0);
+        Assert.assertEquals(receiveNode.getExchangeType(), RelDistribution.Type.HASH_DISTRIBUTED);
+        windowNode = node;
+      }
+    }
+    Assert.assertNotNull(windowNode);
+    Assert.assertEquals(windowNode.getGroupSet().size(), 1);
+    Assert.assertEquals(windowNode.getOrderSet().size(), 1);
+    Assert.assertEquals(windowNode.getOrderSetDirection(), ImmutableList.of(RelFieldCollation.Direction.DESCENDING));
+    Assert.assertEquals(windowNode.getOrderSetNullDirection(),
+        ImmutableList.of(RelFieldCollation.NullDirection.LAST));
+    Assert.assertEquals(((RexExpression.FunctionCall) windowNode.getAggCalls().get(0)).getFunctionName(), "MAX");
+    Assert.assertTrue(windowNode.isRows());
+    Assert.assertEquals(windowNode.getLowerBound(), -2);
+    Assert.assertEquals(windowNode.getUpperBound(), 1);
+  }
+
   @Test
   public void testQueryRoutingManagerCompilation() {
     String query = "SELECT * FROM d_OFFLINE";
@@ -177,6 +235,61 @@ public class QueryCompilationTest extends QueryEnvironmentTestBase {
     Assert.assertEquals(tableScanMetadataList.get(0).getServerInstances().size(), 2);
   }
 
+  @Test
+  public void testColocatedJoinCompilation() {
+    // a and b are both partitioned on col1 into 2 partitions. partition 0 (a1, a3, b1) can only be processed on
+    // server 1 which hosts b1, partition 1 (a2) can be processed on any server.
+    RoutingManager routingManager = QueryEnvironmentTestUtils.getMockRoutingManager(1, 2);
+    when(routingManager.getTablePartitionInfo("a_REALTIME")).thenReturn(
+        new TablePartitionInfo("a_REALTIME", "col1", "Murmur", 2, new PartitionInfo[]{
+            new PartitionInfo(ImmutableSet.of("localhost_1", "localhost_2"), ImmutableList.of("a1", "a3")),
+            new PartitionInfo(ImmutableSet.of("localhost_1", "localhost_2"), ImmutableList.of("a2"))
+        }, ImmutableList.of()));
+    when(routingManager.getTablePartitionInfo("b_REALTIME")).thenReturn(
+        new TablePartitionInfo("b_REALTIME", "col1", "murmur", 2, new PartitionInfo[]{
+            new PartitionInfo(ImmutableSet.of("localhost_1"), ImmutableList.of("b1")),
+            new PartitionInfo(ImmutableSet.of(), ImmutableList.of())
+        }, ImmutableList.of()));
+    QueryEnvironment queryEnvironment = new QueryEnvironment(new TypeFactory(new TypeSystem()),
+        CalciteSchemaBuilder.asRootSchema(new PinotCatalog(QueryEnvironmentTestUtils.mockTableCache())),
+        new WorkerManager("localhost", 3, routingManager));
+
+    QueryPlan queryPlan = queryEnvironment.planQuery("SELECT * FROM a JOIN b ON a.col1 = b.col1");
+    JoinNode joinNode = findJoinNode(queryPlan);
+    Assert.assertNotNull(joinNode);
+    for (StageNode input : joinNode.getInputs()) {
+      Assert.assertEquals(((MailboxReceiveNode) input).getExchangeType(), RelDistribution.Type.SINGLETON);
+    }
+    Map<Integer, StageMetadata> stageMetadataMap = queryPlan.getStageMetadataMap();
+    Assert.assertEquals(stageMetadataMap.get(joinNode.getStageId()).getServerInstances().stream()
+        .map(ServerInstance::toString).sorted().collect(Collectors.toList()),
+        ImmutableList.of("Server_localhost_1", "Server_localhost_2"));
+    for (StageMetadata stageMetadata : stageMetadataMap.values()) {
+      if (stageMetadata.getScannedTables().size() != 1) {
+        continue;
+      }
+      Map<String, List<String>> serverToSegmentsMap = new HashMap<>();
+      stageMetadata.getServerInstanceToSegmentsMap().forEach(
+          (server, tableTypeToSegmentsMap) -> serverToSegmentsMap.put(server.toString(),
+              tableTypeToSegmentsMap.get("REALTIME").stream().sorted().collect(Collectors.toList())));
+      if (stageMetadata.getScannedTables().get(0).equals("a")) {
+        Assert.assertEquals(serverToSegmentsMap,
+            ImmutableMap.of("Server_localhost_1", ImmutableList.of("a1", "a3"), "Server_localhost_2",
+                ImmutableList.of("a2")));
+      } else {
+        Assert.assertEquals(serverToSegmentsMap, ImmutableMap.of("Server_localhost_1", ImmutableList.of("b1")));
+      }
+    }
+
+    // b is not partitioned on col2, so the join inputs are shuffled
+    queryPlan = queryEnvironment.planQuery("SELECT * FROM a JOIN b ON a.col1 = b.col2");
+    joinNode = findJoinNode(queryPlan);
+    Assert.assertNotNull(joinNode);
+    for (StageNode input : joinNode.getInputs()) {
+      Assert.assertEquals(((MailboxReceiveNode) input).getExchangeType(), RelDistribution.Type.HASH_DISTRIBUTED);
+    }
+  }
+
   // Test that plan query can be run as multi-thread.
   @Test
   public void testPlanQueryMultiThread()
@@ -238,6 +351,54 @@ public class QueryCompilationTest extends QueryEnvironmentTestBase {
     }
   }
 
+  private static JoinNode findJoinNode(QueryPlan queryPlan) {
+    for (StageNode stageRoot : queryPlan.getQueryStageMap().values()) {
+      JoinNode joinNode = findJoinNode(stageRoot);
+      if (joinNode != null) {
+        return joinNode;
+      }
+    }
+    return null;
+  }
+
+  private static JoinNode findJoinNode(StageNode node) {
+    if (node instanceof JoinNode) {
+      return (JoinNode) node;
+    }
+    for (StageNode child : node.getInputs()) {
+      JoinNode joinNode = findJoinNode(child);
+      if (joinNode != null) {
+        return joinNode;
+      }
+    }
+    return null;
+  }
+
+  private static <T extends StageNode> T findNode(StageNode node, Class<T> nodeType) {
+    if (nodeType.isInstance(node)) {
+      return nodeType.cast(node);
+    }
+    for (StageNode child : node.getInputs()) {
+      T result = findNode(child, nodeType);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  private static boolean containsNodeType(StageNode node, Class<? extends AbstractStageNode> nodeType) {
+    if (node.getClass() == nodeType) {
+      return true;
+    }
+    for (StageNode child : node.getInputs()) {
+      if (containsNodeType(child, nodeType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private static boolean isOneOf(List<Class<? extends AbstractStageNode>> allowedNodeTypes,
       StageNode node) {
     for (Class<? extends AbstractStageNode> allowedNodeType : allowedNodeTypes) {
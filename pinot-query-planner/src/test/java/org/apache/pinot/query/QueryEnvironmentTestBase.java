@@ -69,6 +69,11 @@ public class QueryEnvironmentTestBase {
             + " WHERE a.col3 >= 0 GROUP BY a.col2, a.col3"},
         new Object[]{"SELECT a.col1, b.col2 FROM a JOIN b ON a.col1 = b.col1 WHERE a.col2 IN ('foo', 'bar') AND"
             + " b.col2 NOT IN ('alice', 'charlie')"},
+        new Object[]{"SELECT col1, ROW_NUMBER() OVER (PARTITION BY col1 ORDER BY ts) FROM a"},
+        new Object[]{"SELECT col1, SUM(col3) OVER (PARTITION BY col1 ORDER BY ts ROWS BETWEEN 2 PRECEDING AND "
+            + "CURRENT ROW), AVG(col3) OVER (PARTITION BY col1 ORDER BY ts ROWS BETWEEN 2 PRECEDING AND CURRENT ROW) "
+            + "FROM a"},
+        new Object[]{"SELECT a.col1, MAX(b.col3) OVER (PARTITION BY a.col2) FROM a JOIN b ON a.col1 = b.col1"},
     };
   }
 }
@@ -18,7 +18,9 @@
  */
 package org.apache.pinot.query;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import java.io.IOException;
 import java.net.ServerSocket;
@@ -31,6 +33,8 @@ import org.apache.pinot.common.config.provider.TableCache;
 import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.core.routing.RoutingManager;
 import org.apache.pinot.core.routing.RoutingTable;
+import org.apache.pinot.core.routing.TablePartitionInfo;
+import org.apache.pinot.core.routing.TablePartitionInfo.PartitionInfo;
 import org.apache.pinot.core.routing.TimeBoundaryInfo;
 import org.apache.pinot.core.transport.ServerInstance;
 import org.apache.pinot.query.catalog.PinotCatalog;
@@ -56,11 +60,21 @@ import static org.mockito.Mockito.when;
 public class QueryEnvironmentTestUtils {
   public static final Schema.SchemaBuilder SCHEMA_BUILDER;
   public static final Map<String, List<String>> SERVER1_SEGMENTS =
-      ImmutableMap.of("a", Lists.newArrayList("a1", "a2"), "b", Lists.newArrayList("b1"), "c",
-          Lists.newArrayList("c1"), "d_O", Lists.newArrayList("d1"));
+      ImmutableMap.<String, List<String>>builder().put("a", Lists.newArrayList("a1", "a2"))
+          .put("b", Lists.newArrayList("b1")).put("c", Lists.newArrayList("c1")).put("d_O", Lists.newArrayList("d1"))
+          .put("e", Lists.newArrayList("e1")).put("f", Lists.newArrayList("f1")).build();
   public static final Map<String, List<String>> SERVER2_SEGMENTS =
-      ImmutableMap.of("a", Lists.newArrayList("a3"), "c", Lists.newArrayList("c2", "c3"),
-          "d_R", Lists.newArrayList("d2"), "d_O", Lists.newArrayList("d3"));
+      ImmutableMap.<String, List<String>>builder().put("a", Lists.newArrayList("a3"))
+          .put("c", Lists.newArrayList("c2", "c3")).put("d_R", Lists.newArrayList("d2"))
+          .put("d_O", Lists.newArrayList("d3")).put("e", Lists.newArrayList("e2")).put("f", Lists.newArrayList("f2"))
+          .build();
+
+  // e and f are partitioned on col1, the segments on server 1 only hold partition 0 and the ones on server 2 only hold
+  // partition 1.
+  public static final String PARTITION_COLUMN = "col1";
+  public static final String PARTITION_FUNCTION = "Murmur";
+  public static final int NUM_PARTITIONS = 2;
+  public static final Map<String, Integer> SEGMENT_PARTITION_MAP = ImmutableMap.of("e1", 0, "e2", 1, "f1", 0, "f2", 1);
 
   public static final Map<String, String> TABLE_NAME_MAP;
   public static final Map<String, Schema> SCHEMA_NAME_MAP;
@@ -72,13 +86,16 @@ public class QueryEnvironmentTestUtils {
         .addDateTime("ts", FieldSpec.DataType.LONG, "1:MILLISECONDS:EPOCH", "1:HOURS")
         .addMetric("col3", FieldSpec.DataType.INT, 0)
         .setSchemaName("defaultSchemaName");
-    SCHEMA_NAME_MAP = ImmutableMap.of(
-        "a", SCHEMA_BUILDER.setSchemaName("a").build(),
-        "b", SCHEMA_BUILDER.setSchemaName("b").build(),
-        "c", SCHEMA_BUILDER.setSchemaName("c").build(),
-        "d", SCHEMA_BUILDER.setSchemaName("d").build());
-    TABLE_NAME_MAP = ImmutableMap.of("a_REALTIME", "a", "b_REALTIME", "b", "c_OFFLINE", "c",
-        "d_OFFLINE", "d", "d_REALTIME", "d");
+    SCHEMA_NAME_MAP = ImmutableMap.<String, Schema>builder()
+        .put("a", SCHEMA_BUILDER.setSchemaName("a").build())
+        .put("b", SCHEMA_BUILDER.setSchemaName("b").build())
+        .put("c", SCHEMA_BUILDER.setSchemaName("c").build())
+        .put("d", SCHEMA_BUILDER.setSchemaName("d").build())
+        .put("e", SCHEMA_BUILDER.setSchemaName("e").build())
+        .put("f", SCHEMA_BUILDER.setSchemaName("f").build()).build();
+    TABLE_NAME_MAP = ImmutableMap.<String, String>builder().put("a_REALTIME", "a").put("b_REALTIME", "b")
+        .put("c_OFFLINE", "c").put("d_OFFLINE", "d").put("d_REALTIME", "d").put("e_REALTIME", "e")
+        .put("f_REALTIME", "f").build();
   }
 
   private QueryEnvironmentTestUtils() {
@@ -125,8 +142,16 @@ public class QueryEnvironmentTestUtils {
     when(rtDOffline.getServerInstanceToSegmentsMap()).thenReturn(
         ImmutableMap.of(host1, SERVER1_SEGMENTS.get("d_O"), host2, SERVER2_SEGMENTS.get("d_O")));
     when(rtDRealtime.getServerInstanceToSegmentsMap()).thenReturn(ImmutableMap.of(host2, SERVER2_SEGMENTS.get("d_R")));
-    Map<String, RoutingTable> mockRoutingTableMap = ImmutableMap.of("a", rtA, "b", rtB, "c", rtC,
-        "d_OFFLINE", rtDOffline, "d_REALTIME", rtDRealtime);
+    // partitioned tables
+    RoutingTable rtE = mock(RoutingTable.class);
+    when(rtE.getServerInstanceToSegmentsMap()).thenReturn(
+        ImmutableMap.of(host1, SERVER1_SEGMENTS.get("e"), host2, SERVER2_SEGMENTS.get("e")));
+    RoutingTable rtF = mock(RoutingTable.class);
+    when(rtF.getServerInstanceToSegmentsMap()).thenReturn(
+        ImmutableMap.of(host1, SERVER1_SEGMENTS.get("f"), host2, SERVER2_SEGMENTS.get("f")));
+    Map<String, RoutingTable> mockRoutingTableMap = ImmutableMap.<String, RoutingTable>builder().put("a", rtA)
+        .put("b", rtB).put("c", rtC).put("d_OFFLINE", rtDOffline).put("d_REALTIME", rtDRealtime).put("e", rtE)
+        .put("f", rtF).build();
 
     RoutingManager mock = mock(RoutingManager.class);
     when(mock.getRoutingTable(any())).thenAnswer(invocation -> {
@@ -141,6 +166,15 @@ public class QueryEnvironmentTestUtils {
       return "d_OFFLINE".equals(offlineTableName) ? new TimeBoundaryInfo("ts",
           String.valueOf(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1))) : null;
     });
+    for (String tableName : new String[]{"e", "f"}) {
+      String tableNameWithType = TableNameBuilder.REALTIME.tableNameWithType(tableName);
+      when(mock.getTablePartitionInfo(tableNameWithType)).thenReturn(
+          new TablePartitionInfo(tableNameWithType, PARTITION_COLUMN, PARTITION_FUNCTION, NUM_PARTITIONS,
+              new PartitionInfo[]{
+                  new PartitionInfo(ImmutableSet.of(server1), SERVER1_SEGMENTS.get(tableName)),
+                  new PartitionInfo(ImmutableSet.of(server2), SERVER2_SEGMENTS.get(tableName))
+              }, ImmutableList.of()));
+    }
     return mock;
   }
 
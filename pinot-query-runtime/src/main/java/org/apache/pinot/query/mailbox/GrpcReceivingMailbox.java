@@ -21,7 +21,6 @@ package org.apache.pinot.query.mailbox;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.datablock.BaseDataBlock;
@@ -37,13 +36,13 @@ import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
  * GRPC implementation of the {@link ReceivingMailbox}.
  */
 public class GrpcReceivingMailbox implements ReceivingMailbox<TransferableBlock> {
-  private static final long DEFAULT_MAILBOX_INIT_TIMEOUT = 100L;
   private final GrpcMailboxService _mailboxService;
   private final String _mailboxId;
   private final CountDownLatch _initializationLatch;
   private final AtomicInteger _totalMsgReceived = new AtomicInteger(0);
 
-  private MailboxContentStreamObserver _contentStreamObserver;
+  private volatile MailboxContentStreamObserver _contentStreamObserver;
+  private volatile Runnable _dataAvailableListener;
 
   public GrpcReceivingMailbox(String mailboxId, GrpcMailboxService mailboxService) {
     _mailboxService = mailboxService;
@@ -58,24 +57,47 @@ public class GrpcReceivingMailbox implements ReceivingMailbox<TransferableBlock>
     }
   }
 
+  @Override
+  public void setDataAvailableListener(Runnable listener) {
+    _dataAvailableListener = listener;
+  }
+
+  /**
+   * Invoked by the {@link MailboxContentStreamObserver} when new content arrives or the stream gets completed.
+   */
+  public void notifyDataAvailable() {
+    Runnable listener = _dataAvailableListener;
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
   /**
    * Polls the underlying channel and converts the received data into a TransferableBlock. This may return null in the
    * following cases:
    *
    * <p>
    *  1. If the mailbox hasn't initialized yet. This means we haven't received any data yet.
-   *  2. If the received block from the sender is a data-block with 0 rows.
+   *  2. If there is no data buffered in the channel yet.
    * </p>
+   * Data-blocks with 0 rows are skipped.
    */
+  @Nullable
   @Override
   public TransferableBlock receive()
       throws Exception {
-    if (!waitForInitialize()) {
+    if (!isInitialized()) {
       return null;
     }
-    MailboxContent mailboxContent = _contentStreamObserver.poll();
-    _totalMsgReceived.incrementAndGet();
-    return fromMailboxContent(mailboxContent);
+    MailboxContent mailboxContent;
+    while ((mailboxContent = _contentStreamObserver.poll()) != null) {
+      _totalMsgReceived.incrementAndGet();
+      TransferableBlock block = fromMailboxContent(mailboxContent);
+      if (block != null) {
+        return block;
+      }
+    }
+    return null;
   }
 
   @Override
@@ -88,16 +110,6 @@ public class GrpcReceivingMailbox implements ReceivingMailbox<TransferableBlock>
     return isInitialized() && _contentStreamObserver.isCompleted();
   }
 
-  // TODO: fix busy wait. This should be guarded by timeout.
-  private boolean waitForInitialize()
-      throws Exception {
-    if (_initializationLatch.getCount() > 0) {
-      return _initializationLatch.await(DEFAULT_MAILBOX_INIT_TIMEOUT, TimeUnit.MILLISECONDS);
-    } else {
-      return true;
-    }
-  }
-
   @Override
   public String getMailboxId() {
     return _mailboxId;
@@ -42,7 +42,8 @@ public class GrpcSendingMailbox implements SendingMailbox<TransferableBlock> {
   private final AtomicBoolean _initialized = new AtomicBoolean(false);
   private final AtomicInteger _totalMsgSent = new AtomicInteger(0);
 
-  private MailboxStatusStreamObserver _statusStreamObserver;
+  private volatile MailboxStatusStreamObserver _statusStreamObserver;
+  private volatile Runnable _capacityAvailableListener;
 
   public GrpcSendingMailbox(String mailboxId, GrpcMailboxService mailboxService) {
     _mailboxService = mailboxService;
@@ -54,8 +55,11 @@ public class GrpcSendingMailbox implements SendingMailbox<TransferableBlock> {
       throws UnsupportedOperationException {
     ManagedChannel channel = _mailboxService.getChannel(_mailboxId);
     PinotMailboxGrpc.PinotMailboxStub stub = PinotMailboxGrpc.newStub(channel);
-    _statusStreamObserver = new MailboxStatusStreamObserver();
-    _statusStreamObserver.init(stub.open(_statusStreamObserver));
+    MailboxStatusStreamObserver statusStreamObserver = new MailboxStatusStreamObserver();
+    statusStreamObserver.init(stub.open(statusStreamObserver));
+    _statusStreamObserver = statusStreamObserver;
+    // the listener might be set concurrently, so it is applied after the observer is published.
+    statusStreamObserver.setCreditAvailableListener(_capacityAvailableListener);
     // send a begin-of-stream message.
     _statusStreamObserver.send(MailboxContent.newBuilder()
         .setMailboxId(_mailboxId)
@@ -65,17 +69,38 @@ public class GrpcSendingMailbox implements SendingMailbox<TransferableBlock> {
   }
 
   @Override
-  public void send(TransferableBlock block)
+  public void send(TransferableBlock block, long deadlineNs)
       throws UnsupportedOperationException {
     if (!_initialized.get()) {
       // initialization is special
       init();
     }
     MailboxContent data = toMailboxContent(block.getDataBlock());
-    _statusStreamObserver.send(data);
+    try {
+      if (!_statusStreamObserver.send(data, deadlineNs - System.nanoTime())) {
+        throw new RuntimeException(String.format("Timed out waiting for credits to send block in mailbox=%s",
+            _mailboxId));
+      }
+    } catch (InterruptedException e) {
+      throw new RuntimeException("Interrupted trying to send data through the channel", e);
+    }
     _totalMsgSent.incrementAndGet();
   }
 
+  @Override
+  public boolean hasCapacity() {
+    return !_initialized.get() || _statusStreamObserver.getAvailableCredits() > 0;
+  }
+
+  @Override
+  public void setCapacityAvailableListener(Runnable listener) {
+    _capacityAvailableListener = listener;
+    MailboxStatusStreamObserver statusStreamObserver = _statusStreamObserver;
+    if (statusStreamObserver != null) {
+      statusStreamObserver.setCreditAvailableListener(listener);
+    }
+  }
+
   @Override
   public void complete() {
     _statusStreamObserver.complete();
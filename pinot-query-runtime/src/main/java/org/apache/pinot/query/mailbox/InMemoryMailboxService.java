@@ -30,8 +30,6 @@ public class InMemoryMailboxService implements MailboxService<TransferableBlock>
   private final String _hostname;
   private final int _mailboxPort;
   static final int DEFAULT_CHANNEL_CAPACITY = 5;
-  // TODO: This should come from a config and should be consistent with the timeout for GrpcMailboxService
-  static final int DEFAULT_CHANNEL_TIMEOUT_SECONDS = 1;
 
   private final ConcurrentHashMap<String, InMemoryMailboxState> _mailboxStateMap = new ConcurrentHashMap<>();
 
@@ -72,8 +70,9 @@ public class InMemoryMailboxService implements MailboxService<TransferableBlock>
 
   InMemoryMailboxState newMailboxState(String mailboxId) {
     BlockingQueue<TransferableBlock> queue = createDefaultChannel();
-    return new InMemoryMailboxState(new InMemorySendingMailbox(mailboxId, queue),
-        new InMemoryReceivingMailbox(mailboxId, queue), queue);
+    InMemoryReceivingMailbox receivingMailbox = new InMemoryReceivingMailbox(mailboxId, queue);
+    return new InMemoryMailboxState(new InMemorySendingMailbox(mailboxId, queue, receivingMailbox), receivingMailbox,
+        queue);
   }
 
   private ArrayBlockingQueue<TransferableBlock> createDefaultChannel() {
@@ -19,7 +19,7 @@
 package org.apache.pinot.query.mailbox;
 
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 
 
@@ -27,6 +27,8 @@ public class InMemoryReceivingMailbox implements ReceivingMailbox<TransferableBl
   private final String _mailboxId;
   private final BlockingQueue<TransferableBlock> _queue;
   private volatile boolean _closed;
+  private volatile Runnable _dataAvailableListener;
+  private volatile Runnable _capacityAvailableListener;
 
   public InMemoryReceivingMailbox(String mailboxId, BlockingQueue<TransferableBlock> queue) {
     _mailboxId = mailboxId;
@@ -39,21 +41,47 @@ public class InMemoryReceivingMailbox implements ReceivingMailbox<TransferableBl
     return _mailboxId;
   }
 
+  @Nullable
   @Override
   public TransferableBlock receive()
       throws Exception {
-    TransferableBlock block = _queue.poll(
-        InMemoryMailboxService.DEFAULT_CHANNEL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-    // If the poll timed out, we return a null since MailboxReceiveOperator can continue to check other mailboxes
+    TransferableBlock block = _queue.poll();
+    // If there is no data yet, we return a null since MailboxReceiveOperator can continue to check other mailboxes
     if (block == null) {
       return null;
     }
+    Runnable capacityAvailableListener = _capacityAvailableListener;
+    if (capacityAvailableListener != null) {
+      capacityAvailableListener.run();
+    }
     if (block.isEndOfStreamBlock()) {
       _closed = true;
     }
     return block;
   }
 
+  @Override
+  public void setDataAvailableListener(Runnable listener) {
+    _dataAvailableListener = listener;
+  }
+
+  /**
+   * Set by the {@link InMemorySendingMailbox} to get notified once a block is taken out of the channel.
+   */
+  void setCapacityAvailableListener(Runnable listener) {
+    _capacityAvailableListener = listener;
+  }
+
+  /**
+   * Invoked by the {@link InMemorySendingMailbox} after a block is put into the channel.
+   */
+  void notifyDataAvailable() {
+    Runnable listener = _dataAvailableListener;
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
   @Override
   public boolean isInitialized() {
     return true;
@@ -26,10 +26,13 @@ import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 public class InMemorySendingMailbox implements SendingMailbox<TransferableBlock> {
   private final BlockingQueue<TransferableBlock> _queue;
   private final String _mailboxId;
+  private final InMemoryReceivingMailbox _receivingMailbox;
 
-  public InMemorySendingMailbox(String mailboxId, BlockingQueue<TransferableBlock> queue) {
+  public InMemorySendingMailbox(String mailboxId, BlockingQueue<TransferableBlock> queue,
+      InMemoryReceivingMailbox receivingMailbox) {
     _mailboxId = mailboxId;
     _queue = queue;
+    _receivingMailbox = receivingMailbox;
   }
 
   @Override
@@ -38,18 +41,30 @@ public class InMemorySendingMailbox implements SendingMailbox<TransferableBlock>
   }
 
   @Override
-  public void send(TransferableBlock data)
+  public void send(TransferableBlock data, long deadlineNs)
       throws UnsupportedOperationException {
     try {
-      if (!_queue.offer(
-          data, InMemoryMailboxService.DEFAULT_CHANNEL_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      // The channel is bounded, so a sender faster than the receiver is blocked here until the receiver catches up, or
+      // the query times out.
+      if (!_queue.offer(data, deadlineNs - System.nanoTime(), TimeUnit.NANOSECONDS)) {
         throw new RuntimeException(String.format("Timed out when sending block in mailbox=%s", _mailboxId));
       }
+      _receivingMailbox.notifyDataAvailable();
     } catch (InterruptedException e) {
       throw new RuntimeException("Interrupted trying to send data through the channel", e);
     }
   }
 
+  @Override
+  public boolean hasCapacity() {
+    return _queue.remainingCapacity() > 0;
+  }
+
+  @Override
+  public void setCapacityAvailableListener(Runnable listener) {
+    _receivingMailbox.setCapacityAvailableListener(listener);
+  }
+
   @Override
   public void complete() {
   }
@@ -18,6 +18,9 @@
  */
 package org.apache.pinot.query.mailbox;
 
+import javax.annotation.Nullable;
+
+
 /**
  * Mailbox is used to send and receive data.
  *
@@ -35,14 +38,26 @@ public interface ReceivingMailbox<T> {
   String getMailboxId();
 
   /**
-   * Receive a data packet from the mailbox. Depending on the implementation, this may return null. The caller should
-   * use {@link ReceivingMailbox#isClosed()} to determine if the sender is done sending and the channel is closed.
+   * Receive a data packet from the mailbox. This is non-blocking and returns null when no data is available yet. The
+   * caller should use {@link ReceivingMailbox#isClosed()} to determine if the sender is done sending and the channel is
+   * closed, and {@link #setDataAvailableListener(Runnable)} to be notified when new data arrives instead of polling.
    * @return data packet.
    * @throws Exception
    */
+  @Nullable
   T receive()
       throws Exception;
 
+  /**
+   * Set the listener invoked whenever new data arrives in the mailbox or the mailbox gets closed. The listener might be
+   * invoked from the sender or network threads, so it should be cheap and must not block.
+   *
+   * <p>Data might have arrived before the listener is set, so the caller should call {@link #receive()} after setting
+   * the listener.
+   * @param listener listener to invoke.
+   */
+  void setDataAvailableListener(Runnable listener);
+
   /**
    * Check if receiving mailbox is initialized.
    * @return
@@ -18,6 +18,9 @@
  */
 package org.apache.pinot.query.mailbox;
 
+import org.apache.pinot.query.service.QueryConfig;
+
+
 /**
  * Mailbox is used to send and receive data.
  *
@@ -35,13 +38,40 @@ public interface SendingMailbox<T> {
   String getMailboxId();
 
   /**
-   * send a data packet through the mailbox.
+   * send a data packet through the mailbox, waiting for the receiving end to have capacity for at most the default
+   * query timeout.
+   * @param data
+   * @throws UnsupportedOperationException
+   */
+  default void send(T data)
+      throws UnsupportedOperationException {
+    send(data, System.nanoTime() + QueryConfig.DEFAULT_TIMEOUT_NANO);
+  }
+
+  /**
+   * send a data packet through the mailbox, waiting for the receiving end to have capacity until the deadline of the
+   * query.
    * @param data
+   * @param deadlineNs deadline of the query, in terms of {@link System#nanoTime()}.
    * @throws UnsupportedOperationException
    */
-  void send(T data)
+  void send(T data, long deadlineNs)
       throws UnsupportedOperationException;
 
+  /**
+   * Returns whether the receiving end can accept at least one more data packet, i.e. {@link #send(Object)} won't be
+   * blocked by the backpressure of the receiver.
+   * @return true if the mailbox has capacity for one more data packet.
+   */
+  boolean hasCapacity();
+
+  /**
+   * Set the listener invoked whenever the receiving end frees up capacity for the sender. The listener might be
+   * invoked from the receiver or network threads, so it should be cheap and must not block.
+   * @param listener listener to invoke.
+   */
+  void setCapacityAvailableListener(Runnable listener);
+
   /**
    * Complete delivery of the current mailbox.
    */
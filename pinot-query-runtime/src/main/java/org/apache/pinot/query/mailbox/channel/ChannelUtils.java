@@ -21,9 +21,13 @@ package org.apache.pinot.query.mailbox.channel;
 public class ChannelUtils {
 
   public static final String MAILBOX_METADATA_BUFFER_SIZE_KEY = "buffer.size";
+  public static final String MAILBOX_METADATA_CREDIT_KEY = "credit";
   public static final String MAILBOX_METADATA_BEGIN_OF_STREAM_KEY = "begin.of.stream";
   public static final String MAILBOX_METADATA_END_OF_STREAM_KEY = "end.of.stream";
 
+  // number of data packets a sender can send before the receiving end grants more credits.
+  public static final int DEFAULT_MAILBOX_CREDITS = 5;
+
   private ChannelUtils() {
     // do not instantiate.
   }
@@ -21,9 +21,10 @@ package org.apache.pinot.query.mailbox.channel;
 import com.google.protobuf.ByteString;
 import io.grpc.stub.StreamObserver;
 import java.io.IOException;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.proto.Mailbox;
 import org.apache.pinot.query.mailbox.GrpcMailboxService;
 import org.apache.pinot.query.mailbox.GrpcReceivingMailbox;
@@ -37,52 +38,54 @@ import org.slf4j.LoggerFactory;
  * {@code MailboxContentStreamObserver} is the content streaming observer used to receive mailbox content.
  *
  * <p>When the observer onNext() is called (e.g. when data packet has arrived at the receiving end), it puts the
- * mailbox content to the receiving mailbox buffer; response with the remaining buffer size of the receiving mailbox
- * to the sender side.
+ * mailbox content to the receiving mailbox buffer and notifies the receiving mailbox, so that the receiver doesn't
+ * need to poll the buffer.
+ *
+ * <p>The flow control is credit based: the sender starts with {@link ChannelUtils#DEFAULT_MAILBOX_CREDITS} credits and
+ * spends one credit per data packet. Every time the receiver consumes a packet from the buffer, one credit is granted
+ * back to the sender, so the number of packets buffered on the receiving end is bounded.
  */
 public class MailboxContentStreamObserver implements StreamObserver<Mailbox.MailboxContent> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MailboxContentStreamObserver.class);
-  private static final int DEFAULT_MAILBOX_QUEUE_CAPACITY = 5;
-  private static final long DEFAULT_MAILBOX_POLL_TIMEOUT = 1000L;
   private final GrpcMailboxService _mailboxService;
   private final StreamObserver<Mailbox.MailboxStatus> _responseObserver;
   private final boolean _isEnabledFeedback;
 
   private final AtomicBoolean _isCompleted = new AtomicBoolean(false);
+  // Guarded by the lock on _responseObserver, the response stream cannot be used after it is completed.
+  private boolean _isResponseCompleted = false;
   private String _mailboxId;
-  private ArrayBlockingQueue<Mailbox.MailboxContent> _receivingBuffer;
+  private volatile GrpcReceivingMailbox _receivingMailbox;
+  private final Queue<Mailbox.MailboxContent> _receivingBuffer;
 
   public MailboxContentStreamObserver(GrpcMailboxService mailboxService,
       StreamObserver<Mailbox.MailboxStatus> responseObserver) {
-    this(mailboxService, responseObserver, false);
+    this(mailboxService, responseObserver, true);
   }
 
   public MailboxContentStreamObserver(GrpcMailboxService mailboxService,
       StreamObserver<Mailbox.MailboxStatus> responseObserver, boolean isEnabledFeedback) {
     _mailboxService = mailboxService;
     _responseObserver = responseObserver;
-    _receivingBuffer = new ArrayBlockingQueue<>(DEFAULT_MAILBOX_QUEUE_CAPACITY);
+    // The buffer is bounded by the credits granted to the sender, not by the queue itself.
+    _receivingBuffer = new ConcurrentLinkedQueue<>();
     _isEnabledFeedback = isEnabledFeedback;
   }
 
   /**
-   * This method may return null. It can happen if there's a large enough gap between the time the receiver received
-   * the last block and the StreamObserver was detected as complete. In that case, the MailboxReceiveOperator would
-   * try to call this method again but since there's no new content to be received, we'll exit the loop. Returning
-   * null here means that MailboxReceiveOperator won't consider this as an error.
+   * Polls the next content from the buffer without blocking. This returns null when there is no content buffered yet,
+   * or when the stream has been completed and all the content has been consumed. Returning null here means that
+   * MailboxReceiveOperator won't consider this as an error.
    */
+  @Nullable
   public Mailbox.MailboxContent poll() {
-    while (!isCompleted()) {
-      try {
-        Mailbox.MailboxContent content = _receivingBuffer.poll(DEFAULT_MAILBOX_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
-        if (content != null) {
-          return content;
-        }
-      } catch (InterruptedException e) {
-        LOGGER.error("Interrupt occurred while waiting for mailbox content", e);
-      }
+    Mailbox.MailboxContent content = _receivingBuffer.poll();
+    if (content != null && _isEnabledFeedback) {
+      // grants the credit back to the sender so that it can send the next data packet.
+      sendStatus(Mailbox.MailboxStatus.newBuilder().setMailboxId(content.getMailboxId())
+          .putMetadata(ChannelUtils.MAILBOX_METADATA_CREDIT_KEY, "1").build());
     }
-    return null;
+    return content;
   }
 
   public boolean isCompleted() {
@@ -94,25 +97,13 @@ public class MailboxContentStreamObserver implements StreamObserver<Mailbox.Mail
     _mailboxId = mailboxContent.getMailboxId();
     GrpcReceivingMailbox receivingMailbox =
         (GrpcReceivingMailbox) _mailboxService.getReceivingMailbox(new StringMailboxIdentifier(_mailboxId));
+    _receivingMailbox = receivingMailbox;
     receivingMailbox.init(this);
     if (!mailboxContent.getMetadataMap().containsKey(ChannelUtils.MAILBOX_METADATA_BEGIN_OF_STREAM_KEY)) {
       // when the receiving end receives a message put it in the mailbox queue.
       _receivingBuffer.offer(mailboxContent);
-      if (_isEnabledFeedback) {
-        // TODO: this has race conditions with onCompleted() because sender blindly closes connection channels once
-        // it has finished sending all the data packets.
-        int remainingCapacity = _receivingBuffer.remainingCapacity() - 1;
-        Mailbox.MailboxStatus.Builder builder =
-            Mailbox.MailboxStatus.newBuilder().setMailboxId(mailboxContent.getMailboxId())
-                .putMetadata(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY, String.valueOf(remainingCapacity));
-        if (mailboxContent.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_END_OF_STREAM_KEY) != null) {
-          builder.putMetadata(ChannelUtils.MAILBOX_METADATA_END_OF_STREAM_KEY, "true");
-        }
-        Mailbox.MailboxStatus status = builder.build();
-        // returns the buffer available size to sender for rate controller / throttling.
-        _responseObserver.onNext(status);
-      }
     }
+    receivingMailbox.notifyDataAvailable();
   }
 
   @Override
@@ -122,6 +113,7 @@ public class MailboxContentStreamObserver implements StreamObserver<Mailbox.Mail
           .setPayload(ByteString.copyFrom(
               TransferableBlockUtils.getErrorTransferableBlock(new RuntimeException(e)).getDataBlock().toBytes()))
           .putMetadata(ChannelUtils.MAILBOX_METADATA_END_OF_STREAM_KEY, "true").build());
+      notifyReceivingMailbox();
       throw new RuntimeException(e);
     } catch (IOException ioe) {
       throw new RuntimeException("Unable to encode exception for cascade reporting: " + e, ioe);
@@ -131,6 +123,31 @@ public class MailboxContentStreamObserver implements StreamObserver<Mailbox.Mail
   @Override
   public void onCompleted() {
     _isCompleted.set(true);
-    _responseObserver.onCompleted();
+    synchronized (_responseObserver) {
+      _isResponseCompleted = true;
+      _responseObserver.onCompleted();
+    }
+    notifyReceivingMailbox();
+  }
+
+  private void notifyReceivingMailbox() {
+    GrpcReceivingMailbox receivingMailbox = _receivingMailbox;
+    if (receivingMailbox != null) {
+      receivingMailbox.notifyDataAvailable();
+    }
+  }
+
+  private void sendStatus(Mailbox.MailboxStatus status) {
+    // the content is polled by the operator thread while the stream is completed by the GRPC thread.
+    synchronized (_responseObserver) {
+      if (_isResponseCompleted) {
+        return;
+      }
+      try {
+        _responseObserver.onNext(status);
+      } catch (Exception e) {
+        LOGGER.warn("Failed to send mailbox status for mailbox: {}", _mailboxId, e);
+      }
+    }
   }
 }
@@ -19,8 +19,9 @@
 package org.apache.pinot.query.mailbox.channel;
 
 import io.grpc.stub.StreamObserver;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.pinot.common.proto.Mailbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,15 +34,17 @@ import org.slf4j.LoggerFactory;
  * created based on the opened GRPC connection returned {@link StreamObserver}. From this point, the sending mailbox
  * can use the {@link MailboxStatusStreamObserver#send(Mailbox.MailboxContent)} API to send data packet to the receiving
  * end.
+ *
+ * <p>Sending a data packet requires a credit, which is granted back by the receiving end once the packet is consumed.
+ * When there is no credit available, the sender is blocked until the receiver catches up, or until timed out.
  */
 public class MailboxStatusStreamObserver implements StreamObserver<Mailbox.MailboxStatus> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MailboxStatusStreamObserver.class);
-  private static final int DEFAULT_MAILBOX_QUEUE_CAPACITY = 5;
-  private static final long DEFAULT_MAILBOX_POLL_TIMEOUT_MS = 1000L;
-  private final AtomicInteger _bufferSize = new AtomicInteger(5);
+  private final Semaphore _credits = new Semaphore(ChannelUtils.DEFAULT_MAILBOX_CREDITS);
   private final AtomicBoolean _isCompleted = new AtomicBoolean(false);
 
   private StreamObserver<Mailbox.MailboxContent> _mailboxContentStreamObserver;
+  private volatile Runnable _creditAvailableListener;
 
   public MailboxStatusStreamObserver() {
   }
@@ -50,40 +53,79 @@ public class MailboxStatusStreamObserver implements StreamObserver<Mailbox.Mailb
     _mailboxContentStreamObserver = mailboxContentStreamObserver;
   }
 
+  /**
+   * Sends the data packet without acquiring a credit. This should only be used for control messages.
+   */
   public void send(Mailbox.MailboxContent mailboxContent) {
     _mailboxContentStreamObserver.onNext(mailboxContent);
   }
 
+  /**
+   * Sends the data packet once a credit is available, or returns false if timed out waiting for the credit.
+   */
+  public boolean send(Mailbox.MailboxContent mailboxContent, long timeoutNanos)
+      throws InterruptedException {
+    if (!_credits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+      return false;
+    }
+    if (_isCompleted.get()) {
+      LOGGER.warn("Dropping data packet for mailbox: {} as the stream has been completed",
+          mailboxContent.getMailboxId());
+      return true;
+    }
+    _mailboxContentStreamObserver.onNext(mailboxContent);
+    return true;
+  }
+
+  /**
+   * Set the listener invoked whenever the receiving end grants credits back to the sender.
+   */
+  public void setCreditAvailableListener(Runnable listener) {
+    _creditAvailableListener = listener;
+  }
+
   public void complete() {
     _mailboxContentStreamObserver.onCompleted();
   }
 
+  public int getAvailableCredits() {
+    return _credits.availablePermits();
+  }
+
   @Override
   public void onNext(Mailbox.MailboxStatus mailboxStatus) {
-    // when received a mailbox status from the receiving end, sending end update the known buffer size available
-    // so we can make better throughput send judgement. here is a simple example.
-    // TODO: this feedback info is not used to throttle the send speed. it is currently being discarded.
-    if (mailboxStatus.getMetadataMap().containsKey(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)) {
-      _bufferSize.set(Integer.parseInt(
-          mailboxStatus.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)));
-    } else {
-      _bufferSize.set(DEFAULT_MAILBOX_QUEUE_CAPACITY); // DEFAULT_AVAILABILITY;
+    // when received a mailbox status from the receiving end, the receiver has consumed data packets and grants the
+    // credits back to the sender.
+    String credit = mailboxStatus.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_CREDIT_KEY);
+    if (credit != null) {
+      _credits.release(Integer.parseInt(credit));
+      notifyCreditAvailable();
     }
   }
 
   @Override
   public void onError(Throwable e) {
-    _isCompleted.set(true);
     shutdown();
     throw new RuntimeException(e);
   }
 
   private void shutdown() {
+    if (_isCompleted.compareAndSet(false, true)) {
+      // unblock the sender waiting for credits, there is no receiver to grant them anymore.
+      _credits.release(Integer.MAX_VALUE / 2);
+      notifyCreditAvailable();
+    }
+  }
+
+  private void notifyCreditAvailable() {
+    Runnable listener = _creditAvailableListener;
+    if (listener != null) {
+      listener.run();
+    }
   }
 
   @Override
   public void onCompleted() {
-    _isCompleted.set(true);
     shutdown();
   }
 }
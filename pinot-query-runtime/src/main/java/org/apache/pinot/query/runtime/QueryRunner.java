@@ -20,9 +20,11 @@ package org.apache.pinot.query.runtime;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import org.apache.helix.HelixManager;
 import org.apache.helix.store.zk.ZkHelixPropertyStore;
@@ -45,7 +47,7 @@ import org.apache.pinot.query.mailbox.MultiplexingMailboxService;
 import org.apache.pinot.query.planner.StageMetadata;
 import org.apache.pinot.query.planner.stage.MailboxSendNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
-import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.executor.OpChain;
 import org.apache.pinot.query.runtime.executor.WorkerQueryExecutor;
 import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
 import org.apache.pinot.query.runtime.plan.DistributedStagePlan;
@@ -108,6 +110,10 @@ public class QueryRunner {
 
   public void processQuery(DistributedStagePlan distributedStagePlan, ExecutorService executorService,
       Map<String, String> requestMetadataMap) {
+    // The timeout is relative to when the stage is received, so that it does not depend on the clock of the broker.
+    String timeoutMs = requestMetadataMap.get("TIMEOUT_MS");
+    long deadlineNs = System.nanoTime() + (timeoutMs != null ? TimeUnit.MILLISECONDS.toNanos(Long.parseLong(timeoutMs))
+        : QueryConfig.DEFAULT_TIMEOUT_NANO);
     if (isLeafStage(distributedStagePlan)) {
       // TODO: make server query request return via mailbox, this is a hack to gather the non-streaming data table
       // and package it here for return. But we should really use a MailboxSendOperator directly put into the
@@ -129,13 +135,12 @@ public class QueryRunner {
               new LeafStageTransferableBlockOperator(serverQueryResults, sendNode.getDataSchema()),
               receivingStageMetadata.getServerInstances(), sendNode.getExchangeType(),
               sendNode.getPartitionKeySelector(), _hostname, _port, serverQueryRequests.get(0).getRequestId(),
-              sendNode.getStageId());
-      int blockCounter = 0;
-      while (!TransferableBlockUtils.isEndOfStream(mailboxSendOperator.nextBlock())) {
-        LOGGER.debug("Acquired transferable block: {}", blockCounter++);
-      }
+              sendNode.getStageId(), deadlineNs);
+      _workerExecutor.processOpChain(
+          new OpChain(mailboxSendOperator, Collections.emptyList(), Collections.singletonList(mailboxSendOperator),
+              serverQueryRequests.get(0).getRequestId(), sendNode.getStageId()));
     } else {
-      _workerExecutor.processQuery(distributedStagePlan, requestMetadataMap, executorService);
+      _workerExecutor.processQuery(distributedStagePlan, requestMetadataMap, deadlineNs);
     }
   }
 
@@ -19,6 +19,7 @@
 package org.apache.pinot.query.runtime.blocks;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.util.Collections;
 import java.util.List;
 import org.apache.pinot.common.datablock.BaseDataBlock;
 import org.apache.pinot.common.datablock.ColumnarDataBlock;
@@ -38,10 +39,13 @@ import org.apache.pinot.core.common.datablock.DataBlockBuilder;
  * {@link org.apache.pinot.common.proto.Mailbox}.
  */
 public class TransferableBlock implements Block {
+  static final TransferableBlock NO_OP_BLOCK =
+      new TransferableBlock(Collections.emptyList(), null, BaseDataBlock.Type.ROW, false, true);
 
   private final BaseDataBlock.Type _type;
   private final DataSchema _dataSchema;
   private final boolean _isErrorBlock;
+  private final boolean _isNoOpBlock;
   private final int _numRows;
 
   private BaseDataBlock _dataBlock;
@@ -54,10 +58,16 @@ public class TransferableBlock implements Block {
   @VisibleForTesting
   TransferableBlock(List<Object[]> container, DataSchema dataSchema, BaseDataBlock.Type containerType,
       boolean isErrorBlock) {
+    this(container, dataSchema, containerType, isErrorBlock, false);
+  }
+
+  private TransferableBlock(List<Object[]> container, DataSchema dataSchema, BaseDataBlock.Type containerType,
+      boolean isErrorBlock, boolean isNoOpBlock) {
     _container = container;
     _dataSchema = dataSchema;
     _type = containerType;
     _isErrorBlock = isErrorBlock;
+    _isNoOpBlock = isNoOpBlock;
     _numRows = _container.size();
   }
 
@@ -67,6 +77,7 @@ public class TransferableBlock implements Block {
     _type = dataBlock instanceof ColumnarDataBlock ? BaseDataBlock.Type.COLUMNAR
         : dataBlock instanceof RowDataBlock ? BaseDataBlock.Type.ROW : BaseDataBlock.Type.METADATA;
     _isErrorBlock = !_dataBlock.getExceptions().isEmpty();
+    _isNoOpBlock = false;
     _numRows = _dataBlock.getNumberOfRows();
   }
 
@@ -80,8 +91,10 @@ public class TransferableBlock implements Block {
 
   /**
    * Retrieve the extracted {@link TransferableBlock#_container} of the transferable block.
-   * If not already constructed. It will use {@link DataBlockUtils} to extract the row/columnar data from the
-   * binary-packed format.
+   * If not already constructed. It will use {@link DataBlockUtils} to extract the rows from the binary-packed format.
+   *
+   * <p>Extracting the container materializes every row of the block, operators that don't need all the rows or columns
+   * should work on {@link #getDataBlock()} instead when {@link #isContainerBlock()} returns false.
    *
    * @return data container.
    */
@@ -89,9 +102,9 @@ public class TransferableBlock implements Block {
     if (_container == null) {
       switch (_type) {
         case ROW:
+        case COLUMNAR:
           _container = DataBlockUtils.extractRows(_dataBlock);
           break;
-        case COLUMNAR:
         case METADATA:
         default:
           throw new UnsupportedOperationException("Unable to extract from container with type: " + _type);
@@ -161,11 +174,32 @@ public class TransferableBlock implements Block {
     return _isErrorBlock;
   }
 
-  boolean isContainerBlock() {
+  /**
+   * Return whether a transferable block is a no-op block.
+   * @see TransferableBlockUtils#getNoOpTransferableBlock()
+   *
+   * @return true if the block is a no-op block.
+   */
+  public boolean isNoOpBlock() {
+    return _isNoOpBlock;
+  }
+
+  /**
+   * Return whether the rows of the block are already extracted into the container.
+   *
+   * @return true if the container is constructed.
+   */
+  public boolean isContainerBlock() {
     return _container != null;
   }
 
-  boolean isDataBlock() {
+  /**
+   * Return whether the binary-packed data block is already constructed. A block which has a data block but no
+   * container can be forwarded as-is without materializing its rows.
+   *
+   * @return true if the data block is constructed.
+   */
+  public boolean isDataBlock() {
     return _dataBlock != null;
   }
 
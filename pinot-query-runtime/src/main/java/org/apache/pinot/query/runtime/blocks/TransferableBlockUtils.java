@@ -46,6 +46,19 @@ public final class TransferableBlockUtils {
     return new TransferableBlock(DataBlockUtils.getErrorDataBlock(exceptions));
   }
 
+  /**
+   * Returns the block returned by an operator when it has no data available yet and cannot make progress without
+   * waiting, e.g. the mailboxes it receives from are empty. The caller should yield and call the operator again later
+   * instead of blocking the thread. The no-op block carries no data and is neither an end-of-stream nor an error block.
+   */
+  public static TransferableBlock getNoOpTransferableBlock() {
+    return TransferableBlock.NO_OP_BLOCK;
+  }
+
+  public static boolean isNoOpBlock(TransferableBlock transferableBlock) {
+    return transferableBlock.isNoOpBlock();
+  }
+
   public static boolean isEndOfStream(TransferableBlock transferableBlock) {
     return transferableBlock.isEndOfStreamBlock();
   }
@@ -57,6 +70,9 @@ public final class TransferableBlockUtils {
    *  Metadata data block split is not supported.
    *
    *  When row size is greater than maxBlockSize, we pack each row as a separate block.
+   *
+   *  When the block is already within maxBlockSize, it is returned as-is so that a binary-packed block is forwarded
+   *  without extracting and re-packing its rows.
    */
   public static List<TransferableBlock> splitBlock(TransferableBlock block, BaseDataBlock.Type type, int maxBlockSize) {
     List<TransferableBlock> blockChunks = new ArrayList<>();
@@ -68,6 +84,9 @@ public final class TransferableBlockUtils {
       Preconditions.checkState(numRowsPerChunk > 0, "row size too large for query engine to handle, abort!");
 
       int totalNumRows = block.getNumRows();
+      if (totalNumRows > 0 && totalNumRows <= numRowsPerChunk) {
+        return Collections.singletonList(block);
+      }
       List<Object[]> allRows = block.getContainer();
       int currentRow = 0;
       while (currentRow < totalNumRows) {
@@ -80,8 +99,8 @@ public final class TransferableBlockUtils {
   }
 
   public static Object[] getRow(TransferableBlock transferableBlock, int rowId) {
-    Preconditions.checkState(transferableBlock.getType() == BaseDataBlock.Type.ROW,
-        "TransferableBlockUtils doesn't support get row from non-ROW-based data block type yet!");
+    Preconditions.checkState(transferableBlock.getType() != BaseDataBlock.Type.METADATA,
+        "TransferableBlockUtils doesn't support get row from METADATA data block type!");
     return transferableBlock.getContainer().get(rowId);
   }
 }
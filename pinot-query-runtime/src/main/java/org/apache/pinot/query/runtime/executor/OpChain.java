@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.executor;
+
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.operator.MailboxReceiveOperator;
+import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
+
+
+/**
+ * An {@code OpChain} is the chain of operators of one stage running on one worker, which is executed by the
+ * {@link OpChainSchedulerService} as a resumable task.
+ *
+ * <p>The mailbox operators of the chain are non-blocking: when a mailbox has no data to receive, or no capacity to send
+ * to, the root operator returns a no-op block and the chain yields its thread. The mailbox operators wake the chain up
+ * through the scheduler once it can make progress again.
+ */
+public class OpChain {
+  private final Operator<TransferableBlock> _root;
+  private final List<MailboxReceiveOperator> _receivingOperators;
+  private final List<MailboxSendOperator> _sendingOperators;
+  private final long _requestId;
+  private final int _stageId;
+
+  // Scheduling state, guarded by the lock of the scheduler.
+  OpChainSchedulerService.State _state = OpChainSchedulerService.State.NEW;
+  boolean _isWakeUpPending;
+  ScheduledFuture<?> _recheckFuture;
+  // Accessed only by the thread running the chain.
+  private long _cpuTimeNs;
+  private int _numSlices;
+
+  public OpChain(Operator<TransferableBlock> root, List<MailboxReceiveOperator> receivingOperators,
+      List<MailboxSendOperator> sendingOperators, long requestId, int stageId) {
+    _root = root;
+    _receivingOperators = receivingOperators;
+    _sendingOperators = sendingOperators;
+    _requestId = requestId;
+    _stageId = stageId;
+  }
+
+  public Operator<TransferableBlock> getRoot() {
+    return _root;
+  }
+
+  public long getRequestId() {
+    return _requestId;
+  }
+
+  public int getStageId() {
+    return _stageId;
+  }
+
+  /**
+   * Registers the callback to wake up the chain on all the mailbox operators, which makes them non-blocking.
+   */
+  void setWakeUpCallback(Runnable callback) {
+    for (MailboxReceiveOperator receivingOperator : _receivingOperators) {
+      receivingOperator.setDataAvailableCallback(callback);
+    }
+    for (MailboxSendOperator sendingOperator : _sendingOperators) {
+      sendingOperator.setCapacityAvailableCallback(callback);
+    }
+  }
+
+  void addSlice(long cpuTimeNs) {
+    _cpuTimeNs += cpuTimeNs;
+    _numSlices++;
+  }
+
+  public long getCpuTimeNs() {
+    return _cpuTimeNs;
+  }
+
+  public int getNumSlices() {
+    return _numSlices;
+  }
+
+  @Override
+  public String toString() {
+    return "OpChain{requestId=" + _requestId + ", stageId=" + _stageId + "}";
+  }
+}
@@ -0,0 +1,243 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.executor;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.common.request.context.ThreadTimer;
+import org.apache.pinot.common.utils.NamedThreadFactory;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code OpChainSchedulerService} runs {@link OpChain}s as resumable tasks on a fixed number of worker threads, so
+ * that the number of threads doesn't grow with the number of concurrently running stages.
+ *
+ * <p>A worker thread runs an op chain for one time slice: it keeps pulling blocks from the root operator until the
+ * chain is finished, the chain yields (the root operator returns a no-op block because a mailbox has no data or no
+ * capacity), or the time slice is used up. A yielded chain is parked until one of its mailboxes wakes it up, other
+ * chains are put back to the ready queue.
+ *
+ * <p>The ready op chains are queued per request, and the requests are served in round robin, so a query with many
+ * stages or workers cannot starve the other queries. The thread cpu time spent on each op chain is accounted per op
+ * chain and per request.
+ */
+public class OpChainSchedulerService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(OpChainSchedulerService.class);
+  // Parked op chains are re-checked periodically even without wake-up, so that mailbox timeouts are detected.
+  private static final long RECHECK_INTERVAL_MS = 1000L;
+
+  enum State {
+    NEW, READY, RUNNING, PARKED, DONE
+  }
+
+  private final int _numThreads;
+  private final long _timeSliceNs;
+  private final ExecutorService _workerExecutor;
+  private final ScheduledExecutorService _recheckExecutor;
+
+  private final Object _lock = new Object();
+  // Guarded by _lock.
+  private final Map<Long, ArrayDeque<OpChain>> _readyOpChainsMap = new HashMap<>();
+  private final ArrayDeque<Long> _readyRequestIds = new ArrayDeque<>();
+  private final Map<Long, RequestStats> _requestStatsMap = new HashMap<>();
+  private boolean _isShutDown;
+
+  public OpChainSchedulerService(int numThreads, long timeSliceMs, String threadNamePrefix) {
+    _numThreads = numThreads;
+    _timeSliceNs = TimeUnit.MILLISECONDS.toNanos(timeSliceMs);
+    _workerExecutor = Executors.newFixedThreadPool(numThreads, new NamedThreadFactory(threadNamePrefix));
+    _recheckExecutor =
+        Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(threadNamePrefix + "_recheck"));
+  }
+
+  public void start() {
+    for (int i = 0; i < _numThreads; i++) {
+      _workerExecutor.submit(this::runWorker);
+    }
+    LOGGER.info("Started op chain scheduler with {} worker threads", _numThreads);
+  }
+
+  public void shutDown() {
+    synchronized (_lock) {
+      _isShutDown = true;
+      _lock.notifyAll();
+    }
+    _workerExecutor.shutdownNow();
+    _recheckExecutor.shutdownNow();
+    LOGGER.info("Shut down op chain scheduler");
+  }
+
+  /**
+   * Registers an op chain to be executed. The mailbox operators of the chain are made non-blocking.
+   */
+  public void register(OpChain opChain) {
+    opChain.setWakeUpCallback(() -> wakeUp(opChain));
+    synchronized (_lock) {
+      _requestStatsMap.computeIfAbsent(opChain.getRequestId(), k -> new RequestStats())._numOpChains++;
+      enqueue(opChain);
+    }
+  }
+
+  /**
+   * Wakes up a parked op chain. If the op chain is running, it is re-queued instead of parked after the current time
+   * slice, because the wake-up might be for data arriving after the mailboxes are checked.
+   */
+  void wakeUp(OpChain opChain) {
+    synchronized (_lock) {
+      switch (opChain._state) {
+        case PARKED:
+          if (opChain._recheckFuture != null) {
+            opChain._recheckFuture.cancel(false);
+            opChain._recheckFuture = null;
+          }
+          enqueue(opChain);
+          break;
+        case RUNNING:
+          opChain._isWakeUpPending = true;
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * Returns the thread cpu time spent so far on the op chains of a running request, or -1 if the request is not
+   * running.
+   */
+  public long getCpuTimeNs(long requestId) {
+    synchronized (_lock) {
+      RequestStats requestStats = _requestStatsMap.get(requestId);
+      return requestStats != null ? requestStats._cpuTimeNs : -1L;
+    }
+  }
+
+  private void enqueue(OpChain opChain) {
+    opChain._state = State.READY;
+    ArrayDeque<OpChain> readyOpChains =
+        _readyOpChainsMap.computeIfAbsent(opChain.getRequestId(), k -> new ArrayDeque<>());
+    if (readyOpChains.isEmpty()) {
+      _readyRequestIds.offer(opChain.getRequestId());
+    }
+    readyOpChains.offer(opChain);
+    _lock.notify();
+  }
+
+  private OpChain take()
+      throws InterruptedException {
+    synchronized (_lock) {
+      while (_readyRequestIds.isEmpty()) {
+        if (_isShutDown) {
+          return null;
+        }
+        _lock.wait();
+      }
+      // Take one op chain from the next request, and put the request at the back if it has more ready op chains.
+      long requestId = _readyRequestIds.poll();
+      ArrayDeque<OpChain> readyOpChains = _readyOpChainsMap.get(requestId);
+      OpChain opChain = readyOpChains.poll();
+      if (readyOpChains.isEmpty()) {
+        _readyOpChainsMap.remove(requestId);
+      } else {
+        _readyRequestIds.offer(requestId);
+      }
+      opChain._state = State.RUNNING;
+      opChain._isWakeUpPending = false;
+      return opChain;
+    }
+  }
+
+  private void runWorker() {
+    while (true) {
+      OpChain opChain;
+      try {
+        opChain = take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (opChain == null) {
+        return;
+      }
+      runSlice(opChain);
+    }
+  }
+
+  private void runSlice(OpChain opChain) {
+    ThreadTimer threadTimer = new ThreadTimer();
+    long sliceEndTimeNs = System.nanoTime() + _timeSliceNs;
+    boolean isFinished = false;
+    boolean hasYielded = false;
+    try {
+      do {
+        TransferableBlock block = opChain.getRoot().nextBlock();
+        if (TransferableBlockUtils.isEndOfStream(block)) {
+          isFinished = true;
+        } else if (TransferableBlockUtils.isNoOpBlock(block)) {
+          hasYielded = true;
+        }
+      } while (!isFinished && !hasYielded && System.nanoTime() < sliceEndTimeNs);
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while executing op chain: {}", opChain, e);
+      isFinished = true;
+    }
+    long cpuTimeNs = threadTimer.getThreadTimeNs();
+    opChain.addSlice(cpuTimeNs);
+
+    synchronized (_lock) {
+      RequestStats requestStats = _requestStatsMap.get(opChain.getRequestId());
+      requestStats._cpuTimeNs += cpuTimeNs;
+      if (isFinished) {
+        opChain._state = State.DONE;
+        LOGGER.debug("Finished op chain: {}, cpu time: {}ns, slices: {}", opChain, opChain.getCpuTimeNs(),
+            opChain.getNumSlices());
+        if (--requestStats._numOpChains == 0) {
+          _requestStatsMap.remove(opChain.getRequestId());
+          LOGGER.info("Finished executing request: {}, cpu time: {}ns", opChain.getRequestId(),
+              requestStats._cpuTimeNs);
+        }
+      } else if (hasYielded && !opChain._isWakeUpPending) {
+        park(opChain);
+      } else {
+        enqueue(opChain);
+      }
+    }
+  }
+
+  private void park(OpChain opChain) {
+    opChain._state = State.PARKED;
+    if (!_isShutDown) {
+      opChain._recheckFuture =
+          _recheckExecutor.schedule(() -> wakeUp(opChain), RECHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private static class RequestStats {
+    int _numOpChains;
+    long _cpuTimeNs;
+  }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.query.runtime.executor;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -36,6 +37,7 @@ import org.apache.pinot.query.planner.stage.StageNode;
 import org.apache.pinot.query.planner.stage.StageNodeVisitor;
 import org.apache.pinot.query.planner.stage.TableScanNode;
 import org.apache.pinot.query.planner.stage.ValueNode;
+import org.apache.pinot.query.planner.stage.WindowNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.operator.AggregateOperator;
 import org.apache.pinot.query.runtime.operator.FilterOperator;
@@ -45,7 +47,10 @@ import org.apache.pinot.query.runtime.operator.MailboxReceiveOperator;
 import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
 import org.apache.pinot.query.runtime.operator.SortOperator;
 import org.apache.pinot.query.runtime.operator.TransformOperator;
+import org.apache.pinot.query.runtime.operator.WindowAggregateOperator;
+import org.apache.pinot.query.runtime.operator.spill.SpillConfig;
 import org.apache.pinot.query.runtime.plan.DistributedStagePlan;
+import org.apache.pinot.query.service.QueryConfig;
 
 
 /**
@@ -53,7 +58,8 @@ import org.apache.pinot.query.runtime.plan.DistributedStagePlan;
  * this works only for the intermediate stage nodes, leaf stage nodes are expected to compile into
  * v1 operators at this point in time.
  *
- * <p>This class should be used statically via {@link #build(MailboxService, String, int, long, Map, StageNode)}
+ * <p>This class should be used statically via
+ * {@link #build(MailboxService, String, int, long, Map, StageNode, SpillConfig)}
  *
  * @see org.apache.pinot.query.runtime.QueryRunner#processQuery(DistributedStagePlan, ExecutorService, Map)
  */
@@ -64,43 +70,73 @@ public class PhysicalPlanVisitor implements StageNodeVisitor<Operator<Transferab
   private final int _port;
   private final long _requestId;
   private final Map<Integer, StageMetadata> _metadataMap;
+  private final SpillConfig _spillConfig;
+  private final long _deadlineNs;
+  private final List<MailboxReceiveOperator> _receivingOperators = new ArrayList<>();
+  private final List<MailboxSendOperator> _sendingOperators = new ArrayList<>();
 
   public static Operator<TransferableBlock> build(MailboxService<TransferableBlock> mailboxService,
       String hostName, int port, long requestId, Map<Integer, StageMetadata> metadataMap, StageNode node) {
-    return node.visit(new PhysicalPlanVisitor(mailboxService, hostName, port, requestId, metadataMap), null);
+    return build(mailboxService, hostName, port, requestId, metadataMap, node, SpillConfig.DISABLED);
+  }
+
+  public static Operator<TransferableBlock> build(MailboxService<TransferableBlock> mailboxService,
+      String hostName, int port, long requestId, Map<Integer, StageMetadata> metadataMap, StageNode node,
+      SpillConfig spillConfig) {
+    return node.visit(new PhysicalPlanVisitor(mailboxService, hostName, port, requestId, metadataMap, spillConfig,
+        System.nanoTime() + QueryConfig.DEFAULT_TIMEOUT_NANO), null);
+  }
+
+  /**
+   * Builds the {@link OpChain} of a stage to be executed by the {@link OpChainSchedulerService}. The deadline (in terms
+   * of {@link System#nanoTime()}) bounds how long the stage can be blocked sending data to a slow receiver.
+   */
+  public static OpChain buildOpChain(MailboxService<TransferableBlock> mailboxService, String hostName, int port,
+      long requestId, Map<Integer, StageMetadata> metadataMap, StageNode node, SpillConfig spillConfig,
+      long deadlineNs) {
+    PhysicalPlanVisitor visitor =
+        new PhysicalPlanVisitor(mailboxService, hostName, port, requestId, metadataMap, spillConfig, deadlineNs);
+    Operator<TransferableBlock> root = node.visit(visitor, null);
+    return new OpChain(root, visitor._receivingOperators, visitor._sendingOperators, requestId, node.getStageId());
   }
 
   private PhysicalPlanVisitor(MailboxService<TransferableBlock> mailboxService, String hostName, int port,
-      long requestId, Map<Integer, StageMetadata> metadataMap) {
+      long requestId, Map<Integer, StageMetadata> metadataMap, SpillConfig spillConfig, long deadlineNs) {
     _mailboxService = mailboxService;
     _hostName = hostName;
     _port = port;
     _requestId = requestId;
     _metadataMap = metadataMap;
+    _spillConfig = spillConfig;
+    _deadlineNs = deadlineNs;
   }
 
   @Override
   public Operator<TransferableBlock> visitMailboxReceive(MailboxReceiveNode node, Void context) {
     List<ServerInstance> sendingInstances = _metadataMap.get(node.getSenderStageId()).getServerInstances();
-    return new MailboxReceiveOperator(_mailboxService, node.getDataSchema(), sendingInstances,
-        node.getExchangeType(), node.getPartitionKeySelector(), _hostName, _port, _requestId,
+    MailboxReceiveOperator receivingOperator = new MailboxReceiveOperator(_mailboxService, node.getDataSchema(),
+        sendingInstances, node.getExchangeType(), node.getPartitionKeySelector(), _hostName, _port, _requestId,
         node.getSenderStageId());
+    _receivingOperators.add(receivingOperator);
+    return receivingOperator;
   }
 
   @Override
   public Operator<TransferableBlock> visitMailboxSend(MailboxSendNode node, Void context) {
     Operator<TransferableBlock> nextOperator = node.getInputs().get(0).visit(this, null);
     StageMetadata receivingStageMetadata = _metadataMap.get(node.getReceiverStageId());
-    return new MailboxSendOperator(_mailboxService, node.getDataSchema(), nextOperator,
+    MailboxSendOperator sendingOperator = new MailboxSendOperator(_mailboxService, node.getDataSchema(), nextOperator,
         receivingStageMetadata.getServerInstances(), node.getExchangeType(), node.getPartitionKeySelector(),
-        _hostName, _port, _requestId, node.getStageId());
+        _hostName, _port, _requestId, node.getStageId(), _deadlineNs);
+    _sendingOperators.add(sendingOperator);
+    return sendingOperator;
   }
 
   @Override
   public Operator<TransferableBlock> visitAggregate(AggregateNode node, Void context) {
     Operator<TransferableBlock> nextOperator = node.getInputs().get(0).visit(this, null);
     return new AggregateOperator(nextOperator, node.getDataSchema(), node.getAggCalls(),
-        node.getGroupSet(), node.getInputs().get(0).getDataSchema());
+        node.getGroupSet(), node.getInputs().get(0).getDataSchema(), _spillConfig, _requestId);
   }
 
   @Override
@@ -119,7 +155,8 @@ public class PhysicalPlanVisitor implements StageNodeVisitor<Operator<Transferab
 
     return new HashJoinOperator(leftOperator, left.getDataSchema(), rightOperator,
         right.getDataSchema(), node.getDataSchema(), node.getJoinKeys(),
-        node.getJoinClauses(), node.getJoinRelType());
+        node.getJoinClauses(), node.getJoinRelType(), HashJoinOperator.DEFAULT_MAX_ROWS_PER_BLOCK, _spillConfig,
+        _requestId);
   }
 
   @Override
@@ -145,4 +182,12 @@ public class PhysicalPlanVisitor implements StageNodeVisitor<Operator<Transferab
   public Operator<TransferableBlock> visitValue(ValueNode node, Void context) {
     return new LiteralValueOperator(node.getDataSchema(), node.getLiteralRows());
   }
+
+  @Override
+  public Operator<TransferableBlock> visitWindow(WindowNode node, Void context) {
+    Operator<TransferableBlock> nextOperator = node.getInputs().get(0).visit(this, null);
+    return new WindowAggregateOperator(nextOperator, node.getDataSchema(), node.getGroupSet(), node.getOrderSet(),
+        node.getOrderSetDirection(), node.getOrderSetNullDirection(), node.getAggCalls(), node.isRows(),
+        node.getLowerBound(), node.getUpperBound(), node.getInputs().get(0).getDataSchema());
+  }
 }
@@ -19,16 +19,13 @@
 package org.apache.pinot.query.runtime.executor;
 
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
 import org.apache.pinot.common.metrics.ServerMetrics;
-import org.apache.pinot.common.request.context.ThreadTimer;
-import org.apache.pinot.core.common.Operator;
-import org.apache.pinot.core.util.trace.TraceRunnable;
 import org.apache.pinot.query.mailbox.MailboxService;
 import org.apache.pinot.query.planner.stage.StageNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
-import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.spill.SpillConfig;
 import org.apache.pinot.query.runtime.plan.DistributedStagePlan;
+import org.apache.pinot.query.service.QueryConfig;
 import org.apache.pinot.spi.env.PinotConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +36,9 @@ import org.slf4j.LoggerFactory;
  *
  * It provides not only execution interface for {@link org.apache.pinot.core.query.request.ServerQueryRequest} but
  * also a more general {@link DistributedStagePlan}.
+ *
+ * <p>Each stage is compiled into an {@link OpChain} and executed by the {@link OpChainSchedulerService} on a fixed
+ * number of worker threads.
  */
 public class WorkerQueryExecutor {
   private static final Logger LOGGER = LoggerFactory.getLogger(WorkerQueryExecutor.class);
@@ -47,6 +47,8 @@ public class WorkerQueryExecutor {
   private MailboxService<TransferableBlock> _mailboxService;
   private String _hostName;
   private int _port;
+  private SpillConfig _spillConfig;
+  private OpChainSchedulerService _scheduler;
 
   public void init(PinotConfiguration config, ServerMetrics serverMetrics,
       MailboxService<TransferableBlock> mailboxService, String hostName, int port) {
@@ -55,34 +57,37 @@ public class WorkerQueryExecutor {
     _mailboxService = mailboxService;
     _hostName = hostName;
     _port = port;
+    _spillConfig = SpillConfig.fromConfig(config);
+    int numWorkerThreads = config.getProperty(QueryConfig.KEY_OF_QUERY_RUNNER_NUM_WORKER_THREADS,
+        QueryConfig.DEFAULT_QUERY_RUNNER_NUM_WORKER_THREADS);
+    long timeSliceMs = config.getProperty(QueryConfig.KEY_OF_QUERY_RUNNER_TIME_SLICE_MS,
+        QueryConfig.DEFAULT_QUERY_RUNNER_TIME_SLICE_MS);
+    _scheduler = new OpChainSchedulerService(numWorkerThreads, timeSliceMs, "op_chain_worker_on_" + port + "_port");
   }
 
-
   public synchronized void start() {
+    _scheduler.start();
     LOGGER.info("Worker query executor started");
   }
 
   public synchronized void shutDown() {
+    _scheduler.shutDown();
     LOGGER.info("Worker query executor shut down");
   }
 
   public void processQuery(DistributedStagePlan queryRequest, Map<String, String> requestMetadataMap,
-      ExecutorService executorService) {
+      long deadlineNs) {
     long requestId = Long.parseLong(requestMetadataMap.get("REQUEST_ID"));
     StageNode stageRoot = queryRequest.getStageRoot();
+    OpChain opChain = PhysicalPlanVisitor.buildOpChain(_mailboxService, _hostName, _port, requestId,
+        queryRequest.getMetadataMap(), stageRoot, _spillConfig, deadlineNs);
+    _scheduler.register(opChain);
+  }
 
-    Operator<TransferableBlock> rootOperator = PhysicalPlanVisitor.build(
-        _mailboxService, _hostName, _port, requestId, queryRequest.getMetadataMap(), stageRoot);
-
-    executorService.submit(new TraceRunnable() {
-      @Override
-      public void runJob() {
-        ThreadTimer executionThreadTimer = new ThreadTimer();
-        while (!TransferableBlockUtils.isEndOfStream(rootOperator.nextBlock())) {
-          LOGGER.debug("Result Block acquired");
-        }
-        LOGGER.info("Execution time:" + executionThreadTimer.getThreadTimeNs());
-      }
-    });
+  /**
+   * Executes an already constructed {@link OpChain}, e.g. sending the results of a leaf stage.
+   */
+  public void processOpChain(OpChain opChain) {
+    _scheduler.register(opChain);
   }
 }
@@ -39,14 +39,29 @@ import org.apache.pinot.core.query.selection.SelectionOperatorUtils;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.spill.RowSpiller;
+import org.apache.pinot.query.runtime.operator.spill.SpillConfig;
+import org.apache.pinot.query.runtime.operator.spill.SpillUtils;
 import org.apache.pinot.spi.data.FieldSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
+ * The {@code AggregateOperator} aggregates all the input rows into a hash map keyed by the group keys, and emits the
+ * aggregated groups after the input is exhausted.
  *
+ * <p>When spilling is enabled in the {@link SpillConfig}, the groups are hash partitioned on the group key. Once the
+ * estimated heap usage of the groups exceeds the memory budget, the largest in-memory partition is spilled to disk as
+ * partially aggregated rows (in the output layout), and the subsequent input rows of that partition are spilled as is.
+ * The spilled partitions are aggregated and emitted one at a time after the in-memory groups.
  */
 public class AggregateOperator extends BaseOperator<TransferableBlock> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AggregateOperator.class);
   private static final String EXPLAIN_NAME = "AGGREGATE_OPERATOR";
+  private static final String OPERATOR_NAME = "aggregate";
+  // Rough heap overhead of a group in the hash map (entry, key and result array).
+  private static final int GROUP_OVERHEAD_BYTES = 64;
 
   private Operator<TransferableBlock> _inputOperator;
   private List<RexExpression> _aggCalls;
@@ -56,27 +71,52 @@ public class AggregateOperator extends BaseOperator<TransferableBlock> {
   private final int[] _aggregationFunctionInputRefs;
   private final Object[] _aggregationFunctionLiterals;
   private final DataSchema _resultSchema;
-  private final Map<Integer, Object>[] _groupByResultHolders;
-  private final Map<Integer, Object[]> _groupByKeyHolder;
+  // Aggregation results of each group, per partition. A partition holder is null when the partition is spilled.
+  private final Map<Key, Object[]>[] _groupByResultHolders;
+
+  private final SpillConfig _spillConfig;
+  private final long _requestId;
+  private final int _numPartitions;
+  private final long[] _partitionBytes;
+  private final RowSpiller.SpilledRows[] _spilledGroups;
+  private final RowSpiller.SpilledRows[] _spilledInputRows;
+  private RowSpiller _rowSpiller;
+  private long _inMemoryBytes;
+  private int _spilledPartitionId = -1;
 
   private DataSchema _upstreamDataSchema;
   private TransferableBlock _upstreamErrorBlock;
+  private boolean _isInputConsumed;
   private boolean _isCumulativeBlockConstructed;
 
   // TODO: refactor Pinot Reducer code to support the intermediate stage agg operator.
   public AggregateOperator(Operator<TransferableBlock> inputOperator, DataSchema dataSchema,
       List<RexExpression> aggCalls, List<RexExpression> groupSet, DataSchema upstreamDataSchema) {
+    this(inputOperator, dataSchema, aggCalls, groupSet, upstreamDataSchema, SpillConfig.DISABLED, 0L);
+  }
+
+  public AggregateOperator(Operator<TransferableBlock> inputOperator, DataSchema dataSchema,
+      List<RexExpression> aggCalls, List<RexExpression> groupSet, DataSchema upstreamDataSchema,
+      SpillConfig spillConfig, long requestId) {
     _inputOperator = inputOperator;
     _aggCalls = aggCalls;
     _groupSet = groupSet;
     _upstreamDataSchema = upstreamDataSchema;
     _upstreamErrorBlock = null;
+    _spillConfig = spillConfig;
+    _requestId = requestId;
+    _numPartitions = spillConfig.isEnabled() ? spillConfig.getNumPartitions() : 1;
+    _groupByResultHolders = new Map[_numPartitions];
+    for (int i = 0; i < _numPartitions; i++) {
+      _groupByResultHolders[i] = new HashMap<>();
+    }
+    _partitionBytes = new long[_numPartitions];
+    _spilledGroups = new RowSpiller.SpilledRows[_numPartitions];
+    _spilledInputRows = new RowSpiller.SpilledRows[_numPartitions];
 
     _aggregationFunctions = new AggregationFunction[_aggCalls.size()];
     _aggregationFunctionInputRefs = new int[_aggCalls.size()];
     _aggregationFunctionLiterals = new Object[_aggCalls.size()];
-    _groupByResultHolders = new Map[_aggCalls.size()];
-    _groupByKeyHolder = new HashMap<Integer, Object[]>();
     for (int i = 0; i < aggCalls.size(); i++) {
       // agg function operand should either be a InputRef or a Literal
       RexExpression rexExpression = toAggregationFunctionOperand(aggCalls.get(i));
@@ -87,7 +127,6 @@ public class AggregateOperator extends BaseOperator<TransferableBlock> {
         _aggregationFunctionLiterals[i] = ((RexExpression.Literal) rexExpression).getValue();
       }
       _aggregationFunctions[i] = toAggregationFunction(aggCalls.get(i), _aggregationFunctionInputRefs[i]);
-      _groupByResultHolders[i] = new HashMap<Integer, Object>();
     }
     _resultSchema = dataSchema;
 
@@ -116,8 +155,13 @@ public class AggregateOperator extends BaseOperator<TransferableBlock> {
   protected TransferableBlock getNextBlock() {
     try {
       consumeInputBlocks();
+      if (!_isInputConsumed) {
+        // The input operator has no data available yet, yields and resumes consuming on the next call.
+        return TransferableBlockUtils.getNoOpTransferableBlock();
+      }
       return produceAggregatedBlock();
     } catch (Exception e) {
+      closeRowSpiller();
       return TransferableBlockUtils.getErrorTransferableBlock(e);
     }
   }
@@ -125,61 +169,178 @@ public class AggregateOperator extends BaseOperator<TransferableBlock> {
   private TransferableBlock produceAggregatedBlock()
       throws IOException {
     if (_upstreamErrorBlock != null) {
+      closeRowSpiller();
       return _upstreamErrorBlock;
     }
     if (!_isCumulativeBlockConstructed) {
-      List<Object[]> rows = new ArrayList<>(_groupByKeyHolder.size());
-      for (Map.Entry<Integer, Object[]> e : _groupByKeyHolder.entrySet()) {
-        Object[] row = new Object[_aggregationFunctions.length + _groupSet.size()];
-        Object[] keyElements = e.getValue();
-        for (int i = 0; i < keyElements.length; i++) {
-          row[i] = keyElements[i];
-        }
-        for (int i = 0; i < _groupByResultHolders.length; i++) {
-          row[i + _groupSet.size()] = _groupByResultHolders[i].get(e.getKey());
+      List<Object[]> rows = new ArrayList<>();
+      for (int i = 0; i < _numPartitions; i++) {
+        if (_groupByResultHolders[i] != null) {
+          addGroupRows(_groupByResultHolders[i], rows);
+          _groupByResultHolders[i] = null;
+        } else {
+          _spilledGroups[i].flush();
+          _spilledInputRows[i].flush();
         }
-        rows.add(row);
       }
       _isCumulativeBlockConstructed = true;
-      if (rows.size() == 0) {
-        return TransferableBlockUtils.getEndOfStreamTransferableBlock(_resultSchema);
-      } else {
+      if (rows.size() > 0) {
         return new TransferableBlock(rows, _resultSchema, BaseDataBlock.Type.ROW);
       }
-    } else {
-      return TransferableBlockUtils.getEndOfStreamTransferableBlock(_resultSchema);
     }
+    while (++_spilledPartitionId < _numPartitions) {
+      if (_spilledGroups[_spilledPartitionId] != null) {
+        List<Object[]> rows = new ArrayList<>();
+        addGroupRows(aggregateSpilledPartition(_spilledPartitionId), rows);
+        _spilledGroups[_spilledPartitionId] = null;
+        _spilledInputRows[_spilledPartitionId] = null;
+        if (rows.size() > 0) {
+          return new TransferableBlock(rows, _resultSchema, BaseDataBlock.Type.ROW);
+        }
+      }
+    }
+    closeRowSpiller();
+    return TransferableBlockUtils.getEndOfStreamTransferableBlock(_resultSchema);
   }
 
-  private void consumeInputBlocks() {
-    if (!_isCumulativeBlockConstructed) {
+  private void addGroupRows(Map<Key, Object[]> groups, List<Object[]> rows) {
+    for (Map.Entry<Key, Object[]> e : groups.entrySet()) {
+      Object[] row = new Object[_aggregationFunctions.length + _groupSet.size()];
+      Object[] keyElements = e.getKey().getValues();
+      System.arraycopy(keyElements, 0, row, 0, keyElements.length);
+      Object[] results = e.getValue();
+      System.arraycopy(results, 0, row, _groupSet.size(), results.length);
+      rows.add(row);
+    }
+  }
+
+  private void consumeInputBlocks()
+      throws IOException {
+    while (!_isInputConsumed) {
       TransferableBlock block = _inputOperator.nextBlock();
-      while (!TransferableBlockUtils.isEndOfStream(block)) {
+      if (TransferableBlockUtils.isNoOpBlock(block)) {
+        return;
+      }
+      if (TransferableBlockUtils.isEndOfStream(block)) {
+        // setting upstream error block
+        if (block.isErrorBlock()) {
+          _upstreamErrorBlock = block;
+        }
+        _isInputConsumed = true;
+      } else {
         BaseDataBlock dataBlock = block.getDataBlock();
         int numRows = dataBlock.getNumberOfRows();
         for (int rowId = 0; rowId < numRows; rowId++) {
           Object[] row = SelectionOperatorUtils.extractRowFromDataTable(dataBlock, rowId);
           Key key = extraRowKey(row, _groupSet);
-          int keyHashCode = key.hashCode();
-          _groupByKeyHolder.put(keyHashCode, key.getValues());
-          for (int i = 0; i < _aggregationFunctions.length; i++) {
-            Object currentRes = _groupByResultHolders[i].get(keyHashCode);
-            if (currentRes == null) {
-              _groupByResultHolders[i].put(keyHashCode, _aggregationFunctionInputRefs[i] == -1
-                  ? _aggregationFunctionLiterals[i] : row[_aggregationFunctionInputRefs[i]]);
-            } else {
-              _groupByResultHolders[i].put(keyHashCode,
-                  merge(_aggCalls.get(i), currentRes, _aggregationFunctionInputRefs[i] == -1
-                      ? _aggregationFunctionLiterals[i] : row[_aggregationFunctionInputRefs[i]]));
+          int partition = _numPartitions == 1 ? 0 : SpillUtils.getPartition(key.hashCode(), _numPartitions);
+          Map<Key, Object[]> groups = _groupByResultHolders[partition];
+          if (groups == null) {
+            _spilledInputRows[partition].addRow(row);
+          } else if (aggregateRow(groups, key, row) && _spillConfig.isEnabled()) {
+            long groupSize = SpillUtils.estimateRowSizeInBytes(key.getValues()) + GROUP_OVERHEAD_BYTES;
+            _partitionBytes[partition] += groupSize;
+            _inMemoryBytes += groupSize;
+            while (_inMemoryBytes > _spillConfig.getMaxInMemoryBytes() && spillLargestPartition()) {
+              LOGGER.debug("Spilled aggregation partition for request: {}, in-memory bytes: {}", _requestId,
+                  _inMemoryBytes);
             }
           }
         }
-        block = _inputOperator.nextBlock();
       }
-      // setting upstream error block
-      if (block.isErrorBlock()) {
-        _upstreamErrorBlock = block;
+    }
+  }
+
+  /**
+   * Aggregates an input row into its group, and returns whether a new group is created.
+   */
+  private boolean aggregateRow(Map<Key, Object[]> groups, Key key, Object[] row) {
+    Object[] results = groups.get(key);
+    boolean isNewGroup = results == null;
+    if (isNewGroup) {
+      results = new Object[_aggregationFunctions.length];
+      groups.put(key, results);
+    }
+    for (int i = 0; i < _aggregationFunctions.length; i++) {
+      Object value = _aggregationFunctionInputRefs[i] == -1 ? _aggregationFunctionLiterals[i]
+          : row[_aggregationFunctionInputRefs[i]];
+      results[i] = isNewGroup ? value : merge(_aggCalls.get(i), results[i], value);
+    }
+    return isNewGroup;
+  }
+
+  /**
+   * Merges a partially aggregated group (in the output layout) into the groups.
+   */
+  private void mergeGroupRow(Map<Key, Object[]> groups, Object[] groupRow) {
+    int numKeys = _groupSet.size();
+    Object[] keyElements = new Object[numKeys];
+    System.arraycopy(groupRow, 0, keyElements, 0, numKeys);
+    Key key = new Key(keyElements);
+    Object[] results = groups.get(key);
+    if (results == null) {
+      results = new Object[_aggregationFunctions.length];
+      System.arraycopy(groupRow, numKeys, results, 0, results.length);
+      groups.put(key, results);
+    } else {
+      for (int i = 0; i < _aggregationFunctions.length; i++) {
+        results[i] = mergeIntermediate(_aggCalls.get(i), results[i], groupRow[numKeys + i]);
+      }
+    }
+  }
+
+  private boolean spillLargestPartition()
+      throws IOException {
+    int largestPartition = -1;
+    for (int i = 0; i < _numPartitions; i++) {
+      if (_groupByResultHolders[i] != null && !_groupByResultHolders[i].isEmpty() && (largestPartition < 0
+          || _partitionBytes[i] > _partitionBytes[largestPartition])) {
+        largestPartition = i;
+      }
+    }
+    if (largestPartition < 0) {
+      return false;
+    }
+    if (_rowSpiller == null) {
+      _rowSpiller = SpillUtils.createRowSpiller(_spillConfig, OPERATOR_NAME, _requestId);
+    }
+    List<Object[]> groupRows = new ArrayList<>(_groupByResultHolders[largestPartition].size());
+    addGroupRows(_groupByResultHolders[largestPartition], groupRows);
+    _spilledGroups[largestPartition] = _rowSpiller.createSpilledRows(_resultSchema);
+    _spilledGroups[largestPartition].addRows(groupRows);
+    _spilledInputRows[largestPartition] = _rowSpiller.createSpilledRows(_upstreamDataSchema);
+    _groupByResultHolders[largestPartition] = null;
+    _inMemoryBytes -= _partitionBytes[largestPartition];
+    _partitionBytes[largestPartition] = 0;
+    return true;
+  }
+
+  private Map<Key, Object[]> aggregateSpilledPartition(int partition)
+      throws IOException {
+    Map<Key, Object[]> groups = new HashMap<>();
+    RowSpiller.SpilledRows spilledGroups = _spilledGroups[partition];
+    for (int blockId = 0; blockId < spilledGroups.getNumBlocks(); blockId++) {
+      for (Object[] groupRow : spilledGroups.readBlock(blockId)) {
+        mergeGroupRow(groups, groupRow);
+      }
+    }
+    RowSpiller.SpilledRows spilledInputRows = _spilledInputRows[partition];
+    for (int blockId = 0; blockId < spilledInputRows.getNumBlocks(); blockId++) {
+      for (Object[] row : spilledInputRows.readBlock(blockId)) {
+        aggregateRow(groups, extraRowKey(row, _groupSet), row);
+      }
+    }
+    return groups;
+  }
+
+  private void closeRowSpiller() {
+    if (_rowSpiller != null) {
+      try {
+        _rowSpiller.close();
+      } catch (IOException e) {
+        LOGGER.warn("Caught exception while closing the row spiller", e);
       }
+      _rowSpiller = null;
     }
   }
 
@@ -235,6 +396,16 @@ public class AggregateOperator extends BaseOperator<TransferableBlock> {
     }
   }
 
+  /**
+   * Merges two partially aggregated values, where COUNT values are partial counts instead of input rows.
+   */
+  private Object mergeIntermediate(RexExpression aggCall, Object left, Object right) {
+    if (((RexExpression.FunctionCall) aggCall).getFunctionName().equals("COUNT")) {
+      return ((Number) left).doubleValue() + ((Number) right).doubleValue();
+    }
+    return merge(aggCall, left, right);
+  }
+
   private static Key extraRowKey(Object[] row, List<RexExpression> groupSet) {
     Object[] keyElements = new Object[groupSet.size()];
     for (int i = 0; i < groupSet.size(); i++) {
@@ -20,6 +20,7 @@ package org.apache.pinot.query.runtime.operator;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.datablock.BaseDataBlock;
 import org.apache.pinot.common.datablock.DataBlockUtils;
@@ -32,17 +33,26 @@ import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
 import org.apache.pinot.query.runtime.operator.operands.FilterOperand;
 
 
+/**
+ * This {@code FilterOperator} filters the rows of the upstream blocks.
+ *
+ * <p>When the upstream block is still binary-packed and the filter can be evaluated on it (see
+ * {@link FilterOperand#canApplyOnDataBlock()}), the filter reads the column values from the data block directly and
+ * only the matching rows are extracted. If all the rows match, the upstream block is forwarded as-is.
+ */
 public class FilterOperator extends BaseOperator<TransferableBlock> {
   private static final String EXPLAIN_NAME = "FILTER";
   private final Operator<TransferableBlock> _upstreamOperator;
   private final FilterOperand _filterOperand;
   private final DataSchema _dataSchema;
+  private final int[] _columnIds;
   private TransferableBlock _upstreamErrorBlock;
 
   public FilterOperator(Operator<TransferableBlock> upstreamOperator, DataSchema dataSchema, RexExpression filter) {
     _upstreamOperator = upstreamOperator;
     _dataSchema = dataSchema;
     _filterOperand = FilterOperand.toFilterOperand(filter, dataSchema);
+    _columnIds = IntStream.range(0, dataSchema.size()).toArray();
     _upstreamErrorBlock = null;
   }
 
@@ -72,7 +82,13 @@ public class FilterOperator extends BaseOperator<TransferableBlock> {
     if (_upstreamErrorBlock != null) {
       return _upstreamErrorBlock;
     }
+    if (TransferableBlockUtils.isNoOpBlock(block)) {
+      return block;
+    }
     if (!TransferableBlockUtils.isEndOfStream(block)) {
+      if (!block.isContainerBlock() && _filterOperand.canApplyOnDataBlock()) {
+        return filterDataBlock(block);
+      }
       List<Object[]> resultRows = new ArrayList<>();
       List<Object[]> container = block.getContainer();
       for (Object[] row : container) {
@@ -88,4 +104,22 @@ public class FilterOperator extends BaseOperator<TransferableBlock> {
       return new TransferableBlock(DataBlockUtils.getEndOfStreamDataBlock(_dataSchema));
     }
   }
+
+  private TransferableBlock filterDataBlock(TransferableBlock block) {
+    BaseDataBlock dataBlock = block.getDataBlock();
+    boolean[] matches = _filterOperand.apply(dataBlock);
+    int numRows = matches.length;
+    int[] matchingRowIds = new int[numRows];
+    int numMatchingRows = 0;
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      if (matches[rowId]) {
+        matchingRowIds[numMatchingRows++] = rowId;
+      }
+    }
+    if (numMatchingRows == numRows) {
+      return block;
+    }
+    return new TransferableBlock(DataBlockUtils.extractRows(dataBlock, matchingRowIds, numMatchingRows, _columnIds),
+        _dataSchema, BaseDataBlock.Type.ROW);
+  }
 }
@@ -18,9 +18,9 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import com.google.common.base.Preconditions;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.calcite.rel.core.JoinRelType;
@@ -30,25 +30,41 @@ import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.operator.BaseOperator;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.partitioning.FieldSelectionKeySelector;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
 import org.apache.pinot.query.planner.stage.JoinNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.join.ColumnarRowContainer;
+import org.apache.pinot.query.runtime.operator.join.JoinHashTable;
+import org.apache.pinot.query.runtime.operator.join.SpillableJoinHashTable;
 import org.apache.pinot.query.runtime.operator.operands.FilterOperand;
+import org.apache.pinot.query.runtime.operator.spill.RowSpiller;
+import org.apache.pinot.query.runtime.operator.spill.SpillConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * This basic {@code BroadcastJoinOperator} implement a basic broadcast join algorithm.
  *
- * <p>It takes the right table as the broadcast side and materialize a hash table. Then for each of the left table row,
- * it looks up for the corresponding row(s) from the hash table and create a joint row.
+ * <p>It takes the right table as the broadcast side and materialize a {@link JoinHashTable}, which stores the right
+ * table rows in columnar format and indexes them by their full join key. Then for each of the left table row, it looks
+ * up for the corresponding row(s) from the hash table and create a joint row.
  *
- * <p>For each of the data block received from the left table, it will generate a joint data block.
+ * <p>The joint rows are emitted in data blocks of at most {@code maxRowsPerBlock} rows, so a left block matching many
+ * right rows is served across multiple {@link #nextBlock()} calls.
+ *
+ * <p>When spilling is enabled in the {@link SpillConfig}, the hash table is partitioned and the partitions exceeding
+ * the memory budget are spilled to disk together with their left rows (see {@link SpillableJoinHashTable}). The
+ * spilled partitions are joined one at a time after the left table is exhausted.
  */
 public class HashJoinOperator extends BaseOperator<TransferableBlock> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(HashJoinOperator.class);
   private static final String EXPLAIN_NAME = "BROADCAST_JOIN";
+  public static final int DEFAULT_MAX_ROWS_PER_BLOCK = 10_000;
 
-  private final HashMap<Integer, List<Object[]>> _broadcastHashTable;
+  private final SpillableJoinHashTable _broadcastHashTable;
   private final Operator<TransferableBlock> _leftTableOperator;
   private final Operator<TransferableBlock> _rightTableOperator;
   private final JoinRelType _joinType;
@@ -56,33 +72,62 @@ public class HashJoinOperator extends BaseOperator<TransferableBlock> {
   private final DataSchema _leftTableSchema;
   private final DataSchema _rightTableSchema;
   private final int _resultRowSize;
-  private final List<FilterOperand> _joinClauseEvaluators;
+  private final FilterOperand[] _joinClauseEvaluators;
+  private final int _maxRowsPerBlock;
   private boolean _isHashTableBuilt;
   private TransferableBlock _upstreamErrorBlock;
-  private KeySelector<Object[], Object[]> _leftKeySelector;
-  private KeySelector<Object[], Object[]> _rightKeySelector;
+
+  // Probe state, which is kept across calls so that the joint rows of a left block can span multiple output blocks.
+  private List<Object[]> _leftRows;
+  private int _leftRowId;
+  private int _rightRowId;
+  private boolean _isLeftRowMatched;
+  private boolean _isLeftRowSpilled;
+  private JoinHashTable _probedHashTable;
+  private boolean _isLeftTableExhausted;
+
+  // State of the join of the spilled partitions, processed after the left table is exhausted.
+  private SpillableJoinHashTable.SpilledPartition _spilledPartition;
+  private JoinHashTable _spilledPartitionHashTable;
+  private int _spilledLeftBlockId;
 
   public HashJoinOperator(Operator<TransferableBlock> leftTableOperator, DataSchema leftSchema,
       Operator<TransferableBlock> rightTableOperator, DataSchema rightSchema, DataSchema outputSchema,
       JoinNode.JoinKeys joinKeys, List<RexExpression> joinClauses, JoinRelType joinType) {
-    _leftKeySelector = joinKeys.getLeftJoinKeySelector();
-    _rightKeySelector = joinKeys.getRightJoinKeySelector();
+    this(leftTableOperator, leftSchema, rightTableOperator, rightSchema, outputSchema, joinKeys, joinClauses,
+        joinType, DEFAULT_MAX_ROWS_PER_BLOCK, SpillConfig.DISABLED, 0L);
+  }
+
+  public HashJoinOperator(Operator<TransferableBlock> leftTableOperator, DataSchema leftSchema,
+      Operator<TransferableBlock> rightTableOperator, DataSchema rightSchema, DataSchema outputSchema,
+      JoinNode.JoinKeys joinKeys, List<RexExpression> joinClauses, JoinRelType joinType, int maxRowsPerBlock,
+      SpillConfig spillConfig, long requestId) {
+    Preconditions.checkState(maxRowsPerBlock > 0, "Max rows per block must be positive, got: %s", maxRowsPerBlock);
     _leftTableOperator = leftTableOperator;
     _rightTableOperator = rightTableOperator;
     _resultSchema = outputSchema;
     _leftTableSchema = leftSchema;
     _rightTableSchema = rightSchema;
-    _joinClauseEvaluators = new ArrayList<>(joinClauses.size());
-    for (RexExpression joinClause : joinClauses) {
-      _joinClauseEvaluators.add(FilterOperand.toFilterOperand(joinClause, _resultSchema));
+    _joinClauseEvaluators = new FilterOperand[joinClauses.size()];
+    for (int i = 0; i < _joinClauseEvaluators.length; i++) {
+      _joinClauseEvaluators[i] = FilterOperand.toFilterOperand(joinClauses.get(i), _resultSchema);
     }
     _joinType = joinType;
     _resultRowSize = _resultSchema.size();
+    _maxRowsPerBlock = maxRowsPerBlock;
     _isHashTableBuilt = false;
-    _broadcastHashTable = new HashMap<>();
+    _broadcastHashTable =
+        new SpillableJoinHashTable(leftSchema, getKeyColumnIndices(joinKeys.getLeftJoinKeySelector()), rightSchema,
+            getKeyColumnIndices(joinKeys.getRightJoinKeySelector()), spillConfig, requestId);
     _upstreamErrorBlock = null;
   }
 
+  private static List<Integer> getKeyColumnIndices(KeySelector<Object[], Object[]> keySelector) {
+    Preconditions.checkState(keySelector instanceof FieldSelectionKeySelector,
+        "Unsupported join key selector: %s", keySelector.getClass().getSimpleName());
+    return ((FieldSelectionKeySelector) keySelector).getColumnIndices();
+  }
+
   @Override
   public List<Operator> getChildOperators() {
     // WorkerExecutor doesn't use getChildOperators, returns null here.
@@ -98,78 +143,186 @@ public class HashJoinOperator extends BaseOperator<TransferableBlock> {
   @Override
   protected TransferableBlock getNextBlock() {
     // Build JOIN hash table
-    buildBroadcastHashTable();
+    try {
+      buildBroadcastHashTable();
+    } catch (Exception e) {
+      closeHashTable();
+      return TransferableBlockUtils.getErrorTransferableBlock(e);
+    }
+    if (!_isHashTableBuilt) {
+      // The right table operator has no data available yet, yields and resumes building on the next call.
+      return TransferableBlockUtils.getNoOpTransferableBlock();
+    }
     if (_upstreamErrorBlock != null) {
       return _upstreamErrorBlock;
     }
     // JOIN each left block with the right block.
     try {
-      return buildJoinedDataBlock(_leftTableOperator.nextBlock());
+      while (_leftRows == null) {
+        if (!_isLeftTableExhausted) {
+          TransferableBlock leftBlock = _leftTableOperator.nextBlock();
+          if (TransferableBlockUtils.isNoOpBlock(leftBlock)) {
+            return leftBlock;
+          } else if (leftBlock.isErrorBlock()) {
+            closeHashTable();
+            _upstreamErrorBlock = leftBlock;
+            return _upstreamErrorBlock;
+          } else if (TransferableBlockUtils.isEndOfStream(leftBlock)) {
+            _isLeftTableExhausted = true;
+            _broadcastHashTable.finishProbe();
+          } else {
+            setLeftRows(leftBlock.getContainer());
+          }
+        } else if (!nextSpilledLeftBlock()) {
+          closeHashTable();
+          return new TransferableBlock(DataBlockUtils.getEndOfStreamDataBlock(_resultSchema));
+        }
+      }
+      return buildJoinedDataBlock();
     } catch (Exception e) {
+      closeHashTable();
       return TransferableBlockUtils.getErrorTransferableBlock(e);
     }
   }
 
-  private void buildBroadcastHashTable() {
-    if (!_isHashTableBuilt) {
+  private void buildBroadcastHashTable()
+      throws IOException {
+    while (!_isHashTableBuilt) {
       TransferableBlock rightBlock = _rightTableOperator.nextBlock();
-      while (!TransferableBlockUtils.isEndOfStream(rightBlock)) {
-        List<Object[]> container = rightBlock.getContainer();
-        // put all the rows into corresponding hash collections keyed by the key selector function.
-        for (Object[] row : container) {
-          List<Object[]> hashCollection =
-              _broadcastHashTable.computeIfAbsent(_rightKeySelector.computeHash(row), k -> new ArrayList<>());
-          hashCollection.add(row);
-        }
-        rightBlock = _rightTableOperator.nextBlock();
+      if (TransferableBlockUtils.isNoOpBlock(rightBlock)) {
+        return;
       }
-      if (rightBlock.isErrorBlock()) {
-        _upstreamErrorBlock = rightBlock;
+      if (TransferableBlockUtils.isEndOfStream(rightBlock)) {
+        if (rightBlock.isErrorBlock()) {
+          closeHashTable();
+          _upstreamErrorBlock = rightBlock;
+        }
+        _isHashTableBuilt = true;
+      } else {
+        // put all the rows into the hash table keyed by their join keys.
+        for (Object[] row : rightBlock.getContainer()) {
+          _broadcastHashTable.addBuildRow(row);
+        }
       }
-      _isHashTableBuilt = true;
     }
   }
 
-  private TransferableBlock buildJoinedDataBlock(TransferableBlock leftBlock)
-      throws Exception {
-    if (!TransferableBlockUtils.isEndOfStream(leftBlock)) {
-      List<Object[]> rows = new ArrayList<>();
-      List<Object[]> container = leftBlock.getContainer();
-      for (Object[] leftRow : container) {
-        List<Object[]> hashCollection = _broadcastHashTable.getOrDefault(
-            _leftKeySelector.computeHash(leftRow), Collections.emptyList());
-        if (hashCollection.isEmpty() && _joinType == JoinRelType.LEFT) {
-          rows.add(joinRow(leftRow, null));
-        } else {
-          for (Object[] rightRow : hashCollection) {
-            Object[] resultRow = joinRow(leftRow, rightRow);
-            if (_joinClauseEvaluators.isEmpty() || _joinClauseEvaluators.stream().allMatch(
-              evaluator -> evaluator.apply(resultRow))) {
-              rows.add(resultRow);
-            }
-          }
+  /**
+   * Moves to the next block of spilled left rows, loading the next spilled partition when the current one is done.
+   * Returns {@code false} when all the spilled partitions are joined.
+   */
+  private boolean nextSpilledLeftBlock()
+      throws IOException {
+    while (true) {
+      if (_spilledPartitionHashTable != null) {
+        RowSpiller.SpilledRows spilledLeftRows = _spilledPartition.getProbeRows();
+        if (_spilledLeftBlockId < spilledLeftRows.getNumBlocks()) {
+          setLeftRows(spilledLeftRows.readBlock(_spilledLeftBlockId++));
+          return true;
         }
+        _spilledPartitionHashTable = null;
       }
-      return new TransferableBlock(rows, _resultSchema, BaseDataBlock.Type.ROW);
-    } else if (leftBlock.isErrorBlock()) {
-      _upstreamErrorBlock = leftBlock;
-      return _upstreamErrorBlock;
+      _spilledPartition = _broadcastHashTable.nextSpilledPartition();
+      if (_spilledPartition == null) {
+        return false;
+      }
+      LOGGER.debug("Joining spilled partition with {} left rows", _spilledPartition.getProbeRows().getNumRows());
+      _spilledPartitionHashTable = _broadcastHashTable.loadSpilledPartition(_spilledPartition);
+      _spilledLeftBlockId = 0;
+    }
+  }
+
+  private void setLeftRows(List<Object[]> leftRows)
+      throws IOException {
+    _leftRows = leftRows;
+    _leftRowId = 0;
+    startProbe();
+  }
+
+  /**
+   * Looks up the first match of the current left row, or spills the row if it belongs to a spilled partition.
+   */
+  private void startProbe()
+      throws IOException {
+    _isLeftRowMatched = false;
+    _isLeftRowSpilled = false;
+    _rightRowId = JoinHashTable.NO_MATCH;
+    if (_leftRowId >= _leftRows.size()) {
+      return;
+    }
+    Object[] leftRow = _leftRows.get(_leftRowId);
+    if (_spilledPartitionHashTable != null) {
+      _probedHashTable = _spilledPartitionHashTable;
     } else {
-      return new TransferableBlock(DataBlockUtils.getEndOfStreamDataBlock(_resultSchema));
+      int partition = _broadcastHashTable.getProbePartition(leftRow);
+      _probedHashTable = _broadcastHashTable.getInMemoryPartition(partition);
+      if (_probedHashTable == null) {
+        _broadcastHashTable.spillProbeRow(partition, leftRow);
+        _isLeftRowSpilled = true;
+        return;
+      }
     }
+    _rightRowId = _probedHashTable.getFirstMatch(leftRow);
   }
 
-  private Object[] joinRow(Object[] leftRow, @Nullable Object[] rightRow) {
-    Object[] resultRow = new Object[_resultRowSize];
-    int idx = 0;
-    for (Object obj : leftRow) {
-      resultRow[idx++] = obj;
+  private void closeHashTable() {
+    try {
+      _broadcastHashTable.close();
+    } catch (IOException e) {
+      LOGGER.warn("Caught exception while closing the join hash table", e);
+    }
+  }
+
+  /**
+   * Joins the pending left rows with the hash table until either the output block is full or all the rows of the
+   * current left block are processed.
+   */
+  private TransferableBlock buildJoinedDataBlock()
+      throws IOException {
+    List<Object[]> rows = new ArrayList<>(Math.min(_maxRowsPerBlock, _leftRows.size()));
+    int numLeftRows = _leftRows.size();
+    while (_leftRowId < numLeftRows && rows.size() < _maxRowsPerBlock) {
+      Object[] leftRow = _leftRows.get(_leftRowId);
+      if (_rightRowId != JoinHashTable.NO_MATCH) {
+        Object[] resultRow = joinRow(leftRow, _probedHashTable.getRows(), _rightRowId);
+        _rightRowId = _probedHashTable.getNextMatch(_rightRowId);
+        if (matchesJoinClauses(resultRow)) {
+          _isLeftRowMatched = true;
+          rows.add(resultRow);
+          if (_joinType == JoinRelType.SEMI) {
+            // SEMI join emits each left row at most once.
+            _rightRowId = JoinHashTable.NO_MATCH;
+          }
+        }
+        continue;
+      }
+      if (!_isLeftRowMatched && !_isLeftRowSpilled && _joinType == JoinRelType.LEFT) {
+        rows.add(joinRow(leftRow, null, JoinHashTable.NO_MATCH));
+      }
+      _leftRowId++;
+      startProbe();
+    }
+    if (_leftRowId >= numLeftRows) {
+      _leftRows = null;
     }
-    if (_joinType != JoinRelType.SEMI && rightRow != null) {
-      for (Object obj : rightRow) {
-        resultRow[idx++] = obj;
+    return new TransferableBlock(rows, _resultSchema, BaseDataBlock.Type.ROW);
+  }
+
+  private boolean matchesJoinClauses(Object[] resultRow) {
+    for (FilterOperand joinClauseEvaluator : _joinClauseEvaluators) {
+      if (!joinClauseEvaluator.apply(resultRow)) {
+        return false;
       }
     }
+    return true;
+  }
+
+  private Object[] joinRow(Object[] leftRow, @Nullable ColumnarRowContainer rightRows, int rightRowId) {
+    Object[] resultRow = new Object[_resultRowSize];
+    System.arraycopy(leftRow, 0, resultRow, 0, leftRow.length);
+    if (_joinType != JoinRelType.SEMI && rightRows != null) {
+      rightRows.copyRow(rightRowId, resultRow, leftRow.length);
+    }
     return resultRow;
   }
 }
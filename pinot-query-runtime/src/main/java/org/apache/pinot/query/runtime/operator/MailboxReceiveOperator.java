@@ -19,8 +19,11 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.base.Preconditions;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelDistribution;
 import org.apache.pinot.common.exception.QueryException;
@@ -43,6 +46,10 @@ import org.slf4j.LoggerFactory;
 /**
  * This {@code MailboxReceiveOperator} receives data from a {@link ReceivingMailbox} and serve it out from the
  * {@link BaseOperator#getNextBlock()} API.
+ *
+ * <p>The receiving mailboxes are non-blocking, the operator registers a listener on each of them and waits to be
+ * notified when there is no data available in any of the mailboxes. When a data available callback is set, the
+ * operator doesn't wait but returns a no-op block instead, and the callback is invoked once new data arrives.
  */
 public class MailboxReceiveOperator extends BaseOperator<TransferableBlock> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MailboxReceiveOperator.class);
@@ -58,6 +65,13 @@ public class MailboxReceiveOperator extends BaseOperator<TransferableBlock> {
   private final long _jobId;
   private final int _stageId;
   private final long _timeout;
+  // Released by the receiving mailboxes whenever new data arrives, so that the operator doesn't need to busy poll.
+  private final Semaphore _dataAvailable = new Semaphore(0);
+  private List<ReceivingMailbox<TransferableBlock>> _receivingMailboxes;
+  private int _nextMailboxIdx;
+  // When set, the operator is non-blocking: it returns a no-op block instead of waiting for data.
+  private volatile Runnable _dataAvailableCallback;
+  private long _waitStartTimeNs = -1L;
   private TransferableBlock _upstreamErrorBlock;
 
   public MailboxReceiveOperator(MailboxService<TransferableBlock> mailboxService, DataSchema dataSchema,
@@ -107,40 +121,98 @@ public class MailboxReceiveOperator extends BaseOperator<TransferableBlock> {
     return EXPLAIN_NAME;
   }
 
+  /**
+   * Makes the operator non-blocking, see {@link TransferableBlockUtils#getNoOpTransferableBlock()}. The callback is
+   * invoked whenever new data arrives in any of the receiving mailboxes. This must be set before the first block is
+   * requested.
+   */
+  public void setDataAvailableCallback(Runnable callback) {
+    _dataAvailableCallback = callback;
+  }
+
   @Override
   protected TransferableBlock getNextBlock() {
     if (_upstreamErrorBlock != null) {
       return _upstreamErrorBlock;
     }
-    // TODO: do a round robin check against all MailboxContentStreamObservers and find which one that has data.
-    boolean hasOpenedMailbox = true;
+    if (_receivingMailboxes == null) {
+      initReceivingMailboxes();
+    }
     long timeoutWatermark = System.nanoTime() + _timeout;
-    while (hasOpenedMailbox && System.nanoTime() < timeoutWatermark) {
-      hasOpenedMailbox = false;
-      for (ServerInstance sendingInstance : _sendingStageInstances) {
+    int numMailboxes = _receivingMailboxes.size();
+    while (true) {
+      // Clear the pending notifications before checking the mailboxes, so that any data arriving after the check below
+      // will wake up this operator.
+      _dataAvailable.drainPermits();
+      boolean hasOpenedMailbox = false;
+      // Round robin across the mailboxes starting from the one after the last returned block, so that a fast sender
+      // cannot starve the others.
+      for (int i = 0; i < numMailboxes; i++) {
+        int mailboxIdx = (_nextMailboxIdx + i) % numMailboxes;
+        ReceivingMailbox<TransferableBlock> receivingMailbox = _receivingMailboxes.get(mailboxIdx);
         try {
-          ReceivingMailbox<TransferableBlock> receivingMailbox =
-              _mailboxService.getReceivingMailbox(toMailboxId(sendingInstance));
           // TODO this is not threadsafe.
           // make sure only one thread is checking receiving mailbox and calling receive() then close()
           if (!receivingMailbox.isClosed()) {
-            hasOpenedMailbox = true;
             TransferableBlock transferableBlock = receivingMailbox.receive();
             if (transferableBlock != null && !transferableBlock.isEndOfStreamBlock()) {
               // Return the block only if it has some valid data
+              _nextMailboxIdx = (mailboxIdx + 1) % numMailboxes;
+              _waitStartTimeNs = -1L;
               return transferableBlock;
             }
+            // The mailbox might get closed by the block just received, which won't trigger another notification.
+            hasOpenedMailbox |= !receivingMailbox.isClosed();
           }
         } catch (Exception e) {
-          LOGGER.error(String.format("Error receiving data from mailbox %s", sendingInstance), e);
+          hasOpenedMailbox = true;
+          LOGGER.error(String.format("Error receiving data from mailbox %s", receivingMailbox.getMailboxId()), e);
         }
       }
+      if (!hasOpenedMailbox) {
+        return TransferableBlockUtils.getEndOfStreamTransferableBlock(_dataSchema);
+      }
+      if (_dataAvailableCallback != null) {
+        // The timeout is tracked across calls as the operator yields instead of waiting.
+        long currentTimeNs = System.nanoTime();
+        if (_waitStartTimeNs < 0) {
+          _waitStartTimeNs = currentTimeNs;
+        } else if (currentTimeNs - _waitStartTimeNs >= _timeout) {
+          LOGGER.error("Timed out after polling mailboxes: {}", _sendingStageInstances);
+          return TransferableBlockUtils.getErrorTransferableBlock(QueryException.EXECUTION_TIMEOUT_ERROR);
+        }
+        return TransferableBlockUtils.getNoOpTransferableBlock();
+      }
+      // Park the thread until any of the mailboxes gets new data instead of spinning on the mailboxes.
+      long remainingNanos = timeoutWatermark - System.nanoTime();
+      try {
+        if (remainingNanos <= 0 || !_dataAvailable.tryAcquire(remainingNanos, TimeUnit.NANOSECONDS)) {
+          LOGGER.error("Timed out after polling mailboxes: {}", _sendingStageInstances);
+          return TransferableBlockUtils.getErrorTransferableBlock(QueryException.EXECUTION_TIMEOUT_ERROR);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return TransferableBlockUtils.getErrorTransferableBlock(e);
+      }
     }
-    if (System.nanoTime() >= timeoutWatermark) {
-      LOGGER.error("Timed out after polling mailboxes: {}", _sendingStageInstances);
-      return TransferableBlockUtils.getErrorTransferableBlock(QueryException.EXECUTION_TIMEOUT_ERROR);
-    } else {
-      return TransferableBlockUtils.getEndOfStreamTransferableBlock(_dataSchema);
+  }
+
+  private void initReceivingMailboxes() {
+    List<ReceivingMailbox<TransferableBlock>> receivingMailboxes = new ArrayList<>(_sendingStageInstances.size());
+    for (ServerInstance sendingInstance : _sendingStageInstances) {
+      ReceivingMailbox<TransferableBlock> receivingMailbox =
+          _mailboxService.getReceivingMailbox(toMailboxId(sendingInstance));
+      receivingMailbox.setDataAvailableListener(this::onDataAvailable);
+      receivingMailboxes.add(receivingMailbox);
+    }
+    _receivingMailboxes = receivingMailboxes;
+  }
+
+  private void onDataAvailable() {
+    _dataAvailable.release();
+    Runnable callback = _dataAvailableCallback;
+    if (callback != null) {
+      callback.run();
     }
   }
 
@@ -40,12 +40,17 @@ import org.apache.pinot.query.mailbox.StringMailboxIdentifier;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.service.QueryConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
  * This {@code MailboxSendOperator} is created to send {@link TransferableBlock}s to the receiving end.
+ *
+ * <p>When a capacity available callback is set, the operator is non-blocking: it doesn't pull the next block from the
+ * upstream operator while any of the receiving ends has no capacity, but returns a no-op block instead, and the
+ * callback is invoked once the receiving ends free up capacity.
  */
 public class MailboxSendOperator extends BaseOperator<TransferableBlock> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MailboxSendOperator.class);
@@ -65,14 +70,26 @@ public class MailboxSendOperator extends BaseOperator<TransferableBlock> {
   private final int _serverPort;
   private final long _jobId;
   private final int _stageId;
+  // Deadline of the query in terms of System.nanoTime(), after which a send blocked by the receiver times out.
+  private final long _deadlineNs;
   private final MailboxService<TransferableBlock> _mailboxService;
   private final DataSchema _dataSchema;
   private Operator<TransferableBlock> _dataTableBlockBaseOperator;
+  private volatile Runnable _capacityAvailableCallback;
+  private List<SendingMailbox<TransferableBlock>> _sendingMailboxes;
 
   public MailboxSendOperator(MailboxService<TransferableBlock> mailboxService, DataSchema dataSchema,
       Operator<TransferableBlock> dataTableBlockBaseOperator, List<ServerInstance> receivingStageInstances,
       RelDistribution.Type exchangeType, KeySelector<Object[], Object[]> keySelector, String hostName, int port,
       long jobId, int stageId) {
+    this(mailboxService, dataSchema, dataTableBlockBaseOperator, receivingStageInstances, exchangeType, keySelector,
+        hostName, port, jobId, stageId, System.nanoTime() + QueryConfig.DEFAULT_TIMEOUT_NANO);
+  }
+
+  public MailboxSendOperator(MailboxService<TransferableBlock> mailboxService, DataSchema dataSchema,
+      Operator<TransferableBlock> dataTableBlockBaseOperator, List<ServerInstance> receivingStageInstances,
+      RelDistribution.Type exchangeType, KeySelector<Object[], Object[]> keySelector, String hostName, int port,
+      long jobId, int stageId, long deadlineNs) {
     _dataSchema = dataSchema;
     _mailboxService = mailboxService;
     _dataTableBlockBaseOperator = dataTableBlockBaseOperator;
@@ -96,6 +113,7 @@ public class MailboxSendOperator extends BaseOperator<TransferableBlock> {
     _serverPort = port;
     _jobId = jobId;
     _stageId = stageId;
+    _deadlineNs = deadlineNs;
     Preconditions.checkState(SUPPORTED_EXCHANGE_TYPE.contains(_exchangeType),
         String.format("Exchange type '%s' is not supported yet", _exchangeType));
   }
@@ -112,9 +130,25 @@ public class MailboxSendOperator extends BaseOperator<TransferableBlock> {
     return EXPLAIN_NAME;
   }
 
+  /**
+   * Makes the operator non-blocking, see {@link TransferableBlockUtils#getNoOpTransferableBlock()}. The callback is
+   * invoked whenever any of the receiving ends frees up capacity. This must be set before the first block is
+   * requested.
+   */
+  public void setCapacityAvailableCallback(Runnable callback) {
+    _capacityAvailableCallback = callback;
+  }
+
   @Override
   protected TransferableBlock getNextBlock() {
+    if (_capacityAvailableCallback != null && !hasCapacity()) {
+      return TransferableBlockUtils.getNoOpTransferableBlock();
+    }
     TransferableBlock transferableBlock = _dataTableBlockBaseOperator.nextBlock();
+    if (TransferableBlockUtils.isNoOpBlock(transferableBlock)) {
+      // nothing to send, yields to the caller.
+      return transferableBlock;
+    }
     boolean isEndOfStream = TransferableBlockUtils.isEndOfStream(transferableBlock);
     BaseDataBlock.Type type = transferableBlock.getType();
     try {
@@ -141,8 +175,9 @@ public class MailboxSendOperator extends BaseOperator<TransferableBlock> {
           List<TransferableBlock> dataTableList = constructPartitionedDataBlock(transferableBlock, _keySelector,
               _receivingStageInstances.size(), isEndOfStream);
           for (int i = 0; i < _receivingStageInstances.size(); i++) {
-            sendDataTableBlockToServers(Arrays.asList(_receivingStageInstances.get(i)), dataTableList.get(i), type,
-                isEndOfStream);
+            TransferableBlock partitionedBlock = dataTableList.get(i);
+            sendDataTableBlockToServers(Arrays.asList(_receivingStageInstances.get(i)), partitionedBlock,
+                partitionedBlock.getType(), isEndOfStream);
           }
           break;
         case RANGE_DISTRIBUTED:
@@ -157,10 +192,30 @@ public class MailboxSendOperator extends BaseOperator<TransferableBlock> {
     return transferableBlock;
   }
 
+  private boolean hasCapacity() {
+    if (_sendingMailboxes == null) {
+      List<SendingMailbox<TransferableBlock>> sendingMailboxes = new ArrayList<>(_receivingStageInstances.size());
+      for (ServerInstance serverInstance : _receivingStageInstances) {
+        SendingMailbox<TransferableBlock> sendingMailbox =
+            _mailboxService.getSendingMailbox(toMailboxId(serverInstance));
+        sendingMailbox.setCapacityAvailableListener(_capacityAvailableCallback);
+        sendingMailboxes.add(sendingMailbox);
+      }
+      _sendingMailboxes = sendingMailboxes;
+    }
+    for (SendingMailbox<TransferableBlock> sendingMailbox : _sendingMailboxes) {
+      if (!sendingMailbox.hasCapacity()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static List<TransferableBlock> constructPartitionedDataBlock(TransferableBlock transferableBlock,
       KeySelector<Object[], Object[]> keySelector, int partitionSize, boolean isEndOfStream) {
     List<TransferableBlock> transferableBlockList = new ArrayList<>(partitionSize);
-    if (isEndOfStream) {
+    // With a single partition, the block is forwarded as-is without extracting its rows.
+    if (isEndOfStream || partitionSize == 1) {
       for (int i = 0; i < partitionSize; i++) {
         transferableBlockList.add(transferableBlock);
       }
@@ -174,10 +229,11 @@ public class MailboxSendOperator extends BaseOperator<TransferableBlock> {
         int partitionId = keySelector.computeHash(row) % partitionSize;
         temporaryRows.get(partitionId).add(row);
       }
+      // The partitioned blocks always hold rows, even when the block is columnar.
       for (int i = 0; i < partitionSize; i++) {
         List<Object[]> container = temporaryRows.get(i);
         transferableBlockList.add(new TransferableBlock(
-            container, transferableBlock.getDataSchema(), transferableBlock.getType()));
+            container, transferableBlock.getDataSchema(), BaseDataBlock.Type.ROW));
       }
     }
     return transferableBlockList;
@@ -205,7 +261,7 @@ public class MailboxSendOperator extends BaseOperator<TransferableBlock> {
       boolean isEndOfStream) {
     MailboxIdentifier mailboxId = toMailboxId(serverInstance);
     SendingMailbox<TransferableBlock> sendingMailbox = _mailboxService.getSendingMailbox(mailboxId);
-    sendingMailbox.send(transferableBlock);
+    sendingMailbox.send(transferableBlock, _deadlineNs);
     if (isEndOfStream) {
       sendingMailbox.complete();
     }
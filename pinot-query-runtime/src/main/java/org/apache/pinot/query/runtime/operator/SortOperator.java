@@ -44,6 +44,7 @@ public class SortOperator extends BaseOperator<TransferableBlock> {
   private final PriorityQueue<Object[]> _rows;
   private final int _numRowsToKeep;
 
+  private boolean _isInputConsumed;
   private boolean _isSortedBlockConstructed;
   private TransferableBlock _upstreamErrorBlock;
 
@@ -54,6 +55,7 @@ public class SortOperator extends BaseOperator<TransferableBlock> {
     _offset = offset;
     _dataSchema = dataSchema;
     _upstreamErrorBlock = null;
+    _isInputConsumed = false;
     _isSortedBlockConstructed = false;
     _numRowsToKeep = _fetch > 0 ? Math.min(SelectionOperatorUtils.MAX_ROW_HOLDER_INITIAL_CAPACITY,
         _fetch + (Math.max(_offset, 0))) : SelectionOperatorUtils.MAX_ROW_HOLDER_INITIAL_CAPACITY;
@@ -77,6 +79,10 @@ public class SortOperator extends BaseOperator<TransferableBlock> {
   protected TransferableBlock getNextBlock() {
     try {
       consumeInputBlocks();
+      if (!_isInputConsumed) {
+        // The upstream operator has no data available yet, yields and resumes consuming on the next call.
+        return TransferableBlockUtils.getNoOpTransferableBlock();
+      }
       return produceSortedBlock();
     } catch (Exception e) {
       return TransferableBlockUtils.getErrorTransferableBlock(e);
@@ -106,20 +112,24 @@ public class SortOperator extends BaseOperator<TransferableBlock> {
   }
 
   private void consumeInputBlocks() {
-    if (!_isSortedBlockConstructed) {
+    while (!_isInputConsumed) {
       TransferableBlock block = _upstreamOperator.nextBlock();
-      while (!TransferableBlockUtils.isEndOfStream(block)) {
+      if (TransferableBlockUtils.isNoOpBlock(block)) {
+        return;
+      }
+      if (TransferableBlockUtils.isEndOfStream(block)) {
+        // setting upstream error block
+        if (block.isErrorBlock()) {
+          _upstreamErrorBlock = block;
+        }
+        _isInputConsumed = true;
+      } else {
         BaseDataBlock dataBlock = block.getDataBlock();
         int numRows = dataBlock.getNumberOfRows();
         for (int rowId = 0; rowId < numRows; rowId++) {
           Object[] row = SelectionOperatorUtils.extractRowFromDataTable(dataBlock, rowId);
           SelectionOperatorUtils.addToPriorityQueue(row, _rows, _numRowsToKeep);
         }
-        block = _upstreamOperator.nextBlock();
-      }
-      // setting upstream error block
-      if (block.isErrorBlock()) {
-        _upstreamErrorBlock = block;
       }
     }
   }
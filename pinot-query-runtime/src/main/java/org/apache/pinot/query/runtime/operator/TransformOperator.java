@@ -29,11 +29,16 @@ import org.apache.pinot.core.operator.BaseOperator;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.operands.ReferenceOperand;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
 
 
 /**
  * This basic {@code TransformOperator} implement basic transformations.
+ *
+ * <p>When all the transforms are column references and the upstream block is still binary-packed, only the referenced
+ * columns are extracted from the data block. If the transforms select all the upstream columns in order, the upstream
+ * block is forwarded as-is.
  */
 public class TransformOperator extends BaseOperator<TransferableBlock> {
   private static final String EXPLAIN_NAME = "TRANSFORM";
@@ -41,6 +46,9 @@ public class TransformOperator extends BaseOperator<TransferableBlock> {
   private final List<TransformOperand> _transformOperandsList;
   private final int _resultColumnSize;
   private final DataSchema _resultSchema;
+  // Ids of the referenced upstream columns when all the transforms are column references, null otherwise.
+  private final int[] _refIndices;
+  private final boolean _isIdentity;
   private TransferableBlock _upstreamErrorBlock;
 
   public TransformOperator(Operator<TransferableBlock> upstreamOperator, DataSchema dataSchema,
@@ -52,6 +60,33 @@ public class TransformOperator extends BaseOperator<TransferableBlock> {
       _transformOperandsList.add(TransformOperand.toTransformOperand(rexExpression, upstreamDataSchema));
     }
     _resultSchema = dataSchema;
+    _refIndices = getRefIndices(_transformOperandsList);
+    _isIdentity = _refIndices != null && isIdentity(_refIndices, upstreamDataSchema);
+  }
+
+  @Nullable
+  private static int[] getRefIndices(List<TransformOperand> transformOperands) {
+    int[] refIndices = new int[transformOperands.size()];
+    for (int i = 0; i < refIndices.length; i++) {
+      TransformOperand transformOperand = transformOperands.get(i);
+      if (!(transformOperand instanceof ReferenceOperand)) {
+        return null;
+      }
+      refIndices[i] = ((ReferenceOperand) transformOperand).getRefIndex();
+    }
+    return refIndices;
+  }
+
+  private static boolean isIdentity(int[] refIndices, DataSchema upstreamDataSchema) {
+    if (refIndices.length != upstreamDataSchema.size()) {
+      return false;
+    }
+    for (int i = 0; i < refIndices.length; i++) {
+      if (refIndices[i] != i) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
@@ -80,7 +115,13 @@ public class TransformOperator extends BaseOperator<TransferableBlock> {
     if (_upstreamErrorBlock != null) {
       return _upstreamErrorBlock;
     }
+    if (TransferableBlockUtils.isNoOpBlock(block)) {
+      return block;
+    }
     if (!TransferableBlockUtils.isEndOfStream(block)) {
+      if (_refIndices != null && !block.isContainerBlock()) {
+        return projectDataBlock(block);
+      }
       List<Object[]> resultRows = new ArrayList<>();
       List<Object[]> container = block.getContainer();
       for (Object[] row : container) {
@@ -98,4 +139,18 @@ public class TransformOperator extends BaseOperator<TransferableBlock> {
       return new TransferableBlock(DataBlockUtils.getEndOfStreamDataBlock(_resultSchema));
     }
   }
+
+  private TransferableBlock projectDataBlock(TransferableBlock block) {
+    if (_isIdentity) {
+      return block;
+    }
+    BaseDataBlock dataBlock = block.getDataBlock();
+    int numRows = dataBlock.getNumberOfRows();
+    int[] rowIds = new int[numRows];
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      rowIds[rowId] = rowId;
+    }
+    return new TransferableBlock(DataBlockUtils.extractRows(dataBlock, rowIds, numRows, _refIndices), _resultSchema,
+        BaseDataBlock.Type.ROW);
+  }
 }
@@ -0,0 +1,594 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.pinot.common.datablock.BaseDataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.stage.WindowNode;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+
+
+/**
+ * The {@code WindowAggregateOperator} computes the window (OVER clause) functions of a single window group.
+ *
+ * <p>The input is hash distributed on the PARTITION BY keys, so each window partition is entirely processed by one
+ * operator. The input rows are buffered per partition, then each partition is sorted on the ORDER BY keys and the
+ * window functions are computed in a single pass over the sorted rows, emitting the input columns followed by the
+ * window function values. The partitions are emitted one after the other, in blocks of at most
+ * {@link #MAX_ROWS_PER_BLOCK} rows.
+ *
+ * <p>Supported window functions are ROW_NUMBER, RANK, DENSE_RANK and the SUM, $SUM0, COUNT, MIN and MAX aggregations
+ * over ROWS or RANGE frames. The frame bounds of the rows in a sorted partition only move forward, so SUM and COUNT
+ * are computed with a sliding accumulator (in {@code long} for integer results, compensated for floating point
+ * results), and MIN and MAX are computed with a monotonic deque. RANGE frames with a value offset require a single
+ * numeric ORDER BY key.
+ */
+public class WindowAggregateOperator extends BaseOperator<TransferableBlock> {
+  private static final String EXPLAIN_NAME = "WINDOW_AGGREGATE_OPERATOR";
+  private static final int MAX_ROWS_PER_BLOCK = 10_000;
+
+  private final Operator<TransferableBlock> _inputOperator;
+  private final DataSchema _resultSchema;
+  private final int[] _partitionKeyIds;
+  private final int[] _orderKeyIds;
+  private final boolean[] _orderKeyDescending;
+  private final boolean[] _orderKeyNullsFirst;
+  private final boolean[] _orderKeyNumeric;
+  private final WindowFunction[] _windowFunctions;
+  private final int _numInputColumns;
+  private final boolean _isRows;
+  private final long _lowerBound;
+  private final long _upperBound;
+
+  private final Map<Key, List<Object[]>> _partitions = new HashMap<>();
+  private Iterator<List<Object[]>> _partitionIterator;
+  private TransferableBlock _upstreamErrorBlock;
+  private boolean _isInputConsumed;
+
+  public WindowAggregateOperator(Operator<TransferableBlock> inputOperator, DataSchema dataSchema,
+      List<RexExpression> groupSet, List<RexExpression> orderSet, List<RelFieldCollation.Direction> orderSetDirection,
+      List<RelFieldCollation.NullDirection> orderSetNullDirection, List<RexExpression> aggCalls, boolean isRows,
+      long lowerBound, long upperBound, DataSchema upstreamDataSchema) {
+    _inputOperator = inputOperator;
+    _resultSchema = dataSchema;
+    _numInputColumns = upstreamDataSchema.size();
+    _partitionKeyIds = toInputRefIds(groupSet);
+    _orderKeyIds = toInputRefIds(orderSet);
+    _orderKeyDescending = new boolean[_orderKeyIds.length];
+    _orderKeyNullsFirst = new boolean[_orderKeyIds.length];
+    _orderKeyNumeric = new boolean[_orderKeyIds.length];
+    for (int i = 0; i < _orderKeyIds.length; i++) {
+      _orderKeyDescending[i] = orderSetDirection.get(i).isDescending();
+      // unspecified null direction treats nulls as the largest values
+      RelFieldCollation.NullDirection nullDirection = orderSetNullDirection.get(i);
+      _orderKeyNullsFirst[i] = nullDirection == RelFieldCollation.NullDirection.UNSPECIFIED ? _orderKeyDescending[i]
+          : nullDirection == RelFieldCollation.NullDirection.FIRST;
+      _orderKeyNumeric[i] = upstreamDataSchema.getColumnDataType(_orderKeyIds[i]).isNumber();
+    }
+    _windowFunctions = new WindowFunction[aggCalls.size()];
+    for (int i = 0; i < _windowFunctions.length; i++) {
+      _windowFunctions[i] = new WindowFunction((RexExpression.FunctionCall) aggCalls.get(i),
+          dataSchema.getColumnDataType(_numInputColumns + i));
+    }
+    _isRows = isRows;
+    _lowerBound = lowerBound;
+    _upperBound = upperBound;
+    if (!isRows && (isValueOffset(lowerBound) || isValueOffset(upperBound))) {
+      Preconditions.checkState(_orderKeyIds.length == 1 && _orderKeyNumeric[0],
+          "RANGE frame with value offset requires a single numeric ORDER BY key");
+    }
+  }
+
+  private static int[] toInputRefIds(List<RexExpression> expressions) {
+    int[] ids = new int[expressions.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = ((RexExpression.InputRef) expressions.get(i)).getIndex();
+    }
+    return ids;
+  }
+
+  private static boolean isValueOffset(long bound) {
+    return bound != 0 && bound != WindowNode.UNBOUNDED_PRECEDING && bound != WindowNode.UNBOUNDED_FOLLOWING;
+  }
+
+  @Override
+  public List<Operator> getChildOperators() {
+    // WorkerExecutor doesn't use getChildOperators, returns null here.
+    return null;
+  }
+
+  @Nullable
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  protected TransferableBlock getNextBlock() {
+    try {
+      consumeInputBlocks();
+      if (!_isInputConsumed) {
+        // The input operator has no data available yet, yields and resumes consuming on the next call.
+        return TransferableBlockUtils.getNoOpTransferableBlock();
+      }
+      return produceWindowBlock();
+    } catch (Exception e) {
+      return TransferableBlockUtils.getErrorTransferableBlock(e);
+    }
+  }
+
+  private void consumeInputBlocks() {
+    while (!_isInputConsumed) {
+      TransferableBlock block = _inputOperator.nextBlock();
+      if (TransferableBlockUtils.isNoOpBlock(block)) {
+        return;
+      }
+      if (TransferableBlockUtils.isEndOfStream(block)) {
+        // setting upstream error block
+        if (block.isErrorBlock()) {
+          _upstreamErrorBlock = block;
+        }
+        _isInputConsumed = true;
+        _partitionIterator = _partitions.values().iterator();
+      } else {
+        // rows are buffered as is, which avoids serializing the blocks produced by an operator of the same stage
+        for (Object[] row : block.getContainer()) {
+          _partitions.computeIfAbsent(extractPartitionKey(row), k -> new ArrayList<>()).add(row);
+        }
+      }
+    }
+  }
+
+  private Key extractPartitionKey(Object[] row) {
+    Object[] values = new Object[_partitionKeyIds.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = row[_partitionKeyIds[i]];
+    }
+    return new Key(values);
+  }
+
+  private TransferableBlock produceWindowBlock() {
+    if (_upstreamErrorBlock != null) {
+      return _upstreamErrorBlock;
+    }
+    List<Object[]> rows = new ArrayList<>();
+    while (rows.size() < MAX_ROWS_PER_BLOCK && _partitionIterator.hasNext()) {
+      List<Object[]> partition = _partitionIterator.next();
+      _partitionIterator.remove();
+      processPartition(partition, rows);
+    }
+    if (rows.isEmpty()) {
+      return TransferableBlockUtils.getEndOfStreamTransferableBlock(_resultSchema);
+    }
+    return new TransferableBlock(rows, _resultSchema, BaseDataBlock.Type.ROW);
+  }
+
+  /**
+   * Sorts the rows of a partition on the ORDER BY keys, and appends the rows with the window function values to the
+   * result rows.
+   */
+  private void processPartition(List<Object[]> partition, List<Object[]> resultRows) {
+    if (_orderKeyIds.length > 0) {
+      partition.sort(this::compareOrderKeys);
+    }
+    int numRows = partition.size();
+    // Peer rows have equal ORDER BY keys, without ORDER BY all the rows of the partition are peers.
+    int[] peerStarts = new int[numRows];
+    int[] peerEnds = new int[numRows];
+    int peerStart = 0;
+    for (int i = 1; i <= numRows; i++) {
+      if (i == numRows || compareOrderKeys(partition.get(i - 1), partition.get(i)) != 0) {
+        for (int j = peerStart; j < i; j++) {
+          peerStarts[j] = peerStart;
+          peerEnds[j] = i - 1;
+        }
+        peerStart = i;
+      }
+    }
+    int[] frameStarts = new int[numRows];
+    int[] frameEnds = new int[numRows];
+    if (_isRows) {
+      for (int i = 0; i < numRows; i++) {
+        frameStarts[i] = (int) Math.max(0, Math.min(numRows, getRowsFrameBound(i, _lowerBound, numRows)));
+        frameEnds[i] = (int) Math.max(-1, Math.min(numRows - 1, getRowsFrameBound(i, _upperBound, numRows)));
+      }
+    } else {
+      computeRangeFrameBounds(partition, peerStarts, peerEnds, _lowerBound, frameStarts, true);
+      computeRangeFrameBounds(partition, peerStarts, peerEnds, _upperBound, frameEnds, false);
+    }
+
+    Object[][] outputRows = new Object[numRows][];
+    for (int i = 0; i < numRows; i++) {
+      outputRows[i] = Arrays.copyOf(partition.get(i), _numInputColumns + _windowFunctions.length);
+    }
+    for (int i = 0; i < _windowFunctions.length; i++) {
+      _windowFunctions[i].compute(partition, peerStarts, frameStarts, frameEnds, outputRows, _numInputColumns + i);
+    }
+    resultRows.addAll(Arrays.asList(outputRows));
+  }
+
+  private static long getRowsFrameBound(int rowId, long bound, int numRows) {
+    if (bound == WindowNode.UNBOUNDED_PRECEDING) {
+      return 0;
+    }
+    if (bound == WindowNode.UNBOUNDED_FOLLOWING) {
+      return numRows - 1;
+    }
+    return rowId + bound;
+  }
+
+  /**
+   * Computes the RANGE frame start (or end) of each row. With a value offset, the frame contains the rows whose ORDER
+   * BY value is within the offset of the current row value, rows with {@code null} ORDER BY value are only in the
+   * frame of their peers.
+   */
+  private void computeRangeFrameBounds(List<Object[]> partition, int[] peerStarts, int[] peerEnds, long bound,
+      int[] frameBounds, boolean isStart) {
+    int numRows = partition.size();
+    if (bound == WindowNode.UNBOUNDED_PRECEDING || bound == WindowNode.UNBOUNDED_FOLLOWING) {
+      Arrays.fill(frameBounds, bound == WindowNode.UNBOUNDED_PRECEDING ? 0 : numRows - 1);
+      return;
+    }
+    if (bound == 0) {
+      System.arraycopy(isStart ? peerStarts : peerEnds, 0, frameBounds, 0, numRows);
+      return;
+    }
+    // Rows are sorted so that the signed values are ascending, nulls are sorted first or last
+    int orderKeyId = _orderKeyIds[0];
+    double sign = _orderKeyDescending[0] ? -1 : 1;
+    boolean nullsFirst = _orderKeyNullsFirst[0];
+    int pointer = 0;
+    for (int i = 0; i < numRows; i++) {
+      Object value = partition.get(i)[orderKeyId];
+      if (value == null) {
+        frameBounds[i] = isStart ? peerStarts[i] : peerEnds[i];
+        continue;
+      }
+      double target = sign * ((Number) value).doubleValue() + bound;
+      if (isStart) {
+        // first row with signed value >= target
+        while (pointer < numRows && isBefore(partition.get(pointer)[orderKeyId], sign, target, nullsFirst)) {
+          pointer++;
+        }
+        frameBounds[i] = pointer;
+      } else {
+        // last row with signed value <= target
+        while (pointer < numRows && isNotAfter(partition.get(pointer)[orderKeyId], sign, target, nullsFirst)) {
+          pointer++;
+        }
+        frameBounds[i] = pointer - 1;
+      }
+    }
+  }
+
+  private static boolean isBefore(@Nullable Object value, double sign, double target, boolean nullsFirst) {
+    return value == null ? nullsFirst : sign * ((Number) value).doubleValue() < target;
+  }
+
+  private static boolean isNotAfter(@Nullable Object value, double sign, double target, boolean nullsFirst) {
+    return value == null ? nullsFirst : sign * ((Number) value).doubleValue() <= target;
+  }
+
+  /**
+   * Compares the ORDER BY keys of 2 rows, {@code null} values are sorted first or last as specified by the null
+   * direction regardless of the sort direction.
+   */
+  private int compareOrderKeys(Object[] row1, Object[] row2) {
+    for (int i = 0; i < _orderKeyIds.length; i++) {
+      Object v1 = row1[_orderKeyIds[i]];
+      Object v2 = row2[_orderKeyIds[i]];
+      int result;
+      if (v1 == null || v2 == null) {
+        if (v1 != v2) {
+          return (v1 == null) == _orderKeyNullsFirst[i] ? -1 : 1;
+        }
+        result = 0;
+      } else if (_orderKeyNumeric[i]) {
+        result = Double.compare(((Number) v1).doubleValue(), ((Number) v2).doubleValue());
+      } else {
+        //noinspection unchecked
+        result = ((Comparable) v1).compareTo(v2);
+      }
+      if (result != 0) {
+        return _orderKeyDescending[i] ? -result : result;
+      }
+    }
+    return 0;
+  }
+
+  private enum WindowFunctionType {
+    ROW_NUMBER, RANK, DENSE_RANK, SUM, SUM0, COUNT, MIN, MAX
+  }
+
+  private static class WindowFunction {
+    final WindowFunctionType _type;
+    final ColumnDataType _resultType;
+    // Index of the input column, or -1 for a literal (or no) operand
+    final int _inputRef;
+    final Object _literal;
+
+    WindowFunction(RexExpression.FunctionCall functionCall, ColumnDataType resultType) {
+      _type = toWindowFunctionType(functionCall.getFunctionName());
+      _resultType = resultType;
+      List<RexExpression> operands = functionCall.getFunctionOperands();
+      Preconditions.checkState(operands.size() < 2, "Unsupported window function: %s with %s operands",
+          functionCall.getFunctionName(), operands.size());
+      if (operands.isEmpty()) {
+        _inputRef = -1;
+        _literal = 1;
+      } else if (operands.get(0) instanceof RexExpression.InputRef) {
+        _inputRef = ((RexExpression.InputRef) operands.get(0)).getIndex();
+        _literal = null;
+      } else {
+        _inputRef = -1;
+        _literal = ((RexExpression.Literal) operands.get(0)).getValue();
+      }
+    }
+
+    private static WindowFunctionType toWindowFunctionType(String functionName) {
+      switch (functionName) {
+        case "ROW_NUMBER":
+          return WindowFunctionType.ROW_NUMBER;
+        case "RANK":
+          return WindowFunctionType.RANK;
+        case "DENSE_RANK":
+          return WindowFunctionType.DENSE_RANK;
+        case "SUM":
+        case "$SUM":
+          return WindowFunctionType.SUM;
+        case "$SUM0":
+          return WindowFunctionType.SUM0;
+        case "COUNT":
+          return WindowFunctionType.COUNT;
+        case "MIN":
+        case "$MIN":
+          return WindowFunctionType.MIN;
+        case "MAX":
+        case "$MAX":
+          return WindowFunctionType.MAX;
+        default:
+          throw new UnsupportedOperationException("Unsupported window function: " + functionName);
+      }
+    }
+
+    @Nullable
+    Object getValue(Object[] row) {
+      return _inputRef >= 0 ? row[_inputRef] : _literal;
+    }
+
+    void compute(List<Object[]> rows, int[] peerStarts, int[] frameStarts, int[] frameEnds, Object[][] outputRows,
+        int outputColumnId) {
+      int numRows = rows.size();
+      switch (_type) {
+        case ROW_NUMBER:
+          for (int i = 0; i < numRows; i++) {
+            outputRows[i][outputColumnId] = convert(i + 1L);
+          }
+          break;
+        case RANK:
+          for (int i = 0; i < numRows; i++) {
+            outputRows[i][outputColumnId] = convert(peerStarts[i] + 1L);
+          }
+          break;
+        case DENSE_RANK:
+          long denseRank = 0;
+          for (int i = 0; i < numRows; i++) {
+            if (peerStarts[i] == i) {
+              denseRank++;
+            }
+            outputRows[i][outputColumnId] = convert(denseRank);
+          }
+          break;
+        case SUM:
+        case SUM0:
+        case COUNT:
+          computeSumOrCount(rows, frameStarts, frameEnds, outputRows, outputColumnId);
+          break;
+        case MIN:
+        case MAX:
+          computeMinOrMax(rows, frameStarts, frameEnds, outputRows, outputColumnId);
+          break;
+        default:
+          throw new IllegalStateException("Unsupported window function type: " + _type);
+      }
+    }
+
+    /**
+     * Computes SUM and COUNT with a sliding accumulator over the rows in {@code [windowStart, windowEnd)}: the rows
+     * entering the frame are added and the rows leaving it are subtracted.
+     */
+    private void computeSumOrCount(List<Object[]> rows, int[] frameStarts, int[] frameEnds, Object[][] outputRows,
+        int outputColumnId) {
+      int numRows = rows.size();
+      boolean isCount = _type == WindowFunctionType.COUNT;
+      SlidingSum sum = new SlidingSum(_resultType == ColumnDataType.INT || _resultType == ColumnDataType.LONG);
+      int windowStart = 0;
+      int windowEnd = 0;
+      for (int i = 0; i < numRows; i++) {
+        int start = frameStarts[i];
+        int end = frameEnds[i] + 1;
+        if (start < windowStart || start >= windowEnd || end < windowEnd) {
+          // the frame doesn't slide forward from the current window, restart from an empty window
+          sum.reset();
+          windowStart = start;
+          windowEnd = start;
+        }
+        for (; windowStart < start; windowStart++) {
+          Object value = getValue(rows.get(windowStart));
+          if (value != null) {
+            sum.remove(isCount ? null : (Number) value);
+          }
+        }
+        for (; windowEnd < end; windowEnd++) {
+          Object value = getValue(rows.get(windowEnd));
+          if (value != null) {
+            sum.add(isCount ? null : (Number) value);
+          }
+        }
+        Object result;
+        if (isCount) {
+          result = sum._count;
+        } else if (sum._count == 0) {
+          result = _type == WindowFunctionType.SUM0 ? 0 : null;
+        } else {
+          result = sum.getSum();
+        }
+        outputRows[i][outputColumnId] = convert(result);
+      }
+    }
+
+    private void computeMinOrMax(List<Object[]> rows, int[] frameStarts, int[] frameEnds, Object[][] outputRows,
+        int outputColumnId) {
+      int numRows = rows.size();
+      boolean isMin = _type == WindowFunctionType.MIN;
+      // Monotonic deque of row ids with non-null values, the head holds the min (or max) value of the frame
+      int[] deque = new int[numRows];
+      int head = 0;
+      int tail = 0;
+      int nextRowId = 0;
+      for (int i = 0; i < numRows; i++) {
+        int start = frameStarts[i];
+        int end = frameEnds[i];
+        while (nextRowId <= end) {
+          Object value = getValue(rows.get(nextRowId));
+          if (value != null) {
+            while (tail > head && !isBetter(getValue(rows.get(deque[tail - 1])), value, isMin)) {
+              tail--;
+            }
+            deque[tail++] = nextRowId;
+          }
+          nextRowId++;
+        }
+        while (tail > head && deque[head] < start) {
+          head++;
+        }
+        outputRows[i][outputColumnId] = start <= end && tail > head ? convert(getValue(rows.get(deque[head]))) : null;
+      }
+    }
+
+    /**
+     * Returns whether the existing value should be kept in front of the new value in the deque.
+     */
+    private static boolean isBetter(Object existing, Object value, boolean isMin) {
+      int result;
+      if (existing instanceof Number && value instanceof Number) {
+        result = Double.compare(((Number) existing).doubleValue(), ((Number) value).doubleValue());
+      } else {
+        //noinspection unchecked
+        result = ((Comparable) existing).compareTo(value);
+      }
+      return isMin ? result < 0 : result > 0;
+    }
+
+    @Nullable
+    private Object convert(@Nullable Object value) {
+      if (!(value instanceof Number)) {
+        return value;
+      }
+      Number number = (Number) value;
+      switch (_resultType) {
+        case INT:
+          return number.intValue();
+        case LONG:
+          return number.longValue();
+        case FLOAT:
+          return number.floatValue();
+        case DOUBLE:
+          return number.doubleValue();
+        default:
+          return value;
+      }
+    }
+  }
+
+  /**
+   * Sum and count of the non-null values of a sliding window. Integer results are accumulated in {@code long} and
+   * floating point results with a compensated (Neumaier) sum, so that the small values still in the window are not
+   * lost when a large value leaves it.
+   */
+  private static class SlidingSum {
+    final boolean _isIntegral;
+    long _count;
+    long _longSum;
+    double _doubleSum;
+    double _compensation;
+
+    SlidingSum(boolean isIntegral) {
+      _isIntegral = isIntegral;
+    }
+
+    void reset() {
+      _count = 0;
+      _longSum = 0;
+      _doubleSum = 0;
+      _compensation = 0;
+    }
+
+    void add(@Nullable Number value) {
+      _count++;
+      if (value != null) {
+        if (_isIntegral) {
+          _longSum += value.longValue();
+        } else {
+          addDouble(value.doubleValue());
+        }
+      }
+    }
+
+    void remove(@Nullable Number value) {
+      _count--;
+      if (value != null) {
+        if (_isIntegral) {
+          _longSum -= value.longValue();
+        } else {
+          addDouble(-value.doubleValue());
+        }
+      }
+    }
+
+    private void addDouble(double value) {
+      double sum = _doubleSum + value;
+      if (Math.abs(_doubleSum) >= Math.abs(value)) {
+        _compensation += (_doubleSum - sum) + value;
+      } else {
+        _compensation += (value - sum) + _doubleSum;
+      }
+      _doubleSum = sum;
+    }
+
+    Number getSum() {
+      return _isIntegral ? (Number) _longSum : (Number) (_doubleSum + _compensation);
+    }
+  }
+}
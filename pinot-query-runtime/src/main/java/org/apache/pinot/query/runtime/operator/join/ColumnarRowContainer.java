@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.BitSet;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+
+
+/**
+ * The {@code ColumnarRowContainer} stores rows column by column, using primitive arrays for the numeric column types
+ * so that the values are not kept as boxed objects for the whole lifetime of the container.
+ *
+ * <p>Rows are addressed by a dense row id assigned in insertion order. Null values are tracked with a per-column
+ * {@link BitSet}, which is only allocated once the first null value is added to the column.
+ */
+public class ColumnarRowContainer {
+  private final Column[] _columns;
+  private int _numRows;
+
+  public ColumnarRowContainer(DataSchema dataSchema) {
+    ColumnDataType[] columnDataTypes = dataSchema.getColumnDataTypes();
+    int numColumns = columnDataTypes.length;
+    _columns = new Column[numColumns];
+    for (int i = 0; i < numColumns; i++) {
+      _columns[i] = createColumn(columnDataTypes[i]);
+    }
+  }
+
+  private static Column createColumn(ColumnDataType columnDataType) {
+    switch (columnDataType) {
+      case INT:
+        return new IntColumn();
+      case LONG:
+        return new LongColumn();
+      case FLOAT:
+        return new FloatColumn();
+      case DOUBLE:
+        return new DoubleColumn();
+      default:
+        return new ObjectColumn();
+    }
+  }
+
+  /**
+   * Appends a row to the container and returns its row id.
+   */
+  public int addRow(Object[] row) {
+    for (int i = 0; i < _columns.length; i++) {
+      _columns[i].add(row[i]);
+    }
+    return _numRows++;
+  }
+
+  public int getNumRows() {
+    return _numRows;
+  }
+
+  public int getNumColumns() {
+    return _columns.length;
+  }
+
+  @Nullable
+  public Object getValue(int rowId, int columnId) {
+    return _columns[columnId].get(rowId);
+  }
+
+  /**
+   * Copies the values of the given row into the destination array, starting at the given offset.
+   */
+  public void copyRow(int rowId, Object[] dest, int offset) {
+    for (int i = 0; i < _columns.length; i++) {
+      dest[offset + i] = _columns[i].get(rowId);
+    }
+  }
+
+  public Object[] getRow(int rowId) {
+    Object[] row = new Object[_columns.length];
+    copyRow(rowId, row, 0);
+    return row;
+  }
+
+  private static abstract class Column {
+    private BitSet _nullRowIds;
+    protected int _size;
+
+    void add(@Nullable Object value) {
+      if (value == null) {
+        if (_nullRowIds == null) {
+          _nullRowIds = new BitSet();
+        }
+        _nullRowIds.set(_size);
+        addNull();
+      } else {
+        addNonNull(value);
+      }
+      _size++;
+    }
+
+    @Nullable
+    Object get(int rowId) {
+      if (_nullRowIds != null && _nullRowIds.get(rowId)) {
+        return null;
+      }
+      return getNonNull(rowId);
+    }
+
+    abstract void addNull();
+
+    abstract void addNonNull(Object value);
+
+    abstract Object getNonNull(int rowId);
+  }
+
+  private static class IntColumn extends Column {
+    private final IntArrayList _values = new IntArrayList();
+
+    @Override
+    void addNull() {
+      _values.add(0);
+    }
+
+    @Override
+    void addNonNull(Object value) {
+      _values.add(((Number) value).intValue());
+    }
+
+    @Override
+    Object getNonNull(int rowId) {
+      return _values.getInt(rowId);
+    }
+  }
+
+  private static class LongColumn extends Column {
+    private final LongArrayList _values = new LongArrayList();
+
+    @Override
+    void addNull() {
+      _values.add(0L);
+    }
+
+    @Override
+    void addNonNull(Object value) {
+      _values.add(((Number) value).longValue());
+    }
+
+    @Override
+    Object getNonNull(int rowId) {
+      return _values.getLong(rowId);
+    }
+  }
+
+  private static class FloatColumn extends Column {
+    private final FloatArrayList _values = new FloatArrayList();
+
+    @Override
+    void addNull() {
+      _values.add(0f);
+    }
+
+    @Override
+    void addNonNull(Object value) {
+      _values.add(((Number) value).floatValue());
+    }
+
+    @Override
+    Object getNonNull(int rowId) {
+      return _values.getFloat(rowId);
+    }
+  }
+
+  private static class DoubleColumn extends Column {
+    private final DoubleArrayList _values = new DoubleArrayList();
+
+    @Override
+    void addNull() {
+      _values.add(0d);
+    }
+
+    @Override
+    void addNonNull(Object value) {
+      _values.add(((Number) value).doubleValue());
+    }
+
+    @Override
+    Object getNonNull(int rowId) {
+      return _values.getDouble(rowId);
+    }
+  }
+
+  private static class ObjectColumn extends Column {
+    private final ObjectArrayList<Object> _values = new ObjectArrayList<>();
+
+    @Override
+    void addNull() {
+      _values.add(null);
+    }
+
+    @Override
+    void addNonNull(Object value) {
+      _values.add(value);
+    }
+
+    @Override
+    Object getNonNull(int rowId) {
+      return _values.get(rowId);
+    }
+  }
+}
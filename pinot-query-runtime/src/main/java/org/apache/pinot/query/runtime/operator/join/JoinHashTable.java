@@ -0,0 +1,315 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.util.List;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.table.Key;
+
+
+/**
+ * The {@code JoinHashTable} indexes the rows of the build side of a hash join by their full join key.
+ *
+ * <p>Build rows are stored in a {@link ColumnarRowContainer}. The hash table maps each distinct join key to the id of
+ * the last inserted row with that key, and rows sharing the same key are chained through a primitive int array, so no
+ * per-key collection is allocated. Depending on the join key types, the keys are indexed with a primitive
+ * open-addressing map (single INT, single LONG or single STRING key) or with a map keyed by {@link Key} (any other
+ * key), which compares all key values instead of only their hash.
+ *
+ * <p>Rows with a {@code null} join key never match any probe row, so they are not added to the hash table.
+ */
+public abstract class JoinHashTable {
+  public static final int NO_MATCH = -1;
+
+  protected final ColumnarRowContainer _rows;
+  // Chains the build rows sharing the same join key, _nextRowIds[rowId] is the previous row id with the same key.
+  private final IntArrayList _nextRowIds = new IntArrayList();
+
+  protected JoinHashTable(DataSchema buildSchema) {
+    _rows = new ColumnarRowContainer(buildSchema);
+  }
+
+  /**
+   * Creates a {@code JoinHashTable} for the given probe (left) and build (right) side key columns.
+   */
+  public static JoinHashTable create(DataSchema probeSchema, List<Integer> probeKeyIds, DataSchema buildSchema,
+      List<Integer> buildKeyIds) {
+    Preconditions.checkState(probeKeyIds.size() == buildKeyIds.size(),
+        "Mismatching number of join keys, probe side: %s, build side: %s", probeKeyIds.size(), buildKeyIds.size());
+    if (probeKeyIds.size() == 1) {
+      int probeKeyId = probeKeyIds.get(0);
+      int buildKeyId = buildKeyIds.get(0);
+      ColumnDataType probeKeyType = probeSchema.getColumnDataType(probeKeyId);
+      ColumnDataType buildKeyType = buildSchema.getColumnDataType(buildKeyId);
+      if (probeKeyType == ColumnDataType.INT && buildKeyType == ColumnDataType.INT) {
+        return new IntKeyJoinHashTable(buildSchema, probeKeyId, buildKeyId);
+      }
+      if (isIntegral(probeKeyType) && isIntegral(buildKeyType)) {
+        return new LongKeyJoinHashTable(buildSchema, probeKeyId, buildKeyId);
+      }
+      if (probeKeyType == ColumnDataType.STRING && buildKeyType == ColumnDataType.STRING) {
+        return new StringKeyJoinHashTable(buildSchema, probeKeyId, buildKeyId);
+      }
+    }
+    return new ObjectKeyJoinHashTable(buildSchema, toIntArray(probeKeyIds), toIntArray(buildKeyIds));
+  }
+
+  private static boolean isIntegral(ColumnDataType columnDataType) {
+    return columnDataType == ColumnDataType.INT || columnDataType == ColumnDataType.LONG;
+  }
+
+  private static int[] toIntArray(List<Integer> values) {
+    int[] array = new int[values.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = values.get(i);
+    }
+    return array;
+  }
+
+  /**
+   * Adds a build side row into the hash table.
+   */
+  public void addRow(Object[] row) {
+    if (hasNullKey(row)) {
+      return;
+    }
+    int rowId = _rows.addRow(row);
+    _nextRowIds.add(putRowId(row, rowId));
+  }
+
+  /**
+   * Returns the id of the first build row matching the join key of the given probe row, or {@link #NO_MATCH}.
+   */
+  public int getFirstMatch(Object[] probeRow) {
+    return hasNullProbeKey(probeRow) ? NO_MATCH : getRowId(probeRow);
+  }
+
+  /**
+   * Returns the id of the next build row with the same join key as the given build row, or {@link #NO_MATCH}.
+   */
+  public int getNextMatch(int rowId) {
+    return _nextRowIds.getInt(rowId);
+  }
+
+  public ColumnarRowContainer getRows() {
+    return _rows;
+  }
+
+  public int getNumRows() {
+    return _rows.getNumRows();
+  }
+
+  public boolean isEmpty() {
+    return _rows.getNumRows() == 0;
+  }
+
+  protected abstract boolean hasNullKey(Object[] buildRow);
+
+  protected abstract boolean hasNullProbeKey(Object[] probeRow);
+
+  /**
+   * Associates the join key of the given build row with the row id, and returns the row id previously associated with
+   * the same key, or {@link #NO_MATCH}.
+   */
+  protected abstract int putRowId(Object[] buildRow, int rowId);
+
+  protected abstract int getRowId(Object[] probeRow);
+
+  /**
+   * Returns the hash of the join key of a build row, which is consistent with {@link #hashProbeKey(Object[])} for
+   * matching keys.
+   */
+  protected abstract int hashBuildKey(Object[] buildRow);
+
+  protected abstract int hashProbeKey(Object[] probeRow);
+
+  private static abstract class SingleKeyJoinHashTable extends JoinHashTable {
+    protected final int _probeKeyId;
+    protected final int _buildKeyId;
+
+    SingleKeyJoinHashTable(DataSchema buildSchema, int probeKeyId, int buildKeyId) {
+      super(buildSchema);
+      _probeKeyId = probeKeyId;
+      _buildKeyId = buildKeyId;
+    }
+
+    @Override
+    protected boolean hasNullKey(Object[] buildRow) {
+      return buildRow[_buildKeyId] == null;
+    }
+
+    @Override
+    protected boolean hasNullProbeKey(Object[] probeRow) {
+      return probeRow[_probeKeyId] == null;
+    }
+  }
+
+  private static class IntKeyJoinHashTable extends SingleKeyJoinHashTable {
+    private final Int2IntOpenHashMap _rowIdMap = new Int2IntOpenHashMap();
+
+    IntKeyJoinHashTable(DataSchema buildSchema, int probeKeyId, int buildKeyId) {
+      super(buildSchema, probeKeyId, buildKeyId);
+      _rowIdMap.defaultReturnValue(NO_MATCH);
+    }
+
+    @Override
+    protected int putRowId(Object[] buildRow, int rowId) {
+      return _rowIdMap.put(((Number) buildRow[_buildKeyId]).intValue(), rowId);
+    }
+
+    @Override
+    protected int getRowId(Object[] probeRow) {
+      return _rowIdMap.get(((Number) probeRow[_probeKeyId]).intValue());
+    }
+
+    @Override
+    protected int hashBuildKey(Object[] buildRow) {
+      return Integer.hashCode(((Number) buildRow[_buildKeyId]).intValue());
+    }
+
+    @Override
+    protected int hashProbeKey(Object[] probeRow) {
+      return Integer.hashCode(((Number) probeRow[_probeKeyId]).intValue());
+    }
+  }
+
+  private static class LongKeyJoinHashTable extends SingleKeyJoinHashTable {
+    private final Long2IntOpenHashMap _rowIdMap = new Long2IntOpenHashMap();
+
+    LongKeyJoinHashTable(DataSchema buildSchema, int probeKeyId, int buildKeyId) {
+      super(buildSchema, probeKeyId, buildKeyId);
+      _rowIdMap.defaultReturnValue(NO_MATCH);
+    }
+
+    @Override
+    protected int putRowId(Object[] buildRow, int rowId) {
+      return _rowIdMap.put(((Number) buildRow[_buildKeyId]).longValue(), rowId);
+    }
+
+    @Override
+    protected int getRowId(Object[] probeRow) {
+      return _rowIdMap.get(((Number) probeRow[_probeKeyId]).longValue());
+    }
+
+    @Override
+    protected int hashBuildKey(Object[] buildRow) {
+      return Long.hashCode(((Number) buildRow[_buildKeyId]).longValue());
+    }
+
+    @Override
+    protected int hashProbeKey(Object[] probeRow) {
+      return Long.hashCode(((Number) probeRow[_probeKeyId]).longValue());
+    }
+  }
+
+  private static class StringKeyJoinHashTable extends SingleKeyJoinHashTable {
+    private final Object2IntOpenHashMap<String> _rowIdMap = new Object2IntOpenHashMap<>();
+
+    StringKeyJoinHashTable(DataSchema buildSchema, int probeKeyId, int buildKeyId) {
+      super(buildSchema, probeKeyId, buildKeyId);
+      _rowIdMap.defaultReturnValue(NO_MATCH);
+    }
+
+    @Override
+    protected int putRowId(Object[] buildRow, int rowId) {
+      return _rowIdMap.put((String) buildRow[_buildKeyId], rowId);
+    }
+
+    @Override
+    protected int getRowId(Object[] probeRow) {
+      return _rowIdMap.getInt(probeRow[_probeKeyId]);
+    }
+
+    @Override
+    protected int hashBuildKey(Object[] buildRow) {
+      return buildRow[_buildKeyId].hashCode();
+    }
+
+    @Override
+    protected int hashProbeKey(Object[] probeRow) {
+      return probeRow[_probeKeyId].hashCode();
+    }
+  }
+
+  private static class ObjectKeyJoinHashTable extends JoinHashTable {
+    private final int[] _probeKeyIds;
+    private final int[] _buildKeyIds;
+    private final Object2IntOpenHashMap<Key> _rowIdMap = new Object2IntOpenHashMap<>();
+
+    ObjectKeyJoinHashTable(DataSchema buildSchema, int[] probeKeyIds, int[] buildKeyIds) {
+      super(buildSchema);
+      _probeKeyIds = probeKeyIds;
+      _buildKeyIds = buildKeyIds;
+      _rowIdMap.defaultReturnValue(NO_MATCH);
+    }
+
+    @Override
+    protected boolean hasNullKey(Object[] buildRow) {
+      return hasNull(buildRow, _buildKeyIds);
+    }
+
+    @Override
+    protected boolean hasNullProbeKey(Object[] probeRow) {
+      return hasNull(probeRow, _probeKeyIds);
+    }
+
+    @Override
+    protected int putRowId(Object[] buildRow, int rowId) {
+      return _rowIdMap.put(extractKey(buildRow, _buildKeyIds), rowId);
+    }
+
+    @Override
+    protected int getRowId(Object[] probeRow) {
+      return _rowIdMap.getInt(extractKey(probeRow, _probeKeyIds));
+    }
+
+    @Override
+    protected int hashBuildKey(Object[] buildRow) {
+      return extractKey(buildRow, _buildKeyIds).hashCode();
+    }
+
+    @Override
+    protected int hashProbeKey(Object[] probeRow) {
+      return extractKey(probeRow, _probeKeyIds).hashCode();
+    }
+
+    private static boolean hasNull(Object[] row, int[] keyIds) {
+      for (int keyId : keyIds) {
+        if (row[keyId] == null) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static Key extractKey(Object[] row, int[] keyIds) {
+      Object[] values = new Object[keyIds.length];
+      for (int i = 0; i < keyIds.length; i++) {
+        values[i] = row[keyIds[i]];
+      }
+      return new Key(values);
+    }
+  }
+}
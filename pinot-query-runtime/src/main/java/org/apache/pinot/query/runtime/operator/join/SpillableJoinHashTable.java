@@ -0,0 +1,345 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.query.runtime.operator.spill.RowSpiller;
+import org.apache.pinot.query.runtime.operator.spill.SpillConfig;
+import org.apache.pinot.query.runtime.operator.spill.SpillUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code SpillableJoinHashTable} implements the build side of a hybrid hash join with an in-memory budget.
+ *
+ * <p>The build rows are hash partitioned on their join key, and each partition is indexed by its own
+ * {@link JoinHashTable}. When the estimated heap usage of the in-memory partitions exceeds the budget configured in
+ * {@link SpillConfig}, the largest in-memory partition is spilled to disk through a {@link RowSpiller}, and all its
+ * subsequent build rows are spilled as well. The probe rows falling into a spilled partition are spilled as well, and
+ * joined after all the in-memory partitions are done, by loading the spilled partitions back one at a time.
+ *
+ * <p>A spilled partition larger than the budget is not loaded as is. Instead, its build and probe rows are
+ * repartitioned on disk with a different hash seed, recursively, until each sub-partition fits in the budget. A
+ * partition that cannot be split (e.g. all its build rows share the same join key) fails the query with an error
+ * instead of running out of memory.
+ *
+ * <p>When spilling is disabled, there is a single partition which is always kept in memory.
+ */
+public class SpillableJoinHashTable implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SpillableJoinHashTable.class);
+  private static final String OPERATOR_NAME = "join";
+  // Max number of times a spilled partition is recursively repartitioned before giving up.
+  private static final int MAX_REPARTITION_LEVEL = 8;
+
+  private final DataSchema _probeSchema;
+  private final List<Integer> _probeKeyIds;
+  private final DataSchema _buildSchema;
+  private final List<Integer> _buildKeyIds;
+  private final SpillConfig _spillConfig;
+  private final long _requestId;
+  private final int _numPartitions;
+  // Used for null key check and key hashing, which do not depend on the content of the hash table.
+  private final JoinHashTable _keyHasher;
+  // In-memory hash table of each partition, or null when the partition is spilled or released.
+  private final JoinHashTable[] _inMemoryPartitions;
+  private final long[] _inMemoryPartitionBytes;
+  private final RowSpiller.SpilledRows[] _spilledBuildRows;
+  private final RowSpiller.SpilledRows[] _spilledProbeRows;
+  private final long[] _spilledPartitionBytes;
+  // Spilled partitions (and sub-partitions of repartitioned spilled partitions) to be joined after the probe side is
+  // fully consumed.
+  private final Deque<SpilledPartition> _pendingSpilledPartitions = new ArrayDeque<>();
+  private RowSpiller _rowSpiller;
+  private long _inMemoryBytes;
+
+  public SpillableJoinHashTable(DataSchema probeSchema, List<Integer> probeKeyIds, DataSchema buildSchema,
+      List<Integer> buildKeyIds, SpillConfig spillConfig, long requestId) {
+    _probeSchema = probeSchema;
+    _probeKeyIds = probeKeyIds;
+    _buildSchema = buildSchema;
+    _buildKeyIds = buildKeyIds;
+    _spillConfig = spillConfig;
+    _requestId = requestId;
+    _numPartitions = spillConfig.isEnabled() ? spillConfig.getNumPartitions() : 1;
+    _keyHasher = createJoinHashTable();
+    _inMemoryPartitions = new JoinHashTable[_numPartitions];
+    for (int i = 0; i < _numPartitions; i++) {
+      _inMemoryPartitions[i] = createJoinHashTable();
+    }
+    _inMemoryPartitionBytes = new long[_numPartitions];
+    _spilledBuildRows = new RowSpiller.SpilledRows[_numPartitions];
+    _spilledProbeRows = new RowSpiller.SpilledRows[_numPartitions];
+    _spilledPartitionBytes = new long[_numPartitions];
+  }
+
+  private JoinHashTable createJoinHashTable() {
+    return JoinHashTable.create(_probeSchema, _probeKeyIds, _buildSchema, _buildKeyIds);
+  }
+
+  public int getNumPartitions() {
+    return _numPartitions;
+  }
+
+  /**
+   * Adds a build side row, and spills the largest in-memory partition(s) when the memory budget is exceeded.
+   */
+  public void addBuildRow(Object[] row)
+      throws IOException {
+    if (_keyHasher.hasNullKey(row)) {
+      return;
+    }
+    int partition = _numPartitions == 1 ? 0 : SpillUtils.getPartition(_keyHasher.hashBuildKey(row), _numPartitions);
+    JoinHashTable hashTable = _inMemoryPartitions[partition];
+    if (hashTable == null) {
+      _spilledBuildRows[partition].addRow(row);
+      _spilledPartitionBytes[partition] += SpillUtils.estimateRowSizeInBytes(row);
+      return;
+    }
+    hashTable.addRow(row);
+    if (_spillConfig.isEnabled()) {
+      long rowSize = SpillUtils.estimateRowSizeInBytes(row);
+      _inMemoryPartitionBytes[partition] += rowSize;
+      _inMemoryBytes += rowSize;
+      while (_inMemoryBytes > _spillConfig.getMaxInMemoryBytes() && spillLargestPartition()) {
+        LOGGER.debug("Spilled join build partition for request: {}, in-memory bytes: {}", _requestId,
+            _inMemoryBytes);
+      }
+    }
+  }
+
+  private boolean spillLargestPartition()
+      throws IOException {
+    int largestPartition = -1;
+    for (int i = 0; i < _numPartitions; i++) {
+      if (_inMemoryPartitions[i] != null && !_inMemoryPartitions[i].isEmpty() && (largestPartition < 0
+          || _inMemoryPartitionBytes[i] > _inMemoryPartitionBytes[largestPartition])) {
+        largestPartition = i;
+      }
+    }
+    if (largestPartition < 0) {
+      return false;
+    }
+    if (_rowSpiller == null) {
+      _rowSpiller = SpillUtils.createRowSpiller(_spillConfig, OPERATOR_NAME, _requestId);
+    }
+    JoinHashTable hashTable = _inMemoryPartitions[largestPartition];
+    RowSpiller.SpilledRows spilledRows = _rowSpiller.createSpilledRows(_buildSchema);
+    ColumnarRowContainer rows = hashTable.getRows();
+    int numRows = rows.getNumRows();
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      spilledRows.addRow(rows.getRow(rowId));
+    }
+    _spilledBuildRows[largestPartition] = spilledRows;
+    _spilledProbeRows[largestPartition] = _rowSpiller.createSpilledRows(_probeSchema);
+    _inMemoryPartitions[largestPartition] = null;
+    _spilledPartitionBytes[largestPartition] = _inMemoryPartitionBytes[largestPartition];
+    _inMemoryBytes -= _inMemoryPartitionBytes[largestPartition];
+    _inMemoryPartitionBytes[largestPartition] = 0;
+    return true;
+  }
+
+  public boolean isSpilled(int partition) {
+    return _spilledBuildRows[partition] != null;
+  }
+
+  /**
+   * Returns the partition of a probe row. Probe rows with {@code null} join key never match, so they are assigned to
+   * the first partition.
+   */
+  public int getProbePartition(Object[] probeRow) {
+    if (_numPartitions == 1 || _keyHasher.hasNullProbeKey(probeRow)) {
+      return 0;
+    }
+    return SpillUtils.getPartition(_keyHasher.hashProbeKey(probeRow), _numPartitions);
+  }
+
+  /**
+   * Returns the in-memory hash table of the partition, or {@code null} if the partition is spilled.
+   */
+  @Nullable
+  public JoinHashTable getInMemoryPartition(int partition) {
+    return _inMemoryPartitions[partition];
+  }
+
+  public void spillProbeRow(int partition, Object[] probeRow)
+      throws IOException {
+    _spilledProbeRows[partition].addRow(probeRow);
+  }
+
+  /**
+   * Releases the in-memory partitions after the probe side is fully consumed, and flushes the spilled rows so that the
+   * spilled partitions can be read back.
+   */
+  public void finishProbe()
+      throws IOException {
+    for (int i = 0; i < _numPartitions; i++) {
+      _inMemoryPartitions[i] = null;
+      if (_spilledBuildRows[i] != null) {
+        _spilledBuildRows[i].flush();
+        _spilledProbeRows[i].flush();
+        _pendingSpilledPartitions.add(
+            new SpilledPartition(_spilledBuildRows[i], _spilledProbeRows[i], _spilledPartitionBytes[i], 0));
+      }
+    }
+    _inMemoryBytes = 0;
+  }
+
+  /**
+   * Returns the next spilled partition to join, or {@code null} if all the spilled partitions are joined. The spilled
+   * partitions exceeding the memory budget are recursively repartitioned, so that the build rows of the returned
+   * partition can be loaded with {@link #loadSpilledPartition(SpilledPartition)}.
+   */
+  @Nullable
+  public SpilledPartition nextSpilledPartition()
+      throws IOException {
+    SpilledPartition spilledPartition;
+    while ((spilledPartition = _pendingSpilledPartitions.poll()) != null) {
+      // Partitions without probe rows do not produce any joined row
+      if (spilledPartition._probeRows.getNumRows() == 0) {
+        continue;
+      }
+      if (spilledPartition._buildBytes <= _spillConfig.getMaxInMemoryBytes()) {
+        return spilledPartition;
+      }
+      repartition(spilledPartition);
+    }
+    return null;
+  }
+
+  /**
+   * Splits a spilled partition exceeding the memory budget into sub-partitions on disk, using the next hash seed.
+   */
+  private void repartition(SpilledPartition spilledPartition)
+      throws IOException {
+    RowSpiller.SpilledRows buildRows = spilledPartition._buildRows;
+    int numBuildRows = buildRows.getNumRows();
+    Preconditions.checkState(spilledPartition._level < MAX_REPARTITION_LEVEL,
+        "Spilled join partition with %s build rows (%s bytes) still exceeds the memory budget of %s bytes after %s "
+            + "repartitions", numBuildRows, spilledPartition._buildBytes, _spillConfig.getMaxInMemoryBytes(),
+        spilledPartition._level);
+    int numSubPartitions = Math.max(_numPartitions, 2);
+    int seed = spilledPartition._level + 1;
+    RowSpiller.SpilledRows[] subBuildRows = new RowSpiller.SpilledRows[numSubPartitions];
+    RowSpiller.SpilledRows[] subProbeRows = new RowSpiller.SpilledRows[numSubPartitions];
+    long[] subBuildBytes = new long[numSubPartitions];
+    for (int i = 0; i < numSubPartitions; i++) {
+      subBuildRows[i] = _rowSpiller.createSpilledRows(_buildSchema);
+      subProbeRows[i] = _rowSpiller.createSpilledRows(_probeSchema);
+    }
+    int numBuildBlocks = buildRows.getNumBlocks();
+    int firstKeyHash = 0;
+    boolean hasDistinctKeyHashes = false;
+    for (int blockId = 0; blockId < numBuildBlocks; blockId++) {
+      List<Object[]> rows = buildRows.readBlock(blockId);
+      if (blockId == 0) {
+        firstKeyHash = _keyHasher.hashBuildKey(rows.get(0));
+      }
+      for (Object[] row : rows) {
+        int keyHash = _keyHasher.hashBuildKey(row);
+        hasDistinctKeyHashes |= keyHash != firstKeyHash;
+        int subPartition = SpillUtils.getPartition(keyHash, numSubPartitions, seed);
+        subBuildRows[subPartition].addRow(row);
+        subBuildBytes[subPartition] += SpillUtils.estimateRowSizeInBytes(row);
+      }
+    }
+    // Rows with the same join key hash always fall into the same partition, so they cannot be split
+    Preconditions.checkState(hasDistinctKeyHashes,
+        "Spilled join partition with %s build rows (%s bytes) exceeds the memory budget of %s bytes, and cannot be "
+            + "repartitioned because all its rows have the same join key hash", numBuildRows,
+        spilledPartition._buildBytes, _spillConfig.getMaxInMemoryBytes());
+    RowSpiller.SpilledRows probeRows = spilledPartition._probeRows;
+    int numProbeBlocks = probeRows.getNumBlocks();
+    for (int blockId = 0; blockId < numProbeBlocks; blockId++) {
+      for (Object[] row : probeRows.readBlock(blockId)) {
+        int subPartition = _keyHasher.hasNullProbeKey(row) ? 0
+            : SpillUtils.getPartition(_keyHasher.hashProbeKey(row), numSubPartitions, seed);
+        subProbeRows[subPartition].addRow(row);
+      }
+    }
+    LOGGER.debug("Repartitioned spilled join partition with {} build rows ({} bytes) into {} sub-partitions at level: "
+        + "{} for request: {}", numBuildRows, spilledPartition._buildBytes, numSubPartitions, seed, _requestId);
+    for (int i = 0; i < numSubPartitions; i++) {
+      subBuildRows[i].flush();
+      subProbeRows[i].flush();
+      _pendingSpilledPartitions.push(new SpilledPartition(subBuildRows[i], subProbeRows[i], subBuildBytes[i], seed));
+    }
+  }
+
+  /**
+   * Loads the build rows of a spilled partition into a new in-memory hash table.
+   */
+  public JoinHashTable loadSpilledPartition(SpilledPartition spilledPartition)
+      throws IOException {
+    RowSpiller.SpilledRows spilledRows = spilledPartition._buildRows;
+    JoinHashTable hashTable = createJoinHashTable();
+    int numBlocks = spilledRows.getNumBlocks();
+    for (int blockId = 0; blockId < numBlocks; blockId++) {
+      for (Object[] row : spilledRows.readBlock(blockId)) {
+        hashTable.addRow(row);
+      }
+    }
+    return hashTable;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    for (int i = 0; i < _numPartitions; i++) {
+      _inMemoryPartitions[i] = null;
+      _spilledBuildRows[i] = null;
+      _spilledProbeRows[i] = null;
+    }
+    _pendingSpilledPartitions.clear();
+    if (_rowSpiller != null) {
+      _rowSpiller.close();
+      _rowSpiller = null;
+    }
+  }
+
+  /**
+   * The build and probe rows of a spilled partition, to be joined after the in-memory partitions.
+   */
+  public static class SpilledPartition {
+    private final RowSpiller.SpilledRows _buildRows;
+    private final RowSpiller.SpilledRows _probeRows;
+    private final long _buildBytes;
+    // Number of times the rows have been repartitioned, which is also the hash seed of the partition
+    private final int _level;
+
+    private SpilledPartition(RowSpiller.SpilledRows buildRows, RowSpiller.SpilledRows probeRows, long buildBytes,
+        int level) {
+      _buildRows = buildRows;
+      _probeRows = probeRows;
+      _buildBytes = buildBytes;
+      _level = level;
+    }
+
+    public RowSpiller.SpilledRows getProbeRows() {
+      return _probeRows;
+    }
+  }
+}
@@ -20,11 +20,17 @@ package org.apache.pinot.query.runtime.operator.operands;
 
 import com.clearspring.analytics.util.Preconditions;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntPredicate;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.datablock.BaseDataBlock;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.runtime.operator.OperatorUtils;
 import org.apache.pinot.spi.data.FieldSpec;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
 
 
 public abstract class FilterOperand extends TransformOperand {
@@ -59,53 +65,17 @@ public abstract class FilterOperand extends TransformOperand {
       case "NOT":
         return new Not(toFilterOperand(functionCall.getFunctionOperands().get(0), dataSchema));
       case "equals":
-        return new Predicate(functionCall.getFunctionOperands(), dataSchema) {
-          @Override
-          public Boolean apply(Object[] row) {
-            return ((Comparable) _resultType.convert(_lhs.apply(row))).compareTo(
-                _resultType.convert(_rhs.apply(row))) == 0;
-          }
-        };
+        return new Predicate(functionCall.getFunctionOperands(), dataSchema, result -> result == 0);
       case "notEquals":
-        return new Predicate(functionCall.getFunctionOperands(), dataSchema) {
-          @Override
-          public Boolean apply(Object[] row) {
-            return ((Comparable) _resultType.convert(_lhs.apply(row))).compareTo(
-                _resultType.convert(_rhs.apply(row))) != 0;
-          }
-        };
+        return new Predicate(functionCall.getFunctionOperands(), dataSchema, result -> result != 0);
       case "greaterThan":
-        return new Predicate(functionCall.getFunctionOperands(), dataSchema) {
-          @Override
-          public Boolean apply(Object[] row) {
-            return ((Comparable) _resultType.convert(_lhs.apply(row))).compareTo(
-                _resultType.convert(_rhs.apply(row))) > 0;
-          }
-        };
+        return new Predicate(functionCall.getFunctionOperands(), dataSchema, result -> result > 0);
       case "greaterThanOrEqual":
-        return new Predicate(functionCall.getFunctionOperands(), dataSchema) {
-          @Override
-          public Boolean apply(Object[] row) {
-            return ((Comparable) _resultType.convert(_lhs.apply(row))).compareTo(
-                _resultType.convert(_rhs.apply(row))) >= 0;
-          }
-        };
+        return new Predicate(functionCall.getFunctionOperands(), dataSchema, result -> result >= 0);
       case "lessThan":
-        return new Predicate(functionCall.getFunctionOperands(), dataSchema) {
-          @Override
-          public Boolean apply(Object[] row) {
-            return ((Comparable) _resultType.convert(_lhs.apply(row))).compareTo(
-                _resultType.convert(_rhs.apply(row))) < 0;
-          }
-        };
+        return new Predicate(functionCall.getFunctionOperands(), dataSchema, result -> result < 0);
       case "lessThanOrEqual":
-        return new Predicate(functionCall.getFunctionOperands(), dataSchema) {
-          @Override
-          public Boolean apply(Object[] row) {
-            return ((Comparable) _resultType.convert(_lhs.apply(row))).compareTo(
-                _resultType.convert(_rhs.apply(row))) <= 0;
-          }
-        };
+        return new Predicate(functionCall.getFunctionOperands(), dataSchema, result -> result <= 0);
       default:
         throw new UnsupportedOperationException("Unsupported filter predicate: " + functionCall.getFunctionName());
     }
@@ -114,6 +84,45 @@ public abstract class FilterOperand extends TransformOperand {
   @Override
   public abstract Boolean apply(Object[] row);
 
+  /**
+   * Returns whether the filter can be evaluated directly on a binary-packed data block with
+   * {@link #apply(BaseDataBlock)}, without extracting the rows of the block.
+   */
+  public boolean canApplyOnDataBlock() {
+    return false;
+  }
+
+  /**
+   * Evaluates the filter directly on the values of a binary-packed data block, and returns whether each row matches.
+   * Rows with a {@code null} value in any of the compared columns don't match.
+   */
+  public boolean[] apply(BaseDataBlock dataBlock) {
+    return apply(dataBlock, null);
+  }
+
+  /**
+   * Evaluates the filter on a data block following the SQL three-valued logic, where comparing a {@code null} value
+   * is UNKNOWN. Returns whether each row is TRUE, and when the null mask is provided, fills it with whether each row is
+   * UNKNOWN. UNKNOWN rows don't match, and stay UNKNOWN (instead of becoming TRUE) under NOT.
+   */
+  protected boolean[] apply(BaseDataBlock dataBlock, @Nullable boolean[] nullMask) {
+    throw new UnsupportedOperationException("Filter cannot be evaluated on data block: " + getClass().getSimpleName());
+  }
+
+  private static void setNullRows(BaseDataBlock dataBlock, int colId, boolean[] matches, @Nullable boolean[] nullMask) {
+    RoaringBitmap nullRowIds = dataBlock.getNullRowIds(colId);
+    if (nullRowIds != null) {
+      PeekableIntIterator iterator = nullRowIds.getIntIterator();
+      while (iterator.hasNext()) {
+        int rowId = iterator.next();
+        matches[rowId] = false;
+        if (nullMask != null) {
+          nullMask[rowId] = true;
+        }
+      }
+    }
+  }
+
   private static class BooleanInputRef extends FilterOperand {
     private final RexExpression.InputRef _inputRef;
 
@@ -127,6 +136,24 @@ public abstract class FilterOperand extends TransformOperand {
     public Boolean apply(Object[] row) {
       return (boolean) row[_inputRef.getIndex()];
     }
+
+    @Override
+    public boolean canApplyOnDataBlock() {
+      return true;
+    }
+
+    @Override
+    protected boolean[] apply(BaseDataBlock dataBlock, @Nullable boolean[] nullMask) {
+      int colId = _inputRef.getIndex();
+      int numRows = dataBlock.getNumberOfRows();
+      boolean[] matches = new boolean[numRows];
+      // BOOLEAN values are stored as INT in the data block
+      for (int rowId = 0; rowId < numRows; rowId++) {
+        matches[rowId] = dataBlock.getInt(rowId, colId) == 1;
+      }
+      setNullRows(dataBlock, colId, matches, nullMask);
+      return matches;
+    }
   }
 
   private static class BooleanLiteral extends FilterOperand {
@@ -141,6 +168,18 @@ public abstract class FilterOperand extends TransformOperand {
     public Boolean apply(Object[] row) {
       return (boolean) _literalValue;
     }
+
+    @Override
+    public boolean canApplyOnDataBlock() {
+      return true;
+    }
+
+    @Override
+    protected boolean[] apply(BaseDataBlock dataBlock, @Nullable boolean[] nullMask) {
+      boolean[] matches = new boolean[dataBlock.getNumberOfRows()];
+      Arrays.fill(matches, (boolean) _literalValue);
+      return matches;
+    }
   }
 
   private static class And extends FilterOperand {
@@ -161,6 +200,39 @@ public abstract class FilterOperand extends TransformOperand {
       }
       return true;
     }
+
+    @Override
+    public boolean canApplyOnDataBlock() {
+      for (FilterOperand child : _childOperands) {
+        if (!child.canApplyOnDataBlock()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    protected boolean[] apply(BaseDataBlock dataBlock, @Nullable boolean[] nullMask) {
+      boolean[] matches = _childOperands.get(0).apply(dataBlock, nullMask);
+      for (int i = 1; i < _childOperands.size(); i++) {
+        if (nullMask == null) {
+          boolean[] childMatches = _childOperands.get(i).apply(dataBlock, null);
+          for (int rowId = 0; rowId < matches.length; rowId++) {
+            matches[rowId] &= childMatches[rowId];
+          }
+        } else {
+          boolean[] childNullMask = new boolean[matches.length];
+          boolean[] childMatches = _childOperands.get(i).apply(dataBlock, childNullMask);
+          for (int rowId = 0; rowId < matches.length; rowId++) {
+            // UNKNOWN when neither side is FALSE, and not both sides are TRUE
+            nullMask[rowId] = (matches[rowId] || nullMask[rowId]) && (childMatches[rowId] || childNullMask[rowId])
+                && !(matches[rowId] && childMatches[rowId]);
+            matches[rowId] &= childMatches[rowId];
+          }
+        }
+      }
+      return matches;
+    }
   }
 
   private static class Or extends FilterOperand {
@@ -181,6 +253,38 @@ public abstract class FilterOperand extends TransformOperand {
       }
       return false;
     }
+
+    @Override
+    public boolean canApplyOnDataBlock() {
+      for (FilterOperand child : _childOperands) {
+        if (!child.canApplyOnDataBlock()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    protected boolean[] apply(BaseDataBlock dataBlock, @Nullable boolean[] nullMask) {
+      boolean[] matches = _childOperands.get(0).apply(dataBlock, nullMask);
+      for (int i = 1; i < _childOperands.size(); i++) {
+        if (nullMask == null) {
+          boolean[] childMatches = _childOperands.get(i).apply(dataBlock, null);
+          for (int rowId = 0; rowId < matches.length; rowId++) {
+            matches[rowId] |= childMatches[rowId];
+          }
+        } else {
+          boolean[] childNullMask = new boolean[matches.length];
+          boolean[] childMatches = _childOperands.get(i).apply(dataBlock, childNullMask);
+          for (int rowId = 0; rowId < matches.length; rowId++) {
+            // UNKNOWN when neither side is TRUE, and any side is UNKNOWN
+            nullMask[rowId] = !matches[rowId] && !childMatches[rowId] && (nullMask[rowId] || childNullMask[rowId]);
+            matches[rowId] |= childMatches[rowId];
+          }
+        }
+      }
+      return matches;
+    }
   }
 
   private static class Not extends FilterOperand {
@@ -193,14 +297,32 @@ public abstract class FilterOperand extends TransformOperand {
     public Boolean apply(Object[] row) {
       return !_childOperand.apply(row);
     }
+
+    @Override
+    public boolean canApplyOnDataBlock() {
+      return _childOperand.canApplyOnDataBlock();
+    }
+
+    @Override
+    protected boolean[] apply(BaseDataBlock dataBlock, @Nullable boolean[] nullMask) {
+      // NOT of UNKNOWN is still UNKNOWN, so the null mask of the child is also the null mask of this operand
+      boolean[] childNullMask = nullMask != null ? nullMask : new boolean[dataBlock.getNumberOfRows()];
+      boolean[] matches = _childOperand.apply(dataBlock, childNullMask);
+      for (int rowId = 0; rowId < matches.length; rowId++) {
+        matches[rowId] = !matches[rowId] && !childNullMask[rowId];
+      }
+      return matches;
+    }
   }
 
-  private static abstract class Predicate extends FilterOperand {
+  private static class Predicate extends FilterOperand {
     protected final TransformOperand _lhs;
     protected final TransformOperand _rhs;
     protected final DataSchema.ColumnDataType _resultType;
+    // Tests the result of comparing the left hand side with the right hand side.
+    private final IntPredicate _comparisonMatcher;
 
-    public Predicate(List<RexExpression> functionOperands, DataSchema dataSchema) {
+    public Predicate(List<RexExpression> functionOperands, DataSchema dataSchema, IntPredicate comparisonMatcher) {
       _lhs = TransformOperand.toTransformOperand(functionOperands.get(0), dataSchema);
       _rhs = TransformOperand.toTransformOperand(functionOperands.get(1), dataSchema);
       if (_lhs._resultType != null && _lhs._resultType != DataSchema.ColumnDataType.OBJECT) {
@@ -212,6 +334,84 @@ public abstract class FilterOperand extends TransformOperand {
         // piped back to query dispatcher, thus we set it to null and deliberately make the processing throw exception.
         _resultType = null;
       }
+      _comparisonMatcher = comparisonMatcher;
+    }
+
+    @Override
+    public Boolean apply(Object[] row) {
+      return _comparisonMatcher.test(
+          ((Comparable) _resultType.convert(_lhs.apply(row))).compareTo(_resultType.convert(_rhs.apply(row))));
+    }
+
+    /**
+     * Only a column compared against a literal of the single-value numeric or STRING types is evaluated on the data
+     * block, where the column values are read without being extracted into rows.
+     */
+    @Override
+    public boolean canApplyOnDataBlock() {
+      if (_resultType == null || !(_lhs instanceof ReferenceOperand) || !(_rhs instanceof LiteralOperand)
+          || ((LiteralOperand) _rhs).getValue() == null) {
+        return false;
+      }
+      switch (_resultType) {
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+        case STRING:
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    @Override
+    protected boolean[] apply(BaseDataBlock dataBlock, @Nullable boolean[] nullMask) {
+      int colId = ((ReferenceOperand) _lhs).getRefIndex();
+      Object literalValue = _resultType.convert(((LiteralOperand) _rhs).getValue());
+      int numRows = dataBlock.getNumberOfRows();
+      boolean[] matches = new boolean[numRows];
+      switch (_resultType) {
+        case INT: {
+          int value = (int) literalValue;
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            matches[rowId] = _comparisonMatcher.test(Integer.compare(dataBlock.getInt(rowId, colId), value));
+          }
+          break;
+        }
+        case LONG: {
+          long value = (long) literalValue;
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            matches[rowId] = _comparisonMatcher.test(Long.compare(dataBlock.getLong(rowId, colId), value));
+          }
+          break;
+        }
+        case FLOAT: {
+          float value = (float) literalValue;
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            matches[rowId] = _comparisonMatcher.test(Float.compare(dataBlock.getFloat(rowId, colId), value));
+          }
+          break;
+        }
+        case DOUBLE: {
+          double value = (double) literalValue;
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            matches[rowId] = _comparisonMatcher.test(Double.compare(dataBlock.getDouble(rowId, colId), value));
+          }
+          break;
+        }
+        case STRING: {
+          String value = (String) literalValue;
+          for (int rowId = 0; rowId < numRows; rowId++) {
+            matches[rowId] = _comparisonMatcher.test(dataBlock.getString(rowId, colId).compareTo(value));
+          }
+          break;
+        }
+        default:
+          throw new IllegalStateException("Unsupported data type for filter on data block: " + _resultType);
+      }
+      setNullRows(dataBlock, colId, matches, nullMask);
+      return matches;
     }
   }
 }
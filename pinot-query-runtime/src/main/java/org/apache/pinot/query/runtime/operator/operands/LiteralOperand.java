@@ -30,6 +30,10 @@ public class LiteralOperand extends TransformOperand {
     _resultType = DataSchema.ColumnDataType.fromDataType(rexExpression.getDataType(), true);
   }
 
+  public Object getValue() {
+    return _value;
+  }
+
   @Override
   public Object apply(Object[] row) {
     return _value;
@@ -0,0 +1,146 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.spill;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.segment.local.io.writer.impl.MmapMemoryManager;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.memory.PinotDataBufferMemoryManager;
+
+
+/**
+ * The {@code RowSpiller} spills rows of a multi-stage operator to local disk through memory-mapped files.
+ *
+ * <p>Rows are serialized as row data blocks, using the same format as the mailbox exchange, and each block is written
+ * into a {@link PinotDataBuffer} allocated from a {@link MmapMemoryManager} owned by the spiller. All the files are
+ * deleted when the spiller is closed.
+ *
+ * <p>NOTE: This class is not thread-safe, it is expected to be used by a single operator.
+ */
+public class RowSpiller implements Closeable {
+  public static final int MAX_ROWS_PER_SPILLED_BLOCK = 10_000;
+
+  private final PinotDataBufferMemoryManager _memoryManager;
+  private final String _context;
+  private boolean _isClosed;
+
+  public RowSpiller(File spillDir, String context) {
+    Preconditions.checkState(spillDir.isDirectory() || spillDir.mkdirs(), "Failed to create spill directory: %s",
+        spillDir);
+    // Spilled rows are not realtime index memory, so do not emit the realtime off-heap memory metrics.
+    _memoryManager = new MmapMemoryManager(spillDir.getAbsolutePath(), context, null);
+    _context = context;
+  }
+
+  /**
+   * Creates an empty, append-only {@link SpilledRows} backed by this spiller.
+   */
+  public SpilledRows createSpilledRows(DataSchema dataSchema) {
+    return new SpilledRows(dataSchema);
+  }
+
+  public long getSpilledBytes() {
+    return _memoryManager.getTotalAllocatedBytes();
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    if (!_isClosed) {
+      _isClosed = true;
+      _memoryManager.close();
+    }
+  }
+
+  /**
+   * Append-only sequence of rows spilled to disk. Rows are buffered on heap until a full block is accumulated.
+   */
+  public class SpilledRows {
+    private final DataSchema _dataSchema;
+    private final List<PinotDataBuffer> _spilledBlocks = new ArrayList<>();
+    private List<Object[]> _bufferedRows = new ArrayList<>();
+    private int _numRows;
+
+    private SpilledRows(DataSchema dataSchema) {
+      _dataSchema = dataSchema;
+    }
+
+    public void addRow(Object[] row)
+        throws IOException {
+      _bufferedRows.add(row);
+      _numRows++;
+      if (_bufferedRows.size() >= MAX_ROWS_PER_SPILLED_BLOCK) {
+        flush();
+      }
+    }
+
+    public void addRows(List<Object[]> rows)
+        throws IOException {
+      for (Object[] row : rows) {
+        addRow(row);
+      }
+    }
+
+    /**
+     * Writes the buffered rows to disk.
+     */
+    public void flush()
+        throws IOException {
+      if (_bufferedRows.isEmpty()) {
+        return;
+      }
+      byte[] bytes = DataBlockBuilder.buildFromRows(_bufferedRows, _dataSchema).toBytes();
+      PinotDataBuffer buffer = _memoryManager.allocate(bytes.length, _context);
+      buffer.readFrom(0, bytes);
+      _spilledBlocks.add(buffer);
+      _bufferedRows = new ArrayList<>();
+    }
+
+    public int getNumRows() {
+      return _numRows;
+    }
+
+    /**
+     * Returns the number of blocks to read, which is only accurate after {@link #flush()}.
+     */
+    public int getNumBlocks() {
+      return _spilledBlocks.size();
+    }
+
+    /**
+     * Reads back the rows of the given spilled block.
+     */
+    public List<Object[]> readBlock(int blockId)
+        throws IOException {
+      PinotDataBuffer buffer = _spilledBlocks.get(blockId);
+      byte[] bytes = new byte[(int) buffer.size()];
+      buffer.copyTo(0, bytes);
+      return DataBlockUtils.extractRows(DataBlockUtils.getDataBlock(ByteBuffer.wrap(bytes)));
+    }
+  }
+}
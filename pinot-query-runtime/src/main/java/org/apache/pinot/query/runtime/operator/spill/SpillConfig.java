@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.spill;
+
+import java.io.File;
+import javax.annotation.Nullable;
+import org.apache.pinot.query.service.QueryConfig;
+import org.apache.pinot.spi.env.PinotConfiguration;
+
+
+/**
+ * The {@code SpillConfig} controls the memory budget of the blocking multi-stage operators (hash join build side and
+ * aggregation group map), and where the overflowing partitions are spilled to.
+ *
+ * <p>Spilling is disabled when the max in-memory bytes is not positive, in which case the operators keep everything on
+ * heap as before.
+ */
+public class SpillConfig {
+  public static final SpillConfig DISABLED = new SpillConfig(-1L, null, 1);
+
+  private final long _maxInMemoryBytes;
+  private final File _spillDir;
+  private final int _numPartitions;
+
+  public SpillConfig(long maxInMemoryBytes, @Nullable File spillDir, int numPartitions) {
+    _maxInMemoryBytes = maxInMemoryBytes;
+    _spillDir = spillDir;
+    _numPartitions = numPartitions;
+  }
+
+  public static SpillConfig fromConfig(PinotConfiguration config) {
+    long maxInMemoryBytes = config.getProperty(QueryConfig.KEY_OF_SPILL_MAX_IN_MEMORY_BYTES,
+        QueryConfig.DEFAULT_SPILL_MAX_IN_MEMORY_BYTES);
+    if (maxInMemoryBytes <= 0) {
+      return DISABLED;
+    }
+    File spillDir = new File(config.getProperty(QueryConfig.KEY_OF_SPILL_DIR, QueryConfig.DEFAULT_SPILL_DIR));
+    int numPartitions =
+        config.getProperty(QueryConfig.KEY_OF_SPILL_NUM_PARTITIONS, QueryConfig.DEFAULT_SPILL_NUM_PARTITIONS);
+    return new SpillConfig(maxInMemoryBytes, spillDir, Math.max(numPartitions, 1));
+  }
+
+  public boolean isEnabled() {
+    return _maxInMemoryBytes > 0;
+  }
+
+  public long getMaxInMemoryBytes() {
+    return _maxInMemoryBytes;
+  }
+
+  @Nullable
+  public File getSpillDir() {
+    return _spillDir;
+  }
+
+  public int getNumPartitions() {
+    return _numPartitions;
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.spill;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+public class SpillUtils {
+  // Rough per-object heap overhead (object header plus reference), used to estimate the heap usage of a row.
+  private static final int OBJECT_OVERHEAD_BYTES = 16;
+  private static final AtomicLong SPILLER_ID_GENERATOR = new AtomicLong();
+
+  private SpillUtils() {
+    // do not instantiate.
+  }
+
+  /**
+   * Returns a rough estimate of the heap bytes used by a row, which is used to enforce the in-memory budget of the
+   * spillable operators. It does not need to be exact, only proportional to the actual usage.
+   */
+  public static long estimateRowSizeInBytes(Object[] row) {
+    long size = OBJECT_OVERHEAD_BYTES + 8L * row.length;
+    for (Object value : row) {
+      if (value == null) {
+        continue;
+      }
+      if (value instanceof String) {
+        size += OBJECT_OVERHEAD_BYTES * 2 + ((String) value).length();
+      } else if (value instanceof Number || value instanceof Boolean) {
+        size += OBJECT_OVERHEAD_BYTES + 8;
+      } else if (value instanceof int[]) {
+        size += OBJECT_OVERHEAD_BYTES + 4L * ((int[]) value).length;
+      } else if (value instanceof long[]) {
+        size += OBJECT_OVERHEAD_BYTES + 8L * ((long[]) value).length;
+      } else if (value instanceof float[]) {
+        size += OBJECT_OVERHEAD_BYTES + 4L * ((float[]) value).length;
+      } else if (value instanceof double[]) {
+        size += OBJECT_OVERHEAD_BYTES + 8L * ((double[]) value).length;
+      } else if (value instanceof Object[]) {
+        size += OBJECT_OVERHEAD_BYTES * (1L + ((Object[]) value).length) * 2;
+      } else {
+        size += OBJECT_OVERHEAD_BYTES * 2;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Returns the partition of a key hash, mixing the bits of the hash so that the partitions are not correlated with
+   * the slots of the per-partition hash tables.
+   */
+  public static int getPartition(int hash, int numPartitions) {
+    return getPartition(hash, numPartitions, 0);
+  }
+
+  /**
+   * Returns the partition of a key hash with the given seed. Keys falling into the same partition with one seed are
+   * spread across the partitions with another seed, which is used to recursively repartition a spilled partition.
+   */
+  public static int getPartition(int hash, int numPartitions, int seed) {
+    return (HashCommon.murmurHash3(hash + seed * 0x9E3779B9) & Integer.MAX_VALUE) % numPartitions;
+  }
+
+  /**
+   * Creates a {@link RowSpiller} with a unique context under the configured spill directory.
+   */
+  public static RowSpiller createRowSpiller(SpillConfig spillConfig, String operatorName, long requestId) {
+    String context = String.format("%s_%d_%d", operatorName, requestId, SPILLER_ID_GENERATOR.getAndIncrement());
+    File spillDir = spillConfig.getSpillDir();
+    return new RowSpiller(spillDir != null ? spillDir : new File(System.getProperty("java.io.tmpdir")), context);
+  }
+}
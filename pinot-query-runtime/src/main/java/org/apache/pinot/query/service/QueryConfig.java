@@ -36,6 +36,23 @@ public class QueryConfig {
   public static final String KEY_OF_QUERY_RUNNER_PORT = "pinot.query.runner.port";
   public static final int DEFAULT_QUERY_RUNNER_PORT = 0;
 
+  // max estimated heap bytes kept by each blocking operator (join build side, aggregation groups) before spilling
+  // partitions to disk, non-positive value disables spilling.
+  public static final String KEY_OF_SPILL_MAX_IN_MEMORY_BYTES = "pinot.query.runner.spill.max.in.memory.bytes";
+  public static final long DEFAULT_SPILL_MAX_IN_MEMORY_BYTES = -1L;
+  public static final String KEY_OF_SPILL_DIR = "pinot.query.runner.spill.dir";
+  public static final String DEFAULT_SPILL_DIR = System.getProperty("java.io.tmpdir") + "/pinot-query-spill";
+  public static final String KEY_OF_SPILL_NUM_PARTITIONS = "pinot.query.runner.spill.num.partitions";
+  public static final int DEFAULT_SPILL_NUM_PARTITIONS = 16;
+
+  // number of threads executing the intermediate stage operator chains, and the max time an operator chain can run
+  // before yielding its thread to other operator chains.
+  public static final String KEY_OF_QUERY_RUNNER_NUM_WORKER_THREADS = "pinot.query.runner.num.worker.threads";
+  public static final int DEFAULT_QUERY_RUNNER_NUM_WORKER_THREADS =
+      Math.max(2, Runtime.getRuntime().availableProcessors());
+  public static final String KEY_OF_QUERY_RUNNER_TIME_SLICE_MS = "pinot.query.runner.time.slice.ms";
+  public static final long DEFAULT_QUERY_RUNNER_TIME_SLICE_MS = 100L;
+
   private QueryConfig() {
     // do not instantiate.
   }
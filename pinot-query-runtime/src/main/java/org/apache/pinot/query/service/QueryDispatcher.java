@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.apache.calcite.rel.RelDistribution;
 import org.apache.calcite.util.Pair;
 import org.apache.pinot.common.datablock.BaseDataBlock;
@@ -67,7 +68,7 @@ public class QueryDispatcher {
       MailboxService<TransferableBlock> mailboxService, long timeoutNano)
       throws Exception {
     // submit all the distributed stages.
-    int reduceStageId = submit(requestId, queryPlan);
+    int reduceStageId = submit(requestId, queryPlan, timeoutNano);
     // run reduce stage and return result.
     MailboxReceiveNode reduceNode = (MailboxReceiveNode) queryPlan.getQueryStageMap().get(reduceStageId);
     MailboxReceiveOperator mailboxReceiveOperator = createReduceStageOperator(mailboxService,
@@ -80,6 +81,11 @@ public class QueryDispatcher {
 
   public int submit(long requestId, QueryPlan queryPlan)
       throws Exception {
+    return submit(requestId, queryPlan, QueryConfig.DEFAULT_TIMEOUT_NANO);
+  }
+
+  public int submit(long requestId, QueryPlan queryPlan, long timeoutNano)
+      throws Exception {
     int reduceStageId = -1;
     for (Map.Entry<Integer, StageMetadata> stage : queryPlan.getStageMetadataMap().entrySet()) {
       int stageId = stage.getKey();
@@ -97,6 +103,7 @@ public class QueryDispatcher {
               .setStagePlan(QueryPlanSerDeUtils.serialize(constructDistributedStagePlan(queryPlan, stageId,
                   serverInstance)))
               .putMetadata("REQUEST_ID", String.valueOf(requestId))
+              .putMetadata("TIMEOUT_MS", String.valueOf(TimeUnit.NANOSECONDS.toMillis(timeoutNano)))
               .putMetadata("SERVER_INSTANCE_HOST", serverInstance.getHostname())
               .putMetadata("SERVER_INSTANCE_PORT", String.valueOf(mailboxPort)).build());
           if (response.containsMetadata("ERROR")) {
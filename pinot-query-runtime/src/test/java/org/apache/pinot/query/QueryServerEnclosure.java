@@ -46,6 +46,8 @@ import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationD
 import org.apache.pinot.segment.local.segment.readers.GenericRowRecordReader;
 import org.apache.pinot.segment.spi.ImmutableSegment;
 import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.segment.spi.partition.PartitionFunction;
+import org.apache.pinot.segment.spi.partition.PartitionFunctionFactory;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.config.table.TableType;
 import org.apache.pinot.spi.data.Schema;
@@ -168,11 +170,19 @@ public class QueryServerEnclosure {
     return tableDataManager;
   }
 
-  private static List<GenericRow> buildRows(String tableName) {
+  private static List<GenericRow> buildRows(String tableName, String segmentName) {
+    // segments of partitioned tables only keep the rows of their own partition
+    Integer partitionId = QueryEnvironmentTestUtils.SEGMENT_PARTITION_MAP.get(segmentName);
+    PartitionFunction partitionFunction = PartitionFunctionFactory.getPartitionFunction(
+        QueryEnvironmentTestUtils.PARTITION_FUNCTION, QueryEnvironmentTestUtils.NUM_PARTITIONS, null);
     List<GenericRow> rows = new ArrayList<>(NUM_ROWS);
     for (int i = 0; i < NUM_ROWS; i++) {
+      String col1 = STRING_FIELD_LIST[i % STRING_FIELD_LIST.length];
+      if (partitionId != null && partitionFunction.getPartition(col1) != partitionId) {
+        continue;
+      }
       GenericRow row = new GenericRow();
-      row.putValue("col1", STRING_FIELD_LIST[i % STRING_FIELD_LIST.length]);
+      row.putValue("col1", col1);
       row.putValue("col2", STRING_FIELD_LIST[i % (STRING_FIELD_LIST.length - 2)]);
       row.putValue("col3", INT_FIELD_LIST[i % INT_FIELD_LIST.length]);
       row.putValue("ts", tableName.endsWith("_O")
@@ -184,7 +194,7 @@ public class QueryServerEnclosure {
 
   private ImmutableSegment buildSegment(File indexDir, String tableName, String segmentName)
       throws Exception {
-    List<GenericRow> rows = buildRows(tableName);
+    List<GenericRow> rows = buildRows(tableName, segmentName);
     _rowsMap.putIfAbsent(tableName, new ArrayList<>());
     _rowsMap.get(tableName).addAll(rows);
 
@@ -22,9 +22,15 @@ import com.google.common.base.Preconditions;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.pinot.common.datablock.BaseDataBlock;
 import org.apache.pinot.common.datablock.MetadataBlock;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.query.mailbox.channel.ChannelUtils;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.util.TestUtils;
 import org.testng.Assert;
@@ -56,7 +62,7 @@ public class GrpcMailboxServiceTest extends GrpcMailboxServiceTestBase {
       return receivingMailbox.isInitialized();
     }, 5000L, "Receiving mailbox initialize failed!");
 
-    TransferableBlock receivedBlock = receivingMailbox.receive();
+    TransferableBlock receivedBlock = waitForBlock(receivingMailbox);
     Assert.assertEquals(receivedBlock.getDataBlock().toBytes(), testBlock.getDataBlock().toBytes());
 
     sendingMailbox.complete();
@@ -90,13 +96,76 @@ public class GrpcMailboxServiceTest extends GrpcMailboxServiceTestBase {
       return receivingMailbox.isInitialized();
     }, 5000L, "Receiving mailbox initialize failed!");
 
-    TransferableBlock receivedContent = receivingMailbox.receive();
+    TransferableBlock receivedContent = waitForBlock(receivingMailbox);
     Assert.assertNotNull(receivedContent);
     BaseDataBlock receivedDataBlock = receivedContent.getDataBlock();
     Assert.assertTrue(receivedDataBlock instanceof MetadataBlock);
     Assert.assertFalse(receivedDataBlock.getExceptions().isEmpty());
   }
 
+  /**
+   * The sender should be blocked once it runs out of credits, and resume sending once the receiver consumes data.
+   */
+  @Test
+  public void testBackpressure()
+      throws Exception {
+    Preconditions.checkState(_mailboxServices.size() >= 2);
+    Map.Entry<Integer, GrpcMailboxService> sender = _mailboxServices.firstEntry();
+    Map.Entry<Integer, GrpcMailboxService> receiver = _mailboxServices.lastEntry();
+    StringMailboxIdentifier mailboxId = new StringMailboxIdentifier(
+        "backpressure", "localhost", sender.getKey(), "localhost", receiver.getKey());
+    SendingMailbox<TransferableBlock> sendingMailbox = sender.getValue().getSendingMailbox(mailboxId);
+    ReceivingMailbox<TransferableBlock> receivingMailbox = receiver.getValue().getReceivingMailbox(mailboxId);
+    AtomicInteger numNotifications = new AtomicInteger();
+    receivingMailbox.setDataAvailableListener(numNotifications::incrementAndGet);
+
+    int numBlocks = ChannelUtils.DEFAULT_MAILBOX_CREDITS + 1;
+    AtomicInteger numBlocksSent = new AtomicInteger();
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> sendFuture = executorService.submit(() -> {
+        for (int i = 0; i < numBlocks; i++) {
+          sendingMailbox.send(getTestTransferableBlock());
+          numBlocksSent.incrementAndGet();
+        }
+        sendingMailbox.complete();
+      });
+
+      // the sender should be blocked after using all the credits.
+      TestUtils.waitForCondition(aVoid -> numBlocksSent.get() == ChannelUtils.DEFAULT_MAILBOX_CREDITS, 5000L,
+          "Failed to send blocks with the initial credits");
+      // the receiver is notified for the begin-of-stream message and every data packet.
+      TestUtils.waitForCondition(aVoid -> numNotifications.get() == ChannelUtils.DEFAULT_MAILBOX_CREDITS + 1, 5000L,
+          "Failed to notify the receiver");
+      Thread.sleep(100L);
+      Assert.assertEquals(numBlocksSent.get(), ChannelUtils.DEFAULT_MAILBOX_CREDITS);
+
+      // consuming a block grants a credit back to the sender.
+      for (int i = 0; i < numBlocks; i++) {
+        Assert.assertNotNull(waitForBlock(receivingMailbox));
+      }
+      sendFuture.get(5L, TimeUnit.SECONDS);
+      Assert.assertEquals(numBlocksSent.get(), numBlocks);
+      TestUtils.waitForCondition(aVoid -> receivingMailbox.isClosed(), 5000L,
+          "Receiving mailbox is not closed properly!");
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static TransferableBlock waitForBlock(ReceivingMailbox<TransferableBlock> receivingMailbox) {
+    TransferableBlock[] receivedBlock = new TransferableBlock[1];
+    TestUtils.waitForCondition(aVoid -> {
+      try {
+        receivedBlock[0] = receivingMailbox.receive();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+      return receivedBlock[0] != null;
+    }, 5000L, "Failed to receive block from mailbox");
+    return receivedBlock[0];
+  }
+
   private TransferableBlock getTestTransferableBlock() {
     List<Object[]> rows = new ArrayList<>();
     rows.add(createRow(0, "test_string"));
@@ -20,10 +20,13 @@ package org.apache.pinot.query.mailbox;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.pinot.common.datablock.BaseDataBlock;
 import org.apache.pinot.common.datablock.DataBlockUtils;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.service.QueryConfig;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -42,12 +45,17 @@ public class InMemoryMailboxServiceTest {
     InMemoryReceivingMailbox receivingMailbox = (InMemoryReceivingMailbox) mailboxService.getReceivingMailbox(
         mailboxId);
     InMemorySendingMailbox sendingMailbox = (InMemorySendingMailbox) mailboxService.getSendingMailbox(mailboxId);
+    AtomicInteger numNotifications = new AtomicInteger();
+    receivingMailbox.setDataAvailableListener(numNotifications::incrementAndGet);
+    Assert.assertNull(receivingMailbox.receive());
 
     // Sends are non-blocking as long as channel capacity is not breached
     for (int i = 0; i < InMemoryMailboxService.DEFAULT_CHANNEL_CAPACITY; i++) {
       sendingMailbox.send(getTestTransferableBlock(i, i + 1 == InMemoryMailboxService.DEFAULT_CHANNEL_CAPACITY));
     }
     sendingMailbox.complete();
+    // The receiver is notified for every block put into the channel
+    Assert.assertEquals(numNotifications.get(), InMemoryMailboxService.DEFAULT_CHANNEL_CAPACITY);
 
     // Iterate 1 less time than the loop above
     for (int i = 0; i + 1 < InMemoryMailboxService.DEFAULT_CHANNEL_CAPACITY; i++) {
@@ -67,6 +75,28 @@ public class InMemoryMailboxServiceTest {
     Assert.assertTrue(receivingMailbox.isClosed());
   }
 
+  @Test
+  public void testSendTimesOutAtDeadline() {
+    InMemoryMailboxService mailboxService = new InMemoryMailboxService("localhost", 0);
+    final StringMailboxIdentifier mailboxId = new StringMailboxIdentifier(
+        "timeoutJob", "localhost", 0, "localhost", 0);
+    InMemorySendingMailbox sendingMailbox = (InMemorySendingMailbox) mailboxService.getSendingMailbox(mailboxId);
+    for (int i = 0; i < InMemoryMailboxService.DEFAULT_CHANNEL_CAPACITY; i++) {
+      sendingMailbox.send(getTestTransferableBlock(i, false));
+    }
+
+    // The channel is full and nothing is received, so the sender is blocked until the deadline of the query instead of
+    // the default timeout
+    long startTimeNs = System.nanoTime();
+    try {
+      sendingMailbox.send(getTestTransferableBlock(0, false), startTimeNs + TimeUnit.MILLISECONDS.toNanos(100));
+      Assert.fail("Send should have timed out");
+    } catch (RuntimeException e) {
+      Assert.assertTrue(e.getMessage().contains("Timed out"));
+    }
+    Assert.assertTrue(System.nanoTime() - startTimeNs < QueryConfig.DEFAULT_TIMEOUT_NANO / 2);
+  }
+
   /**
    * Mailbox receiver/sender won't be created if the mailbox-id is not local.
    */
@@ -26,9 +26,12 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import org.apache.calcite.rel.RelDistribution;
 import org.apache.pinot.core.transport.ServerInstance;
 import org.apache.pinot.query.planner.QueryPlan;
+import org.apache.pinot.query.planner.stage.JoinNode;
 import org.apache.pinot.query.planner.stage.MailboxReceiveNode;
+import org.apache.pinot.query.planner.stage.StageNode;
 import org.apache.pinot.query.runtime.operator.MailboxReceiveOperator;
 import org.apache.pinot.query.runtime.plan.DistributedStagePlan;
 import org.apache.pinot.query.service.QueryDispatcher;
@@ -55,8 +58,39 @@ public class QueryRunnerTest extends QueryRunnerTestBase {
     compareRowEquals(resultRows, expectedRows);
   }
 
-  private List<Object[]> queryRunner(String sql) {
+  @Test(dataProvider = "testJoinAggregateSql")
+  public void testJoinAggregateWithH2Checker(String sql)
+      throws Exception {
+    List<Object[]> resultRows = queryRunner(sql);
+    List<Object[]> expectedRows = queryH2(sql);
+    compareRowEquals(resultRows, expectedRows);
+  }
+
+  @Test(dataProvider = "testColocatedJoinSql")
+  public void testColocatedJoinWithH2Checker(String sql)
+      throws Exception {
     QueryPlan queryPlan = _queryEnvironment.planQuery(sql);
+    // e and f are partitioned on col1, so the join inputs are never shuffled across servers.
+    JoinNode joinNode = null;
+    for (StageNode stageRoot : queryPlan.getQueryStageMap().values()) {
+      joinNode = joinNode != null ? joinNode : findJoinNode(stageRoot);
+    }
+    Assert.assertNotNull(joinNode);
+    for (StageNode input : joinNode.getInputs()) {
+      Assert.assertEquals(((MailboxReceiveNode) input).getExchangeType(), RelDistribution.Type.SINGLETON);
+    }
+    Assert.assertEquals(queryPlan.getStageMetadataMap().get(joinNode.getStageId()).getServerInstances().size(), 2);
+
+    List<Object[]> resultRows = queryRunner(queryPlan);
+    List<Object[]> expectedRows = queryH2(sql);
+    compareRowEquals(resultRows, expectedRows);
+  }
+
+  private List<Object[]> queryRunner(String sql) {
+    return queryRunner(_queryEnvironment.planQuery(sql));
+  }
+
+  private List<Object[]> queryRunner(QueryPlan queryPlan) {
     Map<String, String> requestMetadataMap =
         ImmutableMap.of("REQUEST_ID", String.valueOf(RANDOM_REQUEST_ID_GEN.nextLong()));
     MailboxReceiveOperator mailboxReceiveOperator = null;
@@ -80,6 +114,19 @@ public class QueryRunnerTest extends QueryRunnerTestBase {
         queryPlan.getQueryResultFields()).getRows();
   }
 
+  private static JoinNode findJoinNode(StageNode node) {
+    if (node instanceof JoinNode) {
+      return (JoinNode) node;
+    }
+    for (StageNode child : node.getInputs()) {
+      JoinNode joinNode = findJoinNode(child);
+      if (joinNode != null) {
+        return joinNode;
+      }
+    }
+    return null;
+  }
+
   private List<Object[]> queryH2(String sql)
       throws Exception {
     Statement h2statement = _h2Connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
@@ -144,6 +191,42 @@ public class QueryRunnerTest extends QueryRunnerTestBase {
     }
   }
 
+  /**
+   * Aggregations on top of a join, which are partially pushed below the join into the leaf stages. COUNT is rewritten
+   * into SUM0 of the partial counts, and AVG into SUM / COUNT. AVG inputs are cast to DOUBLE since H2 rounds the
+   * integer average.
+   */
+  @DataProvider(name = "testJoinAggregateSql")
+  private Object[][] provideJoinAggregateSql() {
+    return new Object[][]{
+        // GROUP BY on the join key
+        new Object[]{"SELECT a.col1, SUM(a.col3), COUNT(*), AVG(CAST(b.col3 AS DOUBLE)) FROM a JOIN b "
+            + "ON a.col1 = b.col1 GROUP BY a.col1"},
+        // GROUP BY on a column of the left side
+        new Object[]{"SELECT a.col2, SUM(a.col3), COUNT(*), COUNT(b.col3), AVG(CAST(a.col3 AS DOUBLE)) FROM a JOIN b "
+            + "ON a.col1 = b.col1 GROUP BY a.col2"},
+        // GROUP BY on a column of the right side, aggregating the left side
+        new Object[]{"SELECT b.col2, SUM(a.col3), COUNT(a.col3), AVG(CAST(a.col3 AS DOUBLE)) FROM a JOIN b "
+            + "ON a.col1 = b.col1 GROUP BY b.col2"},
+        // GROUP BY on both sides, aggregating both sides
+        new Object[]{"SELECT a.col2, b.col2, SUM(a.col3), SUM(b.col3), COUNT(*), MIN(a.col3), MAX(b.col3) FROM a "
+            + "JOIN b ON a.col1 = b.col1 GROUP BY a.col2, b.col2"},
+        // Aggregation without GROUP BY
+        new Object[]{"SELECT SUM(a.col3), COUNT(*), AVG(CAST(b.col3 AS DOUBLE)) FROM a JOIN b ON a.col1 = b.col1"},
+    };
+  }
+
+  @DataProvider(name = "testColocatedJoinSql")
+  private Object[][] provideColocatedJoinSql() {
+    return new Object[][]{
+        new Object[]{"SELECT * FROM e JOIN f ON e.col1 = f.col1"},
+        new Object[]{"SELECT e.col1, e.col3, f.col2 FROM e JOIN f ON e.col1 = f.col1 AND e.col2 = f.col2"},
+        new Object[]{"SELECT e.col1, f.col3 FROM e JOIN f ON e.col1 = f.col1 WHERE e.col3 > 1"},
+        new Object[]{"SELECT e.col1, COUNT(*), SUM(f.col3) FROM e JOIN f ON e.col1 = f.col1 GROUP BY e.col1"},
+        new Object[]{"SELECT e.col2, MAX(e.col3) FROM e LEFT JOIN f ON e.col1 = f.col1 GROUP BY e.col2"},
+    };
+  }
+
   @DataProvider(name = "testDataWithSqlToFinalRowCount")
   private Object[][] provideTestSqlAndRowCount() {
     return new Object[][] {
@@ -159,6 +242,14 @@ public class QueryRunnerTest extends QueryRunnerTestBase {
         //   - on intermediate stage
         new Object[]{"SELECT dateTrunc('DAY', round(a.ts, b.ts)) FROM a JOIN b "
             + "ON a.col1 = b.col1 AND a.col2 = b.col2", 15},
+
+        // window functions keep all the input rows, table A has 15 rows
+        new Object[]{"SELECT col1, ROW_NUMBER() OVER (PARTITION BY col1 ORDER BY ts) FROM a", 15},
+        new Object[]{"SELECT col1, SUM(col3) OVER (PARTITION BY col2 ORDER BY col3 ROWS BETWEEN 1 PRECEDING AND "
+            + "CURRENT ROW) FROM a", 15},
+        // each col1 value has 3 identical rows in table A, so all of them have rank 1 and count 3
+        new Object[]{"SELECT * FROM (SELECT col1, RANK() OVER (PARTITION BY col1 ORDER BY col3) AS r, "
+            + "COUNT(*) OVER (PARTITION BY col1 ORDER BY col3) AS c FROM a) WHERE r = 1 AND c = 3", 15},
     };
   }
 }
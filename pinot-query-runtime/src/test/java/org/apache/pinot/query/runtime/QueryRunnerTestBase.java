@@ -57,9 +57,13 @@ public class QueryRunnerTestBase extends QueryTestSet {
   private static final File INDEX_DIR_S1_B = new File(FileUtils.getTempDirectory(), "QueryRunnerTest_server1_tableB");
   private static final File INDEX_DIR_S1_C = new File(FileUtils.getTempDirectory(), "QueryRunnerTest_server1_tableC");
   private static final File INDEX_DIR_S1_D = new File(FileUtils.getTempDirectory(), "QueryRunnerTest_server1_tableD");
+  private static final File INDEX_DIR_S1_E = new File(FileUtils.getTempDirectory(), "QueryRunnerTest_server1_tableE");
+  private static final File INDEX_DIR_S1_F = new File(FileUtils.getTempDirectory(), "QueryRunnerTest_server1_tableF");
   private static final File INDEX_DIR_S2_A = new File(FileUtils.getTempDirectory(), "QueryRunnerTest_server2_tableA");
   private static final File INDEX_DIR_S2_C = new File(FileUtils.getTempDirectory(), "QueryRunnerTest_server2_tableC");
   private static final File INDEX_DIR_S2_D = new File(FileUtils.getTempDirectory(), "QueryRunnerTest_server2_tableD");
+  private static final File INDEX_DIR_S2_E = new File(FileUtils.getTempDirectory(), "QueryRunnerTest_server2_tableE");
+  private static final File INDEX_DIR_S2_F = new File(FileUtils.getTempDirectory(), "QueryRunnerTest_server2_tableF");
 
   protected static final Random RANDOM_REQUEST_ID_GEN = new Random();
 
@@ -128,15 +132,17 @@ public class QueryRunnerTestBase extends QueryTestSet {
       throws Exception {
     DataTableBuilderFactory.setDataTableVersion(DataTableFactory.VERSION_4);
     QueryServerEnclosure server1 = new QueryServerEnclosure(
-        ImmutableMap.of("a", INDEX_DIR_S1_A, "b", INDEX_DIR_S1_B, "c", INDEX_DIR_S1_C, "d_O", INDEX_DIR_S1_D),
-        QueryEnvironmentTestUtils.SERVER1_SEGMENTS);
+        ImmutableMap.<String, File>builder().put("a", INDEX_DIR_S1_A).put("b", INDEX_DIR_S1_B)
+            .put("c", INDEX_DIR_S1_C).put("d_O", INDEX_DIR_S1_D).put("e", INDEX_DIR_S1_E).put("f", INDEX_DIR_S1_F)
+            .build(), QueryEnvironmentTestUtils.SERVER1_SEGMENTS);
     QueryServerEnclosure server2 = new QueryServerEnclosure(
-        ImmutableMap.of("a", INDEX_DIR_S2_A, "c", INDEX_DIR_S2_C, "d_R", INDEX_DIR_S2_D, "d_O", INDEX_DIR_S1_D),
-        QueryEnvironmentTestUtils.SERVER2_SEGMENTS);
+        ImmutableMap.<String, File>builder().put("a", INDEX_DIR_S2_A).put("c", INDEX_DIR_S2_C)
+            .put("d_R", INDEX_DIR_S2_D).put("d_O", INDEX_DIR_S1_D).put("e", INDEX_DIR_S2_E).put("f", INDEX_DIR_S2_F)
+            .build(), QueryEnvironmentTestUtils.SERVER2_SEGMENTS);
 
     // Setting up H2 for validation
     setH2Connection();
-    addTableToH2(Arrays.asList("a", "b", "c", "d"));
+    addTableToH2(Arrays.asList("a", "b", "c", "d", "e", "f"));
     addDataToH2(server1.getRowsMap());
     addDataToH2(server2.getRowsMap());
 
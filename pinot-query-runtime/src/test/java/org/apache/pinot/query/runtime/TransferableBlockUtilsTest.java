@@ -77,6 +77,21 @@ public class TransferableBlockUtilsTest {
         BaseDataBlock.Type.ROW, rowSizeInBytes * splitRowCount + 1), rows, dataSchema);
   }
 
+  // Test that a serialized block within maxBlockSize is forwarded as-is without extracting its rows.
+  @Test
+  public void testSplitBlockWithinMaxBlockSize()
+      throws Exception {
+    DataSchema dataSchema = getDataSchema();
+    List<Object[]> rows = DataBlockTestUtils.getRandomRows(dataSchema, TOTAL_ROW_COUNT, 1);
+    RowDataBlock rowBlock = DataBlockBuilder.buildFromRows(rows, dataSchema);
+    TransferableBlock transferableBlock = new TransferableBlock(rowBlock);
+    List<TransferableBlock> blocks = TransferableBlockUtils.splitBlock(transferableBlock, BaseDataBlock.Type.ROW,
+        rowBlock.getRowSizeInBytes() * TOTAL_ROW_COUNT);
+    Assert.assertEquals(blocks.size(), 1);
+    Assert.assertSame(blocks.get(0), transferableBlock);
+    Assert.assertFalse(transferableBlock.isContainerBlock());
+  }
+
   @Test
   public void testNonSplittableBlock()
       throws Exception {
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.executor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.datablock.BaseDataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.util.TestUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class OpChainSchedulerServiceTest {
+  private static final DataSchema DATA_SCHEMA =
+      new DataSchema(new String[]{"col"}, new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.INT});
+  private static final long TIMEOUT_MS = 10_000L;
+
+  private OpChainSchedulerService _scheduler;
+
+  @BeforeMethod
+  public void setUp() {
+    _scheduler = new OpChainSchedulerService(2, 10, "op_chain_scheduler_test");
+    _scheduler.start();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    _scheduler.shutDown();
+  }
+
+  @Test
+  public void shouldResumeYieldedOpChainOnWakeUp()
+      throws Exception {
+    TestOperator operator = new TestOperator(3, 2);
+    OpChain opChain = new OpChain(operator, Collections.emptyList(), Collections.emptyList(), 1L, 0);
+    _scheduler.register(opChain);
+
+    for (int i = 0; i < 3; i++) {
+      int numYields = i + 1;
+      TestUtils.waitForCondition(aVoid -> operator._numYields.get() == numYields, TIMEOUT_MS,
+          "Op chain did not yield");
+      _scheduler.wakeUp(opChain);
+    }
+    waitForRequestToFinish(1L);
+    Assert.assertEquals(operator._numDataBlocks.get(), 2);
+    // Each yield ends a time slice
+    Assert.assertTrue(opChain.getNumSlices() >= 4);
+  }
+
+  @Test
+  public void shouldRunAllOpChainsOfConcurrentRequests()
+      throws Exception {
+    int numRequests = 10;
+    int numOpChainsPerRequest = 5;
+    List<TestOperator> operators = new ArrayList<>();
+    for (int requestId = 0; requestId < numRequests; requestId++) {
+      for (int stageId = 0; stageId < numOpChainsPerRequest; stageId++) {
+        TestOperator operator = new TestOperator(0, 100);
+        operators.add(operator);
+        _scheduler.register(
+            new OpChain(operator, Collections.emptyList(), Collections.emptyList(), requestId, stageId));
+      }
+    }
+    for (int requestId = 0; requestId < numRequests; requestId++) {
+      waitForRequestToFinish(requestId);
+    }
+    for (TestOperator operator : operators) {
+      Assert.assertEquals(operator._numDataBlocks.get(), 100);
+    }
+  }
+
+  @Test
+  public void shouldNotStarveOpChainsBehindLongRunningOpChain()
+      throws Exception {
+    // Keeps producing data blocks until released, which occupies a worker thread for each time slice it runs
+    TestOperator longRunningOperator1 = new TestOperator(0, Integer.MAX_VALUE);
+    TestOperator longRunningOperator2 = new TestOperator(0, Integer.MAX_VALUE);
+    _scheduler.register(new OpChain(longRunningOperator1, Collections.emptyList(), Collections.emptyList(), 1L, 0));
+    _scheduler.register(new OpChain(longRunningOperator2, Collections.emptyList(), Collections.emptyList(), 2L, 0));
+    _scheduler.register(
+        new OpChain(new TestOperator(0, 10), Collections.emptyList(), Collections.emptyList(), 3L, 0));
+
+    waitForRequestToFinish(3L);
+    longRunningOperator1._numDataBlocksToReturn = 0;
+    longRunningOperator2._numDataBlocksToReturn = 0;
+    waitForRequestToFinish(1L);
+    waitForRequestToFinish(2L);
+  }
+
+  private void waitForRequestToFinish(long requestId) {
+    TestUtils.waitForCondition(aVoid -> _scheduler.getCpuTimeNs(requestId) == -1L, TIMEOUT_MS,
+        "Request: " + requestId + " did not finish");
+  }
+
+  /**
+   * Yields the given number of times by returning no-op blocks, then returns the given number of data blocks followed
+   * by the end-of-stream block.
+   */
+  private static class TestOperator extends BaseOperator<TransferableBlock> {
+    private final int _numYieldsToReturn;
+    private volatile int _numDataBlocksToReturn;
+    private final AtomicInteger _numYields = new AtomicInteger();
+    private final AtomicInteger _numDataBlocks = new AtomicInteger();
+
+    TestOperator(int numYieldsToReturn, int numDataBlocksToReturn) {
+      _numYieldsToReturn = numYieldsToReturn;
+      _numDataBlocksToReturn = numDataBlocksToReturn;
+    }
+
+    @Override
+    protected TransferableBlock getNextBlock() {
+      if (_numYields.get() < _numYieldsToReturn) {
+        _numYields.incrementAndGet();
+        return TransferableBlockUtils.getNoOpTransferableBlock();
+      }
+      if (_numDataBlocks.get() < _numDataBlocksToReturn) {
+        _numDataBlocks.incrementAndGet();
+        return new TransferableBlock(Collections.singletonList(new Object[]{1}), DATA_SCHEMA,
+            BaseDataBlock.Type.ROW);
+      }
+      return TransferableBlockUtils.getEndOfStreamTransferableBlock(DATA_SCHEMA);
+    }
+
+    @Nullable
+    @Override
+    public String toExplainString() {
+      return "TEST";
+    }
+
+    @Override
+    public List<Operator> getChildOperators() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.pinot.common.datablock.BaseDataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.core.common.datablock.DataBlockTestUtils;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+public class FilterOperatorTest {
+  private static final DataSchema DATA_SCHEMA = new DataSchema(new String[]{"i", "l", "d", "s", "b"},
+      new ColumnDataType[]{
+          ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.DOUBLE, ColumnDataType.STRING,
+          ColumnDataType.BOOLEAN
+      });
+  private static final List<Object[]> ROWS = createRows();
+
+  private static List<Object[]> createRows() {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      rows.add(new Object[]{i % 10, (long) i, i * 0.5, "s_" + (i % 7), i % 3 == 0});
+    }
+    return rows;
+  }
+
+  @DataProvider
+  public static Object[][] filterProvider() {
+    return new Object[][]{
+        new Object[]{predicate("=", 0, FieldSpec.DataType.INT, 3)},
+        new Object[]{predicate("<>", 0, FieldSpec.DataType.INT, 3)},
+        new Object[]{predicate(">", 1, FieldSpec.DataType.LONG, 42L)},
+        new Object[]{predicate(">=", 2, FieldSpec.DataType.DOUBLE, 10.5)},
+        new Object[]{predicate("<", 3, FieldSpec.DataType.STRING, "s_3")},
+        new Object[]{predicate("<=", 1, FieldSpec.DataType.INT, 20)},
+        new Object[]{new RexExpression.InputRef(4)},
+        new Object[]{function("AND", predicate(">", 1, FieldSpec.DataType.LONG, 10L), new RexExpression.InputRef(4))},
+        new Object[]{
+            function("OR", predicate("=", 0, FieldSpec.DataType.INT, 1), predicate("=", 3, FieldSpec.DataType.STRING,
+                "s_2"))
+        },
+        new Object[]{function("NOT", predicate("<", 2, FieldSpec.DataType.DOUBLE, 25.0))},
+        new Object[]{new RexExpression.Literal(FieldSpec.DataType.BOOLEAN, false)}
+    };
+  }
+
+  @Test(dataProvider = "filterProvider")
+  public void testFilterOnDataBlock(RexExpression filter)
+      throws Exception {
+    List<Object[]> expected = runFilter(new TransferableBlock(ROWS, DATA_SCHEMA, BaseDataBlock.Type.ROW), filter);
+    List<Object[]> rowBlockResult =
+        runFilter(new TransferableBlock(DataBlockBuilder.buildFromRows(ROWS, DATA_SCHEMA)), filter);
+    List<Object[]> columnarBlockResult = runFilter(new TransferableBlock(
+        DataBlockBuilder.buildFromColumns(DataBlockTestUtils.convertColumnar(DATA_SCHEMA, ROWS), DATA_SCHEMA)), filter);
+    assertRowsEqual(rowBlockResult, expected);
+    assertRowsEqual(columnarBlockResult, expected);
+  }
+
+  @DataProvider
+  public static Object[][] notWithNullsProvider() {
+    Predicate<Object[]> isGreaterThan5 = row -> row[0] != null && (int) row[0] > 5;
+    Predicate<Object[]> isNotGreaterThan5 = row -> row[0] != null && (int) row[0] <= 5;
+    return new Object[][]{
+        new Object[]{function("NOT", predicate(">", 0, FieldSpec.DataType.INT, 5)), isNotGreaterThan5},
+        new Object[]{function("NOT", function("NOT", predicate(">", 0, FieldSpec.DataType.INT, 5))), isGreaterThan5},
+        new Object[]{
+            function("NOT",
+                function("AND", predicate(">", 0, FieldSpec.DataType.INT, 5), new RexExpression.InputRef(4))),
+            isNotGreaterThan5.or(row -> !(boolean) row[4])
+        },
+        new Object[]{
+            function("NOT", function("OR", predicate(">", 0, FieldSpec.DataType.INT, 5),
+                predicate(">", 1, FieldSpec.DataType.LONG, 50L))),
+            isNotGreaterThan5.and(row -> (long) row[1] <= 50)
+        }
+    };
+  }
+
+  @Test(dataProvider = "notWithNullsProvider")
+  public void testNotOnDataBlockWithNulls(RexExpression filter, Predicate<Object[]> expectedMatcher)
+      throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    for (Object[] row : ROWS) {
+      Object[] rowWithNull = row.clone();
+      if ((long) row[1] % 4 == 0) {
+        rowWithNull[0] = null;
+      }
+      rows.add(rowWithNull);
+    }
+    List<Object[]> expected = new ArrayList<>();
+    for (Object[] row : rows) {
+      if (expectedMatcher.test(row)) {
+        expected.add(row);
+      }
+    }
+    Assert.assertFalse(expected.isEmpty());
+    // Rows with NULL value compared under NOT are UNKNOWN, and should not match
+    List<Object[]> actual = runFilter(new TransferableBlock(DataBlockBuilder.buildFromRows(rows, DATA_SCHEMA)), filter);
+    Assert.assertEquals(actual.size(), expected.size());
+    for (int i = 0; i < actual.size(); i++) {
+      // The LONG column is unique
+      Assert.assertEquals(actual.get(i)[1], expected.get(i)[1]);
+    }
+  }
+
+  @Test
+  public void testForwardDataBlockWhenAllRowsMatch()
+      throws Exception {
+    TransferableBlock block = new TransferableBlock(DataBlockBuilder.buildFromRows(ROWS, DATA_SCHEMA));
+    FilterOperator operator = new FilterOperator(new SingleBlockOperator(block), DATA_SCHEMA,
+        predicate(">=", 1, FieldSpec.DataType.LONG, 0L));
+    TransferableBlock result = operator.nextBlock();
+    Assert.assertSame(result, block);
+    Assert.assertFalse(result.isContainerBlock());
+  }
+
+  @Test
+  public void testProjectDataBlock()
+      throws Exception {
+    TransferableBlock block = new TransferableBlock(DataBlockBuilder.buildFromRows(ROWS, DATA_SCHEMA));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"s", "i"}, new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.INT});
+    TransformOperator operator = new TransformOperator(new SingleBlockOperator(block), resultSchema,
+        Arrays.asList(new RexExpression.InputRef(3), new RexExpression.InputRef(0)), DATA_SCHEMA);
+    List<Object[]> expected = new ArrayList<>();
+    for (Object[] row : ROWS) {
+      expected.add(new Object[]{row[3], row[0]});
+    }
+    assertRowsEqual(operator.nextBlock().getContainer(), expected);
+
+    // Selecting all the columns in order forwards the block as-is
+    List<RexExpression> identity = new ArrayList<>();
+    for (int i = 0; i < DATA_SCHEMA.size(); i++) {
+      identity.add(new RexExpression.InputRef(i));
+    }
+    TransformOperator identityOperator =
+        new TransformOperator(new SingleBlockOperator(block), DATA_SCHEMA, identity, DATA_SCHEMA);
+    Assert.assertSame(identityOperator.nextBlock(), block);
+  }
+
+  private static RexExpression predicate(String functionName, int columnId, FieldSpec.DataType literalType,
+      Object literalValue) {
+    return function(functionName, new RexExpression.InputRef(columnId),
+        new RexExpression.Literal(literalType, literalValue));
+  }
+
+  private static RexExpression function(String functionName, RexExpression... operands) {
+    return new RexExpression.FunctionCall(SqlKind.OTHER_FUNCTION, FieldSpec.DataType.BOOLEAN, functionName,
+        Arrays.asList(operands));
+  }
+
+  private static List<Object[]> runFilter(TransferableBlock block, RexExpression filter) {
+    FilterOperator operator = new FilterOperator(new SingleBlockOperator(block), DATA_SCHEMA, filter);
+    TransferableBlock result = operator.nextBlock();
+    Assert.assertFalse(result.isErrorBlock());
+    return result.getContainer();
+  }
+
+  private static void assertRowsEqual(List<Object[]> actual, List<Object[]> expected) {
+    Assert.assertEquals(actual.size(), expected.size());
+    for (int i = 0; i < actual.size(); i++) {
+      Assert.assertEquals(actual.get(i), expected.get(i));
+    }
+  }
+
+  private static class SingleBlockOperator extends BaseOperator<TransferableBlock> {
+    private TransferableBlock _block;
+
+    SingleBlockOperator(TransferableBlock block) {
+      _block = block;
+    }
+
+    @Override
+    protected TransferableBlock getNextBlock() {
+      if (_block == null) {
+        return TransferableBlockUtils.getEndOfStreamTransferableBlock(DATA_SCHEMA);
+      }
+      TransferableBlock block = _block;
+      _block = null;
+      return block;
+    }
+
+    @Nullable
+    @Override
+    public String toExplainString() {
+      return "SINGLE_BLOCK";
+    }
+
+    @Override
+    public List<Operator> getChildOperators() {
+      return Collections.emptyList();
+    }
+  }
+}
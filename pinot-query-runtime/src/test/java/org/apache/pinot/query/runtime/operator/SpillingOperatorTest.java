@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.datablock.BaseDataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.partitioning.FieldSelectionKeySelector;
+import org.apache.pinot.query.planner.stage.JoinNode;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.spill.SpillConfig;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+public class SpillingOperatorTest {
+  private static final File SPILL_DIR = new File(FileUtils.getTempDirectory(), "SpillingOperatorTest");
+  private static final DataSchema LEFT_SCHEMA =
+      new DataSchema(new String[]{"id", "name"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING});
+  private static final DataSchema RIGHT_SCHEMA =
+      new DataSchema(new String[]{"id", "value"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG});
+  private static final DataSchema JOIN_SCHEMA = new DataSchema(new String[]{"id", "name", "id0", "value"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.LONG});
+  private static final DataSchema AGG_SCHEMA = new DataSchema(new String[]{"id", "sum", "count", "max"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE});
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(SPILL_DIR);
+  }
+
+  @DataProvider
+  public static Object[][] spillConfigProvider() {
+    return new Object[][]{
+        // Spills all the partitions, and recursively repartitions the spilled partitions to fit in the budget
+        new Object[]{new SpillConfig(1_000L, SPILL_DIR, 4)},
+        new Object[]{new SpillConfig(10_000L, SPILL_DIR, 8)}
+    };
+  }
+
+  @Test(dataProvider = "spillConfigProvider")
+  public void testHashJoinWithSpilling(SpillConfig spillConfig) {
+    for (JoinRelType joinType : Arrays.asList(JoinRelType.INNER, JoinRelType.LEFT)) {
+      List<String> expected = toSortedStrings(runJoin(joinType, SpillConfig.DISABLED));
+      List<String> actual = toSortedStrings(runJoin(joinType, spillConfig));
+      Assert.assertFalse(expected.isEmpty());
+      Assert.assertEquals(actual, expected);
+    }
+  }
+
+  @Test
+  public void testHashJoinWithSkewedKey() {
+    // All the right rows share the same join key, so the spilled partition cannot be split to fit in the budget
+    List<Object[]> leftRows = Collections.singletonList(new Object[]{1, "name"});
+    List<Object[]> rightRows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      rightRows.add(new Object[]{1, (long) i});
+    }
+    HashJoinOperator operator = createJoinOperator(leftRows, rightRows, JoinRelType.INNER,
+        new SpillConfig(1_000L, SPILL_DIR, 4));
+    TransferableBlock block = operator.nextBlock();
+    while (!TransferableBlockUtils.isEndOfStream(block)) {
+      block = operator.nextBlock();
+    }
+    Assert.assertTrue(block.isErrorBlock());
+    String errorMessage = block.getDataBlock().getExceptions().values().iterator().next();
+    Assert.assertTrue(errorMessage.contains("100 build rows"), errorMessage);
+  }
+
+  @Test(dataProvider = "spillConfigProvider")
+  public void testAggregateWithSpilling(SpillConfig spillConfig) {
+    List<String> expected = toSortedStrings(runAggregate(SpillConfig.DISABLED));
+    List<String> actual = toSortedStrings(runAggregate(spillConfig));
+    Assert.assertEquals(expected.size(), 100);
+    Assert.assertEquals(actual, expected);
+  }
+
+  private static List<Object[]> runJoin(JoinRelType joinType, SpillConfig spillConfig) {
+    List<Object[]> leftRows = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      leftRows.add(new Object[]{i % 300, "name_" + i});
+    }
+    List<Object[]> rightRows = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      rightRows.add(new Object[]{i % 250, (long) i});
+    }
+    return drain(createJoinOperator(leftRows, rightRows, joinType, spillConfig));
+  }
+
+  private static HashJoinOperator createJoinOperator(List<Object[]> leftRows, List<Object[]> rightRows,
+      JoinRelType joinType, SpillConfig spillConfig) {
+    JoinNode.JoinKeys joinKeys =
+        new JoinNode.JoinKeys(new FieldSelectionKeySelector(0), new FieldSelectionKeySelector(0));
+    return new HashJoinOperator(new RowListOperator(leftRows, LEFT_SCHEMA), LEFT_SCHEMA,
+        new RowListOperator(rightRows, RIGHT_SCHEMA), RIGHT_SCHEMA, JOIN_SCHEMA, joinKeys, Collections.emptyList(),
+        joinType, 100, spillConfig, 0L);
+  }
+
+  private static List<Object[]> runAggregate(SpillConfig spillConfig) {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      rows.add(new Object[]{i % 100, (long) i});
+    }
+    List<RexExpression> aggCalls = Arrays.asList(
+        new RexExpression.FunctionCall(SqlKind.SUM, FieldSpec.DataType.DOUBLE, "SUM",
+            Collections.singletonList(new RexExpression.InputRef(1))),
+        new RexExpression.FunctionCall(SqlKind.COUNT, FieldSpec.DataType.DOUBLE, "COUNT", Collections.emptyList()),
+        new RexExpression.FunctionCall(SqlKind.MAX, FieldSpec.DataType.DOUBLE, "MAX",
+            Collections.singletonList(new RexExpression.InputRef(1))));
+    AggregateOperator operator =
+        new AggregateOperator(new RowListOperator(rows, RIGHT_SCHEMA), AGG_SCHEMA, aggCalls,
+            Collections.singletonList(new RexExpression.InputRef(0)), RIGHT_SCHEMA, spillConfig, 0L);
+    return drain(operator);
+  }
+
+  private static List<Object[]> drain(Operator<TransferableBlock> operator) {
+    List<Object[]> rows = new ArrayList<>();
+    TransferableBlock block = operator.nextBlock();
+    while (!TransferableBlockUtils.isEndOfStream(block)) {
+      rows.addAll(block.getContainer());
+      block = operator.nextBlock();
+    }
+    Assert.assertFalse(block.isErrorBlock());
+    return rows;
+  }
+
+  private static List<String> toSortedStrings(List<Object[]> rows) {
+    List<String> strings = new ArrayList<>(rows.size());
+    for (Object[] row : rows) {
+      StringBuilder stringBuilder = new StringBuilder();
+      for (Object value : row) {
+        stringBuilder.append(value instanceof Number ? ((Number) value).doubleValue() : value).append(',');
+      }
+      strings.add(stringBuilder.toString());
+    }
+    Collections.sort(strings);
+    return strings;
+  }
+
+  private static class RowListOperator extends BaseOperator<TransferableBlock> {
+    private final List<Object[]> _rows;
+    private final DataSchema _dataSchema;
+    private int _offset;
+
+    RowListOperator(List<Object[]> rows, DataSchema dataSchema) {
+      _rows = rows;
+      _dataSchema = dataSchema;
+    }
+
+    @Override
+    protected TransferableBlock getNextBlock() {
+      if (_offset >= _rows.size()) {
+        return TransferableBlockUtils.getEndOfStreamTransferableBlock(_dataSchema);
+      }
+      int end = Math.min(_offset + 97, _rows.size());
+      List<Object[]> rows = new ArrayList<>(_rows.subList(_offset, end));
+      _offset = end;
+      return new TransferableBlock(rows, _dataSchema, BaseDataBlock.Type.ROW);
+    }
+
+    @Override
+    public List<Operator> getChildOperators() {
+      return null;
+    }
+
+    @Nullable
+    @Override
+    public String toExplainString() {
+      return "ROW_LIST";
+    }
+  }
+}
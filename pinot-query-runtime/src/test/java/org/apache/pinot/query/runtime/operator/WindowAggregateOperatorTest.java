@@ -0,0 +1,347 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.pinot.common.datablock.BaseDataBlock;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.stage.WindowNode;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class WindowAggregateOperatorTest {
+  private static final DataSchema DATA_SCHEMA = new DataSchema(new String[]{"p", "o", "v"},
+      new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.INT});
+  // partition "a" has a tie on the order key, partition "b" has a null value
+  private static final List<Object[]> ROWS = Arrays.asList(
+      new Object[]{"a", 1, 10},
+      new Object[]{"b", 5, 7},
+      new Object[]{"a", 2, 20},
+      new Object[]{"a", 2, 30},
+      new Object[]{"b", 6, null},
+      new Object[]{"a", 4, 5},
+      new Object[]{"b", 9, 3});
+  private static final List<RexExpression> PARTITION_BY = Collections.singletonList(new RexExpression.InputRef(0));
+  private static final List<RexExpression> ORDER_BY = Collections.singletonList(new RexExpression.InputRef(1));
+
+  @Test
+  public void testRankingFunctions()
+      throws Exception {
+    List<Object[]> result = runWindow(ORDER_BY, Collections.singletonList(RelFieldCollation.Direction.ASCENDING),
+        Arrays.asList(function("ROW_NUMBER"), function("RANK"), function("DENSE_RANK")), false,
+        WindowNode.UNBOUNDED_PRECEDING, 0);
+    assertRows(result, Arrays.asList(
+        new Object[]{"a", 1, 10, 1L, 1L, 1L},
+        new Object[]{"a", 2, 20, 2L, 2L, 2L},
+        new Object[]{"a", 2, 30, 3L, 2L, 2L},
+        new Object[]{"a", 4, 5, 4L, 4L, 3L},
+        new Object[]{"b", 5, 7, 1L, 1L, 1L},
+        new Object[]{"b", 6, null, 2L, 2L, 2L},
+        new Object[]{"b", 9, 3, 3L, 3L, 3L}));
+  }
+
+  @Test
+  public void testRunningAggregationsIncludePeers()
+      throws Exception {
+    // default frame with ORDER BY: RANGE BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW
+    List<Object[]> result = runWindow(ORDER_BY, Collections.singletonList(RelFieldCollation.Direction.ASCENDING),
+        Arrays.asList(function("$SUM0", 2), function("COUNT", 2), function("COUNT"), function("MAX", 2)), false,
+        WindowNode.UNBOUNDED_PRECEDING, 0);
+    assertRows(result, Arrays.asList(
+        new Object[]{"a", 1, 10, 10, 1L, 1L, 10},
+        new Object[]{"a", 2, 20, 60, 3L, 3L, 30},
+        new Object[]{"a", 2, 30, 60, 3L, 3L, 30},
+        new Object[]{"a", 4, 5, 65, 4L, 4L, 30},
+        new Object[]{"b", 5, 7, 7, 1L, 1L, 7},
+        new Object[]{"b", 6, null, 7, 1L, 2L, 7},
+        new Object[]{"b", 9, 3, 10, 2L, 3L, 7}));
+  }
+
+  @Test
+  public void testRowsFrame()
+      throws Exception {
+    // ROWS BETWEEN 1 PRECEDING AND 1 FOLLOWING, ordered by the value descending
+    List<Object[]> result = runWindow(Collections.singletonList(new RexExpression.InputRef(2)),
+        Collections.singletonList(RelFieldCollation.Direction.DESCENDING),
+        Arrays.asList(function("MIN", 2), function("MAX", 2), function("SUM", 2)), true, -1, 1);
+    // nulls are the largest values, so they come first in descending order
+    assertRows(result, Arrays.asList(
+        new Object[]{"a", 1, 10, 5, 20, 35},
+        new Object[]{"a", 2, 20, 10, 30, 60},
+        new Object[]{"a", 2, 30, 20, 30, 50},
+        new Object[]{"a", 4, 5, 5, 10, 15},
+        new Object[]{"b", 5, 7, 3, 7, 10},
+        new Object[]{"b", 6, null, 7, 7, 7},
+        new Object[]{"b", 9, 3, 3, 7, 10}));
+  }
+
+  @Test
+  public void testRangeFrameWithValueOffset()
+      throws Exception {
+    // RANGE BETWEEN 1 PRECEDING AND 2 FOLLOWING
+    List<Object[]> result = runWindow(ORDER_BY, Collections.singletonList(RelFieldCollation.Direction.ASCENDING),
+        Arrays.asList(function("$SUM0", 2), function("MIN", 2)), false, -1, 2);
+    assertRows(result, Arrays.asList(
+        new Object[]{"a", 1, 10, 60, 10},
+        new Object[]{"a", 2, 20, 65, 5},
+        new Object[]{"a", 2, 30, 65, 5},
+        new Object[]{"a", 4, 5, 5, 5},
+        new Object[]{"b", 5, 7, 7, 7},
+        new Object[]{"b", 6, null, 7, 7},
+        new Object[]{"b", 9, 3, 3, 3}));
+
+    // RANGE BETWEEN 1 FOLLOWING AND UNBOUNDED FOLLOWING in descending order, the frame can be empty
+    result = runWindow(ORDER_BY, Collections.singletonList(RelFieldCollation.Direction.DESCENDING),
+        Arrays.asList(function("SUM", 2), function("COUNT")), false, 1, WindowNode.UNBOUNDED_FOLLOWING);
+    assertRows(result, Arrays.asList(
+        new Object[]{"a", 1, 10, null, 0L},
+        new Object[]{"a", 2, 20, 10, 1L},
+        new Object[]{"a", 2, 30, 10, 1L},
+        new Object[]{"a", 4, 5, 60, 3L},
+        new Object[]{"b", 5, 7, null, 0L},
+        new Object[]{"b", 6, null, 7, 1L},
+        new Object[]{"b", 9, 3, 7, 2L}));
+  }
+
+  @Test
+  public void testWholePartitionWithoutOrderBy()
+      throws Exception {
+    List<Object[]> result = runWindow(Collections.emptyList(), Collections.emptyList(),
+        Arrays.asList(function("SUM", 2), function("MIN", 2), function("ROW_NUMBER")), false,
+        WindowNode.UNBOUNDED_PRECEDING, WindowNode.UNBOUNDED_FOLLOWING);
+    Assert.assertEquals(result.size(), ROWS.size());
+    for (Object[] row : result) {
+      if (row[0].equals("a")) {
+        Assert.assertEquals(row[3], 65);
+        Assert.assertEquals(row[4], 5);
+      } else {
+        Assert.assertEquals(row[3], 10);
+        Assert.assertEquals(row[4], 3);
+      }
+    }
+  }
+
+  @Test
+  public void testSumWithLargeValues()
+      throws Exception {
+    // the LONG value is not representable as a double, and the DOUBLE value absorbs the small ones
+    DataSchema dataSchema = new DataSchema(new String[]{"p", "o", "l", "d"},
+        new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.DOUBLE});
+    List<Object[]> rows = Arrays.asList(
+        new Object[]{"a", 1, 1_000_000_000_000_000_001L, 1e17},
+        new Object[]{"a", 2, 1L, 1.0},
+        new Object[]{"a", 3, 1L, 1.0});
+    // ROWS BETWEEN 1 PRECEDING AND CURRENT ROW
+    List<Object[]> result = runWindow(dataSchema, rows, ORDER_BY,
+        Collections.singletonList(RelFieldCollation.Direction.ASCENDING),
+        Collections.singletonList(RelFieldCollation.NullDirection.UNSPECIFIED),
+        Arrays.asList(function("SUM", FieldSpec.DataType.LONG, 2), function("SUM", FieldSpec.DataType.DOUBLE, 3)),
+        true, -1, 0);
+    assertOrderedRows(result, Arrays.asList(
+        new Object[]{"a", 1, 1_000_000_000_000_000_001L, 1e17, 1_000_000_000_000_000_001L, 1e17},
+        new Object[]{"a", 2, 1L, 1.0, 1_000_000_000_000_000_002L, 1e17 + 1},
+        new Object[]{"a", 3, 1L, 1.0, 2L, 2.0}));
+  }
+
+  @Test
+  public void testNullDirection()
+      throws Exception {
+    List<Object[]> rows = Arrays.asList(
+        new Object[]{"a", 1, 10},
+        new Object[]{"a", null, 20},
+        new Object[]{"a", 3, 30});
+    List<RexExpression> aggCalls = Arrays.asList(function("ROW_NUMBER"), function("SUM", 2));
+    // ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW
+    assertOrderedRows(runWindow(DATA_SCHEMA, rows, ORDER_BY,
+        Collections.singletonList(RelFieldCollation.Direction.ASCENDING),
+        Collections.singletonList(RelFieldCollation.NullDirection.FIRST), aggCalls, true,
+        WindowNode.UNBOUNDED_PRECEDING, 0), Arrays.asList(
+        new Object[]{"a", null, 20, 1L, 20},
+        new Object[]{"a", 1, 10, 2L, 30},
+        new Object[]{"a", 3, 30, 3L, 60}));
+    assertOrderedRows(runWindow(DATA_SCHEMA, rows, ORDER_BY,
+        Collections.singletonList(RelFieldCollation.Direction.ASCENDING),
+        Collections.singletonList(RelFieldCollation.NullDirection.LAST), aggCalls, true,
+        WindowNode.UNBOUNDED_PRECEDING, 0), Arrays.asList(
+        new Object[]{"a", 1, 10, 1L, 10},
+        new Object[]{"a", 3, 30, 2L, 40},
+        new Object[]{"a", null, 20, 3L, 60}));
+    assertOrderedRows(runWindow(DATA_SCHEMA, rows, ORDER_BY,
+        Collections.singletonList(RelFieldCollation.Direction.DESCENDING),
+        Collections.singletonList(RelFieldCollation.NullDirection.LAST), aggCalls, true,
+        WindowNode.UNBOUNDED_PRECEDING, 0), Arrays.asList(
+        new Object[]{"a", 3, 30, 1L, 30},
+        new Object[]{"a", 1, 10, 2L, 40},
+        new Object[]{"a", null, 20, 3L, 60}));
+    assertOrderedRows(runWindow(DATA_SCHEMA, rows, ORDER_BY,
+        Collections.singletonList(RelFieldCollation.Direction.DESCENDING),
+        Collections.singletonList(RelFieldCollation.NullDirection.FIRST), aggCalls, true,
+        WindowNode.UNBOUNDED_PRECEDING, 0), Arrays.asList(
+        new Object[]{"a", null, 20, 1L, 20},
+        new Object[]{"a", 3, 30, 2L, 50},
+        new Object[]{"a", 1, 10, 3L, 60}));
+
+    // RANGE BETWEEN 2 PRECEDING AND CURRENT ROW, the null row is only in the frame of its peers
+    assertOrderedRows(runWindow(DATA_SCHEMA, rows, ORDER_BY,
+        Collections.singletonList(RelFieldCollation.Direction.ASCENDING),
+        Collections.singletonList(RelFieldCollation.NullDirection.FIRST), aggCalls, false, -2, 0), Arrays.asList(
+        new Object[]{"a", null, 20, 1L, 20},
+        new Object[]{"a", 1, 10, 2L, 10},
+        new Object[]{"a", 3, 30, 3L, 40}));
+  }
+
+  @Test
+  public void testUpstreamError()
+      throws Exception {
+    TransferableBlock errorBlock = TransferableBlockUtils.getErrorTransferableBlock(new RuntimeException("error"));
+    List<RexExpression> aggCalls = Collections.singletonList(function("ROW_NUMBER"));
+    WindowAggregateOperator operator = new WindowAggregateOperator(new SingleBlockOperator(errorBlock),
+        resultSchema(DATA_SCHEMA, aggCalls), PARTITION_BY, ORDER_BY,
+        Collections.singletonList(RelFieldCollation.Direction.ASCENDING),
+        Collections.singletonList(RelFieldCollation.NullDirection.UNSPECIFIED), aggCalls, true,
+        WindowNode.UNBOUNDED_PRECEDING, 0, DATA_SCHEMA);
+    Assert.assertTrue(operator.nextBlock().isErrorBlock());
+  }
+
+  private static List<Object[]> runWindow(List<RexExpression> orderSet, List<RelFieldCollation.Direction> directions,
+      List<RexExpression> aggCalls, boolean isRows, long lowerBound, long upperBound)
+      throws Exception {
+    return runWindow(DATA_SCHEMA, ROWS, orderSet, directions,
+        Collections.nCopies(directions.size(), RelFieldCollation.NullDirection.UNSPECIFIED), aggCalls, isRows,
+        lowerBound, upperBound);
+  }
+
+  private static List<Object[]> runWindow(DataSchema dataSchema, List<Object[]> rows, List<RexExpression> orderSet,
+      List<RelFieldCollation.Direction> directions, List<RelFieldCollation.NullDirection> nullDirections,
+      List<RexExpression> aggCalls, boolean isRows, long lowerBound, long upperBound)
+      throws Exception {
+    // row container block, as data blocks don't keep the null values
+    List<Object[]> inputRows = new ArrayList<>();
+    for (Object[] row : rows) {
+      inputRows.add(row.clone());
+    }
+    TransferableBlock block = new TransferableBlock(inputRows, dataSchema, BaseDataBlock.Type.ROW);
+    WindowAggregateOperator operator = new WindowAggregateOperator(new SingleBlockOperator(block),
+        resultSchema(dataSchema, aggCalls), PARTITION_BY, orderSet, directions, nullDirections, aggCalls, isRows,
+        lowerBound, upperBound, dataSchema);
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock result = operator.nextBlock();
+    while (!TransferableBlockUtils.isEndOfStream(result)) {
+      resultRows.addAll(result.getContainer());
+      result = operator.nextBlock();
+    }
+    Assert.assertFalse(result.isErrorBlock());
+    return resultRows;
+  }
+
+  private static DataSchema resultSchema(DataSchema dataSchema, List<RexExpression> aggCalls) {
+    int numColumns = dataSchema.size() + aggCalls.size();
+    String[] columnNames = Arrays.copyOf(dataSchema.getColumnNames(), numColumns);
+    ColumnDataType[] columnDataTypes = Arrays.copyOf(dataSchema.getColumnDataTypes(), numColumns);
+    for (int i = dataSchema.size(); i < numColumns; i++) {
+      columnNames[i] = "w" + i;
+      columnDataTypes[i] = ColumnDataType.fromDataTypeSV(aggCalls.get(i - dataSchema.size()).getDataType());
+    }
+    return new DataSchema(columnNames, columnDataTypes);
+  }
+
+  private static RexExpression function(String functionName, int... inputRefs) {
+    // ranking functions and counts are typed LONG, aggregations keep the value type
+    FieldSpec.DataType dataType = functionName.endsWith("RANK") || functionName.equals("ROW_NUMBER")
+        || functionName.equals("COUNT") ? FieldSpec.DataType.LONG : FieldSpec.DataType.INT;
+    return function(functionName, dataType, inputRefs);
+  }
+
+  private static RexExpression function(String functionName, FieldSpec.DataType dataType, int... inputRefs) {
+    List<RexExpression> operands = new ArrayList<>();
+    for (int inputRef : inputRefs) {
+      operands.add(new RexExpression.InputRef(inputRef));
+    }
+    return new RexExpression.FunctionCall(SqlKind.OTHER_FUNCTION, dataType, functionName, operands);
+  }
+
+  /**
+   * Compares the rows ordered by partition, order key and value, as the operator doesn't guarantee the row order
+   * across partitions.
+   */
+  private static void assertRows(List<Object[]> actual, List<Object[]> expected) {
+    Comparator<Object[]> comparator = Comparator.comparing((Object[] row) -> (String) row[0])
+        .thenComparing(row -> (Integer) row[1])
+        .thenComparing(row -> row[2] == null ? Integer.MAX_VALUE : (Integer) row[2]);
+    actual.sort(comparator);
+    Assert.assertEquals(actual.size(), expected.size());
+    for (int i = 0; i < actual.size(); i++) {
+      Assert.assertEquals(actual.get(i), expected.get(i), "Mismatch at row " + i);
+    }
+  }
+
+  /**
+   * Compares the rows of a single partition in the window order.
+   */
+  private static void assertOrderedRows(List<Object[]> actual, List<Object[]> expected) {
+    Assert.assertEquals(actual.size(), expected.size());
+    for (int i = 0; i < actual.size(); i++) {
+      Assert.assertEquals(actual.get(i), expected.get(i), "Mismatch at row " + i);
+    }
+  }
+
+  private static class SingleBlockOperator extends BaseOperator<TransferableBlock> {
+    private TransferableBlock _block;
+
+    SingleBlockOperator(TransferableBlock block) {
+      _block = block;
+    }
+
+    @Override
+    protected TransferableBlock getNextBlock() {
+      if (_block == null) {
+        return TransferableBlockUtils.getEndOfStreamTransferableBlock(DATA_SCHEMA);
+      }
+      TransferableBlock block = _block;
+      _block = null;
+      return block;
+    }
+
+    @Nullable
+    @Override
+    public String toExplainString() {
+      return "SINGLE_BLOCK";
+    }
+
+    @Override
+    public List<Operator> getChildOperators() {
+      return Collections.emptyList();
+    }
+  }
+}
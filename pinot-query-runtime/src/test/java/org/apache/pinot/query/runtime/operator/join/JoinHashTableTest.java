@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+public class JoinHashTableTest {
+
+  @DataProvider
+  public static Object[][] keyTypeProvider() {
+    return new Object[][]{
+        new Object[]{ColumnDataType.INT, new Object[]{1, 2, 3}},
+        new Object[]{ColumnDataType.LONG, new Object[]{1L, 2L, 3L}},
+        new Object[]{ColumnDataType.STRING, new Object[]{"a", "b", "c"}},
+        new Object[]{ColumnDataType.DOUBLE, new Object[]{1.0, 2.0, 3.0}}
+    };
+  }
+
+  @Test(dataProvider = "keyTypeProvider")
+  public void testSingleKeyLookup(ColumnDataType keyType, Object[] keys) {
+    DataSchema schema = new DataSchema(new String[]{"key", "value"}, new ColumnDataType[]{keyType, ColumnDataType.INT});
+    JoinHashTable hashTable =
+        JoinHashTable.create(schema, Collections.singletonList(0), schema, Collections.singletonList(0));
+    hashTable.addRow(new Object[]{keys[0], 10});
+    hashTable.addRow(new Object[]{keys[1], 20});
+    hashTable.addRow(new Object[]{keys[0], 11});
+    hashTable.addRow(new Object[]{null, 30});
+    Assert.assertEquals(hashTable.getNumRows(), 3);
+
+    Assert.assertEquals(getMatchingValues(hashTable, new Object[]{keys[0], 0}), Arrays.asList(10, 11));
+    Assert.assertEquals(getMatchingValues(hashTable, new Object[]{keys[1], 0}), Collections.singletonList(20));
+    Assert.assertEquals(hashTable.getFirstMatch(new Object[]{keys[2], 0}), JoinHashTable.NO_MATCH);
+    Assert.assertEquals(hashTable.getFirstMatch(new Object[]{null, 0}), JoinHashTable.NO_MATCH);
+  }
+
+  @Test
+  public void testMixedIntegralKeyLookup() {
+    DataSchema probeSchema = new DataSchema(new String[]{"key"}, new ColumnDataType[]{ColumnDataType.INT});
+    DataSchema buildSchema =
+        new DataSchema(new String[]{"key", "value"}, new ColumnDataType[]{ColumnDataType.LONG, ColumnDataType.INT});
+    JoinHashTable hashTable =
+        JoinHashTable.create(probeSchema, Collections.singletonList(0), buildSchema, Collections.singletonList(0));
+    hashTable.addRow(new Object[]{1L, 10});
+    Assert.assertEquals(getMatchingValues(hashTable, new Object[]{1}), Collections.singletonList(10));
+  }
+
+  @Test
+  public void testMultiKeyLookupComparesFullKey() {
+    DataSchema schema = new DataSchema(new String[]{"key1", "key2", "value"},
+        new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.INT});
+    JoinHashTable hashTable = JoinHashTable.create(schema, Arrays.asList(0, 1), schema, Arrays.asList(0, 1));
+    hashTable.addRow(new Object[]{"a", 1, 10});
+    hashTable.addRow(new Object[]{"a", 2, 20});
+    hashTable.addRow(new Object[]{"b", 1, 30});
+    Assert.assertEquals(getMatchingValues(hashTable, new Object[]{"a", 1, 0}), Collections.singletonList(10));
+    Assert.assertEquals(getMatchingValues(hashTable, new Object[]{"b", 1, 0}), Collections.singletonList(30));
+    Assert.assertEquals(hashTable.getFirstMatch(new Object[]{"b", 2, 0}), JoinHashTable.NO_MATCH);
+  }
+
+  @Test
+  public void testColumnarRowContainer() {
+    DataSchema schema = new DataSchema(new String[]{"int", "long", "float", "double", "string"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.FLOAT, ColumnDataType.DOUBLE,
+            ColumnDataType.STRING});
+    ColumnarRowContainer container = new ColumnarRowContainer(schema);
+    Object[] row0 = new Object[]{1, 2L, 3.0f, 4.0, "5"};
+    Object[] row1 = new Object[]{null, 2L, null, 4.0, null};
+    Assert.assertEquals(container.addRow(row0), 0);
+    Assert.assertEquals(container.addRow(row1), 1);
+    Assert.assertEquals(container.getRow(0), row0);
+    Assert.assertEquals(container.getRow(1), row1);
+    Object[] dest = new Object[7];
+    container.copyRow(0, dest, 2);
+    Assert.assertEquals(dest, new Object[]{null, null, 1, 2L, 3.0f, 4.0, "5"});
+  }
+
+  private static List<Integer> getMatchingValues(JoinHashTable hashTable, Object[] probeRow) {
+    List<Integer> values = new ArrayList<>();
+    int valueColumnId = hashTable.getRows().getNumColumns() - 1;
+    for (int rowId = hashTable.getFirstMatch(probeRow); rowId != JoinHashTable.NO_MATCH;
+        rowId = hashTable.getNextMatch(rowId)) {
+      values.add((Integer) hashTable.getRows().getValue(rowId, valueColumnId));
+    }
+    Collections.sort(values);
+    return values;
+  }
+}
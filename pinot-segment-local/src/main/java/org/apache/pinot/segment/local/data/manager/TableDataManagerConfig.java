@@ -23,6 +23,7 @@ import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.pinot.spi.config.instance.InstanceDataManagerConfig;
 import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableCustomConfig;
 import org.apache.pinot.spi.config.table.TableType;
 import org.apache.pinot.spi.utils.builder.TableNameBuilder;
 
@@ -31,11 +32,15 @@ import org.apache.pinot.spi.utils.builder.TableNameBuilder;
  * The config used for TableDataManager.
  */
 public class TableDataManagerConfig {
+  // Key in the table custom configs to keep the dimension table in the segments instead of loading it on heap
+  public static final String DIM_TABLE_MEMORY_OPTIMIZED_CUSTOM_CONFIG_KEY = "dimTable.memoryOptimized";
+
   private static final String TABLE_DATA_MANAGER_TYPE = "dataManagerType";
   private static final String TABLE_DATA_MANAGER_DATA_DIRECTORY = "directory";
   private static final String TABLE_DATA_MANAGER_CONSUMER_DIRECTORY = "consumerDirectory";
   private static final String TABLE_DATA_MANAGER_NAME = "name";
   private static final String TABLE_IS_DIMENSION = "isDimTable";
+  private static final String TABLE_DIMENSION_MEMORY_OPTIMIZED = "dimTableMemoryOptimized";
   private static final String TABLE_DATA_MANAGER_AUTH = "auth";
   private static final String TABLE_DELETED_SEGMENTS_CACHE_SIZE = "deletedSegmentsCacheSize";
   private static final String TABLE_DELETED_SEGMENTS_CACHE_TTL_MINUTES = "deletedSegmentsCacheTTL";
@@ -70,6 +75,10 @@ public class TableDataManagerConfig {
     return _tableDataManagerConfig.getBoolean(TABLE_IS_DIMENSION);
   }
 
+  public boolean isDimTableMemoryOptimized() {
+    return _tableDataManagerConfig.getBoolean(TABLE_DIMENSION_MEMORY_OPTIMIZED, false);
+  }
+
   public Configuration getAuthConfig() {
     return _tableDataManagerConfig.subset(TABLE_DATA_MANAGER_AUTH);
   }
@@ -108,6 +117,11 @@ public class TableDataManagerConfig {
     // Override table level configs
 
     _tableDataManagerConfig.addProperty(TABLE_IS_DIMENSION, tableConfig.isDimTable());
+    TableCustomConfig customConfig = tableConfig.getCustomConfig();
+    if (customConfig != null && customConfig.getCustomConfigs() != null) {
+      _tableDataManagerConfig.addProperty(TABLE_DIMENSION_MEMORY_OPTIMIZED,
+          Boolean.parseBoolean(customConfig.getCustomConfigs().get(DIM_TABLE_MEMORY_OPTIMIZED_CUSTOM_CONFIG_KEY)));
+    }
 
     // If we wish to override some table level configs using table config, override them here
     // Note: the configs in TableDataManagerConfig is immutable once the table is created, which mean it will not pick
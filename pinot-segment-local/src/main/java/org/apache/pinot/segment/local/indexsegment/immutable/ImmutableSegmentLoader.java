@@ -26,10 +26,12 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
+import org.apache.pinot.segment.local.segment.index.column.LazyColumnIndexContainer;
 import org.apache.pinot.segment.local.segment.index.column.PhysicalColumnIndexContainer;
 import org.apache.pinot.segment.local.segment.index.converter.SegmentFormatConverterFactory;
 import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
 import org.apache.pinot.segment.local.segment.index.loader.SegmentPreProcessor;
+import org.apache.pinot.segment.local.segment.store.RemoteSegmentDirectory;
 import org.apache.pinot.segment.local.segment.virtualcolumn.VirtualColumnContext;
 import org.apache.pinot.segment.local.segment.virtualcolumn.VirtualColumnProvider;
 import org.apache.pinot.segment.local.segment.virtualcolumn.VirtualColumnProviderFactory;
@@ -183,11 +185,19 @@ public class ImmutableSegmentLoader {
 
     SegmentDirectory.Reader segmentReader = segmentDirectory.createReader();
     Map<String, ColumnIndexContainer> indexContainerMap = new HashMap<>();
+    // Indexes fetched on demand from the deep store are only read when they are used by the queries
+    boolean loadIndexesLazily = segmentDirectory instanceof RemoteSegmentDirectory;
     for (Map.Entry<String, ColumnMetadata> entry : columnMetadataMap.entrySet()) {
       // FIXME: text-index only works with local SegmentDirectory
-      indexContainerMap.put(entry.getKey(),
-          new PhysicalColumnIndexContainer(segmentReader, entry.getValue(), indexLoadingConfig, localIndexDir,
-              IndexingOverrides.getIndexReaderProvider()));
+      if (loadIndexesLazily) {
+        indexContainerMap.put(entry.getKey(),
+            new LazyColumnIndexContainer(segmentReader, entry.getValue(), indexLoadingConfig, localIndexDir,
+                IndexingOverrides.getIndexReaderProvider()));
+      } else {
+        indexContainerMap.put(entry.getKey(),
+            new PhysicalColumnIndexContainer(segmentReader, entry.getValue(), indexLoadingConfig, localIndexDir,
+                IndexingOverrides.getIndexReaderProvider()));
+      }
     }
 
     // Instantiate virtual columns
@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -102,6 +103,7 @@ import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.data.MetricFieldSpec;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.apache.pinot.spi.data.readers.PrimaryKey;
 import org.apache.pinot.spi.stream.RowMetadata;
 import org.apache.pinot.spi.utils.ByteArray;
@@ -142,6 +144,11 @@ public class MutableSegmentImpl implements MutableSegment {
   private final boolean _nullHandlingEnabled;
 
   private final Map<String, IndexContainer> _indexContainerMap = new HashMap<>();
+  // Index containers resolved against the layout of the last indexed IndexedRow
+  private IndexedRow.Layout _indexedRowLayout;
+  private String[] _indexedRowColumns;
+  private IndexContainer[] _indexedRowIndexContainers;
+  private int[] _indexedRowColumnIndexes;
 
   private final IdMap<FixedIntArray> _recordIdMap;
 
@@ -553,6 +560,154 @@ public class MutableSegmentImpl implements MutableSegment {
     return canTakeMore;
   }
 
+  /**
+   * Indexes a batch of records into the segment. The indexes are updated column by column: the column handles are
+   * resolved once per batch, the values of single-value dictionary-encoded columns are bulk inserted into the
+   * dictionary, the forward index of a column is updated for all the records before moving to the next column, and the
+   * inverted index of a column is updated once for the whole batch. The records become queryable together once all the
+   * columns are indexed. Only the records that fit into the remaining capacity of the segment are indexed.
+   *
+   * <p>Upsert, dedup and metrics aggregation need to process the records one at a time, so the records are indexed
+   * with {@link #index(GenericRow, RowMetadata)} when any of them is enabled.
+   */
+  @Override
+  public int index(List<GenericRow> rows, @Nullable RowMetadata rowMetadata)
+      throws IOException {
+    if (isDedupEnabled() || isUpsertEnabled() || isAggregateMetricsEnabled()) {
+      return MutableSegment.super.index(rows, rowMetadata);
+    }
+    int numDocsIndexed = _numDocsIndexed;
+    int numRows = Math.min(rows.size(), _capacity - numDocsIndexed);
+    if (numRows <= 0) {
+      return 0;
+    }
+    if (numRows < rows.size()) {
+      rows = rows.subList(0, numRows);
+    }
+
+    for (Map.Entry<String, IndexContainer> entry : _indexContainerMap.entrySet()) {
+      String column = entry.getKey();
+      IndexContainer indexContainer = entry.getValue();
+      int[] dictIds = null;
+      boolean isMVDictionaryEncoded = false;
+      if (indexContainer._dictionary != null) {
+        if (indexContainer._fieldSpec.isSingleValueField()) {
+          dictIds = updateDictionary(indexContainer, column, rows);
+        } else {
+          isMVDictionaryEncoded = true;
+        }
+      }
+      // Dictionary id and document id pairs to be added into the inverted index
+      MutableInvertedIndex invertedIndex = indexContainer._invertedIndex;
+      int[] invertedDictIds = null;
+      int[] invertedDocIds = null;
+      int numInvertedEntries = 0;
+      if (invertedIndex != null) {
+        invertedDictIds = new int[numRows];
+        invertedDocIds = new int[numRows];
+      }
+      for (int i = 0; i < numRows; i++) {
+        GenericRow row = rows.get(i);
+        int docId = numDocsIndexed + i;
+        if (dictIds != null) {
+          indexContainer._dictId = dictIds[i];
+        } else if (isMVDictionaryEncoded) {
+          updateDictionary(indexContainer, row.getValue(column));
+        }
+        addNewValue(docId, column, indexContainer, row, false);
+        if (invertedDictIds != null && row.getValue(column) != null) {
+          if (dictIds != null) {
+            if (dictIds[i] >= 0) {
+              invertedDictIds[numInvertedEntries] = dictIds[i];
+              invertedDocIds[numInvertedEntries++] = docId;
+            }
+          } else {
+            for (int dictId : indexContainer._dictIds) {
+              if (numInvertedEntries == invertedDictIds.length) {
+                invertedDictIds = Arrays.copyOf(invertedDictIds, numInvertedEntries * 2);
+                invertedDocIds = Arrays.copyOf(invertedDocIds, numInvertedEntries * 2);
+              }
+              invertedDictIds[numInvertedEntries] = dictId;
+              invertedDocIds[numInvertedEntries++] = docId;
+            }
+          }
+        }
+      }
+      if (numInvertedEntries > 0) {
+        try {
+          invertedIndex.add(invertedDictIds, invertedDocIds, numInvertedEntries);
+        } catch (Exception e) {
+          recordIndexingError(FieldConfig.IndexType.INVERTED, e);
+        }
+      }
+    }
+    // Update number of documents indexed at last to make the latest rows queryable
+    _numDocsIndexed = numDocsIndexed + numRows;
+
+    // Update last indexed time and latest ingestion time
+    _lastIndexedTimeMs = System.currentTimeMillis();
+    if (rowMetadata != null) {
+      _latestIngestionTimeMs = Math.max(_latestIngestionTimeMs, rowMetadata.getRecordIngestionTimeMs());
+    }
+
+    return numRows;
+  }
+
+  /**
+   * Indexes a record stored in an {@link IndexedRow} into the segment. The columns of the segment are resolved against
+   * the layout of the row once per layout instead of being looked up by name for each record.
+   *
+   * <p>Upsert, dedup and metrics aggregation are only supported on {@link GenericRow}, so the record is converted and
+   * indexed with {@link #index(GenericRow, RowMetadata)} when any of them is enabled.
+   */
+  @Override
+  public boolean index(IndexedRow row, @Nullable RowMetadata rowMetadata)
+      throws IOException {
+    if (isDedupEnabled() || isUpsertEnabled() || isAggregateMetricsEnabled()) {
+      return index(row.toGenericRow(new GenericRow()), rowMetadata);
+    }
+    IndexedRow.Layout layout = row.getLayout();
+    if (layout != _indexedRowLayout) {
+      resolveIndexedRowLayout(layout);
+    }
+
+    int numDocsIndexed = _numDocsIndexed;
+    int numColumns = _indexedRowColumns.length;
+    for (int i = 0; i < numColumns; i++) {
+      addNewValue(numDocsIndexed, _indexedRowColumns[i], _indexedRowIndexContainers[i], row,
+          _indexedRowColumnIndexes[i]);
+    }
+    // Update number of documents indexed at last to make the latest row queryable
+    boolean canTakeMore = numDocsIndexed++ < _capacity;
+    _numDocsIndexed = numDocsIndexed;
+
+    // Update last indexed time and latest ingestion time
+    _lastIndexedTimeMs = System.currentTimeMillis();
+    if (rowMetadata != null) {
+      _latestIngestionTimeMs = Math.max(_latestIngestionTimeMs, rowMetadata.getRecordIngestionTimeMs());
+    }
+
+    return canTakeMore;
+  }
+
+  private void resolveIndexedRowLayout(IndexedRow.Layout layout) {
+    int numColumns = _indexContainerMap.size();
+    String[] columns = new String[numColumns];
+    IndexContainer[] indexContainers = new IndexContainer[numColumns];
+    int[] columnIndexes = new int[numColumns];
+    int i = 0;
+    for (Map.Entry<String, IndexContainer> entry : _indexContainerMap.entrySet()) {
+      columns[i] = entry.getKey();
+      indexContainers[i] = entry.getValue();
+      columnIndexes[i] = layout.indexOf(entry.getKey());
+      i++;
+    }
+    _indexedRowColumns = columns;
+    _indexedRowIndexContainers = indexContainers;
+    _indexedRowColumnIndexes = columnIndexes;
+    _indexedRowLayout = layout;
+  }
+
   private boolean isUpsertEnabled() {
     return _upsertMode != UpsertConfig.Mode.NONE;
   }
@@ -577,267 +732,409 @@ public class MutableSegmentImpl implements MutableSegment {
   private void updateDictionary(GenericRow row) {
     for (Map.Entry<String, IndexContainer> entry : _indexContainerMap.entrySet()) {
       IndexContainer indexContainer = entry.getValue();
-      MutableDictionary dictionary = indexContainer._dictionary;
-      if (dictionary == null) {
-        continue;
+      if (indexContainer._dictionary != null) {
+        updateDictionary(indexContainer, row.getValue(entry.getKey()));
       }
+    }
+  }
 
-      Object value = row.getValue(entry.getKey());
-      if (value == null) {
-        recordIndexingError("DICTIONARY");
+  private void updateDictionary(IndexContainer indexContainer, @Nullable Object value) {
+    MutableDictionary dictionary = indexContainer._dictionary;
+    if (value == null) {
+      recordIndexingError("DICTIONARY");
+    } else {
+      if (indexContainer._fieldSpec.isSingleValueField()) {
+        indexContainer._dictId = dictionary.index(value);
       } else {
-        if (indexContainer._fieldSpec.isSingleValueField()) {
-          indexContainer._dictId = dictionary.index(value);
-        } else {
-          indexContainer._dictIds = dictionary.index((Object[]) value);
-        }
+        indexContainer._dictIds = dictionary.index((Object[]) value);
+      }
 
-        // Update min/max value from dictionary
-        indexContainer._minValue = dictionary.getMinVal();
-        indexContainer._maxValue = dictionary.getMaxVal();
+      // Update min/max value from dictionary
+      indexContainer._minValue = dictionary.getMinVal();
+      indexContainer._maxValue = dictionary.getMaxVal();
+    }
+  }
+
+  /**
+   * Bulk inserts the values of a single-value dictionary-encoded column into the dictionary, and returns the dictionary
+   * ids, or -1 for the {@code null} values.
+   */
+  private int[] updateDictionary(IndexContainer indexContainer, String column, List<GenericRow> rows) {
+    MutableDictionary dictionary = indexContainer._dictionary;
+    int numRows = rows.size();
+    Object[] values = new Object[numRows];
+    int numNonNullValues = 0;
+    for (int i = 0; i < numRows; i++) {
+      Object value = rows.get(i).getValue(column);
+      values[i] = value;
+      if (value != null) {
+        numNonNullValues++;
+      } else {
+        recordIndexingError("DICTIONARY");
       }
     }
+    int[] dictIds;
+    if (numNonNullValues == numRows) {
+      dictIds = dictionary.index(values);
+    } else {
+      Object[] nonNullValues = new Object[numNonNullValues];
+      int index = 0;
+      for (Object value : values) {
+        if (value != null) {
+          nonNullValues[index++] = value;
+        }
+      }
+      int[] nonNullDictIds = dictionary.index(nonNullValues);
+      dictIds = new int[numRows];
+      index = 0;
+      for (int i = 0; i < numRows; i++) {
+        dictIds[i] = values[i] != null ? nonNullDictIds[index++] : -1;
+      }
+    }
+    if (numNonNullValues > 0) {
+      // Update min/max value from dictionary
+      indexContainer._minValue = dictionary.getMinVal();
+      indexContainer._maxValue = dictionary.getMaxVal();
+    }
+    return dictIds;
   }
 
   private void addNewRow(int docId, GenericRow row) {
     for (Map.Entry<String, IndexContainer> entry : _indexContainerMap.entrySet()) {
-      String column = entry.getKey();
-      IndexContainer indexContainer = entry.getValue();
+      addNewValue(docId, entry.getKey(), entry.getValue(), row, true);
+    }
+  }
+
+  /**
+   * Adds the value of the given column into the indexes. For dictionary-encoded columns, the dictionary must already be
+   * updated with the value, and the dictionary id(s) stored in the index container. The inverted index is left to the
+   * caller when {@code updateInvertedIndex} is {@code false}.
+   */
+  private void addNewValue(int docId, String column, IndexContainer indexContainer, GenericRow row,
+      boolean updateInvertedIndex) {
+    // aggregate metrics is enabled.
+    if (indexContainer._valueAggregator != null) {
+      Object value = row.getValue(indexContainer._sourceColumn);
 
-      // aggregate metrics is enabled.
-      if (indexContainer._valueAggregator != null) {
-        Object value = row.getValue(indexContainer._sourceColumn);
+      // Update numValues info
+      indexContainer._numValuesInfo.updateSVEntry();
 
-        // Update numValues info
+      MutableForwardIndex forwardIndex = indexContainer._forwardIndex;
+      FieldSpec fieldSpec = indexContainer._fieldSpec;
+
+      DataType dataType = fieldSpec.getDataType();
+      value = indexContainer._valueAggregator.getInitialAggregatedValue(value);
+      switch (dataType.getStoredType()) {
+        case INT:
+          forwardIndex.setInt(docId, ((Number) value).intValue());
+          break;
+        case LONG:
+          forwardIndex.setLong(docId, ((Number) value).longValue());
+          break;
+        case FLOAT:
+          forwardIndex.setFloat(docId, ((Number) value).floatValue());
+          break;
+        case DOUBLE:
+          forwardIndex.setDouble(docId, ((Number) value).doubleValue());
+          break;
+        default:
+          throw new UnsupportedOperationException(
+              "Unsupported data type: " + dataType + " for aggregation: " + column);
+      }
+      return;
+    }
+
+    addNewValue(docId, column, indexContainer, row.getValue(column), row.isNullValue(column), updateInvertedIndex);
+  }
+
+  /**
+   * Adds the value of the given column read from an {@link IndexedRow} into the indexes. The values of the single-value
+   * raw numeric columns are read from the primitive slots of the row and written into the forward index without being
+   * boxed, the other values go through the same path as the values of a {@link GenericRow}.
+   */
+  private void addNewValue(int docId, String column, IndexContainer indexContainer, IndexedRow row, int columnIndex) {
+    if (columnIndex < 0 || !row.hasValue(columnIndex)) {
+      // Same as a null value in a GenericRow
+      if (indexContainer._dictionary != null) {
+        recordIndexingError("DICTIONARY");
+      }
+      return;
+    }
+    boolean isNullValue = row.isNullValue(columnIndex);
+    FieldSpec fieldSpec = indexContainer._fieldSpec;
+    if (indexContainer._dictionary == null && fieldSpec.isSingleValueField() && !column.equals(_partitionColumn)) {
+      MutableForwardIndex forwardIndex = indexContainer._forwardIndex;
+      boolean added = true;
+      switch (fieldSpec.getDataType().getStoredType()) {
+        case INT: {
+          int value = row.getInt(columnIndex);
+          forwardIndex.setInt(docId, value);
+          if (indexContainer._minValue == null || value < (Integer) indexContainer._minValue) {
+            indexContainer._minValue = value;
+          }
+          if (indexContainer._maxValue == null || value > (Integer) indexContainer._maxValue) {
+            indexContainer._maxValue = value;
+          }
+          break;
+        }
+        case LONG: {
+          long value = row.getLong(columnIndex);
+          forwardIndex.setLong(docId, value);
+          if (indexContainer._minValue == null || value < (Long) indexContainer._minValue) {
+            indexContainer._minValue = value;
+          }
+          if (indexContainer._maxValue == null || value > (Long) indexContainer._maxValue) {
+            indexContainer._maxValue = value;
+          }
+          break;
+        }
+        case FLOAT: {
+          float value = row.getFloat(columnIndex);
+          forwardIndex.setFloat(docId, value);
+          if (indexContainer._minValue == null || Float.compare(value, (Float) indexContainer._minValue) < 0) {
+            indexContainer._minValue = value;
+          }
+          if (indexContainer._maxValue == null || Float.compare(value, (Float) indexContainer._maxValue) > 0) {
+            indexContainer._maxValue = value;
+          }
+          break;
+        }
+        case DOUBLE: {
+          double value = row.getDouble(columnIndex);
+          forwardIndex.setDouble(docId, value);
+          if (indexContainer._minValue == null || Double.compare(value, (Double) indexContainer._minValue) < 0) {
+            indexContainer._minValue = value;
+          }
+          if (indexContainer._maxValue == null || Double.compare(value, (Double) indexContainer._maxValue) > 0) {
+            indexContainer._maxValue = value;
+          }
+          break;
+        }
+        default:
+          added = false;
+          break;
+      }
+      if (added) {
+        if (_nullHandlingEnabled && isNullValue) {
+          indexContainer._nullValueVector.setNull(docId);
+        }
         indexContainer._numValuesInfo.updateSVEntry();
+        return;
+      }
+    }
+    Object value = row.getValue(columnIndex);
+    if (indexContainer._dictionary != null) {
+      updateDictionary(indexContainer, value);
+    }
+    addNewValue(docId, column, indexContainer, value, isNullValue, true);
+  }
+
+  /**
+   * Adds the given value of the column into the indexes. For dictionary-encoded columns, the dictionary must already be
+   * updated with the value, and the dictionary id(s) stored in the index container.
+   */
+  private void addNewValue(int docId, String column, IndexContainer indexContainer, @Nullable Object value,
+      boolean isNullValue, boolean updateInvertedIndex) {
+    // Update the null value vector even if a null value is somehow produced
+    if (_nullHandlingEnabled && isNullValue) {
+      indexContainer._nullValueVector.setNull(docId);
+    }
 
-        MutableForwardIndex forwardIndex = indexContainer._forwardIndex;
-        FieldSpec fieldSpec = indexContainer._fieldSpec;
+    if (value == null) {
+      // the value should not be null unless something is broken upstream but this will lead to inappropriate reuse
+      // of the dictionary id if this somehow happens. An NPE here can corrupt indexes leading to incorrect query
+      // results, hence the extra care. A metric will already have been emitted when trying to update the dictionary.
+      return;
+    }
+    FieldSpec fieldSpec = indexContainer._fieldSpec;
+    if (fieldSpec.isSingleValueField()) {
+      // Single-value column
 
+      // Check partitions
+      if (column.equals(_partitionColumn)) {
+        int partition = _partitionFunction.getPartition(value);
+        if (indexContainer._partitions.add(partition)) {
+          _logger.warn("Found new partition: {} from partition column: {}, value: {}", partition, column, value);
+          if (_serverMetrics != null) {
+            _serverMetrics.addMeteredTableValue(_realtimeTableName, ServerMeter.REALTIME_PARTITION_MISMATCH, 1);
+          }
+        }
+      }
+
+      // Update numValues info
+      indexContainer._numValuesInfo.updateSVEntry();
+
+      // Update indexes
+      MutableForwardIndex forwardIndex = indexContainer._forwardIndex;
+      int dictId = indexContainer._dictId;
+      if (dictId >= 0) {
+        // Dictionary-encoded single-value column
+
+        // Update forward index
+        forwardIndex.setDictId(docId, dictId);
+
+        // Update inverted index
+        MutableInvertedIndex invertedIndex = indexContainer._invertedIndex;
+        if (invertedIndex != null && updateInvertedIndex) {
+          try {
+            invertedIndex.add(dictId, docId);
+          } catch (Exception e) {
+            recordIndexingError(FieldConfig.IndexType.INVERTED, e);
+          }
+        }
+      } else {
+        // Single-value column with raw index
+
+        // Update forward index
         DataType dataType = fieldSpec.getDataType();
-        value = indexContainer._valueAggregator.getInitialAggregatedValue(value);
         switch (dataType.getStoredType()) {
           case INT:
-            forwardIndex.setInt(docId, ((Number) value).intValue());
+            forwardIndex.setInt(docId, (Integer) value);
             break;
           case LONG:
-            forwardIndex.setLong(docId, ((Number) value).longValue());
+            forwardIndex.setLong(docId, (Long) value);
             break;
           case FLOAT:
-            forwardIndex.setFloat(docId, ((Number) value).floatValue());
+            forwardIndex.setFloat(docId, (Float) value);
             break;
           case DOUBLE:
-            forwardIndex.setDouble(docId, ((Number) value).doubleValue());
+            forwardIndex.setDouble(docId, (Double) value);
+            break;
+          case BIG_DECIMAL:
+            forwardIndex.setBigDecimal(docId, (BigDecimal) value);
+            break;
+          case STRING:
+            forwardIndex.setString(docId, (String) value);
+            break;
+          case BYTES:
+            forwardIndex.setBytes(docId, (byte[]) value);
             break;
           default:
             throw new UnsupportedOperationException(
-                "Unsupported data type: " + dataType + " for aggregation: " + column);
+                "Unsupported data type: " + dataType + " for no-dictionary column: " + column);
+        }
+
+        // Update min/max value from raw value
+        // NOTE: Skip updating min/max value for aggregated metrics because the value will change over time.
+        if (!isAggregateMetricsEnabled() || fieldSpec.getFieldType() != FieldSpec.FieldType.METRIC) {
+          Comparable comparable;
+          if (dataType == BYTES) {
+            comparable = new ByteArray((byte[]) value);
+          } else {
+            comparable = (Comparable) value;
+          }
+          if (indexContainer._minValue == null) {
+            indexContainer._minValue = comparable;
+            indexContainer._maxValue = comparable;
+          } else {
+            if (comparable.compareTo(indexContainer._minValue) < 0) {
+              indexContainer._minValue = comparable;
+            }
+            if (comparable.compareTo(indexContainer._maxValue) > 0) {
+              indexContainer._maxValue = comparable;
+            }
+          }
         }
-        continue;
       }
 
-      // Update the null value vector even if a null value is somehow produced
-      if (_nullHandlingEnabled && row.isNullValue(column)) {
-        indexContainer._nullValueVector.setNull(docId);
+      // Update text index
+      MutableTextIndex textIndex = indexContainer._textIndex;
+      if (textIndex != null) {
+        try {
+          textIndex.add((String) value);
+        } catch (Exception e) {
+          recordIndexingError(FieldConfig.IndexType.TEXT, e);
+        }
       }
 
-      Object value = row.getValue(column);
-      if (value == null) {
-        // the value should not be null unless something is broken upstream but this will lead to inappropriate reuse
-        // of the dictionary id if this somehow happens. An NPE here can corrupt indexes leading to incorrect query
-        // results, hence the extra care. A metric will already have been emitted when trying to update the dictionary.
-        continue;
+      // Update json index
+      MutableJsonIndex jsonIndex = indexContainer._jsonIndex;
+      if (jsonIndex != null) {
+        try {
+          jsonIndex.add((String) value);
+        } catch (Exception e) {
+          recordIndexingError(FieldConfig.IndexType.JSON, e);
+        }
       }
-      FieldSpec fieldSpec = indexContainer._fieldSpec;
-      if (fieldSpec.isSingleValueField()) {
-        // Single-value column
-
-        // Check partitions
-        if (column.equals(_partitionColumn)) {
-          int partition = _partitionFunction.getPartition(value);
-          if (indexContainer._partitions.add(partition)) {
-            _logger.warn("Found new partition: {} from partition column: {}, value: {}", partition, column, value);
-            if (_serverMetrics != null) {
-              _serverMetrics.addMeteredTableValue(_realtimeTableName, ServerMeter.REALTIME_PARTITION_MISMATCH, 1);
-            }
-          }
+
+      // Update H3 index
+      MutableH3Index h3Index = indexContainer._h3Index;
+      if (h3Index != null) {
+        try {
+          h3Index.add(GeometrySerializer.deserialize((byte[]) value));
+        } catch (Exception e) {
+          recordIndexingError(FieldConfig.IndexType.H3, e);
         }
+      }
+    } else {
+      // Multi-value column
 
-        // Update numValues info
-        indexContainer._numValuesInfo.updateSVEntry();
+      int[] dictIds = indexContainer._dictIds;
 
-        // Update indexes
-        MutableForwardIndex forwardIndex = indexContainer._forwardIndex;
-        int dictId = indexContainer._dictId;
-        if (dictId >= 0) {
-          // Dictionary-encoded single-value column
+      if (dictIds != null) {
+        // Dictionary encoded
+        // Update numValues info
+        indexContainer._numValuesInfo.updateMVEntry(dictIds.length);
 
-          // Update forward index
-          forwardIndex.setDictId(docId, dictId);
+        // Update forward index
+        indexContainer._forwardIndex.setDictIdMV(docId, dictIds);
 
-          // Update inverted index
-          MutableInvertedIndex invertedIndex = indexContainer._invertedIndex;
-          if (invertedIndex != null) {
+        // Update inverted index
+        MutableInvertedIndex invertedIndex = indexContainer._invertedIndex;
+        if (invertedIndex != null && updateInvertedIndex) {
+          for (int dictId : dictIds) {
             try {
               invertedIndex.add(dictId, docId);
             } catch (Exception e) {
               recordIndexingError(FieldConfig.IndexType.INVERTED, e);
             }
           }
-        } else {
-          // Single-value column with raw index
-
-          // Update forward index
-          DataType dataType = fieldSpec.getDataType();
-          switch (dataType.getStoredType()) {
-            case INT:
-              forwardIndex.setInt(docId, (Integer) value);
-              break;
-            case LONG:
-              forwardIndex.setLong(docId, (Long) value);
-              break;
-            case FLOAT:
-              forwardIndex.setFloat(docId, (Float) value);
-              break;
-            case DOUBLE:
-              forwardIndex.setDouble(docId, (Double) value);
-              break;
-            case BIG_DECIMAL:
-              forwardIndex.setBigDecimal(docId, (BigDecimal) value);
-              break;
-            case STRING:
-              forwardIndex.setString(docId, (String) value);
-              break;
-            case BYTES:
-              forwardIndex.setBytes(docId, (byte[]) value);
-              break;
-            default:
-              throw new UnsupportedOperationException(
-                  "Unsupported data type: " + dataType + " for no-dictionary column: " + column);
-          }
-
-          // Update min/max value from raw value
-          // NOTE: Skip updating min/max value for aggregated metrics because the value will change over time.
-          if (!isAggregateMetricsEnabled() || fieldSpec.getFieldType() != FieldSpec.FieldType.METRIC) {
-            Comparable comparable;
-            if (dataType == BYTES) {
-              comparable = new ByteArray((byte[]) value);
-            } else {
-              comparable = (Comparable) value;
-            }
-            if (indexContainer._minValue == null) {
-              indexContainer._minValue = comparable;
-              indexContainer._maxValue = comparable;
-            } else {
-              if (comparable.compareTo(indexContainer._minValue) < 0) {
-                indexContainer._minValue = comparable;
-              }
-              if (comparable.compareTo(indexContainer._maxValue) > 0) {
-                indexContainer._maxValue = comparable;
-              }
-            }
-          }
-        }
-
-        // Update text index
-        MutableTextIndex textIndex = indexContainer._textIndex;
-        if (textIndex != null) {
-          try {
-            textIndex.add((String) value);
-          } catch (Exception e) {
-            recordIndexingError(FieldConfig.IndexType.TEXT, e);
-          }
-        }
-
-        // Update json index
-        MutableJsonIndex jsonIndex = indexContainer._jsonIndex;
-        if (jsonIndex != null) {
-          try {
-            jsonIndex.add((String) value);
-          } catch (Exception e) {
-            recordIndexingError(FieldConfig.IndexType.JSON, e);
-          }
-        }
-
-        // Update H3 index
-        MutableH3Index h3Index = indexContainer._h3Index;
-        if (h3Index != null) {
-          try {
-            h3Index.add(GeometrySerializer.deserialize((byte[]) value));
-          } catch (Exception e) {
-            recordIndexingError(FieldConfig.IndexType.H3, e);
-          }
         }
       } else {
-        // Multi-value column
+        // Raw MV columns
 
-        int[] dictIds = indexContainer._dictIds;
-
-        if (dictIds != null) {
-          // Dictionary encoded
-          // Update numValues info
-          indexContainer._numValuesInfo.updateMVEntry(dictIds.length);
-
-          // Update forward index
-          indexContainer._forwardIndex.setDictIdMV(docId, dictIds);
-
-          // Update inverted index
-          MutableInvertedIndex invertedIndex = indexContainer._invertedIndex;
-          if (invertedIndex != null) {
-            for (int dictId : dictIds) {
-              try {
-                invertedIndex.add(dictId, docId);
-              } catch (Exception e) {
-                recordIndexingError(FieldConfig.IndexType.INVERTED, e);
-              }
+        // Update forward index and numValues info
+        DataType dataType = fieldSpec.getDataType();
+        switch (dataType.getStoredType()) {
+          case INT:
+            Object[] values = (Object[]) value;
+            int[] intValues = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+              intValues[i] = (Integer) values[i];
             }
-          }
-        } else {
-          // Raw MV columns
-
-          // Update forward index and numValues info
-          DataType dataType = fieldSpec.getDataType();
-          switch (dataType.getStoredType()) {
-            case INT:
-              Object[] values = (Object[]) value;
-              int[] intValues = new int[values.length];
-              for (int i = 0; i < values.length; i++) {
-                intValues[i] = (Integer) values[i];
-              }
-              indexContainer._forwardIndex.setIntMV(docId, intValues);
-              indexContainer._numValuesInfo.updateMVEntry(intValues.length);
-              break;
-            case LONG:
-              values = (Object[]) value;
-              long[] longValues = new long[values.length];
-              for (int i = 0; i < values.length; i++) {
-                longValues[i] = (Long) values[i];
-              }
-              indexContainer._forwardIndex.setLongMV(docId, longValues);
-              indexContainer._numValuesInfo.updateMVEntry(longValues.length);
-              break;
-            case FLOAT:
-              values = (Object[]) value;
-              float[] floatValues = new float[values.length];
-              for (int i = 0; i < values.length; i++) {
-                floatValues[i] = (Float) values[i];
-              }
-              indexContainer._forwardIndex.setFloatMV(docId, floatValues);
-              indexContainer._numValuesInfo.updateMVEntry(floatValues.length);
-              break;
-            case DOUBLE:
-              values = (Object[]) value;
-              double[] doubleValues = new double[values.length];
-              for (int i = 0; i < values.length; i++) {
-                doubleValues[i] = (Double) values[i];
-              }
-              indexContainer._forwardIndex.setDoubleMV(docId, doubleValues);
-              indexContainer._numValuesInfo.updateMVEntry(doubleValues.length);
-              break;
-            default:
-              throw new UnsupportedOperationException(
-                  "Unsupported data type: " + dataType + " for MV no-dictionary column: " + column);
-          }
+            indexContainer._forwardIndex.setIntMV(docId, intValues);
+            indexContainer._numValuesInfo.updateMVEntry(intValues.length);
+            break;
+          case LONG:
+            values = (Object[]) value;
+            long[] longValues = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+              longValues[i] = (Long) values[i];
+            }
+            indexContainer._forwardIndex.setLongMV(docId, longValues);
+            indexContainer._numValuesInfo.updateMVEntry(longValues.length);
+            break;
+          case FLOAT:
+            values = (Object[]) value;
+            float[] floatValues = new float[values.length];
+            for (int i = 0; i < values.length; i++) {
+              floatValues[i] = (Float) values[i];
+            }
+            indexContainer._forwardIndex.setFloatMV(docId, floatValues);
+            indexContainer._numValuesInfo.updateMVEntry(floatValues.length);
+            break;
+          case DOUBLE:
+            values = (Object[]) value;
+            double[] doubleValues = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+              doubleValues[i] = (Double) values[i];
+            }
+            indexContainer._forwardIndex.setDoubleMV(docId, doubleValues);
+            indexContainer._numValuesInfo.updateMVEntry(doubleValues.length);
+            break;
+          default:
+            throw new UnsupportedOperationException(
+                "Unsupported data type: " + dataType + " for MV no-dictionary column: " + column);
         }
       }
     }
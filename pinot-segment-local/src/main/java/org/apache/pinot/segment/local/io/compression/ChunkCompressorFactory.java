@@ -42,6 +42,21 @@ public class ChunkCompressorFactory {
     return getCompressor(compressionType, false);
   }
 
+  /**
+   * Returns the chunk compressor for the specified name, for chunks of fixed-width values of the given size. Unlike
+   * the other compressors, the integer encodings can only be applied to fixed-width values.
+   *
+   * @param compressionType Type of compressor.
+   * @param valueSize Size of each value (in bytes).
+   * @return Compressor for the specified type.
+   */
+  public static ChunkCompressor getCompressor(ChunkCompressionType compressionType, int valueSize) {
+    if (compressionType.isIntegerEncoding()) {
+      return new IntegerChunkCompressor(compressionType, valueSize);
+    }
+    return getCompressor(compressionType);
+  }
+
   /**
    * Returns the chunk compressor for the specified name.
    *
@@ -69,6 +84,12 @@ public class ChunkCompressorFactory {
       case LZ4_LENGTH_PREFIXED:
         return LZ4WithLengthCompressor.INSTANCE;
 
+      case DELTA:
+      case DELTA_OF_DELTA:
+      case FRAME_OF_REFERENCE:
+        throw new IllegalArgumentException(
+            "Integer encoding: " + compressionType + " is only supported for fixed-width values");
+
       default:
         throw new IllegalArgumentException("Illegal compressor name " + compressionType);
     }
@@ -97,6 +118,15 @@ public class ChunkCompressorFactory {
       case LZ4_LENGTH_PREFIXED:
         return LZ4WithLengthDecompressor.INSTANCE;
 
+      case DELTA:
+        return IntegerChunkDecompressor.DELTA;
+
+      case DELTA_OF_DELTA:
+        return IntegerChunkDecompressor.DELTA_OF_DELTA;
+
+      case FRAME_OF_REFERENCE:
+        return IntegerChunkDecompressor.FRAME_OF_REFERENCE;
+
       default:
         throw new IllegalArgumentException("Illegal compressor name " + compressionType);
     }
@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.io.compression;
+
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+
+
+/**
+ * Format of the chunks encoded with the lightweight integer encodings ({@link ChunkCompressionType#DELTA},
+ * {@link ChunkCompressionType#DELTA_OF_DELTA} and {@link ChunkCompressionType#FRAME_OF_REFERENCE}).
+ * <p>The values of the chunk (4 or 8 bytes each, where FLOAT/DOUBLE are encoded as their raw bits) are first mapped to
+ * a sequence of residuals:
+ * <ul>
+ *   <li>FRAME_OF_REFERENCE: the values themselves</li>
+ *   <li>DELTA: the differences between consecutive values, the first value is stored in the header</li>
+ *   <li>DELTA_OF_DELTA: the differences between consecutive deltas, the first value and the first delta are stored in
+ *   the header</li>
+ * </ul>
+ * The minimum residual is stored in the header as the reference, and the residuals minus the reference are bit-packed
+ * with the smallest bit width supported by {@code PinotDataBitSetV2} (1, 2, 4, 8, 16 or 32), or stored as raw longs
+ * when they need more than 32 bits. All the arithmetic wraps around on overflow, so any long value can be encoded.
+ * <p>Chunk layout:
+ * <ul>
+ *   <li>Number of values (int)</li>
+ *   <li>Size of each value (byte)</li>
+ *   <li>Number of bits per residual (byte), 0 if all the residuals are the same</li>
+ *   <li>Padding (2 bytes)</li>
+ *   <li>First value (long)</li>
+ *   <li>First delta (long)</li>
+ *   <li>Reference (long)</li>
+ *   <li>Bit-packed residuals</li>
+ * </ul>
+ */
+public final class IntegerChunkCodec {
+  private IntegerChunkCodec() {
+  }
+
+  public static final int NUM_VALUES_OFFSET = 0;
+  public static final int VALUE_SIZE_OFFSET = 4;
+  public static final int NUM_BITS_PER_VALUE_OFFSET = 5;
+  public static final int FIRST_VALUE_OFFSET = 8;
+  public static final int FIRST_DELTA_OFFSET = 16;
+  public static final int REFERENCE_OFFSET = 24;
+  public static final int HEADER_SIZE = 32;
+
+  /**
+   * Returns the number of leading values of the chunk that are stored in the header instead of as residuals.
+   */
+  public static int getNumHeaderValues(ChunkCompressionType compressionType) {
+    switch (compressionType) {
+      case FRAME_OF_REFERENCE:
+        return 0;
+      case DELTA:
+        return 1;
+      case DELTA_OF_DELTA:
+        return 2;
+      default:
+        throw new IllegalArgumentException("Unsupported integer encoding: " + compressionType);
+    }
+  }
+
+  /**
+   * Returns the number of residuals for the given number of values in the chunk.
+   */
+  public static int getNumResiduals(ChunkCompressionType compressionType, int numValues) {
+    return Math.max(numValues - getNumHeaderValues(compressionType), 0);
+  }
+
+  /**
+   * Returns the number of bits to pack the residuals with the given (unsigned) range.
+   */
+  public static int getNumBitsPerValue(long range) {
+    int numBits = Long.SIZE - Long.numberOfLeadingZeros(range);
+    if (numBits <= 2) {
+      return numBits;
+    }
+    if (numBits <= 4) {
+      return 4;
+    }
+    if (numBits <= 8) {
+      return 8;
+    }
+    if (numBits <= 16) {
+      return 16;
+    }
+    return numBits <= 32 ? 32 : 64;
+  }
+
+  /**
+   * Returns the size in bytes of the bit-packed residuals.
+   */
+  public static int getPackedSize(int numResiduals, int numBitsPerValue) {
+    return (int) (((long) numResiduals * numBitsPerValue + Byte.SIZE - 1) / Byte.SIZE);
+  }
+
+  /**
+   * Reconstructs the values from the residuals (excluding the reference) stored at the end of the values array, i.e.
+   * starting at index {@link #getNumHeaderValues(ChunkCompressionType)}.
+   */
+  public static void decode(ChunkCompressionType compressionType, long[] values, int numValues, long firstValue,
+      long firstDelta, long reference) {
+    switch (compressionType) {
+      case FRAME_OF_REFERENCE:
+        decodeFrameOfReference(values, numValues, reference);
+        break;
+      case DELTA:
+        decodeDelta(values, numValues, firstValue, reference);
+        break;
+      case DELTA_OF_DELTA:
+        decodeDeltaOfDelta(values, numValues, firstValue, firstDelta, reference);
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported integer encoding: " + compressionType);
+    }
+  }
+
+  public static void decodeFrameOfReference(long[] values, int numValues, long reference) {
+    for (int i = 0; i < numValues; i++) {
+      values[i] += reference;
+    }
+  }
+
+  public static void decodeDelta(long[] values, int numValues, long firstValue, long reference) {
+    if (numValues == 0) {
+      return;
+    }
+    long value = firstValue;
+    values[0] = value;
+    for (int i = 1; i < numValues; i++) {
+      value += values[i] + reference;
+      values[i] = value;
+    }
+  }
+
+  public static void decodeDeltaOfDelta(long[] values, int numValues, long firstValue, long firstDelta,
+      long reference) {
+    if (numValues == 0) {
+      return;
+    }
+    long value = firstValue;
+    values[0] = value;
+    if (numValues == 1) {
+      return;
+    }
+    long delta = firstDelta;
+    value += delta;
+    values[1] = value;
+    for (int i = 2; i < numValues; i++) {
+      delta += values[i] + reference;
+      value += delta;
+      values[i] = value;
+    }
+  }
+}
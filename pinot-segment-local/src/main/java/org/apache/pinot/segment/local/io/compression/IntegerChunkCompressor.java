@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.io.compression;
+
+import com.google.common.base.Preconditions;
+import java.nio.ByteBuffer;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.compression.ChunkCompressor;
+
+
+/**
+ * Implementation of {@link ChunkCompressor} for the lightweight integer encodings. See {@link IntegerChunkCodec} for
+ * the encoded chunk layout.
+ * <p>The value size is required to interpret the chunk, so unlike the other compressors, a new instance is created for
+ * each writer.
+ */
+@NotThreadSafe
+class IntegerChunkCompressor implements ChunkCompressor {
+  private final ChunkCompressionType _compressionType;
+  private final int _valueSize;
+  private long[] _values = new long[0];
+
+  IntegerChunkCompressor(ChunkCompressionType compressionType, int valueSize) {
+    Preconditions.checkArgument(compressionType.isIntegerEncoding(), "Unsupported integer encoding: %s",
+        compressionType);
+    Preconditions.checkArgument(valueSize == Integer.BYTES || valueSize == Long.BYTES,
+        "Integer encoding: %s is only supported for 4/8 bytes values, got: %s", compressionType, valueSize);
+    _compressionType = compressionType;
+    _valueSize = valueSize;
+  }
+
+  @Override
+  public int compress(ByteBuffer inUncompressed, ByteBuffer outCompressed) {
+    int numValues = inUncompressed.remaining() / _valueSize;
+    if (_values.length < numValues) {
+      _values = new long[numValues];
+    }
+    long[] values = _values;
+    for (int i = 0; i < numValues; i++) {
+      values[i] = _valueSize == Integer.BYTES ? inUncompressed.getInt() : inUncompressed.getLong();
+    }
+
+    // Replace the values with the residuals in place, iterating backwards so that the values are still available
+    long firstValue = numValues > 0 ? values[0] : 0;
+    long firstDelta = numValues > 1 ? values[1] - values[0] : 0;
+    int numHeaderValues = IntegerChunkCodec.getNumHeaderValues(_compressionType);
+    switch (_compressionType) {
+      case DELTA:
+        for (int i = numValues - 1; i > 0; i--) {
+          values[i] -= values[i - 1];
+        }
+        break;
+      case DELTA_OF_DELTA:
+        for (int i = numValues - 1; i > 0; i--) {
+          values[i] -= values[i - 1];
+        }
+        for (int i = numValues - 1; i > 1; i--) {
+          values[i] -= values[i - 1];
+        }
+        break;
+      default:
+        break;
+    }
+
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = numHeaderValues; i < numValues; i++) {
+      long residual = values[i];
+      min = Math.min(min, residual);
+      max = Math.max(max, residual);
+    }
+    long reference = numValues > numHeaderValues ? min : 0;
+    int numBitsPerValue = numValues > numHeaderValues ? IntegerChunkCodec.getNumBitsPerValue(max - min) : 0;
+
+    outCompressed.putInt(numValues);
+    outCompressed.put((byte) _valueSize);
+    outCompressed.put((byte) numBitsPerValue);
+    outCompressed.putShort((short) 0);
+    outCompressed.putLong(firstValue);
+    outCompressed.putLong(firstDelta);
+    outCompressed.putLong(reference);
+    pack(values, numHeaderValues, numValues, reference, numBitsPerValue, outCompressed);
+
+    // Make the output ready for read.
+    outCompressed.flip();
+    return outCompressed.limit();
+  }
+
+  /**
+   * Bit-packs the residuals with the same bit order as {@code PinotDataBitSetV2}, i.e. the first value takes the most
+   * significant bits of the first byte.
+   */
+  private static void pack(long[] values, int startIndex, int endIndex, long reference, int numBitsPerValue,
+      ByteBuffer out) {
+    switch (numBitsPerValue) {
+      case 0:
+        break;
+      case 8:
+        for (int i = startIndex; i < endIndex; i++) {
+          out.put((byte) (values[i] - reference));
+        }
+        break;
+      case 16:
+        for (int i = startIndex; i < endIndex; i++) {
+          out.putShort((short) (values[i] - reference));
+        }
+        break;
+      case 32:
+        for (int i = startIndex; i < endIndex; i++) {
+          out.putInt((int) (values[i] - reference));
+        }
+        break;
+      case 64:
+        for (int i = startIndex; i < endIndex; i++) {
+          out.putLong(values[i] - reference);
+        }
+        break;
+      default:
+        // 1, 2 or 4 bits, where values never span across bytes
+        int packed = 0;
+        int numBitsInPacked = 0;
+        for (int i = startIndex; i < endIndex; i++) {
+          packed = (packed << numBitsPerValue) | (int) (values[i] - reference);
+          numBitsInPacked += numBitsPerValue;
+          if (numBitsInPacked == Byte.SIZE) {
+            out.put((byte) packed);
+            packed = 0;
+            numBitsInPacked = 0;
+          }
+        }
+        if (numBitsInPacked > 0) {
+          out.put((byte) (packed << (Byte.SIZE - numBitsInPacked)));
+        }
+        break;
+    }
+  }
+
+  @Override
+  public int maxCompressedSize(int uncompressedSize) {
+    return IntegerChunkCodec.HEADER_SIZE + (uncompressedSize / _valueSize) * Long.BYTES;
+  }
+
+  @Override
+  public ChunkCompressionType compressionType() {
+    return _compressionType;
+  }
+}
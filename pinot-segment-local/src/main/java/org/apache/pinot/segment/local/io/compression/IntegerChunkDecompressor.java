@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.io.compression;
+
+import java.nio.ByteBuffer;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.compression.ChunkDecompressor;
+
+
+/**
+ * Implementation of {@link ChunkDecompressor} for the lightweight integer encodings, which decodes the chunk back to
+ * the fixed-width values. See {@link IntegerChunkCodec} for the encoded chunk layout.
+ * <p>NOTE: The dedicated integer encoded forward index readers decode the chunks directly into the values without
+ * going through this decompressor.
+ */
+class IntegerChunkDecompressor implements ChunkDecompressor {
+
+  static final IntegerChunkDecompressor DELTA = new IntegerChunkDecompressor(ChunkCompressionType.DELTA);
+  static final IntegerChunkDecompressor DELTA_OF_DELTA =
+      new IntegerChunkDecompressor(ChunkCompressionType.DELTA_OF_DELTA);
+  static final IntegerChunkDecompressor FRAME_OF_REFERENCE =
+      new IntegerChunkDecompressor(ChunkCompressionType.FRAME_OF_REFERENCE);
+
+  private final ChunkCompressionType _compressionType;
+
+  private IntegerChunkDecompressor(ChunkCompressionType compressionType) {
+    _compressionType = compressionType;
+  }
+
+  @Override
+  public int decompress(ByteBuffer compressedInput, ByteBuffer decompressedOutput) {
+    int headerStart = compressedInput.position();
+    int numValues = compressedInput.getInt(headerStart + IntegerChunkCodec.NUM_VALUES_OFFSET);
+    int valueSize = compressedInput.get(headerStart + IntegerChunkCodec.VALUE_SIZE_OFFSET);
+    int numBitsPerValue = compressedInput.get(headerStart + IntegerChunkCodec.NUM_BITS_PER_VALUE_OFFSET);
+    long firstValue = compressedInput.getLong(headerStart + IntegerChunkCodec.FIRST_VALUE_OFFSET);
+    long firstDelta = compressedInput.getLong(headerStart + IntegerChunkCodec.FIRST_DELTA_OFFSET);
+    long reference = compressedInput.getLong(headerStart + IntegerChunkCodec.REFERENCE_OFFSET);
+    int residualsStart = headerStart + IntegerChunkCodec.HEADER_SIZE;
+    int numHeaderValues = IntegerChunkCodec.getNumHeaderValues(_compressionType);
+
+    long value = 0;
+    long delta = firstDelta;
+    for (int i = 0; i < numValues; i++) {
+      if (i < numHeaderValues) {
+        value = i == 0 ? firstValue : firstValue + firstDelta;
+      } else {
+        long residual = readResidual(compressedInput, residualsStart, i - numHeaderValues, numBitsPerValue) + reference;
+        switch (_compressionType) {
+          case FRAME_OF_REFERENCE:
+            value = residual;
+            break;
+          case DELTA:
+            value += residual;
+            break;
+          default:
+            delta += residual;
+            value += delta;
+            break;
+        }
+      }
+      if (valueSize == Integer.BYTES) {
+        decompressedOutput.putInt((int) value);
+      } else {
+        decompressedOutput.putLong(value);
+      }
+    }
+
+    // Make the output ready for read.
+    decompressedOutput.flip();
+    return decompressedOutput.limit();
+  }
+
+  private static long readResidual(ByteBuffer buffer, int start, int index, int numBitsPerValue) {
+    switch (numBitsPerValue) {
+      case 0:
+        return 0;
+      case 8:
+        return buffer.get(start + index) & 0xFFL;
+      case 16:
+        return buffer.getShort(start + index * Short.BYTES) & 0xFFFFL;
+      case 32:
+        return buffer.getInt(start + index * Integer.BYTES) & 0xFFFFFFFFL;
+      case 64:
+        return buffer.getLong(start + index * Long.BYTES);
+      default:
+        // 1, 2 or 4 bits, where values never span across bytes
+        int bitOffset = index * numBitsPerValue;
+        int shift = Byte.SIZE - numBitsPerValue - (bitOffset & 7);
+        return (buffer.get(start + (bitOffset >>> 3)) >>> shift) & ((1 << numBitsPerValue) - 1);
+    }
+  }
+
+  @Override
+  public int decompressedLength(ByteBuffer compressedInput) {
+    int headerStart = compressedInput.position();
+    return compressedInput.getInt(headerStart + IntegerChunkCodec.NUM_VALUES_OFFSET) * compressedInput.get(
+        headerStart + IntegerChunkCodec.VALUE_SIZE_OFFSET);
+  }
+}
@@ -44,6 +44,13 @@ public abstract class BaseChunkSVForwardIndexWriter implements Closeable {
   private static final int FILE_HEADER_ENTRY_CHUNK_OFFSET_SIZE_V1V2 = Integer.BYTES;
   private static final int FILE_HEADER_ENTRY_CHUNK_OFFSET_SIZE_V3 = Long.BYTES;
 
+  // Size of the header before the data header (chunk offsets) for version 2 onwards
+  public static final int FIXED_HEADER_SIZE = 7 * Integer.BYTES;
+  // The optional per-chunk zone map is stored between the fixed header and the data header, which is skipped by the
+  // readers that do not read it because the start offset of the data header is stored in the fixed header
+  public static final int CHUNK_ZONE_MAP_VERSION = 1;
+  public static final int CHUNK_ZONE_MAP_ENTRY_SIZE = 2 * Long.BYTES;
+
   protected final FileChannel _dataFile;
   protected ByteBuffer _header;
   protected final ByteBuffer _chunkBuffer;
@@ -54,6 +61,8 @@ public abstract class BaseChunkSVForwardIndexWriter implements Closeable {
   protected long _dataOffset;
 
   private final int _headerEntryChunkOffsetSize;
+  private int _chunkZoneMapOffset = -1;
+  private int _numChunksWritten;
 
   /**
    * Constructor for the class.
@@ -71,13 +80,35 @@ public abstract class BaseChunkSVForwardIndexWriter implements Closeable {
   protected BaseChunkSVForwardIndexWriter(File file, ChunkCompressionType compressionType, int totalDocs,
       int numDocsPerChunk, long chunkSize, int sizeOfEntry, int version, boolean fixed)
       throws IOException {
+    this(file, compressionType, totalDocs, numDocsPerChunk, chunkSize, sizeOfEntry, version, fixed, false);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param file Data file to write into
+   * @param compressionType Type of compression
+   * @param totalDocs Total docs to write
+   * @param numDocsPerChunk Number of docs per data chunk
+   * @param chunkSize Size of chunk
+   * @param sizeOfEntry Size of entry (in bytes), max size for variable byte implementation.
+   * @param version version of File
+   * @param fixed if the data type is fixed width (required for version validation)
+   * @param chunkZoneMap whether to reserve the per-chunk zone map in the header (version 2 onwards)
+   * @throws IOException if the file isn't found or can't be mapped
+   */
+  protected BaseChunkSVForwardIndexWriter(File file, ChunkCompressionType compressionType, int totalDocs,
+      int numDocsPerChunk, long chunkSize, int sizeOfEntry, int version, boolean fixed, boolean chunkZoneMap)
+      throws IOException {
     Preconditions.checkArgument(version == DEFAULT_VERSION || version == CURRENT_VERSION
         || (fixed && version == 4));
     Preconditions.checkArgument(chunkSize <= Integer.MAX_VALUE, "chunk size limited to 2GB");
     _chunkSize = (int) chunkSize;
-    _chunkCompressor = ChunkCompressorFactory.getCompressor(compressionType);
+    _chunkCompressor = fixed ? ChunkCompressorFactory.getCompressor(compressionType, sizeOfEntry)
+        : ChunkCompressorFactory.getCompressor(compressionType);
     _headerEntryChunkOffsetSize = getHeaderEntryChunkOffsetSize(version);
-    _dataOffset = writeHeader(compressionType, totalDocs, numDocsPerChunk, sizeOfEntry, version);
+    _dataOffset = writeHeader(compressionType, totalDocs, numDocsPerChunk, sizeOfEntry, version,
+        chunkZoneMap && version > 1);
     _chunkBuffer = ByteBuffer.allocateDirect(_chunkSize);
     int maxCompressedChunkSize = _chunkCompressor.maxCompressedSize(_chunkSize); // may exceed original chunk size
     _compressedBuffer = ByteBuffer.allocateDirect(maxCompressedChunkSize);
@@ -120,12 +151,14 @@ public abstract class BaseChunkSVForwardIndexWriter implements Closeable {
    * @param numDocsPerChunk Number of documents per chunk
    * @param sizeOfEntry Size of each entry
    * @param version Version of file
+   * @param chunkZoneMap Whether to reserve the per-chunk zone map
    * @return Size of header
    */
   private int writeHeader(ChunkCompressionType compressionType, int totalDocs, int numDocsPerChunk, int sizeOfEntry,
-      int version) {
+      int version, boolean chunkZoneMap) {
     int numChunks = (totalDocs + numDocsPerChunk - 1) / numDocsPerChunk;
-    int headerSize = (7 * Integer.BYTES) + (numChunks * _headerEntryChunkOffsetSize);
+    int chunkZoneMapSize = chunkZoneMap ? Integer.BYTES + numChunks * CHUNK_ZONE_MAP_ENTRY_SIZE : 0;
+    int headerSize = FIXED_HEADER_SIZE + chunkZoneMapSize + (numChunks * _headerEntryChunkOffsetSize);
 
     _header = ByteBuffer.allocateDirect(headerSize);
 
@@ -152,8 +185,15 @@ public abstract class BaseChunkSVForwardIndexWriter implements Closeable {
       offset += Integer.BYTES;
 
       // Start of chunk offsets.
-      int dataHeaderStart = offset + Integer.BYTES;
+      int dataHeaderStart = offset + Integer.BYTES + chunkZoneMapSize;
       _header.putInt(dataHeaderStart);
+
+      if (chunkZoneMap) {
+        // Chunk zone map entries are filled when the chunks are written
+        _header.putInt(CHUNK_ZONE_MAP_VERSION);
+        _chunkZoneMapOffset = _header.position();
+        _header.position(dataHeaderStart);
+      }
     }
 
     return headerSize;
@@ -190,7 +230,25 @@ public abstract class BaseChunkSVForwardIndexWriter implements Closeable {
     }
 
     _dataOffset += sizeToWrite;
+    _numChunksWritten++;
 
     _chunkBuffer.clear();
   }
+
+  /**
+   * Returns {@code true} if the per-chunk zone map is reserved in the header, in which case the zone map entry of each
+   * chunk must be set via {@link #setChunkZoneMapEntry(long, long)} before the chunk is written.
+   */
+  protected boolean hasChunkZoneMap() {
+    return _chunkZoneMapOffset >= 0;
+  }
+
+  /**
+   * Sets the zone map entry (min/max value stored as long) for the chunk to be written next.
+   */
+  protected void setChunkZoneMapEntry(long min, long max) {
+    int entryOffset = _chunkZoneMapOffset + _numChunksWritten * CHUNK_ZONE_MAP_ENTRY_SIZE;
+    _header.putLong(entryOffset, min);
+    _header.putLong(entryOffset + Long.BYTES, max);
+  }
 }
@@ -41,13 +41,17 @@ import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
  *   <li> Integer: Total number of docs (version 2 onwards). </li>
  *   <li> Integer: Compression type enum value (version 2 onwards). </li>
  *   <li> Integer: Start offset of data header (version 2 onwards). </li>
+ *   <li> Chunk zone map (version 2 onwards): Integer zone map version, followed by the min and max value of each chunk
+ *   stored as Long (long value for INT/LONG, raw long bits of the double value for FLOAT/DOUBLE). NaN values are
+ *   ignored. </li>
  *   <li> Integer array: Integer offsets for all chunks in the data (upto version 2),
  *   Long array: Long offsets for all chunks in the data (version 3 onwards) </li>
  * </ul>
  *
  * <p> Individual Chunks: </p>
  * <ul>
- *   <li> Data bytes. </li>
+ *   <li> Data bytes. For the lightweight integer encodings (DELTA, DELTA_OF_DELTA, FRAME_OF_REFERENCE), refer to
+ *   {@link org.apache.pinot.segment.local.io.compression.IntegerChunkCodec} for the chunk layout. </li>
  * </ul>
  *
  * Only sequential writes are supported.
@@ -56,6 +60,13 @@ import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 public class FixedByteChunkSVForwardIndexWriter extends BaseChunkSVForwardIndexWriter {
   private int _chunkDataOffset;
 
+  // Min/max value of the current chunk
+  private boolean _floatingPoint;
+  private long _minLong = Long.MAX_VALUE;
+  private long _maxLong = Long.MIN_VALUE;
+  private double _minDouble = Double.POSITIVE_INFINITY;
+  private double _maxDouble = Double.NEGATIVE_INFINITY;
+
   /**
    * Constructor for the class.
    *
@@ -73,36 +84,71 @@ public class FixedByteChunkSVForwardIndexWriter extends BaseChunkSVForwardIndexW
       throws IOException {
     super(file, compressionType, totalDocs, normalizeDocsPerChunk(writerVersion, numDocsPerChunk),
         (sizeOfEntry * normalizeDocsPerChunk(writerVersion, numDocsPerChunk)), sizeOfEntry,
-        writerVersion, true);
+        writerVersion, true, true);
     _chunkDataOffset = 0;
   }
 
   public void putInt(int value) {
+    updateMinMax(value);
     _chunkBuffer.putInt(value);
     _chunkDataOffset += Integer.BYTES;
     flushChunkIfNeeded();
   }
 
   public void putLong(long value) {
+    updateMinMax(value);
     _chunkBuffer.putLong(value);
     _chunkDataOffset += Long.BYTES;
     flushChunkIfNeeded();
   }
 
   public void putFloat(float value) {
+    updateMinMax(value);
     _chunkBuffer.putFloat(value);
     _chunkDataOffset += Float.BYTES;
     flushChunkIfNeeded();
   }
 
   public void putDouble(double value) {
+    updateMinMax(value);
     _chunkBuffer.putDouble(value);
     _chunkDataOffset += Double.BYTES;
     flushChunkIfNeeded();
   }
 
+  private void updateMinMax(long value) {
+    if (value < _minLong) {
+      _minLong = value;
+    }
+    if (value > _maxLong) {
+      _maxLong = value;
+    }
+  }
+
+  private void updateMinMax(double value) {
+    _floatingPoint = true;
+    // NaN never matches any range, so it is not counted
+    if (value < _minDouble) {
+      _minDouble = value;
+    }
+    if (value > _maxDouble) {
+      _maxDouble = value;
+    }
+  }
+
   @Override
   protected void writeChunk() {
+    if (hasChunkZoneMap()) {
+      if (_floatingPoint) {
+        setChunkZoneMapEntry(Double.doubleToRawLongBits(_minDouble), Double.doubleToRawLongBits(_maxDouble));
+      } else {
+        setChunkZoneMapEntry(_minLong, _maxLong);
+      }
+    }
+    _minLong = Long.MAX_VALUE;
+    _maxLong = Long.MIN_VALUE;
+    _minDouble = Double.POSITIVE_INFINITY;
+    _maxDouble = Double.NEGATIVE_INFINITY;
     super.writeChunk();
     _chunkDataOffset = 0;
   }
@@ -20,6 +20,8 @@ package org.apache.pinot.segment.local.loader;
 
 import java.io.File;
 import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
 import org.apache.pinot.segment.local.segment.store.SegmentLocalFSDirectory;
@@ -56,7 +58,10 @@ public class DefaultSegmentDirectoryLoader implements SegmentDirectoryLoader {
       return new SegmentLocalFSDirectory(directory);
     }
     return new SegmentLocalFSDirectory(directory,
-        ReadMode.valueOf(segmentDirectoryConfigs.getProperty(IndexLoadingConfig.READ_MODE_KEY)));
+        ReadMode.valueOf(segmentDirectoryConfigs.getProperty(IndexLoadingConfig.READ_MODE_KEY)),
+        new HashSet<>(segmentDirectoryConfigs.getProperty(IndexLoadingConfig.PREFETCH_COLUMNS_KEY,
+            Collections.emptyList())),
+        segmentDirectoryConfigs.getProperty(IndexLoadingConfig.ASYNC_PREFETCH_KEY, false));
   }
 
   @Override
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.loader;
+
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
+import org.apache.pinot.segment.local.segment.store.LocalIndexCache;
+import org.apache.pinot.segment.local.segment.store.RemoteSegmentDirectory;
+import org.apache.pinot.segment.spi.loader.SegmentDirectoryLoader;
+import org.apache.pinot.segment.spi.loader.SegmentDirectoryLoaderContext;
+import org.apache.pinot.segment.spi.loader.SegmentLoader;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.filesystem.PinotFSFactory;
+import org.apache.pinot.spi.utils.CommonConstants;
+import org.apache.pinot.spi.utils.DataSizeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Implementation of {@link SegmentDirectoryLoader} that loads segments lazily from the deep store. The segment is
+ * read from its download URL in the deep store, which must point to the untarred segment, through
+ * {@link PinotFSFactory}. The segment metadata and the index buffers downloaded on demand are kept under the segment
+ * cache dir, separately from the table data dir: the metadata under {@value #METADATA_DIR_NAME} and the indexes in a
+ * {@link LocalIndexCache} under {@value #INDEX_CACHE_DIR_NAME}, shared by all the segments using the same cache dir.
+ *
+ * <p>Segments without a download URL (e.g. realtime segments built locally) are loaded from the local index dir with
+ * the {@link DefaultSegmentDirectoryLoader}.
+ */
+@SegmentLoader(name = "remote")
+public class RemoteSegmentDirectoryLoader implements SegmentDirectoryLoader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RemoteSegmentDirectoryLoader.class);
+  public static final String METADATA_DIR_NAME = "metadata";
+  public static final String INDEX_CACHE_DIR_NAME = "indexes";
+
+  private final DefaultSegmentDirectoryLoader _defaultLoader = new DefaultSegmentDirectoryLoader();
+  // Cache dir to cache
+  private final Map<File, LocalIndexCache> _caches = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the {@link RemoteSegmentDirectory} for the segment in the deep store.
+   * @param indexDir local index dir of the segment, only used when the segment has no download URL
+   * @param segmentLoaderContext context for instantiation of the SegmentDirectory
+   * @return instance of {@link RemoteSegmentDirectory}
+   */
+  @Override
+  public SegmentDirectory load(URI indexDir, SegmentDirectoryLoaderContext segmentLoaderContext)
+      throws Exception {
+    String segmentName = segmentLoaderContext.getSegmentName();
+    String downloadUrl = segmentLoaderContext.getSegmentDownloadUrl();
+    if (StringUtils.isEmpty(downloadUrl)) {
+      LOGGER.info("Loading segment: {} without download URL from local index dir: {}", segmentName, indexDir);
+      return _defaultLoader.load(indexDir, segmentLoaderContext);
+    }
+    PinotConfiguration segmentDirectoryConfigs = segmentLoaderContext.getSegmentDirectoryConfigs();
+    String cacheDirPath = segmentDirectoryConfigs.getProperty(IndexLoadingConfig.SEGMENT_CACHE_DIR_KEY);
+    Preconditions.checkState(cacheDirPath != null, "Segment cache dir must be configured with: %s to load segment: %s",
+        CommonConstants.Server.CONFIG_OF_SEGMENT_CACHE_DIR, segmentName);
+    File cacheDir = new File(cacheDirPath).getAbsoluteFile();
+    Path tableDataDir = new File(segmentLoaderContext.getTableDataDir()).getAbsoluteFile().toPath();
+    Preconditions.checkState(!cacheDir.toPath().startsWith(tableDataDir) && !tableDataDir.startsWith(cacheDir.toPath()),
+        "Segment cache dir: %s must not overlap with the table data dir: %s", cacheDir, tableDataDir);
+    long cacheSizeBytes = segmentDirectoryConfigs.getProperty(IndexLoadingConfig.SEGMENT_CACHE_SIZE_BYTES_KEY,
+        DataSizeUtils.toBytes(CommonConstants.Server.DEFAULT_SEGMENT_CACHE_SIZE));
+    LocalIndexCache cache = _caches.computeIfAbsent(cacheDir, dir -> {
+      LOGGER.info("Creating segment cache in dir: {} with size: {} bytes", dir, cacheSizeBytes);
+      return new LocalIndexCache(new File(dir, INDEX_CACHE_DIR_NAME), cacheSizeBytes);
+    });
+    cache.setMaxSizeBytes(cacheSizeBytes);
+    URI segmentUri = URI.create(downloadUrl);
+    String scheme = segmentUri.getScheme() != null ? segmentUri.getScheme() : PinotFSFactory.LOCAL_PINOT_FS_SCHEME;
+    String cacheKeyPrefix = getCacheKeyPrefix(segmentLoaderContext);
+    return new RemoteSegmentDirectory(segmentUri, PinotFSFactory.create(scheme),
+        new File(new File(cacheDir, METADATA_DIR_NAME), cacheKeyPrefix), cache, cacheKeyPrefix);
+  }
+
+  /**
+   * Removes the local metadata and the evictable cached indexes of the segment from all the caches of this loader, as
+   * the segment directory configs are not always available when the segment is deleted.
+   */
+  @Override
+  public void delete(SegmentDirectoryLoaderContext segmentLoaderContext)
+      throws Exception {
+    _defaultLoader.delete(segmentLoaderContext);
+    String cacheKeyPrefix = getCacheKeyPrefix(segmentLoaderContext);
+    for (Map.Entry<File, LocalIndexCache> entry : _caches.entrySet()) {
+      File localDir = new File(new File(entry.getKey(), METADATA_DIR_NAME), cacheKeyPrefix);
+      if (localDir.exists()) {
+        FileUtils.deleteQuietly(localDir);
+        LOGGER.info("Deleted local metadata dir {} of remote segment", localDir);
+      }
+      entry.getValue().invalidate(cacheKeyPrefix + File.separator);
+    }
+  }
+
+  /**
+   * Segment names are only unique within a table, so the cache keys are prefixed with the table data dir name (i.e.
+   * the table name with type) as well.
+   */
+  private static String getCacheKeyPrefix(SegmentDirectoryLoaderContext segmentLoaderContext) {
+    return new File(segmentLoaderContext.getTableDataDir()).getName() + File.separator
+        + segmentLoaderContext.getSegmentName();
+  }
+}
@@ -47,6 +47,7 @@ public class RealtimeSegmentConverter {
   private final String _segmentName;
   private final ColumnIndicesForRealtimeTable _columnIndicesForRealtimeTable;
   private final boolean _nullHandlingEnabled;
+  private final boolean _enableColumnMajor;
 
   public RealtimeSegmentConverter(MutableSegmentImpl realtimeSegment, SegmentZKPropsConfig segmentZKPropsConfig,
       String outputPath, Schema schema, String tableName, TableConfig tableConfig, String segmentName,
@@ -63,6 +64,7 @@ public class RealtimeSegmentConverter {
     _tableConfig = tableConfig;
     _segmentName = segmentName;
     _nullHandlingEnabled = nullHandlingEnabled;
+    _enableColumnMajor = tableConfig.getIndexingConfig().isColumnMajorSegmentBuilderEnabled();
   }
 
   public void build(@Nullable SegmentVersion segmentVersion, ServerMetrics serverMetrics)
@@ -107,7 +109,12 @@ public class RealtimeSegmentConverter {
       RealtimeSegmentSegmentCreationDataSource dataSource =
           new RealtimeSegmentSegmentCreationDataSource(_realtimeSegmentImpl, recordReader);
       driver.init(genConfig, dataSource, TransformPipeline.getPassThroughPipeline());
-      driver.build();
+      if (_enableColumnMajor) {
+        // Build the immutable segment directly from the mutable indexes, reusing the mutable dictionaries
+        driver.buildByColumn(_realtimeSegmentImpl);
+      } else {
+        driver.build();
+      }
     }
 
     if (segmentPartitionConfig != null) {
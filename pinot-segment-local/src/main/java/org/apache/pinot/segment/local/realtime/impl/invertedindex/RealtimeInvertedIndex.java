@@ -19,6 +19,7 @@
 package org.apache.pinot.segment.local.realtime.impl.invertedindex;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.pinot.segment.spi.index.mutable.MutableInvertedIndex;
@@ -61,6 +62,58 @@ public class RealtimeInvertedIndex implements MutableInvertedIndex {
     }
   }
 
+  /**
+   * Adds the document ids to the bitmaps of the given dictionary ids. The pairs are grouped by dictionary id so that
+   * each bitmap is locked and updated once, and the new bitmaps are added into the list under a single lock.
+   */
+  @Override
+  public void add(int[] dictIds, int[] docIds, int length) {
+    // Sort the pairs by dictionary id then document id
+    long[] pairs = new long[length];
+    for (int i = 0; i < length; i++) {
+      pairs[i] = ((long) dictIds[i] << 32) | docIds[i];
+    }
+    Arrays.sort(pairs);
+    int[] sortedDocIds = new int[length];
+    for (int i = 0; i < length; i++) {
+      sortedDocIds[i] = (int) pairs[i];
+    }
+
+    int numBitmaps = _bitmaps.size();
+    List<ThreadSafeMutableRoaringBitmap> newBitmaps = null;
+    int start = 0;
+    while (start < length) {
+      int dictId = (int) (pairs[start] >>> 32);
+      int end = start + 1;
+      while (end < length && (int) (pairs[end] >>> 32) == dictId) {
+        end++;
+      }
+      if (dictId < numBitmaps) {
+        _bitmaps.get(dictId).add(sortedDocIds, start, end - start);
+      } else {
+        if (newBitmaps == null) {
+          newBitmaps = new ArrayList<>();
+        }
+        // Dictionary ids are assigned in order, so a gap can only come from a failure when adding an earlier value
+        while (numBitmaps + newBitmaps.size() < dictId) {
+          newBitmaps.add(new ThreadSafeMutableRoaringBitmap());
+        }
+        ThreadSafeMutableRoaringBitmap bitmap = new ThreadSafeMutableRoaringBitmap();
+        bitmap.add(sortedDocIds, start, end - start);
+        newBitmaps.add(bitmap);
+      }
+      start = end;
+    }
+    if (newBitmaps != null) {
+      try {
+        _writeLock.lock();
+        _bitmaps.addAll(newBitmaps);
+      } finally {
+        _writeLock.unlock();
+      }
+    }
+  }
+
   @Override
   public MutableRoaringBitmap getDocIds(int dictId) {
     ThreadSafeMutableRoaringBitmap bitmap;
@@ -26,6 +26,7 @@ import javax.annotation.Nullable;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 
 
 /**
@@ -94,4 +95,24 @@ public class CompositeTransformer implements RecordTransformer {
     }
     return record;
   }
+
+  @Override
+  public boolean supportsIndexedRow() {
+    for (RecordTransformer transformer : _transformers) {
+      if (!transformer.supportsIndexedRow()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean transform(IndexedRow record) {
+    for (RecordTransformer transformer : _transformers) {
+      if (!transformer.transform(record)) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
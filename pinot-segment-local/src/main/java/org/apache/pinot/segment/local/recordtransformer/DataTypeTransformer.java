@@ -32,6 +32,7 @@ import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -119,6 +120,21 @@ public class DataTypeTransformer implements RecordTransformer {
     return record;
   }
 
+  /**
+   * Values written into an {@link IndexedRow} are already converted to the data types in {@link FieldSpec}, so there is
+   * nothing to transform. Because the conversion errors are raised when writing the values, records cannot be kept
+   * with the invalid values set to {@code null} when continue on error is enabled.
+   */
+  @Override
+  public boolean supportsIndexedRow() {
+    return !_continueOnError;
+  }
+
+  @Override
+  public boolean transform(IndexedRow record) {
+    return true;
+  }
+
   /**
    * Standardize the value into supported types.
    * <ul>
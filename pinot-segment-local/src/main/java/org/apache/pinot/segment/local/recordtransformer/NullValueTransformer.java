@@ -19,6 +19,7 @@
 package org.apache.pinot.segment.local.recordtransformer;
 
 import com.google.common.base.Preconditions;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
@@ -28,6 +29,7 @@ import org.apache.pinot.spi.data.DateTimeFormatSpec;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.apache.pinot.spi.utils.TimeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +40,11 @@ public class NullValueTransformer implements RecordTransformer {
 
   private final Map<String, Object> _defaultNullValues = new HashMap<>();
 
+  // Default null values resolved against the layout of the last transformed IndexedRow
+  private transient IndexedRow.Layout _layout;
+  private transient int[] _columnIndexes;
+  private transient Object[] _columnDefaultNullValues;
+
   public NullValueTransformer(TableConfig tableConfig, Schema schema) {
     String timeColumnName = tableConfig.getValidationConfig().getTimeColumnName();
 
@@ -92,4 +99,42 @@ public class NullValueTransformer implements RecordTransformer {
     }
     return record;
   }
+
+  @Override
+  public boolean supportsIndexedRow() {
+    return true;
+  }
+
+  @Override
+  public boolean transform(IndexedRow record) {
+    IndexedRow.Layout layout = record.getLayout();
+    if (layout != _layout) {
+      resolveLayout(layout);
+    }
+    int numColumns = _columnIndexes.length;
+    for (int i = 0; i < numColumns; i++) {
+      int columnIndex = _columnIndexes[i];
+      if (!record.hasValue(columnIndex)) {
+        record.putDefaultNullValue(columnIndex, _columnDefaultNullValues[i]);
+      }
+    }
+    return true;
+  }
+
+  private void resolveLayout(IndexedRow.Layout layout) {
+    int[] columnIndexes = new int[_defaultNullValues.size()];
+    Object[] columnDefaultNullValues = new Object[columnIndexes.length];
+    int numColumns = 0;
+    for (Map.Entry<String, Object> entry : _defaultNullValues.entrySet()) {
+      int columnIndex = layout.indexOf(entry.getKey());
+      if (columnIndex >= 0) {
+        columnIndexes[numColumns] = columnIndex;
+        columnDefaultNullValues[numColumns] = entry.getValue();
+        numColumns++;
+      }
+    }
+    _columnIndexes = Arrays.copyOf(columnIndexes, numColumns);
+    _columnDefaultNullValues = Arrays.copyOf(columnDefaultNullValues, numColumns);
+    _layout = layout;
+  }
 }
@@ -21,6 +21,7 @@ package org.apache.pinot.segment.local.recordtransformer;
 import java.io.Serializable;
 import javax.annotation.Nullable;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 
 
 /**
@@ -43,4 +44,23 @@ public interface RecordTransformer extends Serializable {
    */
   @Nullable
   GenericRow transform(GenericRow record);
+
+  /**
+   * Returns {@code true} if the transformer can transform records stored in an {@link IndexedRow}, {@code false}
+   * otherwise.
+   */
+  default boolean supportsIndexedRow() {
+    return false;
+  }
+
+  /**
+   * Transforms a record stored in an {@link IndexedRow} in place based on some custom rules. Only called when
+   * {@link #supportsIndexedRow()} returns {@code true}.
+   *
+   * @param record Record to transform
+   * @return Whether the record should be kept, {@code false} if the record does not follow certain rules.
+   */
+  default boolean transform(IndexedRow record) {
+    throw new UnsupportedOperationException("Transforming IndexedRow is not supported by: " + getClass().getName());
+  }
 }
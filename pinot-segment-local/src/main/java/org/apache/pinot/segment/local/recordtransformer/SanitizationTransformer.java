@@ -18,12 +18,14 @@
  */
 package org.apache.pinot.segment.local.recordtransformer;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.apache.pinot.spi.utils.StringUtil;
 
 
@@ -40,6 +42,11 @@ import org.apache.pinot.spi.utils.StringUtil;
 public class SanitizationTransformer implements RecordTransformer {
   private final Map<String, Integer> _stringColumnMaxLengthMap = new HashMap<>();
 
+  // String columns resolved against the layout of the last transformed IndexedRow
+  private transient IndexedRow.Layout _layout;
+  private transient int[] _columnIndexes;
+  private transient int[] _columnMaxLengths;
+
   public SanitizationTransformer(Schema schema) {
     for (FieldSpec fieldSpec : schema.getAllFieldSpecs()) {
       if (!fieldSpec.isVirtualColumn() && fieldSpec.getDataType() == DataType.STRING) {
@@ -79,4 +86,65 @@ public class SanitizationTransformer implements RecordTransformer {
     }
     return record;
   }
+
+  @Override
+  public boolean supportsIndexedRow() {
+    return true;
+  }
+
+  @Override
+  public boolean transform(IndexedRow record) {
+    IndexedRow.Layout layout = record.getLayout();
+    if (layout != _layout) {
+      resolveLayout(layout);
+    }
+    int numColumns = _columnIndexes.length;
+    for (int i = 0; i < numColumns; i++) {
+      int columnIndex = _columnIndexes[i];
+      Object value = record.getValue(columnIndex);
+      if (value == null) {
+        continue;
+      }
+      int maxLength = _columnMaxLengths[i];
+      if (value instanceof String) {
+        // Single-valued column
+        String stringValue = (String) value;
+        String sanitizedValue = StringUtil.sanitizeStringValue(stringValue, maxLength);
+        // NOTE: reference comparison
+        //noinspection StringEquality
+        if (sanitizedValue != stringValue) {
+          if (record.isNullValue(columnIndex)) {
+            record.putDefaultNullValue(columnIndex, sanitizedValue);
+          } else {
+            record.putValue(columnIndex, sanitizedValue);
+          }
+        }
+      } else {
+        // Multi-valued column
+        Object[] values = (Object[]) value;
+        int numValues = values.length;
+        for (int j = 0; j < numValues; j++) {
+          values[j] = StringUtil.sanitizeStringValue(values[j].toString(), maxLength);
+        }
+      }
+    }
+    return true;
+  }
+
+  private void resolveLayout(IndexedRow.Layout layout) {
+    int[] columnIndexes = new int[_stringColumnMaxLengthMap.size()];
+    int[] columnMaxLengths = new int[columnIndexes.length];
+    int numColumns = 0;
+    for (Map.Entry<String, Integer> entry : _stringColumnMaxLengthMap.entrySet()) {
+      int columnIndex = layout.indexOf(entry.getKey());
+      if (columnIndex >= 0) {
+        columnIndexes[numColumns] = columnIndex;
+        columnMaxLengths[numColumns] = entry.getValue();
+        numColumns++;
+      }
+    }
+    _columnIndexes = Arrays.copyOf(columnIndexes, numColumns);
+    _columnMaxLengths = Arrays.copyOf(columnMaxLengths, numColumns);
+    _layout = layout;
+  }
 }
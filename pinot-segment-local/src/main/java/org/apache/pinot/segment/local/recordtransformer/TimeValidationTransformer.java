@@ -26,6 +26,7 @@ import org.apache.pinot.spi.data.DateTimeFormatSpec;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.apache.pinot.spi.utils.TimeUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -45,6 +46,9 @@ public class TimeValidationTransformer implements RecordTransformer {
   private final DateTimeFormatSpec _timeFormatSpec;
   private final boolean _enableTimeValueCheck;
   private final boolean _continueOnError;
+  // Time column resolved against the layout of the last transformed IndexedRow
+  private transient IndexedRow.Layout _layout;
+  private transient int _timeColumnIndex;
 
   public TimeValidationTransformer(TableConfig tableConfig, Schema schema) {
     _timeColumnName = tableConfig.getValidationConfig().getTimeColumnName();
@@ -110,4 +114,52 @@ public class TimeValidationTransformer implements RecordTransformer {
     }
     return record;
   }
+
+  @Override
+  public boolean supportsIndexedRow() {
+    return true;
+  }
+
+  @Override
+  public boolean transform(IndexedRow record) {
+    if (!_enableTimeValueCheck) {
+      return true;
+    }
+    IndexedRow.Layout layout = record.getLayout();
+    if (layout != _layout) {
+      _timeColumnIndex = layout.indexOf(_timeColumnName);
+      _layout = layout;
+    }
+    if (_timeColumnIndex < 0 || !record.hasValue(_timeColumnIndex)) {
+      return true;
+    }
+    Object timeValue = record.getValue(_timeColumnIndex);
+    long timeValueMs;
+    try {
+      timeValueMs = _timeFormatSpec.fromFormatToMillis(timeValue.toString());
+    } catch (Exception e) {
+      String errorMessage =
+          String.format("Caught exception while parsing time value: %s with format: %s", timeValue, _timeFormatSpec);
+      if (_continueOnError) {
+        LOGGER.debug(errorMessage);
+        record.clearValue(_timeColumnIndex);
+        return true;
+      } else {
+        throw new IllegalStateException(errorMessage);
+      }
+    }
+    if (!TimeUtils.timeValueInValidRange(timeValueMs)) {
+      String errorMessage =
+          String.format("Time value: %s is not in valid range: %s", new DateTime(timeValueMs, DateTimeZone.UTC),
+              TimeUtils.VALID_TIME_INTERVAL);
+      if (_continueOnError) {
+        LOGGER.debug(errorMessage);
+        record.clearValue(_timeColumnIndex);
+        return true;
+      } else {
+        throw new IllegalStateException(errorMessage);
+      }
+    }
+    return true;
+  }
 }
@@ -29,6 +29,7 @@ import org.apache.pinot.segment.local.utils.IngestionUtils;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 
 
 /**
@@ -93,6 +94,26 @@ public class TransformPipeline {
     }
   }
 
+  /**
+   * Returns whether the decoded rows can be processed as {@link IndexedRow}s, i.e. there is no complex type
+   * transformation and all the record transformers support {@link IndexedRow}.
+   */
+  public boolean supportsIndexedRow() {
+    return _complexTypeTransformer == null && _recordTransformer.supportsIndexedRow();
+  }
+
+  /**
+   * Process and validate the decoded row stored in an {@link IndexedRow} in place. Should only be called when
+   * {@link #supportsIndexedRow()} returns {@code true}.
+   * @param decodedRow the row data to pass in
+   * @return Whether the row should be indexed, {@code false} if the row is skipped
+   * @throws Exception when data has issues like schema validation
+   */
+  public boolean processRow(IndexedRow decodedRow)
+      throws Exception {
+    return _recordTransformer.transform(decodedRow);
+  }
+
   private void processPlainRow(GenericRow plainRow, Result reusedResult) {
     GenericRow transformedRow = _recordTransformer.transform(plainRow);
     if (transformedRow != null && IngestionUtils.shouldIngestRow(transformedRow)) {
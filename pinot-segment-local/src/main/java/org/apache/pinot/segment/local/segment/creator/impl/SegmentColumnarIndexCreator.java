@@ -24,6 +24,7 @@ import com.google.common.collect.Iterables;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -31,14 +32,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.pinot.common.utils.FileUtils;
 import org.apache.pinot.segment.local.io.util.PinotDataBitSet;
 import org.apache.pinot.segment.local.segment.creator.impl.inv.BitSlicedRangeIndexCreator;
+import org.apache.pinot.segment.local.segment.creator.impl.inv.BitmapInvertedIndexWriter;
+import org.apache.pinot.segment.local.segment.creator.impl.inv.OffHeapBitmapInvertedIndexCreator;
+import org.apache.pinot.segment.local.segment.creator.impl.inv.OnHeapBitmapInvertedIndexCreator;
 import org.apache.pinot.segment.local.segment.creator.impl.nullvalue.NullValueVectorCreator;
+import org.apache.pinot.segment.local.segment.readers.PinotSegmentColumnReader;
 import org.apache.pinot.segment.local.segment.store.TextIndexUtils;
 import org.apache.pinot.segment.local.utils.GeometrySerializer;
+import org.apache.pinot.segment.spi.IndexSegment;
 import org.apache.pinot.segment.spi.V1Constants;
 import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.segment.spi.creator.ColumnIndexCreationInfo;
@@ -56,6 +63,9 @@ import org.apache.pinot.segment.spi.index.creator.H3IndexConfig;
 import org.apache.pinot.segment.spi.index.creator.JsonIndexCreator;
 import org.apache.pinot.segment.spi.index.creator.SegmentIndexCreationInfo;
 import org.apache.pinot.segment.spi.index.creator.TextIndexCreator;
+import org.apache.pinot.segment.spi.index.mutable.MutableInvertedIndex;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
+import org.apache.pinot.segment.spi.index.reader.InvertedIndexReader;
 import org.apache.pinot.segment.spi.partition.PartitionFunction;
 import org.apache.pinot.spi.config.table.BloomFilterConfig;
 import org.apache.pinot.spi.config.table.FSTType;
@@ -74,6 +84,10 @@ import org.apache.pinot.spi.utils.TimeUtils;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.joda.time.format.DateTimeFormatter;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.RoaringBitmapWriter;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -432,270 +446,434 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       if (columnValueToIndex == null) {
         throw new RuntimeException("Null value for column:" + columnName);
       }
+      indexValue(columnName, forwardIndexCreator, columnValueToIndex);
 
-      FieldSpec fieldSpec = _schema.getFieldSpecFor(columnName);
+      if (_nullHandlingEnabled) {
+        // If row has null value for given column name, add to null value vector
+        if (row.isNullValue(columnName)) {
+          _nullValueVectorCreatorMap.get(columnName).setNull(_docIdCounter);
+        }
+      }
+    }
+    _docIdCounter++;
+  }
 
-      //get dictionaryCreator, will be null if column is not dictionaryEncoded
+  @Override
+  public void indexColumn(String columnName, @Nullable int[] sortedDocIds, IndexSegment segment)
+      throws IOException {
+    ForwardIndexCreator forwardIndexCreator = _forwardIndexCreatorMap.get(columnName);
+    if (forwardIndexCreator == null) {
+      // No creator is initialized when the segment is empty
+      return;
+    }
+    try (PinotSegmentColumnReader columnReader = new PinotSegmentColumnReader(segment, columnName)) {
       SegmentDictionaryCreator dictionaryCreator = _dictionaryCreatorMap.get(columnName);
+      if (dictionaryCreator != null && columnReader.hasDictionary() && !_textIndexCreatorMap.containsKey(columnName)
+          && !_jsonIndexCreatorMap.containsKey(columnName) && !_h3IndexCreatorMap.containsKey(columnName)) {
+        indexDictionaryEncodedColumn(columnName, forwardIndexCreator, dictionaryCreator, columnReader,
+            segment.getDataSource(columnName).getInvertedIndex(), sortedDocIds);
+      } else {
+        for (int i = 0; i < _totalDocs; i++) {
+          int docId = sortedDocIds != null ? sortedDocIds[i] : i;
+          indexValue(columnName, forwardIndexCreator, columnReader.getValue(docId));
+        }
+      }
 
-      // bloom filter
-      BloomFilterCreator bloomFilterCreator = _bloomFilterCreatorMap.get(columnName);
-      if (bloomFilterCreator != null) {
-        if (fieldSpec.isSingleValueField()) {
-          bloomFilterCreator.add(columnValueToIndex.toString());
-        } else {
-          Object[] values = (Object[]) columnValueToIndex;
-          for (Object value : values) {
-            bloomFilterCreator.add(value.toString());
+      if (_nullHandlingEnabled) {
+        NullValueVectorCreator nullValueVectorCreator = _nullValueVectorCreatorMap.get(columnName);
+        for (int i = 0; i < _totalDocs; i++) {
+          int docId = sortedDocIds != null ? sortedDocIds[i] : i;
+          if (columnReader.isNull(docId)) {
+            nullValueVectorCreator.setNull(i);
           }
         }
       }
+    }
+  }
 
-      // range index
-      CombinedInvertedIndexCreator combinedInvertedIndexCreator = _rangeIndexFilterCreatorMap.get(columnName);
-      if (combinedInvertedIndexCreator != null) {
-        if (dictionaryCreator != null) {
-          if (fieldSpec.isSingleValueField()) {
-            combinedInvertedIndexCreator.add(dictionaryCreator.indexOfSV(columnValueToIndex));
-          } else {
-            int[] dictIds = dictionaryCreator.indexOfMV(columnValueToIndex);
-            combinedInvertedIndexCreator.add(dictIds, dictIds.length);
-          }
-        } else {
-          if (fieldSpec.isSingleValueField()) {
-            switch (fieldSpec.getDataType()) {
-              case INT:
-                combinedInvertedIndexCreator.add((Integer) columnValueToIndex);
-                break;
-              case LONG:
-                combinedInvertedIndexCreator.add((Long) columnValueToIndex);
-                break;
-              case FLOAT:
-                combinedInvertedIndexCreator.add((Float) columnValueToIndex);
-                break;
-              case DOUBLE:
-                combinedInvertedIndexCreator.add((Double) columnValueToIndex);
-                break;
-              default:
-                throw new RuntimeException("Unsupported data type " + fieldSpec.getDataType() + " for range index");
-            }
-          } else {
-            Object[] values = (Object[]) columnValueToIndex;
-            switch (fieldSpec.getDataType()) {
-              case INT:
-                int[] intValues = new int[values.length];
-                for (int i = 0; i < values.length; i++) {
-                  intValues[i] = (Integer) values[i];
-                }
-                combinedInvertedIndexCreator.add(intValues, values.length);
-                break;
-              case LONG:
-                long[] longValues = new long[values.length];
-                for (int i = 0; i < values.length; i++) {
-                  longValues[i] = (Long) values[i];
-                }
-                combinedInvertedIndexCreator.add(longValues, values.length);
-                break;
-              case FLOAT:
-                float[] floatValues = new float[values.length];
-                for (int i = 0; i < values.length; i++) {
-                  floatValues[i] = (Float) values[i];
-                }
-                combinedInvertedIndexCreator.add(floatValues, values.length);
-                break;
-              case DOUBLE:
-                double[] doubleValues = new double[values.length];
-                for (int i = 0; i < values.length; i++) {
-                  doubleValues[i] = (Double) values[i];
-                }
-                combinedInvertedIndexCreator.add(doubleValues, values.length);
-                break;
-              default:
-                throw new RuntimeException("Unsupported data type " + fieldSpec.getDataType() + " for range index");
-            }
-          }
+  /**
+   * Indexes a dictionary encoded column whose values are read from a dictionary encoded source. The dictionary ids of
+   * the source dictionary are mapped to the dictionary ids of the created dictionary upfront, so that each value is
+   * looked up once instead of once per doc. Both dictionaries contain the same values, so for values already in sorted
+   * order the mapped dictionary ids are also sorted.
+   */
+  private void indexDictionaryEncodedColumn(String columnName, ForwardIndexCreator forwardIndexCreator,
+      SegmentDictionaryCreator dictionaryCreator, PinotSegmentColumnReader columnReader,
+      @Nullable InvertedIndexReader<?> sourceInvertedIndex, @Nullable int[] sortedDocIds)
+      throws IOException {
+    Dictionary dictionary = columnReader.getDictionary();
+    int cardinality = dictionary.length();
+    int[] dictIdMapping = new int[cardinality];
+    BloomFilterCreator bloomFilterCreator = _bloomFilterCreatorMap.get(columnName);
+    for (int i = 0; i < cardinality; i++) {
+      Object value = dictionary.get(i);
+      dictIdMapping[i] = dictionaryCreator.indexOfSV(value);
+      // Bloom filter only tracks the distinct values, so there is no need to add the value for each doc
+      if (bloomFilterCreator != null) {
+        bloomFilterCreator.add(value.toString());
+      }
+    }
+
+    DictionaryBasedInvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
+    if (invertedIndexCreator != null && copyInvertedIndex(columnName, invertedIndexCreator, sourceInvertedIndex,
+        dictIdMapping, sortedDocIds)) {
+      invertedIndexCreator = null;
+    }
+    CombinedInvertedIndexCreator rangeIndexCreator = _rangeIndexFilterCreatorMap.get(columnName);
+    if (columnReader.isSingleValue()) {
+      for (int i = 0; i < _totalDocs; i++) {
+        int docId = sortedDocIds != null ? sortedDocIds[i] : i;
+        int dictId = dictIdMapping[columnReader.getDictId(docId)];
+        forwardIndexCreator.putDictId(dictId);
+        if (invertedIndexCreator != null) {
+          invertedIndexCreator.add(dictId);
+        }
+        if (rangeIndexCreator != null) {
+          rangeIndexCreator.add(dictId);
         }
       }
+    } else {
+      int[] dictIdBuffer = new int[columnReader.getMaxNumValuesPerMVEntry()];
+      for (int i = 0; i < _totalDocs; i++) {
+        int docId = sortedDocIds != null ? sortedDocIds[i] : i;
+        int numValues = columnReader.getDictIdMV(docId, dictIdBuffer);
+        int[] dictIds = new int[numValues];
+        for (int j = 0; j < numValues; j++) {
+          dictIds[j] = dictIdMapping[dictIdBuffer[j]];
+        }
+        forwardIndexCreator.putDictIdMV(dictIds);
+        if (invertedIndexCreator != null) {
+          invertedIndexCreator.add(dictIds, numValues);
+        }
+        if (rangeIndexCreator != null) {
+          rangeIndexCreator.add(dictIds, numValues);
+        }
+      }
+    }
+  }
 
-      // text-index
-      TextIndexCreator textIndexCreator = _textIndexCreatorMap.get(columnName);
-      if (textIndexCreator != null) {
-        if (fieldSpec.isSingleValueField()) {
-          textIndexCreator.add((String) columnValueToIndex);
+  /**
+   * Writes the bitmap inverted index from the bitmaps of a mutable inverted index, instead of rebuilding it doc by doc.
+   * The bitmaps are written in the order of the created dictionary ids, and their doc ids are remapped when the segment
+   * is re-sorted. This only applies to the default bitmap inverted index creators, whose file format is written here,
+   * and the replaced creator is closed.
+   *
+   * @return Whether the inverted index has been written
+   */
+  private boolean copyInvertedIndex(String columnName, DictionaryBasedInvertedIndexCreator invertedIndexCreator,
+      @Nullable InvertedIndexReader<?> sourceInvertedIndex, int[] dictIdMapping, @Nullable int[] sortedDocIds)
+      throws IOException {
+    if (!(sourceInvertedIndex instanceof MutableInvertedIndex) || !(
+        invertedIndexCreator instanceof OnHeapBitmapInvertedIndexCreator
+            || invertedIndexCreator instanceof OffHeapBitmapInvertedIndexCreator)) {
+      return false;
+    }
+    MutableInvertedIndex mutableInvertedIndex = (MutableInvertedIndex) sourceInvertedIndex;
+    int cardinality = dictIdMapping.length;
+    int[] sourceDictIds = new int[cardinality];
+    for (int i = 0; i < cardinality; i++) {
+      sourceDictIds[dictIdMapping[i]] = i;
+    }
+    int[] newDocIds = null;
+    if (sortedDocIds != null) {
+      newDocIds = new int[_totalDocs];
+      for (int i = 0; i < _totalDocs; i++) {
+        newDocIds[sortedDocIds[i]] = i;
+      }
+    }
+
+    _invertedIndexCreatorMap.remove(columnName).close();
+    File invertedIndexFile = new File(_indexDir, columnName + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION);
+    try (BitmapInvertedIndexWriter writer = new BitmapInvertedIndexWriter(invertedIndexFile, cardinality)) {
+      RoaringBitmapWriter<RoaringBitmap> bitmapWriter = RoaringBitmapWriter.writer().get();
+      int[] docIdBuffer = new int[0];
+      for (int dictId = 0; dictId < cardinality; dictId++) {
+        MutableRoaringBitmap sourceDocIds = mutableInvertedIndex.getDocIds(sourceDictIds[dictId]);
+        // the mutable segment might have indexed docs beyond the ones being converted
+        if (newDocIds == null) {
+          RoaringBitmap docIds = sourceDocIds.toRoaringBitmap();
+          docIds.remove(_totalDocs, 0x100000000L);
+          writer.add(docIds);
         } else {
-          Object[] values = (Object[]) columnValueToIndex;
-          int length = values.length;
-          if (values instanceof String[]) {
-            textIndexCreator.add((String[]) values, length);
-          } else {
-            String[] strings = new String[length];
-            for (int i = 0; i < length; i++) {
-              strings[i] = (String) values[i];
+          docIdBuffer = docIdBuffer.length >= sourceDocIds.getCardinality() ? docIdBuffer
+              : new int[sourceDocIds.getCardinality()];
+          int numDocs = 0;
+          PeekableIntIterator iterator = sourceDocIds.getIntIterator();
+          while (iterator.hasNext()) {
+            int docId = iterator.next();
+            if (docId >= _totalDocs) {
+              break;
             }
-            textIndexCreator.add(strings, length);
-            columnValueToIndex = strings;
+            docIdBuffer[numDocs++] = newDocIds[docId];
+          }
+          Arrays.sort(docIdBuffer, 0, numDocs);
+          for (int i = 0; i < numDocs; i++) {
+            bitmapWriter.add(docIdBuffer[i]);
           }
+          writer.add(bitmapWriter.get());
+          bitmapWriter.reset();
         }
       }
+    }
+    return true;
+  }
+
+  private void indexValue(String columnName, ForwardIndexCreator forwardIndexCreator, Object columnValueToIndex)
+      throws IOException {
+    FieldSpec fieldSpec = _schema.getFieldSpecFor(columnName);
 
+    //get dictionaryCreator, will be null if column is not dictionaryEncoded
+    SegmentDictionaryCreator dictionaryCreator = _dictionaryCreatorMap.get(columnName);
+
+    // bloom filter
+    BloomFilterCreator bloomFilterCreator = _bloomFilterCreatorMap.get(columnName);
+    if (bloomFilterCreator != null) {
       if (fieldSpec.isSingleValueField()) {
-        // Single Value column
-        JsonIndexCreator jsonIndexCreator = _jsonIndexCreatorMap.get(columnName);
-        if (jsonIndexCreator != null) {
-          jsonIndexCreator.add((String) columnValueToIndex);
-        }
-        GeoSpatialIndexCreator h3IndexCreator = _h3IndexCreatorMap.get(columnName);
-        if (h3IndexCreator != null) {
-          h3IndexCreator.add(GeometrySerializer.deserialize((byte[]) columnValueToIndex));
+        bloomFilterCreator.add(columnValueToIndex.toString());
+      } else {
+        Object[] values = (Object[]) columnValueToIndex;
+        for (Object value : values) {
+          bloomFilterCreator.add(value.toString());
         }
-        if (dictionaryCreator != null) {
-          // dictionary encoded SV column
-          // get dictID from dictionary
-          int dictId = dictionaryCreator.indexOfSV(columnValueToIndex);
-          // store the docID -> dictID mapping in forward index
-          forwardIndexCreator.putDictId(dictId);
-          DictionaryBasedInvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
-          if (invertedIndexCreator != null) {
-            // if inverted index enabled during segment creation,
-            // then store dictID -> docID mapping in inverted index
-            invertedIndexCreator.add(dictId);
-          }
+      }
+    }
+
+    // range index
+    CombinedInvertedIndexCreator combinedInvertedIndexCreator = _rangeIndexFilterCreatorMap.get(columnName);
+    if (combinedInvertedIndexCreator != null) {
+      if (dictionaryCreator != null) {
+        if (fieldSpec.isSingleValueField()) {
+          combinedInvertedIndexCreator.add(dictionaryCreator.indexOfSV(columnValueToIndex));
         } else {
-          // non-dictionary encoded SV column
-          // store the docId -> raw value mapping in forward index
-          if (textIndexCreator != null && !shouldStoreRawValueForTextIndex(columnName)) {
-            // for text index on raw columns, check the config to determine if actual raw value should
-            // be stored or not
-            columnValueToIndex = _columnProperties.get(columnName).get(FieldConfig.TEXT_INDEX_RAW_VALUE);
-            if (columnValueToIndex == null) {
-              columnValueToIndex = FieldConfig.TEXT_INDEX_DEFAULT_RAW_VALUE;
-            }
-          }
-          switch (forwardIndexCreator.getValueType()) {
+          int[] dictIds = dictionaryCreator.indexOfMV(columnValueToIndex);
+          combinedInvertedIndexCreator.add(dictIds, dictIds.length);
+        }
+      } else {
+        if (fieldSpec.isSingleValueField()) {
+          switch (fieldSpec.getDataType()) {
             case INT:
-              forwardIndexCreator.putInt((int) columnValueToIndex);
+              combinedInvertedIndexCreator.add((Integer) columnValueToIndex);
               break;
             case LONG:
-              forwardIndexCreator.putLong((long) columnValueToIndex);
+              combinedInvertedIndexCreator.add((Long) columnValueToIndex);
               break;
             case FLOAT:
-              forwardIndexCreator.putFloat((float) columnValueToIndex);
+              combinedInvertedIndexCreator.add((Float) columnValueToIndex);
               break;
             case DOUBLE:
-              forwardIndexCreator.putDouble((double) columnValueToIndex);
-              break;
-            case BIG_DECIMAL:
-              forwardIndexCreator.putBigDecimal((BigDecimal) columnValueToIndex);
-              break;
-            case STRING:
-              forwardIndexCreator.putString((String) columnValueToIndex);
-              break;
-            case BYTES:
-              forwardIndexCreator.putBytes((byte[]) columnValueToIndex);
-              break;
-            case JSON:
-              if (columnValueToIndex instanceof String) {
-                forwardIndexCreator.putString((String) columnValueToIndex);
-              } else if (columnValueToIndex instanceof byte[]) {
-                forwardIndexCreator.putBytes((byte[]) columnValueToIndex);
-              }
+              combinedInvertedIndexCreator.add((Double) columnValueToIndex);
               break;
             default:
-              throw new IllegalStateException();
-          }
-        }
-      } else {
-        if (dictionaryCreator != null) {
-          //dictionary encoded
-          int[] dictIds = dictionaryCreator.indexOfMV(columnValueToIndex);
-          forwardIndexCreator.putDictIdMV(dictIds);
-          DictionaryBasedInvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
-          if (invertedIndexCreator != null) {
-            invertedIndexCreator.add(dictIds, dictIds.length);
+              throw new RuntimeException("Unsupported data type " + fieldSpec.getDataType() + " for range index");
           }
         } else {
-          // for text index on raw columns, check the config to determine if actual raw value should
-          // be stored or not
-          if (textIndexCreator != null && !shouldStoreRawValueForTextIndex(columnName)) {
-            Object value = _columnProperties.get(columnName).get(FieldConfig.TEXT_INDEX_RAW_VALUE);
-            if (value == null) {
-              value = FieldConfig.TEXT_INDEX_DEFAULT_RAW_VALUE;
-            }
-            if (forwardIndexCreator.getValueType().getStoredType() == DataType.STRING) {
-              columnValueToIndex = new String[]{String.valueOf(value)};
-            } else if (forwardIndexCreator.getValueType().getStoredType() == DataType.BYTES) {
-              columnValueToIndex = new byte[][]{String.valueOf(value).getBytes(UTF_8)};
-            } else {
-              throw new RuntimeException("Text Index is only supported for STRING and BYTES stored type");
-            }
-          }
           Object[] values = (Object[]) columnValueToIndex;
-          int length = values.length;
-          switch (forwardIndexCreator.getValueType()) {
+          switch (fieldSpec.getDataType()) {
             case INT:
-              int[] ints = new int[length];
-              for (int i = 0; i < length; i++) {
-                ints[i] = (Integer) values[i];
+              int[] intValues = new int[values.length];
+              for (int i = 0; i < values.length; i++) {
+                intValues[i] = (Integer) values[i];
               }
-              forwardIndexCreator.putIntMV(ints);
+              combinedInvertedIndexCreator.add(intValues, values.length);
               break;
             case LONG:
-              long[] longs = new long[length];
-              for (int i = 0; i < length; i++) {
-                longs[i] = (Long) values[i];
+              long[] longValues = new long[values.length];
+              for (int i = 0; i < values.length; i++) {
+                longValues[i] = (Long) values[i];
               }
-              forwardIndexCreator.putLongMV(longs);
+              combinedInvertedIndexCreator.add(longValues, values.length);
               break;
             case FLOAT:
-              float[] floats = new float[length];
-              for (int i = 0; i < length; i++) {
-                floats[i] = (Float) values[i];
+              float[] floatValues = new float[values.length];
+              for (int i = 0; i < values.length; i++) {
+                floatValues[i] = (Float) values[i];
               }
-              forwardIndexCreator.putFloatMV(floats);
+              combinedInvertedIndexCreator.add(floatValues, values.length);
               break;
             case DOUBLE:
-              double[] doubles = new double[length];
-              for (int i = 0; i < length; i++) {
-                doubles[i] = (Double) values[i];
-              }
-              forwardIndexCreator.putDoubleMV(doubles);
-              break;
-            case STRING:
-              if (values instanceof String[]) {
-                forwardIndexCreator.putStringMV((String[]) values);
-              } else {
-                String[] strings = new String[length];
-                for (int i = 0; i < length; i++) {
-                  strings[i] = (String) values[i];
-                }
-                forwardIndexCreator.putStringMV(strings);
-              }
-              break;
-            case BYTES:
-              if (values instanceof byte[][]) {
-                forwardIndexCreator.putBytesMV((byte[][]) values);
-              } else {
-                byte[][] bytesArray = new byte[length][];
-                for (int i = 0; i < length; i++) {
-                  bytesArray[i] = (byte[]) values[i];
-                }
-                forwardIndexCreator.putBytesMV(bytesArray);
+              double[] doubleValues = new double[values.length];
+              for (int i = 0; i < values.length; i++) {
+                doubleValues[i] = (Double) values[i];
               }
+              combinedInvertedIndexCreator.add(doubleValues, values.length);
               break;
             default:
-              throw new IllegalStateException();
+              throw new RuntimeException("Unsupported data type " + fieldSpec.getDataType() + " for range index");
           }
         }
       }
+    }
 
-      if (_nullHandlingEnabled) {
-        // If row has null value for given column name, add to null value vector
-        if (row.isNullValue(columnName)) {
-          _nullValueVectorCreatorMap.get(columnName).setNull(_docIdCounter);
+    // text-index
+    TextIndexCreator textIndexCreator = _textIndexCreatorMap.get(columnName);
+    if (textIndexCreator != null) {
+      if (fieldSpec.isSingleValueField()) {
+        textIndexCreator.add((String) columnValueToIndex);
+      } else {
+        Object[] values = (Object[]) columnValueToIndex;
+        int length = values.length;
+        if (values instanceof String[]) {
+          textIndexCreator.add((String[]) values, length);
+        } else {
+          String[] strings = new String[length];
+          for (int i = 0; i < length; i++) {
+            strings[i] = (String) values[i];
+          }
+          textIndexCreator.add(strings, length);
+          columnValueToIndex = strings;
+        }
+      }
+    }
+
+    if (fieldSpec.isSingleValueField()) {
+      // Single Value column
+      JsonIndexCreator jsonIndexCreator = _jsonIndexCreatorMap.get(columnName);
+      if (jsonIndexCreator != null) {
+        jsonIndexCreator.add((String) columnValueToIndex);
+      }
+      GeoSpatialIndexCreator h3IndexCreator = _h3IndexCreatorMap.get(columnName);
+      if (h3IndexCreator != null) {
+        h3IndexCreator.add(GeometrySerializer.deserialize((byte[]) columnValueToIndex));
+      }
+      if (dictionaryCreator != null) {
+        // dictionary encoded SV column
+        // get dictID from dictionary
+        int dictId = dictionaryCreator.indexOfSV(columnValueToIndex);
+        // store the docID -> dictID mapping in forward index
+        forwardIndexCreator.putDictId(dictId);
+        DictionaryBasedInvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
+        if (invertedIndexCreator != null) {
+          // if inverted index enabled during segment creation,
+          // then store dictID -> docID mapping in inverted index
+          invertedIndexCreator.add(dictId);
+        }
+      } else {
+        // non-dictionary encoded SV column
+        // store the docId -> raw value mapping in forward index
+        if (textIndexCreator != null && !shouldStoreRawValueForTextIndex(columnName)) {
+          // for text index on raw columns, check the config to determine if actual raw value should
+          // be stored or not
+          columnValueToIndex = _columnProperties.get(columnName).get(FieldConfig.TEXT_INDEX_RAW_VALUE);
+          if (columnValueToIndex == null) {
+            columnValueToIndex = FieldConfig.TEXT_INDEX_DEFAULT_RAW_VALUE;
+          }
+        }
+        switch (forwardIndexCreator.getValueType()) {
+          case INT:
+            forwardIndexCreator.putInt((int) columnValueToIndex);
+            break;
+          case LONG:
+            forwardIndexCreator.putLong((long) columnValueToIndex);
+            break;
+          case FLOAT:
+            forwardIndexCreator.putFloat((float) columnValueToIndex);
+            break;
+          case DOUBLE:
+            forwardIndexCreator.putDouble((double) columnValueToIndex);
+            break;
+          case BIG_DECIMAL:
+            forwardIndexCreator.putBigDecimal((BigDecimal) columnValueToIndex);
+            break;
+          case STRING:
+            forwardIndexCreator.putString((String) columnValueToIndex);
+            break;
+          case BYTES:
+            forwardIndexCreator.putBytes((byte[]) columnValueToIndex);
+            break;
+          case JSON:
+            if (columnValueToIndex instanceof String) {
+              forwardIndexCreator.putString((String) columnValueToIndex);
+            } else if (columnValueToIndex instanceof byte[]) {
+              forwardIndexCreator.putBytes((byte[]) columnValueToIndex);
+            }
+            break;
+          default:
+            throw new IllegalStateException();
+        }
+      }
+    } else {
+      if (dictionaryCreator != null) {
+        //dictionary encoded
+        int[] dictIds = dictionaryCreator.indexOfMV(columnValueToIndex);
+        forwardIndexCreator.putDictIdMV(dictIds);
+        DictionaryBasedInvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
+        if (invertedIndexCreator != null) {
+          invertedIndexCreator.add(dictIds, dictIds.length);
+        }
+      } else {
+        // for text index on raw columns, check the config to determine if actual raw value should
+        // be stored or not
+        if (textIndexCreator != null && !shouldStoreRawValueForTextIndex(columnName)) {
+          Object value = _columnProperties.get(columnName).get(FieldConfig.TEXT_INDEX_RAW_VALUE);
+          if (value == null) {
+            value = FieldConfig.TEXT_INDEX_DEFAULT_RAW_VALUE;
+          }
+          if (forwardIndexCreator.getValueType().getStoredType() == DataType.STRING) {
+            columnValueToIndex = new String[]{String.valueOf(value)};
+          } else if (forwardIndexCreator.getValueType().getStoredType() == DataType.BYTES) {
+            columnValueToIndex = new byte[][]{String.valueOf(value).getBytes(UTF_8)};
+          } else {
+            throw new RuntimeException("Text Index is only supported for STRING and BYTES stored type");
+          }
+        }
+        Object[] values = (Object[]) columnValueToIndex;
+        int length = values.length;
+        switch (forwardIndexCreator.getValueType()) {
+          case INT:
+            int[] ints = new int[length];
+            for (int i = 0; i < length; i++) {
+              ints[i] = (Integer) values[i];
+            }
+            forwardIndexCreator.putIntMV(ints);
+            break;
+          case LONG:
+            long[] longs = new long[length];
+            for (int i = 0; i < length; i++) {
+              longs[i] = (Long) values[i];
+            }
+            forwardIndexCreator.putLongMV(longs);
+            break;
+          case FLOAT:
+            float[] floats = new float[length];
+            for (int i = 0; i < length; i++) {
+              floats[i] = (Float) values[i];
+            }
+            forwardIndexCreator.putFloatMV(floats);
+            break;
+          case DOUBLE:
+            double[] doubles = new double[length];
+            for (int i = 0; i < length; i++) {
+              doubles[i] = (Double) values[i];
+            }
+            forwardIndexCreator.putDoubleMV(doubles);
+            break;
+          case STRING:
+            if (values instanceof String[]) {
+              forwardIndexCreator.putStringMV((String[]) values);
+            } else {
+              String[] strings = new String[length];
+              for (int i = 0; i < length; i++) {
+                strings[i] = (String) values[i];
+              }
+              forwardIndexCreator.putStringMV(strings);
+            }
+            break;
+          case BYTES:
+            if (values instanceof byte[][]) {
+              forwardIndexCreator.putBytesMV((byte[][]) values);
+            } else {
+              byte[][] bytesArray = new byte[length][];
+              for (int i = 0; i < length; i++) {
+                bytesArray[i] = (byte[]) values[i];
+              }
+              forwardIndexCreator.putBytesMV(bytesArray);
+            }
+            break;
+          default:
+            throw new IllegalStateException();
         }
       }
     }
-    _docIdCounter++;
   }
 
   private boolean shouldStoreRawValueForTextIndex(String column) {
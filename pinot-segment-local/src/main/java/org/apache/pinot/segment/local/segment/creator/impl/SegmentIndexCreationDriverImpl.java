@@ -41,6 +41,7 @@ import org.apache.pinot.segment.local.segment.readers.PinotSegmentRecordReader;
 import org.apache.pinot.segment.local.startree.v2.builder.MultipleTreesBuilder;
 import org.apache.pinot.segment.local.utils.CrcUtils;
 import org.apache.pinot.segment.local.utils.IngestionUtils;
+import org.apache.pinot.segment.spi.IndexSegment;
 import org.apache.pinot.segment.spi.V1Constants;
 import org.apache.pinot.segment.spi.converter.SegmentFormatConverter;
 import org.apache.pinot.segment.spi.creator.ColumnIndexCreationInfo;
@@ -260,6 +261,48 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     handlePostCreation();
   }
 
+  /**
+   * Builds the segment column by column from an existing segment instead of reading the rows from the record reader.
+   * This skips the per-row {@link GenericRow} materialization and transformation, and allows reusing the dictionaries
+   * of the existing segment to encode the values. The data source must be backed by a
+   * {@link PinotSegmentRecordReader} over the given segment (which provides the doc id order), and the transform
+   * pipeline must be a pass-through pipeline because the values are indexed as is.
+   */
+  public void buildByColumn(IndexSegment indexSegment)
+      throws Exception {
+    Preconditions.checkState(_recordReader instanceof PinotSegmentRecordReader,
+        "Column major segment build requires PinotSegmentRecordReader, got: %s", _recordReader.getClass().getName());
+
+    // Count the number of documents and gather per-column statistics
+    LOGGER.debug("Start building StatsCollector!");
+    buildIndexCreationInfo();
+    LOGGER.info("Finished building StatsCollector!");
+    LOGGER.info("Collected stats for {} documents", _totalDocs);
+
+    try {
+      // Initialize the index creation using the per-column statistics information
+      _indexCreator.init(_config, _segmentIndexCreationInfo, _indexCreationInfoMap, _dataSchema, _tempIndexDir);
+
+      // Build the index column by column
+      LOGGER.info("Start building IndexCreator column by column!");
+      long indexStartTime = System.currentTimeMillis();
+      int[] sortedDocIds = ((PinotSegmentRecordReader) _recordReader).getSortedDocIds();
+      for (String columnName : _dataSchema.getPhysicalColumnNames()) {
+        _indexCreator.indexColumn(columnName, sortedDocIds, indexSegment);
+      }
+      _totalIndexTime = System.currentTimeMillis() - indexStartTime;
+    } catch (Exception e) {
+      _indexCreator.close();
+      throw e;
+    } finally {
+      _recordReader.close();
+    }
+
+    LOGGER.info("Finished column indexing in IndexCreator!");
+
+    handlePostCreation();
+  }
+
   private void handlePostCreation()
       throws Exception {
     ColumnStatistics timeColumnStatistics = _segmentStats.getColumnProfileFor(_config.getTimeColumnName());
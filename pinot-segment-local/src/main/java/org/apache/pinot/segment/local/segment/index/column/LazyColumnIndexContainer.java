@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.column;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
+import org.apache.pinot.segment.local.segment.index.readers.BaseImmutableDictionary;
+import org.apache.pinot.segment.local.segment.index.readers.NullValueVectorReaderImpl;
+import org.apache.pinot.segment.spi.ColumnMetadata;
+import org.apache.pinot.segment.spi.index.column.ColumnIndexContainer;
+import org.apache.pinot.segment.spi.index.reader.BloomFilterReader;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.segment.spi.index.reader.H3IndexReader;
+import org.apache.pinot.segment.spi.index.reader.InvertedIndexReader;
+import org.apache.pinot.segment.spi.index.reader.JsonIndexReader;
+import org.apache.pinot.segment.spi.index.reader.NullValueVectorReader;
+import org.apache.pinot.segment.spi.index.reader.RangeIndexReader;
+import org.apache.pinot.segment.spi.index.reader.TextIndexReader;
+import org.apache.pinot.segment.spi.index.reader.provider.IndexReaderProvider;
+import org.apache.pinot.segment.spi.store.ColumnIndexType;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.spi.config.table.BloomFilterConfig;
+
+
+/**
+ * Same as {@link PhysicalColumnIndexContainer}, but each index reader is only created the first time it is accessed,
+ * so that the index buffers of a segment directory fetching them on demand are only read for the indexes used by the
+ * queries.
+ */
+public final class LazyColumnIndexContainer implements ColumnIndexContainer {
+  private final SegmentDirectory.Reader _segmentReader;
+  private final ColumnMetadata _metadata;
+  private final String _columnName;
+  private final IndexLoadingConfig _indexLoadingConfig;
+  private final File _segmentIndexDir;
+  private final IndexReaderProvider _indexReaderProvider;
+  // Readers created so far, where null value means the index does not exist
+  private final Map<ColumnIndexType, Object> _readers = new EnumMap<>(ColumnIndexType.class);
+  private boolean _closed;
+
+  public LazyColumnIndexContainer(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
+      IndexLoadingConfig indexLoadingConfig, @Nullable File segmentIndexDir, IndexReaderProvider indexReaderProvider) {
+    _segmentReader = segmentReader;
+    _metadata = metadata;
+    _columnName = metadata.getColumnName();
+    _indexLoadingConfig = indexLoadingConfig;
+    _segmentIndexDir = segmentIndexDir;
+    _indexReaderProvider = indexReaderProvider;
+  }
+
+  private interface ReaderCreator<T> {
+    @Nullable
+    T create()
+        throws IOException;
+  }
+
+  @SuppressWarnings("unchecked")
+  private synchronized <T> T getReader(ColumnIndexType type, ReaderCreator<T> creator) {
+    if (_readers.containsKey(type)) {
+      return (T) _readers.get(type);
+    }
+    Preconditions.checkState(!_closed, "Indexes of column: %s are closed", _columnName);
+    T reader;
+    try {
+      reader = creator.create();
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while loading index: " + type + " for column: " + _columnName, e);
+    }
+    _readers.put(type, reader);
+    return reader;
+  }
+
+  private boolean isSortedDictionaryEncoded() {
+    return _metadata.hasDictionary() && _metadata.isSingleValue() && _metadata.isSorted();
+  }
+
+  @Override
+  public ForwardIndexReader<?> getForwardIndex() {
+    return getReader(ColumnIndexType.FORWARD_INDEX, () -> {
+      if (isSortedDictionaryEncoded()) {
+        // Sorted index is both the forward index and the inverted index
+        return _indexReaderProvider.newSortedIndexReader(
+            _segmentReader.getIndexFor(_columnName, ColumnIndexType.FORWARD_INDEX), _metadata);
+      }
+      if (_metadata.hasDictionary() && !_segmentReader.hasIndexFor(_columnName, ColumnIndexType.FORWARD_INDEX)) {
+        // Forward index disabled
+        return null;
+      }
+      return _indexReaderProvider.newForwardIndexReader(
+          _segmentReader.getIndexFor(_columnName, ColumnIndexType.FORWARD_INDEX), _metadata);
+    });
+  }
+
+  @Override
+  public InvertedIndexReader<?> getInvertedIndex() {
+    if (isSortedDictionaryEncoded()) {
+      return (InvertedIndexReader<?>) getForwardIndex();
+    }
+    return getReader(ColumnIndexType.INVERTED_INDEX, () -> {
+      if (_metadata.hasDictionary() && _indexLoadingConfig.getInvertedIndexColumns().contains(_columnName)) {
+        return _indexReaderProvider.newInvertedIndexReader(
+            _segmentReader.getIndexFor(_columnName, ColumnIndexType.INVERTED_INDEX), _metadata);
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public RangeIndexReader<?> getRangeIndex() {
+    return getReader(ColumnIndexType.RANGE_INDEX, () -> {
+      if (_indexLoadingConfig.getRangeIndexColumns().contains(_columnName) && !_metadata.isSorted()) {
+        return _indexReaderProvider.newRangeIndexReader(
+            _segmentReader.getIndexFor(_columnName, ColumnIndexType.RANGE_INDEX), _metadata);
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public TextIndexReader getTextIndex() {
+    return getReader(ColumnIndexType.TEXT_INDEX, () -> {
+      if (_indexLoadingConfig.getTextIndexColumns().contains(_columnName) && _segmentIndexDir != null) {
+        Preconditions.checkState(_segmentReader.hasIndexFor(_columnName, ColumnIndexType.TEXT_INDEX));
+        return _indexReaderProvider.newTextIndexReader(_segmentIndexDir, _metadata,
+            _indexLoadingConfig.getColumnProperties().get(_columnName));
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public TextIndexReader getFSTIndex() {
+    return getReader(ColumnIndexType.FST_INDEX, () -> {
+      if (_metadata.hasDictionary() && !isSortedDictionaryEncoded() && _indexLoadingConfig.getFSTIndexColumns()
+          .contains(_columnName)) {
+        return _indexReaderProvider.newFSTIndexReader(
+            _segmentReader.getIndexFor(_columnName, ColumnIndexType.FST_INDEX), _metadata);
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public JsonIndexReader getJsonIndex() {
+    return getReader(ColumnIndexType.JSON_INDEX, () -> {
+      if (_indexLoadingConfig.getJsonIndexConfigs().containsKey(_columnName)) {
+        Preconditions.checkState(_segmentReader.hasIndexFor(_columnName, ColumnIndexType.JSON_INDEX));
+        return _indexReaderProvider.newJsonIndexReader(
+            _segmentReader.getIndexFor(_columnName, ColumnIndexType.JSON_INDEX), _metadata);
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public H3IndexReader getH3Index() {
+    return getReader(ColumnIndexType.H3_INDEX, () -> {
+      if (_indexLoadingConfig.getH3IndexConfigs().containsKey(_columnName)) {
+        Preconditions.checkState(_segmentReader.hasIndexFor(_columnName, ColumnIndexType.H3_INDEX));
+        return _indexReaderProvider.newGeospatialIndexReader(
+            _segmentReader.getIndexFor(_columnName, ColumnIndexType.H3_INDEX), _metadata);
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public BaseImmutableDictionary getDictionary() {
+    return getReader(ColumnIndexType.DICTIONARY, () -> {
+      if (_metadata.hasDictionary()) {
+        return PhysicalColumnIndexContainer.loadDictionary(
+            _segmentReader.getIndexFor(_columnName, ColumnIndexType.DICTIONARY), _metadata,
+            _indexLoadingConfig.getOnHeapDictionaryColumns().contains(_columnName));
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public BloomFilterReader getBloomFilter() {
+    return getReader(ColumnIndexType.BLOOM_FILTER, () -> {
+      BloomFilterConfig bloomFilterConfig = _indexLoadingConfig.getBloomFilterConfigs().get(_columnName);
+      if (bloomFilterConfig != null) {
+        return _indexReaderProvider.newBloomFilterReader(
+            _segmentReader.getIndexFor(_columnName, ColumnIndexType.BLOOM_FILTER), bloomFilterConfig.isLoadOnHeap());
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public NullValueVectorReader getNullValueVector() {
+    return getReader(ColumnIndexType.NULLVALUE_VECTOR, () -> {
+      if (_segmentReader.hasIndexFor(_columnName, ColumnIndexType.NULLVALUE_VECTOR)) {
+        return new NullValueVectorReaderImpl(_segmentReader.getIndexFor(_columnName, ColumnIndexType.NULLVALUE_VECTOR));
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public synchronized void close()
+      throws IOException {
+    _closed = true;
+    for (Object reader : _readers.values()) {
+      if (reader instanceof Closeable) {
+        ((Closeable) reader).close();
+      }
+    }
+    _readers.clear();
+  }
+}
@@ -21,23 +21,98 @@ package org.apache.pinot.segment.local.segment.index.datasource;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.pinot.segment.spi.ColumnMetadata;
+import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
 import org.apache.pinot.segment.spi.index.column.ColumnIndexContainer;
+import org.apache.pinot.segment.spi.index.reader.BloomFilterReader;
+import org.apache.pinot.segment.spi.index.reader.Dictionary;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.segment.spi.index.reader.H3IndexReader;
+import org.apache.pinot.segment.spi.index.reader.InvertedIndexReader;
+import org.apache.pinot.segment.spi.index.reader.JsonIndexReader;
+import org.apache.pinot.segment.spi.index.reader.NullValueVectorReader;
+import org.apache.pinot.segment.spi.index.reader.RangeIndexReader;
+import org.apache.pinot.segment.spi.index.reader.TextIndexReader;
 import org.apache.pinot.segment.spi.partition.PartitionFunction;
 import org.apache.pinot.spi.data.FieldSpec;
 
 
 /**
- * The {@code ImmutableDataSource} class is the data source for a column in the immutable segment.
+ * The {@code ImmutableDataSource} class is the data source for a column in the immutable segment. The indexes are
+ * fetched from the {@link ColumnIndexContainer} when accessed, so that the containers loading the indexes lazily only
+ * load the ones used by the queries.
  */
-public class ImmutableDataSource extends BaseDataSource {
+public class ImmutableDataSource implements DataSource {
+  private final DataSourceMetadata _dataSourceMetadata;
+  private final ColumnIndexContainer _columnIndexContainer;
 
   public ImmutableDataSource(ColumnMetadata columnMetadata, ColumnIndexContainer columnIndexContainer) {
-    super(new ImmutableDataSourceMetadata(columnMetadata), columnIndexContainer.getForwardIndex(),
-        columnIndexContainer.getDictionary(), columnIndexContainer.getInvertedIndex(),
-        columnIndexContainer.getRangeIndex(), columnIndexContainer.getTextIndex(), columnIndexContainer.getFSTIndex(),
-        columnIndexContainer.getJsonIndex(), columnIndexContainer.getH3Index(), columnIndexContainer.getBloomFilter(),
-        columnIndexContainer.getNullValueVector());
+    _dataSourceMetadata = new ImmutableDataSourceMetadata(columnMetadata);
+    _columnIndexContainer = columnIndexContainer;
+  }
+
+  @Override
+  public DataSourceMetadata getDataSourceMetadata() {
+    return _dataSourceMetadata;
+  }
+
+  @Override
+  public ForwardIndexReader<?> getForwardIndex() {
+    return _columnIndexContainer.getForwardIndex();
+  }
+
+  @Nullable
+  @Override
+  public Dictionary getDictionary() {
+    return _columnIndexContainer.getDictionary();
+  }
+
+  @Nullable
+  @Override
+  public InvertedIndexReader<?> getInvertedIndex() {
+    return _columnIndexContainer.getInvertedIndex();
+  }
+
+  @Nullable
+  @Override
+  public RangeIndexReader<?> getRangeIndex() {
+    return _columnIndexContainer.getRangeIndex();
+  }
+
+  @Nullable
+  @Override
+  public TextIndexReader getTextIndex() {
+    return _columnIndexContainer.getTextIndex();
+  }
+
+  @Nullable
+  @Override
+  public TextIndexReader getFSTIndex() {
+    return _columnIndexContainer.getFSTIndex();
+  }
+
+  @Nullable
+  @Override
+  public JsonIndexReader getJsonIndex() {
+    return _columnIndexContainer.getJsonIndex();
+  }
+
+  @Nullable
+  @Override
+  public H3IndexReader getH3Index() {
+    return _columnIndexContainer.getH3Index();
+  }
+
+  @Nullable
+  @Override
+  public BloomFilterReader getBloomFilter() {
+    return _columnIndexContainer.getBloomFilter();
+  }
+
+  @Nullable
+  @Override
+  public NullValueVectorReader getNullValueVector() {
+    return _columnIndexContainer.getNullValueVector();
   }
 
   private static class ImmutableDataSourceMetadata implements DataSourceMetadata {
@@ -49,6 +49,7 @@ import org.apache.pinot.spi.config.table.ingestion.IngestionConfig;
 import org.apache.pinot.spi.config.table.ingestion.TransformConfig;
 import org.apache.pinot.spi.env.PinotConfiguration;
 import org.apache.pinot.spi.utils.CommonConstants;
+import org.apache.pinot.spi.utils.DataSizeUtils;
 import org.apache.pinot.spi.utils.ReadMode;
 
 
@@ -58,6 +59,10 @@ import org.apache.pinot.spi.utils.ReadMode;
 public class IndexLoadingConfig {
   private static final int DEFAULT_REALTIME_AVG_MULTI_VALUE_COUNT = 2;
   public static final String READ_MODE_KEY = "readMode";
+  public static final String PREFETCH_COLUMNS_KEY = "prefetchColumns";
+  public static final String ASYNC_PREFETCH_KEY = "asyncPrefetch";
+  public static final String SEGMENT_CACHE_DIR_KEY = "segmentCacheDir";
+  public static final String SEGMENT_CACHE_SIZE_BYTES_KEY = "segmentCacheSizeBytes";
 
   private ReadMode _readMode = ReadMode.DEFAULT_MODE;
   private List<String> _sortedColumns = Collections.emptyList();
@@ -73,6 +78,10 @@ public class IndexLoadingConfig {
   private final Map<String, String> _noDictionaryConfig = new HashMap<>();
   private final Set<String> _varLengthDictionaryColumns = new HashSet<>();
   private Set<String> _onHeapDictionaryColumns = new HashSet<>();
+  private Set<String> _prefetchColumns = new HashSet<>();
+  private boolean _asyncPrefetch = CommonConstants.Server.DEFAULT_SEGMENT_ASYNC_PREFETCH;
+  private String _segmentCacheDir;
+  private long _segmentCacheSizeBytes = DataSizeUtils.toBytes(CommonConstants.Server.DEFAULT_SEGMENT_CACHE_SIZE);
   private Set<String> _forwardIndexDisabledColumns = new HashSet<>();
   private Map<String, BloomFilterConfig> _bloomFilterConfigs = new HashMap<>();
   private boolean _enableDynamicStarTreeCreation;
@@ -216,6 +225,11 @@ public class IndexLoadingConfig {
       _onHeapDictionaryColumns.addAll(onHeapDictionaryColumns);
     }
 
+    List<String> prefetchColumns = indexingConfig.getPrefetchColumns();
+    if (prefetchColumns != null) {
+      _prefetchColumns.addAll(prefetchColumns);
+    }
+
     _enableDynamicStarTreeCreation = indexingConfig.isEnableDynamicStarTreeCreation();
     _starTreeIndexConfigs = indexingConfig.getStarTreeIndexConfigs();
     _enableDefaultStarTree = indexingConfig.isEnableDefaultStarTree();
@@ -331,6 +345,14 @@ public class IndexLoadingConfig {
     _segmentStoreURI =
         instanceDataManagerConfig.getConfig().getProperty(CommonConstants.Server.CONFIG_OF_SEGMENT_STORE_URI);
     _segmentDirectoryLoader = instanceDataManagerConfig.getSegmentDirectoryLoader();
+    _asyncPrefetch = instanceDataManagerConfig.getConfig()
+        .getProperty(CommonConstants.Server.CONFIG_OF_SEGMENT_ASYNC_PREFETCH,
+            CommonConstants.Server.DEFAULT_SEGMENT_ASYNC_PREFETCH);
+    _segmentCacheDir =
+        instanceDataManagerConfig.getConfig().getProperty(CommonConstants.Server.CONFIG_OF_SEGMENT_CACHE_DIR);
+    _segmentCacheSizeBytes = DataSizeUtils.toBytes(instanceDataManagerConfig.getConfig()
+        .getProperty(CommonConstants.Server.CONFIG_OF_SEGMENT_CACHE_SIZE,
+            CommonConstants.Server.DEFAULT_SEGMENT_CACHE_SIZE));
   }
 
   /**
@@ -557,6 +579,53 @@ public class IndexLoadingConfig {
     return _onHeapDictionaryColumns;
   }
 
+  /**
+   * Returns the hot columns whose indexes are fully read ahead into memory when the segment is loaded in MMAP mode.
+   */
+  public Set<String> getPrefetchColumns() {
+    return _prefetchColumns;
+  }
+
+  @VisibleForTesting
+  public void setPrefetchColumns(Set<String> prefetchColumns) {
+    _prefetchColumns = prefetchColumns;
+  }
+
+  /**
+   * Returns whether to asynchronously read ahead the indexes a query will access before the query operators run.
+   */
+  public boolean isAsyncPrefetch() {
+    return _asyncPrefetch;
+  }
+
+  @VisibleForTesting
+  public void setAsyncPrefetch(boolean asyncPrefetch) {
+    _asyncPrefetch = asyncPrefetch;
+  }
+
+  /**
+   * Returns the local directory of the cache for the metadata and the index buffers of the segments loaded lazily from
+   * the deep store.
+   */
+  @Nullable
+  public String getSegmentCacheDir() {
+    return _segmentCacheDir;
+  }
+
+  @VisibleForTesting
+  public void setSegmentCacheDir(String segmentCacheDir) {
+    _segmentCacheDir = segmentCacheDir;
+  }
+
+  public long getSegmentCacheSizeBytes() {
+    return _segmentCacheSizeBytes;
+  }
+
+  @VisibleForTesting
+  public void setSegmentCacheSizeBytes(long segmentCacheSizeBytes) {
+    _segmentCacheSizeBytes = segmentCacheSizeBytes;
+  }
+
   public Set<String> getForwardIndexDisabledColumns() {
     return _forwardIndexDisabledColumns;
   }
@@ -642,6 +711,12 @@ public class IndexLoadingConfig {
   public PinotConfiguration getSegmentDirectoryConfigs() {
     Map<String, Object> props = new HashMap<>();
     props.put(READ_MODE_KEY, _readMode);
+    props.put(PREFETCH_COLUMNS_KEY, new ArrayList<>(_prefetchColumns));
+    props.put(ASYNC_PREFETCH_KEY, _asyncPrefetch);
+    if (_segmentCacheDir != null) {
+      props.put(SEGMENT_CACHE_DIR_KEY, _segmentCacheDir);
+    }
+    props.put(SEGMENT_CACHE_SIZE_BYTES_KEY, _segmentCacheSizeBytes);
     return new PinotConfiguration(props);
   }
 
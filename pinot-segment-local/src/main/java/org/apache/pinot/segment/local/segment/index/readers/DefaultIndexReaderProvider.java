@@ -26,11 +26,14 @@ import org.apache.pinot.segment.local.io.writer.impl.VarByteChunkSVForwardIndexW
 import org.apache.pinot.segment.local.segment.creator.impl.inv.BitSlicedRangeIndexCreator;
 import org.apache.pinot.segment.local.segment.creator.impl.inv.RangeIndexCreator;
 import org.apache.pinot.segment.local.segment.index.readers.bloom.BloomFilterReaderFactory;
+import org.apache.pinot.segment.local.segment.index.readers.forward.DeltaChunkSVForwardIndexReader;
+import org.apache.pinot.segment.local.segment.index.readers.forward.DeltaOfDeltaChunkSVForwardIndexReader;
 import org.apache.pinot.segment.local.segment.index.readers.forward.FixedBitMVForwardIndexReader;
 import org.apache.pinot.segment.local.segment.index.readers.forward.FixedBitSVForwardIndexReaderV2;
 import org.apache.pinot.segment.local.segment.index.readers.forward.FixedByteChunkMVForwardIndexReader;
 import org.apache.pinot.segment.local.segment.index.readers.forward.FixedByteChunkSVForwardIndexReader;
 import org.apache.pinot.segment.local.segment.index.readers.forward.FixedBytePower2ChunkSVForwardIndexReader;
+import org.apache.pinot.segment.local.segment.index.readers.forward.FrameOfReferenceChunkSVForwardIndexReader;
 import org.apache.pinot.segment.local.segment.index.readers.forward.VarByteChunkMVForwardIndexReader;
 import org.apache.pinot.segment.local.segment.index.readers.forward.VarByteChunkSVForwardIndexReader;
 import org.apache.pinot.segment.local.segment.index.readers.forward.VarByteChunkSVForwardIndexReaderV4;
@@ -43,6 +46,7 @@ import org.apache.pinot.segment.local.segment.store.TextIndexUtils;
 import org.apache.pinot.segment.local.utils.nativefst.FSTHeader;
 import org.apache.pinot.segment.local.utils.nativefst.NativeFSTIndexReader;
 import org.apache.pinot.segment.spi.ColumnMetadata;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.segment.spi.index.reader.BloomFilterReader;
 import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
 import org.apache.pinot.segment.spi.index.reader.H3IndexReader;
@@ -95,6 +99,20 @@ public class DefaultIndexReaderProvider implements IndexReaderProvider {
       if (columnMetadata.isSingleValue()) {
         int version = dataBuffer.getInt(0);
         if (storedType.isFixedWidth()) {
+          if (version > 1) {
+            // Compression type is stored after the version, number of chunks, docs per chunk, entry size and total docs
+            ChunkCompressionType compressionType = ChunkCompressionType.valueOf(dataBuffer.getInt(5 * Integer.BYTES));
+            switch (compressionType) {
+              case DELTA:
+                return new DeltaChunkSVForwardIndexReader(dataBuffer, storedType);
+              case DELTA_OF_DELTA:
+                return new DeltaOfDeltaChunkSVForwardIndexReader(dataBuffer, storedType);
+              case FRAME_OF_REFERENCE:
+                return new FrameOfReferenceChunkSVForwardIndexReader(dataBuffer, storedType);
+              default:
+                break;
+            }
+          }
           return version >= FixedBytePower2ChunkSVForwardIndexReader.VERSION
               ? new FixedBytePower2ChunkSVForwardIndexReader(dataBuffer, storedType)
               : new FixedByteChunkSVForwardIndexReader(dataBuffer, storedType);
@@ -25,10 +25,12 @@ import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.LongBuffer;
+import javax.annotation.Nullable;
 import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
 import org.apache.pinot.segment.local.io.writer.impl.BaseChunkSVForwardIndexWriter;
 import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.segment.spi.compression.ChunkDecompressor;
+import org.apache.pinot.segment.spi.index.reader.ChunkZoneMap;
 import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
@@ -54,6 +56,7 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
   protected final int _headerEntryChunkOffsetSize;
   protected final PinotDataBuffer _rawData;
   protected final boolean _isSingleValue;
+  protected final ChunkZoneMap _chunkZoneMap;
 
   public BaseChunkForwardIndexReader(PinotDataBuffer dataBuffer, DataType storedType, boolean isSingleValue) {
     _dataBuffer = dataBuffer;
@@ -103,6 +106,26 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
     _rawData = _dataBuffer.view(rawDataStart, _dataBuffer.size());
 
     _isSingleValue = isSingleValue;
+    _chunkZoneMap = readChunkZoneMap(version, dataHeaderStart);
+  }
+
+  /**
+   * Reads the per-chunk zone map stored between the fixed header and the data header if exists, or returns
+   * {@code null} otherwise.
+   */
+  @Nullable
+  private ChunkZoneMap readChunkZoneMap(int version, int dataHeaderStart) {
+    if (version < 2 || !_isSingleValue || !_storedType.isNumeric() || _storedType == DataType.BIG_DECIMAL) {
+      return null;
+    }
+    int chunkZoneMapStart = BaseChunkSVForwardIndexWriter.FIXED_HEADER_SIZE + Integer.BYTES;
+    int chunkZoneMapEnd = chunkZoneMapStart + _numChunks * BaseChunkSVForwardIndexWriter.CHUNK_ZONE_MAP_ENTRY_SIZE;
+    if (dataHeaderStart < chunkZoneMapEnd
+        || _dataBuffer.getInt(BaseChunkSVForwardIndexWriter.FIXED_HEADER_SIZE)
+        != BaseChunkSVForwardIndexWriter.CHUNK_ZONE_MAP_VERSION) {
+      return null;
+    }
+    return new ChunkZoneMapReader(_dataBuffer.view(chunkZoneMapStart, chunkZoneMapEnd), _numChunks, _numDocsPerChunk);
   }
 
   /**
@@ -186,6 +209,12 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
     return _lengthOfLongestEntry;
   }
 
+  @Nullable
+  @Override
+  public ChunkZoneMap getChunkZoneMap() {
+    return _chunkZoneMap;
+  }
+
   @Override
   public void readValuesSV(int[] docIds, int length, int[] values, ChunkReaderContext context) {
     if (_storedType.isFixedWidth() && !_isCompressed && isContiguousRange(docIds, length)) {
@@ -364,4 +393,50 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
   private boolean isContiguousRange(int[] docIds, int length) {
     return docIds[length - 1] - docIds[0] == length - 1;
   }
+
+  /**
+   * Per-chunk zone map backed by the header of the forward index, where the min/max value of each chunk is stored as
+   * long (raw long bits of the double value for FLOAT/DOUBLE).
+   */
+  private static final class ChunkZoneMapReader implements ChunkZoneMap {
+    private final PinotDataBuffer _buffer;
+    private final int _numChunks;
+    private final int _numDocsPerChunk;
+
+    ChunkZoneMapReader(PinotDataBuffer buffer, int numChunks, int numDocsPerChunk) {
+      _buffer = buffer;
+      _numChunks = numChunks;
+      _numDocsPerChunk = numDocsPerChunk;
+    }
+
+    @Override
+    public int getNumChunks() {
+      return _numChunks;
+    }
+
+    @Override
+    public int getNumDocsPerChunk() {
+      return _numDocsPerChunk;
+    }
+
+    @Override
+    public long getMinLong(int chunkId) {
+      return _buffer.getLong((long) chunkId * BaseChunkSVForwardIndexWriter.CHUNK_ZONE_MAP_ENTRY_SIZE);
+    }
+
+    @Override
+    public long getMaxLong(int chunkId) {
+      return _buffer.getLong((long) chunkId * BaseChunkSVForwardIndexWriter.CHUNK_ZONE_MAP_ENTRY_SIZE + Long.BYTES);
+    }
+
+    @Override
+    public double getMinDouble(int chunkId) {
+      return Double.longBitsToDouble(getMinLong(chunkId));
+    }
+
+    @Override
+    public double getMaxDouble(int chunkId) {
+      return Double.longBitsToDouble(getMaxLong(chunkId));
+    }
+  }
 }
@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.readers.forward;
+
+import com.google.common.base.Preconditions;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import org.apache.pinot.segment.local.io.compression.IntegerChunkCodec;
+import org.apache.pinot.segment.local.io.util.PinotDataBitSetV2;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+
+
+/**
+ * Base implementation for the chunk-based single-value raw (non-dictionary-encoded) forward index reader for values
+ * encoded with the lightweight integer encodings. Instead of decompressing the chunk into a byte buffer, the chunk is
+ * decoded directly into a long array cached in the reader context, where the bit-packed residuals are unpacked with
+ * {@link PinotDataBitSetV2}.
+ * <p>For data layout, please refer to the documentation for {@link IntegerChunkCodec}
+ */
+public abstract class BaseIntegerChunkSVForwardIndexReader extends BaseChunkForwardIndexReader {
+  private final int _numHeaderValues;
+
+  protected BaseIntegerChunkSVForwardIndexReader(PinotDataBuffer dataBuffer, DataType storedType,
+      ChunkCompressionType compressionType) {
+    super(dataBuffer, storedType, true);
+    Preconditions.checkState(_compressionType == compressionType, "Expecting compression type: %s, got: %s",
+        compressionType, _compressionType);
+    _numHeaderValues = IntegerChunkCodec.getNumHeaderValues(compressionType);
+  }
+
+  @Override
+  public ChunkReaderContext createContext() {
+    return new IntegerChunkReaderContext(_numDocsPerChunk);
+  }
+
+  /**
+   * Reconstructs the values of the chunk from the residuals (excluding the reference) stored in the values array,
+   * starting at the index of the first residual.
+   */
+  protected abstract void decode(long[] values, int numValues, long firstValue, long firstDelta, long reference);
+
+  /**
+   * Returns the decoded values of the chunk that contains the given document id, decoding the chunk if it is not
+   * cached in the reader context.
+   */
+  protected long[] getChunkValues(int docId, ChunkReaderContext context) {
+    IntegerChunkReaderContext integerChunkReaderContext = (IntegerChunkReaderContext) context;
+    int chunkId = docId / _numDocsPerChunk;
+    if (integerChunkReaderContext.getChunkId() != chunkId) {
+      decodeChunk(chunkId, integerChunkReaderContext);
+    }
+    return integerChunkReaderContext._values;
+  }
+
+  private void decodeChunk(int chunkId, IntegerChunkReaderContext context) {
+    long chunkPosition = getChunkPosition(chunkId);
+    int numValues = _dataBuffer.getInt(chunkPosition + IntegerChunkCodec.NUM_VALUES_OFFSET);
+    int numBitsPerValue = _dataBuffer.getByte(chunkPosition + IntegerChunkCodec.NUM_BITS_PER_VALUE_OFFSET);
+    long firstValue = _dataBuffer.getLong(chunkPosition + IntegerChunkCodec.FIRST_VALUE_OFFSET);
+    long firstDelta = _dataBuffer.getLong(chunkPosition + IntegerChunkCodec.FIRST_DELTA_OFFSET);
+    long reference = _dataBuffer.getLong(chunkPosition + IntegerChunkCodec.REFERENCE_OFFSET);
+    long residualsStart = chunkPosition + IntegerChunkCodec.HEADER_SIZE;
+    int numResiduals = Math.max(numValues - _numHeaderValues, 0);
+
+    long[] values = context._values;
+    switch (numBitsPerValue) {
+      case 0:
+        Arrays.fill(values, _numHeaderValues, numValues, 0L);
+        break;
+      case 64:
+        for (int i = 0; i < numResiduals; i++) {
+          values[_numHeaderValues + i] = _dataBuffer.getLong(residualsStart + (long) i * Long.BYTES);
+        }
+        break;
+      default:
+        int[] residuals = context._residuals;
+        long residualsEnd = residualsStart + IntegerChunkCodec.getPackedSize(numResiduals, numBitsPerValue);
+        PinotDataBitSetV2 bitSet = PinotDataBitSetV2.createBitSet(
+            _dataBuffer.view(residualsStart, residualsEnd, ByteOrder.BIG_ENDIAN), numBitsPerValue);
+        bitSet.readInt(0, numResiduals, residuals);
+        if (numBitsPerValue == Integer.SIZE) {
+          for (int i = 0; i < numResiduals; i++) {
+            values[_numHeaderValues + i] = residuals[i] & 0xFFFFFFFFL;
+          }
+        } else {
+          for (int i = 0; i < numResiduals; i++) {
+            values[_numHeaderValues + i] = residuals[i];
+          }
+        }
+        break;
+    }
+    decode(values, numValues, firstValue, firstDelta, reference);
+    context.setChunkId(chunkId);
+  }
+
+  @Override
+  public int getInt(int docId, ChunkReaderContext context) {
+    return (int) getChunkValues(docId, context)[docId % _numDocsPerChunk];
+  }
+
+  @Override
+  public long getLong(int docId, ChunkReaderContext context) {
+    return getChunkValues(docId, context)[docId % _numDocsPerChunk];
+  }
+
+  @Override
+  public float getFloat(int docId, ChunkReaderContext context) {
+    return Float.intBitsToFloat((int) getChunkValues(docId, context)[docId % _numDocsPerChunk]);
+  }
+
+  @Override
+  public double getDouble(int docId, ChunkReaderContext context) {
+    return Double.longBitsToDouble(getChunkValues(docId, context)[docId % _numDocsPerChunk]);
+  }
+
+  @Override
+  public void readValuesSV(int[] docIds, int length, int[] values, ChunkReaderContext context) {
+    if (_storedType == DataType.INT) {
+      for (int i = 0; i < length; i++) {
+        int docId = docIds[i];
+        values[i] = (int) getChunkValues(docId, context)[docId % _numDocsPerChunk];
+      }
+    } else {
+      super.readValuesSV(docIds, length, values, context);
+    }
+  }
+
+  @Override
+  public void readValuesSV(int[] docIds, int length, long[] values, ChunkReaderContext context) {
+    if (_storedType == DataType.INT || _storedType == DataType.LONG) {
+      for (int i = 0; i < length; i++) {
+        int docId = docIds[i];
+        values[i] = getChunkValues(docId, context)[docId % _numDocsPerChunk];
+      }
+    } else {
+      super.readValuesSV(docIds, length, values, context);
+    }
+  }
+
+  /**
+   * Reader context which caches the decoded values of the last read chunk.
+   */
+  public static class IntegerChunkReaderContext extends ChunkReaderContext {
+    private final long[] _values;
+    private final int[] _residuals;
+
+    public IntegerChunkReaderContext(int numDocsPerChunk) {
+      // The chunk buffer is not used
+      super(0);
+      _values = new long[numDocsPerChunk];
+      _residuals = new int[numDocsPerChunk];
+    }
+  }
+}
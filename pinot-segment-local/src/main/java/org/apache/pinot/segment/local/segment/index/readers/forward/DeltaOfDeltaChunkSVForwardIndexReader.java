@@ -0,0 +1,41 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.readers.forward;
+
+import org.apache.pinot.segment.local.io.compression.IntegerChunkCodec;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+
+
+/**
+ * Chunk-based single-value raw (non-dictionary-encoded) forward index reader for values of fixed length data type
+ * encoded with the delta-of-delta encoding ({@link ChunkCompressionType#DELTA_OF_DELTA}).
+ */
+public final class DeltaOfDeltaChunkSVForwardIndexReader extends BaseIntegerChunkSVForwardIndexReader {
+
+  public DeltaOfDeltaChunkSVForwardIndexReader(PinotDataBuffer dataBuffer, DataType storedType) {
+    super(dataBuffer, storedType, ChunkCompressionType.DELTA_OF_DELTA);
+  }
+
+  @Override
+  protected void decode(long[] values, int numValues, long firstValue, long firstDelta, long reference) {
+    IntegerChunkCodec.decodeDeltaOfDelta(values, numValues, firstValue, firstDelta, reference);
+  }
+}
@@ -30,12 +30,20 @@ import org.apache.pinot.spi.data.FieldSpec.DataType;
  * ids.
  */
 public final class FixedBitSVForwardIndexReaderV2 implements ForwardIndexReader<ForwardIndexReaderContext> {
+  // Number of doc ids to decide whether to gather the values from unpacked words or to read them one by one
+  private static final int GATHER_CHUNK_SIZE = 256;
+
   private final FixedBitIntReader _reader;
   private final int _numDocs;
+  // Min average number of doc ids per 32-value word to gather the values from unpacked words. Unpacking a word costs
+  // more for wider values, while reading a single value costs about the same, so at least half of the docs in the word
+  // should be read, and more for the wide values.
+  private final int _minDocsPerWordForGather;
 
   public FixedBitSVForwardIndexReaderV2(PinotDataBuffer dataBuffer, int numDocs, int numBitsPerValue) {
     _reader = FixedBitIntReader.getReader(dataBuffer, numBitsPerValue);
     _numDocs = numDocs;
+    _minDocsPerWordForGather = Math.max(16, numBitsPerValue);
   }
 
   @Override
@@ -62,10 +70,10 @@ public final class FixedBitSVForwardIndexReaderV2 implements ForwardIndexReader<
   public void readDictIds(int[] docIds, int length, int[] dictIdBuffer, ForwardIndexReaderContext context) {
     int firstDocId = docIds[0];
     int lastDocId = docIds[length - 1];
-    int index = 0;
 
     // Use bulk read if the doc ids are sequential
     if (lastDocId - firstDocId + 1 == length && length >= 64) {
+      int index = 0;
       int bulkStartIndex = (firstDocId + 31) & 0xffffffe0;
       int bulkEndIndex = lastDocId & 0xffffffe0;
 
@@ -76,19 +84,73 @@ public final class FixedBitSVForwardIndexReaderV2 implements ForwardIndexReader<
         _reader.read32(i, dictIdBuffer, index);
         index += 32;
       }
+      readRemaining(docIds, index, length, dictIdBuffer);
+      return;
+    }
+
+    // For the doc ids with gaps, decide per chunk whether to gather the values from unpacked 32-value words or to read
+    // them one by one, based on the average number of doc ids per word within the chunk
+    int[] wordBuffer = null;
+    for (int chunkStartIndex = 0; chunkStartIndex < length; chunkStartIndex += GATHER_CHUNK_SIZE) {
+      int chunkEndIndex = Math.min(chunkStartIndex + GATHER_CHUNK_SIZE, length);
+      int chunkLastDocId = docIds[chunkEndIndex - 1];
+      // Bulk read is only safe when there are values after the last word
+      if ((long) (chunkEndIndex - chunkStartIndex) << 5
+          >= (long) _minDocsPerWordForGather * (chunkLastDocId - docIds[chunkStartIndex] + 1)
+          && (chunkLastDocId | 31) < _numDocs - 1) {
+        if (wordBuffer == null) {
+          wordBuffer = new int[32];
+        }
+        gather(docIds, chunkStartIndex, chunkEndIndex, dictIdBuffer, wordBuffer);
+      } else {
+        readRemaining(docIds, chunkStartIndex, chunkEndIndex, dictIdBuffer);
+      }
+    }
+  }
+
+  /**
+   * Unpacks each 32-value word containing the doc ids in the given range, and gathers the requested values from it.
+   * Words fully covered by the doc ids are unpacked directly into the output buffer.
+   */
+  private void gather(int[] docIds, int startIndex, int endIndex, int[] dictIdBuffer, int[] wordBuffer) {
+    int index = startIndex;
+    while (index < endIndex) {
+      int docId = docIds[index];
+      int wordStartDocId = docId & 0xffffffe0;
+      int wordEndDocId = wordStartDocId + 32;
+      if (docId == wordStartDocId && index + 32 <= endIndex && docIds[index + 31] == wordEndDocId - 1) {
+        _reader.read32(wordStartDocId, dictIdBuffer, index);
+        index += 32;
+      } else {
+        _reader.read32(wordStartDocId, wordBuffer, 0);
+        do {
+          dictIdBuffer[index] = wordBuffer[docIds[index] - wordStartDocId];
+          index++;
+        } while (index < endIndex && docIds[index] < wordEndDocId);
+      }
     }
+  }
 
-    // Process the remaining docs
+  /**
+   * Reads the values for the doc ids in the given range one by one. Kept as a tight loop (separate from the gather) so
+   * that it is compiled as efficiently as possible.
+   */
+  private void readRemaining(int[] docIds, int startIndex, int endIndex, int[] dictIdBuffer) {
+    if (startIndex >= endIndex) {
+      return;
+    }
+    int lastDocId = docIds[endIndex - 1];
     if (lastDocId < _numDocs - 2) {
-      for (int i = index; i < length; i++) {
+      for (int i = startIndex; i < endIndex; i++) {
         dictIdBuffer[i] = _reader.readUnchecked(docIds[i]);
       }
     } else {
-      dictIdBuffer[length - 1] = _reader.read(lastDocId);
-      int uncheckedEndIndex = length - 2;
-      if (uncheckedEndIndex >= index) {
+      // Unchecked read might access bytes after the end of the buffer for the last 2 docs
+      dictIdBuffer[endIndex - 1] = _reader.read(lastDocId);
+      int uncheckedEndIndex = endIndex - 2;
+      if (uncheckedEndIndex >= startIndex) {
         dictIdBuffer[uncheckedEndIndex] = _reader.read(docIds[uncheckedEndIndex]);
-        for (int i = index; i < uncheckedEndIndex; i++) {
+        for (int i = startIndex; i < uncheckedEndIndex; i++) {
           dictIdBuffer[i] = _reader.readUnchecked(docIds[i]);
         }
       }
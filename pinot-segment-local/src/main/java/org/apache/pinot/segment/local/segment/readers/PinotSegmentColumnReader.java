@@ -89,6 +89,17 @@ public class PinotSegmentColumnReader implements Closeable {
     return _forwardIndexReader.getDictId(docId, _forwardIndexReaderContext);
   }
 
+  /**
+   * Reads the dictionary ids of a multi-value entry into the given buffer and returns the number of values.
+   */
+  public int getDictIdMV(int docId, int[] dictIdBuffer) {
+    return _forwardIndexReader.getDictIdMV(docId, dictIdBuffer, _forwardIndexReaderContext);
+  }
+
+  public int getMaxNumValuesPerMVEntry() {
+    return _maxNumValuesPerMVEntry;
+  }
+
   public Object getValue(int docId) {
     if (_dictionary != null) {
       // Dictionary based
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A size bounded cache of index buffers on local disk (typically SSD), shared by the segment directories which fetch
+ * their indexes on demand from the deep store.
+ *
+ * <p>Each cached index is stored as a separate file and is reference counted: the index is pinned (and mapped) while at
+ * least one segment directory holds it, and becomes evictable once all of them have released it. Before an index is
+ * added, the least recently used evictable files are deleted to make room for it. Pinned indexes are never evicted, so
+ * acquiring an index which does not fit next to the pinned ones fails instead of growing the cache beyond the limit.
+ */
+public class LocalIndexCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LocalIndexCache.class);
+  private static final String TMP_FILE_SUFFIX = ".tmp";
+
+  private final File _cacheDir;
+  private long _maxSizeBytes;
+  // Access ordered, so that the iteration starts from the least recently used entry
+  private final LinkedHashMap<String, Entry> _entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long _sizeBytes;
+
+  /**
+   * Files left in the cache directory (e.g. by a previous run) are not tracked by the cache, so the directory is
+   * cleaned up when the cache is created.
+   */
+  public LocalIndexCache(File cacheDir, long maxSizeBytes) {
+    FileUtils.deleteQuietly(cacheDir);
+    Preconditions.checkState(cacheDir.mkdirs(), "Failed to create cache directory: %s", cacheDir);
+    _cacheDir = cacheDir;
+    _maxSizeBytes = maxSizeBytes;
+  }
+
+  /**
+   * Fetches the content of an index into a local file.
+   */
+  public interface IndexFetcher {
+    void fetch(File destFile)
+        throws IOException;
+  }
+
+  /**
+   * Returns the buffer of the index with the given key, fetching the index into the cache first if it is not cached.
+   * The index is pinned until {@link #release(String)} is invoked once for each invocation of this method.
+   *
+   * @param key key of the index, which is also the relative path of the cached file
+   * @param sizeBytes size of the index
+   * @param fetcher fetcher for the index content when it is not cached
+   * @throws IllegalStateException if the index is not cached and does not fit in the cache next to the pinned indexes
+   */
+  public PinotDataBuffer acquire(String key, long sizeBytes, IndexFetcher fetcher)
+      throws IOException {
+    Entry entry;
+    synchronized (this) {
+      entry = _entries.get(key);
+      if (entry == null) {
+        evict(_maxSizeBytes - sizeBytes);
+        Preconditions.checkState(_sizeBytes + sizeBytes <= _maxSizeBytes,
+            "Cannot cache index: %s of size: %s bytes, pinned indexes take: %s bytes of the cache size limit: %s bytes",
+            key, sizeBytes, _sizeBytes, _maxSizeBytes);
+        entry = new Entry(new File(_cacheDir, key), sizeBytes);
+        _entries.put(key, entry);
+        _sizeBytes += sizeBytes;
+      }
+      entry._refCount++;
+    }
+    try {
+      // Fetch the index outside of the cache lock so that different indexes can be fetched in parallel
+      synchronized (entry) {
+        if (!entry._fetched) {
+          fetch(entry, fetcher);
+        }
+        if (entry._buffer == null) {
+          entry._buffer =
+              PinotDataBuffer.mapFile(entry._file, true, 0, entry._sizeBytes, ByteOrder.BIG_ENDIAN,
+                  getClass().getSimpleName() + "." + key);
+        }
+        return entry._buffer;
+      }
+    } catch (Exception e) {
+      release(key);
+      throw e;
+    }
+  }
+
+  private static void fetch(Entry entry, IndexFetcher fetcher)
+      throws IOException {
+    File file = entry._file;
+    File tmpFile = new File(file.getPath() + TMP_FILE_SUFFIX);
+    try {
+      FileUtils.forceMkdirParent(file);
+      FileUtils.deleteQuietly(tmpFile);
+      fetcher.fetch(tmpFile);
+      Preconditions.checkState(tmpFile.length() == entry._sizeBytes,
+          "Fetched size: %s does not match the expected size: %s for file: %s", tmpFile.length(), entry._sizeBytes,
+          file);
+      FileUtils.deleteQuietly(file);
+      FileUtils.moveFile(tmpFile, file);
+    } finally {
+      FileUtils.deleteQuietly(tmpFile);
+    }
+    entry._fetched = true;
+  }
+
+  /**
+   * Releases the index with the given key. The index becomes evictable once all the acquisitions are released.
+   */
+  public synchronized void release(String key) {
+    Entry entry = _entries.get(key);
+    Preconditions.checkState(entry != null && entry._refCount > 0, "Index: %s is not acquired", key);
+    if (--entry._refCount > 0) {
+      return;
+    }
+    synchronized (entry) {
+      if (entry._buffer != null) {
+        try {
+          entry._buffer.close();
+        } catch (IOException e) {
+          LOGGER.warn("Failed to close the buffer for index: {}", key, e);
+        }
+        entry._buffer = null;
+      }
+    }
+    evict(_maxSizeBytes);
+  }
+
+  /**
+   * Updates the size limit of the cache. When the limit is lowered, the evictable indexes are deleted until the cache
+   * fits in the new limit, and the pinned indexes are evicted once released.
+   */
+  public synchronized void setMaxSizeBytes(long maxSizeBytes) {
+    if (maxSizeBytes != _maxSizeBytes) {
+      LOGGER.info("Updating size limit of cache directory: {} from: {} to: {} bytes", _cacheDir, _maxSizeBytes,
+          maxSizeBytes);
+      _maxSizeBytes = maxSizeBytes;
+      evict(maxSizeBytes);
+    }
+  }
+
+  /**
+   * Removes all the evictable indexes whose key starts with the given prefix, e.g. when the segment is deleted.
+   */
+  public synchronized void invalidate(String keyPrefix) {
+    Iterator<Map.Entry<String, Entry>> iterator = _entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Entry> mapEntry = iterator.next();
+      Entry entry = mapEntry.getValue();
+      if (entry._refCount == 0 && mapEntry.getKey().startsWith(keyPrefix)) {
+        iterator.remove();
+        remove(entry);
+      }
+    }
+  }
+
+  public synchronized long getSizeBytes() {
+    return _sizeBytes;
+  }
+
+  public synchronized long getMaxSizeBytes() {
+    return _maxSizeBytes;
+  }
+
+  @VisibleForTesting
+  synchronized boolean isCached(String key) {
+    Entry entry = _entries.get(key);
+    return entry != null && entry._fetched;
+  }
+
+  /**
+   * Evicts the least recently used evictable indexes until the size of the cache does not exceed the given size.
+   */
+  private void evict(long targetSizeBytes) {
+    Iterator<Entry> iterator = _entries.values().iterator();
+    while (_sizeBytes > targetSizeBytes && iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (entry._refCount == 0) {
+        iterator.remove();
+        remove(entry);
+      }
+    }
+  }
+
+  private void remove(Entry entry) {
+    _sizeBytes -= entry._sizeBytes;
+    FileUtils.deleteQuietly(entry._file);
+  }
+
+  private static class Entry {
+    final File _file;
+    final long _sizeBytes;
+    int _refCount;
+    boolean _fetched;
+    PinotDataBuffer _buffer;
+
+    Entry(File file, long sizeBytes) {
+      _file = file;
+      _sizeBytes = sizeBytes;
+    }
+  }
+}
@@ -0,0 +1,275 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import com.google.common.base.Preconditions;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.pinot.common.utils.URIUtils;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.creator.SegmentVersion;
+import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.store.ColumnIndexType;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.segment.spi.store.SegmentDirectoryPaths;
+import org.apache.pinot.spi.filesystem.PinotFS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A read-only {@link SegmentDirectory} for a V3 segment stored untarred in the deep store. Only the segment metadata
+ * and the index map are downloaded to local disk when the segment directory is created; each index is downloaded the
+ * first time it is read, by reading its range of the remote index file through {@link PinotFS}, into a shared
+ * {@link LocalIndexCache}. The indexes read through this segment directory stay pinned in the cache until it is closed.
+ *
+ * <p>Text indexes are stored outside the index file and are not supported.
+ */
+public class RemoteSegmentDirectory extends SegmentDirectory {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RemoteSegmentDirectory.class);
+  private static final String[] METADATA_FILE_NAMES = {
+      V1Constants.MetadataKeys.METADATA_FILE_NAME, V1Constants.SEGMENT_CREATION_META, V1Constants.INDEX_MAP_FILE_NAME
+  };
+
+  private final URI _segmentUri;
+  private final URI _indexFileUri;
+  private final PinotFS _pinotFS;
+  private final File _localDir;
+  private final LocalIndexCache _cache;
+  private final String _cacheKeyPrefix;
+  private final Map<IndexKey, IndexEntry> _indexEntries;
+  // Buffers of the indexes acquired from the cache
+  private final Map<IndexKey, PinotDataBuffer> _acquiredBuffers = new HashMap<>();
+  private SegmentMetadataImpl _segmentMetadata;
+  private String _tier;
+  private boolean _closed;
+
+  /**
+   * @param segmentUri URI of the untarred segment directory in the deep store
+   * @param pinotFS file system of the deep store
+   * @param localDir local directory owned by this segment directory to keep the segment metadata and the index map,
+   *                 which is recreated, so it must not be the index dir of a local segment
+   * @param cache local cache for the index buffers
+   * @param cacheKeyPrefix unique prefix for the cache keys of the indexes of this segment
+   */
+  public RemoteSegmentDirectory(URI segmentUri, PinotFS pinotFS, File localDir, LocalIndexCache cache,
+      String cacheKeyPrefix)
+      throws Exception {
+    _segmentUri = segmentUri;
+    _pinotFS = pinotFS;
+    _localDir = localDir;
+    _cache = cache;
+    _cacheKeyPrefix = cacheKeyPrefix;
+
+    URI v3Uri = URIUtils.getUri(segmentUri.toString(), SegmentDirectoryPaths.V3_SUBDIRECTORY_NAME);
+    URI remoteDirUri = pinotFS.exists(v3Uri) ? v3Uri : segmentUri;
+    File localSegmentDir = new File(localDir, SegmentDirectoryPaths.V3_SUBDIRECTORY_NAME);
+    FileUtils.deleteQuietly(localDir);
+    FileUtils.forceMkdir(localSegmentDir);
+    for (String fileName : METADATA_FILE_NAMES) {
+      URI fileUri = URIUtils.getUri(remoteDirUri.toString(), fileName);
+      if (pinotFS.exists(fileUri)) {
+        pinotFS.copyToLocalFile(fileUri, new File(localSegmentDir, fileName));
+      }
+    }
+    _segmentMetadata = new SegmentMetadataImpl(localDir);
+    Preconditions.checkState(_segmentMetadata.getVersion() == SegmentVersion.v3,
+        "Unsupported segment version: %s for segment: %s, only v3 segments can be loaded from the deep store",
+        _segmentMetadata.getVersion(), segmentUri);
+    _indexEntries = SingleFileIndexDirectory.loadIndexMap(localSegmentDir);
+    _indexFileUri = URIUtils.getUri(remoteDirUri.toString(), V1Constants.INDEX_FILE_NAME);
+    LOGGER.info("Loaded metadata for segment: {} from: {}", _segmentMetadata.getName(), segmentUri);
+  }
+
+  @Override
+  public URI getIndexDir() {
+    return _segmentUri;
+  }
+
+  @Override
+  public SegmentMetadataImpl getSegmentMetadata() {
+    return _segmentMetadata;
+  }
+
+  @Override
+  public void reloadMetadata()
+      throws Exception {
+    _segmentMetadata = new SegmentMetadataImpl(_localDir);
+  }
+
+  @Override
+  public Path getPath() {
+    return _localDir.toPath();
+  }
+
+  /**
+   * Returns the size of the local metadata files and the cached indexes held by this segment directory.
+   */
+  @Override
+  public synchronized long getDiskSizeBytes() {
+    long diskSizeBytes = FileUtils.sizeOfDirectory(_localDir);
+    for (IndexKey key : _acquiredBuffers.keySet()) {
+      diskSizeBytes += _indexEntries.get(key)._size;
+    }
+    return diskSizeBytes;
+  }
+
+  @Override
+  public Set<String> getColumnsWithIndex(ColumnIndexType type) {
+    Set<String> columns = new HashSet<>();
+    for (IndexKey key : _indexEntries.keySet()) {
+      if (key._type == type) {
+        columns.add(key._name);
+      }
+    }
+    return columns;
+  }
+
+  @Override
+  public String getTier() {
+    return _tier;
+  }
+
+  @Override
+  public void setTier(@Nullable String tier) {
+    _tier = tier;
+  }
+
+  @Override
+  public Reader createReader() {
+    return new Reader();
+  }
+
+  @Override
+  public Writer createWriter() {
+    throw new UnsupportedOperationException(
+        "Cannot modify segment: " + _segmentMetadata.getName() + " loaded from the deep store");
+  }
+
+  @Override
+  public synchronized void close() {
+    if (_closed) {
+      return;
+    }
+    _closed = true;
+    for (IndexKey key : _acquiredBuffers.keySet()) {
+      _cache.release(getCacheKey(key));
+    }
+    _acquiredBuffers.clear();
+  }
+
+  @Override
+  public String toString() {
+    return _segmentUri.toString();
+  }
+
+  /**
+   * Returns the cache key for the given index, which is also the relative path of the cached file.
+   */
+  private String getCacheKey(IndexKey key) {
+    return _cacheKeyPrefix + File.separator + key._name + "." + key._type.getIndexName();
+  }
+
+  private synchronized PinotDataBuffer getIndexBuffer(String column, ColumnIndexType type)
+      throws IOException {
+    IndexKey key = new IndexKey(column, type);
+    PinotDataBuffer buffer = _acquiredBuffers.get(key);
+    if (buffer != null) {
+      return buffer;
+    }
+    Preconditions.checkState(!_closed, "Segment directory: %s is closed", _segmentUri);
+    IndexEntry entry = _indexEntries.get(key);
+    if (entry == null) {
+      throw new RuntimeException(
+          "Could not find index for column: " + column + ", type: " + type + ", segment: " + _segmentUri);
+    }
+    String cacheKey = getCacheKey(key);
+    PinotDataBuffer cachedBuffer = _cache.acquire(cacheKey, entry._size, destFile -> fetchIndex(entry, destFile));
+    if (cachedBuffer.getLong(0) != SingleFileIndexDirectory.MAGIC_MARKER) {
+      _cache.release(cacheKey);
+      throw new RuntimeException(
+          "Inconsistent data read for index: " + key + ". Index data file " + _indexFileUri + " is possibly corrupted");
+    }
+    buffer = cachedBuffer.view(SingleFileIndexDirectory.MAGIC_MARKER_SIZE_BYTES, entry._size);
+    _acquiredBuffers.put(key, buffer);
+    return buffer;
+  }
+
+  /**
+   * Downloads the range of the remote index file for the given index. The range is located by skipping the input
+   * stream, which translates into a seek for the file systems supporting it.
+   */
+  private void fetchIndex(IndexEntry entry, File destFile)
+      throws IOException {
+    long startTimeMs = System.currentTimeMillis();
+    try (InputStream inputStream = _pinotFS.open(_indexFileUri);
+        OutputStream outputStream = new FileOutputStream(destFile)) {
+      long remaining = entry._startOffset;
+      while (remaining > 0) {
+        long skipped = inputStream.skip(remaining);
+        if (skipped <= 0) {
+          throw new EOFException("Failed to skip to offset: " + entry._startOffset + " of: " + _indexFileUri);
+        }
+        remaining -= skipped;
+      }
+      IOUtils.copyLarge(inputStream, outputStream, 0, entry._size);
+    }
+    LOGGER.debug("Fetched index: {} of segment: {} in {}ms", entry, _segmentMetadata.getName(),
+        System.currentTimeMillis() - startTimeMs);
+  }
+
+  public class Reader extends SegmentDirectory.Reader {
+
+    @Override
+    public PinotDataBuffer getIndexFor(String column, ColumnIndexType type)
+        throws IOException {
+      return getIndexBuffer(column, type);
+    }
+
+    @Override
+    public boolean hasIndexFor(String column, ColumnIndexType type) {
+      // Text indexes are stored outside the index file
+      return type != ColumnIndexType.TEXT_INDEX && _indexEntries.containsKey(new IndexKey(column, type));
+    }
+
+    @Override
+    public void close() {
+      // Acquired buffers are released when the segment directory is closed
+    }
+
+    @Override
+    public String toString() {
+      return _segmentUri.toString();
+    }
+  }
+}
@@ -25,11 +25,20 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 import javax.annotation.Nullable;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.FetchContext;
 import org.apache.pinot.segment.spi.creator.SegmentVersion;
 import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
@@ -56,11 +65,26 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
   private static final long MAX_MMAP_PREFETCH_PAGES = 100 * 1024 * 1024 * 1024L / PAGE_SIZE_BYTES;
   private static final double PREFETCH_SLOWDOWN_PCT = 0.67;
   private static final AtomicLong PREFETCHED_PAGES = new AtomicLong(0);
+  // The page cache may evict the pages of an index read ahead earlier, so the index is read ahead again after this
+  // time. Touching the pages still in the page cache is cheap.
+  private static final long PREFETCH_EXPIRATION_MS = TimeUnit.MINUTES.toMillis(10);
+  // Shared by all the segments to read ahead the indexes a query will access in the background
+  private static final ExecutorService ASYNC_PREFETCH_EXECUTOR = createAsyncPrefetchExecutor();
+  // Consumes the bytes read while touching the pages so that the reads cannot be optimized away
+  private static volatile byte _prefetchSink;
 
   private final File _indexDir;
   private final File _segmentDirectory;
   private final SegmentLock _segmentLock;
   private final ReadMode _readMode;
+  private final Set<String> _prefetchColumns;
+  private final boolean _asyncPrefetch;
+  // Time when the indexes were last read ahead, so that they are not prefetched again for every query
+  private final Map<IndexKey, Long> _prefetchTimeMs = new ConcurrentHashMap<>();
+  // Number of prefetches reading the buffers outside of the lock, guarded by the lock on this object
+  private int _numInFlightPrefetches;
+  // Set while closing the column index directory to stop the in-flight prefetches
+  private volatile boolean _prefetchCancelled;
   private SegmentMetadataImpl _segmentMetadata;
   private ColumnIndexDirectory _columnIndexDirectory;
   private String _tier;
@@ -72,6 +96,8 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
     _segmentDirectory = null;
     _segmentLock = new SegmentLock();
     _readMode = null;
+    _prefetchColumns = Collections.emptySet();
+    _asyncPrefetch = false;
   }
 
   public SegmentLocalFSDirectory(File directory, ReadMode readMode)
@@ -79,8 +105,25 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
     this(directory, new SegmentMetadataImpl(directory), readMode);
   }
 
+  /**
+   * @param directory segment index directory
+   * @param readMode read mode of the segment
+   * @param prefetchColumns hot columns whose indexes are fully read ahead when the segment is loaded in MMAP mode
+   * @param asyncPrefetch whether to read ahead the indexes of a {@link FetchContext} in the background in MMAP mode
+   */
+  public SegmentLocalFSDirectory(File directory, ReadMode readMode, Set<String> prefetchColumns, boolean asyncPrefetch)
+      throws IOException {
+    this(directory, new SegmentMetadataImpl(directory), readMode, prefetchColumns, asyncPrefetch);
+  }
+
   @VisibleForTesting
   public SegmentLocalFSDirectory(File directoryFile, SegmentMetadataImpl metadata, ReadMode readMode) {
+    this(directoryFile, metadata, readMode, Collections.emptySet(), false);
+  }
+
+  @VisibleForTesting
+  public SegmentLocalFSDirectory(File directoryFile, SegmentMetadataImpl metadata, ReadMode readMode,
+      Set<String> prefetchColumns, boolean asyncPrefetch) {
 
     Preconditions.checkNotNull(directoryFile);
     Preconditions.checkNotNull(metadata);
@@ -92,12 +135,15 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
     _segmentLock = new SegmentLock();
     _segmentMetadata = metadata;
     _readMode = readMode;
+    _prefetchColumns = prefetchColumns;
+    _asyncPrefetch = asyncPrefetch;
     try {
       load();
     } catch (IOException | ConfigurationException e) {
       LOGGER.error("Failed to load segment, error: ", e);
       throw new RuntimeException(e);
     }
+    warmUpPrefetchColumns();
   }
 
   @Override
@@ -273,11 +319,36 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
   public void close()
       throws IOException {
     _segmentLock.close();
-    synchronized (this) {
+    closeColumnIndexDirectory();
+  }
+
+  /**
+   * Cancels the in-flight prefetches and waits for them to stop before closing the column index directory, so that
+   * the buffers are not unmapped while being read.
+   */
+  private synchronized void closeColumnIndexDirectory()
+      throws IOException {
+    _prefetchCancelled = true;
+    boolean interrupted = false;
+    try {
+      while (_numInFlightPrefetches > 0) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          // The prefetches stop at the next page, keep waiting so that the buffers are not unmapped under them
+          interrupted = true;
+        }
+      }
       if (_columnIndexDirectory != null) {
         _columnIndexDirectory.close();
         _columnIndexDirectory = null;
       }
+      _prefetchTimeMs.clear();
+    } finally {
+      _prefetchCancelled = false;
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
     }
   }
 
@@ -293,6 +364,141 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
     return buffer;
   }
 
+  /**
+   * Reads ahead all the pages of the indexes of the configured hot columns, so that the first queries on the segment do
+   * not pay the page faults. Unlike the best-effort prefetch in {@link #getIndexForColumn}, this is not bounded by the
+   * global page budget because the columns are explicitly configured.
+   */
+  private void warmUpPrefetchColumns() {
+    if (_readMode != ReadMode.mmap || _prefetchColumns.isEmpty()) {
+      return;
+    }
+    long startTimeMs = System.currentTimeMillis();
+    long numPages = 0;
+    for (String column : _prefetchColumns) {
+      if (_segmentMetadata.getColumnMetadataFor(column) == null) {
+        continue;
+      }
+      for (ColumnIndexType type : ColumnIndexType.values()) {
+        numPages += prefetchIndex(column, type);
+      }
+    }
+    LOGGER.info("Prefetched {} pages for columns: {} of segment: {} in {}ms", numPages, _prefetchColumns,
+        _segmentMetadata.getName(), System.currentTimeMillis() - startTimeMs);
+  }
+
+  /**
+   * Issues background reads for the indexes the query will access, so that the pages are (at least partially) in the
+   * page cache before the query operators run. Indexes already read ahead are skipped.
+   */
+  @Override
+  public void prefetch(FetchContext fetchContext) {
+    if (_readMode != ReadMode.mmap || !_asyncPrefetch) {
+      return;
+    }
+    Map<String, List<ColumnIndexType>> columnToIndexList = fetchContext.getColumnToIndexList();
+    ASYNC_PREFETCH_EXECUTOR.execute(() -> {
+      for (Map.Entry<String, List<ColumnIndexType>> entry : columnToIndexList.entrySet()) {
+        String column = entry.getKey();
+        List<ColumnIndexType> indexTypes = entry.getValue();
+        // Null index list means all the indexes of the column
+        if (indexTypes == null) {
+          for (ColumnIndexType type : ColumnIndexType.values()) {
+            prefetchIndex(column, type);
+          }
+        } else {
+          for (ColumnIndexType type : indexTypes) {
+            prefetchIndex(column, type);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Touches one byte per page of the given index if it exists and is not read ahead recently, and returns the number
+   * of pages touched. The buffer is pinned under the lock and read outside of it, so that loading the data is not
+   * blocked by the read, and closing the directory cancels the read and waits for it before unmapping the buffer.
+   */
+  private long prefetchIndex(String column, ColumnIndexType type) {
+    IndexKey key = new IndexKey(column, type);
+    long currentTimeMs = System.currentTimeMillis();
+    if (isPrefetchedSince(key, currentTimeMs - PREFETCH_EXPIRATION_MS)) {
+      return 0;
+    }
+    PinotDataBuffer buffer;
+    synchronized (this) {
+      if (_prefetchCancelled || _columnIndexDirectory == null || !_columnIndexDirectory.hasIndexFor(column, type)) {
+        return 0;
+      }
+      if (isPrefetchedSince(key, currentTimeMs - PREFETCH_EXPIRATION_MS)) {
+        return 0;
+      }
+      try {
+        buffer = _columnIndexDirectory.getBuffer(column, type);
+      } catch (Exception e) {
+        LOGGER.warn("Failed to prefetch index: {} for column: {} of segment: {}", type, column,
+            _segmentMetadata.getName(), e);
+        return 0;
+      }
+      _prefetchTimeMs.put(key, currentTimeMs);
+      _numInFlightPrefetches++;
+    }
+    try {
+      return touchPages(buffer, () -> _prefetchCancelled);
+    } catch (Exception e) {
+      LOGGER.warn("Failed to prefetch index: {} for column: {} of segment: {}", type, column,
+          _segmentMetadata.getName(), e);
+      return 0;
+    } finally {
+      synchronized (this) {
+        if (--_numInFlightPrefetches == 0) {
+          notifyAll();
+        }
+      }
+    }
+  }
+
+  private boolean isPrefetchedSince(IndexKey key, long timeMs) {
+    Long prefetchTimeMs = _prefetchTimeMs.get(key);
+    return prefetchTimeMs != null && prefetchTimeMs > timeMs;
+  }
+
+  @VisibleForTesting
+  boolean isIndexPrefetched(String column, ColumnIndexType type) {
+    return isPrefetchedSince(new IndexKey(column, type), System.currentTimeMillis() - PREFETCH_EXPIRATION_MS);
+  }
+
+  @VisibleForTesting
+  static long touchPages(PinotDataBuffer buffer) {
+    return touchPages(buffer, () -> false);
+  }
+
+  /**
+   * Touches one byte per page of the given buffer until all the pages are touched or the read is cancelled, and
+   * returns the number of pages touched.
+   */
+  private static long touchPages(PinotDataBuffer buffer, BooleanSupplier cancelled) {
+    long size = buffer.size();
+    long numPages = 0;
+    byte sink = 0;
+    for (long pos = 0; pos < size && !cancelled.getAsBoolean(); pos += PAGE_SIZE_BYTES) {
+      sink ^= buffer.getByte(pos);
+      numPages++;
+    }
+    _prefetchSink = sink;
+    return numPages;
+  }
+
+  private static ExecutorService createAsyncPrefetchExecutor() {
+    AtomicInteger threadId = new AtomicInteger();
+    return Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 4), runnable -> {
+      Thread thread = new Thread(runnable, "segment-async-prefetch-" + threadId.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
   private void prefetchMmapData(PinotDataBuffer buffer) {
     // mmap mode causes high number of major page faults after server restart.
     // This impacts latency especially for prod "online" use cases that require low latency.
@@ -378,6 +584,7 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
     @Override
     public void removeIndex(String columnName, ColumnIndexType indexType) {
       _columnIndexDirectory.removeIndex(columnName, indexType);
+      _prefetchTimeMs.remove(new IndexKey(columnName, indexType));
     }
 
     private PinotDataBuffer getNewIndexBuffer(IndexKey key, long sizeBytes)
@@ -398,10 +605,7 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
     public void close()
         throws IOException {
       _segmentLock.unlock();
-      if (_columnIndexDirectory != null) {
-        _columnIndexDirectory.close();
-      }
-      _columnIndexDirectory = null;
+      closeColumnIndexDirectory();
     }
 
     @Override
@@ -68,8 +68,8 @@ import org.slf4j.LoggerFactory;
 class SingleFileIndexDirectory extends ColumnIndexDirectory {
   private static final Logger LOGGER = LoggerFactory.getLogger(SingleFileIndexDirectory.class);
 
-  private static final long MAGIC_MARKER = 0xdeadbeefdeafbeadL;
-  private static final int MAGIC_MARKER_SIZE_BYTES = 8;
+  static final long MAGIC_MARKER = 0xdeadbeefdeafbeadL;
+  static final int MAGIC_MARKER_SIZE_BYTES = 8;
   private static final String MAP_KEY_SEPARATOR = ".";
   private static final String MAP_KEY_NAME_START_OFFSET = "startOffset";
   private static final String MAP_KEY_NAME_SIZE = "size";
@@ -213,7 +213,17 @@ class SingleFileIndexDirectory extends ColumnIndexDirectory {
 
   private void loadMap()
       throws ConfigurationException {
-    File mapFile = new File(_segmentDirectory, V1Constants.INDEX_MAP_FILE_NAME);
+    _columnEntries.putAll(loadIndexMap(_segmentDirectory));
+  }
+
+  /**
+   * Reads the index map of the given V3 segment directory, i.e. the start offset and size of each index within the
+   * index file.
+   */
+  static Map<IndexKey, IndexEntry> loadIndexMap(File segmentDirectory)
+      throws ConfigurationException {
+    File mapFile = new File(segmentDirectory, V1Constants.INDEX_MAP_FILE_NAME);
+    Map<IndexKey, IndexEntry> columnEntries = new HashMap<>();
 
     PropertiesConfiguration mapConfig = CommonsConfigurationUtils.fromFile(mapFile);
 
@@ -223,19 +233,19 @@ class SingleFileIndexDirectory extends ColumnIndexDirectory {
       // or, "column.name.dictionary.endOffset" where column.name is the key
       int lastSeparatorPos = key.lastIndexOf(MAP_KEY_SEPARATOR);
       Preconditions
-          .checkState(lastSeparatorPos != -1, "Key separator not found: " + key + ", segment: " + _segmentDirectory);
+          .checkState(lastSeparatorPos != -1, "Key separator not found: " + key + ", segment: " + segmentDirectory);
       String propertyName = key.substring(lastSeparatorPos + 1);
 
       int indexSeparatorPos = key.lastIndexOf(MAP_KEY_SEPARATOR, lastSeparatorPos - 1);
       Preconditions.checkState(indexSeparatorPos != -1,
-          "Index separator not found: " + key + " , segment: " + _segmentDirectory);
+          "Index separator not found: " + key + " , segment: " + segmentDirectory);
       String indexName = key.substring(indexSeparatorPos + 1, lastSeparatorPos);
       String columnName = key.substring(0, indexSeparatorPos);
       IndexKey indexKey = new IndexKey(columnName, ColumnIndexType.getValue(indexName));
-      IndexEntry entry = _columnEntries.get(indexKey);
+      IndexEntry entry = columnEntries.get(indexKey);
       if (entry == null) {
         entry = new IndexEntry(indexKey);
-        _columnEntries.put(indexKey, entry);
+        columnEntries.put(indexKey, entry);
       }
 
       if (propertyName.equals(MAP_KEY_NAME_START_OFFSET)) {
@@ -244,19 +254,20 @@ class SingleFileIndexDirectory extends ColumnIndexDirectory {
         entry._size = mapConfig.getLong(key);
       } else {
         throw new ConfigurationException(
-            "Invalid map file key: " + key + ", segmentDirectory: " + _segmentDirectory.toString());
+            "Invalid map file key: " + key + ", segmentDirectory: " + segmentDirectory.toString());
       }
     }
 
     // validation
-    for (Map.Entry<IndexKey, IndexEntry> colIndexEntry : _columnEntries.entrySet()) {
+    for (Map.Entry<IndexKey, IndexEntry> colIndexEntry : columnEntries.entrySet()) {
       IndexEntry entry = colIndexEntry.getValue();
       if (entry._size < 0 || entry._startOffset < 0) {
         throw new ConfigurationException(
-            "Invalid map entry for key: " + colIndexEntry.getKey().toString() + ", segment: " + _segmentDirectory
+            "Invalid map entry for key: " + colIndexEntry.getKey().toString() + ", segment: " + segmentDirectory
                 .toString());
       }
     }
+    return columnEntries;
   }
 
   private void mapBufferEntries()
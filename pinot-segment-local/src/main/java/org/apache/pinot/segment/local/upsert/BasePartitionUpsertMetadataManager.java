@@ -20,6 +20,7 @@ package org.apache.pinot.segment.local.upsert;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
@@ -27,8 +28,11 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.FileUtils;
 import org.apache.pinot.common.metrics.ServerGauge;
 import org.apache.pinot.common.metrics.ServerMeter;
 import org.apache.pinot.common.metrics.ServerMetrics;
@@ -63,12 +67,30 @@ public abstract class BasePartitionUpsertMetadataManager implements PartitionUps
 
   protected volatile boolean _closed = false;
 
+  // Snapshot of the primary key to record location map persisted when closing the metadata manager, which is loaded
+  // when the server restarts to add the immutable segments without reading their primary keys
+  private final File _metadataSnapshotFile;
+  private final ReadWriteLock _metadataSnapshotLock = new ReentrantReadWriteLock();
+  private UpsertMetadataSnapshot _metadataSnapshot;
+
   protected long _lastOutOfOrderEventReportTimeNs = Long.MIN_VALUE;
   protected int _numOutOfOrderEvents = 0;
 
   protected BasePartitionUpsertMetadataManager(String tableNameWithType, int partitionId,
       List<String> primaryKeyColumns, String comparisonColumn, HashFunction hashFunction,
       @Nullable PartialUpsertHandler partialUpsertHandler, boolean enableSnapshot, ServerMetrics serverMetrics) {
+    this(tableNameWithType, partitionId, primaryKeyColumns, comparisonColumn, hashFunction, partialUpsertHandler,
+        enableSnapshot, serverMetrics, null);
+  }
+
+  /**
+   * When the table index dir is provided, the upsert metadata snapshot of the partition is persisted under the dir
+   * when the metadata manager is closed (if snapshot is enabled), and loaded when the metadata manager is created.
+   */
+  protected BasePartitionUpsertMetadataManager(String tableNameWithType, int partitionId,
+      List<String> primaryKeyColumns, String comparisonColumn, HashFunction hashFunction,
+      @Nullable PartialUpsertHandler partialUpsertHandler, boolean enableSnapshot, ServerMetrics serverMetrics,
+      @Nullable File tableIndexDir) {
     _tableNameWithType = tableNameWithType;
     _partitionId = partitionId;
     _primaryKeyColumns = primaryKeyColumns;
@@ -78,6 +100,38 @@ public abstract class BasePartitionUpsertMetadataManager implements PartitionUps
     _enableSnapshot = enableSnapshot;
     _serverMetrics = serverMetrics;
     _logger = LoggerFactory.getLogger(tableNameWithType + "-" + partitionId + "-" + getClass().getSimpleName());
+    _metadataSnapshotFile =
+        tableIndexDir != null ? UpsertMetadataSnapshot.getSnapshotFile(tableIndexDir, partitionId) : null;
+    if (_metadataSnapshotFile != null && _metadataSnapshotFile.exists()) {
+      if (enableSnapshot) {
+        loadMetadataSnapshot();
+      } else {
+        FileUtils.deleteQuietly(_metadataSnapshotFile);
+      }
+    }
+  }
+
+  private void loadMetadataSnapshot() {
+    try {
+      _metadataSnapshot = UpsertMetadataSnapshot.load(_metadataSnapshotFile, getMetadataSnapshotKeyFormat());
+      if (_metadataSnapshot != null) {
+        _logger.info("Loaded upsert metadata snapshot with {} segments", _metadataSnapshot.getNumSegments());
+      } else {
+        _logger.info("Skip loading upsert metadata snapshot with different key format");
+      }
+    } catch (Exception e) {
+      _logger.warn("Caught exception while loading upsert metadata snapshot: {}, deleting it", _metadataSnapshotFile,
+          e);
+      FileUtils.deleteQuietly(_metadataSnapshotFile);
+    }
+  }
+
+  /**
+   * Identifies how the keys and the comparison values are encoded in the upsert metadata snapshot, so that a snapshot
+   * persisted with another metadata manager implementation or hash function is not loaded.
+   */
+  private String getMetadataSnapshotKeyFormat() {
+    return getClass().getName() + ":" + _hashFunction;
   }
 
   @Override
@@ -100,6 +154,10 @@ public abstract class BasePartitionUpsertMetadataManager implements PartitionUps
         _tableNameWithType);
 
     ImmutableSegmentImpl immutableSegmentImpl = (ImmutableSegmentImpl) segment;
+    if (tryAddSegmentFromMetadataSnapshot(immutableSegmentImpl)) {
+      return;
+    }
+
     MutableRoaringBitmap validDocIds;
     if (_enableSnapshot) {
       validDocIds = immutableSegmentImpl.loadValidDocIdsFromSnapshot();
@@ -156,8 +214,66 @@ public abstract class BasePartitionUpsertMetadataManager implements PartitionUps
     }
   }
 
+  /**
+   * Adds the segment with the records from the upsert metadata snapshot if the snapshot contains the segment, and
+   * returns whether the segment is added.
+   */
+  private boolean tryAddSegmentFromMetadataSnapshot(ImmutableSegmentImpl segment) {
+    String segmentName = segment.getSegmentName();
+    _metadataSnapshotLock.readLock().lock();
+    try {
+      if (_metadataSnapshot == null) {
+        return false;
+      }
+      UpsertMetadataSnapshot.SegmentRecords segmentRecords =
+          _metadataSnapshot.getSegmentRecords(segmentName, segment.getSegmentMetadata().getCrc());
+      if (segmentRecords == null) {
+        return false;
+      }
+      Lock segmentLock = SegmentLocks.getSegmentLock(_tableNameWithType, segmentName);
+      segmentLock.lock();
+      try {
+        addSegmentFromMetadataSnapshot(segment, new ThreadSafeMutableRoaringBitmap(), _metadataSnapshot,
+            segmentRecords);
+      } finally {
+        segmentLock.unlock();
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(
+          String.format("Caught exception while adding segment: %s from upsert metadata snapshot, table: %s",
+              segmentName, _tableNameWithType), e);
+    } finally {
+      _metadataSnapshotLock.readLock().unlock();
+    }
+
+    // Update metrics
+    long numPrimaryKeys = getNumPrimaryKeys();
+    _serverMetrics.setValueOfPartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_PRIMARY_KEYS_COUNT,
+        numPrimaryKeys);
+
+    _logger.info("Finished adding segment: {} from upsert metadata snapshot, current primary key count: {}",
+        segmentName, numPrimaryKeys);
+    return true;
+  }
+
   protected abstract long getNumPrimaryKeys();
 
+  /**
+   * Adds the records of an immutable segment restored from the upsert metadata snapshot. The records should be
+   * resolved against the existing record locations in the same way as {@link #addOrReplaceSegment} without an old
+   * segment, but the keys are already encoded as stored in the snapshot.
+   */
+  protected abstract void addSegmentFromMetadataSnapshot(ImmutableSegmentImpl segment,
+      ThreadSafeMutableRoaringBitmap validDocIds, UpsertMetadataSnapshot metadataSnapshot,
+      UpsertMetadataSnapshot.SegmentRecords segmentRecords);
+
+  /**
+   * Writes the record locations of the immutable segments into the upsert metadata snapshot, grouped by segment. The
+   * records in mutable segments are not persisted because they are re-ingested from the stream after restart.
+   */
+  protected abstract void writeMetadataSnapshot(UpsertMetadataSnapshot.Writer writer)
+      throws IOException;
+
   protected abstract void addOrReplaceSegment(ImmutableSegmentImpl segment, ThreadSafeMutableRoaringBitmap validDocIds,
       Iterator<RecordInfo> recordInfoIterator, @Nullable IndexSegment oldSegment,
       @Nullable MutableRoaringBitmap validDocIdsForOldSegment);
@@ -309,6 +425,37 @@ public abstract class BasePartitionUpsertMetadataManager implements PartitionUps
   public void close()
       throws IOException {
     _logger.info("Closing the metadata manager, current primary key count: {}", getNumPrimaryKeys());
+    if (_enableSnapshot && _metadataSnapshotFile != null) {
+      persistMetadataSnapshot();
+    }
     _closed = true;
   }
+
+  private void persistMetadataSnapshot() {
+    _metadataSnapshotLock.writeLock().lock();
+    try {
+      if (_metadataSnapshot != null) {
+        _metadataSnapshot.close();
+        _metadataSnapshot = null;
+      }
+      long startTimeMs = System.currentTimeMillis();
+      UpsertMetadataSnapshot.Writer writer =
+          new UpsertMetadataSnapshot.Writer(_metadataSnapshotFile, getMetadataSnapshotKeyFormat());
+      try {
+        writeMetadataSnapshot(writer);
+      } catch (Exception e) {
+        writer.abort();
+        throw e;
+      }
+      writer.close();
+      _logger.info("Persisted upsert metadata snapshot in {}ms", System.currentTimeMillis() - startTimeMs);
+    } catch (Exception e) {
+      // Do not leave a stale snapshot behind
+      _logger.warn("Caught exception while persisting upsert metadata snapshot: {}, deleting it",
+          _metadataSnapshotFile, e);
+      FileUtils.deleteQuietly(_metadataSnapshotFile);
+    } finally {
+      _metadataSnapshotLock.writeLock().unlock();
+    }
+  }
 }
@@ -19,6 +19,7 @@
 package org.apache.pinot.segment.local.upsert;
 
 import com.google.common.base.Preconditions;
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.concurrent.ThreadSafe;
@@ -40,6 +41,7 @@ public abstract class BaseTableUpsertMetadataManager implements TableUpsertMetad
   protected PartialUpsertHandler _partialUpsertHandler;
   protected boolean _enableSnapshot;
   protected ServerMetrics _serverMetrics;
+  protected File _tableIndexDir;
 
   @Override
   public void init(TableConfig tableConfig, Schema schema, TableDataManager tableDataManager,
@@ -73,6 +75,9 @@ public abstract class BaseTableUpsertMetadataManager implements TableUpsertMetad
     _enableSnapshot = upsertConfig.isEnableSnapshot();
 
     _serverMetrics = serverMetrics;
+
+    // Used to persist and load the upsert metadata snapshot
+    _tableIndexDir = tableDataManager.getTableDataDir();
   }
 
   @Override
@@ -19,8 +19,13 @@
 package org.apache.pinot.segment.local.upsert;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -63,6 +68,14 @@ public class ConcurrentMapPartitionUpsertMetadataManager extends BasePartitionUp
         enableSnapshot, serverMetrics);
   }
 
+  public ConcurrentMapPartitionUpsertMetadataManager(String tableNameWithType, int partitionId,
+      List<String> primaryKeyColumns, String comparisonColumn, HashFunction hashFunction,
+      @Nullable PartialUpsertHandler partialUpsertHandler, boolean enableSnapshot, ServerMetrics serverMetrics,
+      @Nullable File tableIndexDir) {
+    super(tableNameWithType, partitionId, primaryKeyColumns, comparisonColumn, hashFunction, partialUpsertHandler,
+        enableSnapshot, serverMetrics, tableIndexDir);
+  }
+
   @Override
   protected long getNumPrimaryKeys() {
     return _primaryKeyColumns.size();
@@ -78,85 +91,128 @@ public class ConcurrentMapPartitionUpsertMetadataManager extends BasePartitionUp
     AtomicInteger numKeysInWrongSegment = new AtomicInteger();
     while (recordInfoIterator.hasNext()) {
       RecordInfo recordInfo = recordInfoIterator.next();
-      _primaryKeyToRecordLocationMap.compute(HashUtils.hashPrimaryKey(recordInfo.getPrimaryKey(), _hashFunction),
-          (primaryKey, currentRecordLocation) -> {
-            if (currentRecordLocation != null) {
-              // Existing primary key
-              IndexSegment currentSegment = currentRecordLocation.getSegment();
-              int comparisonResult =
-                  recordInfo.getComparisonValue().compareTo(currentRecordLocation.getComparisonValue());
+      addOrReplaceRecord(segment, validDocIds, HashUtils.hashPrimaryKey(recordInfo.getPrimaryKey(), _hashFunction),
+          recordInfo.getDocId(), recordInfo.getComparisonValue(), oldSegment, validDocIdsForOldSegment,
+          numKeysInWrongSegment);
+    }
+    reportKeysInWrongSegment(segmentName, numKeysInWrongSegment.get());
+  }
 
-              // The current record is in the same segment
-              // Update the record location when there is a tie to keep the newer record. Note that the record info
-              // iterator will return records with incremental doc ids.
-              if (currentSegment == segment) {
-                if (comparisonResult >= 0) {
-                  validDocIds.replace(currentRecordLocation.getDocId(), recordInfo.getDocId());
-                  return new RecordLocation(segment, recordInfo.getDocId(), recordInfo.getComparisonValue());
-                } else {
-                  return currentRecordLocation;
-                }
-              }
+  @Override
+  protected void addSegmentFromMetadataSnapshot(ImmutableSegmentImpl segment,
+      ThreadSafeMutableRoaringBitmap validDocIds, UpsertMetadataSnapshot metadataSnapshot,
+      UpsertMetadataSnapshot.SegmentRecords segmentRecords) {
+    segment.enableUpsert(this, validDocIds);
 
-              // The current record is in an old segment being replaced
-              // This could happen when committing a consuming segment, or reloading a completed segment. In this
-              // case, we want to update the record location when there is a tie because the record locations should
-              // point to the new added segment instead of the old segment being replaced. Also, do not update the valid
-              // doc ids for the old segment because it has not been replaced yet. We pass in an optional valid doc ids
-              // snapshot for the old segment, which can be updated and used to track the docs not replaced yet.
-              if (currentSegment == oldSegment) {
-                if (comparisonResult >= 0) {
-                  validDocIds.add(recordInfo.getDocId());
-                  if (validDocIdsForOldSegment != null) {
-                    validDocIdsForOldSegment.remove(currentRecordLocation.getDocId());
-                  }
-                  return new RecordLocation(segment, recordInfo.getDocId(), recordInfo.getComparisonValue());
-                } else {
-                  return currentRecordLocation;
-                }
-              }
+    AtomicInteger numKeysInWrongSegment = new AtomicInteger();
+    metadataSnapshot.forEachRecord(segmentRecords,
+        (primaryKey, docId, comparisonValue) -> addOrReplaceRecord(segment, validDocIds, primaryKey, docId,
+            comparisonValue, null, null, numKeysInWrongSegment));
+    reportKeysInWrongSegment(segment.getSegmentName(), numKeysInWrongSegment.get());
+  }
 
-              // This should not happen because the previously replaced segment should have all keys removed. We still
-              // handle it here, and also track the number of keys not properly replaced previously.
-              String currentSegmentName = currentSegment.getSegmentName();
-              if (currentSegmentName.equals(segmentName)) {
-                numKeysInWrongSegment.getAndIncrement();
-                if (comparisonResult >= 0) {
-                  validDocIds.add(recordInfo.getDocId());
-                  return new RecordLocation(segment, recordInfo.getDocId(), recordInfo.getComparisonValue());
-                } else {
-                  return currentRecordLocation;
-                }
-              }
+  private void addOrReplaceRecord(ImmutableSegmentImpl segment, ThreadSafeMutableRoaringBitmap validDocIds,
+      Object primaryKey, int docId, Comparable comparisonValue, @Nullable IndexSegment oldSegment,
+      @Nullable MutableRoaringBitmap validDocIdsForOldSegment, AtomicInteger numKeysInWrongSegment) {
+    String segmentName = segment.getSegmentName();
+    _primaryKeyToRecordLocationMap.compute(primaryKey, (pk, currentRecordLocation) -> {
+      if (currentRecordLocation != null) {
+        // Existing primary key
+        IndexSegment currentSegment = currentRecordLocation.getSegment();
+        int comparisonResult = comparisonValue.compareTo(currentRecordLocation.getComparisonValue());
 
-              // The current record is in a different segment
-              // Update the record location when getting a newer comparison value, or the value is the same as the
-              // current value, but the segment has a larger sequence number (the segment is newer than the current
-              // segment).
-              if (comparisonResult > 0 || (comparisonResult == 0 && LLCSegmentName.isLowLevelConsumerSegmentName(
-                  segmentName) && LLCSegmentName.isLowLevelConsumerSegmentName(currentSegmentName)
-                  && LLCSegmentName.getSequenceNumber(segmentName) > LLCSegmentName.getSequenceNumber(
-                  currentSegmentName))) {
-                Objects.requireNonNull(currentSegment.getValidDocIds()).remove(currentRecordLocation.getDocId());
-                validDocIds.add(recordInfo.getDocId());
-                return new RecordLocation(segment, recordInfo.getDocId(), recordInfo.getComparisonValue());
-              } else {
-                return currentRecordLocation;
-              }
-            } else {
-              // New primary key
-              validDocIds.add(recordInfo.getDocId());
-              return new RecordLocation(segment, recordInfo.getDocId(), recordInfo.getComparisonValue());
+        // The current record is in the same segment
+        // Update the record location when there is a tie to keep the newer record. Note that the record info
+        // iterator will return records with incremental doc ids.
+        if (currentSegment == segment) {
+          if (comparisonResult >= 0) {
+            validDocIds.replace(currentRecordLocation.getDocId(), docId);
+            return new RecordLocation(segment, docId, comparisonValue);
+          } else {
+            return currentRecordLocation;
+          }
+        }
+
+        // The current record is in an old segment being replaced
+        // This could happen when committing a consuming segment, or reloading a completed segment. In this
+        // case, we want to update the record location when there is a tie because the record locations should
+        // point to the new added segment instead of the old segment being replaced. Also, do not update the valid
+        // doc ids for the old segment because it has not been replaced yet. We pass in an optional valid doc ids
+        // snapshot for the old segment, which can be updated and used to track the docs not replaced yet.
+        if (currentSegment == oldSegment) {
+          if (comparisonResult >= 0) {
+            validDocIds.add(docId);
+            if (validDocIdsForOldSegment != null) {
+              validDocIdsForOldSegment.remove(currentRecordLocation.getDocId());
             }
-          });
-    }
-    int numKeys = numKeysInWrongSegment.get();
+            return new RecordLocation(segment, docId, comparisonValue);
+          } else {
+            return currentRecordLocation;
+          }
+        }
+
+        // This should not happen because the previously replaced segment should have all keys removed. We still
+        // handle it here, and also track the number of keys not properly replaced previously.
+        String currentSegmentName = currentSegment.getSegmentName();
+        if (currentSegmentName.equals(segmentName)) {
+          numKeysInWrongSegment.getAndIncrement();
+          if (comparisonResult >= 0) {
+            validDocIds.add(docId);
+            return new RecordLocation(segment, docId, comparisonValue);
+          } else {
+            return currentRecordLocation;
+          }
+        }
+
+        // The current record is in a different segment
+        // Update the record location when getting a newer comparison value, or the value is the same as the
+        // current value, but the segment has a larger sequence number (the segment is newer than the current
+        // segment).
+        if (comparisonResult > 0 || (comparisonResult == 0 && LLCSegmentName.isLowLevelConsumerSegmentName(
+            segmentName) && LLCSegmentName.isLowLevelConsumerSegmentName(currentSegmentName)
+            && LLCSegmentName.getSequenceNumber(segmentName) > LLCSegmentName.getSequenceNumber(
+            currentSegmentName))) {
+          Objects.requireNonNull(currentSegment.getValidDocIds()).remove(currentRecordLocation.getDocId());
+          validDocIds.add(docId);
+          return new RecordLocation(segment, docId, comparisonValue);
+        } else {
+          return currentRecordLocation;
+        }
+      } else {
+        // New primary key
+        validDocIds.add(docId);
+        return new RecordLocation(segment, docId, comparisonValue);
+      }
+    });
+  }
+
+  private void reportKeysInWrongSegment(String segmentName, int numKeys) {
     if (numKeys > 0) {
       _logger.warn("Found {} primary keys in the wrong segment when adding segment: {}", numKeys, segmentName);
       _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.UPSERT_KEYS_IN_WRONG_SEGMENT, numKeys);
     }
   }
 
+  @Override
+  protected void writeMetadataSnapshot(UpsertMetadataSnapshot.Writer writer)
+      throws IOException {
+    Map<IndexSegment, List<Map.Entry<Object, RecordLocation>>> segmentToRecordsMap = new IdentityHashMap<>();
+    for (Map.Entry<Object, RecordLocation> entry : _primaryKeyToRecordLocationMap.entrySet()) {
+      IndexSegment segment = entry.getValue().getSegment();
+      if (segment instanceof ImmutableSegmentImpl) {
+        segmentToRecordsMap.computeIfAbsent(segment, k -> new ArrayList<>()).add(entry);
+      }
+    }
+    for (Map.Entry<IndexSegment, List<Map.Entry<Object, RecordLocation>>> entry : segmentToRecordsMap.entrySet()) {
+      IndexSegment segment = entry.getKey();
+      writer.startSegment(segment.getSegmentName(), segment.getSegmentMetadata().getCrc());
+      for (Map.Entry<Object, RecordLocation> record : entry.getValue()) {
+        RecordLocation recordLocation = record.getValue();
+        writer.writeRecord(record.getKey(), recordLocation.getDocId(), recordLocation.getComparisonValue());
+      }
+    }
+  }
+
   @Override
   protected void removeSegment(IndexSegment segment, MutableRoaringBitmap validDocIds) {
     assert !validDocIds.isEmpty();
@@ -0,0 +1,493 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import com.google.common.annotations.VisibleForTesting;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.utils.LLCSegmentName;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentImpl;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.segment.spi.index.mutable.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.segment.spi.memory.PinotDataBufferMemoryManager;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Implementation of {@link PartitionUpsertMetadataManager} that keeps the primary key index off-heap.
+ *
+ * <p>Primary keys are hashed into 128 bits (with MD5 when configured, MURMUR3 otherwise), and mapped to the record
+ * location in an {@link OffHeapRecordLocationMap}: the segment is referenced by an ordinal, and the comparison value is
+ * encoded into an order-preserving long. This avoids keeping a key object and a record location object on heap for
+ * every primary key, which dominates the heap usage and the GC pressure of the servers hosting large upsert tables.
+ *
+ * <p>Only numeric comparison columns are supported. All the accesses to the record location map are serialized with a
+ * lock, which is held per record.
+ */
+@SuppressWarnings("rawtypes")
+@ThreadSafe
+public class OffHeapPartitionUpsertMetadataManager extends BasePartitionUpsertMetadataManager {
+  private final OffHeapRecordLocationMap _recordLocationMap;
+  private final Object _lock = new Object();
+
+  // Segments referenced by the record location map, indexed by ordinal. Ordinals are never reused so that a stale
+  // ordinal can never point to another segment, and the slot is set to null when the segment is released.
+  private final List<IndexSegment> _segments = new ArrayList<>();
+  private final Map<IndexSegment, Integer> _segmentOrdinalMap = new IdentityHashMap<>();
+
+  // Whether the comparison values are floating point numbers, only used to decode the values for logging
+  private volatile boolean _floatingPointComparison;
+
+  // Reused for reading previous record during partial upsert
+  private final GenericRow _reuse = new GenericRow();
+
+  public OffHeapPartitionUpsertMetadataManager(String tableNameWithType, int partitionId,
+      List<String> primaryKeyColumns, String comparisonColumn, HashFunction hashFunction,
+      @Nullable PartialUpsertHandler partialUpsertHandler, boolean enableSnapshot, ServerMetrics serverMetrics,
+      PinotDataBufferMemoryManager memoryManager, int initialCapacity) {
+    this(tableNameWithType, partitionId, primaryKeyColumns, comparisonColumn, hashFunction, partialUpsertHandler,
+        enableSnapshot, serverMetrics, null, memoryManager, initialCapacity);
+  }
+
+  public OffHeapPartitionUpsertMetadataManager(String tableNameWithType, int partitionId,
+      List<String> primaryKeyColumns, String comparisonColumn, HashFunction hashFunction,
+      @Nullable PartialUpsertHandler partialUpsertHandler, boolean enableSnapshot, ServerMetrics serverMetrics,
+      @Nullable File tableIndexDir, PinotDataBufferMemoryManager memoryManager, int initialCapacity) {
+    super(tableNameWithType, partitionId, primaryKeyColumns, comparisonColumn, hashFunction, partialUpsertHandler,
+        enableSnapshot, serverMetrics, tableIndexDir);
+    _recordLocationMap = new OffHeapRecordLocationMap(memoryManager,
+        tableNameWithType + "_" + partitionId + ".upsertRecordLocationMap", initialCapacity);
+  }
+
+  @Override
+  protected long getNumPrimaryKeys() {
+    synchronized (_lock) {
+      return _closed ? 0 : _recordLocationMap.size();
+    }
+  }
+
+  @Override
+  protected void addOrReplaceSegment(ImmutableSegmentImpl segment, ThreadSafeMutableRoaringBitmap validDocIds,
+      Iterator<RecordInfo> recordInfoIterator, @Nullable IndexSegment oldSegment,
+      @Nullable MutableRoaringBitmap validDocIdsForOldSegment) {
+    String segmentName = segment.getSegmentName();
+    segment.enableUpsert(this, validDocIds);
+
+    int numKeysInWrongSegment = 0;
+    long[] hashedKey = new long[2];
+    while (recordInfoIterator.hasNext()) {
+      RecordInfo recordInfo = recordInfoIterator.next();
+      hashPrimaryKey(recordInfo.getPrimaryKey(), hashedKey);
+      if (addOrReplaceRecord(segment, validDocIds, hashedKey, recordInfo.getDocId(),
+          encodeComparisonValue(recordInfo.getComparisonValue()), oldSegment, validDocIdsForOldSegment)) {
+        numKeysInWrongSegment++;
+      }
+    }
+    reportKeysInWrongSegment(segmentName, numKeysInWrongSegment);
+  }
+
+  @Override
+  protected void addSegmentFromMetadataSnapshot(ImmutableSegmentImpl segment,
+      ThreadSafeMutableRoaringBitmap validDocIds, UpsertMetadataSnapshot metadataSnapshot,
+      UpsertMetadataSnapshot.SegmentRecords segmentRecords) {
+    segment.enableUpsert(this, validDocIds);
+
+    int[] numKeysInWrongSegment = new int[1];
+    long[] hashedKey = new long[2];
+    metadataSnapshot.forEachRecord(segmentRecords, (key, docId, comparisonValue) -> {
+      ByteBuffer hash = ByteBuffer.wrap(((ByteArray) key).getBytes());
+      hashedKey[0] = hash.getLong();
+      hashedKey[1] = hash.getLong();
+      if (addOrReplaceRecord(segment, validDocIds, hashedKey, docId, encodeComparisonValue(comparisonValue), null,
+          null)) {
+        numKeysInWrongSegment[0]++;
+      }
+    });
+    reportKeysInWrongSegment(segment.getSegmentName(), numKeysInWrongSegment[0]);
+  }
+
+  /**
+   * Adds or replaces the record location of a primary key from an immutable segment, and returns whether the current
+   * record location is in a previously replaced segment with the same name (which should not happen).
+   */
+  private boolean addOrReplaceRecord(ImmutableSegmentImpl segment, ThreadSafeMutableRoaringBitmap validDocIds,
+      long[] hashedKey, int docId, long comparisonValue, @Nullable IndexSegment oldSegment,
+      @Nullable MutableRoaringBitmap validDocIdsForOldSegment) {
+    synchronized (_lock) {
+      if (_closed) {
+        return false;
+      }
+      int segmentOrdinal = getOrCreateSegmentOrdinal(segment);
+      int slot = getSlot(hashedKey);
+      if (slot == OffHeapRecordLocationMap.NOT_FOUND) {
+        // New primary key
+        validDocIds.add(docId);
+        _recordLocationMap.add(hashedKey[0], hashedKey[1], segmentOrdinal, docId, comparisonValue);
+        return false;
+      }
+
+      // Existing primary key
+      IndexSegment currentSegment = _segments.get(_recordLocationMap.getSegmentOrdinal(slot));
+      int currentDocId = _recordLocationMap.getDocId(slot);
+      int comparisonResult = Long.compare(comparisonValue, _recordLocationMap.getComparisonValue(slot));
+
+      // The current record is in the same segment
+      // Update the record location when there is a tie to keep the newer record. Note that the record info
+      // iterator will return records with incremental doc ids.
+      if (currentSegment == segment) {
+        if (comparisonResult >= 0) {
+          validDocIds.replace(currentDocId, docId);
+          _recordLocationMap.setLocation(slot, segmentOrdinal, docId, comparisonValue);
+        }
+        return false;
+      }
+
+      // The current record is in an old segment being replaced
+      // See ConcurrentMapPartitionUpsertMetadataManager for details.
+      if (currentSegment == oldSegment) {
+        if (comparisonResult >= 0) {
+          validDocIds.add(docId);
+          if (validDocIdsForOldSegment != null) {
+            validDocIdsForOldSegment.remove(currentDocId);
+          }
+          _recordLocationMap.setLocation(slot, segmentOrdinal, docId, comparisonValue);
+        }
+        return false;
+      }
+
+      // This should not happen because the previously replaced segment should have all keys removed. We still
+      // handle it here, and also track the number of keys not properly replaced previously.
+      String segmentName = segment.getSegmentName();
+      String currentSegmentName = currentSegment.getSegmentName();
+      if (currentSegmentName.equals(segmentName)) {
+        if (comparisonResult >= 0) {
+          validDocIds.add(docId);
+          _recordLocationMap.setLocation(slot, segmentOrdinal, docId, comparisonValue);
+        }
+        return true;
+      }
+
+      // The current record is in a different segment
+      // Update the record location when getting a newer comparison value, or the value is the same as the
+      // current value, but the segment has a larger sequence number (the segment is newer than the current
+      // segment).
+      if (comparisonResult > 0 || (comparisonResult == 0 && LLCSegmentName.isLowLevelConsumerSegmentName(segmentName)
+          && LLCSegmentName.isLowLevelConsumerSegmentName(currentSegmentName)
+          && LLCSegmentName.getSequenceNumber(segmentName) > LLCSegmentName.getSequenceNumber(currentSegmentName))) {
+        Objects.requireNonNull(currentSegment.getValidDocIds()).remove(currentDocId);
+        validDocIds.add(docId);
+        _recordLocationMap.setLocation(slot, segmentOrdinal, docId, comparisonValue);
+      }
+      return false;
+    }
+  }
+
+  private void reportKeysInWrongSegment(String segmentName, int numKeys) {
+    if (numKeys > 0) {
+      _logger.warn("Found {} primary keys in the wrong segment when adding segment: {}", numKeys, segmentName);
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.UPSERT_KEYS_IN_WRONG_SEGMENT, numKeys);
+    }
+  }
+
+  @Override
+  protected void writeMetadataSnapshot(UpsertMetadataSnapshot.Writer writer)
+      throws IOException {
+    synchronized (_lock) {
+      if (_closed) {
+        return;
+      }
+      // Group the slots by segment ordinal
+      int numSegments = _segments.size();
+      IntArrayList[] slotsPerSegment = new IntArrayList[numSegments];
+      int capacity = _recordLocationMap.getCapacity();
+      for (int slot = 0; slot < capacity; slot++) {
+        if (_recordLocationMap.isOccupied(slot)) {
+          int segmentOrdinal = _recordLocationMap.getSegmentOrdinal(slot);
+          if (_segments.get(segmentOrdinal) instanceof ImmutableSegmentImpl) {
+            if (slotsPerSegment[segmentOrdinal] == null) {
+              slotsPerSegment[segmentOrdinal] = new IntArrayList();
+            }
+            slotsPerSegment[segmentOrdinal].add(slot);
+          }
+        }
+      }
+      ByteBuffer hash = ByteBuffer.allocate(2 * Long.BYTES);
+      for (int segmentOrdinal = 0; segmentOrdinal < numSegments; segmentOrdinal++) {
+        IntArrayList slots = slotsPerSegment[segmentOrdinal];
+        if (slots == null) {
+          continue;
+        }
+        IndexSegment segment = _segments.get(segmentOrdinal);
+        writer.startSegment(segment.getSegmentName(), segment.getSegmentMetadata().getCrc());
+        for (int i = 0; i < slots.size(); i++) {
+          int slot = slots.getInt(i);
+          hash.putLong(0, _recordLocationMap.getKeyHigh(slot));
+          hash.putLong(Long.BYTES, _recordLocationMap.getKeyLow(slot));
+          writer.writeRecord(new ByteArray(hash.array()), _recordLocationMap.getDocId(slot),
+              decodeComparisonValue(_recordLocationMap.getComparisonValue(slot)));
+        }
+      }
+    }
+  }
+
+  @Override
+  public void replaceSegment(ImmutableSegment segment, @Nullable ThreadSafeMutableRoaringBitmap validDocIds,
+      @Nullable Iterator<RecordInfo> recordInfoIterator, IndexSegment oldSegment) {
+    super.replaceSegment(segment, validDocIds, recordInfoIterator, oldSegment);
+    // All the primary keys of the old segment are either replaced or removed at this point
+    releaseSegmentOrdinal(oldSegment);
+  }
+
+  @Override
+  protected void removeSegment(IndexSegment segment, MutableRoaringBitmap validDocIds) {
+    assert !validDocIds.isEmpty();
+    PrimaryKey primaryKey = new PrimaryKey(new Object[_primaryKeyColumns.size()]);
+    long[] hashedKey = new long[2];
+    PeekableIntIterator iterator = validDocIds.getIntIterator();
+    try (
+        UpsertUtils.PrimaryKeyReader primaryKeyReader = new UpsertUtils.PrimaryKeyReader(segment, _primaryKeyColumns)) {
+      while (iterator.hasNext()) {
+        primaryKeyReader.getPrimaryKey(iterator.next(), primaryKey);
+        hashPrimaryKey(primaryKey, hashedKey);
+        synchronized (_lock) {
+          if (_closed) {
+            return;
+          }
+          int slot = getSlot(hashedKey);
+          if (slot != OffHeapRecordLocationMap.NOT_FOUND
+              && _segments.get(_recordLocationMap.getSegmentOrdinal(slot)) == segment) {
+            _recordLocationMap.remove(slot);
+          }
+        }
+      }
+    } catch (Exception e) {
+      throw new RuntimeException(
+          String.format("Caught exception while removing segment: %s, table: %s", segment.getSegmentName(),
+              _tableNameWithType), e);
+    }
+  }
+
+  @Override
+  public void removeSegment(IndexSegment segment) {
+    super.removeSegment(segment);
+    releaseSegmentOrdinal(segment);
+  }
+
+  @Override
+  public void addRecord(MutableSegment segment, RecordInfo recordInfo) {
+    ThreadSafeMutableRoaringBitmap validDocIds = Objects.requireNonNull(segment.getValidDocIds());
+    long[] hashedKey = new long[2];
+    hashPrimaryKey(recordInfo.getPrimaryKey(), hashedKey);
+    int docId = recordInfo.getDocId();
+    long comparisonValue = encodeComparisonValue(recordInfo.getComparisonValue());
+    int numPrimaryKeys;
+    synchronized (_lock) {
+      if (_closed) {
+        return;
+      }
+      int segmentOrdinal = getOrCreateSegmentOrdinal(segment);
+      int slot = getSlot(hashedKey);
+      if (slot != OffHeapRecordLocationMap.NOT_FOUND) {
+        // Existing primary key
+
+        // Update the record location when the new comparison value is greater than or equal to the current value.
+        // Update the record location when there is a tie to keep the newer record.
+        if (comparisonValue >= _recordLocationMap.getComparisonValue(slot)) {
+          IndexSegment currentSegment = _segments.get(_recordLocationMap.getSegmentOrdinal(slot));
+          int currentDocId = _recordLocationMap.getDocId(slot);
+          if (segment == currentSegment) {
+            validDocIds.replace(currentDocId, docId);
+          } else {
+            Objects.requireNonNull(currentSegment.getValidDocIds()).remove(currentDocId);
+            validDocIds.add(docId);
+          }
+          _recordLocationMap.setLocation(slot, segmentOrdinal, docId, comparisonValue);
+        }
+      } else {
+        // New primary key
+        validDocIds.add(docId);
+        _recordLocationMap.add(hashedKey[0], hashedKey[1], segmentOrdinal, docId, comparisonValue);
+      }
+      numPrimaryKeys = _recordLocationMap.size();
+    }
+
+    // Update metrics
+    _serverMetrics.setValueOfPartitionGauge(_tableNameWithType, _partitionId, ServerGauge.UPSERT_PRIMARY_KEYS_COUNT,
+        numPrimaryKeys);
+  }
+
+  @Override
+  public GenericRow updateRecord(GenericRow record, RecordInfo recordInfo) {
+    // Directly return the record when partial-upsert is not enabled
+    if (_partialUpsertHandler == null) {
+      return record;
+    }
+
+    long[] hashedKey = new long[2];
+    hashPrimaryKey(recordInfo.getPrimaryKey(), hashedKey);
+    long comparisonValue = encodeComparisonValue(recordInfo.getComparisonValue());
+    GenericRow previousRecord;
+    long currentComparisonValue;
+    synchronized (_lock) {
+      if (_closed) {
+        return record;
+      }
+      int slot = getSlot(hashedKey);
+      if (slot == OffHeapRecordLocationMap.NOT_FOUND) {
+        // New primary key
+        return record;
+      }
+      currentComparisonValue = _recordLocationMap.getComparisonValue(slot);
+      if (comparisonValue >= currentComparisonValue) {
+        _reuse.clear();
+        previousRecord = _segments.get(_recordLocationMap.getSegmentOrdinal(slot))
+            .getRecord(_recordLocationMap.getDocId(slot), _reuse);
+      } else {
+        previousRecord = null;
+      }
+    }
+    // Existing primary key
+    if (previousRecord != null) {
+      return _partialUpsertHandler.merge(previousRecord, record);
+    } else {
+      handleOutOfOrderEvent(decodeComparisonValue(currentComparisonValue), recordInfo.getComparisonValue());
+      return record;
+    }
+  }
+
+  /**
+   * Returns the slot of the hashed primary key, or {@link OffHeapRecordLocationMap#NOT_FOUND} when the key does not
+   * exist or is located in a released segment. Should be called with the lock held.
+   */
+  private int getSlot(long[] hashedKey) {
+    int slot = _recordLocationMap.getSlot(hashedKey[0], hashedKey[1]);
+    if (slot != OffHeapRecordLocationMap.NOT_FOUND
+        && _segments.get(_recordLocationMap.getSegmentOrdinal(slot)) == null) {
+      // The segment has been released without removing all its primary keys, which should not happen. Drop the stale
+      // entry so that the key can be added again.
+      _recordLocationMap.remove(slot);
+      return OffHeapRecordLocationMap.NOT_FOUND;
+    }
+    return slot;
+  }
+
+  /**
+   * Should be called with the lock held.
+   */
+  private int getOrCreateSegmentOrdinal(IndexSegment segment) {
+    Integer segmentOrdinal = _segmentOrdinalMap.get(segment);
+    if (segmentOrdinal == null) {
+      segmentOrdinal = _segments.size();
+      _segments.add(segment);
+      _segmentOrdinalMap.put(segment, segmentOrdinal);
+    }
+    return segmentOrdinal;
+  }
+
+  private void releaseSegmentOrdinal(IndexSegment segment) {
+    synchronized (_lock) {
+      Integer segmentOrdinal = _segmentOrdinalMap.remove(segment);
+      if (segmentOrdinal != null) {
+        _segments.set(segmentOrdinal, null);
+      }
+    }
+  }
+
+  private void hashPrimaryKey(PrimaryKey primaryKey, long[] hashedKey) {
+    byte[] bytes = primaryKey.asBytes();
+    ByteBuffer hash =
+        ByteBuffer.wrap(_hashFunction == HashFunction.MD5 ? HashUtils.hashMD5(bytes) : HashUtils.hashMurmur3(bytes));
+    hashedKey[0] = hash.getLong();
+    hashedKey[1] = hash.getLong();
+  }
+
+  /**
+   * Encodes the comparison value into a long that preserves the order of the values.
+   */
+  private long encodeComparisonValue(Comparable comparisonValue) {
+    if (comparisonValue instanceof Integer || comparisonValue instanceof Long || comparisonValue instanceof Short
+        || comparisonValue instanceof Byte) {
+      return ((Number) comparisonValue).longValue();
+    }
+    if (comparisonValue instanceof Float || comparisonValue instanceof Double) {
+      _floatingPointComparison = true;
+      long bits = Double.doubleToLongBits(((Number) comparisonValue).doubleValue());
+      // Flip all the bits except the sign bit for negative values so that the longs are ordered as the doubles
+      return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+    throw new IllegalArgumentException(
+        String.format("Unsupported comparison value: %s of class: %s for table: %s", comparisonValue,
+            comparisonValue.getClass().getSimpleName(), _tableNameWithType));
+  }
+
+  private Comparable decodeComparisonValue(long encodedValue) {
+    if (_floatingPointComparison) {
+      return Double.longBitsToDouble(encodedValue ^ ((encodedValue >> 63) & Long.MAX_VALUE));
+    }
+    return encodedValue;
+  }
+
+  @VisibleForTesting
+  @Nullable
+  ConcurrentMapPartitionUpsertMetadataManager.RecordLocation getRecordLocation(PrimaryKey primaryKey) {
+    long[] hashedKey = new long[2];
+    hashPrimaryKey(primaryKey, hashedKey);
+    synchronized (_lock) {
+      int slot = getSlot(hashedKey);
+      if (slot == OffHeapRecordLocationMap.NOT_FOUND) {
+        return null;
+      }
+      return new ConcurrentMapPartitionUpsertMetadataManager.RecordLocation(
+          _segments.get(_recordLocationMap.getSegmentOrdinal(slot)), _recordLocationMap.getDocId(slot),
+          decodeComparisonValue(_recordLocationMap.getComparisonValue(slot)));
+    }
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    super.close();
+    synchronized (_lock) {
+      _recordLocationMap.close();
+      _segments.clear();
+      _segmentOrdinalMap.clear();
+    }
+  }
+}
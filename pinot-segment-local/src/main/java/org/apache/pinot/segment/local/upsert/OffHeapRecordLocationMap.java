@@ -0,0 +1,214 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.IOException;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.memory.PinotDataBufferMemoryManager;
+
+
+/**
+ * Off-heap open-addressing hash table from a 128-bit hashed primary key to the location of the record (segment
+ * ordinal, doc id and comparison value encoded as a long).
+ *
+ * <p>Each slot takes {@link #SLOT_SIZE} bytes: the 2 longs of the hashed key, the segment ordinal (stored as
+ * {@code ordinal + 1} so that 0 marks an empty slot), the doc id and the comparison value. Collisions are resolved
+ * with linear probing, and removals shift the following entries back instead of leaving tombstones, so the probe
+ * sequences stay short under heavy churn. The table doubles its capacity when the load factor exceeds
+ * {@link #MAX_LOAD_FACTOR}, and the buffer of the previous capacity is released right away.
+ */
+@NotThreadSafe
+class OffHeapRecordLocationMap implements Closeable {
+  static final int NOT_FOUND = -1;
+
+  private static final int SLOT_SIZE = 32;
+  private static final int KEY_HIGH_OFFSET = 0;
+  private static final int KEY_LOW_OFFSET = 8;
+  private static final int SEGMENT_ORDINAL_OFFSET = 16;
+  private static final int DOC_ID_OFFSET = 20;
+  private static final int COMPARISON_VALUE_OFFSET = 24;
+  private static final double MAX_LOAD_FACTOR = 0.7;
+  private static final int MIN_CAPACITY = 16;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private final PinotDataBufferMemoryManager _memoryManager;
+  private final String _allocationContext;
+
+  private PinotDataBuffer _buffer;
+  private int _capacity;
+  private int _mask;
+  private int _resizeThreshold;
+  private int _size;
+
+  OffHeapRecordLocationMap(PinotDataBufferMemoryManager memoryManager, String allocationContext,
+      int initialCapacity) {
+    _memoryManager = memoryManager;
+    _allocationContext = allocationContext;
+    int capacity = MIN_CAPACITY;
+    while (capacity < initialCapacity && capacity < MAX_CAPACITY) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  private void allocate(int capacity) {
+    _buffer = _memoryManager.allocate((long) capacity * SLOT_SIZE, _allocationContext);
+    for (int slot = 0; slot < capacity; slot++) {
+      _buffer.putInt(getOffset(slot) + SEGMENT_ORDINAL_OFFSET, 0);
+    }
+    _capacity = capacity;
+    _mask = capacity - 1;
+    _resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+  }
+
+  int size() {
+    return _size;
+  }
+
+  /**
+   * Returns the slot of the given hashed key, or {@link #NOT_FOUND}.
+   */
+  int getSlot(long keyHigh, long keyLow) {
+    int slot = getIdealSlot(keyHigh);
+    while (isOccupied(slot)) {
+      long offset = getOffset(slot);
+      if (_buffer.getLong(offset + KEY_HIGH_OFFSET) == keyHigh && _buffer.getLong(offset + KEY_LOW_OFFSET) == keyLow) {
+        return slot;
+      }
+      slot = (slot + 1) & _mask;
+    }
+    return NOT_FOUND;
+  }
+
+  int getCapacity() {
+    return _capacity;
+  }
+
+  boolean isOccupied(int slot) {
+    return _buffer.getInt(getOffset(slot) + SEGMENT_ORDINAL_OFFSET) != 0;
+  }
+
+  long getKeyHigh(int slot) {
+    return _buffer.getLong(getOffset(slot) + KEY_HIGH_OFFSET);
+  }
+
+  long getKeyLow(int slot) {
+    return _buffer.getLong(getOffset(slot) + KEY_LOW_OFFSET);
+  }
+
+  int getSegmentOrdinal(int slot) {
+    return _buffer.getInt(getOffset(slot) + SEGMENT_ORDINAL_OFFSET) - 1;
+  }
+
+  int getDocId(int slot) {
+    return _buffer.getInt(getOffset(slot) + DOC_ID_OFFSET);
+  }
+
+  long getComparisonValue(int slot) {
+    return _buffer.getLong(getOffset(slot) + COMPARISON_VALUE_OFFSET);
+  }
+
+  /**
+   * Updates the record location of an existing slot.
+   */
+  void setLocation(int slot, int segmentOrdinal, int docId, long comparisonValue) {
+    long offset = getOffset(slot);
+    _buffer.putInt(offset + SEGMENT_ORDINAL_OFFSET, segmentOrdinal + 1);
+    _buffer.putInt(offset + DOC_ID_OFFSET, docId);
+    _buffer.putLong(offset + COMPARISON_VALUE_OFFSET, comparisonValue);
+  }
+
+  /**
+   * Adds a hashed key that is not in the table yet.
+   */
+  void add(long keyHigh, long keyLow, int segmentOrdinal, int docId, long comparisonValue) {
+    if (_size >= _resizeThreshold) {
+      resize();
+    }
+    int slot = getIdealSlot(keyHigh);
+    while (isOccupied(slot)) {
+      slot = (slot + 1) & _mask;
+    }
+    long offset = getOffset(slot);
+    _buffer.putLong(offset + KEY_HIGH_OFFSET, keyHigh);
+    _buffer.putLong(offset + KEY_LOW_OFFSET, keyLow);
+    setLocation(slot, segmentOrdinal, docId, comparisonValue);
+    _size++;
+  }
+
+  /**
+   * Removes the entry of the given slot, and shifts back the following entries of the probe sequence to fill the hole.
+   */
+  void remove(int slot) {
+    int hole = slot;
+    int next = (hole + 1) & _mask;
+    while (isOccupied(next)) {
+      int idealSlot = getIdealSlot(_buffer.getLong(getOffset(next) + KEY_HIGH_OFFSET));
+      // The entry can be moved into the hole if its ideal slot is not cyclically within (hole, next]
+      if (((next - idealSlot) & _mask) >= ((next - hole) & _mask)) {
+        _buffer.copyTo(getOffset(next), _buffer, getOffset(hole), SLOT_SIZE);
+        hole = next;
+      }
+      next = (next + 1) & _mask;
+    }
+    _buffer.putInt(getOffset(hole) + SEGMENT_ORDINAL_OFFSET, 0);
+    _size--;
+  }
+
+  private void resize() {
+    Preconditions.checkState(_capacity < MAX_CAPACITY, "Cannot resize the record location map beyond: %s slots",
+        MAX_CAPACITY);
+    PinotDataBuffer oldBuffer = _buffer;
+    int oldCapacity = _capacity;
+    allocate(oldCapacity << 1);
+    for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+      long oldOffset = getOffset(oldSlot);
+      if (oldBuffer.getInt(oldOffset + SEGMENT_ORDINAL_OFFSET) != 0) {
+        int slot = getIdealSlot(oldBuffer.getLong(oldOffset + KEY_HIGH_OFFSET));
+        while (isOccupied(slot)) {
+          slot = (slot + 1) & _mask;
+        }
+        oldBuffer.copyTo(oldOffset, _buffer, getOffset(slot), SLOT_SIZE);
+      }
+    }
+    try {
+      oldBuffer.close();
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while releasing the record location map buffer", e);
+    }
+  }
+
+  private int getIdealSlot(long keyHigh) {
+    // The key is already a hash, so its bits are uniformly distributed
+    return (int) (keyHigh ^ (keyHigh >>> 32)) & _mask;
+  }
+
+  private static long getOffset(int slot) {
+    return (long) slot * SLOT_SIZE;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _buffer.close();
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.segment.local.data.manager.TableDataManager;
+import org.apache.pinot.segment.local.io.writer.impl.DirectMemoryManager;
+import org.apache.pinot.segment.spi.memory.PinotDataBufferMemoryManager;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+
+
+/**
+ * Implementation of {@link TableUpsertMetadataManager} that keeps the primary key index of each partition off-heap (see
+ * {@link OffHeapPartitionUpsertMetadataManager}). It can be enabled by setting the {@code metadataManagerClass} of the
+ * upsert config to this class, and the initial capacity of the per-partition index can be configured with the
+ * {@link #INITIAL_CAPACITY_KEY} metadata manager config.
+ */
+@ThreadSafe
+public class OffHeapTableUpsertMetadataManager extends BaseTableUpsertMetadataManager {
+  public static final String INITIAL_CAPACITY_KEY = "initialCapacity";
+  public static final int DEFAULT_INITIAL_CAPACITY = 1 << 16;
+
+  private final Map<Integer, OffHeapPartitionUpsertMetadataManager> _partitionMetadataManagerMap =
+      new ConcurrentHashMap<>();
+  private final Map<Integer, PinotDataBufferMemoryManager> _memoryManagerMap = new ConcurrentHashMap<>();
+  private int _initialCapacity;
+
+  @Override
+  public void init(TableConfig tableConfig, Schema schema, TableDataManager tableDataManager,
+      ServerMetrics serverMetrics) {
+    super.init(tableConfig, schema, tableDataManager, serverMetrics);
+
+    FieldSpec comparisonFieldSpec = schema.getFieldSpecFor(_comparisonColumn);
+    Preconditions.checkArgument(comparisonFieldSpec != null, "Failed to find comparison column: %s for table: %s",
+        _comparisonColumn, _tableNameWithType);
+    DataType storedType = comparisonFieldSpec.getDataType().getStoredType();
+    Preconditions.checkArgument(
+        storedType == DataType.INT || storedType == DataType.LONG || storedType == DataType.FLOAT
+            || storedType == DataType.DOUBLE,
+        "Off-heap upsert metadata manager only supports numeric comparison column, got: %s of type: %s for table: %s",
+        _comparisonColumn, storedType, _tableNameWithType);
+
+    Map<String, String> metadataManagerConfigs = tableConfig.getUpsertConfig().getMetadataManagerConfigs();
+    String initialCapacity = metadataManagerConfigs != null ? metadataManagerConfigs.get(INITIAL_CAPACITY_KEY) : null;
+    _initialCapacity = initialCapacity != null ? Integer.parseInt(initialCapacity) : DEFAULT_INITIAL_CAPACITY;
+  }
+
+  @Override
+  public OffHeapPartitionUpsertMetadataManager getOrCreatePartitionManager(int partitionId) {
+    return _partitionMetadataManagerMap.computeIfAbsent(partitionId, k -> {
+      PinotDataBufferMemoryManager memoryManager =
+          new DirectMemoryManager(_tableNameWithType + "_" + k + "_upsert");
+      _memoryManagerMap.put(k, memoryManager);
+      return new OffHeapPartitionUpsertMetadataManager(_tableNameWithType, k, _primaryKeyColumns, _comparisonColumn,
+          _hashFunction, _partialUpsertHandler, _enableSnapshot, _serverMetrics, _tableIndexDir, memoryManager,
+          _initialCapacity);
+    });
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    for (OffHeapPartitionUpsertMetadataManager partitionUpsertMetadataManager
+        : _partitionMetadataManagerMap.values()) {
+      partitionUpsertMetadataManager.close();
+    }
+    for (PinotDataBufferMemoryManager memoryManager : _memoryManagerMap.values()) {
+      memoryManager.close();
+    }
+  }
+}
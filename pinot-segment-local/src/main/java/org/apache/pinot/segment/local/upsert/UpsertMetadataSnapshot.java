@@ -0,0 +1,359 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.CountingOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.BigDecimalUtils;
+import org.apache.pinot.spi.utils.ByteArray;
+
+
+/**
+ * Snapshot of the primary key to record location map of a partition, which is persisted when the partition upsert
+ * metadata manager is closed, and memory mapped when the server restarts so that the immutable segments recorded in
+ * the snapshot can be added without reading their primary key and comparison columns.
+ *
+ * <p>File layout (big-endian):
+ * <ul>
+ *   <li>Header: magic number, version, key format (identifies how the keys are encoded, snapshots with a different key
+ *   format are ignored)</li>
+ *   <li>Records grouped by segment, each record as (key, doc id, comparison value)</li>
+ *   <li>Footer: number of segments, then (segment name, segment CRC, records offset, number of records) per
+ *   segment</li>
+ *   <li>Offset of the footer</li>
+ * </ul>
+ * Keys and comparison values are encoded with a one byte value type followed by the value.
+ */
+public class UpsertMetadataSnapshot implements Closeable {
+  public static final String SNAPSHOT_FILE_PREFIX = "upsert.metadata.snapshot.";
+
+  private static final int MAGIC_NUMBER = 0x5550534D;
+  private static final int VERSION = 1;
+
+  private static final byte INT = 0;
+  private static final byte LONG = 1;
+  private static final byte FLOAT = 2;
+  private static final byte DOUBLE = 3;
+  private static final byte STRING = 4;
+  private static final byte BYTES = 5;
+  private static final byte BIG_DECIMAL = 6;
+  private static final byte PRIMARY_KEY = 7;
+
+  private final PinotDataBuffer _dataBuffer;
+  private final Map<String, SegmentRecords> _segmentRecordsMap;
+
+  private UpsertMetadataSnapshot(PinotDataBuffer dataBuffer, Map<String, SegmentRecords> segmentRecordsMap) {
+    _dataBuffer = dataBuffer;
+    _segmentRecordsMap = segmentRecordsMap;
+  }
+
+  public static File getSnapshotFile(File tableIndexDir, int partitionId) {
+    return new File(tableIndexDir, SNAPSHOT_FILE_PREFIX + partitionId);
+  }
+
+  /**
+   * Memory maps the snapshot file, or returns {@code null} if the snapshot is encoded with a different key format.
+   */
+  @Nullable
+  public static UpsertMetadataSnapshot load(File snapshotFile, String keyFormat)
+      throws IOException {
+    PinotDataBuffer dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(snapshotFile);
+    try {
+      Reader reader = new Reader(dataBuffer, 0);
+      Preconditions.checkState(reader.readInt() == MAGIC_NUMBER, "Invalid magic number in upsert metadata snapshot: %s",
+          snapshotFile);
+      int version = reader.readInt();
+      Preconditions.checkState(version == VERSION, "Unsupported version: %s of upsert metadata snapshot: %s", version,
+          snapshotFile);
+      if (!reader.readString().equals(keyFormat)) {
+        dataBuffer.close();
+        return null;
+      }
+      reader._offset = dataBuffer.getLong(dataBuffer.size() - Long.BYTES);
+      int numSegments = reader.readInt();
+      Map<String, SegmentRecords> segmentRecordsMap = new HashMap<>(numSegments);
+      for (int i = 0; i < numSegments; i++) {
+        String segmentName = reader.readString();
+        String segmentCrc = reader.readString();
+        long recordsOffset = reader.readLong();
+        int numRecords = reader.readInt();
+        segmentRecordsMap.put(segmentName, new SegmentRecords(segmentCrc, recordsOffset, numRecords));
+      }
+      return new UpsertMetadataSnapshot(dataBuffer, segmentRecordsMap);
+    } catch (Exception e) {
+      dataBuffer.close();
+      throw e;
+    }
+  }
+
+  public int getNumSegments() {
+    return _segmentRecordsMap.size();
+  }
+
+  /**
+   * Returns the records of the given segment, or {@code null} if the segment is not in the snapshot, or has a
+   * different CRC (e.g. the segment has been re-downloaded or reloaded since the snapshot was taken).
+   */
+  @Nullable
+  public SegmentRecords getSegmentRecords(String segmentName, @Nullable String segmentCrc) {
+    SegmentRecords segmentRecords = _segmentRecordsMap.get(segmentName);
+    if (segmentRecords == null || !segmentRecords._segmentCrc.equals(Objects.toString(segmentCrc))) {
+      return null;
+    }
+    return segmentRecords;
+  }
+
+  /**
+   * Reads the records of a segment, and passes them to the given consumer in the order they were written.
+   */
+  public void forEachRecord(SegmentRecords segmentRecords, RecordConsumer recordConsumer) {
+    Reader reader = new Reader(_dataBuffer, segmentRecords._recordsOffset);
+    for (int i = 0; i < segmentRecords._numRecords; i++) {
+      Object key = reader.readValue();
+      int docId = reader.readInt();
+      Comparable comparisonValue = (Comparable) reader.readValue();
+      recordConsumer.accept(key, docId, comparisonValue);
+    }
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    _dataBuffer.close();
+  }
+
+  public interface RecordConsumer {
+    void accept(Object key, int docId, Comparable comparisonValue);
+  }
+
+  public static class SegmentRecords {
+    private final String _segmentCrc;
+    private final long _recordsOffset;
+    private final int _numRecords;
+
+    private SegmentRecords(String segmentCrc, long recordsOffset, int numRecords) {
+      _segmentCrc = segmentCrc;
+      _recordsOffset = recordsOffset;
+      _numRecords = numRecords;
+    }
+
+    public int getNumRecords() {
+      return _numRecords;
+    }
+  }
+
+  private static class Reader {
+    final PinotDataBuffer _dataBuffer;
+    long _offset;
+
+    Reader(PinotDataBuffer dataBuffer, long offset) {
+      _dataBuffer = dataBuffer;
+      _offset = offset;
+    }
+
+    int readInt() {
+      int value = _dataBuffer.getInt(_offset);
+      _offset += Integer.BYTES;
+      return value;
+    }
+
+    long readLong() {
+      long value = _dataBuffer.getLong(_offset);
+      _offset += Long.BYTES;
+      return value;
+    }
+
+    byte[] readBytes() {
+      byte[] bytes = new byte[readInt()];
+      _dataBuffer.copyTo(_offset, bytes);
+      _offset += bytes.length;
+      return bytes;
+    }
+
+    String readString() {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    Object readValue() {
+      byte valueType = _dataBuffer.getByte(_offset++);
+      switch (valueType) {
+        case INT:
+          return readInt();
+        case LONG:
+          return readLong();
+        case FLOAT:
+          return Float.intBitsToFloat(readInt());
+        case DOUBLE:
+          return Double.longBitsToDouble(readLong());
+        case STRING:
+          return readString();
+        case BYTES:
+          return new ByteArray(readBytes());
+        case BIG_DECIMAL:
+          return BigDecimalUtils.deserialize(readBytes());
+        case PRIMARY_KEY:
+          Object[] values = new Object[readInt()];
+          for (int i = 0; i < values.length; i++) {
+            values[i] = readValue();
+          }
+          return new PrimaryKey(values);
+        default:
+          throw new IllegalStateException("Unsupported value type: " + valueType + " in upsert metadata snapshot");
+      }
+    }
+  }
+
+  /**
+   * Writes the snapshot into a temporary file, which atomically replaces the snapshot file when the writer is closed.
+   * The records of each segment must be written right after starting the segment.
+   */
+  public static class Writer implements Closeable {
+    private final File _snapshotFile;
+    private final File _tmpFile;
+    private final CountingOutputStream _countingOutputStream;
+    private final DataOutputStream _dataOutputStream;
+    private final List<String> _segmentNames = new ArrayList<>();
+    private final List<String> _segmentCrcs = new ArrayList<>();
+    private final List<Long> _recordsOffsets = new ArrayList<>();
+    private final List<Integer> _numRecords = new ArrayList<>();
+
+    public Writer(File snapshotFile, String keyFormat)
+        throws IOException {
+      _snapshotFile = snapshotFile;
+      _tmpFile = new File(snapshotFile.getPath() + ".tmp");
+      _countingOutputStream = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(_tmpFile)));
+      _dataOutputStream = new DataOutputStream(_countingOutputStream);
+      _dataOutputStream.writeInt(MAGIC_NUMBER);
+      _dataOutputStream.writeInt(VERSION);
+      writeString(keyFormat);
+    }
+
+    public void startSegment(String segmentName, @Nullable String segmentCrc) {
+      _segmentNames.add(segmentName);
+      _segmentCrcs.add(Objects.toString(segmentCrc));
+      _recordsOffsets.add(_countingOutputStream.getCount());
+      _numRecords.add(0);
+    }
+
+    public void writeRecord(Object key, int docId, Comparable comparisonValue)
+        throws IOException {
+      writeValue(key);
+      _dataOutputStream.writeInt(docId);
+      writeValue(comparisonValue);
+      int lastSegmentId = _numRecords.size() - 1;
+      _numRecords.set(lastSegmentId, _numRecords.get(lastSegmentId) + 1);
+    }
+
+    private void writeBytes(byte[] bytes)
+        throws IOException {
+      _dataOutputStream.writeInt(bytes.length);
+      _dataOutputStream.write(bytes);
+    }
+
+    private void writeString(String value)
+        throws IOException {
+      writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeValue(Object value)
+        throws IOException {
+      if (value instanceof Integer) {
+        _dataOutputStream.writeByte(INT);
+        _dataOutputStream.writeInt((Integer) value);
+      } else if (value instanceof Long) {
+        _dataOutputStream.writeByte(LONG);
+        _dataOutputStream.writeLong((Long) value);
+      } else if (value instanceof Float) {
+        _dataOutputStream.writeByte(FLOAT);
+        _dataOutputStream.writeInt(Float.floatToRawIntBits((Float) value));
+      } else if (value instanceof Double) {
+        _dataOutputStream.writeByte(DOUBLE);
+        _dataOutputStream.writeLong(Double.doubleToRawLongBits((Double) value));
+      } else if (value instanceof String) {
+        _dataOutputStream.writeByte(STRING);
+        writeString((String) value);
+      } else if (value instanceof ByteArray) {
+        _dataOutputStream.writeByte(BYTES);
+        writeBytes(((ByteArray) value).getBytes());
+      } else if (value instanceof BigDecimal) {
+        _dataOutputStream.writeByte(BIG_DECIMAL);
+        writeBytes(BigDecimalUtils.serialize((BigDecimal) value));
+      } else if (value instanceof PrimaryKey) {
+        _dataOutputStream.writeByte(PRIMARY_KEY);
+        Object[] values = ((PrimaryKey) value).getValues();
+        _dataOutputStream.writeInt(values.length);
+        for (Object primaryKeyValue : values) {
+          writeValue(primaryKeyValue);
+        }
+      } else {
+        throw new IllegalStateException(
+            String.format("Unsupported value: %s of type: %s", value, value != null ? value.getClass() : null));
+      }
+    }
+
+    /**
+     * Discards the snapshot being written.
+     */
+    public void abort() {
+      try {
+        _dataOutputStream.close();
+      } catch (IOException e) {
+        // Ignored
+      }
+      FileUtils.deleteQuietly(_tmpFile);
+    }
+
+    @Override
+    public void close()
+        throws IOException {
+      long footerOffset = _countingOutputStream.getCount();
+      int numSegments = _segmentNames.size();
+      _dataOutputStream.writeInt(numSegments);
+      for (int i = 0; i < numSegments; i++) {
+        writeString(_segmentNames.get(i));
+        writeString(_segmentCrcs.get(i));
+        _dataOutputStream.writeLong(_recordsOffsets.get(i));
+        _dataOutputStream.writeInt(_numRecords.get(i));
+      }
+      _dataOutputStream.writeLong(footerOffset);
+      _dataOutputStream.close();
+      Files.move(_tmpFile.toPath(), _snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+}
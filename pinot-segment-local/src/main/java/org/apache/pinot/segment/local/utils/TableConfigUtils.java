@@ -882,6 +882,15 @@ public final class TableConfigUtils {
             schema);
       }
 
+      FieldConfig.CompressionCodec compressionCodec = fieldConfig.getCompressionCodec();
+      if (compressionCodec != null && compressionCodec.isIntegerEncoding()) {
+        DataType storedType = fieldConfigColSpec.getDataType().getStoredType();
+        Preconditions.checkState(
+            fieldConfigColSpec.isSingleValueField() && (storedType == DataType.INT || storedType == DataType.LONG),
+            "Compression codec: %s is only supported for single value INT/LONG columns. Invalid for column: %s",
+            compressionCodec, columnName);
+      }
+
       if (CollectionUtils.isNotEmpty(fieldConfig.getIndexTypes())) {
         for (FieldConfig.IndexType indexType : fieldConfig.getIndexTypes()) {
           switch (indexType) {
@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.indexsegment.mutable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.apache.pinot.common.metadata.segment.SegmentZKMetadata;
+import org.apache.pinot.segment.local.io.writer.impl.DirectMemoryManager;
+import org.apache.pinot.segment.local.realtime.impl.RealtimeSegmentConfig;
+import org.apache.pinot.segment.local.realtime.impl.RealtimeSegmentStatsHistory;
+import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.index.reader.InvertedIndexReader;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.stream.StreamMessageMetadata;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+
+public class MutableSegmentImplBatchIndexTest {
+  private static final int NUM_ROWS = 1000;
+  private static final int BATCH_SIZE = 64;
+  private static final String INT_COLUMN = "intColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final String MV_COLUMN = "mvColumn";
+  private static final String RAW_COLUMN = "rawColumn";
+  private static final String METRIC_COLUMN = "metricColumn";
+  private static final String SEGMENT_NAME = "testSegment__0__0__155555";
+
+  @Test
+  public void testBatchIndex()
+      throws Exception {
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addSingleValueDimension(INT_COLUMN, DataType.INT)
+        .addSingleValueDimension(STRING_COLUMN, DataType.STRING)
+        .addMultiValueDimension(MV_COLUMN, DataType.LONG)
+        .addSingleValueDimension(RAW_COLUMN, DataType.STRING)
+        .addMetric(METRIC_COLUMN, DataType.DOUBLE)
+        .build();
+    Set<String> noDictionaryColumns = Collections.singleton(RAW_COLUMN);
+    Set<String> invertedIndexColumns = new HashSet<>(Arrays.asList(INT_COLUMN, STRING_COLUMN, MV_COLUMN));
+    MutableSegmentImpl expectedSegment = MutableSegmentImplTestUtils
+        .createMutableSegmentImpl(schema, noDictionaryColumns, Collections.emptySet(), invertedIndexColumns, false);
+    MutableSegmentImpl actualSegment = MutableSegmentImplTestUtils
+        .createMutableSegmentImpl(schema, noDictionaryColumns, Collections.emptySet(), invertedIndexColumns, false);
+
+    StreamMessageMetadata metadata = new StreamMessageMetadata(System.currentTimeMillis(), new GenericRow());
+    Random random = new Random();
+    List<GenericRow> batch = new ArrayList<>(BATCH_SIZE);
+    try {
+      for (int i = 0; i < NUM_ROWS; i++) {
+        GenericRow row = new GenericRow();
+        row.putValue(INT_COLUMN, random.nextInt(100));
+        row.putValue(STRING_COLUMN, "value_" + random.nextInt(50));
+        int numValues = 1 + random.nextInt(3);
+        Object[] mvValues = new Object[numValues];
+        for (int j = 0; j < numValues; j++) {
+          mvValues[j] = (long) random.nextInt(20);
+        }
+        row.putValue(MV_COLUMN, mvValues);
+        row.putValue(RAW_COLUMN, "raw_" + i);
+        row.putValue(METRIC_COLUMN, random.nextDouble());
+        expectedSegment.index(row, metadata);
+        batch.add(row);
+        if (batch.size() == BATCH_SIZE) {
+          actualSegment.index(batch, metadata);
+          batch.clear();
+        }
+      }
+      actualSegment.index(batch, metadata);
+
+      assertEquals(actualSegment.getNumDocsIndexed(), NUM_ROWS);
+      assertEquals(actualSegment.getSegmentMetadata().getLatestIngestionTimestamp(),
+          expectedSegment.getSegmentMetadata().getLatestIngestionTimestamp());
+      GenericRow expectedRow = new GenericRow();
+      GenericRow actualRow = new GenericRow();
+      for (int docId = 0; docId < NUM_ROWS; docId++) {
+        expectedSegment.getRecord(docId, expectedRow);
+        actualSegment.getRecord(docId, actualRow);
+        assertEquals(actualRow, expectedRow);
+        expectedRow.clear();
+        actualRow.clear();
+      }
+
+      for (String column : schema.getPhysicalColumnNames()) {
+        DataSource expectedDataSource = expectedSegment.getDataSource(column);
+        DataSource actualDataSource = actualSegment.getDataSource(column);
+        assertEquals(actualDataSource.getDataSourceMetadata().getMinValue(),
+            expectedDataSource.getDataSourceMetadata().getMinValue());
+        assertEquals(actualDataSource.getDataSourceMetadata().getMaxValue(),
+            expectedDataSource.getDataSourceMetadata().getMaxValue());
+        assertEquals(actualDataSource.getDataSourceMetadata().getMaxNumValuesPerMVEntry(),
+            expectedDataSource.getDataSourceMetadata().getMaxNumValuesPerMVEntry());
+      }
+
+      // Rows are indexed in the same order, so the dictionaries and inverted indexes should be identical
+      for (String column : invertedIndexColumns) {
+        InvertedIndexReader<ImmutableRoaringBitmap> expectedInvertedIndex =
+            (InvertedIndexReader<ImmutableRoaringBitmap>) expectedSegment.getDataSource(column).getInvertedIndex();
+        InvertedIndexReader<ImmutableRoaringBitmap> actualInvertedIndex =
+            (InvertedIndexReader<ImmutableRoaringBitmap>) actualSegment.getDataSource(column).getInvertedIndex();
+        int cardinality = expectedSegment.getDataSource(column).getDictionary().length();
+        assertEquals(actualSegment.getDataSource(column).getDictionary().length(), cardinality);
+        for (int dictId = 0; dictId < cardinality; dictId++) {
+          assertEquals(actualInvertedIndex.getDocIds(dictId), expectedInvertedIndex.getDocIds(dictId));
+        }
+      }
+    } finally {
+      expectedSegment.destroy();
+      actualSegment.destroy();
+    }
+  }
+
+  @Test
+  public void testBatchLargerThanCapacity()
+      throws Exception {
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addSingleValueDimension(INT_COLUMN, DataType.INT)
+        .addMultiValueDimension(MV_COLUMN, DataType.LONG)
+        .build();
+    int capacity = 100;
+    RealtimeSegmentStatsHistory statsHistory = mock(RealtimeSegmentStatsHistory.class);
+    when(statsHistory.getEstimatedCardinality(anyString())).thenReturn(200);
+    when(statsHistory.getEstimatedAvgColSize(anyString())).thenReturn(32);
+    RealtimeSegmentConfig realtimeSegmentConfig =
+        new RealtimeSegmentConfig.Builder().setTableNameWithType("testTable_REALTIME").setSegmentName(SEGMENT_NAME)
+            .setStreamName("testStream").setSchema(schema).setCapacity(capacity).setAvgNumMultiValues(2)
+            .setNoDictionaryColumns(Collections.emptySet()).setVarLengthDictionaryColumns(Collections.emptySet())
+            .setInvertedIndexColumns(new HashSet<>(Arrays.asList(INT_COLUMN, MV_COLUMN)))
+            .setSegmentZKMetadata(new SegmentZKMetadata(SEGMENT_NAME))
+            .setMemoryManager(new DirectMemoryManager(SEGMENT_NAME)).setStatsHistory(statsHistory).build();
+    MutableSegmentImpl mutableSegment = new MutableSegmentImpl(realtimeSegmentConfig, null);
+
+    List<GenericRow> batch = new ArrayList<>(BATCH_SIZE);
+    try {
+      // First batch fits, second batch is partially indexed, third batch is rejected
+      int[] expectedNumRowsIndexed = {BATCH_SIZE, capacity - BATCH_SIZE, 0};
+      for (int batchId = 0; batchId < expectedNumRowsIndexed.length; batchId++) {
+        batch.clear();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+          int value = batchId * BATCH_SIZE + i;
+          GenericRow row = new GenericRow();
+          row.putValue(INT_COLUMN, value);
+          row.putValue(MV_COLUMN, new Object[]{(long) value, (long) value + 1});
+          batch.add(row);
+        }
+        assertEquals(mutableSegment.index(batch, null), expectedNumRowsIndexed[batchId]);
+        assertEquals(mutableSegment.getNumDocsIndexed(), Math.min((batchId + 1) * BATCH_SIZE, capacity));
+      }
+
+      GenericRow row = new GenericRow();
+      for (int docId = 0; docId < capacity; docId++) {
+        mutableSegment.getRecord(docId, row);
+        assertEquals(row.getValue(INT_COLUMN), docId);
+        assertEquals(row.getValue(MV_COLUMN), new Object[]{(long) docId, (long) docId + 1});
+        row.clear();
+      }
+
+      // Only the indexed rows are added into the dictionaries and the inverted indexes
+      DataSource intDataSource = mutableSegment.getDataSource(INT_COLUMN);
+      assertEquals(intDataSource.getDictionary().length(), capacity);
+      InvertedIndexReader<ImmutableRoaringBitmap> intInvertedIndex =
+          (InvertedIndexReader<ImmutableRoaringBitmap>) intDataSource.getInvertedIndex();
+      for (int dictId = 0; dictId < capacity; dictId++) {
+        int value = intDataSource.getDictionary().getIntValue(dictId);
+        assertEquals(intInvertedIndex.getDocIds(dictId).toArray(), new int[]{value});
+      }
+      DataSource mvDataSource = mutableSegment.getDataSource(MV_COLUMN);
+      assertEquals(mvDataSource.getDictionary().length(), capacity + 1);
+      InvertedIndexReader<ImmutableRoaringBitmap> mvInvertedIndex =
+          (InvertedIndexReader<ImmutableRoaringBitmap>) mvDataSource.getInvertedIndex();
+      for (int dictId = 0; dictId <= capacity; dictId++) {
+        int value = (int) mvDataSource.getDictionary().getLongValue(dictId);
+        int[] expectedDocIds;
+        if (value == 0) {
+          expectedDocIds = new int[]{0};
+        } else if (value == capacity) {
+          expectedDocIds = new int[]{capacity - 1};
+        } else {
+          expectedDocIds = new int[]{value - 1, value};
+        }
+        assertEquals(mvInvertedIndex.getDocIds(dictId).toArray(), expectedDocIds);
+      }
+    } finally {
+      mutableSegment.destroy();
+    }
+  }
+}
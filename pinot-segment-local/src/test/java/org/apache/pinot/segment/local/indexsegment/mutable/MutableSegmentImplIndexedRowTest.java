@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.indexsegment.mutable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.index.reader.InvertedIndexReader;
+import org.apache.pinot.segment.spi.index.reader.NullValueVectorReader;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
+import org.apache.pinot.spi.stream.StreamMessageMetadata;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+public class MutableSegmentImplIndexedRowTest {
+  private static final int NUM_ROWS = 1000;
+  private static final String INT_COLUMN = "intColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final String MV_COLUMN = "mvColumn";
+  private static final String RAW_INT_COLUMN = "rawIntColumn";
+  private static final String RAW_LONG_COLUMN = "rawLongColumn";
+  private static final String RAW_DOUBLE_COLUMN = "rawDoubleColumn";
+  private static final String RAW_STRING_COLUMN = "rawStringColumn";
+
+  @Test
+  public void testIndexedRowMatchesGenericRow()
+      throws Exception {
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addSingleValueDimension(INT_COLUMN, DataType.INT)
+        .addSingleValueDimension(STRING_COLUMN, DataType.STRING)
+        .addMultiValueDimension(MV_COLUMN, DataType.LONG)
+        .addSingleValueDimension(RAW_INT_COLUMN, DataType.INT)
+        .addSingleValueDimension(RAW_LONG_COLUMN, DataType.LONG)
+        .addSingleValueDimension(RAW_STRING_COLUMN, DataType.STRING)
+        .addMetric(RAW_DOUBLE_COLUMN, DataType.DOUBLE)
+        .build();
+    Set<String> noDictionaryColumns =
+        new HashSet<>(Arrays.asList(RAW_INT_COLUMN, RAW_LONG_COLUMN, RAW_DOUBLE_COLUMN, RAW_STRING_COLUMN));
+    Set<String> invertedIndexColumns = new HashSet<>(Arrays.asList(INT_COLUMN, STRING_COLUMN, MV_COLUMN));
+    MutableSegmentImpl expectedSegment = MutableSegmentImplTestUtils
+        .createMutableSegmentImpl(schema, noDictionaryColumns, Collections.emptySet(), invertedIndexColumns, false,
+            true);
+    MutableSegmentImpl actualSegment = MutableSegmentImplTestUtils
+        .createMutableSegmentImpl(schema, noDictionaryColumns, Collections.emptySet(), invertedIndexColumns, false,
+            true);
+
+    StreamMessageMetadata metadata = new StreamMessageMetadata(System.currentTimeMillis(), new GenericRow());
+    IndexedRow.Layout layout = new IndexedRow.Layout(schema);
+    IndexedRow indexedRow = new IndexedRow(layout);
+    Random random = new Random();
+    try {
+      for (int i = 0; i < NUM_ROWS; i++) {
+        GenericRow genericRow = new GenericRow();
+        indexedRow.clear();
+
+        int intValue = random.nextInt(100);
+        genericRow.putValue(INT_COLUMN, intValue);
+        indexedRow.putInt(layout.indexOf(INT_COLUMN), intValue);
+
+        String stringValue = "value_" + random.nextInt(50);
+        genericRow.putValue(STRING_COLUMN, stringValue);
+        indexedRow.putValue(layout.indexOf(STRING_COLUMN), stringValue);
+
+        Object[] mvValues = new Object[1 + random.nextInt(3)];
+        for (int j = 0; j < mvValues.length; j++) {
+          mvValues[j] = (long) random.nextInt(20);
+        }
+        genericRow.putValue(MV_COLUMN, mvValues);
+        indexedRow.putValue(layout.indexOf(MV_COLUMN), mvValues);
+
+        // Every tenth row has null raw values to cover the null value vectors
+        if (i % 10 == 0) {
+          genericRow.putDefaultNullValue(RAW_INT_COLUMN, Integer.MIN_VALUE);
+          indexedRow.putDefaultNullValue(layout.indexOf(RAW_INT_COLUMN), Integer.MIN_VALUE);
+          genericRow.putDefaultNullValue(RAW_LONG_COLUMN, Long.MIN_VALUE);
+          indexedRow.putDefaultNullValue(layout.indexOf(RAW_LONG_COLUMN), Long.MIN_VALUE);
+          genericRow.putDefaultNullValue(RAW_DOUBLE_COLUMN, 0.0);
+          indexedRow.putDefaultNullValue(layout.indexOf(RAW_DOUBLE_COLUMN), 0.0);
+        } else {
+          int rawIntValue = random.nextInt();
+          genericRow.putValue(RAW_INT_COLUMN, rawIntValue);
+          indexedRow.putInt(layout.indexOf(RAW_INT_COLUMN), rawIntValue);
+          long rawLongValue = random.nextLong();
+          genericRow.putValue(RAW_LONG_COLUMN, rawLongValue);
+          indexedRow.putLong(layout.indexOf(RAW_LONG_COLUMN), rawLongValue);
+          double rawDoubleValue = random.nextDouble();
+          genericRow.putValue(RAW_DOUBLE_COLUMN, rawDoubleValue);
+          indexedRow.putDouble(layout.indexOf(RAW_DOUBLE_COLUMN), rawDoubleValue);
+        }
+
+        String rawStringValue = "raw_" + i;
+        genericRow.putValue(RAW_STRING_COLUMN, rawStringValue);
+        indexedRow.putValue(layout.indexOf(RAW_STRING_COLUMN), rawStringValue);
+
+        assertTrue(expectedSegment.index(genericRow, metadata));
+        assertTrue(actualSegment.index(indexedRow, metadata));
+      }
+
+      assertEquals(actualSegment.getNumDocsIndexed(), NUM_ROWS);
+      assertEquals(actualSegment.getSegmentMetadata().getLatestIngestionTimestamp(),
+          expectedSegment.getSegmentMetadata().getLatestIngestionTimestamp());
+      GenericRow expectedRow = new GenericRow();
+      GenericRow actualRow = new GenericRow();
+      for (int docId = 0; docId < NUM_ROWS; docId++) {
+        expectedSegment.getRecord(docId, expectedRow);
+        actualSegment.getRecord(docId, actualRow);
+        assertEquals(actualRow, expectedRow);
+        expectedRow.clear();
+        actualRow.clear();
+      }
+
+      for (String column : schema.getPhysicalColumnNames()) {
+        DataSource expectedDataSource = expectedSegment.getDataSource(column);
+        DataSource actualDataSource = actualSegment.getDataSource(column);
+        assertEquals(actualDataSource.getDataSourceMetadata().getMinValue(),
+            expectedDataSource.getDataSourceMetadata().getMinValue());
+        assertEquals(actualDataSource.getDataSourceMetadata().getMaxValue(),
+            expectedDataSource.getDataSourceMetadata().getMaxValue());
+        assertEquals(actualDataSource.getDataSourceMetadata().getMaxNumValuesPerMVEntry(),
+            expectedDataSource.getDataSourceMetadata().getMaxNumValuesPerMVEntry());
+        NullValueVectorReader expectedNullValueVector = expectedDataSource.getNullValueVector();
+        NullValueVectorReader actualNullValueVector = actualDataSource.getNullValueVector();
+        for (int docId = 0; docId < NUM_ROWS; docId++) {
+          assertEquals(actualNullValueVector.isNull(docId), expectedNullValueVector.isNull(docId));
+        }
+      }
+
+      for (String column : invertedIndexColumns) {
+        InvertedIndexReader<ImmutableRoaringBitmap> expectedInvertedIndex =
+            (InvertedIndexReader<ImmutableRoaringBitmap>) expectedSegment.getDataSource(column).getInvertedIndex();
+        InvertedIndexReader<ImmutableRoaringBitmap> actualInvertedIndex =
+            (InvertedIndexReader<ImmutableRoaringBitmap>) actualSegment.getDataSource(column).getInvertedIndex();
+        int cardinality = expectedSegment.getDataSource(column).getDictionary().length();
+        assertEquals(actualSegment.getDataSource(column).getDictionary().length(), cardinality);
+        for (int dictId = 0; dictId < cardinality; dictId++) {
+          assertEquals(actualInvertedIndex.getDocIds(dictId), expectedInvertedIndex.getDocIds(dictId));
+        }
+      }
+    } finally {
+      expectedSegment.destroy();
+      actualSegment.destroy();
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.loader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
+import org.apache.pinot.segment.local.segment.readers.GenericRowRecordReader;
+import org.apache.pinot.segment.local.segment.readers.PinotSegmentColumnReader;
+import org.apache.pinot.segment.local.segment.store.RemoteSegmentDirectory;
+import org.apache.pinot.segment.local.segment.store.SegmentLocalFSDirectory;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.segment.spi.loader.SegmentDirectoryLoaderContext;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.store.ColumnIndexType;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.segment.spi.store.SegmentDirectoryPaths;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.utils.ReadMode;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.apache.pinot.util.TestUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+public class RemoteSegmentDirectoryLoaderTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "RemoteSegmentDirectoryLoaderTest");
+  private static final File DEEP_STORE_DIR = new File(TEMP_DIR, "deepStore");
+  private static final File TABLE_DATA_DIR = new File(TEMP_DIR, "testTable_OFFLINE");
+  private static final File CACHE_DIR = new File(TEMP_DIR, "cache");
+  private static final String SEGMENT_NAME = "testSegment";
+  private static final String INT_COLUMN = "intColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final int NUM_ROWS = 1000;
+
+  private TableConfig _tableConfig;
+  private Schema _schema;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    TestUtils.ensureDirectoriesExistAndEmpty(TEMP_DIR);
+    _tableConfig = new TableConfigBuilder(TableType.OFFLINE).setTableName("testTable").build();
+    _schema = new Schema.SchemaBuilder().addSingleValueDimension(INT_COLUMN, DataType.INT)
+        .addSingleValueDimension(STRING_COLUMN, DataType.STRING).build();
+    List<GenericRow> rows = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      GenericRow row = new GenericRow();
+      row.putValue(INT_COLUMN, i);
+      row.putValue(STRING_COLUMN, "value_" + (i % 10));
+      rows.add(row);
+    }
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(_tableConfig, _schema);
+    config.setOutDir(DEEP_STORE_DIR.getAbsolutePath());
+    config.setSegmentName(SEGMENT_NAME);
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, new GenericRowRecordReader(rows));
+    driver.build();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testLoadAndDelete()
+      throws Exception {
+    // Keep a local copy of the segment in the table data dir, which should not be touched by the remote loader
+    File segmentDir = new File(DEEP_STORE_DIR, SEGMENT_NAME);
+    File indexDir = new File(TABLE_DATA_DIR, SEGMENT_NAME);
+    FileUtils.copyDirectory(segmentDir, indexDir);
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+    indexLoadingConfig.setTableConfig(_tableConfig);
+    indexLoadingConfig.setReadMode(ReadMode.mmap);
+    indexLoadingConfig.setSegmentCacheDir(CACHE_DIR.getAbsolutePath());
+    SegmentDirectoryLoaderContext loaderContext =
+        new SegmentDirectoryLoaderContext.Builder().setTableConfig(_tableConfig).setSegmentName(SEGMENT_NAME)
+            .setTableDataDir(TABLE_DATA_DIR.getAbsolutePath()).setSegmentDownloadUrl(segmentDir.toURI().toString())
+            .setSegmentDirectoryConfigs(indexLoadingConfig.getSegmentDirectoryConfigs()).build();
+    RemoteSegmentDirectoryLoader loader = new RemoteSegmentDirectoryLoader();
+    SegmentDirectory segmentDirectory = loader.load(indexDir.toURI(), loaderContext);
+    assertTrue(segmentDirectory instanceof RemoteSegmentDirectory);
+    assertEquals(segmentDirectory.getIndexDir(), segmentDir.toURI());
+    assertTrue(new File(indexDir, SegmentDirectoryPaths.V3_SUBDIRECTORY_NAME + "/" + V1Constants.INDEX_FILE_NAME)
+        .exists());
+
+    // Only the metadata should be downloaded into the cache dir before the indexes are read
+    File localSegmentDir = new File(CACHE_DIR,
+        RemoteSegmentDirectoryLoader.METADATA_DIR_NAME + "/testTable_OFFLINE/" + SEGMENT_NAME + "/"
+            + SegmentDirectoryPaths.V3_SUBDIRECTORY_NAME);
+    assertTrue(new File(localSegmentDir, V1Constants.MetadataKeys.METADATA_FILE_NAME).exists());
+    assertTrue(new File(localSegmentDir, V1Constants.INDEX_MAP_FILE_NAME).exists());
+    assertFalse(new File(localSegmentDir, V1Constants.INDEX_FILE_NAME).exists());
+    assertEquals(segmentDirectory.getSegmentMetadata().getTotalDocs(), NUM_ROWS);
+    assertTrue(segmentDirectory.getColumnsWithIndex(ColumnIndexType.DICTIONARY).contains(STRING_COLUMN));
+    File cachedForwardIndex = getCachedIndex(INT_COLUMN, ColumnIndexType.FORWARD_INDEX);
+    assertFalse(cachedForwardIndex.exists());
+
+    // Indexes are downloaded on demand and should match the ones in the deep store
+    try (SegmentDirectory.Reader reader = segmentDirectory.createReader();
+        SegmentDirectory localSegmentDirectory = new DefaultSegmentDirectoryLoader().load(indexDir.toURI(),
+            loaderContext);
+        SegmentDirectory.Reader localReader = localSegmentDirectory.createReader()) {
+      assertTrue(reader.hasIndexFor(INT_COLUMN, ColumnIndexType.FORWARD_INDEX));
+      assertFalse(reader.hasIndexFor(INT_COLUMN, ColumnIndexType.INVERTED_INDEX));
+      PinotDataBuffer buffer = reader.getIndexFor(INT_COLUMN, ColumnIndexType.FORWARD_INDEX);
+      assertTrue(cachedForwardIndex.exists());
+      PinotDataBuffer localBuffer = localReader.getIndexFor(INT_COLUMN, ColumnIndexType.FORWARD_INDEX);
+      assertEquals(buffer.size(), localBuffer.size());
+      for (long i = 0; i < buffer.size(); i++) {
+        assertEquals(buffer.getByte(i), localBuffer.getByte(i));
+      }
+    }
+    segmentDirectory.close();
+
+    // Segment loaded from the remote segment directory should only fetch the indexes when they are read, and serve the
+    // same values
+    segmentDirectory = loader.load(indexDir.toURI(), loaderContext);
+    ImmutableSegment segment = ImmutableSegmentLoader.load(segmentDirectory, indexLoadingConfig, _schema);
+    File cachedDictionary = getCachedIndex(STRING_COLUMN, ColumnIndexType.DICTIONARY);
+    File cachedStringForwardIndex = getCachedIndex(STRING_COLUMN, ColumnIndexType.FORWARD_INDEX);
+    assertFalse(cachedDictionary.exists());
+    assertFalse(cachedStringForwardIndex.exists());
+    try (PinotSegmentColumnReader intReader = new PinotSegmentColumnReader(segment, INT_COLUMN)) {
+      for (int i = 0; i < NUM_ROWS; i++) {
+        assertEquals(intReader.getValue(i), i);
+      }
+    }
+    assertFalse(cachedDictionary.exists());
+    assertFalse(cachedStringForwardIndex.exists());
+    try (PinotSegmentColumnReader stringReader = new PinotSegmentColumnReader(segment, STRING_COLUMN)) {
+      for (int i = 0; i < NUM_ROWS; i++) {
+        assertEquals(stringReader.getValue(i), "value_" + (i % 10));
+      }
+    }
+    assertTrue(cachedDictionary.exists());
+    assertTrue(cachedStringForwardIndex.exists());
+    segment.destroy();
+
+    // Deleting the segment should remove the local metadata and the cached indexes
+    loader.delete(new SegmentDirectoryLoaderContext.Builder().setSegmentName(SEGMENT_NAME)
+        .setTableDataDir(TABLE_DATA_DIR.getAbsolutePath()).build());
+    assertFalse(localSegmentDir.exists());
+    assertFalse(cachedForwardIndex.exists());
+    assertFalse(cachedDictionary.exists());
+  }
+
+  @Test
+  public void testLoadWithoutDownloadUrl()
+      throws Exception {
+    File indexDir = new File(TABLE_DATA_DIR, SEGMENT_NAME);
+    FileUtils.copyDirectory(new File(DEEP_STORE_DIR, SEGMENT_NAME), indexDir);
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+    indexLoadingConfig.setTableConfig(_tableConfig);
+    indexLoadingConfig.setReadMode(ReadMode.mmap);
+    indexLoadingConfig.setSegmentCacheDir(CACHE_DIR.getAbsolutePath());
+    SegmentDirectoryLoaderContext loaderContext =
+        new SegmentDirectoryLoaderContext.Builder().setTableConfig(_tableConfig).setSegmentName(SEGMENT_NAME)
+            .setTableDataDir(TABLE_DATA_DIR.getAbsolutePath())
+            .setSegmentDirectoryConfigs(indexLoadingConfig.getSegmentDirectoryConfigs()).build();
+
+    // Segment without download URL should be loaded from the local index dir
+    try (SegmentDirectory segmentDirectory = new RemoteSegmentDirectoryLoader().load(indexDir.toURI(),
+        loaderContext)) {
+      assertTrue(segmentDirectory instanceof SegmentLocalFSDirectory);
+      assertEquals(segmentDirectory.getSegmentMetadata().getTotalDocs(), NUM_ROWS);
+    }
+  }
+
+  @Test
+  public void testCacheDirOverlappingTableDataDir()
+      throws Exception {
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+    indexLoadingConfig.setTableConfig(_tableConfig);
+    indexLoadingConfig.setSegmentCacheDir(new File(TABLE_DATA_DIR, "cache").getAbsolutePath());
+    SegmentDirectoryLoaderContext loaderContext =
+        new SegmentDirectoryLoaderContext.Builder().setTableConfig(_tableConfig).setSegmentName(SEGMENT_NAME)
+            .setTableDataDir(TABLE_DATA_DIR.getAbsolutePath())
+            .setSegmentDownloadUrl(new File(DEEP_STORE_DIR, SEGMENT_NAME).toURI().toString())
+            .setSegmentDirectoryConfigs(indexLoadingConfig.getSegmentDirectoryConfigs()).build();
+    try {
+      new RemoteSegmentDirectoryLoader().load(new File(TABLE_DATA_DIR, SEGMENT_NAME).toURI(), loaderContext);
+      fail("Loading segment with cache dir inside the table data dir should fail");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+  }
+
+  private static File getCachedIndex(String column, ColumnIndexType type) {
+    return new File(CACHE_DIR, RemoteSegmentDirectoryLoader.INDEX_CACHE_DIR_NAME + "/testTable_OFFLINE/" + SEGMENT_NAME
+        + "/" + column + "." + type.getIndexName());
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.pinot.segment.local.realtime.impl.invertedindex;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 import org.testng.annotations.Test;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
@@ -103,4 +104,27 @@ public class RealtimeInvertedIndexReaderTest {
     assertFalse(docIds.contains(1));
     assertTrue(docIds.contains(2));
   }
+
+  @Test
+  public void testBatchAdd() {
+    RealtimeInvertedIndex expectedInvertedIndex = new RealtimeInvertedIndex();
+    RealtimeInvertedIndex actualInvertedIndex = new RealtimeInvertedIndex();
+
+    // Existing and new dictionary ids, with multiple dictionary ids for document 4 (multi-value)
+    expectedInvertedIndex.add(0, 0);
+    actualInvertedIndex.add(0, 0);
+    int[] dictIds = {1, 0, 2, 1, 3, 0};
+    int[] docIds = {1, 2, 3, 4, 4, 4};
+    for (int i = 0; i < dictIds.length; i++) {
+      expectedInvertedIndex.add(dictIds[i], docIds[i]);
+    }
+    actualInvertedIndex.add(dictIds, docIds, dictIds.length);
+    for (int dictId = 0; dictId < 5; dictId++) {
+      assertEquals(actualInvertedIndex.getDocIds(dictId), expectedInvertedIndex.getDocIds(dictId));
+    }
+
+    // Only the first pairs are added
+    actualInvertedIndex.add(new int[]{4, 4}, new int[]{5, 6}, 1);
+    assertEquals(actualInvertedIndex.getDocIds(4).toArray(), new int[]{5});
+  }
 }
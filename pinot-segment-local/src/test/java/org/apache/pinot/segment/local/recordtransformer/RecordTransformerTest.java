@@ -31,6 +31,7 @@ import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -559,6 +560,58 @@ public class RecordTransformerTest {
     }
   }
 
+  @Test
+  public void testDefaultTransformerWithIndexedRow() {
+    CompositeTransformer transformer = CompositeTransformer.getDefaultTransformer(TABLE_CONFIG, SCHEMA);
+    assertTrue(transformer.supportsIndexedRow());
+    IndexedRow.Layout layout = new IndexedRow.Layout(SCHEMA);
+    IndexedRow record = new IndexedRow(layout);
+    for (int i = 0; i < NUM_ROUNDS; i++) {
+      // Values are converted to the data types in the schema when written into the IndexedRow
+      record.fromGenericRow(getRecord());
+      assertTrue(transformer.transform(record));
+      GenericRow genericRow = record.toGenericRow(new GenericRow());
+      assertEquals(genericRow.getValue("svInt"), 123);
+      assertEquals(genericRow.getValue("svLong"), 123L);
+      assertEquals(genericRow.getValue("svFloat"), 123f);
+      assertEquals(genericRow.getValue("svDouble"), 123d);
+      assertEquals(genericRow.getValue("svBoolean"), 1);
+      assertEquals(genericRow.getValue("svTimestamp"), Timestamp.valueOf("2020-02-02 22:22:22.222").getTime());
+      assertEquals(genericRow.getValue("svJson"), "{\"first\":\"daffy\",\"last\":\"duck\"}");
+      assertEquals(genericRow.getValue("svBytes"), new byte[]{123, 123});
+      assertEquals(genericRow.getValue("mvInt"), new Object[]{123});
+      assertEquals(genericRow.getValue("mvLong"), new Object[]{123L});
+      assertEquals(genericRow.getValue("mvFloat"), new Object[]{123f});
+      assertEquals(genericRow.getValue("mvDouble"), new Object[]{123d});
+      assertEquals(genericRow.getValue("svStringWithNullCharacters"), "1");
+      assertEquals(genericRow.getValue("svStringWithLengthLimit"), "12");
+      assertEquals(genericRow.getValue("mvString1"), new Object[]{"123", "123", "123", "123.0", "123.0"});
+      assertEquals(genericRow.getValue("mvString2"), new Object[]{"123", "123", "123.0", "123.0", "123"});
+      assertNull(genericRow.getValue("$virtual"));
+      assertTrue(genericRow.getNullValueFields().isEmpty());
+    }
+
+    // Test empty record
+    for (int i = 0; i < NUM_ROUNDS; i++) {
+      record.clear();
+      assertTrue(transformer.transform(record));
+      GenericRow genericRow = record.toGenericRow(new GenericRow());
+      assertEquals(genericRow.getValue("svInt"), FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_INT);
+      assertEquals(genericRow.getValue("svLong"), FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_LONG);
+      assertEquals(genericRow.getValue("svFloat"), FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_FLOAT);
+      assertEquals(genericRow.getValue("svDouble"), FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_DOUBLE);
+      assertEquals(genericRow.getValue("svBoolean"), FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_BOOLEAN);
+      assertEquals(genericRow.getValue("svTimestamp"), FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_TIMESTAMP);
+      assertEquals(genericRow.getValue("svBytes"), FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_BYTES);
+      assertEquals(genericRow.getValue("svJson"), FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_JSON);
+      assertEquals(genericRow.getValue("mvInt"), new Object[]{FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_INT});
+      assertEquals(genericRow.getValue("svStringWithLengthLimit"),
+          FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_STRING.substring(0, 2));
+      assertEquals(genericRow.getValue("mvString1"), new Object[]{FieldSpec.DEFAULT_DIMENSION_NULL_VALUE_OF_STRING});
+      validateNullValueFields(genericRow);
+    }
+  }
+
   @Test
   public void testPassThroughTransformer() {
     RecordTransformer transformer = CompositeTransformer.getPassThroughTransformer();
@@ -52,7 +52,8 @@ public class MultiValueFixedByteRawIndexCreatorTest {
 
   @DataProvider(name = "compressionTypes")
   public Object[][] compressionTypes() {
-    return Arrays.stream(ChunkCompressionType.values()).map(ct -> new Object[]{ct}).toArray(Object[][]::new);
+    return Arrays.stream(ChunkCompressionType.values()).filter(ct -> !ct.isIntegerEncoding())
+        .map(ct -> new Object[]{ct}).toArray(Object[][]::new);
   }
 
   @BeforeClass
@@ -29,6 +29,7 @@ import org.apache.pinot.segment.local.segment.index.readers.forward.ChunkReaderC
 import org.apache.pinot.segment.local.segment.index.readers.forward.FixedByteChunkSVForwardIndexReader;
 import org.apache.pinot.segment.local.segment.index.readers.forward.FixedBytePower2ChunkSVForwardIndexReader;
 import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.index.reader.ChunkZoneMap;
 import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
@@ -253,6 +254,79 @@ public class FixedByteChunkSVForwardIndexTest {
     FileUtils.deleteQuietly(outFileEightByte);
   }
 
+  @Test(dataProvider = "combinations")
+  public void testChunkZoneMap(ChunkCompressionType compressionType, int version)
+      throws Exception {
+    int[] intValues = new int[NUM_VALUES];
+    double[] doubleValues = new double[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      intValues[i] = RANDOM.nextInt();
+      doubleValues[i] = i % 100 == 0 ? Double.NaN : RANDOM.nextDouble();
+    }
+
+    File intFile = new File(TEST_FILE);
+    File doubleFile = new File(TEST_FILE + "double");
+    FileUtils.deleteQuietly(intFile);
+    FileUtils.deleteQuietly(doubleFile);
+
+    try (FixedByteChunkSVForwardIndexWriter intWriter = new FixedByteChunkSVForwardIndexWriter(intFile,
+        compressionType, NUM_VALUES, NUM_DOCS_PER_CHUNK, Integer.BYTES, version);
+        FixedByteChunkSVForwardIndexWriter doubleWriter = new FixedByteChunkSVForwardIndexWriter(doubleFile,
+            compressionType, NUM_VALUES, NUM_DOCS_PER_CHUNK, Double.BYTES, version)) {
+      for (int i = 0; i < NUM_VALUES; i++) {
+        intWriter.putInt(intValues[i]);
+        doubleWriter.putDouble(doubleValues[i]);
+      }
+    }
+
+    try (ForwardIndexReader<ChunkReaderContext> intReader = version >= 4
+        ? new FixedBytePower2ChunkSVForwardIndexReader(PinotDataBuffer.mapReadOnlyBigEndianFile(intFile), DataType.INT)
+        : new FixedByteChunkSVForwardIndexReader(PinotDataBuffer.mapReadOnlyBigEndianFile(intFile), DataType.INT);
+        ChunkReaderContext intReaderContext = intReader.createContext();
+        ForwardIndexReader<ChunkReaderContext> doubleReader = version >= 4
+            ? new FixedBytePower2ChunkSVForwardIndexReader(PinotDataBuffer.mapReadOnlyBigEndianFile(doubleFile),
+            DataType.DOUBLE)
+            : new FixedByteChunkSVForwardIndexReader(PinotDataBuffer.mapReadOnlyBigEndianFile(doubleFile),
+                DataType.DOUBLE);
+        ChunkReaderContext doubleReaderContext = doubleReader.createContext()) {
+      ChunkZoneMap intZoneMap = intReader.getChunkZoneMap();
+      ChunkZoneMap doubleZoneMap = doubleReader.getChunkZoneMap();
+      Assert.assertNotNull(intZoneMap);
+      Assert.assertNotNull(doubleZoneMap);
+      int numDocsPerChunk = intZoneMap.getNumDocsPerChunk();
+      int numChunks = intZoneMap.getNumChunks();
+      Assert.assertEquals(numChunks, (NUM_VALUES + numDocsPerChunk - 1) / numDocsPerChunk);
+      for (int chunkId = 0; chunkId < numChunks; chunkId++) {
+        long minInt = Long.MAX_VALUE;
+        long maxInt = Long.MIN_VALUE;
+        double minDouble = Double.POSITIVE_INFINITY;
+        double maxDouble = Double.NEGATIVE_INFINITY;
+        int endDocId = Math.min((chunkId + 1) * numDocsPerChunk, NUM_VALUES);
+        for (int docId = chunkId * numDocsPerChunk; docId < endDocId; docId++) {
+          minInt = Math.min(minInt, intValues[docId]);
+          maxInt = Math.max(maxInt, intValues[docId]);
+          if (!Double.isNaN(doubleValues[docId])) {
+            minDouble = Math.min(minDouble, doubleValues[docId]);
+            maxDouble = Math.max(maxDouble, doubleValues[docId]);
+          }
+        }
+        Assert.assertEquals(intZoneMap.getMinLong(chunkId), minInt);
+        Assert.assertEquals(intZoneMap.getMaxLong(chunkId), maxInt);
+        Assert.assertEquals(doubleZoneMap.getMinDouble(chunkId), minDouble);
+        Assert.assertEquals(doubleZoneMap.getMaxDouble(chunkId), maxDouble);
+      }
+
+      // The zone map should not affect the values
+      for (int i = 0; i < NUM_VALUES; i++) {
+        Assert.assertEquals(intReader.getInt(i, intReaderContext), intValues[i]);
+        Assert.assertEquals(doubleReader.getDouble(i, doubleReaderContext), doubleValues[i]);
+      }
+    }
+
+    FileUtils.deleteQuietly(intFile);
+    FileUtils.deleteQuietly(doubleFile);
+  }
+
   /**
    * This test ensures that the reader can read in an data file from version 1.
    */
@@ -283,6 +357,7 @@ public class FixedByteChunkSVForwardIndexTest {
     try (FixedByteChunkSVForwardIndexReader reader = new FixedByteChunkSVForwardIndexReader(
         PinotDataBuffer.mapReadOnlyBigEndianFile(file), DataType.DOUBLE);
         ChunkReaderContext readerContext = reader.createContext()) {
+      Assert.assertNull(reader.getChunkZoneMap());
       for (int i = 0; i < numDocs; i++) {
         double actual = reader.getDouble(i, readerContext);
         Assert.assertEquals(actual, i + startValue);
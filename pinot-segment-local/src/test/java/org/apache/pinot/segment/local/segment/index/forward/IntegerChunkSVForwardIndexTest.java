@@ -0,0 +1,247 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.forward;
+
+import java.io.File;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.io.writer.impl.FixedByteChunkSVForwardIndexWriter;
+import org.apache.pinot.segment.local.segment.index.readers.forward.BaseIntegerChunkSVForwardIndexReader;
+import org.apache.pinot.segment.local.segment.index.readers.forward.ChunkReaderContext;
+import org.apache.pinot.segment.local.segment.index.readers.forward.DeltaChunkSVForwardIndexReader;
+import org.apache.pinot.segment.local.segment.index.readers.forward.DeltaOfDeltaChunkSVForwardIndexReader;
+import org.apache.pinot.segment.local.segment.index.readers.forward.FixedByteChunkSVForwardIndexReader;
+import org.apache.pinot.segment.local.segment.index.readers.forward.FrameOfReferenceChunkSVForwardIndexReader;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit test for the lightweight integer encodings (delta, delta-of-delta and frame-of-reference) of the fixed-width
+ * single-value raw forward index.
+ */
+public class IntegerChunkSVForwardIndexTest {
+  private static final int NUM_VALUES = 10009;
+  private static final int NUM_DOCS_PER_CHUNK = 1000;
+  private static final File TEST_FILE =
+      new File(FileUtils.getTempDirectory(), IntegerChunkSVForwardIndexTest.class.getSimpleName());
+  private static final Random RANDOM = new Random();
+
+  @DataProvider(name = "combinations")
+  public static Object[][] combinations() {
+    ChunkCompressionType[] compressionTypes = {
+        ChunkCompressionType.DELTA, ChunkCompressionType.DELTA_OF_DELTA, ChunkCompressionType.FRAME_OF_REFERENCE
+    };
+    int[] versions = {2, 3, 4};
+    Object[][] combinations = new Object[compressionTypes.length * versions.length][];
+    int index = 0;
+    for (ChunkCompressionType compressionType : compressionTypes) {
+      for (int version : versions) {
+        combinations[index++] = new Object[]{compressionType, version};
+      }
+    }
+    return combinations;
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEST_FILE);
+  }
+
+  @Test(dataProvider = "combinations")
+  public void testInt(ChunkCompressionType compressionType, int version)
+      throws Exception {
+    for (long[] values : generateValues(true)) {
+      try (FixedByteChunkSVForwardIndexWriter writer = new FixedByteChunkSVForwardIndexWriter(TEST_FILE,
+          compressionType, NUM_VALUES, NUM_DOCS_PER_CHUNK, Integer.BYTES, version)) {
+        for (long value : values) {
+          writer.putInt((int) value);
+        }
+      }
+      try (PinotDataBuffer dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(TEST_FILE);
+          BaseIntegerChunkSVForwardIndexReader reader = createReader(compressionType, dataBuffer, DataType.INT);
+          ChunkReaderContext readerContext = reader.createContext();
+          FixedByteChunkSVForwardIndexReader fallbackReader = new FixedByteChunkSVForwardIndexReader(dataBuffer,
+              DataType.INT);
+          ChunkReaderContext fallbackReaderContext = fallbackReader.createContext()) {
+        Assert.assertEquals(reader.getCompressionType(), compressionType);
+        for (int i = 0; i < NUM_VALUES; i++) {
+          Assert.assertEquals(reader.getInt(i, readerContext), (int) values[i]);
+          Assert.assertEquals(fallbackReader.getInt(i, fallbackReaderContext), (int) values[i]);
+        }
+
+        // Batch APIs
+        int[] docIds = generateDocIds();
+        int length = docIds.length;
+        int[] intValues = new int[length];
+        long[] longValues = new long[length];
+        reader.readValuesSV(docIds, length, intValues, readerContext);
+        reader.readValuesSV(docIds, length, longValues, readerContext);
+        for (int i = 0; i < length; i++) {
+          Assert.assertEquals(intValues[i], (int) values[docIds[i]]);
+          Assert.assertEquals(longValues[i], (int) values[docIds[i]]);
+        }
+      }
+    }
+  }
+
+  @Test(dataProvider = "combinations")
+  public void testLong(ChunkCompressionType compressionType, int version)
+      throws Exception {
+    for (long[] values : generateValues(false)) {
+      try (FixedByteChunkSVForwardIndexWriter writer = new FixedByteChunkSVForwardIndexWriter(TEST_FILE,
+          compressionType, NUM_VALUES, NUM_DOCS_PER_CHUNK, Long.BYTES, version)) {
+        for (long value : values) {
+          writer.putLong(value);
+        }
+      }
+      try (PinotDataBuffer dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(TEST_FILE);
+          BaseIntegerChunkSVForwardIndexReader reader = createReader(compressionType, dataBuffer, DataType.LONG);
+          ChunkReaderContext readerContext = reader.createContext();
+          FixedByteChunkSVForwardIndexReader fallbackReader = new FixedByteChunkSVForwardIndexReader(dataBuffer,
+              DataType.LONG);
+          ChunkReaderContext fallbackReaderContext = fallbackReader.createContext()) {
+        for (int i = 0; i < NUM_VALUES; i++) {
+          Assert.assertEquals(reader.getLong(i, readerContext), values[i]);
+          Assert.assertEquals(fallbackReader.getLong(i, fallbackReaderContext), values[i]);
+        }
+
+        // Batch APIs
+        int[] docIds = generateDocIds();
+        int length = docIds.length;
+        long[] longValues = new long[length];
+        double[] doubleValues = new double[length];
+        reader.readValuesSV(docIds, length, longValues, readerContext);
+        reader.readValuesSV(docIds, length, doubleValues, readerContext);
+        for (int i = 0; i < length; i++) {
+          Assert.assertEquals(longValues[i], values[docIds[i]]);
+          Assert.assertEquals(doubleValues[i], (double) values[docIds[i]]);
+        }
+      }
+    }
+  }
+
+  @Test(dataProvider = "combinations")
+  public void testDouble(ChunkCompressionType compressionType, int version)
+      throws Exception {
+    double[] values = new double[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      values[i] = RANDOM.nextInt(100) / 4.0;
+    }
+    try (FixedByteChunkSVForwardIndexWriter writer = new FixedByteChunkSVForwardIndexWriter(TEST_FILE,
+        compressionType, NUM_VALUES, NUM_DOCS_PER_CHUNK, Double.BYTES, version)) {
+      for (double value : values) {
+        writer.putDouble(value);
+      }
+    }
+    try (PinotDataBuffer dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(TEST_FILE);
+        BaseIntegerChunkSVForwardIndexReader reader = createReader(compressionType, dataBuffer, DataType.DOUBLE);
+        ChunkReaderContext readerContext = reader.createContext()) {
+      for (int i = 0; i < NUM_VALUES; i++) {
+        Assert.assertEquals(reader.getDouble(i, readerContext), values[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testIndexSize()
+      throws Exception {
+    // Timestamps in milliseconds with small jitter, and a counter with small increments
+    long[] timestamps = new long[NUM_VALUES];
+    long[] counters = new long[NUM_VALUES];
+    long timestamp = System.currentTimeMillis();
+    long counter = 0;
+    for (int i = 0; i < NUM_VALUES; i++) {
+      timestamp += 1000 + RANDOM.nextInt(10);
+      timestamps[i] = timestamp;
+      counter += RANDOM.nextInt(16);
+      counters[i] = counter;
+    }
+    long lz4Size = getIndexSize(ChunkCompressionType.LZ4, timestamps);
+    Assert.assertTrue(getIndexSize(ChunkCompressionType.DELTA, timestamps) * 4 < lz4Size);
+    Assert.assertTrue(getIndexSize(ChunkCompressionType.DELTA_OF_DELTA, timestamps) * 4 < lz4Size);
+    Assert.assertTrue(
+        getIndexSize(ChunkCompressionType.DELTA, counters) * 4 < getIndexSize(ChunkCompressionType.LZ4, counters));
+  }
+
+  private static long getIndexSize(ChunkCompressionType compressionType, long[] values)
+      throws Exception {
+    FileUtils.deleteQuietly(TEST_FILE);
+    try (FixedByteChunkSVForwardIndexWriter writer = new FixedByteChunkSVForwardIndexWriter(TEST_FILE,
+        compressionType, NUM_VALUES, NUM_DOCS_PER_CHUNK, Long.BYTES, 3)) {
+      for (long value : values) {
+        writer.putLong(value);
+      }
+    }
+    return TEST_FILE.length();
+  }
+
+  private static BaseIntegerChunkSVForwardIndexReader createReader(ChunkCompressionType compressionType,
+      PinotDataBuffer dataBuffer, DataType storedType) {
+    switch (compressionType) {
+      case DELTA:
+        return new DeltaChunkSVForwardIndexReader(dataBuffer, storedType);
+      case DELTA_OF_DELTA:
+        return new DeltaOfDeltaChunkSVForwardIndexReader(dataBuffer, storedType);
+      case FRAME_OF_REFERENCE:
+        return new FrameOfReferenceChunkSVForwardIndexReader(dataBuffer, storedType);
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  /**
+   * Generates values with different patterns to cover all the bit widths of the residuals.
+   */
+  private static long[][] generateValues(boolean isInt) {
+    long minValue = isInt ? Integer.MIN_VALUE : Long.MIN_VALUE;
+    long maxValue = isInt ? Integer.MAX_VALUE : Long.MAX_VALUE;
+    long[] constant = new long[NUM_VALUES];
+    long[] increasing = new long[NUM_VALUES];
+    long[] smallRange = new long[NUM_VALUES];
+    long[] random = new long[NUM_VALUES];
+    long[] extremes = new long[NUM_VALUES];
+    long constantValue = isInt ? RANDOM.nextInt() : RANDOM.nextLong();
+    long increasingValue = -5000;
+    for (int i = 0; i < NUM_VALUES; i++) {
+      constant[i] = constantValue;
+      increasingValue += RANDOM.nextInt(3);
+      increasing[i] = increasingValue;
+      smallRange[i] = RANDOM.nextInt(1 << (i % 17));
+      random[i] = isInt ? RANDOM.nextInt() : RANDOM.nextLong();
+      extremes[i] = RANDOM.nextBoolean() ? minValue : maxValue;
+    }
+    return new long[][]{constant, increasing, smallRange, random, extremes};
+  }
+
+  private static int[] generateDocIds() {
+    int[] docIds = new int[NUM_VALUES / 3];
+    int docId = RANDOM.nextInt(3);
+    for (int i = 0; i < docIds.length; i++) {
+      docIds[i] = docId;
+      docId += 1 + RANDOM.nextInt(2);
+    }
+    return docIds;
+  }
+}
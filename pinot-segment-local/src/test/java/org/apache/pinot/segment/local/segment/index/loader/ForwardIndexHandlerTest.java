@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
@@ -116,8 +117,10 @@ public class ForwardIndexHandlerTest {
   TableConfig _tableConfig;
   Schema _schema;
   File _segmentDirectory;
+  // Integer encodings are only applicable to INT/LONG columns
   private List<FieldConfig.CompressionCodec> _allCompressionTypes =
-      Arrays.asList(FieldConfig.CompressionCodec.values());
+      Arrays.stream(FieldConfig.CompressionCodec.values()).filter(codec -> !codec.isIntegerEncoding())
+          .collect(Collectors.toList());
 
   @BeforeClass
   public void setUp()
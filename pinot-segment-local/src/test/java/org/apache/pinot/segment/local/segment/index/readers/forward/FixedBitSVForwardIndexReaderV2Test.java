@@ -41,6 +41,11 @@ public class FixedBitSVForwardIndexReaderV2Test {
 
   private final int[][] _sequentialDocIds = new int[32][NUM_DOC_IDS];
   private final int[] _sparseDocIds = new int[NUM_DOC_IDS];
+  private final int[] _denseDocIds = new int[NUM_DOC_IDS];
+  // Sequential doc ids with some docs missing, ending at the last doc
+  private final int[] _holesDocIds = new int[NUM_DOC_IDS];
+  // Runs of sequential doc ids separated by gaps, ending at the last doc
+  private final int[] _clusteredDocIds = new int[NUM_DOC_IDS];
   private final int[] _lastSequentialDocIds = new int[NUM_DOC_IDS];
 
   @BeforeClass
@@ -62,6 +67,33 @@ public class FixedBitSVForwardIndexReaderV2Test {
       sparseDocId += 5 + RANDOM.nextInt(6);
       _lastSequentialDocIds[i] = NUM_VALUES - NUM_DOC_IDS + i;
     }
+
+    int denseDocId = RANDOM.nextInt(10);
+    for (int i = 0; i < NUM_DOC_IDS; i++) {
+      _denseDocIds[i] = denseDocId;
+      denseDocId += 1 + RANDOM.nextInt(3);
+    }
+
+    int holesDocId = NUM_VALUES - 1;
+    for (int i = NUM_DOC_IDS - 1; i >= 0; i--) {
+      _holesDocIds[i] = holesDocId;
+      holesDocId -= RANDOM.nextInt(10) == 0 ? 2 : 1;
+    }
+
+    int clusteredDocId = 0;
+    int runLength = 0;
+    for (int i = 0; i < NUM_DOC_IDS; i++) {
+      if (runLength == 0) {
+        clusteredDocId += RANDOM.nextInt(100);
+        runLength = 1 + RANDOM.nextInt(64);
+      }
+      _clusteredDocIds[i] = clusteredDocId++;
+      runLength--;
+    }
+    int shift = NUM_VALUES - clusteredDocId;
+    for (int i = 0; i < NUM_DOC_IDS; i++) {
+      _clusteredDocIds[i] += shift;
+    }
   }
 
   @AfterClass
@@ -106,6 +138,23 @@ public class FixedBitSVForwardIndexReaderV2Test {
         for (int i = 0; i < NUM_DOC_IDS; i++) {
           Assert.assertEquals(dictIdBuffer[i], values[_lastSequentialDocIds[i]]);
         }
+        reader.readDictIds(_denseDocIds, NUM_DOC_IDS, dictIdBuffer, null);
+        for (int i = 0; i < NUM_DOC_IDS; i++) {
+          Assert.assertEquals(dictIdBuffer[i], values[_denseDocIds[i]]);
+        }
+        reader.readDictIds(_holesDocIds, NUM_DOC_IDS, dictIdBuffer, null);
+        for (int i = 0; i < NUM_DOC_IDS; i++) {
+          Assert.assertEquals(dictIdBuffer[i], values[_holesDocIds[i]]);
+        }
+        reader.readDictIds(_clusteredDocIds, NUM_DOC_IDS, dictIdBuffer, null);
+        for (int i = 0; i < NUM_DOC_IDS; i++) {
+          Assert.assertEquals(dictIdBuffer[i], values[_clusteredDocIds[i]]);
+        }
+        // Partial batch
+        reader.readDictIds(_holesDocIds, 300, dictIdBuffer, null);
+        for (int i = 0; i < 300; i++) {
+          Assert.assertEquals(dictIdBuffer[i], values[_holesDocIds[i]]);
+        }
       }
     }
   }
@@ -0,0 +1,208 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+
+public class LocalIndexCacheTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "LocalIndexCacheTest");
+  private static final int INDEX_SIZE = 1000;
+
+  private LocalIndexCache _cache;
+  private AtomicInteger _numFetches;
+
+  @BeforeMethod
+  public void setUp() {
+    // Fits 3 indexes
+    _cache = new LocalIndexCache(TEMP_DIR, 3 * INDEX_SIZE);
+    _numFetches = new AtomicInteger();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  private PinotDataBuffer acquire(String key)
+      throws IOException {
+    return _cache.acquire(key, INDEX_SIZE, destFile -> {
+      _numFetches.getAndIncrement();
+      byte[] bytes = new byte[INDEX_SIZE];
+      bytes[0] = (byte) key.hashCode();
+      FileUtils.writeByteArrayToFile(destFile, bytes);
+    });
+  }
+
+  @Test
+  public void testAcquireAndRelease()
+      throws Exception {
+    PinotDataBuffer buffer = acquire("seg/a");
+    assertEquals(buffer.size(), INDEX_SIZE);
+    assertEquals(buffer.getByte(0), (byte) "seg/a".hashCode());
+    assertEquals(_numFetches.get(), 1);
+    assertEquals(_cache.getSizeBytes(), INDEX_SIZE);
+
+    // Cached index should not be fetched again, either pinned or not
+    acquire("seg/a");
+    assertEquals(_numFetches.get(), 1);
+    _cache.release("seg/a");
+    _cache.release("seg/a");
+    assertTrue(_cache.isCached("seg/a"));
+    buffer = acquire("seg/a");
+    assertEquals(buffer.getByte(0), (byte) "seg/a".hashCode());
+    assertEquals(_numFetches.get(), 1);
+    _cache.release("seg/a");
+
+    try {
+      _cache.release("seg/a");
+      fail("Releasing an index not acquired should fail");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void testEviction()
+      throws Exception {
+    for (String key : new String[]{"seg/a", "seg/b", "seg/c"}) {
+      acquire(key);
+      _cache.release(key);
+    }
+    assertEquals(_cache.getSizeBytes(), 3 * INDEX_SIZE);
+
+    // Access 'a' so that 'b' becomes the least recently used index
+    acquire("seg/a");
+    _cache.release("seg/a");
+    acquire("seg/d");
+    assertEquals(_cache.getSizeBytes(), 3 * INDEX_SIZE);
+    assertTrue(_cache.isCached("seg/a"));
+    assertFalse(_cache.isCached("seg/b"));
+    assertFalse(new File(TEMP_DIR, "seg/b").exists());
+    assertTrue(_cache.isCached("seg/c"));
+    assertTrue(_cache.isCached("seg/d"));
+    _cache.release("seg/d");
+
+    // Pinned indexes should not be evicted, and indexes not fitting next to them should be rejected
+    acquire("seg/a");
+    acquire("seg/c");
+    acquire("seg/e");
+    assertEquals(_cache.getSizeBytes(), 3 * INDEX_SIZE);
+    assertFalse(_cache.isCached("seg/d"));
+    try {
+      acquire("seg/f");
+      fail("Acquiring index exceeding the cache size limit should fail");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+    assertEquals(_numFetches.get(), 5);
+    assertFalse(_cache.isCached("seg/f"));
+    assertEquals(_cache.getSizeBytes(), 3 * INDEX_SIZE);
+
+    // Released indexes should be evicted to make room for the new ones
+    _cache.release("seg/a");
+    acquire("seg/f");
+    assertEquals(_cache.getSizeBytes(), 3 * INDEX_SIZE);
+    assertFalse(_cache.isCached("seg/a"));
+    assertTrue(_cache.isCached("seg/f"));
+    for (String key : new String[]{"seg/c", "seg/e", "seg/f"}) {
+      _cache.release(key);
+    }
+  }
+
+  @Test
+  public void testUpdateMaxSize()
+      throws Exception {
+    for (String key : new String[]{"seg/a", "seg/b", "seg/c"}) {
+      acquire(key);
+    }
+    _cache.release("seg/a");
+    _cache.release("seg/b");
+
+    // Lowering the limit should evict the released indexes, and the pinned ones once released
+    _cache.setMaxSizeBytes(INDEX_SIZE / 2);
+    assertEquals(_cache.getMaxSizeBytes(), INDEX_SIZE / 2);
+    assertFalse(_cache.isCached("seg/a"));
+    assertFalse(_cache.isCached("seg/b"));
+    assertTrue(_cache.isCached("seg/c"));
+    _cache.release("seg/c");
+    assertFalse(_cache.isCached("seg/c"));
+    assertEquals(_cache.getSizeBytes(), 0);
+
+    // Index larger than the limit can never be cached
+    try {
+      acquire("seg/a");
+      fail("Acquiring index larger than the cache size limit should fail");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+
+    // Raising the limit should allow caching the indexes again
+    _cache.setMaxSizeBytes(3 * INDEX_SIZE);
+    acquire("seg/a");
+    assertTrue(_cache.isCached("seg/a"));
+    _cache.release("seg/a");
+  }
+
+  @Test
+  public void testInvalidate()
+      throws Exception {
+    acquire("seg1/a");
+    acquire("seg1/b");
+    acquire("seg2/a");
+    _cache.release("seg1/a");
+    _cache.release("seg2/a");
+    _cache.invalidate("seg1/");
+    assertFalse(_cache.isCached("seg1/a"));
+    assertTrue(_cache.isCached("seg1/b"));
+    assertTrue(_cache.isCached("seg2/a"));
+    assertEquals(_cache.getSizeBytes(), 2 * INDEX_SIZE);
+    _cache.release("seg1/b");
+  }
+
+  @Test
+  public void testFetchFailure()
+      throws Exception {
+    try {
+      _cache.acquire("seg/a", INDEX_SIZE, destFile -> FileUtils.writeByteArrayToFile(destFile, new byte[10]));
+      fail("Fetching index with mismatching size should fail");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+    assertFalse(_cache.isCached("seg/a"));
+
+    // Failed index should be fetched again
+    acquire("seg/a");
+    assertEquals(_numFetches.get(), 1);
+    assertTrue(_cache.isCached("seg/a"));
+    _cache.release("seg/a");
+  }
+}
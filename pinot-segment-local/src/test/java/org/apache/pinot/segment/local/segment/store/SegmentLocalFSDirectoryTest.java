@@ -19,7 +19,11 @@
 package org.apache.pinot.segment.local.segment.store;
 
 import java.io.File;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.UUID;
 import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.FetchContext;
 import org.apache.pinot.segment.spi.creator.SegmentVersion;
 import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
@@ -27,6 +31,7 @@ import org.apache.pinot.segment.spi.store.ColumnIndexType;
 import org.apache.pinot.segment.spi.store.SegmentDirectory;
 import org.apache.pinot.segment.spi.store.SegmentDirectoryPaths;
 import org.apache.pinot.spi.utils.ReadMode;
+import org.apache.pinot.util.TestUtils;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -116,6 +121,94 @@ public class SegmentLocalFSDirectoryTest {
     }
   }
 
+  @Test
+  public void testTouchPages()
+      throws Exception {
+    try (PinotDataBuffer buffer = PinotDataBuffer.allocateDirect(10000, ByteOrder.BIG_ENDIAN, null)) {
+      Assert.assertEquals(SegmentLocalFSDirectory.touchPages(buffer), 3);
+    }
+    try (PinotDataBuffer buffer = PinotDataBuffer.allocateDirect(4096, ByteOrder.BIG_ENDIAN, null)) {
+      Assert.assertEquals(SegmentLocalFSDirectory.touchPages(buffer), 1);
+    }
+  }
+
+  @Test
+  public void testPrefetch()
+      throws Exception {
+    File indexDir = new File(FileUtils.getTempDirectory(), "SegmentLocalFSDirectoryTest_prefetch");
+    FileUtils.deleteQuietly(indexDir);
+    indexDir.mkdirs();
+    try {
+      // Write the indexes of a hot and a cold column
+      SegmentMetadataImpl metadata = ColumnIndexDirectoryTestHelper.writeMetadata(SegmentVersion.v1);
+      try (SegmentLocalFSDirectory segmentDirectory = new SegmentLocalFSDirectory(indexDir, metadata, ReadMode.mmap);
+          SegmentDirectory.Writer writer = segmentDirectory.createWriter()) {
+        loadData(writer.newIndexFor("hotColumn", ColumnIndexType.FORWARD_INDEX, 10000));
+        loadData(writer.newIndexFor("coldColumn", ColumnIndexType.FORWARD_INDEX, 10000));
+        loadData(writer.newIndexFor("coldColumn", ColumnIndexType.INVERTED_INDEX, 10000));
+        writer.save();
+      }
+
+      // Hot columns are prefetched at load time, and async prefetch is not performed when disabled
+      try (SegmentLocalFSDirectory segmentDirectory = new SegmentLocalFSDirectory(indexDir, metadata, ReadMode.mmap,
+          Collections.singleton("hotColumn"), false)) {
+        Assert.assertTrue(segmentDirectory.isIndexPrefetched("hotColumn", ColumnIndexType.FORWARD_INDEX));
+        Assert.assertFalse(segmentDirectory.isIndexPrefetched("coldColumn", ColumnIndexType.FORWARD_INDEX));
+        segmentDirectory.prefetch(new FetchContext(UUID.randomUUID(), "testSegment",
+            Collections.singletonMap("coldColumn", Collections.singletonList(ColumnIndexType.FORWARD_INDEX))));
+        Thread.sleep(100L);
+        Assert.assertFalse(segmentDirectory.isIndexPrefetched("coldColumn", ColumnIndexType.FORWARD_INDEX));
+      }
+
+      // Hot columns are not prefetched in heap mode
+      try (SegmentLocalFSDirectory segmentDirectory = new SegmentLocalFSDirectory(indexDir, metadata, ReadMode.heap,
+          Collections.singleton("hotColumn"), true)) {
+        Assert.assertFalse(segmentDirectory.isIndexPrefetched("hotColumn", ColumnIndexType.FORWARD_INDEX));
+      }
+
+      // Only the requested indexes are prefetched asynchronously, and null index list means all the indexes
+      try (SegmentLocalFSDirectory segmentDirectory = new SegmentLocalFSDirectory(indexDir, metadata, ReadMode.mmap,
+          Collections.emptySet(), true)) {
+        segmentDirectory.prefetch(new FetchContext(UUID.randomUUID(), "testSegment",
+            Collections.singletonMap("coldColumn", Collections.singletonList(ColumnIndexType.INVERTED_INDEX))));
+        TestUtils.waitForCondition(
+            aVoid -> segmentDirectory.isIndexPrefetched("coldColumn", ColumnIndexType.INVERTED_INDEX), 10_000L,
+            "Failed to prefetch the inverted index");
+        Assert.assertFalse(segmentDirectory.isIndexPrefetched("coldColumn", ColumnIndexType.FORWARD_INDEX));
+        Assert.assertFalse(segmentDirectory.isIndexPrefetched("hotColumn", ColumnIndexType.FORWARD_INDEX));
+
+        segmentDirectory.prefetch(
+            new FetchContext(UUID.randomUUID(), "testSegment", Collections.singleton("coldColumn")));
+        TestUtils.waitForCondition(
+            aVoid -> segmentDirectory.isIndexPrefetched("coldColumn", ColumnIndexType.FORWARD_INDEX), 10_000L,
+            "Failed to prefetch the forward index");
+        Assert.assertFalse(segmentDirectory.isIndexPrefetched("hotColumn", ColumnIndexType.FORWARD_INDEX));
+      }
+
+      // Closing waits for the in-flight prefetches and forgets the prefetched indexes, so that they are read ahead
+      // again once the data is reloaded
+      try (SegmentLocalFSDirectory segmentDirectory = new SegmentLocalFSDirectory(indexDir, metadata, ReadMode.mmap,
+          Collections.singleton("hotColumn"), true)) {
+        segmentDirectory.prefetch(
+            new FetchContext(UUID.randomUUID(), "testSegment", Collections.singleton("coldColumn")));
+        segmentDirectory.close();
+        Assert.assertFalse(segmentDirectory.isIndexPrefetched("hotColumn", ColumnIndexType.FORWARD_INDEX));
+        Assert.assertFalse(segmentDirectory.isIndexPrefetched("coldColumn", ColumnIndexType.FORWARD_INDEX));
+
+        try (SegmentDirectory.Reader reader = segmentDirectory.createReader()) {
+          Assert.assertNotNull(reader);
+          segmentDirectory.prefetch(new FetchContext(UUID.randomUUID(), "testSegment",
+              Collections.singletonMap("hotColumn", Collections.singletonList(ColumnIndexType.FORWARD_INDEX))));
+          TestUtils.waitForCondition(
+              aVoid -> segmentDirectory.isIndexPrefetched("hotColumn", ColumnIndexType.FORWARD_INDEX), 10_000L,
+              "Failed to prefetch the forward index after reloading");
+        }
+      }
+    } finally {
+      FileUtils.deleteQuietly(indexDir);
+    }
+  }
+
   @Test
   public void testDirectorySize()
       throws Exception {
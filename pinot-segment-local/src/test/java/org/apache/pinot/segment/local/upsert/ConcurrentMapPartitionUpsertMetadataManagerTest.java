@@ -18,11 +18,16 @@
  */
 package org.apache.pinot.segment.local.upsert;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.io.FileUtils;
 import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.common.utils.LLCSegmentName;
 import org.apache.pinot.segment.local.indexsegment.immutable.EmptyIndexSegment;
@@ -47,9 +52,11 @@ import org.testng.annotations.Test;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
@@ -356,6 +363,113 @@ public class ConcurrentMapPartitionUpsertMetadataManagerTest {
         "37fab5ef0ea39711feabcdc623cb8a4e");
   }
 
+  @Test
+  public void testMetadataSnapshot()
+      throws IOException {
+    verifyMetadataSnapshot(HashFunction.NONE);
+    verifyMetadataSnapshot(HashFunction.MD5);
+    verifyMetadataSnapshot(HashFunction.MURMUR3);
+  }
+
+  private void verifyMetadataSnapshot(HashFunction hashFunction)
+      throws IOException {
+    File tableIndexDir = new File(FileUtils.getTempDirectory(), getClass().getSimpleName());
+    FileUtils.deleteQuietly(tableIndexDir);
+    assertTrue(tableIndexDir.mkdirs());
+    try {
+      ConcurrentMapPartitionUpsertMetadataManager upsertMetadataManager =
+          new ConcurrentMapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, Collections.singletonList("pk"),
+              "timeCol", hashFunction, null, true, mock(ServerMetrics.class), tableIndexDir);
+
+      // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
+      ThreadSafeMutableRoaringBitmap validDocIds1 = new ThreadSafeMutableRoaringBitmap();
+      ImmutableSegmentImpl segment1 = mockImmutableSegmentWithCrc(1, "crc1");
+      upsertMetadataManager.addSegment(segment1, validDocIds1,
+          getIntRecordInfoList(new int[]{0, 1, 2}, new int[]{100, 120, 100}).iterator());
+      // segment1: 1 -> {1, 120}, 2 -> {2, 100}
+      // segment2: 0 -> {0, 120}, 3 -> {1, 80}
+      ThreadSafeMutableRoaringBitmap validDocIds2 = new ThreadSafeMutableRoaringBitmap();
+      ImmutableSegmentImpl segment2 = mockImmutableSegmentWithCrc(2, "crc2");
+      upsertMetadataManager.addSegment(segment2, validDocIds2,
+          getIntRecordInfoList(new int[]{0, 3}, new int[]{120, 80}).iterator());
+      // segment1: 2 -> {2, 100}
+      // segment2: 0 -> {0, 120}, 3 -> {1, 80}
+      // segment3 (mutable): 1 -> {0, 150}, 4 -> {1, 100}
+      MutableSegment segment3 = mockMutableSegment(3, new ThreadSafeMutableRoaringBitmap());
+      upsertMetadataManager.addRecord(segment3, new RecordInfo(makePrimaryKey(1), 0, 150));
+      upsertMetadataManager.addRecord(segment3, new RecordInfo(makePrimaryKey(4), 1, 100));
+      upsertMetadataManager.close();
+      File snapshotFile = UpsertMetadataSnapshot.getSnapshotFile(tableIndexDir, 0);
+      assertTrue(snapshotFile.exists());
+
+      // Restart with the snapshot, the segments are not mocked with readable columns, so they can only be added from
+      // the snapshot. Records in the mutable segment are not in the snapshot.
+      upsertMetadataManager = new ConcurrentMapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0,
+          Collections.singletonList("pk"), "timeCol", hashFunction, null, true, mock(ServerMetrics.class),
+          tableIndexDir);
+      ImmutableSegmentImpl newSegment1 = mockImmutableSegmentWithCrc(1, "crc1");
+      ImmutableSegmentImpl newSegment2 = mockImmutableSegmentWithCrc(2, "crc2");
+      upsertMetadataManager.addSegment(newSegment2);
+      upsertMetadataManager.addSegment(newSegment1);
+      assertEquals(upsertMetadataManager._primaryKeyToRecordLocationMap.size(), 3);
+      checkIntRecordLocation(upsertMetadataManager, 0, newSegment2, 0, 120, hashFunction);
+      checkIntRecordLocation(upsertMetadataManager, 2, newSegment1, 2, 100, hashFunction);
+      checkIntRecordLocation(upsertMetadataManager, 3, newSegment2, 1, 80, hashFunction);
+      assertEquals(Objects.requireNonNull(newSegment1.getValidDocIds()).getMutableRoaringBitmap().toArray(),
+          new int[]{2});
+      assertEquals(Objects.requireNonNull(newSegment2.getValidDocIds()).getMutableRoaringBitmap().toArray(),
+          new int[]{0, 1});
+      upsertMetadataManager.close();
+      assertTrue(snapshotFile.exists());
+
+      // The snapshot should be deleted when snapshot is disabled
+      upsertMetadataManager = new ConcurrentMapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0,
+          Collections.singletonList("pk"), "timeCol", hashFunction, null, false, mock(ServerMetrics.class),
+          tableIndexDir);
+      assertFalse(snapshotFile.exists());
+      upsertMetadataManager.close();
+    } finally {
+      FileUtils.deleteQuietly(tableIndexDir);
+    }
+  }
+
+  private static void checkIntRecordLocation(ConcurrentMapPartitionUpsertMetadataManager upsertMetadataManager,
+      int keyValue, IndexSegment segment, int docId, int comparisonValue, HashFunction hashFunction) {
+    RecordLocation recordLocation = upsertMetadataManager._primaryKeyToRecordLocationMap.get(
+        HashUtils.hashPrimaryKey(makePrimaryKey(keyValue), hashFunction));
+    assertNotNull(recordLocation);
+    assertSame(recordLocation.getSegment(), segment);
+    assertEquals(recordLocation.getDocId(), docId);
+    assertEquals(recordLocation.getComparisonValue(), comparisonValue);
+  }
+
+  private static List<RecordInfo> getIntRecordInfoList(int[] primaryKeys, int[] timestamps) {
+    List<RecordInfo> recordInfoList = new ArrayList<>();
+    for (int i = 0; i < primaryKeys.length; i++) {
+      recordInfoList.add(new RecordInfo(makePrimaryKey(primaryKeys[i]), i, timestamps[i]));
+    }
+    return recordInfoList;
+  }
+
+  /**
+   * Mocks an immutable segment without readable columns, which returns the valid doc ids passed in when upsert is
+   * enabled.
+   */
+  private static ImmutableSegmentImpl mockImmutableSegmentWithCrc(int sequenceNumber, String crc) {
+    ImmutableSegmentImpl segment = mock(ImmutableSegmentImpl.class);
+    when(segment.getSegmentName()).thenReturn(getSegmentName(sequenceNumber));
+    AtomicReference<ThreadSafeMutableRoaringBitmap> validDocIds = new AtomicReference<>();
+    doAnswer(invocation -> {
+      validDocIds.set(invocation.getArgument(1));
+      return null;
+    }).when(segment).enableUpsert(any(), any());
+    when(segment.getValidDocIds()).thenAnswer(invocation -> validDocIds.get());
+    SegmentMetadataImpl segmentMetadata = mock(SegmentMetadataImpl.class);
+    when(segmentMetadata.getCrc()).thenReturn(crc);
+    when(segment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    return segment;
+  }
+
   /**
    * Use a wrapper class to ensure different value has different reference.
    */
@@ -0,0 +1,524 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.utils.LLCSegmentName;
+import org.apache.pinot.segment.local.indexsegment.immutable.EmptyIndexSegment;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentImpl;
+import org.apache.pinot.segment.local.io.writer.impl.DirectMemoryManager;
+import org.apache.pinot.segment.local.upsert.ConcurrentMapPartitionUpsertMetadataManager.RecordLocation;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
+import org.apache.pinot.segment.spi.index.mutable.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.segment.spi.memory.PinotDataBufferMemoryManager;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.builder.TableNameBuilder;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class OffHeapPartitionUpsertMetadataManagerTest {
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String REALTIME_TABLE_NAME = TableNameBuilder.REALTIME.tableNameWithType(RAW_TABLE_NAME);
+
+  private PinotDataBufferMemoryManager _memoryManager;
+
+  @BeforeMethod
+  public void setUp() {
+    _memoryManager = new DirectMemoryManager(getClass().getSimpleName());
+  }
+
+  @AfterMethod
+  public void tearDown()
+      throws IOException {
+    _memoryManager.close();
+  }
+
+  @Test
+  public void testAddReplaceRemoveSegment() {
+    verifyAddReplaceRemoveSegment(HashFunction.NONE, false);
+    verifyAddReplaceRemoveSegment(HashFunction.MD5, false);
+    verifyAddReplaceRemoveSegment(HashFunction.MURMUR3, false);
+    verifyAddReplaceRemoveSegment(HashFunction.NONE, true);
+    verifyAddReplaceRemoveSegment(HashFunction.MD5, true);
+    verifyAddReplaceRemoveSegment(HashFunction.MURMUR3, true);
+  }
+
+  private void verifyAddReplaceRemoveSegment(HashFunction hashFunction, boolean enableSnapshot) {
+    OffHeapPartitionUpsertMetadataManager upsertMetadataManager =
+        new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, Collections.singletonList("pk"), "timeCol",
+            hashFunction, null, false, mock(ServerMetrics.class), _memoryManager, 4);
+
+    // Add the first segment
+    int numRecords = 6;
+    int[] primaryKeys = new int[]{0, 1, 2, 0, 1, 0};
+    int[] timestamps = new int[]{100, 100, 100, 80, 120, 100};
+    ThreadSafeMutableRoaringBitmap validDocIds1 = new ThreadSafeMutableRoaringBitmap();
+    List<PrimaryKey> primaryKeys1 = getPrimaryKeyList(numRecords, primaryKeys);
+    ImmutableSegmentImpl segment1 = mockImmutableSegment(1, validDocIds1, primaryKeys1);
+    List<RecordInfo> recordInfoList1;
+    if (enableSnapshot) {
+      // get recordInfo from validDocIdSnapshot.
+      // segment1 snapshot: 0 -> {5, 100}, 1 -> {4, 120}, 2 -> {2, 100}
+      int[] docIds1 = new int[]{2, 4, 5};
+      MutableRoaringBitmap validDocIdsSnapshot1 = new MutableRoaringBitmap();
+      validDocIdsSnapshot1.add(docIds1);
+      recordInfoList1 = getRecordInfoList(validDocIdsSnapshot1, primaryKeys, timestamps);
+    } else {
+      // get recordInfo by iterating all records.
+      recordInfoList1 = getRecordInfoList(numRecords, primaryKeys, timestamps);
+    }
+    upsertMetadataManager.addSegment(segment1, validDocIds1, recordInfoList1.iterator());
+    // segment1: 0 -> {5, 100}, 1 -> {4, 120}, 2 -> {2, 100}
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 3);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 5, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2, 4, 5});
+
+    // Add the second segment
+    numRecords = 5;
+    primaryKeys = new int[]{0, 1, 2, 3, 0};
+    timestamps = new int[]{100, 100, 120, 80, 80};
+    ThreadSafeMutableRoaringBitmap validDocIds2 = new ThreadSafeMutableRoaringBitmap();
+    ImmutableSegmentImpl segment2 = mockImmutableSegment(2, validDocIds2, getPrimaryKeyList(numRecords, primaryKeys));
+    List<RecordInfo> recordInfoList2;
+    if (enableSnapshot) {
+      // get recordInfo from validDocIdSnapshot.
+      // segment2 snapshot: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
+      // segment1 snapshot: 1 -> {4, 120}
+      MutableRoaringBitmap validDocIdsSnapshot2 = new MutableRoaringBitmap();
+      validDocIdsSnapshot2.add(0, 2, 3);
+      recordInfoList2 = getRecordInfoList(validDocIdsSnapshot2, primaryKeys, timestamps);
+    } else {
+      // get recordInfo by iterating all records.
+      recordInfoList2 = getRecordInfoList(numRecords, primaryKeys, timestamps);
+    }
+    upsertMetadataManager.addSegment(segment2, validDocIds2, recordInfoList2.iterator());
+
+    // segment1: 1 -> {4, 120}
+    // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
+
+    // Add an empty segment
+    EmptyIndexSegment emptySegment = mockEmptySegment(3);
+    upsertMetadataManager.addSegment(emptySegment);
+    // segment1: 1 -> {4, 120}
+    // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
+
+    // Replace (reload) the first segment
+    ThreadSafeMutableRoaringBitmap newValidDocIds1 = new ThreadSafeMutableRoaringBitmap();
+    ImmutableSegmentImpl newSegment1 = mockImmutableSegment(1, newValidDocIds1, primaryKeys1);
+    upsertMetadataManager.replaceSegment(newSegment1, newValidDocIds1, recordInfoList1.iterator(), segment1);
+    // original segment1: 1 -> {4, 120} (not in the map)
+    // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
+    // new segment1: 1 -> {4, 120}
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
+    assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
+    assertEquals(upsertMetadataManager._replacedSegments, Collections.singleton(segment1));
+
+    // Remove the original segment1
+    upsertMetadataManager.removeSegment(segment1);
+    // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
+    // new segment1: 1 -> {4, 120}
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
+    assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
+    assertTrue(upsertMetadataManager._replacedSegments.isEmpty());
+
+    // Remove the empty segment
+    upsertMetadataManager.removeSegment(emptySegment);
+    // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
+    // new segment1: 1 -> {4, 120}
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80);
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
+    assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
+
+    // Remove segment2
+    upsertMetadataManager.removeSegment(segment2);
+    // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80} (not in the map)
+    // new segment1: 1 -> {4, 120}
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 1);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120);
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
+    assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
+  }
+
+  private List<RecordInfo> getRecordInfoList(int numRecords, int[] primaryKeys, int[] timestamps) {
+    List<RecordInfo> recordInfoList = new ArrayList<>();
+    for (int i = 0; i < numRecords; i++) {
+      recordInfoList.add(new RecordInfo(makePrimaryKey(primaryKeys[i]), i, Integer.valueOf(timestamps[i])));
+    }
+    return recordInfoList;
+  }
+
+  /**
+   * Get recordInfo from validDocIdsSnapshot (enabledSnapshot = True).
+   */
+  private List<RecordInfo> getRecordInfoList(MutableRoaringBitmap validDocIdsSnapshot, int[] primaryKeys,
+      int[] timestamps) {
+    List<RecordInfo> recordInfoList = new ArrayList<>();
+    Iterator<Integer> validDocIdsIterator = validDocIdsSnapshot.iterator();
+    validDocIdsIterator.forEachRemaining((docId) -> recordInfoList.add(
+        new RecordInfo(makePrimaryKey(primaryKeys[docId]), docId, Integer.valueOf(timestamps[docId]))));
+    return recordInfoList;
+  }
+
+  private List<PrimaryKey> getPrimaryKeyList(int numRecords, int[] primaryKeys) {
+    List<PrimaryKey> primaryKeyList = new ArrayList<>();
+    for (int i = 0; i < numRecords; i++) {
+      primaryKeyList.add(makePrimaryKey(primaryKeys[i]));
+    }
+    return primaryKeyList;
+  }
+
+  private static ImmutableSegmentImpl mockImmutableSegment(int sequenceNumber,
+      ThreadSafeMutableRoaringBitmap validDocIds, List<PrimaryKey> primaryKeys) {
+    ImmutableSegmentImpl segment = mock(ImmutableSegmentImpl.class);
+    when(segment.getSegmentName()).thenReturn(getSegmentName(sequenceNumber));
+    when(segment.getValidDocIds()).thenReturn(validDocIds);
+    DataSource dataSource = mock(DataSource.class);
+    when(segment.getDataSource(anyString())).thenReturn(dataSource);
+    ForwardIndexReader forwardIndex = mock(ForwardIndexReader.class);
+    when(forwardIndex.isSingleValue()).thenReturn(true);
+    when(forwardIndex.getStoredType()).thenReturn(DataType.INT);
+    when(forwardIndex.getInt(anyInt(), any())).thenAnswer(
+        invocation -> primaryKeys.get(invocation.getArgument(0)).getValues()[0]);
+    when(dataSource.getForwardIndex()).thenReturn(forwardIndex);
+    return segment;
+  }
+
+  private static EmptyIndexSegment mockEmptySegment(int sequenceNumber) {
+    SegmentMetadataImpl segmentMetadata = mock(SegmentMetadataImpl.class);
+    when(segmentMetadata.getName()).thenReturn(getSegmentName(sequenceNumber));
+    return new EmptyIndexSegment(segmentMetadata);
+  }
+
+  private static MutableSegment mockMutableSegment(int sequenceNumber, ThreadSafeMutableRoaringBitmap validDocIds) {
+    MutableSegment segment = mock(MutableSegment.class);
+    when(segment.getSegmentName()).thenReturn(getSegmentName(sequenceNumber));
+    when(segment.getValidDocIds()).thenReturn(validDocIds);
+    return segment;
+  }
+
+  private static String getSegmentName(int sequenceNumber) {
+    return new LLCSegmentName(RAW_TABLE_NAME, 0, sequenceNumber, System.currentTimeMillis()).toString();
+  }
+
+  private static PrimaryKey makePrimaryKey(int value) {
+    return new PrimaryKey(new Object[]{value});
+  }
+
+  private static void checkRecordLocation(OffHeapPartitionUpsertMetadataManager upsertMetadataManager, int keyValue,
+      IndexSegment segment, int docId, int comparisonValue) {
+    RecordLocation recordLocation = upsertMetadataManager.getRecordLocation(makePrimaryKey(keyValue));
+    assertNotNull(recordLocation);
+    assertSame(recordLocation.getSegment(), segment);
+    assertEquals(recordLocation.getDocId(), docId);
+    assertEquals(recordLocation.getComparisonValue(), (long) comparisonValue);
+  }
+
+  @Test
+  public void testAddRecord() {
+    verifyAddRecord(HashFunction.NONE);
+    verifyAddRecord(HashFunction.MD5);
+    verifyAddRecord(HashFunction.MURMUR3);
+  }
+
+  private void verifyAddRecord(HashFunction hashFunction) {
+    OffHeapPartitionUpsertMetadataManager upsertMetadataManager =
+        new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, Collections.singletonList("pk"), "timeCol",
+            hashFunction, null, false, mock(ServerMetrics.class), _memoryManager, 4);
+
+    // Add the first segment
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
+    int numRecords = 3;
+    int[] primaryKeys = new int[]{0, 1, 2};
+    int[] timestamps = new int[]{100, 120, 100};
+    ThreadSafeMutableRoaringBitmap validDocIds1 = new ThreadSafeMutableRoaringBitmap();
+    ImmutableSegmentImpl segment1 = mockImmutableSegment(1, validDocIds1, getPrimaryKeyList(numRecords, primaryKeys));
+    upsertMetadataManager.addSegment(segment1, validDocIds1,
+        getRecordInfoList(numRecords, primaryKeys, timestamps).iterator());
+
+    // Update records from the second segment
+    ThreadSafeMutableRoaringBitmap validDocIds2 = new ThreadSafeMutableRoaringBitmap();
+    MutableSegment segment2 = mockMutableSegment(1, validDocIds2);
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(3), 0, Integer.valueOf(100)));
+
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
+    // segment2: 3 -> {0, 100}
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0});
+
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(2), 1, Integer.valueOf(120)));
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}
+    // segment2: 2 -> {1, 120}, 3 -> {0, 100}
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
+
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(1), 2, Integer.valueOf(100)));
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}
+    // segment2: 2 -> {1, 120}, 3 -> {0, 100}
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
+
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(0), 3, Integer.valueOf(100)));
+    // segment1: 1 -> {1, 120}
+    // segment2: 0 -> {3, 100}, 2 -> {1, 120}, 3 -> {0, 100}
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 3, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{1});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 3});
+  }
+
+  @Test
+  public void testRecordLocationMap()
+      throws IOException {
+    try (OffHeapRecordLocationMap recordLocationMap = new OffHeapRecordLocationMap(_memoryManager, "test", 1)) {
+      // Use colliding high bits for half of the keys to exercise the probing and the backward-shift removal
+      int numKeys = 1000;
+      for (int i = 0; i < numKeys; i++) {
+        recordLocationMap.add(getKeyHigh(i), i, i % 7, i, -i);
+      }
+      assertEquals(recordLocationMap.size(), numKeys);
+      for (int i = 0; i < numKeys; i++) {
+        int slot = recordLocationMap.getSlot(getKeyHigh(i), i);
+        assertTrue(slot >= 0);
+        assertEquals(recordLocationMap.getSegmentOrdinal(slot), i % 7);
+        assertEquals(recordLocationMap.getDocId(slot), i);
+        assertEquals(recordLocationMap.getComparisonValue(slot), -i);
+      }
+      assertEquals(recordLocationMap.getSlot(getKeyHigh(numKeys), numKeys), OffHeapRecordLocationMap.NOT_FOUND);
+
+      // Remove the even keys
+      for (int i = 0; i < numKeys; i += 2) {
+        recordLocationMap.remove(recordLocationMap.getSlot(getKeyHigh(i), i));
+      }
+      assertEquals(recordLocationMap.size(), numKeys / 2);
+      for (int i = 0; i < numKeys; i++) {
+        int slot = recordLocationMap.getSlot(getKeyHigh(i), i);
+        if (i % 2 == 0) {
+          assertEquals(slot, OffHeapRecordLocationMap.NOT_FOUND);
+        } else {
+          assertEquals(recordLocationMap.getDocId(slot), i);
+        }
+      }
+
+      // Update the odd keys
+      for (int i = 1; i < numKeys; i += 2) {
+        int slot = recordLocationMap.getSlot(getKeyHigh(i), i);
+        recordLocationMap.setLocation(slot, 0, i + 1, i);
+        assertEquals(recordLocationMap.getSegmentOrdinal(slot), 0);
+        assertEquals(recordLocationMap.getDocId(slot), i + 1);
+        assertEquals(recordLocationMap.getComparisonValue(slot), i);
+      }
+    }
+  }
+
+  private static long getKeyHigh(int i) {
+    return i % 2 == 0 ? 0L : i * 0x9E3779B97F4A7C15L;
+  }
+
+  @Test
+  public void testDoubleComparisonValue() {
+    OffHeapPartitionUpsertMetadataManager upsertMetadataManager =
+        new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, Collections.singletonList("pk"), "timeCol",
+            HashFunction.NONE, null, false, mock(ServerMetrics.class), _memoryManager, 4);
+    ThreadSafeMutableRoaringBitmap validDocIds = new ThreadSafeMutableRoaringBitmap();
+    MutableSegment segment = mockMutableSegment(1, validDocIds);
+    double[] comparisonValues = new double[]{-1.5, -2.5, 0.0, 3.25, -0.5, 3.0};
+    for (int i = 0; i < comparisonValues.length; i++) {
+      upsertMetadataManager.addRecord(segment, new RecordInfo(makePrimaryKey(0), i, comparisonValues[i]));
+    }
+    // Only the records with a comparison value greater than or equal to the previous max are kept: -1.5, 0.0, 3.25
+    RecordLocation recordLocation = upsertMetadataManager.getRecordLocation(makePrimaryKey(0));
+    assertNotNull(recordLocation);
+    assertEquals(recordLocation.getDocId(), 3);
+    assertEquals(recordLocation.getComparisonValue(), 3.25);
+    assertEquals(validDocIds.getMutableRoaringBitmap().toArray(), new int[]{3});
+  }
+
+  @Test
+  public void testMetadataSnapshot()
+      throws IOException {
+    verifyMetadataSnapshot(HashFunction.NONE);
+    verifyMetadataSnapshot(HashFunction.MD5);
+    verifyMetadataSnapshot(HashFunction.MURMUR3);
+  }
+
+  private void verifyMetadataSnapshot(HashFunction hashFunction)
+      throws IOException {
+    File tableIndexDir = new File(FileUtils.getTempDirectory(), getClass().getSimpleName());
+    FileUtils.deleteQuietly(tableIndexDir);
+    assertTrue(tableIndexDir.mkdirs());
+    try {
+      OffHeapPartitionUpsertMetadataManager upsertMetadataManager =
+          new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, Collections.singletonList("pk"),
+              "timeCol", hashFunction, null, true, mock(ServerMetrics.class), tableIndexDir, _memoryManager, 4);
+
+      // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
+      ThreadSafeMutableRoaringBitmap validDocIds1 = new ThreadSafeMutableRoaringBitmap();
+      ImmutableSegmentImpl segment1 = mockImmutableSegmentWithCrc(1, "crc1");
+      upsertMetadataManager.addSegment(segment1, validDocIds1,
+          getIntRecordInfoList(new int[]{0, 1, 2}, new int[]{100, 120, 100}).iterator());
+      // segment1: 1 -> {1, 120}, 2 -> {2, 100}
+      // segment2: 0 -> {0, 120}, 3 -> {1, 80}
+      ThreadSafeMutableRoaringBitmap validDocIds2 = new ThreadSafeMutableRoaringBitmap();
+      ImmutableSegmentImpl segment2 = mockImmutableSegmentWithCrc(2, "crc2");
+      upsertMetadataManager.addSegment(segment2, validDocIds2,
+          getIntRecordInfoList(new int[]{0, 3}, new int[]{120, 80}).iterator());
+      // segment1: 2 -> {2, 100}
+      // segment2: 0 -> {0, 120}, 3 -> {1, 80}
+      // segment3 (mutable): 1 -> {0, 150}, 4 -> {1, 100}
+      MutableSegment segment3 = mockMutableSegment(3, new ThreadSafeMutableRoaringBitmap());
+      upsertMetadataManager.addRecord(segment3, new RecordInfo(makePrimaryKey(1), 0, 150));
+      upsertMetadataManager.addRecord(segment3, new RecordInfo(makePrimaryKey(4), 1, 100));
+      upsertMetadataManager.close();
+      File snapshotFile = UpsertMetadataSnapshot.getSnapshotFile(tableIndexDir, 0);
+      assertTrue(snapshotFile.exists());
+
+      // Restart with the snapshot, the segments are not mocked with readable columns, so they can only be added from
+      // the snapshot. Records in the mutable segment are not in the snapshot.
+      upsertMetadataManager = new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0,
+          Collections.singletonList("pk"), "timeCol", hashFunction, null, true, mock(ServerMetrics.class),
+          tableIndexDir, _memoryManager, 4);
+      ImmutableSegmentImpl newSegment1 = mockImmutableSegmentWithCrc(1, "crc1");
+      ImmutableSegmentImpl newSegment2 = mockImmutableSegmentWithCrc(2, "crc2");
+      upsertMetadataManager.addSegment(newSegment2);
+      upsertMetadataManager.addSegment(newSegment1);
+      assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 3);
+      checkRecordLocation(upsertMetadataManager, 0, newSegment2, 0, 120);
+      checkRecordLocation(upsertMetadataManager, 2, newSegment1, 2, 100);
+      checkRecordLocation(upsertMetadataManager, 3, newSegment2, 1, 80);
+      assertEquals(Objects.requireNonNull(newSegment1.getValidDocIds()).getMutableRoaringBitmap().toArray(),
+          new int[]{2});
+      assertEquals(Objects.requireNonNull(newSegment2.getValidDocIds()).getMutableRoaringBitmap().toArray(),
+          new int[]{0, 1});
+      upsertMetadataManager.close();
+      assertTrue(snapshotFile.exists());
+
+      // The snapshot should be deleted when snapshot is disabled
+      upsertMetadataManager = new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0,
+          Collections.singletonList("pk"), "timeCol", hashFunction, null, false, mock(ServerMetrics.class),
+          tableIndexDir, _memoryManager, 4);
+      assertFalse(snapshotFile.exists());
+      upsertMetadataManager.close();
+    } finally {
+      FileUtils.deleteQuietly(tableIndexDir);
+    }
+  }
+
+  private static List<RecordInfo> getIntRecordInfoList(int[] primaryKeys, int[] timestamps) {
+    List<RecordInfo> recordInfoList = new ArrayList<>();
+    for (int i = 0; i < primaryKeys.length; i++) {
+      recordInfoList.add(new RecordInfo(makePrimaryKey(primaryKeys[i]), i, timestamps[i]));
+    }
+    return recordInfoList;
+  }
+
+  /**
+   * Mocks an immutable segment without readable columns, which returns the valid doc ids passed in when upsert is
+   * enabled.
+   */
+  private static ImmutableSegmentImpl mockImmutableSegmentWithCrc(int sequenceNumber, String crc) {
+    ImmutableSegmentImpl segment = mock(ImmutableSegmentImpl.class);
+    when(segment.getSegmentName()).thenReturn(getSegmentName(sequenceNumber));
+    AtomicReference<ThreadSafeMutableRoaringBitmap> validDocIds = new AtomicReference<>();
+    doAnswer(invocation -> {
+      validDocIds.set(invocation.getArgument(1));
+      return null;
+    }).when(segment).enableUpsert(any(), any());
+    when(segment.getValidDocIds()).thenAnswer(invocation -> validDocIds.get());
+    SegmentMetadataImpl segmentMetadata = mock(SegmentMetadataImpl.class);
+    when(segmentMetadata.getCrc()).thenReturn(crc);
+    when(segment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    return segment;
+  }
+}
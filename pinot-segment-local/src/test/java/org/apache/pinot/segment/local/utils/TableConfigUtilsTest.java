@@ -896,6 +896,28 @@ public class TableConfigUtilsTest {
       Assert.assertEquals(e.getMessage(), "Set compression codec to null for dictionary encoding type");
     }
 
+    tableConfig = new TableConfigBuilder(TableType.OFFLINE).setTableName(TABLE_NAME)
+        .setNoDictionaryColumns(Arrays.asList("myCol1", "intCol")).build();
+    try {
+      FieldConfig fieldConfig = new FieldConfig("myCol1", FieldConfig.EncodingType.RAW, Collections.emptyList(),
+          FieldConfig.CompressionCodec.DELTA, null);
+      tableConfig.setFieldConfigList(Arrays.asList(fieldConfig));
+      TableConfigUtils.validate(tableConfig, schema);
+      Assert.fail("Should fail since delta encoding is not supported for STRING column");
+    } catch (Exception e) {
+      Assert.assertEquals(e.getMessage(),
+          "Compression codec: DELTA is only supported for single value INT/LONG columns. Invalid for column: myCol1");
+    }
+
+    try {
+      FieldConfig fieldConfig = new FieldConfig("intCol", FieldConfig.EncodingType.RAW, Collections.emptyList(),
+          FieldConfig.CompressionCodec.FRAME_OF_REFERENCE, null);
+      tableConfig.setFieldConfigList(Arrays.asList(fieldConfig));
+      TableConfigUtils.validate(tableConfig, schema);
+    } catch (Exception e) {
+      Assert.fail("Should not fail for frame-of-reference encoding on INT column");
+    }
+
     tableConfig = new TableConfigBuilder(TableType.OFFLINE).setTableName(TABLE_NAME)
         .setNoDictionaryColumns(Arrays.asList("myCol1")).build();
     try {
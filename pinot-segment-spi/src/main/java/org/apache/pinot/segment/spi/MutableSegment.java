@@ -19,8 +19,10 @@
 package org.apache.pinot.segment.spi;
 
 import java.io.IOException;
+import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.apache.pinot.spi.stream.RowMetadata;
 
 
@@ -36,6 +38,39 @@ public interface MutableSegment extends IndexSegment {
   boolean index(GenericRow row, @Nullable RowMetadata rowMetadata)
       throws IOException;
 
+  /**
+   * Indexes a record stored in an {@link IndexedRow} into the segment with optionally provided metadata. The default
+   * implementation converts the record into a {@link GenericRow}.
+   *
+   * @param row Record represented as an {@link IndexedRow}
+   * @param rowMetadata the metadata associated with the message
+   * @return Whether the segment is full (i.e. cannot index more record into it)
+   */
+  default boolean index(IndexedRow row, @Nullable RowMetadata rowMetadata)
+      throws IOException {
+    return index(row.toGenericRow(new GenericRow()), rowMetadata);
+  }
+
+  /**
+   * Indexes a batch of records into the segment with optionally provided metadata shared by all the records. Only the
+   * records that fit into the segment are indexed, in order.
+   *
+   * @param rows Records represented as {@link GenericRow}s
+   * @param rowMetadata the metadata associated with the message
+   * @return The number of records indexed, which is smaller than the number of records when the segment is full
+   */
+  default int index(List<GenericRow> rows, @Nullable RowMetadata rowMetadata)
+      throws IOException {
+    int numRowsIndexed = 0;
+    for (GenericRow row : rows) {
+      numRowsIndexed++;
+      if (!index(row, rowMetadata)) {
+        break;
+      }
+    }
+    return numRowsIndexed;
+  }
+
   /**
    * Returns the number of records already indexed into the segment.
    *
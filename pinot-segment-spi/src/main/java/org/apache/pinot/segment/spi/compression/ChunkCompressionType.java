@@ -19,7 +19,9 @@
 package org.apache.pinot.segment.spi.compression;
 
 public enum ChunkCompressionType {
-  PASS_THROUGH(0), SNAPPY(1), ZSTANDARD(2), LZ4(3), LZ4_LENGTH_PREFIXED(4);
+  PASS_THROUGH(0), SNAPPY(1), ZSTANDARD(2), LZ4(3), LZ4_LENGTH_PREFIXED(4),
+  // Lightweight integer encodings, only applicable to fixed-width single-value raw forward index
+  DELTA(5), DELTA_OF_DELTA(6), FRAME_OF_REFERENCE(7);
 
   private static final ChunkCompressionType[] VALUES = values();
 
@@ -33,6 +35,14 @@ public enum ChunkCompressionType {
     return _value;
   }
 
+  /**
+   * Returns {@code true} if this is a lightweight integer encoding, which encodes the chunk as fixed-width integer
+   * values instead of opaque bytes.
+   */
+  public boolean isIntegerEncoding() {
+    return this == DELTA || this == DELTA_OF_DELTA || this == FRAME_OF_REFERENCE;
+  }
+
   public static ChunkCompressionType valueOf(int ordinal) {
     if (ordinal < 0 || ordinal >= VALUES.length) {
       throw new IllegalArgumentException("invalid ordinal " + ordinal);
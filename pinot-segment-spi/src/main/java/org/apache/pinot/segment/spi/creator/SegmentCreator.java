@@ -23,7 +23,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.ConfigurationException;
+import org.apache.pinot.segment.spi.IndexSegment;
 import org.apache.pinot.segment.spi.index.creator.SegmentIndexCreationInfo;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
@@ -55,6 +57,20 @@ public interface SegmentCreator extends Closeable, Serializable {
   void indexRow(GenericRow row)
       throws IOException;
 
+  /**
+   * Adds all the values of a column from an existing segment to the index. This is an alternative to
+   * {@link #indexRow(GenericRow)}, and should be invoked once for each column. Creators that only support row based
+   * indexing don't need to implement it.
+   *
+   * @param columnName The name of the column to index
+   * @param sortedDocIds The doc ids of the segment in the order to index, or {@code null} to index in doc id order
+   * @param segment The segment to read the values from
+   */
+  default void indexColumn(String columnName, @Nullable int[] sortedDocIds, IndexSegment segment)
+      throws IOException {
+    throw new UnsupportedOperationException("Column based indexing is not supported by: " + getClass().getName());
+  }
+
   /**
    * Sets the name of the segment.
    *
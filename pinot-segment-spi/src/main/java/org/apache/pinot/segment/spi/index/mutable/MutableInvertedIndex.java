@@ -29,4 +29,16 @@ public interface MutableInvertedIndex extends InvertedIndexReader<MutableRoaring
    * @param docId document id
    */
   void add(int dictId, int docId);
+
+  /**
+   * Add the docIds to the posting lists for the dictionary ids, where the i-th docId is added for the i-th dictId.
+   * @param dictIds dictionary ids
+   * @param docIds document ids
+   * @param length number of dictionary id and document id pairs
+   */
+  default void add(int[] dictIds, int[] docIds, int length) {
+    for (int i = 0; i < length; i++) {
+      add(dictIds[i], docIds[i]);
+    }
+  }
 }
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.spi.index.reader;
+
+/**
+ * Interface for the per-chunk zone map of a chunk-based single-value raw forward index, which records the min/max value
+ * of each chunk so that the chunks that cannot match a predicate can be skipped without being decompressed.
+ * <p>The values of the INT and LONG forward index are accessed as long, and the values of the FLOAT and DOUBLE forward
+ * index are accessed as double. NaN values are not counted in the min/max value.
+ */
+public interface ChunkZoneMap {
+
+  /**
+   * Returns the number of chunks.
+   */
+  int getNumChunks();
+
+  /**
+   * Returns the number of documents per chunk (the last chunk might contain less documents).
+   */
+  int getNumDocsPerChunk();
+
+  /**
+   * Returns the min value of the given chunk for the INT and LONG forward index.
+   */
+  long getMinLong(int chunkId);
+
+  /**
+   * Returns the max value of the given chunk for the INT and LONG forward index.
+   */
+  long getMaxLong(int chunkId);
+
+  /**
+   * Returns the min value of the given chunk for the FLOAT and DOUBLE forward index.
+   */
+  double getMinDouble(int chunkId);
+
+  /**
+   * Returns the max value of the given chunk for the FLOAT and DOUBLE forward index.
+   */
+  double getMaxDouble(int chunkId);
+}
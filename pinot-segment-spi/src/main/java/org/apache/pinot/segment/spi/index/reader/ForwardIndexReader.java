@@ -68,6 +68,15 @@ public interface ForwardIndexReader<T extends ForwardIndexReaderContext> extends
     return -1;
   }
 
+  /**
+   * Returns the per-chunk zone map (min/max value of each chunk) if recorded. Only valid for single-value fixed-width
+   * RAW forward index columns implemented in BaseChunkForwardIndexReader. Returns {@code null} otherwise.
+   */
+  @Nullable
+  default ChunkZoneMap getChunkZoneMap() {
+    return null;
+  }
+
   /**
    * Creates a new {@link ForwardIndexReaderContext} of the reader which can be used to accelerate the reads.
    * NOTE: Caller is responsible for closing the returned reader context.
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.segment.spi.loader;
 
+import javax.annotation.Nullable;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.env.PinotConfiguration;
@@ -35,10 +36,12 @@ public class SegmentDirectoryLoaderContext {
   private final String _segmentName;
   private final String _segmentCrc;
   private final String _segmentTier;
+  private final String _segmentDownloadUrl;
   private final PinotConfiguration _segmentDirectoryConfigs;
 
   private SegmentDirectoryLoaderContext(TableConfig tableConfig, Schema schema, String instanceId, String tableDataDir,
-      String segmentName, String segmentCrc, String segmentTier, PinotConfiguration segmentDirectoryConfigs) {
+      String segmentName, String segmentCrc, String segmentTier, String segmentDownloadUrl,
+      PinotConfiguration segmentDirectoryConfigs) {
     _tableConfig = tableConfig;
     _schema = schema;
     _instanceId = instanceId;
@@ -46,6 +49,7 @@ public class SegmentDirectoryLoaderContext {
     _segmentName = segmentName;
     _segmentCrc = segmentCrc;
     _segmentTier = segmentTier;
+    _segmentDownloadUrl = segmentDownloadUrl;
     _segmentDirectoryConfigs = segmentDirectoryConfigs;
   }
 
@@ -77,6 +81,15 @@ public class SegmentDirectoryLoaderContext {
     return _segmentTier;
   }
 
+  /**
+   * Returns the URI to download the segment from the deep store, which is only set when the segment is managed by a
+   * table data manager.
+   */
+  @Nullable
+  public String getSegmentDownloadUrl() {
+    return _segmentDownloadUrl;
+  }
+
   public PinotConfiguration getSegmentDirectoryConfigs() {
     return _segmentDirectoryConfigs;
   }
@@ -89,6 +102,7 @@ public class SegmentDirectoryLoaderContext {
     private String _segmentName;
     private String _segmentCrc;
     private String _segmentTier;
+    private String _segmentDownloadUrl;
     private PinotConfiguration _segmentDirectoryConfigs;
 
     public Builder setTableConfig(TableConfig tableConfig) {
@@ -126,6 +140,11 @@ public class SegmentDirectoryLoaderContext {
       return this;
     }
 
+    public Builder setSegmentDownloadUrl(String segmentDownloadUrl) {
+      _segmentDownloadUrl = segmentDownloadUrl;
+      return this;
+    }
+
     public Builder setSegmentDirectoryConfigs(PinotConfiguration segmentDirectoryConfigs) {
       _segmentDirectoryConfigs = segmentDirectoryConfigs;
       return this;
@@ -133,7 +152,7 @@ public class SegmentDirectoryLoaderContext {
 
     public SegmentDirectoryLoaderContext build() {
       return new SegmentDirectoryLoaderContext(_tableConfig, _schema, _instanceId, _tableDataDir, _segmentName,
-          _segmentCrc, _segmentTier, _segmentDirectoryConfigs);
+          _segmentCrc, _segmentTier, _segmentDownloadUrl, _segmentDirectoryConfigs);
     }
   }
 }
@@ -52,6 +52,7 @@ import org.apache.pinot.core.data.manager.InstanceDataManager;
 import org.apache.pinot.core.data.manager.offline.TableDataManagerProvider;
 import org.apache.pinot.core.data.manager.realtime.LLRealtimeSegmentDataManager;
 import org.apache.pinot.core.data.manager.realtime.PinotFSSegmentUploader;
+import org.apache.pinot.core.data.manager.realtime.RealtimeConsumptionPipeline;
 import org.apache.pinot.core.data.manager.realtime.SegmentBuildTimeLeaseExtender;
 import org.apache.pinot.core.data.manager.realtime.SegmentUploader;
 import org.apache.pinot.core.util.SegmentRefreshSemaphore;
@@ -123,6 +124,9 @@ public class HelixInstanceDataManager implements InstanceDataManager {
     // Initialize segment build time lease extender executor
     SegmentBuildTimeLeaseExtender.initExecutor();
 
+    // Initialize the executor shared by the realtime consumption pipelines
+    RealtimeConsumptionPipeline.initExecutor();
+
     // Initialize the table data manager provider
     TableDataManagerProvider.init(_instanceDataManagerConfig);
     LOGGER.info("Initialized Helix instance data manager");
@@ -155,6 +159,7 @@ public class HelixInstanceDataManager implements InstanceDataManager {
       tableDataManager.shutDown();
     }
     SegmentBuildTimeLeaseExtender.shutdownExecutor();
+    RealtimeConsumptionPipeline.shutdownExecutor();
     LOGGER.info("Helix instance data manager shut down");
   }
 
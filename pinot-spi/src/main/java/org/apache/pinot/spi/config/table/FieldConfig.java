@@ -98,7 +98,13 @@ public class FieldConfig extends BaseJsonConfig {
   }
 
   public enum CompressionCodec {
-    PASS_THROUGH, SNAPPY, ZSTANDARD, LZ4
+    PASS_THROUGH, SNAPPY, ZSTANDARD, LZ4,
+    // Lightweight integer encodings, only applicable to single-value INT/LONG raw columns
+    DELTA, DELTA_OF_DELTA, FRAME_OF_REFERENCE;
+
+    public boolean isIntegerEncoding() {
+      return this == DELTA || this == DELTA_OF_DELTA || this == FRAME_OF_REFERENCE;
+    }
   }
 
   public String getName() {
@@ -48,6 +48,8 @@ public class IndexingConfig extends BaseJsonConfig {
   private List<String> _noDictionaryColumns; // TODO: replace this with noDictionaryConfig.
   private Map<String, String> _noDictionaryConfig;
   private List<String> _onHeapDictionaryColumns;
+  // Hot columns whose indexes are fully read ahead into memory when the segment is loaded in MMAP mode
+  private List<String> _prefetchColumns;
   private boolean _enableDefaultStarTree;
   private List<StarTreeIndexConfig> _starTreeIndexConfigs;
   // Whether to allow creating star-tree when server loads the segment
@@ -68,6 +70,10 @@ public class IndexingConfig extends BaseJsonConfig {
   private boolean _createInvertedIndexDuringSegmentGeneration;
   private String _segmentNameGeneratorType;
 
+  // Whether to build the immutable segment column by column from the mutable segment when committing a realtime
+  // segment, instead of re-indexing it row by row
+  private boolean _columnMajorSegmentBuilderEnabled;
+
   /**
    * The list of columns for which the variable length dictionary needs to be enabled in offline
    * segments. This is only valid for string and bytes columns and has no impact for columns of
@@ -234,6 +240,15 @@ public class IndexingConfig extends BaseJsonConfig {
     _onHeapDictionaryColumns = onHeapDictionaryColumns;
   }
 
+  @Nullable
+  public List<String> getPrefetchColumns() {
+    return _prefetchColumns;
+  }
+
+  public void setPrefetchColumns(List<String> prefetchColumns) {
+    _prefetchColumns = prefetchColumns;
+  }
+
   @Nullable
   public List<String> getVarLengthDictionaryColumns() {
     return _varLengthDictionaryColumns;
@@ -316,4 +331,12 @@ public class IndexingConfig extends BaseJsonConfig {
   public void setSegmentNameGeneratorType(String segmentNameGeneratorType) {
     _segmentNameGeneratorType = segmentNameGeneratorType;
   }
+
+  public boolean isColumnMajorSegmentBuilderEnabled() {
+    return _columnMajorSegmentBuilderEnabled;
+  }
+
+  public void setColumnMajorSegmentBuilderEnabled(boolean columnMajorSegmentBuilderEnabled) {
+    _columnMajorSegmentBuilderEnabled = columnMajorSegmentBuilderEnabled;
+  }
 }
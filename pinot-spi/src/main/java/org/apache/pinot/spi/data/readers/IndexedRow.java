@@ -0,0 +1,536 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.spi.data.readers;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.utils.BytesUtils;
+import org.apache.pinot.spi.utils.JsonUtils;
+
+
+/**
+ * The {@code IndexedRow} is a reusable, allocation-free alternative to {@link GenericRow} for the ingestion path.
+ *
+ * <p>The columns are addressed by their index in a {@link Layout} computed once per {@link Schema}, instead of being
+ * looked up by name in a map for each record. Single-value numeric columns (INT, LONG, FLOAT, DOUBLE, BOOLEAN,
+ * TIMESTAMP) are stored in primitive slots so that they are not boxed, other columns are stored as objects.
+ *
+ * <p>Values are converted to the stored type of the column when they are written, so after writing a value the row
+ * holds the same values as a {@link GenericRow} after the {@code DataTypeTransformer}: INT, BOOLEAN as int, LONG,
+ * TIMESTAMP as long, FLOAT as float, DOUBLE as double, BIG_DECIMAL as {@link BigDecimal}, STRING, JSON as
+ * {@link String}, BYTES as {@code byte[]}, and multi-value columns as {@code Object[]} of the stored type. Empty
+ * multi-value entries are stored as {@code null}.
+ *
+ * <p>The row can be converted from/to a {@link GenericRow} for the code paths that do not support it yet.
+ */
+public class IndexedRow {
+  private static final int SLOT_LONG = 0;
+  private static final int SLOT_DOUBLE = 1;
+  private static final int SLOT_OBJECT = 2;
+
+  private final Layout _layout;
+  private final long[] _longValues;
+  private final double[] _doubleValues;
+  private final Object[] _objectValues;
+  private final boolean[] _hasValue;
+  private final boolean[] _isNullValue;
+
+  public IndexedRow(Layout layout) {
+    _layout = layout;
+    int numColumns = layout.getNumColumns();
+    _longValues = new long[numColumns];
+    _doubleValues = new double[numColumns];
+    _objectValues = new Object[numColumns];
+    _hasValue = new boolean[numColumns];
+    _isNullValue = new boolean[numColumns];
+  }
+
+  public Layout getLayout() {
+    return _layout;
+  }
+
+  /**
+   * Returns {@code true} if the column has a value (including default null value), {@code false} otherwise.
+   */
+  public boolean hasValue(int columnIndex) {
+    return _hasValue[columnIndex];
+  }
+
+  /**
+   * Returns {@code true} if the value of the column is a default null value, {@code false} otherwise.
+   */
+  public boolean isNullValue(int columnIndex) {
+    return _isNullValue[columnIndex];
+  }
+
+  public int getInt(int columnIndex) {
+    switch (_layout._slotTypes[columnIndex]) {
+      case SLOT_LONG:
+        return (int) _longValues[columnIndex];
+      case SLOT_DOUBLE:
+        return (int) _doubleValues[columnIndex];
+      default:
+        return ((Number) _objectValues[columnIndex]).intValue();
+    }
+  }
+
+  public long getLong(int columnIndex) {
+    switch (_layout._slotTypes[columnIndex]) {
+      case SLOT_LONG:
+        return _longValues[columnIndex];
+      case SLOT_DOUBLE:
+        return (long) _doubleValues[columnIndex];
+      default:
+        return ((Number) _objectValues[columnIndex]).longValue();
+    }
+  }
+
+  public float getFloat(int columnIndex) {
+    return (float) getDouble(columnIndex);
+  }
+
+  public double getDouble(int columnIndex) {
+    switch (_layout._slotTypes[columnIndex]) {
+      case SLOT_LONG:
+        return _longValues[columnIndex];
+      case SLOT_DOUBLE:
+        return _doubleValues[columnIndex];
+      default:
+        return ((Number) _objectValues[columnIndex]).doubleValue();
+    }
+  }
+
+  /**
+   * Returns the value of the column boxed into the stored type, or {@code null} if the column does not have a value.
+   * Prefer the primitive getters for the single-value numeric columns to avoid boxing.
+   */
+  @Nullable
+  public Object getValue(int columnIndex) {
+    if (!_hasValue[columnIndex]) {
+      return null;
+    }
+    switch (_layout._storedTypes[columnIndex]) {
+      case INT:
+        if (_layout._slotTypes[columnIndex] == SLOT_LONG) {
+          return (int) _longValues[columnIndex];
+        }
+        break;
+      case LONG:
+        if (_layout._slotTypes[columnIndex] == SLOT_LONG) {
+          return _longValues[columnIndex];
+        }
+        break;
+      case FLOAT:
+        if (_layout._slotTypes[columnIndex] == SLOT_DOUBLE) {
+          return (float) _doubleValues[columnIndex];
+        }
+        break;
+      case DOUBLE:
+        if (_layout._slotTypes[columnIndex] == SLOT_DOUBLE) {
+          return _doubleValues[columnIndex];
+        }
+        break;
+      default:
+        break;
+    }
+    return _objectValues[columnIndex];
+  }
+
+  public void putInt(int columnIndex, int value) {
+    putLong(columnIndex, value);
+  }
+
+  public void putLong(int columnIndex, long value) {
+    switch (_layout._slotTypes[columnIndex]) {
+      case SLOT_LONG:
+        _longValues[columnIndex] = _layout._storedTypes[columnIndex] == DataType.INT ? (int) value : value;
+        break;
+      case SLOT_DOUBLE:
+        _doubleValues[columnIndex] =
+            _layout._storedTypes[columnIndex] == DataType.FLOAT ? (float) value : (double) value;
+        break;
+      default:
+        putValue(columnIndex, value);
+        return;
+    }
+    _hasValue[columnIndex] = true;
+    _isNullValue[columnIndex] = false;
+  }
+
+  public void putFloat(int columnIndex, float value) {
+    putDouble(columnIndex, value);
+  }
+
+  public void putDouble(int columnIndex, double value) {
+    switch (_layout._slotTypes[columnIndex]) {
+      case SLOT_LONG:
+        _longValues[columnIndex] = _layout._storedTypes[columnIndex] == DataType.INT ? (int) value : (long) value;
+        break;
+      case SLOT_DOUBLE:
+        _doubleValues[columnIndex] = _layout._storedTypes[columnIndex] == DataType.FLOAT ? (float) value : value;
+        break;
+      default:
+        putValue(columnIndex, value);
+        return;
+    }
+    _hasValue[columnIndex] = true;
+    _isNullValue[columnIndex] = false;
+  }
+
+  /**
+   * Writes a value into the column after converting it to the stored type of the column. A {@code null} value or an
+   * empty multi-value entry clears the column.
+   *
+   * @throws IllegalArgumentException if the value cannot be converted to the stored type of the column
+   */
+  public void putValue(int columnIndex, @Nullable Object value) {
+    if (_layout._singleValues[columnIndex] && _layout._dataTypes[columnIndex] != DataType.JSON) {
+      value = standardizeSingleValue(value);
+    }
+    if (value == null) {
+      clearValue(columnIndex);
+      return;
+    }
+    DataType storedType = _layout._storedTypes[columnIndex];
+    switch (_layout._slotTypes[columnIndex]) {
+      case SLOT_LONG:
+        _longValues[columnIndex] = toLong(value, _layout._dataTypes[columnIndex]);
+        break;
+      case SLOT_DOUBLE:
+        double doubleValue = toDouble(value, storedType);
+        _doubleValues[columnIndex] = storedType == DataType.FLOAT ? (float) doubleValue : doubleValue;
+        break;
+      default:
+        Object convertedValue;
+        if (_layout._singleValues[columnIndex]) {
+          convertedValue = convertSingleValue(value, _layout._dataTypes[columnIndex]);
+        } else {
+          convertedValue = convertMultiValue(value, _layout._dataTypes[columnIndex]);
+          if (convertedValue == null) {
+            clearValue(columnIndex);
+            return;
+          }
+        }
+        _objectValues[columnIndex] = convertedValue;
+        break;
+    }
+    _hasValue[columnIndex] = true;
+    _isNullValue[columnIndex] = false;
+  }
+
+  /**
+   * Writes the default null value into the column. The value should already be of the stored type of the column.
+   */
+  public void putDefaultNullValue(int columnIndex, Object value) {
+    switch (_layout._slotTypes[columnIndex]) {
+      case SLOT_LONG:
+        _longValues[columnIndex] = ((Number) value).longValue();
+        break;
+      case SLOT_DOUBLE:
+        _doubleValues[columnIndex] = ((Number) value).doubleValue();
+        break;
+      default:
+        _objectValues[columnIndex] = value;
+        break;
+    }
+    _hasValue[columnIndex] = true;
+    _isNullValue[columnIndex] = true;
+  }
+
+  public void clearValue(int columnIndex) {
+    _hasValue[columnIndex] = false;
+    _isNullValue[columnIndex] = false;
+    _objectValues[columnIndex] = null;
+  }
+
+  /**
+   * Clears all the values so that the row can be reused.
+   */
+  public void clear() {
+    Arrays.fill(_hasValue, false);
+    Arrays.fill(_isNullValue, false);
+    Arrays.fill(_objectValues, null);
+  }
+
+  /**
+   * Writes the values of the given {@link GenericRow} into this row. Fields not in the layout are ignored.
+   */
+  public void fromGenericRow(GenericRow row) {
+    clear();
+    String[] columns = _layout._columns;
+    for (int i = 0; i < columns.length; i++) {
+      Object value = row.getValue(columns[i]);
+      if (value != null) {
+        if (row.isNullValue(columns[i])) {
+          putDefaultNullValue(i, value);
+        } else {
+          putValue(i, value);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the values of this row into the given {@link GenericRow}.
+   */
+  public GenericRow toGenericRow(GenericRow destination) {
+    String[] columns = _layout._columns;
+    for (int i = 0; i < columns.length; i++) {
+      if (_hasValue[i]) {
+        if (_isNullValue[i]) {
+          destination.putDefaultNullValue(columns[i], getValue(i));
+        } else {
+          destination.putValue(columns[i], getValue(i));
+        }
+      }
+    }
+    return destination;
+  }
+
+  /**
+   * Unwraps single-entry Collection/Map/Object[] written into a single-value column, and standardizes empty ones to
+   * {@code null}.
+   */
+  @Nullable
+  private static Object standardizeSingleValue(@Nullable Object value) {
+    Object[] values;
+    if (value instanceof Object[]) {
+      values = (Object[]) value;
+    } else if (value instanceof Collection) {
+      values = ((Collection<?>) value).toArray();
+    } else if (value instanceof Map) {
+      // NOTE: Map keys are ignored
+      values = ((Map<?, ?>) value).values().toArray();
+    } else {
+      return value;
+    }
+    switch (values.length) {
+      case 0:
+        return null;
+      case 1:
+        return values[0];
+      default:
+        throw new IllegalArgumentException("Cannot write multiple values into single-value column");
+    }
+  }
+
+  private static long toLong(Object value, DataType dataType) {
+    if (value instanceof Number) {
+      return dataType == DataType.INT ? ((Number) value).intValue() : ((Number) value).longValue();
+    }
+    if (value instanceof Character) {
+      return (Character) value;
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    }
+    if (value instanceof Timestamp) {
+      return ((Timestamp) value).getTime();
+    }
+    return ((Number) dataType.convert(value.toString().trim())).longValue();
+  }
+
+  private static double toDouble(Object value, DataType dataType) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    if (value instanceof Character) {
+      return (Character) value;
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    }
+    return ((Number) dataType.convert(value.toString().trim())).doubleValue();
+  }
+
+  private static Object convertSingleValue(Object value, DataType dataType) {
+    switch (dataType) {
+      case INT:
+      case BOOLEAN:
+        return (int) toLong(value, dataType);
+      case LONG:
+      case TIMESTAMP:
+        return toLong(value, dataType);
+      case FLOAT:
+        return (float) toDouble(value, dataType);
+      case DOUBLE:
+        return toDouble(value, dataType);
+      case BIG_DECIMAL:
+        if (value instanceof BigDecimal) {
+          return value;
+        }
+        return new BigDecimal(value.toString());
+      case STRING:
+        if (value instanceof String) {
+          return value;
+        }
+        if (value instanceof byte[]) {
+          return BytesUtils.toHexString((byte[]) value);
+        }
+        return value.toString();
+      case JSON:
+        if (value instanceof String) {
+          try {
+            // Try to parse the string as JSON first
+            return JsonUtils.stringToJsonNodeWithBigDecimal((String) value).toString();
+          } catch (JsonParseException e) {
+            // Not a well-formed JSON, convert it as a Java String object
+          } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot convert value: " + value + " to JSON", e);
+          }
+        }
+        try {
+          return JsonUtils.objectToString(value);
+        } catch (Exception e) {
+          throw new IllegalArgumentException("Cannot convert value: " + value + " to JSON", e);
+        }
+      case BYTES:
+        if (value instanceof byte[]) {
+          return value;
+        }
+        if (value instanceof ByteBuffer) {
+          ByteBuffer byteBuffer = ((ByteBuffer) value).slice();
+          byte[] bytes = new byte[byteBuffer.remaining()];
+          byteBuffer.get(bytes);
+          return bytes;
+        }
+        return BytesUtils.toBytes(value.toString());
+      default:
+        throw new IllegalArgumentException("Unsupported data type: " + dataType);
+    }
+  }
+
+  @Nullable
+  private static Object[] convertMultiValue(Object value, DataType dataType) {
+    Object[] values;
+    if (value instanceof Object[]) {
+      values = (Object[]) value;
+    } else if (value instanceof Collection) {
+      values = ((Collection<?>) value).toArray();
+    } else if (value instanceof Map) {
+      // NOTE: Map keys are ignored
+      values = ((Map<?, ?>) value).values().toArray();
+    } else {
+      values = new Object[]{value};
+    }
+    int numValues = values.length;
+    if (numValues == 0) {
+      return null;
+    }
+    // NOTE: Convert in place when possible to avoid allocating a new array
+    Object[] convertedValues = value.getClass() == Object[].class ? values : new Object[numValues];
+    for (int i = 0; i < numValues; i++) {
+      Object singleValue = values[i];
+      if (singleValue == null) {
+        throw new IllegalArgumentException("Cannot write null value into multi-value entry");
+      }
+      convertedValues[i] = convertSingleValue(singleValue, dataType);
+    }
+    return convertedValues;
+  }
+
+  /**
+   * The {@code Layout} maps the columns of a {@link Schema} to the slots of an {@link IndexedRow}. It should be
+   * computed once per schema and shared by all the rows of the schema.
+   */
+  public static class Layout {
+    private final String[] _columns;
+    private final FieldSpec[] _fieldSpecs;
+    private final DataType[] _dataTypes;
+    private final DataType[] _storedTypes;
+    private final boolean[] _singleValues;
+    private final int[] _slotTypes;
+    private final Map<String, Integer> _columnIndexMap;
+
+    public Layout(Schema schema) {
+      List<FieldSpec> fieldSpecs = new ArrayList<>();
+      for (FieldSpec fieldSpec : schema.getAllFieldSpecs()) {
+        if (!fieldSpec.isVirtualColumn()) {
+          fieldSpecs.add(fieldSpec);
+        }
+      }
+      int numColumns = fieldSpecs.size();
+      _columns = new String[numColumns];
+      _fieldSpecs = new FieldSpec[numColumns];
+      _dataTypes = new DataType[numColumns];
+      _storedTypes = new DataType[numColumns];
+      _singleValues = new boolean[numColumns];
+      _slotTypes = new int[numColumns];
+      _columnIndexMap = new HashMap<>(numColumns * 2);
+      for (int i = 0; i < numColumns; i++) {
+        FieldSpec fieldSpec = fieldSpecs.get(i);
+        _columns[i] = fieldSpec.getName();
+        _fieldSpecs[i] = fieldSpec;
+        _dataTypes[i] = fieldSpec.getDataType();
+        _storedTypes[i] = fieldSpec.getDataType().getStoredType();
+        _singleValues[i] = fieldSpec.isSingleValueField();
+        _slotTypes[i] = getSlotType(_storedTypes[i], _singleValues[i]);
+        _columnIndexMap.put(_columns[i], i);
+      }
+    }
+
+    private static int getSlotType(DataType storedType, boolean singleValue) {
+      if (singleValue) {
+        switch (storedType) {
+          case INT:
+          case LONG:
+            return SLOT_LONG;
+          case FLOAT:
+          case DOUBLE:
+            return SLOT_DOUBLE;
+          default:
+            break;
+        }
+      }
+      return SLOT_OBJECT;
+    }
+
+    public int getNumColumns() {
+      return _columns.length;
+    }
+
+    /**
+     * Returns the index of the given column, or -1 if the column is not in the layout.
+     */
+    public int indexOf(String column) {
+      Integer columnIndex = _columnIndexMap.get(column);
+      return columnIndex != null ? columnIndex : -1;
+    }
+
+    public String getColumnName(int columnIndex) {
+      return _columns[columnIndex];
+    }
+
+    public FieldSpec getFieldSpec(int columnIndex) {
+      return _fieldSpecs[columnIndex];
+    }
+  }
+}
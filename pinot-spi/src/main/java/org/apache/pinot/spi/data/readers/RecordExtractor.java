@@ -49,6 +49,21 @@ public interface RecordExtractor<T> extends Serializable {
    */
   GenericRow extract(T from, GenericRow to);
 
+  /**
+   * Extracts fields from the given input record and sets them into the {@link IndexedRow}. Fields not in the layout of
+   * the row are not extracted.
+   * <p>The default implementation extracts the fields into a {@link GenericRow} first, extractors should override it to
+   * write the values directly into the row.
+   *
+   * @param from The input record
+   * @param to The output IndexedRow
+   * @return The output IndexedRow
+   */
+  default IndexedRow extract(T from, IndexedRow to) {
+    to.fromGenericRow(extract(from, new GenericRow()));
+    return to;
+  }
+
   /**
    * Converts a field of the given input record. The field value will be converted to either a single value
    * (string, number, byte[]), multi value (Object[]) or a Map.
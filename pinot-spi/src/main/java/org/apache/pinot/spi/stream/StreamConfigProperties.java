@@ -111,6 +111,13 @@ public class StreamConfigProperties {
   // Time threshold that controller will wait for the segment to be built by the server
   public static final String SEGMENT_COMMIT_TIMEOUT_SECONDS = "realtime.segment.commit.timeoutSeconds";
 
+  /**
+   * Number of threads used to decode and transform the messages of a partition in parallel, while the next batch of
+   * messages is prefetched. Messages are still indexed in order by the consumer thread. By default (0), the messages
+   * are fetched, decoded, transformed and indexed sequentially by the consumer thread.
+   */
+  public static final String CONSUMPTION_PIPELINE_NUM_THREADS = "realtime.consumption.pipeline.numThreads";
+
   /**
    * Helper method to create a stream specific property
    */
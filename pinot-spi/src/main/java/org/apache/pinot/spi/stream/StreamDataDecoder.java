@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.spi.stream;
 
+import org.apache.pinot.spi.data.readers.IndexedRow;
+
 /**
  * A decoder for {@link StreamMessage}
  */
@@ -32,4 +34,23 @@ public interface StreamDataDecoder {
    * @return {@link StreamDataDecoderResult} that either contains the decoded row or the exception
    */
   StreamDataDecoderResult decode(StreamMessage message);
+
+  /**
+   * Decodes a {@link StreamMessage} into a reusable {@link IndexedRow}. Fields not in the layout of the row are
+   * dropped.
+   * <p>The default implementation decodes the message into a {@link org.apache.pinot.spi.data.readers.GenericRow}
+   * first.
+   *
+   * @param message {@link StreamMessage} that contains the data payload and optionally, a key and row metadata
+   * @param destination the {@link IndexedRow} to write the decoded row into
+   * @return {@code true} if the message is decoded, {@code false} if it should be dropped
+   */
+  default boolean decode(StreamMessage message, IndexedRow destination) {
+    StreamDataDecoderResult result = decode(message);
+    if (result.getException() != null) {
+      return false;
+    }
+    destination.fromGenericRow(result.getResult());
+    return true;
+  }
 }
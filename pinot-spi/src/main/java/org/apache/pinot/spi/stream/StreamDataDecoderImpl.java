@@ -20,6 +20,7 @@ package org.apache.pinot.spi.stream;
 
 import java.nio.charset.StandardCharsets;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,4 +68,40 @@ public class StreamDataDecoderImpl implements StreamDataDecoder {
       return new StreamDataDecoderResult(null, e);
     }
   }
+
+  @Override
+  public boolean decode(StreamMessage message, IndexedRow destination) {
+    assert message.getValue() != null;
+
+    try {
+      if (_valueDecoder.decode(message.getValue(), 0, message.getLength(), destination) == null) {
+        return false;
+      }
+      IndexedRow.Layout layout = destination.getLayout();
+      if (message.getKey() != null) {
+        int columnIndex = layout.indexOf(KEY);
+        if (columnIndex >= 0) {
+          destination.putValue(columnIndex, new String(message.getKey(), StandardCharsets.UTF_8));
+        }
+      }
+      RowMetadata metadata = message.getMetadata();
+      if (metadata != null && metadata.getHeaders() != null) {
+        metadata.getHeaders().getFieldToValueMap()
+            .forEach((key, value) -> putValueIfPresent(destination, HEADER_KEY_PREFIX + key, value));
+        metadata.getRecordMetadata()
+            .forEach((key, value) -> putValueIfPresent(destination, METADATA_KEY_PREFIX + key, value));
+      }
+      return true;
+    } catch (Exception e) {
+      LOGGER.error("Failed to decode StreamMessage", e);
+      return false;
+    }
+  }
+
+  private static void putValueIfPresent(IndexedRow row, String column, Object value) {
+    int columnIndex = row.getLayout().indexOf(column);
+    if (columnIndex >= 0) {
+      row.putValue(columnIndex, value);
+    }
+  }
 }
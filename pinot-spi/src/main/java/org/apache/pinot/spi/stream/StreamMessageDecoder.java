@@ -24,6 +24,7 @@ import javax.annotation.Nullable;
 import org.apache.pinot.spi.annotations.InterfaceAudience;
 import org.apache.pinot.spi.annotations.InterfaceStability;
 import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.IndexedRow;
 
 
 /**
@@ -71,4 +72,44 @@ public interface StreamMessageDecoder<T> {
    */
   @Nullable
   GenericRow decode(T payload, int offset, int length, GenericRow destination);
+
+  /**
+   * Decodes a row into a reusable {@link IndexedRow}.
+   * <p>The default implementation decodes the row into a {@link GenericRow} first, decoders should override it to write
+   * the values directly into the row.
+   *
+   * @param payload The buffer from which to read the row.
+   * @param destination The {@link IndexedRow} to write the decoded row into
+   * @return The destination row, or <code>null</code> if the row should be dropped from the segment.
+   */
+  @Nullable
+  default IndexedRow decode(T payload, IndexedRow destination) {
+    GenericRow row = decode(payload, new GenericRow());
+    if (row == null) {
+      return null;
+    }
+    destination.fromGenericRow(row);
+    return destination;
+  }
+
+  /**
+   * Decodes a row into a reusable {@link IndexedRow}.
+   * <p>The default implementation decodes the row into a {@link GenericRow} first, decoders should override it to write
+   * the values directly into the row.
+   *
+   * @param payload The buffer from which to read the row.
+   * @param offset The offset into the array from which the row contents starts
+   * @param length The length of the row contents in bytes
+   * @param destination The {@link IndexedRow} to write the decoded row into
+   * @return The destination row, or <code>null</code> if the row should be dropped from the segment.
+   */
+  @Nullable
+  default IndexedRow decode(T payload, int offset, int length, IndexedRow destination) {
+    GenericRow row = decode(payload, offset, length, new GenericRow());
+    if (row == null) {
+      return null;
+    }
+    destination.fromGenericRow(row);
+    return destination;
+  }
 }
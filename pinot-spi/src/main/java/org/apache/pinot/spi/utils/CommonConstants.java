@@ -222,6 +222,15 @@ public class CommonConstants {
     public static final double DEFAULT_BROKER_MIN_RESOURCE_PERCENT_FOR_START = 100.0;
     public static final String CONFIG_OF_ENABLE_QUERY_LIMIT_OVERRIDE = "pinot.broker.enable.query.limit.override";
 
+    // Broker side query result cache, only enabled when the max size is positive
+    public static final String CONFIG_OF_BROKER_RESULT_CACHE_MAX_SIZE_BYTES =
+        "pinot.broker.result.cache.max.size.bytes";
+    public static final long DEFAULT_BROKER_RESULT_CACHE_MAX_SIZE_BYTES = 0L;
+    public static final String CONFIG_OF_BROKER_RESULT_CACHE_TTL_MS = "pinot.broker.result.cache.ttl.ms";
+    public static final long DEFAULT_BROKER_RESULT_CACHE_TTL_MS = 60_000L;
+    // Table custom config to override the result cache TTL for a table, 0 disables the result cache for the table
+    public static final String TABLE_CUSTOM_CONFIG_RESULT_CACHE_TTL_MS = "brokerResultCacheTtlMs";
+
     // Config for number of threads to use for Broker reduce-phase.
     public static final String CONFIG_OF_MAX_REDUCE_THREADS_PER_QUERY = "pinot.broker.max.reduce.threads.per.query";
     public static final int DEFAULT_MAX_REDUCE_THREADS_PER_QUERY =
@@ -279,6 +288,9 @@ public class CommonConstants {
         public static final String ROUTING_OPTIONS = "routingOptions";
         public static final String USE_SCAN_REORDER_OPTIMIZATION = "useScanReorderOpt";
         public static final String MAX_EXECUTION_THREADS = "maxExecutionThreads";
+        // Minimum number of docs per morsel when splitting large segments for intra-segment parallelism, non-positive
+        // value disables the split
+        public static final String MIN_DOCS_PER_MORSEL = "minDocsPerMorsel";
         public static final String MIN_SEGMENT_GROUP_TRIM_SIZE = "minSegmentGroupTrimSize";
         public static final String MIN_SERVER_GROUP_TRIM_SIZE = "minServerGroupTrimSize";
         public static final String NUM_REPLICA_GROUPS_TO_QUERY = "numReplicaGroupsToQuery";
@@ -291,6 +303,9 @@ public class CommonConstants {
 
         public static final String ORDER_BY_ALGORITHM = "orderByAlgorithm";
 
+        // Max age of the broker cached result that can be served for the query, 0 bypasses the broker result cache
+        public static final String MAX_STALENESS_MS = "maxStalenessMs";
+
         // TODO: Remove these keys (only apply to PQL) after releasing 0.11.0
         @Deprecated
         public static final String PRESERVE_TYPE = "preserveType";
@@ -548,6 +563,17 @@ public class CommonConstants {
 
     // The complete config key is pinot.server.instance.segment.store.uri
     public static final String CONFIG_OF_SEGMENT_STORE_URI = "segment.store.uri";
+    // Whether to asynchronously read ahead the indexes a query will access for the MMAP segments before the query
+    // operators run. The complete config key is pinot.server.instance.segment.async.prefetch
+    public static final String CONFIG_OF_SEGMENT_ASYNC_PREFETCH = "segment.async.prefetch";
+    public static final boolean DEFAULT_SEGMENT_ASYNC_PREFETCH = false;
+    // Local directory and size limit of the cache for the segments loaded lazily from the deep store with the 'remote'
+    // segment directory loader. The directory keeps the segment metadata and the cached index buffers, and must not
+    // overlap with the table data dirs. The size limit applies to the index buffers. The complete config keys are
+    // pinot.server.instance.segment.cache.dir and pinot.server.instance.segment.cache.size
+    public static final String CONFIG_OF_SEGMENT_CACHE_DIR = "segment.cache.dir";
+    public static final String CONFIG_OF_SEGMENT_CACHE_SIZE = "segment.cache.size";
+    public static final String DEFAULT_SEGMENT_CACHE_SIZE = "100G";
     public static final String CONFIG_OF_LOGGER_ROOT_DIR = "pinot.server.logger.root.dir";
 
     public static class SegmentCompletionProtocol {
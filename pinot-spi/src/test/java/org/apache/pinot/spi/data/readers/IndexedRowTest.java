@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.spi.data.readers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+
+public class IndexedRowTest {
+  private static final Schema SCHEMA = new Schema.SchemaBuilder().setSchemaName("testTable")
+      .addSingleValueDimension("svInt", DataType.INT).addSingleValueDimension("svLong", DataType.LONG)
+      .addSingleValueDimension("svFloat", DataType.FLOAT).addSingleValueDimension("svDouble", DataType.DOUBLE)
+      .addSingleValueDimension("svBoolean", DataType.BOOLEAN).addSingleValueDimension("svTimestamp", DataType.TIMESTAMP)
+      .addMetric("svBigDecimal", DataType.BIG_DECIMAL)
+      .addSingleValueDimension("svString", DataType.STRING)
+      .addSingleValueDimension("svJson", DataType.JSON).addSingleValueDimension("svBytes", DataType.BYTES)
+      .addMultiValueDimension("mvInt", DataType.INT).addMultiValueDimension("mvString", DataType.STRING).build();
+  private static final IndexedRow.Layout LAYOUT = new IndexedRow.Layout(SCHEMA);
+
+  @Test
+  public void testPrimitiveValues() {
+    IndexedRow row = new IndexedRow(LAYOUT);
+    int svInt = LAYOUT.indexOf("svInt");
+    int svLong = LAYOUT.indexOf("svLong");
+    int svFloat = LAYOUT.indexOf("svFloat");
+    int svDouble = LAYOUT.indexOf("svDouble");
+    assertEquals(LAYOUT.indexOf("unknown"), -1);
+
+    row.putInt(svInt, 123);
+    row.putLong(svLong, 1L << 40);
+    row.putDouble(svFloat, 1.5);
+    row.putDouble(svDouble, 2.5);
+    assertEquals(row.getInt(svInt), 123);
+    assertEquals(row.getLong(svLong), 1L << 40);
+    assertEquals(row.getFloat(svFloat), 1.5f);
+    assertEquals(row.getDouble(svDouble), 2.5);
+    assertEquals(row.getValue(svInt), 123);
+    assertEquals(row.getValue(svLong), 1L << 40);
+    assertEquals(row.getValue(svFloat), 1.5f);
+    assertEquals(row.getValue(svDouble), 2.5);
+
+    // Values are converted to the stored type of the column
+    row.putLong(svInt, 1L << 33);
+    assertEquals(row.getValue(svInt), (int) (1L << 33));
+    row.putDouble(svLong, 3.7);
+    assertEquals(row.getValue(svLong), 3L);
+    row.putLong(svDouble, 5);
+    assertEquals(row.getValue(svDouble), 5.0);
+
+    row.clear();
+    for (int i = 0; i < LAYOUT.getNumColumns(); i++) {
+      assertFalse(row.hasValue(i));
+      assertNull(row.getValue(i));
+    }
+  }
+
+  @Test
+  public void testValueConversion() {
+    IndexedRow row = new IndexedRow(LAYOUT);
+    row.putValue(LAYOUT.indexOf("svInt"), "123");
+    row.putValue(LAYOUT.indexOf("svLong"), Collections.singletonList((short) 123));
+    row.putValue(LAYOUT.indexOf("svFloat"), new String[]{"1.5"});
+    row.putValue(LAYOUT.indexOf("svDouble"), 'a');
+    row.putValue(LAYOUT.indexOf("svBoolean"), "true");
+    row.putValue(LAYOUT.indexOf("svTimestamp"), "2020-02-02 22:22:22.222");
+    row.putValue(LAYOUT.indexOf("svBigDecimal"), 1.5);
+    row.putValue(LAYOUT.indexOf("svString"), 123L);
+    row.putValue(LAYOUT.indexOf("svJson"), "{\"first\": \"daffy\"}");
+    row.putValue(LAYOUT.indexOf("svBytes"), "7b7b");
+    row.putValue(LAYOUT.indexOf("mvInt"), Arrays.asList("1", 2L, 3.0));
+    row.putValue(LAYOUT.indexOf("mvString"), new Integer[]{1, 2});
+
+    assertEquals(row.getValue(LAYOUT.indexOf("svInt")), 123);
+    assertEquals(row.getValue(LAYOUT.indexOf("svLong")), 123L);
+    assertEquals(row.getValue(LAYOUT.indexOf("svFloat")), 1.5f);
+    assertEquals(row.getValue(LAYOUT.indexOf("svDouble")), 97.0);
+    assertEquals(row.getValue(LAYOUT.indexOf("svBoolean")), 1);
+    assertEquals(row.getValue(LAYOUT.indexOf("svTimestamp")),
+        Timestamp.valueOf("2020-02-02 22:22:22.222").getTime());
+    assertEquals(row.getValue(LAYOUT.indexOf("svBigDecimal")), new BigDecimal("1.5"));
+    assertEquals(row.getValue(LAYOUT.indexOf("svString")), "123");
+    assertEquals(row.getValue(LAYOUT.indexOf("svJson")), "{\"first\":\"daffy\"}");
+    assertEquals(row.getValue(LAYOUT.indexOf("svBytes")), new byte[]{123, 123});
+    assertEquals(row.getValue(LAYOUT.indexOf("mvInt")), new Object[]{1, 2, 3});
+    assertEquals(row.getValue(LAYOUT.indexOf("mvString")), new Object[]{"1", "2"});
+
+    // Empty multi-value entries are stored as null
+    row.putValue(LAYOUT.indexOf("mvInt"), new Object[0]);
+    assertFalse(row.hasValue(LAYOUT.indexOf("mvInt")));
+
+    expectThrows(IllegalArgumentException.class, () -> row.putValue(LAYOUT.indexOf("svInt"), "abc"));
+    expectThrows(IllegalArgumentException.class, () -> row.putValue(LAYOUT.indexOf("svInt"), new Object[]{1, 2}));
+  }
+
+  @Test
+  public void testGenericRowConversion() {
+    GenericRow genericRow = new GenericRow();
+    genericRow.putValue("svInt", 123);
+    genericRow.putDefaultNullValue("svString", "null");
+    genericRow.putValue("mvInt", new Object[]{1, 2});
+    genericRow.putValue("unknown", "value");
+
+    IndexedRow row = new IndexedRow(LAYOUT);
+    row.fromGenericRow(genericRow);
+    assertEquals(row.getInt(LAYOUT.indexOf("svInt")), 123);
+    assertTrue(row.isNullValue(LAYOUT.indexOf("svString")));
+    assertFalse(row.hasValue(LAYOUT.indexOf("svLong")));
+
+    GenericRow expectedRow = new GenericRow();
+    expectedRow.putValue("svInt", 123);
+    expectedRow.putDefaultNullValue("svString", "null");
+    expectedRow.putValue("mvInt", new Object[]{1, 2});
+    assertEquals(row.toGenericRow(new GenericRow()), expectedRow);
+  }
+}